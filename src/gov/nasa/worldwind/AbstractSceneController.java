@@ -746,17 +746,36 @@ public abstract class AbstractSceneController extends WWObjectImpl implements Sc
             // If there is more than one picked object, then find the picked object corresponding to the top color at
             // the pick point, and mark it as on top
             int colorCode = dc.getPickColorAtPoint(pickPoint);
+            PickedObject topObject = null;
             if (colorCode != 0)
             {
                 for (PickedObject po : pol)
                 {
                     if (po != null && po.getColorCode() == colorCode)
                     {
-                        po.setOnTop();
+                        topObject = po;
                         break; // No need to check the remaining picked objects.
                     }
                 }
             }
+
+            // Objects picked geometrically, by layers using a GeometricPicker, have no pick color. They are drawn over
+            // the terrain, so one of them is on top if the pick color is the terrain's or no object's. Such layers add
+            // their nearest object first.
+            if (topObject == null || topObject.isTerrain())
+            {
+                for (PickedObject po : pol)
+                {
+                    if (po != null && po.getColorCode() == 0 && !po.isTerrain())
+                    {
+                        topObject = po;
+                        break;
+                    }
+                }
+            }
+
+            if (topObject != null)
+                topObject.setOnTop();
         }
     }
 
@@ -776,6 +795,14 @@ public abstract class AbstractSceneController extends WWObjectImpl implements Sc
             {
                 int colorCode = po.getColorCode();
 
+                // Objects picked geometrically have no pick color, and have been tested against the pick rectangle
+                // exactly. They are on top.
+                if (colorCode == 0 && !po.isTerrain())
+                {
+                    po.setOnTop();
+                    continue;
+                }
+
                 // Put all of the eligible picked objects in a map to provide constant time access to a picked object
                 // by its color code. Since the number of unique color codes and picked objects may both be large, using
                 // a hash map reduces the complexity of the next loop from O(n*m) to O(n*c), where n and m are the
@@ -802,7 +829,8 @@ public abstract class AbstractSceneController extends WWObjectImpl implements Sc
 
             // If there is more than one picked object, then find the picked objects corresponding to each of the top
             // colors in the pick rectangle, and mark them all as on top.
-            int[] colorCodes = dc.getPickColorsInRectangle(pickRect, minAndMaxColorCodes);
+            int[] colorCodes = minAndMaxColorCodes != null
+                ? dc.getPickColorsInRectangle(pickRect, minAndMaxColorCodes) : null;
             if (colorCodes != null && colorCodes.length > 0)
             {
                 // Find the top picked object for each unique color code, if any, and mark it as on top.
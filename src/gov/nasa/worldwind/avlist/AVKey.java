@@ -60,6 +60,7 @@ public interface AVKey // TODO: Eliminate unused constants, if any
     final String BIG_ENDIAN = "gov.nasa.worldwind.avkey.BigEndian";
     final String BOTTOM = "gov.nasa.worldwind.avkey.Bottom";
     final String BYTE_ORDER = "gov.nasa.worldwind.avkey.ByteOrder";
+    final String BYTE_RANGE_BLOCK_CACHE_SIZE = "gov.nasa.worldwind.avkey.ByteRangeBlockCacheSize";
     final String BANDS_ORDER = "gov.nasa.worldwind.avkey.BandsOrder";
 
     final String BLACK_GAPS_DETECTION = "gov.nasa.worldwind.avkey.DetectBlackGaps";
@@ -276,6 +277,7 @@ public interface AVKey // TODO: Eliminate unused constants, if any
     final String MODEL_CLASS_NAME = "gov.nasa.worldwind.avkey.ModelClassName";
     final String MOON_ELEVATION_MODEL_CLASS_NAME = "gov.nasa.worldwind.avkey.MoonElevationModelClassName";
     final String MOON_ELEVATION_MODEL_CONFIG_FILE = "gov.nasa.worldwind.avkey.MoonElevationModelConfigFile";
+    final String MVT_GEOMETRY_CACHE_SIZE = "gov.nasa.worldwind.avkey.MVTGeometryCacheSize";
 
     final String NAME = "gov.nasa.worldwind.avkey.Name";
     final String NETWORK_STATUS_CLASS_NAME = "gov.nasa.worldwind.avkey.NetworkStatusClassName";
@@ -374,6 +376,16 @@ public interface AVKey // TODO: Eliminate unused constants, if any
     final String REPEAT_Y = "gov.nasa.worldwind.avkey.RepeatY";
     final String REPEAT_XY = "gov.nasa.worldwind.avkey.RepeatXY";
 
+    /**
+     * Selects the interpolation used when rasters are drawn onto a canvas raster that has this key. One of {@link
+     * #RESAMPLING_NEAREST_NEIGHBOR}, {@link #RESAMPLING_BILINEAR} or {@link #RESAMPLING_BICUBIC}. The default is
+     * bilinear.
+     */
+    final String RESAMPLING_METHOD = "gov.nasa.worldwind.avkey.ResamplingMethod";
+    final String RESAMPLING_BICUBIC = "gov.nasa.worldwind.avkey.ResamplingBicubic";
+    final String RESAMPLING_BILINEAR = "gov.nasa.worldwind.avkey.ResamplingBilinear";
+    final String RESAMPLING_NEAREST_NEIGHBOR = "gov.nasa.worldwind.avkey.ResamplingNearestNeighbor";
+
     final String RESIZE = "gov.nasa.worldwind.avkey.Resize";
     /** On window resize, scales the item to occupy a constant relative size of the viewport. */
     final String RESIZE_STRETCH = "gov.nasa.worldwind.CompassLayer.ResizeStretch";
@@ -544,4 +556,6 @@ public interface AVKey // TODO: Eliminate unused constants, if any
     final String WORLD_WIND_DOT_NET_LAYER_SET = "gov.nasa.worldwind.avkey.WorldWindDotNetLayerSet";
     final String WORLD_WIND_DOT_NET_PERMANENT_DIRECTORY = "gov.nasa.worldwind.avkey.WorldWindDotNetPermanentDirectory";
     final String WORLD_WINDOW_CLASS_NAME = "gov.nasa.worldwind.avkey.WorldWindowClassName";
+
+    final String XML_EVENT_CACHE_ENABLED = "gov.nasa.worldwind.avkey.XMLEventCacheEnabled";
 }
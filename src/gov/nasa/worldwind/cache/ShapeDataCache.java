@@ -292,6 +292,24 @@ public class ShapeDataCache implements Iterable<ShapeDataCache.ShapeDataCacheEnt
         entry.lastUsed = System.currentTimeMillis();
     }
 
+    /**
+     * Adds a specified entry to the cache, replacing the entry associated with a specified globe. Unlike {@link
+     * #addEntry(ShapeDataCacheEntry)}, the entry is associated with the globe's state key rather than its own, so it
+     * replaces the entry {@link #getEntry(Globe)} returns for the globe even if the entry's state key has been updated
+     * since the entry was created.
+     *
+     * @param globe the globe to associate the entry with.
+     * @param entry the entry to add. If null, the cache remains unchanged.
+     */
+    public void putEntry(Globe globe, ShapeDataCacheEntry entry)
+    {
+        if (globe == null || entry == null)
+            return;
+
+        this.entries.put(globe.getGlobeStateKey(), entry);
+        entry.lastUsed = System.currentTimeMillis();
+    }
+
     /**
      * Retrieves a specified entry from the cache.
      * <p>
@@ -38,6 +38,7 @@ import gov.nasa.worldwind.util.*;
 
 import javax.xml.stream.XMLStreamException;
 import java.awt.*;
+import java.awt.image.BufferedImage;
 import java.io.File;
 import java.nio.ByteBuffer;
 import java.util.List;
@@ -52,7 +53,7 @@ import java.util.*;
  * BasicRasterServer maintains a list of data sources and their properties in the BasicRasterServerCache and is used to
  * compose (mosaic) a data raster of the given region of interest from data sources.
  */
-public class BasicRasterServer extends WWObjectImpl implements RasterServer
+public class BasicRasterServer extends WWObjectImpl implements RasterServer, Disposable
 {
     protected java.util.List<DataRaster> dataRasterList = new java.util.ArrayList<DataRaster>();
 
@@ -60,6 +61,15 @@ public class BasicRasterServer extends WWObjectImpl implements RasterServer
 
     protected static final MemoryCache cache = new BasicRasterServerCache();
 
+    /** The maximum depth of the quadtree used to find the data rasters intersecting a request. */
+    protected static final int MAX_RASTER_TREE_LEVELS = 8;
+
+    /** Indexes the positions of the data rasters in <code>dataRasterList</code> by sector. Created on first use. */
+    protected BasicQuadTree<Integer> rasterTree;
+    /** The number of data rasters in <code>dataRasterList</code> when <code>rasterTree</code> was created. */
+    protected int rasterTreeSize;
+    protected final Object rasterTreeLock = new Object();
+
     /**
      * BasicRasterServer constructor reads a list of data raster sources from *.RasterServer.xml (the file that
      * accompanies layer description XML file), reads sector of each source and maintains a list of data sources, their
@@ -100,6 +110,19 @@ public class BasicRasterServer extends WWObjectImpl implements RasterServer
         return cache;
     }
 
+    /**
+     * Closes the source files held open for windowed reads of this server's data rasters. The server remains usable;
+     * later requests reopen the files they read.
+     */
+    public void dispose()
+    {
+        for (DataRaster raster : this.dataRasterList)
+        {
+            if (raster instanceof CachedDataRaster)
+                ((CachedDataRaster) raster).closeWindowSource();
+        }
+    }
+
     /**
      * Returns TRUE, if the DataRaster list is not empty
      *
@@ -391,6 +414,9 @@ public class BasicRasterServer extends WWObjectImpl implements RasterServer
 
     /**
      * Composes a DataRaster of the given width and height for the specific geographic region of interest (ROI).
+     * <p>
+     * Composed rasters are kept in this server's cache, keyed by the request parameters, and repeated requests return a
+     * copy of the cached raster. Concurrent requests are composed in parallel.
      *
      * @param reqParams This is a required parameter, must not be null or empty; Must contain AVKey.WIDTH, AVKey.HEIGHT,
      *                  and AVKey.SECTOR values.
@@ -464,13 +490,10 @@ public class BasicRasterServer extends WWObjectImpl implements RasterServer
                 {
                     reqParams.setValue(AVKey.DATA_TYPE, AVKey.INT16);
                 }
-
-                reqRaster = new ByteBufferRaster(reqWidth, reqHeight, reqSector, reqParams);
             }
             else if (AVKey.IMAGE.equals(this.getStringValue(AVKey.PIXEL_FORMAT)))
             {
                 reqParams.setValue(AVKey.PIXEL_FORMAT, AVKey.IMAGE);
-                reqRaster = new BufferedImageRaster(reqWidth, reqHeight, Transparency.TRANSLUCENT, reqSector);
             }
             else
             {
@@ -479,8 +502,25 @@ public class BasicRasterServer extends WWObjectImpl implements RasterServer
                 throw new WWRuntimeException(msg);
             }
 
+            // A tile that has been composed before is served from the cache, bypassing the source rasters entirely.
+            Object cacheKey = this.createComposedRasterKey(reqParams);
+            DataRaster cachedRaster = (DataRaster) this.getCache().getObject(cacheKey);
+            if (cachedRaster != null)
+            {
+                return this.copyComposedRaster(cachedRaster, reqParams);
+            }
+
+            if (AVKey.ELEVATION.equals(reqParams.getValue(AVKey.PIXEL_FORMAT)))
+            {
+                reqRaster = new ByteBufferRaster(reqWidth, reqHeight, reqSector, reqParams);
+            }
+            else
+            {
+                reqRaster = new BufferedImageRaster(reqWidth, reqHeight, Transparency.TRANSLUCENT, reqSector);
+            }
+
             int numIntersectedRasters = 0;
-            for (DataRaster raster : this.dataRasterList)
+            for (DataRaster raster : this.getIntersectingRasters(reqSector))
             {
                 Sector rasterSector = raster.getSector();
                 Sector overlap = reqSector.intersection(rasterSector);
@@ -500,6 +540,12 @@ public class BasicRasterServer extends WWObjectImpl implements RasterServer
                 Logging.logger().finest(message);
                 throw new WWRuntimeException(message);
             }
+
+            long sizeInBytes = this.getComposedRasterSize(reqRaster);
+            if (sizeInBytes > 0L)
+            {
+                this.getCache().add(cacheKey, this.copyComposedRaster(reqRaster, reqParams), sizeInBytes);
+            }
         }
         catch (WWRuntimeException wwe)
         {
@@ -516,6 +562,143 @@ public class BasicRasterServer extends WWObjectImpl implements RasterServer
         return reqRaster;
     }
 
+    /**
+     * Returns the data rasters whose sectors intersect a specified sector, in the order they were listed in the
+     * RasterServer configuration. Rasters listed later are drawn over rasters listed earlier, so this order must be
+     * preserved. The rasters are found using a quadtree over the raster sectors rather than by testing every raster.
+     * The result may include rasters that only share an edge with the sector.
+     *
+     * @param sector the sector of interest.
+     *
+     * @return the data rasters intersecting the sector.
+     */
+    protected List<DataRaster> getIntersectingRasters(Sector sector)
+    {
+        BasicQuadTree<Integer> tree = this.getRasterTree();
+        if (tree == null)
+            return this.dataRasterList;
+
+        // A sorted set puts the raster indices back into configuration order.
+        Set<Integer> indices = tree.getItemsInRegion(sector, new TreeSet<Integer>());
+
+        List<DataRaster> rasters = new ArrayList<DataRaster>(indices.size());
+        for (Integer index : indices)
+        {
+            rasters.add(this.dataRasterList.get(index));
+        }
+
+        return rasters;
+    }
+
+    /**
+     * Returns the quadtree indexing the positions of this server's data rasters in the raster list, creating it if it
+     * does not exist or if the raster list has changed size since it was created. The tree's depth is chosen so that
+     * its leaf cells are roughly the size of an average data raster.
+     *
+     * @return the raster quadtree, or null if this server has no data rasters or no sector.
+     */
+    protected BasicQuadTree<Integer> getRasterTree()
+    {
+        synchronized (this.rasterTreeLock)
+        {
+            int numRasters = this.dataRasterList.size();
+            if (this.rasterTree != null && this.rasterTreeSize == numRasters)
+                return this.rasterTree;
+
+            Sector extent = this.getSector();
+            if (extent == null || numRasters == 0)
+                return null;
+
+            double sumDeltaLat = 0;
+            double sumDeltaLon = 0;
+            for (DataRaster raster : this.dataRasterList)
+            {
+                sumDeltaLat += raster.getSector().getDeltaLatDegrees();
+                sumDeltaLon += raster.getSector().getDeltaLonDegrees();
+            }
+
+            double ratio = Math.min(extent.getDeltaLatDegrees() * numRasters / sumDeltaLat,
+                extent.getDeltaLonDegrees() * numRasters / sumDeltaLon);
+            int numLevels = (int) Math.ceil(Math.log(ratio) / Math.log(2));
+            numLevels = WWMath.clamp(numLevels, 1, MAX_RASTER_TREE_LEVELS);
+
+            BasicQuadTree<Integer> tree = new BasicQuadTree<Integer>(numLevels, extent, null);
+            for (int i = 0; i < numRasters; i++)
+            {
+                tree.add(i, this.dataRasterList.get(i).getSector().asDegreesArray());
+            }
+
+            this.rasterTree = tree;
+            this.rasterTreeSize = numRasters;
+
+            return tree;
+        }
+    }
+
+    /**
+     * Creates the key identifying a composed raster in the cache. The key contains this server and every request
+     * parameter that affects the composed raster's contents.
+     *
+     * @param reqParams the request parameters.
+     *
+     * @return the cache key.
+     */
+    protected Object createComposedRasterKey(AVList reqParams)
+    {
+        return Arrays.asList(this, reqParams.getValue(AVKey.SECTOR), reqParams.getValue(AVKey.WIDTH),
+            reqParams.getValue(AVKey.HEIGHT), reqParams.getValue(AVKey.PIXEL_FORMAT),
+            reqParams.getValue(AVKey.DATA_TYPE), reqParams.getValue(AVKey.BYTE_ORDER),
+            reqParams.getValue(AVKey.MISSING_DATA_SIGNAL), reqParams.getValue(AVKey.MISSING_DATA_REPLACEMENT));
+    }
+
+    /**
+     * Creates a copy of a composed raster. Composed rasters are copied on their way into and out of the cache so that
+     * callers may modify or encode the rasters they receive without affecting the cached tiles.
+     *
+     * @param raster    the composed raster to copy.
+     * @param reqParams the request parameters the raster was composed for.
+     *
+     * @return a copy of the raster.
+     */
+    protected DataRaster copyComposedRaster(DataRaster raster, AVList reqParams)
+    {
+        if (raster instanceof ByteBufferRaster)
+        {
+            ByteBuffer source = ((ByteBufferRaster) raster).getByteBuffer().duplicate();
+            source.rewind();
+            ByteBuffer buffer = ByteBuffer.allocate(source.remaining());
+            buffer.put(source).rewind();
+
+            return new ByteBufferRaster(raster.getWidth(), raster.getHeight(), raster.getSector(), buffer, reqParams);
+        }
+        else if (raster instanceof BufferedImageRaster)
+        {
+            BufferedImage image = ((BufferedImageRaster) raster).getBufferedImage();
+            BufferedImage copy = new BufferedImage(image.getColorModel(), image.copyData(null),
+                image.isAlphaPremultiplied(), null);
+
+            return new BufferedImageRaster(raster.getSector(), copy);
+        }
+        else
+        {
+            String msg = Logging.getMessage("generic.UnexpectedRasterType", raster.getClass().getName());
+            Logging.logger().severe(msg);
+            throw new WWRuntimeException(msg);
+        }
+    }
+
+    /**
+     * Returns the number of bytes a composed raster occupies in the cache.
+     *
+     * @param raster the composed raster.
+     *
+     * @return the raster's size in bytes, or 0 if the raster cannot be cached.
+     */
+    protected long getComposedRasterSize(DataRaster raster)
+    {
+        return (raster instanceof Cacheable) ? ((Cacheable) raster).getSizeInBytes() : 0L;
+    }
+
     /**
      * Composes a DataRaster of the given width and height for the specific geographic region of interest (ROI), in the
      * requested file format (AVKey.IMAGE_FORMAT) and returns as a ByteBuffer
@@ -234,6 +234,21 @@ public class BufferWrapperRaster extends AbstractDataRaster implements Cacheable
         if (!this.getSector().intersects(canvas.getSector()))
             return;
 
+        if (RasterResampler.drawScalars(this, canvas))
+            return;
+
+        this.drawSamplesOnTo(canvas);
+    }
+
+    /**
+     * Draws this raster onto a canvas with bilinear interpolation, reading and writing values one row at a time
+     * through the rasters' {@link BufferWrapper}s. This is used for rasters whose buffers {@link RasterResampler}
+     * cannot address directly.
+     *
+     * @param canvas the raster to draw onto.
+     */
+    protected void drawSamplesOnTo(BufferWrapperRaster canvas)
+    {
         int thisWidth = this.getWidth();
         int thisHeight = this.getHeight();
         int canvasWidth = canvas.getWidth();
@@ -339,7 +339,7 @@ public class BufferedImageRaster extends AbstractDataRaster implements Cacheable
 
             // Set the alpha composite for appropriate alpha blending.
             g2d.setComposite(java.awt.AlphaComposite.SrcOver);
-            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, this.getInterpolationHint(canvas));
             g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
             g2d.drawImage(this.getBufferedImage(), transform, null);
@@ -388,6 +388,24 @@ public class BufferedImageRaster extends AbstractDataRaster implements Cacheable
         }
     }
 
+    /**
+     * Returns the Java2D interpolation hint matching a canvas' resampling method.
+     *
+     * @param canvas the canvas.
+     *
+     * @return the interpolation hint.
+     */
+    protected Object getInterpolationHint(DataRaster canvas)
+    {
+        String method = RasterResampler.getResamplingMethod(canvas);
+        if (AVKey.RESAMPLING_NEAREST_NEIGHBOR.equals(method))
+            return RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR;
+        else if (AVKey.RESAMPLING_BICUBIC.equals(method))
+            return RenderingHints.VALUE_INTERPOLATION_BICUBIC;
+        else
+            return RenderingHints.VALUE_INTERPOLATION_BILINEAR;
+    }
+
     private static long sizeOfDataBuffer(java.awt.image.DataBuffer dataBuffer)
     {
         return sizeOfElement(dataBuffer.getDataType()) * dataBuffer.getSize();
@@ -0,0 +1,397 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.data;
+
+import gov.nasa.worldwind.Disposable;
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.cache.FileStore;
+import gov.nasa.worldwind.formats.tiff.GeotiffReader;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.retrieve.ByteRangeChannel;
+import gov.nasa.worldwind.util.*;
+
+import java.io.*;
+import java.net.URL;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads sectors of a cloud-optimized GeoTIFF: a tiled GeoTIFF whose image directories, including those of its
+ * reduced-resolution overviews, precede its image data. The GeoTIFF's directories are read once, when the source is
+ * created. Each subsequent read decodes only the tiles of the full-resolution image or of the overview closest to the
+ * requested resolution that cover the requested sector. A remote GeoTIFF is read through a {@link ByteRangeChannel},
+ * which retrieves only those tiles' bytes and caches them in memory and in the file store.
+ * <p>
+ * The GeoTIFF must be in geographic coordinates. {@link #getLevelSetParams(int, int, AVList)} describes a level set
+ * whose levels coincide with the GeoTIFF's overviews when the overviews halve the resolution of the image at each
+ * step, as they do in cloud-optimized GeoTIFFs. Sectors may be read concurrently by several threads.
+ *
+ * @version $Id$
+ * @see gov.nasa.worldwind.terrain.COGElevationModel
+ * @see gov.nasa.worldwind.layers.COGTiledImageLayer
+ */
+public class COGRasterSource implements Disposable
+{
+    /** The directory in the file store beneath which the blocks of remote GeoTIFFs are cached. */
+    public static final String CACHE_PATH_ROOT = "COG";
+
+    protected final String name;
+    protected final GeotiffReader reader;
+    protected final AVList metadata;
+    protected final Sector sector;
+    protected final int width;
+    protected final int height;
+
+    /**
+     * Opens a cloud-optimized GeoTIFF. A GeoTIFF identified by a file URL is read directly; any other GeoTIFF is read
+     * with HTTP range requests, and the retrieved bytes are cached in the specified file store.
+     *
+     * @param url       the GeoTIFF's URL.
+     * @param fileStore the file store in which to cache the bytes of a remote GeoTIFF. May be null, in which case the
+     *                  bytes are cached only in memory.
+     * @param cachePath the path within the file store of the directory in which to cache the GeoTIFF's bytes. May be
+     *                  null, in which case the path returned by {@link #createCachePath(java.net.URL)} is used.
+     *
+     * @throws IOException              if the GeoTIFF cannot be read, is not in geographic coordinates or is not tiled.
+     * @throws IllegalArgumentException if the URL is null.
+     */
+    public COGRasterSource(URL url, FileStore fileStore, String cachePath) throws IOException
+    {
+        this(openChannel(url, fileStore, cachePath), url != null ? url.toString() : null);
+    }
+
+    /**
+     * Opens a cloud-optimized GeoTIFF read from a channel. The channel is closed when this source is disposed.
+     *
+     * @param channel the channel from which to read the GeoTIFF.
+     * @param name    a name identifying the GeoTIFF in messages and cache entries.
+     *
+     * @throws IOException              if the GeoTIFF cannot be read, is not in geographic coordinates or is not tiled.
+     * @throws IllegalArgumentException if the channel or name is null.
+     */
+    public COGRasterSource(FileChannel channel, String name) throws IOException
+    {
+        if (channel == null)
+        {
+            String message = Logging.getMessage("nullValue.ChannelIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (name == null)
+        {
+            String message = Logging.getMessage("nullValue.NameIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.name = name;
+        this.reader = new GeotiffReader(channel, name);
+        try
+        {
+            this.metadata = this.reader.copyMetadataTo(new AVListImpl());
+
+            Object o = this.metadata.getValue(AVKey.SECTOR);
+            if (!(o instanceof Sector)
+                || !AVKey.COORDINATE_SYSTEM_GEOGRAPHIC.equals(this.metadata.getValue(AVKey.COORDINATE_SYSTEM)))
+                throw new IOException(Logging.getMessage("COGRasterSource.NotGeographic", name));
+
+            if (!this.reader.isTiled(0))
+                throw new IOException(Logging.getMessage("COGRasterSource.NotTiled", name));
+
+            this.sector = (Sector) o;
+            this.width = this.reader.getWidth(0);
+            this.height = this.reader.getHeight(0);
+        }
+        catch (IOException e)
+        {
+            this.reader.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a channel for a GeoTIFF's URL: a file channel for a file URL, otherwise a {@link ByteRangeChannel}.
+     *
+     * @param url       the GeoTIFF's URL.
+     * @param fileStore the file store in which a byte range channel caches the bytes it retrieves. May be null.
+     * @param cachePath the path within the file store of the channel's cache directory. May be null, in which case the
+     *                  path returned by {@link #createCachePath(java.net.URL)} is used.
+     *
+     * @return a channel from which to read the GeoTIFF.
+     *
+     * @throws IOException              if the channel cannot be opened.
+     * @throws IllegalArgumentException if the URL is null.
+     */
+    protected static FileChannel openChannel(URL url, FileStore fileStore, String cachePath) throws IOException
+    {
+        if (url == null)
+        {
+            String message = Logging.getMessage("nullValue.URLIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if ("file".equalsIgnoreCase(url.getProtocol()))
+            return new RandomAccessFile(WWIO.convertURLToFile(url), "r").getChannel();
+
+        return new ByteRangeChannel(url, fileStore, cachePath != null ? cachePath : createCachePath(url));
+    }
+
+    /**
+     * Returns the default path of the directory within the file store in which the bytes of a remote GeoTIFF are
+     * cached. The path is formed from the URL's authority and file, beneath {@link #CACHE_PATH_ROOT}.
+     *
+     * @param url the GeoTIFF's URL.
+     *
+     * @return the GeoTIFF's cache path.
+     *
+     * @throws IllegalArgumentException if the URL is null.
+     */
+    public static String createCachePath(URL url)
+    {
+        if (url == null)
+        {
+            String message = Logging.getMessage("nullValue.URLIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        return WWIO.formPath(CACHE_PATH_ROOT, url.getAuthority(), url.getFile());
+    }
+
+    /**
+     * Returns the name identifying this source's GeoTIFF.
+     *
+     * @return the GeoTIFF's name.
+     */
+    public String getName()
+    {
+        return this.name;
+    }
+
+    /**
+     * Returns the sector covered by the GeoTIFF.
+     *
+     * @return the GeoTIFF's sector.
+     */
+    public Sector getSector()
+    {
+        return this.sector;
+    }
+
+    /**
+     * Returns the width of the GeoTIFF's full-resolution image.
+     *
+     * @return the image width, in pixels.
+     */
+    public int getWidth()
+    {
+        return this.width;
+    }
+
+    /**
+     * Returns the height of the GeoTIFF's full-resolution image.
+     *
+     * @return the image height, in pixels.
+     */
+    public int getHeight()
+    {
+        return this.height;
+    }
+
+    /**
+     * Returns a copy of the GeoTIFF's metadata, as read by {@link GeotiffReader#copyMetadataTo(gov.nasa.worldwind.avlist.AVList)}.
+     *
+     * @return the GeoTIFF's metadata.
+     */
+    public AVList getMetadata()
+    {
+        return this.metadata.copy();
+    }
+
+    /**
+     * Indicates whether the GeoTIFF contains elevations rather than imagery.
+     *
+     * @return true if the GeoTIFF contains elevations, otherwise false.
+     */
+    public boolean isElevation()
+    {
+        return AVKey.ELEVATION.equals(this.metadata.getValue(AVKey.PIXEL_FORMAT));
+    }
+
+    /**
+     * Adds to a parameter list the parameters of a level set covering the GeoTIFF. Level set parameters already in the
+     * list are left unchanged. The level set's tiles are anchored at the southwest corner of the GeoTIFF's sector, its
+     * last level has the resolution of the GeoTIFF's full-resolution image, and each preceding level halves the
+     * resolution of the next, so that the levels coincide with the GeoTIFF's overviews. The first level has as few
+     * tiles as possible without its tiles extending beyond the sector's smaller dimension. If the resulting tiles would
+     * extend beyond the limits of latitude and longitude, the levels are instead anchored at (-90, -180) with integral
+     * tile deltas.
+     *
+     * @param tileWidth  the number of pixels across a tile.
+     * @param tileHeight the number of pixels down a tile.
+     * @param params     the parameter list to which to add the parameters. May be null, in which case a new list is
+     *                   created.
+     *
+     * @return the parameter list.
+     *
+     * @throws IllegalArgumentException if the tile width or height is less than 1.
+     */
+    public AVList getLevelSetParams(int tileWidth, int tileHeight, AVList params)
+    {
+        if (tileWidth < 1 || tileHeight < 1)
+        {
+            String message = Logging.getMessage("generic.InvalidImageSize", tileWidth, tileHeight);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (params == null)
+            params = new AVListImpl();
+
+        // Elevation rasters' sectors span the centers of their edge pixels; image rasters' span the edges.
+        boolean pixelIsPoint = this.isElevation();
+        double pixelWidth = this.sector.getDeltaLonDegrees() / Math.max(1, pixelIsPoint ? this.width - 1 : this.width);
+        double pixelHeight = this.sector.getDeltaLatDegrees() / Math.max(1,
+            pixelIsPoint ? this.height - 1 : this.height);
+
+        double tilesAcross = Math.min(this.width / (double) tileWidth, this.height / (double) tileHeight);
+        int numLevels = 1 + (int) Math.max(0, Math.floor(Math.log(tilesAcross) / Math.log(2)));
+        double scale = Math.pow(2, numLevels - 1);
+        LatLon levelZeroTileDelta = LatLon.fromDegrees(scale * tileHeight * pixelHeight,
+            scale * tileWidth * pixelWidth);
+        LatLon tileOrigin = new LatLon(this.sector.getMinLatitude(), this.sector.getMinLongitude());
+
+        double maxLat = tileOrigin.getLatitude().degrees + levelZeroTileDelta.getLatitude().degrees
+            * Math.ceil(this.sector.getDeltaLatDegrees() / levelZeroTileDelta.getLatitude().degrees);
+        double maxLon = tileOrigin.getLongitude().degrees + levelZeroTileDelta.getLongitude().degrees
+            * Math.ceil(this.sector.getDeltaLonDegrees() / levelZeroTileDelta.getLongitude().degrees);
+        if (maxLat > 90 || maxLon > 180)
+        {
+            levelZeroTileDelta = LatLon.fromDegrees(36, 36);
+            tileOrigin = new LatLon(Angle.NEG90, Angle.NEG180);
+            numLevels = 1 + (int) Math.max(0, Math.ceil(Math.log(Math.max(36 / (tileHeight * pixelHeight),
+                36 / (tileWidth * pixelWidth))) / Math.log(2)));
+        }
+
+        if (params.getValue(AVKey.SECTOR) == null)
+            params.setValue(AVKey.SECTOR, this.sector);
+        if (params.getValue(AVKey.TILE_WIDTH) == null)
+            params.setValue(AVKey.TILE_WIDTH, tileWidth);
+        if (params.getValue(AVKey.TILE_HEIGHT) == null)
+            params.setValue(AVKey.TILE_HEIGHT, tileHeight);
+        if (params.getValue(AVKey.LEVEL_ZERO_TILE_DELTA) == null)
+            params.setValue(AVKey.LEVEL_ZERO_TILE_DELTA, levelZeroTileDelta);
+        if (params.getValue(AVKey.TILE_ORIGIN) == null)
+            params.setValue(AVKey.TILE_ORIGIN, tileOrigin);
+        if (params.getValue(AVKey.NUM_LEVELS) == null)
+            params.setValue(AVKey.NUM_LEVELS, numLevels);
+        if (params.getValue(AVKey.NUM_EMPTY_LEVELS) == null)
+            params.setValue(AVKey.NUM_EMPTY_LEVELS, 0);
+        if (params.getValue(AVKey.DATASET_NAME) == null)
+            params.setValue(AVKey.DATASET_NAME, this.name);
+        if (params.getValue(AVKey.DATA_CACHE_NAME) == null)
+            params.setValue(AVKey.DATA_CACHE_NAME, WWIO.formPath(CACHE_PATH_ROOT, this.name));
+        if (params.getValue(AVKey.FORMAT_SUFFIX) == null)
+            params.setValue(AVKey.FORMAT_SUFFIX, this.isElevation() ? ".bil" : ".png");
+
+        return params;
+    }
+
+    /**
+     * Reads the part of the GeoTIFF covering a sector at no less than a specified resolution, from the overview with
+     * the lowest resolution that satisfies the request.
+     *
+     * @param sector the sector to read.
+     * @param width  the minimum number of pixels across the sector.
+     * @param height the minimum number of pixels down the sector.
+     *
+     * @return a raster covering the sector, or null if the sector does not overlap the GeoTIFF.
+     *
+     * @throws IOException              if the GeoTIFF cannot be read.
+     * @throws IllegalArgumentException if the sector is null.
+     */
+    public DataRaster read(Sector sector, int width, int height) throws IOException
+    {
+        if (sector == null)
+        {
+            String message = Logging.getMessage("nullValue.SectorIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (!this.sector.intersectsInterior(sector))
+            return null;
+
+        return GeotiffRasterReader.readWindow(this.reader, sector, width, height);
+    }
+
+    /**
+     * Draws the part of the GeoTIFF covering a raster's sector onto the raster, reading the GeoTIFF at the raster's
+     * resolution.
+     *
+     * @param canvas the raster onto which to draw.
+     *
+     * @return true if any part of the GeoTIFF was drawn, otherwise false.
+     *
+     * @throws IOException              if the GeoTIFF cannot be read.
+     * @throws IllegalArgumentException if the raster is null.
+     */
+    public boolean drawOnTo(DataRaster canvas) throws IOException
+    {
+        if (canvas == null)
+        {
+            String message = Logging.getMessage("nullValue.DestinationIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        DataRaster raster = this.read(canvas.getSector(), canvas.getWidth(), canvas.getHeight());
+        if (raster == null)
+            return false;
+
+        try
+        {
+            raster.drawOnTo(canvas);
+        }
+        finally
+        {
+            raster.dispose();
+        }
+
+        return true;
+    }
+
+    /** Closes the GeoTIFF and the channel from which it is read. */
+    public void dispose()
+    {
+        this.reader.close();
+    }
+}
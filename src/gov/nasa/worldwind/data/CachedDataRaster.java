@@ -65,6 +65,12 @@ public class CachedDataRaster extends AVListImpl implements DataRaster
 
     protected String[] requiredKeys = new String[] {AVKey.SECTOR, AVKey.PIXEL_FORMAT};
 
+    /**
+     * The largest fraction of this raster's area drawn from a windowed read at full resolution. Larger full-resolution
+     * areas are drawn from the full raster, which is then cached for subsequent draws.
+     */
+    protected static final double MAX_WINDOW_AREA_FRACTION = 0.25;
+
     /**
      * Create a cached data raster.
      *
@@ -225,6 +231,17 @@ public class CachedDataRaster extends AVListImpl implements DataRaster
         return this.dataReader;
     }
 
+    /**
+     * Releases the resources, such as open files, that this raster's reader holds between windowed reads of the data
+     * source. Owners of cached rasters call this when they no longer draw from them. A later draw reacquires the
+     * resources.
+     */
+    public void closeWindowSource()
+    {
+        if (this.dataReader instanceof WindowedDataRasterReader)
+            ((WindowedDataRasterReader) this.dataReader).closeWindowSource(this.dataSource);
+    }
+
     public void dispose()
     {
         String message = Logging.getMessage("generic.ExceptionWhileDisposing", this.dataSource);
@@ -302,6 +319,20 @@ public class CachedDataRaster extends AVListImpl implements DataRaster
 
     public void drawOnTo(DataRaster canvas)
     {
+        // Windows are read into standalone rasters, so concurrent draws of windows need not wait for each other or for
+        // draws from the full raster.
+        try
+        {
+            if (this.drawWindowOnTo(canvas))
+                return;
+        }
+        catch (Throwable t)
+        {
+            // The full raster may still be readable, so fall through to drawing from it.
+            String reason = this.composeExceptionReason(t);
+            Logging.logger().log(Level.WARNING, reason, t);
+        }
+
         synchronized (this.rasterUsageLock)
         {
             try
@@ -335,6 +366,62 @@ public class CachedDataRaster extends AVListImpl implements DataRaster
         }
     }
 
+    /**
+     * Draws the part of this raster within a canvas' sector by reading only that part of the data source. This is done
+     * when the data reader supports windowed reads, the full raster is not already cached, and either the part drawn
+     * is a small fraction of this raster or the canvas' resolution is at most half of this raster's resolution.
+     *
+     * @param canvas the raster to draw on.
+     *
+     * @return true if this raster was drawn, false if it must be drawn from the full raster.
+     *
+     * @throws IOException if an IO error occurs while reading the window.
+     */
+    protected boolean drawWindowOnTo(DataRaster canvas) throws IOException
+    {
+        if (!(this.dataReader instanceof WindowedDataRasterReader) || canvas.getSector() == null)
+            return false;
+
+        // A raster that is already in memory is cheaper to draw from than any window.
+        if (this.rasterCache != null && this.rasterCache.contains(this.dataSource))
+            return false;
+
+        Sector sector = this.getSector();
+        // Canvases that only share an edge with this raster still read a window, as the sector is padded by a pixel.
+        // Reading the full raster for them would defeat windowing along every edge of a tiled dataset.
+        Sector overlap = (sector != null) ? sector.intersection(canvas.getSector()) : null;
+        if (overlap == null)
+            return false;
+
+        double lonFraction = overlap.getDeltaLonDegrees() / sector.getDeltaLonDegrees();
+        double latFraction = overlap.getDeltaLatDegrees() / sector.getDeltaLatDegrees();
+        int width = (int) Math.ceil(canvas.getWidth() * overlap.getDeltaLonDegrees()
+            / canvas.getSector().getDeltaLonDegrees());
+        int height = (int) Math.ceil(canvas.getHeight() * overlap.getDeltaLatDegrees()
+            / canvas.getSector().getDeltaLatDegrees());
+
+        boolean reducedResolution = 2 * width <= this.getWidth() * lonFraction
+            && 2 * height <= this.getHeight() * latFraction;
+        if (lonFraction * latFraction > MAX_WINDOW_AREA_FRACTION && !reducedResolution)
+            return false;
+
+        DataRaster window = ((WindowedDataRasterReader) this.dataReader).readWindow(this.dataSource, this.copy(),
+            overlap, Math.max(1, width), Math.max(1, height));
+        if (window == null)
+            return false;
+
+        try
+        {
+            window.drawOnTo(canvas);
+        }
+        finally
+        {
+            window.dispose();
+        }
+
+        return true;
+    }
+
     public DataRaster getSubRaster(AVList params)
     {
         synchronized (this.rasterUsageLock)
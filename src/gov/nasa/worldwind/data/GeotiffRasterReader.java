@@ -33,15 +33,53 @@ import gov.nasa.worldwind.formats.worldfile.WorldFile;
 import gov.nasa.worldwind.geom.Sector;
 import gov.nasa.worldwind.util.*;
 
+import java.awt.Rectangle;
+import java.io.File;
+import java.util.*;
+
 /**
  * @author dcollins
  * @version $Id: GeotiffRasterReader.java 1171 2013-02-11 21:45:02Z dcollins $
  */
-public class GeotiffRasterReader extends AbstractDataRasterReader
+public class GeotiffRasterReader extends AbstractDataRasterReader implements WindowedDataRasterReader
 {
     private static final String[] geotiffMimeTypes = {"image/tiff", "image/geotiff"};
     private static final String[] geotiffSuffixes = {"tif", "tiff", "gtif", "tif.zip", "tiff.zip", "tif.gz", "tiff.gz"};
 
+    /** The maximum number of GeoTIFF files held open for windowed reads. */
+    protected static final int MAX_OPEN_WINDOW_READERS = 16;
+    /**
+     * Readers held open for windowed reads, keyed by absolute file path, in least to most recently used order. Shared
+     * by all instances, as a dataset's rasters are commonly read by several reader instances.
+     */
+    protected static final LinkedHashMap<String, WindowReader> windowReaders =
+        new LinkedHashMap<String, WindowReader>(MAX_OPEN_WINDOW_READERS, 0.75f, true);
+
+    /**
+     * An open reader of a file read in windows. The reader is shared by concurrent window reads, and is closed once it
+     * has been removed from the cache and its last read has finished.
+     */
+    protected static class WindowReader
+    {
+        protected final GeotiffReader reader;
+        protected final long length;
+        protected final long lastModified;
+        protected int useCount;
+        protected boolean removed;
+
+        public WindowReader(GeotiffReader reader, File file)
+        {
+            this.reader = reader;
+            this.length = file.length();
+            this.lastModified = file.lastModified();
+        }
+
+        public boolean isCurrent(File file)
+        {
+            return this.length == file.length() && this.lastModified == file.lastModified();
+        }
+    }
+
     public GeotiffRasterReader()
     {
         super(geotiffMimeTypes, geotiffSuffixes);
@@ -124,6 +162,224 @@ public class GeotiffRasterReader extends AbstractDataRasterReader
         return rasters;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Windows are read only from geographic GeoTIFFs. The window is read from the file's internal overviews when the
+     * requested resolution allows. Full-resolution windows are not read from compressed, stripped files, because each
+     * window would decompress the full width of the image; such files are better read once in full.
+     * <p>
+     * Windows are not read from images whose sample layout, compression or pixel format the windowed reader cannot
+     * decode; see {@link GeotiffReader#canReadWindow(int)}. Such images are read in full.
+     * <p>
+     * Recently read files are held open, so that successive windows of a file do not each parse its header and
+     * directories. A file is reopened when its size or modification time changes. Files are closed by {@link
+     * #closeWindowSource(Object)} and {@link #closeWindowReaders()}.
+     */
+    public DataRaster readWindow(Object source, AVList params, Sector sector, int width, int height)
+        throws java.io.IOException
+    {
+        if (sector == null)
+        {
+            String message = Logging.getMessage("nullValue.SectorIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        String path = WWIO.getSourcePath(source);
+        if (path == null)
+            return null;
+
+        WindowReader windowReader = acquireWindowReader(new File(path));
+        try
+        {
+            return readWindow(windowReader.reader, sector, width, height);
+        }
+        finally
+        {
+            releaseWindowReader(windowReader);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Closes the file held open for windowed reads of the source, if any.
+     */
+    public void closeWindowSource(Object source)
+    {
+        String path = WWIO.getSourcePath(source);
+        if (path == null)
+            return;
+
+        synchronized (windowReaders)
+        {
+            WindowReader windowReader = windowReaders.remove(new File(path).getAbsolutePath());
+            if (windowReader != null)
+                removeWindowReader(windowReader);
+        }
+    }
+
+    /**
+     * Closes all files held open for windowed reads. Files in use by reads in progress are closed when those reads
+     * finish.
+     */
+    public static void closeWindowReaders()
+    {
+        synchronized (windowReaders)
+        {
+            for (WindowReader windowReader : windowReaders.values())
+            {
+                removeWindowReader(windowReader);
+            }
+
+            windowReaders.clear();
+        }
+    }
+
+    /**
+     * Returns the open reader of a file, opening the file if it has no reader or has changed since its reader was
+     * opened. The least recently used reader is removed from the cache when the cache is full. The caller must pass
+     * the returned reader to {@link #releaseWindowReader(WindowReader)} once its read has finished.
+     *
+     * @param file the file to read.
+     *
+     * @return the file's reader.
+     *
+     * @throws java.io.IOException if the file cannot be opened.
+     */
+    protected static WindowReader acquireWindowReader(File file) throws java.io.IOException
+    {
+        String key = file.getAbsolutePath();
+
+        synchronized (windowReaders)
+        {
+            WindowReader windowReader = windowReaders.get(key);
+            if (windowReader != null && !windowReader.isCurrent(file))
+            {
+                removeWindowReader(windowReaders.remove(key));
+                windowReader = null;
+            }
+
+            if (windowReader == null)
+            {
+                windowReader = new WindowReader(new GeotiffReader(file.getPath()), file);
+                windowReaders.put(key, windowReader);
+
+                Iterator<WindowReader> iter = windowReaders.values().iterator();
+                while (windowReaders.size() > MAX_OPEN_WINDOW_READERS)
+                {
+                    WindowReader eldest = iter.next();
+                    iter.remove();
+                    removeWindowReader(eldest);
+                }
+            }
+
+            windowReader.useCount++;
+            return windowReader;
+        }
+    }
+
+    /**
+     * Ends a read using a reader returned by {@link #acquireWindowReader(java.io.File)}, and closes the reader if it
+     * has been removed from the cache and is not used by another read.
+     *
+     * @param windowReader the reader.
+     */
+    protected static void releaseWindowReader(WindowReader windowReader)
+    {
+        synchronized (windowReaders)
+        {
+            windowReader.useCount--;
+            closeIfUnused(windowReader);
+        }
+    }
+
+    /**
+     * Marks a reader as removed from the cache, and closes it unless a read is using it. Must be called while holding
+     * the cache lock.
+     *
+     * @param windowReader the removed reader.
+     */
+    protected static void removeWindowReader(WindowReader windowReader)
+    {
+        windowReader.removed = true;
+        closeIfUnused(windowReader);
+    }
+
+    /**
+     * Closes a reader that has been removed from the cache if no read is using it. Must be called while holding the
+     * cache lock.
+     *
+     * @param windowReader the reader.
+     */
+    protected static void closeIfUnused(WindowReader windowReader)
+    {
+        if (windowReader.removed && windowReader.useCount == 0)
+            windowReader.reader.close();
+    }
+
+    /**
+     * Reads the part of a GeoTIFF's first image covering a sector, as described by {@link #readWindow(Object, AVList,
+     * Sector, int, int)}.
+     *
+     * @param reader the GeoTIFF's reader.
+     * @param sector the sector to read.
+     * @param width  the minimum number of pixels across the sector.
+     * @param height the minimum number of pixels down the sector.
+     *
+     * @return a raster covering the sector, or null if the image is not geographic, cannot be read in windows, does
+     *         not intersect the sector, or should be read in full.
+     *
+     * @throws java.io.IOException if an IO error occurs.
+     */
+    protected static DataRaster readWindow(GeotiffReader reader, Sector sector, int width, int height)
+        throws java.io.IOException
+    {
+        if (!reader.canReadWindow(0))
+            return null;
+
+        AVList metadata = reader.copyMetadataTo(new AVListImpl());
+
+        Object o = metadata.getValue(AVKey.SECTOR);
+        if (!(o instanceof Sector)
+            || !AVKey.COORDINATE_SYSTEM_GEOGRAPHIC.equals(metadata.getValue(AVKey.COORDINATE_SYSTEM)))
+            return null;
+
+        Sector rasterSector = (Sector) o;
+        int rasterWidth = reader.getWidth(0);
+        int rasterHeight = reader.getHeight(0);
+        if (rasterWidth < 2 || rasterHeight < 2 || rasterSector.getDeltaLatDegrees() <= 0d
+            || rasterSector.getDeltaLonDegrees() <= 0d)
+            return null;
+
+        // Elevation rasters' sectors span the centers of their edge pixels; image rasters' span the edges.
+        boolean pixelIsPoint = AVKey.ELEVATION.equals(metadata.getValue(AVKey.PIXEL_FORMAT));
+        double pixelsPerLon = (pixelIsPoint ? rasterWidth - 1 : rasterWidth) / rasterSector.getDeltaLonDegrees();
+        double pixelsPerLat = (pixelIsPoint ? rasterHeight - 1 : rasterHeight) / rasterSector.getDeltaLatDegrees();
+        double x0 = (sector.getMinLongitude().degrees - rasterSector.getMinLongitude().degrees) * pixelsPerLon;
+        double x1 = (sector.getMaxLongitude().degrees - rasterSector.getMinLongitude().degrees) * pixelsPerLon;
+        double y0 = (rasterSector.getMaxLatitude().degrees - sector.getMaxLatitude().degrees) * pixelsPerLat;
+        double y1 = (rasterSector.getMaxLatitude().degrees - sector.getMinLatitude().degrees) * pixelsPerLat;
+
+        int subsample = (int) Math.max(1, Math.floor(Math.min((x1 - x0) / Math.max(1, width),
+            (y1 - y0) / Math.max(1, height))));
+        if (subsample == 1 && !reader.isTiled(0) && reader.isCompressed(0))
+            return null;
+
+        // Pad the window by an output pixel so that resampling at the sector's edges has data on both sides.
+        int ix0 = (int) Math.floor(x0) - subsample;
+        int iy0 = (int) Math.floor(y0) - subsample;
+        int ix1 = (int) Math.ceil(x1) + subsample;
+        int iy1 = (int) Math.ceil(y1) + subsample;
+        Rectangle window = new Rectangle(ix0, iy0, ix1 - ix0, iy1 - iy0).intersection(
+            new Rectangle(0, 0, rasterWidth, rasterHeight));
+        if (window.isEmpty())
+            return null;
+
+        return reader.readDataRaster(0, window, subsample);
+    }
+
     protected void doReadMetadata(Object source, AVList params) throws java.io.IOException
     {
         String path = WWIO.getSourcePath(source);
@@ -0,0 +1,648 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.data;
+
+import gov.nasa.worldwind.avlist.AVKey;
+import gov.nasa.worldwind.exception.WWRuntimeException;
+import gov.nasa.worldwind.util.Logging;
+
+import java.awt.geom.AffineTransform;
+import java.nio.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Draws data rasters onto canvas rasters with nearest-neighbor, bilinear or bicubic resampling kernels. The source
+ * position and weights of each canvas column and row are computed once per draw, source rows are decoded into
+ * primitive arrays at most once each, and large canvases are drawn in bands of rows on a shared pool of threads. The
+ * kernel is selected by the canvas' {@link AVKey#RESAMPLING_METHOD} value.
+ * <p>
+ * {@link BufferWrapperRaster} uses these kernels for rasters backed by NIO buffers of bytes, shorts, ints, floats or
+ * doubles, and falls back to its general drawing path otherwise. {@link BufferedImageRaster} draws with Java2D, which
+ * resamples imagery faster than these kernels, and selects the Java2D interpolation matching the canvas' resampling
+ * method.
+ *
+ * @version $Id$
+ */
+public class RasterResampler
+{
+    /** Canvases drawing fewer pixels than this are drawn entirely on the calling thread. */
+    protected static final int MIN_PARALLEL_PIXELS = 128 * 128;
+    /** The minimum number of canvas rows drawn by one thread. */
+    protected static final int MIN_ROWS_PER_TASK = 16;
+    /** The number of decoded source rows kept by each band. Must be a power of two no less than 4. */
+    protected static final int ROW_CACHE_SIZE = 8;
+
+    protected static final int NEAREST_NEIGHBOR = 0;
+    protected static final int BILINEAR = 1;
+    protected static final int BICUBIC = 2;
+
+    protected static final int POOL_SIZE = Runtime.getRuntime().availableProcessors();
+    protected static final ThreadPoolExecutor executor = createExecutor();
+
+    protected static ThreadPoolExecutor createExecutor()
+    {
+        // The calling thread draws one band itself, so the pool needs one thread fewer than the processor count.
+        int poolSize = Math.max(POOL_SIZE - 1, 1);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 2, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(),
+            new ThreadFactory()
+            {
+                public Thread newThread(Runnable runnable)
+                {
+                    Thread thread = new Thread(runnable, "Raster Resampling");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Returns the resampling method used to draw onto a canvas: the canvas' {@link AVKey#RESAMPLING_METHOD} value if
+     * it is a recognized method, otherwise {@link AVKey#RESAMPLING_BILINEAR}.
+     *
+     * @param canvas the canvas.
+     *
+     * @return the canvas' resampling method.
+     */
+    public static String getResamplingMethod(DataRaster canvas)
+    {
+        Object o = (canvas != null) ? canvas.getValue(AVKey.RESAMPLING_METHOD) : null;
+        if (AVKey.RESAMPLING_NEAREST_NEIGHBOR.equals(o) || AVKey.RESAMPLING_BICUBIC.equals(o))
+            return (String) o;
+
+        return AVKey.RESAMPLING_BILINEAR;
+    }
+
+    protected static int getKernel(DataRaster canvas)
+    {
+        String method = getResamplingMethod(canvas);
+        if (AVKey.RESAMPLING_NEAREST_NEIGHBOR.equals(method))
+            return NEAREST_NEIGHBOR;
+        else if (AVKey.RESAMPLING_BICUBIC.equals(method))
+            return BICUBIC;
+        else
+            return BILINEAR;
+    }
+
+    /**
+     * Draws a scalar raster onto a scalar canvas. Canvas pixels whose surrounding source values include the source's
+     * missing-data signal are left unchanged. With bilinear resampling the canvas values are identical to those
+     * computed by {@link BufferWrapperRaster#drawSamplesOnTo(BufferWrapperRaster)}.
+     *
+     * @param source the raster to draw.
+     * @param canvas the raster to draw onto.
+     *
+     * @return true if the source was drawn, or does not overlap the canvas, and false if either raster's buffer is
+     *         not supported, in which case nothing is drawn.
+     *
+     * @throws IllegalArgumentException if either raster is null.
+     */
+    public static boolean drawScalars(BufferWrapperRaster source, BufferWrapperRaster canvas)
+    {
+        if (source == null || canvas == null)
+        {
+            String message = Logging.getMessage("nullValue.RasterIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        Buffer sourceBuffer = source.getBuffer() != null ? source.getBuffer().getBackingBuffer() : null;
+        Buffer canvasBuffer = canvas.getBuffer() != null ? canvas.getBuffer().getBackingBuffer() : null;
+        if (!ScalarBuffer.isSupported(sourceBuffer) || !ScalarBuffer.isSupported(canvasBuffer))
+            return false;
+
+        int sourceWidth = source.getWidth();
+        int sourceHeight = source.getHeight();
+        int canvasWidth = canvas.getWidth();
+        int canvasHeight = canvas.getHeight();
+
+        // Use the same interpolants as BufferWrapperRaster, so that bilinear results match it exactly.
+        AffineTransform canvasToSource = source.computeSourceToDestTransform(canvasWidth, canvasHeight,
+            canvas.getSector(), sourceWidth, sourceHeight, source.getSector());
+        BufferWrapperRaster.InterpolantLookupTable lut = source.createLookupTable(canvasWidth, canvasHeight,
+            0, sourceWidth - 1, 0, sourceHeight - 1, canvasToSource);
+        if (lut == null)
+            return true;
+
+        Axis columns = Axis.fromInterpolants(lut.xParams, canvasWidth, sourceWidth);
+        Axis rows = Axis.fromInterpolants(lut.yParams, canvasHeight, sourceHeight);
+        if (columns == null || rows == null)
+            return true;
+
+        execute(new ScalarTask(sourceBuffer, sourceWidth, canvasBuffer, canvasWidth, columns, rows, getKernel(canvas),
+            source.getTransparentValue()));
+        return true;
+    }
+
+    /**
+     * Draws a task's rows, dividing them into bands drawn concurrently when the task is large enough. The calling
+     * thread draws the first band.
+     *
+     * @param task the task to draw.
+     */
+    protected static void execute(final ResampleTask task)
+    {
+        int numRows = task.rows.count;
+        int numTasks = 1;
+        if (POOL_SIZE > 1 && numRows * task.columns.count >= MIN_PARALLEL_PIXELS)
+            numTasks = Math.max(1, Math.min(POOL_SIZE, numRows / MIN_ROWS_PER_TASK));
+
+        if (numTasks == 1)
+        {
+            task.drawRows(0, numRows);
+            return;
+        }
+
+        int rowsPerTask = (numRows + numTasks - 1) / numTasks;
+        List<Future<?>> futures = new ArrayList<Future<?>>(numTasks - 1);
+        for (int start = rowsPerTask; start < numRows; start += rowsPerTask)
+        {
+            final int first = start;
+            final int last = Math.min(start + rowsPerTask, numRows);
+            futures.add(executor.submit(new Runnable()
+            {
+                public void run()
+                {
+                    task.drawRows(first, last);
+                }
+            }));
+        }
+
+        task.drawRows(0, rowsPerTask);
+
+        for (Future<?> future : futures)
+        {
+            try
+            {
+                future.get();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new WWRuntimeException(e);
+            }
+            catch (ExecutionException e)
+            {
+                throw new WWRuntimeException(e.getCause());
+            }
+        }
+    }
+
+    /**
+     * The source samples of each canvas column or row that is drawn. Each entry has four source indices, the two
+     * straddling the sample position and one beyond each of those, clamped to the source, along with the sample
+     * position's fraction between the middle two and that fraction's four cubic convolution weights.
+     */
+    protected static class Axis
+    {
+        /** The number of canvas columns or rows drawn. */
+        protected int count;
+        /** The canvas column or row of each entry, in increasing order. */
+        protected int[] canvas;
+        /** Four source indices per entry. */
+        protected int[] taps;
+        /** The sample position's fraction between the second and third taps of each entry. */
+        protected double[] fractions;
+        /** Four cubic convolution weights per entry. */
+        protected double[] weights;
+
+        protected Axis(int capacity)
+        {
+            this.canvas = new int[capacity];
+            this.taps = new int[4 * capacity];
+            this.fractions = new double[capacity];
+            this.weights = new double[4 * capacity];
+        }
+
+        /**
+         * Creates an axis from the interpolants of a {@link BufferWrapperRaster.InterpolantLookupTable}.
+         *
+         * @param params     the interpolants, three per canvas column or row.
+         * @param canvasSize the canvas width or height.
+         * @param sourceSize the source width or height.
+         *
+         * @return the axis, or null if no canvas column or row is drawn.
+         */
+        protected static Axis fromInterpolants(double[] params, int canvasSize, int sourceSize)
+        {
+            Axis axis = new Axis(canvasSize);
+            for (int i = 0; i < canvasSize; i++)
+            {
+                if (params[3 * i] != -1d)
+                    axis.add(i, (int) params[3 * i], (int) params[3 * i + 1], params[3 * i + 2], sourceSize);
+            }
+
+            return axis.count > 0 ? axis : null;
+        }
+
+        protected void add(int canvasIndex, int i1, int i2, double fraction, int sourceSize)
+        {
+            int n = this.count++;
+            this.canvas[n] = canvasIndex;
+            this.taps[4 * n] = Math.max(i1 - 1, 0);
+            this.taps[4 * n + 1] = i1;
+            this.taps[4 * n + 2] = i2;
+            this.taps[4 * n + 3] = Math.min(i2 + 1, sourceSize - 1);
+            this.fractions[n] = fraction;
+
+            // Catmull-Rom cubic convolution weights.
+            double t = fraction;
+            this.weights[4 * n] = ((-0.5 * t + 1.0) * t - 0.5) * t;
+            this.weights[4 * n + 1] = (1.5 * t - 2.5) * t * t + 1.0;
+            this.weights[4 * n + 2] = ((-1.5 * t + 2.0) * t + 0.5) * t;
+            this.weights[4 * n + 3] = (0.5 * t - 0.5) * t * t;
+        }
+
+        /**
+         * Returns the source index nearest the sample position of an entry.
+         *
+         * @param n the entry.
+         *
+         * @return the nearest source index.
+         */
+        protected final int nearest(int n)
+        {
+            return this.fractions[n] >= 0.5 ? this.taps[4 * n + 2] : this.taps[4 * n + 1];
+        }
+
+        protected int minTap()
+        {
+            return this.taps[0];
+        }
+
+        protected int maxTap()
+        {
+            return this.taps[4 * this.count - 1];
+        }
+
+        /** Makes the source indices relative to a specified origin. */
+        protected void offsetTaps(int origin)
+        {
+            for (int i = 0; i < 4 * this.count; i++)
+            {
+                this.taps[i] -= origin;
+            }
+        }
+    }
+
+    /** Resamples rows of a source onto a canvas. Each call to {@link #drawRows(int, int)} uses its own buffers. */
+    protected abstract static class ResampleTask
+    {
+        protected final Axis columns;
+        protected final Axis rows;
+        protected final int kernel;
+        /** The first source column referenced by the column taps. */
+        protected final int sourceX;
+        /** The number of source columns referenced by the column taps. */
+        protected final int sourceSpan;
+        /** The first canvas column drawn. */
+        protected final int canvasX;
+        /** The number of canvas columns from the first drawn to the last drawn. */
+        protected final int canvasSpan;
+
+        protected ResampleTask(Axis columns, Axis rows, int kernel)
+        {
+            this.columns = columns;
+            this.rows = rows;
+            this.kernel = kernel;
+            this.sourceX = columns.minTap();
+            this.sourceSpan = columns.maxTap() - this.sourceX + 1;
+            this.canvasX = columns.canvas[0];
+            this.canvasSpan = columns.canvas[columns.count - 1] - this.canvasX + 1;
+
+            // Column taps index rows decoded from sourceX, and canvas columns index rows read from canvasX.
+            columns.offsetTaps(this.sourceX);
+            for (int i = 0; i < columns.count; i++)
+            {
+                columns.canvas[i] -= this.canvasX;
+            }
+        }
+
+        /**
+         * Draws a range of the entries in this task's rows axis.
+         *
+         * @param first the first entry to draw.
+         * @param last  one past the last entry to draw.
+         */
+        protected abstract void drawRows(int first, int last);
+    }
+
+    /** Resamples scalar values. Bilinear samples reproduce {@link BufferWrapperRaster}'s arithmetic exactly. */
+    protected static class ScalarTask extends ResampleTask
+    {
+        protected final Buffer sourceBuffer;
+        protected final int sourceWidth;
+        protected final Buffer canvasBuffer;
+        protected final int canvasWidth;
+        protected final double transparent;
+
+        public ScalarTask(Buffer sourceBuffer, int sourceWidth, Buffer canvasBuffer, int canvasWidth, Axis columns,
+            Axis rows, int kernel, double transparent)
+        {
+            super(columns, rows, kernel);
+            this.sourceBuffer = sourceBuffer;
+            this.sourceWidth = sourceWidth;
+            this.canvasBuffer = canvasBuffer;
+            this.canvasWidth = canvasWidth;
+            this.transparent = transparent;
+        }
+
+        protected void drawRows(int first, int last)
+        {
+            ScalarBuffer source = new ScalarBuffer(this.sourceBuffer);
+            ScalarBuffer canvas = new ScalarBuffer(this.canvasBuffer);
+            double[][] rowCache = new double[ROW_CACHE_SIZE][this.sourceSpan];
+            int[] rowIds = new int[ROW_CACHE_SIZE];
+            Arrays.fill(rowIds, -1);
+            double[] out = new double[this.canvasSpan];
+            double[][] r = new double[4][];
+
+            Axis rows = this.rows;
+            for (int n = first; n < last; n++)
+            {
+                int canvasIndex = rows.canvas[n] * this.canvasWidth + this.canvasX;
+                canvas.get(canvasIndex, out, this.canvasSpan);
+
+                if (this.kernel == NEAREST_NEIGHBOR)
+                {
+                    this.nearest(this.getRow(source, rows.nearest(n), rowCache, rowIds), out);
+                }
+                else if (this.kernel == BICUBIC)
+                {
+                    for (int k = 0; k < 4; k++)
+                    {
+                        r[k] = this.getRow(source, rows.taps[4 * n + k], rowCache, rowIds);
+                    }
+                    this.bicubic(r, rows.weights, 4 * n, rows.fractions[n], out);
+                }
+                else
+                {
+                    this.bilinear(this.getRow(source, rows.taps[4 * n + 1], rowCache, rowIds),
+                        this.getRow(source, rows.taps[4 * n + 2], rowCache, rowIds), rows.fractions[n], out);
+                }
+
+                canvas.put(canvasIndex, out, this.canvasSpan);
+            }
+        }
+
+        protected double[] getRow(ScalarBuffer source, int y, double[][] rowCache, int[] rowIds)
+        {
+            int slot = y & (ROW_CACHE_SIZE - 1);
+            if (rowIds[slot] != y)
+            {
+                source.get(y * this.sourceWidth + this.sourceX, rowCache[slot], this.sourceSpan);
+                rowIds[slot] = y;
+            }
+
+            return rowCache[slot];
+        }
+
+        protected void nearest(double[] row, double[] out)
+        {
+            Axis columns = this.columns;
+            double transparent = this.transparent;
+            for (int k = 0; k < columns.count; k++)
+            {
+                double v = row[columns.nearest(k)];
+                if (v != transparent)
+                    out[columns.canvas[k]] = v;
+            }
+        }
+
+        protected void bilinear(double[] upper, double[] lower, double yf, double[] out)
+        {
+            int[] taps = this.columns.taps;
+            double[] fractions = this.columns.fractions;
+            int[] canvas = this.columns.canvas;
+            double transparent = this.transparent;
+
+            for (int k = 0; k < this.columns.count; k++)
+            {
+                int x1 = taps[4 * k + 1];
+                int x2 = taps[4 * k + 2];
+                double xf = fractions[k];
+                double ul = upper[x1];
+                double ll = lower[x1];
+                double lr = lower[x2];
+                double ur = upper[x2];
+
+                if ((ul != transparent) && (ur != transparent) && (lr != transparent) && (ll != transparent))
+                {
+                    out[canvas[k]] =
+                        ((1.0 - xf) * (1.0 - yf) * ul)
+                            + ((1.0 - xf) * (yf) * ll)
+                            + ((xf) * (yf) * lr)
+                            + ((xf) * (1.0 - yf) * ur);
+                }
+            }
+        }
+
+        protected void bicubic(double[][] r, double[] rowWeights, int rowWeightIndex, double yf, double[] out)
+        {
+            int[] taps = this.columns.taps;
+            double[] weights = this.columns.weights;
+            int[] canvas = this.columns.canvas;
+            double transparent = this.transparent;
+            double wy0 = rowWeights[rowWeightIndex];
+            double wy1 = rowWeights[rowWeightIndex + 1];
+            double wy2 = rowWeights[rowWeightIndex + 2];
+            double wy3 = rowWeights[rowWeightIndex + 3];
+
+            for (int k = 0; k < this.columns.count; k++)
+            {
+                int t = 4 * k;
+                double value = 0;
+                boolean complete = true;
+
+                for (int j = 0; j < 4 && complete; j++)
+                {
+                    double[] row = r[j];
+                    double v0 = row[taps[t]];
+                    double v1 = row[taps[t + 1]];
+                    double v2 = row[taps[t + 2]];
+                    double v3 = row[taps[t + 3]];
+                    complete = v0 != transparent && v1 != transparent && v2 != transparent && v3 != transparent;
+
+                    double h = weights[t] * v0 + weights[t + 1] * v1 + weights[t + 2] * v2 + weights[t + 3] * v3;
+                    value += (j == 0 ? wy0 : j == 1 ? wy1 : j == 2 ? wy2 : wy3) * h;
+                }
+
+                if (complete)
+                {
+                    out[canvas[k]] = value;
+                    continue;
+                }
+
+                // Near missing data, fall back to the four nearest values.
+                double xf = this.columns.fractions[k];
+                double ul = r[1][taps[t + 1]];
+                double ll = r[2][taps[t + 1]];
+                double lr = r[2][taps[t + 2]];
+                double ur = r[1][taps[t + 2]];
+                if ((ul != transparent) && (ur != transparent) && (lr != transparent) && (ll != transparent))
+                {
+                    out[canvas[k]] =
+                        ((1.0 - xf) * (1.0 - yf) * ul)
+                            + ((1.0 - xf) * (yf) * ll)
+                            + ((xf) * (yf) * lr)
+                            + ((xf) * (1.0 - yf) * ur);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads and writes runs of a primitive NIO buffer as doubles, converting values the way {@link
+     * gov.nasa.worldwind.util.BufferWrapper} converts them. Each instance works on its own duplicate of the buffer, so
+     * instances on the same buffer may be used concurrently on disjoint runs.
+     */
+    protected static class ScalarBuffer
+    {
+        protected final Buffer buffer;
+        protected byte[] bytes;
+        protected short[] shorts;
+        protected int[] ints;
+        protected float[] floats;
+
+        public static boolean isSupported(Buffer buffer)
+        {
+            return buffer instanceof ByteBuffer || buffer instanceof ShortBuffer || buffer instanceof IntBuffer
+                || buffer instanceof FloatBuffer || buffer instanceof DoubleBuffer;
+        }
+
+        public ScalarBuffer(Buffer buffer)
+        {
+            this.buffer = buffer.duplicate();
+        }
+
+        public void get(int index, double[] array, int length)
+        {
+            this.buffer.position(index);
+
+            if (this.buffer instanceof ShortBuffer)
+            {
+                short[] tmp = this.shorts != null && this.shorts.length >= length ? this.shorts
+                    : (this.shorts = new short[length]);
+                ((ShortBuffer) this.buffer).get(tmp, 0, length);
+                for (int i = 0; i < length; i++)
+                {
+                    array[i] = tmp[i];
+                }
+            }
+            else if (this.buffer instanceof FloatBuffer)
+            {
+                float[] tmp = this.floats != null && this.floats.length >= length ? this.floats
+                    : (this.floats = new float[length]);
+                ((FloatBuffer) this.buffer).get(tmp, 0, length);
+                for (int i = 0; i < length; i++)
+                {
+                    array[i] = tmp[i];
+                }
+            }
+            else if (this.buffer instanceof IntBuffer)
+            {
+                int[] tmp = this.ints != null && this.ints.length >= length ? this.ints
+                    : (this.ints = new int[length]);
+                ((IntBuffer) this.buffer).get(tmp, 0, length);
+                for (int i = 0; i < length; i++)
+                {
+                    array[i] = tmp[i];
+                }
+            }
+            else if (this.buffer instanceof ByteBuffer)
+            {
+                byte[] tmp = this.bytes != null && this.bytes.length >= length ? this.bytes
+                    : (this.bytes = new byte[length]);
+                ((ByteBuffer) this.buffer).get(tmp, 0, length);
+                for (int i = 0; i < length; i++)
+                {
+                    array[i] = tmp[i];
+                }
+            }
+            else
+            {
+                ((DoubleBuffer) this.buffer).get(array, 0, length);
+            }
+        }
+
+        public void put(int index, double[] array, int length)
+        {
+            this.buffer.position(index);
+
+            if (this.buffer instanceof ShortBuffer)
+            {
+                short[] tmp = this.shorts != null && this.shorts.length >= length ? this.shorts
+                    : (this.shorts = new short[length]);
+                for (int i = 0; i < length; i++)
+                {
+                    tmp[i] = (short) array[i];
+                }
+                ((ShortBuffer) this.buffer).put(tmp, 0, length);
+            }
+            else if (this.buffer instanceof FloatBuffer)
+            {
+                float[] tmp = this.floats != null && this.floats.length >= length ? this.floats
+                    : (this.floats = new float[length]);
+                for (int i = 0; i < length; i++)
+                {
+                    tmp[i] = (float) array[i];
+                }
+                ((FloatBuffer) this.buffer).put(tmp, 0, length);
+            }
+            else if (this.buffer instanceof IntBuffer)
+            {
+                int[] tmp = this.ints != null && this.ints.length >= length ? this.ints
+                    : (this.ints = new int[length]);
+                for (int i = 0; i < length; i++)
+                {
+                    tmp[i] = (int) array[i];
+                }
+                ((IntBuffer) this.buffer).put(tmp, 0, length);
+            }
+            else if (this.buffer instanceof ByteBuffer)
+            {
+                byte[] tmp = this.bytes != null && this.bytes.length >= length ? this.bytes
+                    : (this.bytes = new byte[length]);
+                for (int i = 0; i < length; i++)
+                {
+                    tmp[i] = (byte) array[i];
+                }
+                ((ByteBuffer) this.buffer).put(tmp, 0, length);
+            }
+            else
+            {
+                ((DoubleBuffer) this.buffer).put(array, 0, length);
+            }
+        }
+    }
+}
@@ -117,7 +117,9 @@ public class RasterServerConfiguration extends AbstractXMLEventParser
 
         public Sector getSector()
         {
-            return ((RasterSector) this.getField("Sector")).getSector();
+            RasterSector sector = (RasterSector) this.getField("Sector");
+
+            return sector != null ? sector.getSector() : null;
         }
     }
 
@@ -0,0 +1,658 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+package gov.nasa.worldwind.data;
+
+import gov.nasa.worldwind.*;
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.cache.FileStore;
+import gov.nasa.worldwind.exception.WWRuntimeException;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.render.SurfaceRasterizer;
+import gov.nasa.worldwind.util.*;
+
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serves surface renderables as PNG map tiles rendered without OpenGL. Tiles are addressed by the level, row and column
+ * of a {@link LevelSet}, and are drawn by a {@link SurfaceRasterizer} on a pool of worker threads, one tile per task.
+ * Rendered tiles are written to a {@link FileStore} at the path of the corresponding {@link Tile}, and subsequent
+ * requests for the tile are answered from the file store until the renderables change.
+ * <p>
+ * The tile structure is specified with the parameters recognized by {@link LevelSet#LevelSet(AVList)}. Parameters not
+ * specified default to 256x256 pixel tiles over the full sphere, with 36 degree level zero tiles and 19 levels, cached
+ * under "Earth/SurfaceTiles". The tile format suffix is always ".png".
+ * <p>
+ * The server does not observe its renderables. Call {@link #invalidateTiles()} after modifying a renderable, so that
+ * tiles cached before the modification are rendered again. Adding or removing renderables invalidates tiles
+ * automatically.
+ * <p>
+ * As a {@link RasterServer}, the server also renders images of arbitrary sectors and sizes. These are not cached.
+ *
+ * @version $Id$
+ * @see SurfaceRasterizer
+ */
+public class SurfaceTileRasterServer extends WWObjectImpl implements RasterServer
+{
+    protected static final String DEFAULT_CACHE_NAME = "Earth/SurfaceTiles";
+    protected static final int DEFAULT_TILE_SIZE = 256;
+    protected static final double DEFAULT_LEVEL_ZERO_TILE_DELTA = 36;
+    protected static final int DEFAULT_NUM_LEVELS = 19;
+    protected static final String TILE_FORMAT_SUFFIX = ".png";
+
+    protected final LevelSet levels;
+    protected final SurfaceRasterizer rasterizer;
+    protected final List<Object> renderables = new CopyOnWriteArrayList<Object>();
+    protected final ConcurrentHashMap<TileKey, Future<ByteBuffer>> pendingTiles =
+        new ConcurrentHashMap<TileKey, Future<ByteBuffer>>();
+    protected final ThreadPoolExecutor executor;
+    protected final int poolSize;
+    protected FileStore fileStore;
+    /** Incremented whenever the renderables change. Tiles rendered across a change are not written to the cache. */
+    protected final AtomicLong generation = new AtomicLong();
+    protected final AtomicLong renderedCount = new AtomicLong();
+    protected final AtomicLong cachedCount = new AtomicLong();
+
+    /**
+     * Creates a server with default tile structure and one worker thread per available processor.
+     */
+    public SurfaceTileRasterServer()
+    {
+        this(null);
+    }
+
+    /**
+     * Creates a server with one worker thread per available processor.
+     *
+     * @param params the tile structure parameters. May be null, in which case the default structure is used.
+     *
+     * @throws IllegalArgumentException if the parameters do not describe a valid level set.
+     */
+    public SurfaceTileRasterServer(AVList params)
+    {
+        this(params, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a server with a specified number of worker threads.
+     *
+     * @param params   the tile structure parameters. May be null, in which case the default structure is used.
+     * @param poolSize the number of worker threads.
+     *
+     * @throws IllegalArgumentException if the parameters do not describe a valid level set, or if the pool size is less
+     *                                  than 1.
+     */
+    public SurfaceTileRasterServer(AVList params, int poolSize)
+    {
+        if (poolSize < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "poolSize < 1");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        params = this.initParameters(params != null ? params.copy() : new AVListImpl());
+        this.setValues(params);
+        this.levels = new LevelSet(params);
+        this.rasterizer = new SurfaceRasterizer();
+        this.fileStore = WorldWind.getDataFileStore();
+
+        this.poolSize = poolSize;
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 2, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), // bounded by the number of distinct tiles requested
+            new ThreadFactory()
+            {
+                public Thread newThread(Runnable runnable)
+                {
+                    Thread thread = new Thread(runnable, "Surface Tile Rendering");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    protected AVList initParameters(AVList params)
+    {
+        if (params.getValue(AVKey.DATA_CACHE_NAME) == null)
+            params.setValue(AVKey.DATA_CACHE_NAME, DEFAULT_CACHE_NAME);
+        if (params.getValue(AVKey.DATASET_NAME) == null)
+            params.setValue(AVKey.DATASET_NAME, params.getValue(AVKey.DATA_CACHE_NAME));
+        if (params.getValue(AVKey.SECTOR) == null)
+            params.setValue(AVKey.SECTOR, Sector.FULL_SPHERE);
+        if (params.getValue(AVKey.LEVEL_ZERO_TILE_DELTA) == null)
+            params.setValue(AVKey.LEVEL_ZERO_TILE_DELTA, LatLon.fromDegrees(DEFAULT_LEVEL_ZERO_TILE_DELTA,
+                DEFAULT_LEVEL_ZERO_TILE_DELTA));
+        if (params.getValue(AVKey.NUM_LEVELS) == null)
+            params.setValue(AVKey.NUM_LEVELS, DEFAULT_NUM_LEVELS);
+        if (params.getValue(AVKey.TILE_WIDTH) == null)
+            params.setValue(AVKey.TILE_WIDTH, DEFAULT_TILE_SIZE);
+        if (params.getValue(AVKey.TILE_HEIGHT) == null)
+            params.setValue(AVKey.TILE_HEIGHT, DEFAULT_TILE_SIZE);
+
+        params.setValue(AVKey.FORMAT_SUFFIX, TILE_FORMAT_SUFFIX);
+        params.setValue(AVKey.IMAGE_FORMAT, "image/png");
+
+        return params;
+    }
+
+    /**
+     * Returns the tile structure.
+     *
+     * @return the level set that addresses this server's tiles.
+     */
+    public LevelSet getLevels()
+    {
+        return this.levels;
+    }
+
+    /**
+     * Returns the rasterizer that draws this server's tiles.
+     *
+     * @return this server's rasterizer.
+     */
+    public SurfaceRasterizer getRasterizer()
+    {
+        return this.rasterizer;
+    }
+
+    /**
+     * Returns the number of worker threads.
+     *
+     * @return the number of worker threads.
+     */
+    public int getPoolSize()
+    {
+        return this.poolSize;
+    }
+
+    /**
+     * Returns the file store that rendered tiles are cached in.
+     *
+     * @return the tile cache's file store.
+     */
+    public FileStore getFileStore()
+    {
+        return this.fileStore;
+    }
+
+    /**
+     * Specifies the file store that rendered tiles are cached in. The default is {@link WorldWind#getDataFileStore()}.
+     *
+     * @param fileStore the tile cache's file store.
+     *
+     * @throws IllegalArgumentException if the file store is null.
+     */
+    public void setFileStore(FileStore fileStore)
+    {
+        if (fileStore == null)
+        {
+            String message = Logging.getMessage("nullValue.FileStoreIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.fileStore = fileStore;
+    }
+
+    public Sector getSector()
+    {
+        return this.levels.getSector();
+    }
+
+    /**
+     * Returns the number of tiles this server has rendered.
+     *
+     * @return the number of tiles rendered.
+     */
+    public long getRenderedTileCount()
+    {
+        return this.renderedCount.get();
+    }
+
+    /**
+     * Returns the number of tile requests this server has answered from its tile cache.
+     *
+     * @return the number of tiles read from the cache.
+     */
+    public long getCachedTileCount()
+    {
+        return this.cachedCount.get();
+    }
+
+    //**************************************************************//
+    //********************  Renderables  ***************************//
+    //**************************************************************//
+
+    /**
+     * Returns the renderables drawn into this server's tiles, in drawing order.
+     *
+     * @return an unmodifiable view of this server's renderables.
+     */
+    public List<Object> getRenderables()
+    {
+        return Collections.unmodifiableList(this.renderables);
+    }
+
+    /**
+     * Adds a renderable to draw into this server's tiles, after the renderables already added. Objects the server's
+     * {@link SurfaceRasterizer} does not draw are accepted but ignored.
+     *
+     * @param renderable the renderable to add.
+     *
+     * @throws IllegalArgumentException if the renderable is null.
+     */
+    public void addRenderable(Object renderable)
+    {
+        if (renderable == null)
+        {
+            String message = Logging.getMessage("nullValue.RenderableIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.renderables.add(renderable);
+        this.invalidateTiles();
+    }
+
+    /**
+     * Adds renderables to draw into this server's tiles, after the renderables already added.
+     *
+     * @param renderables the renderables to add.
+     *
+     * @throws IllegalArgumentException if the iterable is null.
+     */
+    public void addAllRenderables(Iterable<?> renderables)
+    {
+        if (renderables == null)
+        {
+            String message = Logging.getMessage("nullValue.IterableIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        List<Object> list = new ArrayList<Object>();
+        for (Object renderable : renderables)
+        {
+            if (renderable != null)
+                list.add(renderable);
+        }
+
+        this.renderables.addAll(list);
+        this.invalidateTiles();
+    }
+
+    /**
+     * Removes a renderable from this server's tiles.
+     *
+     * @param renderable the renderable to remove.
+     *
+     * @throws IllegalArgumentException if the renderable is null.
+     */
+    public void removeRenderable(Object renderable)
+    {
+        if (renderable == null)
+        {
+            String message = Logging.getMessage("nullValue.RenderableIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (this.renderables.remove(renderable))
+            this.invalidateTiles();
+    }
+
+    /** Removes all renderables from this server's tiles. */
+    public void removeAllRenderables()
+    {
+        this.renderables.clear();
+        this.invalidateTiles();
+    }
+
+    /**
+     * Marks all cached tiles as out of date, so that subsequent requests render them again. Call this after modifying
+     * one of this server's renderables. Tiles being rendered when this is called are returned to their requesters but
+     * are not cached.
+     */
+    public void invalidateTiles()
+    {
+        this.generation.incrementAndGet();
+        this.levels.setExpiryTime(System.currentTimeMillis());
+    }
+
+    //**************************************************************//
+    //********************  Tile Requests  *************************//
+    //**************************************************************//
+
+    /**
+     * Returns a tile as a PNG image, reading it from the tile cache if it is cached and current, otherwise rendering
+     * and caching it. Concurrent requests for the same tile share one rendering.
+     *
+     * @param levelNumber the tile's level number.
+     * @param row         the tile's row within its level.
+     * @param column      the tile's column within its level.
+     *
+     * @return the tile's PNG image.
+     *
+     * @throws IllegalArgumentException if the tile is not within this server's levels.
+     * @throws WWRuntimeException       if the tile cannot be rendered, or if the calling thread is interrupted while
+     *                                  waiting for it.
+     */
+    public ByteBuffer getTile(int levelNumber, int row, int column)
+    {
+        Tile tile = this.createTile(levelNumber, row, column);
+
+        ByteBuffer buffer = this.readCachedTile(tile);
+        if (buffer != null)
+            return buffer;
+
+        try
+        {
+            return this.requestTile(tile).get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            String message = Logging.getMessage("generic.TaskIsInterrupted", tile.getPath(), e.getMessage());
+            throw new WWRuntimeException(message, e);
+        }
+        catch (ExecutionException e)
+        {
+            String message = Logging.getMessage("generic.ExceptionWhileRequestingImage", tile.getPath());
+            throw new WWRuntimeException(message, e.getCause());
+        }
+    }
+
+    /**
+     * Requests a tile asynchronously. The returned future completes with the tile's PNG image once it has been read
+     * from the tile cache or rendered on one of this server's worker threads.
+     *
+     * @param levelNumber the tile's level number.
+     * @param row         the tile's row within its level.
+     * @param column      the tile's column within its level.
+     *
+     * @return a future for the tile's PNG image.
+     *
+     * @throws IllegalArgumentException if the tile is not within this server's levels.
+     */
+    public Future<ByteBuffer> requestTile(int levelNumber, int row, int column)
+    {
+        return this.requestTile(this.createTile(levelNumber, row, column));
+    }
+
+    protected Future<ByteBuffer> requestTile(final Tile tile)
+    {
+        final TileKey key = tile.getTileKey();
+        Future<ByteBuffer> future = this.pendingTiles.get(key);
+        if (future != null)
+            return future;
+
+        FutureTask<ByteBuffer> task = new FutureTask<ByteBuffer>(new Callable<ByteBuffer>()
+        {
+            public ByteBuffer call() throws Exception
+            {
+                try
+                {
+                    return loadTile(tile);
+                }
+                finally
+                {
+                    pendingTiles.remove(key);
+                }
+            }
+        });
+
+        future = this.pendingTiles.putIfAbsent(key, task);
+        if (future != null)
+            return future; // another thread requested the tile first
+
+        this.executor.execute(task);
+        return task;
+    }
+
+    protected Tile createTile(int levelNumber, int row, int column)
+    {
+        if (levelNumber < 0 || levelNumber >= this.levels.getNumLevels())
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "levelNumber=" + levelNumber);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (row < 0 || column < 0)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "row=" + row + ", column=" + column);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        Level level = this.levels.getLevel(levelNumber);
+        Tile tile = this.levels.createTile(new TileKey(levelNumber, row, column, level.getCacheName()));
+        if (!tile.getSector().intersectsInterior(this.levels.getSector()))
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "row=" + row + ", column=" + column);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        return tile;
+    }
+
+    /**
+     * Returns a tile's PNG image from the tile cache, or renders and caches it if the cached image is missing or out of
+     * date. Called on a worker thread.
+     *
+     * @param tile the tile to load.
+     *
+     * @return the tile's PNG image.
+     *
+     * @throws IOException if the tile's image cannot be encoded.
+     */
+    protected ByteBuffer loadTile(Tile tile) throws IOException
+    {
+        ByteBuffer buffer = this.readCachedTile(tile);
+        if (buffer != null)
+            return buffer;
+
+        long generation = this.generation.get();
+        long renderTime = System.currentTimeMillis();
+        BufferedImage image = this.renderTile(tile);
+        buffer = this.encodePNG(image);
+        this.renderedCount.incrementAndGet();
+
+        // The cached tile is dated by when its rendering started, so it is out of date if the tiles are invalidated
+        // while it is being written. A tile invalidated before it is written is removed.
+        if (generation == this.generation.get())
+        {
+            File file = this.writeCachedTile(tile, buffer, renderTime);
+            if (file != null && generation != this.generation.get())
+                file.delete();
+        }
+
+        return buffer;
+    }
+
+    /**
+     * Renders a tile's image.
+     *
+     * @param tile the tile to render.
+     *
+     * @return the tile's image, transparent where no renderable is drawn.
+     */
+    public BufferedImage renderTile(Tile tile)
+    {
+        if (tile == null)
+        {
+            String message = Logging.getMessage("nullValue.TileIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        return this.rasterizer.render(this.renderables, tile.getSector(), tile.getWidth(), tile.getHeight());
+    }
+
+    protected ByteBuffer readCachedTile(Tile tile)
+    {
+        URL url = this.fileStore.findFile(tile.getPath(), false);
+        if (url == null || WWIO.isFileOutOfDate(url, tile.getLevel().getExpiryTime()))
+            return null;
+
+        try
+        {
+            ByteBuffer buffer = WWIO.readURLContentToBuffer(url);
+            this.cachedCount.incrementAndGet();
+            return buffer;
+        }
+        catch (IOException e)
+        {
+            Logging.logger().log(java.util.logging.Level.WARNING,
+                Logging.getMessage("generic.ExceptionAttemptingToReadFile", url), e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes a tile's PNG image to the tile cache.
+     *
+     * @param tile         the tile.
+     * @param buffer       the tile's PNG image.
+     * @param lastModified the time to record as the cached file's modification time, in milliseconds since the epoch.
+     *
+     * @return the cached file, or null if the file store is not writable or the file cannot be written.
+     */
+    protected File writeCachedTile(Tile tile, ByteBuffer buffer, long lastModified)
+    {
+        File file = this.fileStore.newFile(tile.getPath());
+        if (file == null)
+            return null; // the file store is not writable
+
+        try
+        {
+            // Write to a temporary file first so that a concurrent reader never sees a partial tile.
+            File tmpFile = new File(file.getPath() + ".tmp" + Thread.currentThread().getId());
+            WWIO.saveBuffer(buffer.duplicate(), tmpFile);
+            tmpFile.setLastModified(lastModified);
+            if (!tmpFile.renameTo(file))
+            {
+                file.delete();
+                if (!tmpFile.renameTo(file))
+                {
+                    tmpFile.delete();
+                    return null;
+                }
+            }
+
+            return file;
+        }
+        catch (IOException e)
+        {
+            Logging.logger().log(java.util.logging.Level.WARNING,
+                Logging.getMessage("generic.ExceptionAttemptingToWriteTo", file), e);
+            return null;
+        }
+    }
+
+    protected ByteBuffer encodePNG(BufferedImage image) throws IOException
+    {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream(16 * 1024);
+        if (!javax.imageio.ImageIO.write(image, "png", stream))
+            throw new IOException(Logging.getMessage("generic.UnknownFileFormat", "image/png"));
+
+        return ByteBuffer.wrap(stream.toByteArray());
+    }
+
+    //**************************************************************//
+    //********************  Raster Server  *************************//
+    //**************************************************************//
+
+    /**
+     * Renders an image of a specified sector and size. The image is not cached.
+     *
+     * @param params must contain AVKey.WIDTH, AVKey.HEIGHT and AVKey.SECTOR. May contain AVKey.IMAGE_FORMAT, one of
+     *               "image/png" (the default) or "image/jpeg". JPEG images are drawn over black.
+     *
+     * @return the encoded image.
+     *
+     * @throws IllegalArgumentException if any of the required parameters are missing or invalid.
+     * @throws WWRuntimeException       if the image format is not supported or the image cannot be encoded.
+     */
+    public ByteBuffer getRasterAsByteBuffer(AVList params)
+    {
+        if (params == null)
+        {
+            String message = Logging.getMessage("nullValue.ParamsIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        for (String key : new String[] {AVKey.WIDTH, AVKey.HEIGHT, AVKey.SECTOR})
+        {
+            if (params.getValue(key) == null)
+            {
+                String message = Logging.getMessage("generic.MissingRequiredParameter", key);
+                Logging.logger().severe(message);
+                throw new IllegalArgumentException(message);
+            }
+        }
+
+        Sector sector = (Sector) params.getValue(AVKey.SECTOR);
+        int width = AVListImpl.getIntegerValue(params, AVKey.WIDTH);
+        int height = AVListImpl.getIntegerValue(params, AVKey.HEIGHT);
+        String format = params.hasKey(AVKey.IMAGE_FORMAT) ? params.getStringValue(AVKey.IMAGE_FORMAT) : "image/png";
+
+        try
+        {
+            if ("image/png".equalsIgnoreCase(format))
+            {
+                return this.encodePNG(this.rasterizer.render(this.renderables, sector, width, height));
+            }
+            else if ("image/jpeg".equalsIgnoreCase(format) || "image/jpg".equalsIgnoreCase(format))
+            {
+                BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+                this.rasterizer.render(this.renderables, sector, image);
+                return ImageUtil.asJPEG(new BufferedImageRaster(sector, image));
+            }
+        }
+        catch (IOException e)
+        {
+            String message = Logging.getMessage("generic.ExceptionWhileRequestingImage", sector);
+            Logging.logger().log(java.util.logging.Level.SEVERE, message, e);
+            throw new WWRuntimeException(message, e);
+        }
+
+        String message = Logging.getMessage("generic.UnknownFileFormat", format);
+        Logging.logger().severe(message);
+        throw new WWRuntimeException(message);
+    }
+}
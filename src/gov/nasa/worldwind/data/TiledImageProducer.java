@@ -46,13 +46,14 @@ public class TiledImageProducer extends TiledRasterProducer
     protected static final String DEFAULT_TEXTURE_FORMAT = "image/dds";
     // Statically reference the readers used to for unknown data sources. This drastically improves the performance of
     // reading large quantities of sources. Since the readers are invoked from a single thread, they can be
-    // safely re-used.
+    // safely re-used. The GeoTIFF reader precedes the ImageIO reader, which also reads TIFF files, so that georeferenced
+    // TIFF sources are read in windows rather than whole.
     protected static DataRasterReader[] readers = new DataRasterReader[]
         {
             new RPFRasterReader(),
             new GDALDataRasterReader(),
-            new ImageIORasterReader(),
-            new GeotiffRasterReader()
+            new GeotiffRasterReader(),
+            new ImageIORasterReader()
         };
 
     public TiledImageProducer(MemoryCache cache, int writeThreadPoolSize)
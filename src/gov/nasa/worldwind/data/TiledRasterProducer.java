@@ -203,17 +203,29 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
         this.productionParams = parameters.copy();
         this.initProductionParameters(this.productionParams);
 
-        // Assemble the source data rasters.
-        this.assembleDataRasters();
+        try
+        {
+            // Assemble the source data rasters.
+            this.assembleDataRasters();
 
-        // Initialize the level set parameters, and create the level set.
-        this.initLevelSetParameters(this.productionParams);
-        LevelSet levelSet = new LevelSet(this.productionParams);
-        // Install the each tiles of the LevelSet.
-        this.installLevelSet(levelSet, this.productionParams);
+            // Initialize the level set parameters, and create the level set.
+            this.initLevelSetParameters(this.productionParams);
+            LevelSet levelSet = new LevelSet(this.productionParams);
+            // Install the each tiles of the LevelSet.
+            this.installLevelSet(levelSet, this.productionParams);
 
-        // Wait for concurrent tasks to complete.
-        this.waitForInstallTileTasks();
+            // Wait for concurrent tasks to complete.
+            this.waitForInstallTileTasks();
+        }
+        finally
+        {
+            // Close the source files held open for windowed reads.
+            for (DataRaster raster : this.dataRasterList)
+            {
+                if (raster instanceof CachedDataRaster)
+                    ((CachedDataRaster) raster).closeWindowSource();
+            }
+        }
 
         // Clear the raster cache.
         this.getCache().clear();
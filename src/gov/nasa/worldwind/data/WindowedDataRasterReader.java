@@ -0,0 +1,73 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.data;
+
+import gov.nasa.worldwind.avlist.AVList;
+import gov.nasa.worldwind.geom.Sector;
+
+/**
+ * A {@link DataRasterReader} that can read part of a data source without reading the whole source. {@link
+ * CachedDataRaster} uses windowed reads to draw small parts of large sources, or to draw sources at reduced
+ * resolution, without loading the source's full-resolution raster. Windows may be read from several threads at
+ * once, so {@link #readWindow(Object, gov.nasa.worldwind.avlist.AVList, gov.nasa.worldwind.geom.Sector, int, int)}
+ * must be thread safe.
+ *
+ * @version $Id$
+ */
+public interface WindowedDataRasterReader extends DataRasterReader
+{
+    /**
+     * Reads the part of a data source covering a sector, at a resolution no coarser than a specified raster size. The
+     * returned raster's sector contains the requested sector, clipped to the source's coverage, and may extend beyond
+     * it by a pixel on each side.
+     *
+     * @param source the source to read.
+     * @param params the source's metadata, as returned by {@link #readMetadata(Object,
+     *               gov.nasa.worldwind.avlist.AVList)}.
+     * @param sector the sector to read.
+     * @param width  the minimum number of pixels across the sector.
+     * @param height the minimum number of pixels down the sector.
+     *
+     * @return a raster covering the sector, or null if this reader cannot read a window of the source, in which case
+     *         the caller must read the whole source.
+     *
+     * @throws java.io.IOException if an IO error occurs.
+     */
+    DataRaster readWindow(Object source, AVList params, Sector sector, int width, int height)
+        throws java.io.IOException;
+
+    /**
+     * Releases any resources, such as open files, held between windowed reads of a data source. A later windowed read
+     * of the source acquires them again. Reads of the source in progress are not affected.
+     *
+     * @param source the source whose resources are released.
+     */
+    void closeWindowSource(Object source);
+}
@@ -29,7 +29,9 @@ package gov.nasa.worldwind.formats.dds;
 
 import gov.nasa.worldwind.util.*;
 
+import java.awt.*;
 import java.awt.image.*;
+import java.util.concurrent.*;
 
 /**
  * DDSCompressor converts in-memory images into a DDS file encoded with one of the DXT block compression algorithms. If
@@ -39,15 +41,54 @@ import java.awt.image.*;
  * Each compression method accepts a reference to a {@link gov.nasa.worldwind.formats.dds.DXTCompressionAttributes}.
  * This compressor performs the appropriate actions according to the attributes, such as building mip maps and
  * converting the source image to a premultiplied alpha format.
+ * <p>
+ * Images are compressed by {@link PackedDXTCompressor}, which compresses strips of the image in parallel on a {@link
+ * ForkJoinPool} and produces the same bytes as the block-at-a-time {@link DXT1Compressor} and {@link DXT3Compressor}.
+ * Large mipmap levels are also filtered in parallel, one band of rows per task.
  *
  * @author dcollins
  * @version $Id: DDSCompressor.java 1171 2013-02-11 21:45:02Z dcollins $
  */
 public class DDSCompressor
 {
-    /** Creates a new DDSCompressor, but otherwise does nothing. */
+    /** The minimum number of rows of a mipmap level filtered by one task. */
+    protected static final int MIN_MIPMAP_BAND_ROWS = 128;
+
+    protected final ForkJoinPool pool;
+
+    /** Creates a new DDSCompressor that compresses on the common fork-join pool, but otherwise does nothing. */
     public DDSCompressor()
     {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new DDSCompressor that compresses on a specified fork-join pool.
+     *
+     * @param pool the pool to compress on.
+     *
+     * @throws IllegalArgumentException if the pool is null.
+     */
+    public DDSCompressor(ForkJoinPool pool)
+    {
+        if (pool == null)
+        {
+            String message = Logging.getMessage("nullValue.ServiceIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.pool = pool;
+    }
+
+    /**
+     * Returns the pool this compressor compresses on.
+     *
+     * @return the compression pool.
+     */
+    public ForkJoinPool getPool()
+    {
+        return this.pool;
     }
 
     /**
@@ -474,7 +515,7 @@ public class DDSCompressor
             throw new IllegalArgumentException(message);
         }
 
-        DXT1Compressor compressor = new DXT1Compressor();
+        DXTCompressor compressor = new PackedDXTCompressor(DDSConstants.D3DFMT_DXT1, this.pool);
         return this.doCompressImage(compressor, image, attributes);
     }
 
@@ -512,7 +553,7 @@ public class DDSCompressor
             throw new IllegalArgumentException(message);
         }
 
-        DXT3Compressor compressor = new DXT3Compressor();
+        DXTCompressor compressor = new PackedDXTCompressor(DDSConstants.D3DFMT_DXT3, this.pool);
         return this.doCompressImage(compressor, image, attributes);
     }
 
@@ -581,20 +622,20 @@ public class DDSCompressor
 
         if (attributes.getDXTFormat() == DDSConstants.D3DFMT_DXT1)
         {
-            return new DXT1Compressor();
+            return new PackedDXTCompressor(DDSConstants.D3DFMT_DXT1, this.pool);
         }
         else if (attributes.getDXTFormat() == DDSConstants.D3DFMT_DXT2
             || attributes.getDXTFormat() == DDSConstants.D3DFMT_DXT3)
         {
-            return new DXT3Compressor();
+            return new PackedDXTCompressor(DDSConstants.D3DFMT_DXT3, this.pool);
         }
         else if (!image.getColorModel().hasAlpha())
         {
-            return new DXT1Compressor();
+            return new PackedDXTCompressor(DDSConstants.D3DFMT_DXT1, this.pool);
         }
         else
         {
-            return new DXT3Compressor();
+            return new PackedDXTCompressor(DDSConstants.D3DFMT_DXT3, this.pool);
         }
     }
 
@@ -618,10 +659,104 @@ public class DDSCompressor
         // data is accessed directly. In this case, such code would be responsible for recognizing the color model
         // (premultiplied) and behaving accordingly.
 
+        //
+        // The levels are filtered exactly as ImageUtil.buildMipmaps filters them, but large levels are filtered in
+        // bands of rows on the compression pool.
+
         int mipmapImageType = BufferedImage.TYPE_INT_ARGB_PRE;
         int maxLevel = ImageUtil.getMaxMipmapLevel(image.getWidth(), image.getHeight());
 
-        return ImageUtil.buildMipmaps(image, mipmapImageType, maxLevel);
+        BufferedImage[] mipMapLevels = new BufferedImage[1 + maxLevel];
+        if (image.getType() == mipmapImageType)
+        {
+            mipMapLevels[0] = image;
+        }
+        else
+        {
+            mipMapLevels[0] = new BufferedImage(image.getWidth(), image.getHeight(), mipmapImageType);
+            this.getScaledCopy(image, mipMapLevels[0]);
+        }
+
+        for (int level = 1; level <= maxLevel; level++)
+        {
+            int width = Math.max(image.getWidth() >> level, 1);
+            int height = Math.max(image.getHeight() >> level, 1);
+
+            mipMapLevels[level] = new BufferedImage(width, height, mipmapImageType);
+            this.getScaledCopy(mipMapLevels[level - 1], mipMapLevels[level]);
+        }
+
+        return mipMapLevels;
+    }
+
+    /**
+     * Draws an image scaled to fill a canvas, as {@link ImageUtil#getScaledCopy(BufferedImage, BufferedImage)} does.
+     * Canvases taller than twice {@link #MIN_MIPMAP_BAND_ROWS} are drawn in bands of rows on the compression pool,
+     * each band clipped from a drawing of the whole image.
+     *
+     * @param image  the image to draw.
+     * @param canvas the image to draw into.
+     */
+    protected void getScaledCopy(BufferedImage image, BufferedImage canvas)
+    {
+        int bands = canvas.getHeight() / MIN_MIPMAP_BAND_ROWS;
+        if (bands < 2 || this.pool.getParallelism() < 2)
+        {
+            ImageUtil.getScaledCopy(image, canvas);
+            return;
+        }
+
+        this.pool.invoke(new ScaledCopyTask(image, canvas, 0, bands, bands));
+    }
+
+    /** Draws a range of bands of a scaled copy, splitting the range in half until it is one band. */
+    protected static class ScaledCopyTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        protected final BufferedImage image;
+        protected final BufferedImage canvas;
+        protected final int firstBand;
+        protected final int lastBand;
+        protected final int bandCount;
+
+        public ScaledCopyTask(BufferedImage image, BufferedImage canvas, int firstBand, int lastBand, int bandCount)
+        {
+            this.image = image;
+            this.canvas = canvas;
+            this.firstBand = firstBand;
+            this.lastBand = lastBand;
+            this.bandCount = bandCount;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (this.lastBand - this.firstBand > 1)
+            {
+                int mid = (this.firstBand + this.lastBand) >>> 1;
+                invokeAll(new ScaledCopyTask(this.image, this.canvas, this.firstBand, mid, this.bandCount),
+                    new ScaledCopyTask(this.image, this.canvas, mid, this.lastBand, this.bandCount));
+                return;
+            }
+
+            int height = this.canvas.getHeight();
+            int y0 = height * this.firstBand / this.bandCount;
+            int y1 = height * this.lastBand / this.bandCount;
+
+            Graphics2D g2d = this.canvas.createGraphics();
+            try
+            {
+                g2d.setClip(0, y0, this.canvas.getWidth(), y1 - y0);
+                g2d.setComposite(AlphaComposite.Src);
+                g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g2d.drawImage(this.image, 0, 0, this.canvas.getWidth(), height, null);
+            }
+            finally
+            {
+                g2d.dispose();
+            }
+        }
     }
 
     protected DDSHeader createDDSHeader(DXTCompressor compressor, java.awt.image.BufferedImage image,
@@ -0,0 +1,739 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.formats.dds;
+
+import gov.nasa.worldwind.util.Logging;
+
+import java.awt.image.*;
+import java.nio.*;
+import java.util.concurrent.*;
+
+/**
+ * A DXT1 or DXT3 compressor that produces exactly the same bytes as {@link DXT1Compressor} and {@link DXT3Compressor},
+ * but reads the image a strip of four pixel rows at a time into a packed ARGB <code>int</code> array and compresses
+ * each block from that array without allocating objects. Strips are compressed in parallel on a {@link ForkJoinPool},
+ * each task writing its blocks directly to their place in the output buffer.
+ * <p>
+ * Images of type <code>TYPE_INT_ARGB</code>, <code>TYPE_INT_ARGB_PRE</code> and <code>TYPE_INT_RGB</code> are read
+ * directly from their rasters, converting premultiplied colors with the same arithmetic as the image's color model.
+ * Other image types are read through <code>BufferedImage.getRGB</code>.
+ *
+ * @version $Id$
+ * @see DDSCompressor
+ */
+public class PackedDXTCompressor implements DXTCompressor
+{
+    /** The minimum number of blocks compressed by one task. */
+    protected static final int MIN_TASK_BLOCKS = 2048;
+
+    protected static final int[] REMAINDER = {
+        0, 0, 0, 0,
+        0, 1, 0, 1,
+        0, 1, 2, 0,
+        0, 1, 2, 3,
+    };
+
+    /** Maps 8 bit alpha to the 4 bit alpha chosen by {@link BlockDXT3Compressor}. */
+    protected static final byte[] ALPHA4_FROM_ALPHA8 = new byte[256];
+
+    /** Maps premultiplied alpha and color components to the color component reported by the image's color model. */
+    protected static volatile byte[] unpremultiplyTable;
+
+    static
+    {
+        for (int a = 0; a < 256; a++)
+        {
+            ALPHA4_FROM_ALPHA8[a] = (byte) BlockDXT3Compressor.alpha4FromAlpha8(a);
+        }
+    }
+
+    protected final int dxtFormat;
+    protected final ForkJoinPool pool;
+
+    /**
+     * Creates a compressor for a DXT format that compresses on the common fork-join pool.
+     *
+     * @param dxtFormat the DXT format, either {@link DDSConstants#D3DFMT_DXT1} or {@link DDSConstants#D3DFMT_DXT3}.
+     *
+     * @throws IllegalArgumentException if the format is not DXT1 or DXT3.
+     */
+    public PackedDXTCompressor(int dxtFormat)
+    {
+        this(dxtFormat, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a compressor for a DXT format that compresses on a specified fork-join pool.
+     *
+     * @param dxtFormat the DXT format, either {@link DDSConstants#D3DFMT_DXT1} or {@link DDSConstants#D3DFMT_DXT3}.
+     * @param pool      the pool to compress on.
+     *
+     * @throws IllegalArgumentException if the format is not DXT1 or DXT3, or if the pool is null.
+     */
+    public PackedDXTCompressor(int dxtFormat, ForkJoinPool pool)
+    {
+        if (dxtFormat != DDSConstants.D3DFMT_DXT1 && dxtFormat != DDSConstants.D3DFMT_DXT3)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", dxtFormat);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (pool == null)
+        {
+            String message = Logging.getMessage("nullValue.ServiceIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.dxtFormat = dxtFormat;
+        this.pool = pool;
+    }
+
+    public int getDXTFormat()
+    {
+        return this.dxtFormat;
+    }
+
+    /**
+     * Returns the pool this compressor compresses on.
+     *
+     * @return the compression pool.
+     */
+    public ForkJoinPool getPool()
+    {
+        return this.pool;
+    }
+
+    public int getCompressedSize(BufferedImage image, DXTCompressionAttributes attributes)
+    {
+        if (image == null)
+        {
+            String message = Logging.getMessage("nullValue.ImageIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+        if (attributes == null)
+        {
+            String message = Logging.getMessage("nullValue.AttributesIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        int width = Math.max(image.getWidth(), 4);
+        int height = Math.max(image.getHeight(), 4);
+
+        return this.dxtFormat == DDSConstants.D3DFMT_DXT1 ? (width * height) / 2 : (width * height);
+    }
+
+    public void compressImage(BufferedImage image, DXTCompressionAttributes attributes, ByteBuffer buffer)
+    {
+        if (image == null)
+        {
+            String message = Logging.getMessage("nullValue.ImageIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+        if (attributes == null)
+        {
+            String message = Logging.getMessage("nullValue.AttributesIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+        if (buffer == null)
+        {
+            String message = Logging.getMessage("nullValue.BufferNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (!isKnownCompressionType(attributes.getColorBlockCompressionType()))
+        {
+            // The block compressors keep the previous block's endpoints for unknown compression types, which only a
+            // sequential pass reproduces.
+            DXTCompressor compressor = this.dxtFormat == DDSConstants.D3DFMT_DXT1 ? new DXT1Compressor()
+                : new DXT3Compressor();
+            compressor.compressImage(image, attributes, buffer);
+            return;
+        }
+
+        int blockRows = (image.getHeight() + 3) / 4;
+        int blocksPerRow = (image.getWidth() + 3) / 4;
+        int blockSize = this.dxtFormat == DDSConstants.D3DFMT_DXT1 ? 8 : 16;
+        int rowsPerTask = Math.max(1, MIN_TASK_BLOCKS / blocksPerRow);
+
+        CompressTask task = new CompressTask(this.dxtFormat, image, attributes, buffer, buffer.position(), 0, blockRows,
+            rowsPerTask);
+        if (blockRows <= rowsPerTask || this.pool.getParallelism() < 2)
+            task.compute();
+        else
+            this.pool.invoke(task);
+
+        buffer.position(buffer.position() + blockRows * blocksPerRow * blockSize);
+    }
+
+    protected static boolean isKnownCompressionType(String type)
+    {
+        //noinspection StringEquality
+        return type == DXTCompressionAttributes.COLOR_BLOCK_COMPRESSION_BBOX
+            || type == DXTCompressionAttributes.COLOR_BLOCK_COMPRESSION_EUCLIDEAN_DISTANCE
+            || type == DXTCompressionAttributes.COLOR_BLOCK_COMPRESSION_LUMINANCE_DISTANCE;
+    }
+
+    /** Compresses a range of block rows, splitting it in half until each half is small enough to compress directly. */
+    protected static class CompressTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        protected final int dxtFormat;
+        protected final BufferedImage image;
+        protected final DXTCompressionAttributes attributes;
+        protected final ByteBuffer buffer;
+        protected final int offset;
+        protected final int firstRow;
+        protected final int lastRow;
+        protected final int rowsPerTask;
+
+        public CompressTask(int dxtFormat, BufferedImage image, DXTCompressionAttributes attributes, ByteBuffer buffer,
+            int offset, int firstRow, int lastRow, int rowsPerTask)
+        {
+            this.dxtFormat = dxtFormat;
+            this.image = image;
+            this.attributes = attributes;
+            this.buffer = buffer;
+            this.offset = offset;
+            this.firstRow = firstRow;
+            this.lastRow = lastRow;
+            this.rowsPerTask = rowsPerTask;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (this.lastRow - this.firstRow > this.rowsPerTask)
+            {
+                int mid = (this.firstRow + this.lastRow) >>> 1;
+                invokeAll(
+                    new CompressTask(this.dxtFormat, this.image, this.attributes, this.buffer, this.offset,
+                        this.firstRow, mid, this.rowsPerTask),
+                    new CompressTask(this.dxtFormat, this.image, this.attributes, this.buffer, this.offset, mid,
+                        this.lastRow, this.rowsPerTask));
+                return;
+            }
+
+            ByteBuffer out = this.buffer.duplicate().order(this.buffer.order());
+            BlockEncoder encoder = new BlockEncoder(this.image, this.attributes);
+            encoder.compressRows(this.dxtFormat, out, this.offset, this.firstRow, this.lastRow);
+        }
+    }
+
+    /**
+     * Compresses strips of an image. Each encoder holds the strip and block arrays it works in, and is used by one
+     * thread only.
+     */
+    protected static class BlockEncoder
+    {
+        protected final BufferedImage image;
+        protected final int width;
+        protected final int height;
+        protected final boolean premultiplyAlpha;
+        protected final boolean dxt1Alpha;
+        protected final int alphaThreshold;
+        protected final String compressionType;
+        protected final int[] strip;
+        protected final int[] a = new int[16];
+        protected final int[] r = new int[16];
+        protected final int[] g = new int[16];
+        protected final int[] b = new int[16];
+        /** The block's palette colors, in the order red, green, blue. */
+        protected final int[] palette = new int[12];
+        /** The minimum and maximum endpoint colors, in the order red, green, blue. */
+        protected final int[] endpoints = new int[6];
+
+        public BlockEncoder(BufferedImage image, DXTCompressionAttributes attributes)
+        {
+            this.image = image;
+            this.width = image.getWidth();
+            this.height = image.getHeight();
+            this.premultiplyAlpha = attributes.isPremultiplyAlpha();
+            this.dxt1Alpha = attributes.isEnableDXT1Alpha() && image.getColorModel().hasAlpha();
+            this.alphaThreshold = attributes.getDXT1AlphaThreshold();
+            this.compressionType = attributes.getColorBlockCompressionType();
+            this.strip = new int[4 * this.width];
+        }
+
+        /**
+         * Compresses a range of block rows.
+         *
+         * @param dxtFormat the DXT format.
+         * @param buffer    the buffer to write to, at absolute positions.
+         * @param offset    the position of the image's first block in the buffer.
+         * @param firstRow  the first block row.
+         * @param lastRow   the block row following the last one compressed.
+         */
+        public void compressRows(int dxtFormat, ByteBuffer buffer, int offset, int firstRow, int lastRow)
+        {
+            int blocksPerRow = (this.width + 3) / 4;
+            int blockSize = dxtFormat == DDSConstants.D3DFMT_DXT1 ? 8 : 16;
+
+            for (int row = firstRow; row < lastRow; row++)
+            {
+                int y = 4 * row;
+                int bh = Math.min(this.height - y, 4);
+                this.readStrip(y, bh);
+
+                int position = offset + row * blocksPerRow * blockSize;
+                for (int x = 0; x < this.width; x += 4, position += blockSize)
+                {
+                    this.loadBlock(x, bh);
+
+                    if (dxtFormat == DDSConstants.D3DFMT_DXT3)
+                    {
+                        buffer.putLong(position, this.computeAlphaMask());
+                        this.encodeColors4(buffer, position + 8);
+                    }
+                    else if (this.dxt1Alpha && this.hasTransparentPixel())
+                    {
+                        this.encodeColors3(buffer, position);
+                    }
+                    else
+                    {
+                        this.encodeColors4(buffer, position);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Reads image rows into the strip as non-premultiplied ARGB, exactly as <code>BufferedImage.getRGB</code>
+         * reports them.
+         *
+         * @param y    the first row.
+         * @param rows the number of rows.
+         */
+        protected void readStrip(int y, int rows)
+        {
+            int type = this.image.getType();
+            int count = rows * this.width;
+
+            if (type == BufferedImage.TYPE_INT_ARGB)
+            {
+                this.image.getRaster().getDataElements(0, y, this.width, rows, this.strip);
+            }
+            else if (type == BufferedImage.TYPE_INT_RGB)
+            {
+                this.image.getRaster().getDataElements(0, y, this.width, rows, this.strip);
+                for (int i = 0; i < count; i++)
+                {
+                    this.strip[i] |= 0xFF000000;
+                }
+            }
+            else if (type == BufferedImage.TYPE_INT_ARGB_PRE)
+            {
+                this.image.getRaster().getDataElements(0, y, this.width, rows, this.strip);
+                byte[] table = getUnpremultiplyTable();
+                for (int i = 0; i < count; i++)
+                {
+                    int p = this.strip[i];
+                    int alpha = p >>> 24;
+                    if (alpha == 255)
+                        continue;
+
+                    int base = alpha << 8;
+                    this.strip[i] = (alpha << 24)
+                        | ((table[base + ((p >> 16) & 0xFF)] & 0xFF) << 16)
+                        | ((table[base + ((p >> 8) & 0xFF)] & 0xFF) << 8)
+                        | (table[base + (p & 0xFF)] & 0xFF);
+                }
+            }
+            else
+            {
+                this.image.getRGB(0, y, this.width, rows, this.strip, 0, this.width);
+            }
+        }
+
+        /**
+         * Copies a block from the strip into the component arrays, repeating pixels of blocks that extend past the
+         * image edge as {@link BasicColorBlockExtractor} does, and premultiplying if necessary.
+         *
+         * @param x  the block's first column.
+         * @param bh the number of rows in the strip.
+         */
+        protected void loadBlock(int x, int bh)
+        {
+            int bw = Math.min(this.width - x, 4);
+            int bxOffset = 4 * (bw - 1);
+            int byOffset = 4 * (bh - 1);
+
+            for (int j = 0, k = 0; j < 4; j++)
+            {
+                int rowStart = REMAINDER[byOffset + j] * this.width + x;
+                for (int i = 0; i < 4; i++, k++)
+                {
+                    int p = this.strip[rowStart + REMAINDER[bxOffset + i]];
+                    int alpha = p >>> 24;
+                    int red = (p >> 16) & 0xFF;
+                    int green = (p >> 8) & 0xFF;
+                    int blue = p & 0xFF;
+
+                    if (this.premultiplyAlpha)
+                    {
+                        red = div255(red * alpha);
+                        green = div255(green * alpha);
+                        blue = div255(blue * alpha);
+                    }
+
+                    this.a[k] = alpha;
+                    this.r[k] = red;
+                    this.g[k] = green;
+                    this.b[k] = blue;
+                }
+            }
+        }
+
+        protected boolean hasTransparentPixel()
+        {
+            for (int i = 0; i < 16; i++)
+            {
+                if (this.a[i] < this.alphaThreshold)
+                    return true;
+            }
+
+            return false;
+        }
+
+        protected long computeAlphaMask()
+        {
+            long mask = 0L;
+            for (int i = 0; i < 8; i++)
+            {
+                long pair = (ALPHA4_FROM_ALPHA8[this.a[2 * i + 1]] << 4) | ALPHA4_FROM_ALPHA8[this.a[2 * i]];
+                mask |= pair << (8 * i);
+            }
+
+            return mask;
+        }
+
+        /**
+         * Encodes the block's colors as a four color DXT1 block, as {@link BlockDXT1Compressor#compressBlockDXT1}
+         * does.
+         *
+         * @param buffer   the output buffer.
+         * @param position the block's position in the buffer.
+         */
+        protected void encodeColors4(ByteBuffer buffer, int position)
+        {
+            this.chooseEndpoints();
+            int color0 = short565(this.endpoints[3], this.endpoints[4], this.endpoints[5]);
+            int color1 = short565(this.endpoints[0], this.endpoints[1], this.endpoints[2]);
+            if (color0 < color1)
+            {
+                int tmp = color0;
+                color0 = color1;
+                color1 = tmp;
+            }
+
+            int[] p = this.palette;
+            expand565(color0, p, 0);
+            expand565(color1, p, 3);
+            for (int c = 0; c < 3; c++)
+            {
+                p[6 + c] = (2 * p[c] + p[3 + c]) / 3;
+                p[9 + c] = (p[c] + 2 * p[3 + c]) / 3;
+            }
+
+            long mask = 0L;
+            for (int i = 0; i < 16; i++)
+            {
+                int d0 = this.distance(i, 0);
+                int d1 = this.distance(i, 3);
+                int d2 = this.distance(i, 6);
+                int d3 = this.distance(i, 9);
+
+                int b0 = (d3 - d0) >>> 31;
+                int b1 = (d2 - d1) >>> 31;
+                int b2 = (d2 - d0) >>> 31;
+                int b3 = (d3 - d1) >>> 31;
+                int b4 = (d3 - d2) >>> 31;
+
+                long index = (b0 & b4) | (((b1 & b2) | (b0 & b3)) << 1);
+                mask |= index << (i << 1);
+            }
+
+            buffer.putShort(position, (short) color0);
+            buffer.putShort(position + 2, (short) color1);
+            buffer.putInt(position + 4, (int) mask);
+        }
+
+        /**
+         * Encodes the block's colors as a three color DXT1 block with transparent black, as {@link
+         * BlockDXT1Compressor#compressBlockDXT1a} does.
+         *
+         * @param buffer   the output buffer.
+         * @param position the block's position in the buffer.
+         */
+        protected void encodeColors3(ByteBuffer buffer, int position)
+        {
+            this.chooseEndpoints();
+            int color0 = short565(this.endpoints[3], this.endpoints[4], this.endpoints[5]);
+            int color1 = short565(this.endpoints[0], this.endpoints[1], this.endpoints[2]);
+            if (color0 < color1)
+            {
+                int tmp = color0;
+                color0 = color1;
+                color1 = tmp;
+            }
+
+            // A three color palette is selected by storing the smaller color first.
+            int[] p = this.palette;
+            expand565(color1, p, 0);
+            expand565(color0, p, 3);
+            for (int c = 0; c < 3; c++)
+            {
+                p[6 + c] = (p[c] + p[3 + c]) / 2;
+            }
+
+            long mask = 0L;
+            for (int i = 0; i < 16; i++)
+            {
+                int d0 = this.distance(i, 0);
+                int d1 = this.distance(i, 3);
+                int d2 = this.distance(i, 6);
+
+                long index;
+                if (this.a[i] < this.alphaThreshold)
+                    index = 3;
+                else if (d0 < d1 && d0 < d2)
+                    index = 0;
+                else if (d1 < d2)
+                    index = 1;
+                else
+                    index = 2;
+
+                mask |= index << (i << 1);
+            }
+
+            buffer.putShort(position, (short) color1);
+            buffer.putShort(position + 2, (short) color0);
+            buffer.putInt(position + 4, (int) mask);
+        }
+
+        protected int distance(int pixel, int paletteIndex)
+        {
+            int dr = this.palette[paletteIndex] - this.r[pixel];
+            int dg = this.palette[paletteIndex + 1] - this.g[pixel];
+            int db = this.palette[paletteIndex + 2] - this.b[pixel];
+            return dr * dr + dg * dg + db * db;
+        }
+
+        /** Chooses the block's endpoint colors as {@link BlockDXT1Compressor#chooseMinMaxColors} does. */
+        protected void chooseEndpoints()
+        {
+            //noinspection StringEquality
+            if (this.compressionType == DXTCompressionAttributes.COLOR_BLOCK_COMPRESSION_BBOX)
+                this.chooseEndpointsBox();
+            else //noinspection StringEquality
+                if (this.compressionType == DXTCompressionAttributes.COLOR_BLOCK_COMPRESSION_EUCLIDEAN_DISTANCE)
+                    this.chooseEndpointsEuclideanDistance();
+                else
+                    this.chooseEndpointsLuminanceDistance();
+        }
+
+        protected void chooseEndpointsBox()
+        {
+            int minR = 255, minG = 255, minB = 255;
+            int maxR = 0, maxG = 0, maxB = 0;
+            for (int i = 0; i < 16; i++)
+            {
+                minR = Math.min(minR, this.r[i]);
+                minG = Math.min(minG, this.g[i]);
+                minB = Math.min(minB, this.b[i]);
+                maxR = Math.max(maxR, this.r[i]);
+                maxG = Math.max(maxG, this.g[i]);
+                maxB = Math.max(maxB, this.b[i]);
+            }
+
+            // Select the diagonal of the box that best fits the colors.
+            int centerR = (minR + maxR) / 2;
+            int centerG = (minG + maxG) / 2;
+            int centerB = (minB + maxB) / 2;
+            int cvx = 0;
+            int cvy = 0;
+            for (int i = 0; i < 16; i++)
+            {
+                int tz = this.b[i] - centerB;
+                cvx += (this.r[i] - centerR) * tz;
+                cvy += (this.g[i] - centerG) * tz;
+            }
+
+            if (cvx < 0)
+            {
+                int tmp = minR;
+                minR = maxR;
+                maxR = tmp;
+            }
+
+            if (cvy < 0)
+            {
+                int tmp = minG;
+                minG = maxG;
+                maxG = tmp;
+            }
+
+            // Inset the box by 1/16 of its size.
+            int insetR = (maxR - minR) >> 4;
+            int insetG = (maxG - minG) >> 4;
+            int insetB = (maxB - minB) >> 4;
+
+            this.endpoints[0] = (minR + insetR < 255) ? (minR + insetR) : 255;
+            this.endpoints[1] = (minG + insetG < 255) ? (minG + insetG) : 255;
+            this.endpoints[2] = (minB + insetB < 255) ? (minB + insetB) : 255;
+            this.endpoints[3] = (maxR > insetR) ? (maxR - insetR) : 0;
+            this.endpoints[4] = (maxG > insetG) ? (maxG - insetG) : 0;
+            this.endpoints[5] = (maxB > insetB) ? (maxB - insetB) : 0;
+        }
+
+        protected void chooseEndpointsEuclideanDistance()
+        {
+            int maxDistance = -1;
+            int minIndex = 0;
+            int maxIndex = 0;
+
+            for (int i = 0; i < 15; i++)
+            {
+                int ri = this.r[i], gi = this.g[i], bi = this.b[i];
+                for (int j = i + 1; j < 16; j++)
+                {
+                    int dr = ri - this.r[j];
+                    int dg = gi - this.g[j];
+                    int db = bi - this.b[j];
+                    int d = dr * dr + dg * dg + db * db;
+                    if (d > maxDistance)
+                    {
+                        minIndex = i;
+                        maxIndex = j;
+                        maxDistance = d;
+                    }
+                }
+            }
+
+            this.setEndpoints(minIndex, maxIndex);
+        }
+
+        protected void chooseEndpointsLuminanceDistance()
+        {
+            int minLuminance = Integer.MAX_VALUE;
+            int maxLuminance = -1;
+            int minIndex = 0;
+            int maxIndex = 0;
+
+            for (int i = 0; i < 16; i++)
+            {
+                int luminance = this.r[i] + this.g[i] + 2 * this.b[i];
+                if (luminance < minLuminance)
+                {
+                    minIndex = i;
+                    minLuminance = luminance;
+                }
+                if (luminance > maxLuminance)
+                {
+                    maxIndex = i;
+                    maxLuminance = luminance;
+                }
+            }
+
+            this.setEndpoints(minIndex, maxIndex);
+        }
+
+        protected void setEndpoints(int minIndex, int maxIndex)
+        {
+            this.endpoints[0] = this.r[minIndex];
+            this.endpoints[1] = this.g[minIndex];
+            this.endpoints[2] = this.b[minIndex];
+            this.endpoints[3] = this.r[maxIndex];
+            this.endpoints[4] = this.g[maxIndex];
+            this.endpoints[5] = this.b[maxIndex];
+        }
+    }
+
+    /**
+     * Returns the table converting premultiplied color components of <code>TYPE_INT_ARGB_PRE</code> images to the
+     * components <code>BufferedImage.getRGB</code> reports. The table is indexed by alpha times 256 plus the component,
+     * and is computed by the image type's own color model.
+     *
+     * @return the unpremultiply table.
+     */
+    protected static byte[] getUnpremultiplyTable()
+    {
+        byte[] table = unpremultiplyTable;
+        if (table == null)
+        {
+            ColorModel cm = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB_PRE).getColorModel();
+            table = new byte[256 * 256];
+            for (int alpha = 0; alpha < 256; alpha++)
+            {
+                for (int c = 0; c < 256; c++)
+                {
+                    table[(alpha << 8) + c] = (byte) (cm.getRGB((alpha << 24) | c) & 0xFF);
+                }
+            }
+            unpremultiplyTable = table;
+        }
+
+        return table;
+    }
+
+    protected static int short565(int r, int g, int b)
+    {
+        return (mul8bit(r, 31) << 11) + (mul8bit(g, 63) << 5) + mul8bit(b, 31);
+    }
+
+    protected static void expand565(int color16, int[] rgb, int offset)
+    {
+        int r = (color16 & 0xf800) >> 11;
+        int g = (color16 & 0x07e0) >> 5;
+        int b = (color16 & 0x001f);
+
+        rgb[offset] = (r << 3) | (r >> 2);
+        rgb[offset + 1] = (g << 2) | (g >> 4);
+        rgb[offset + 2] = (b << 3) | (b >> 2);
+    }
+
+    protected static int mul8bit(int a, int b)
+    {
+        int t = a * b + 128;
+        return (t + (t >> 8)) >> 8;
+    }
+
+    protected static int div255(int a)
+    {
+        return (a + (a >> 8) + 128) >> 8;
+    }
+}
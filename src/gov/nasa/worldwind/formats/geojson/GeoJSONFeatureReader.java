@@ -0,0 +1,794 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+package gov.nasa.worldwind.formats.geojson;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.exception.WWRuntimeException;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.util.*;
+import org.codehaus.jackson.*;
+
+import java.io.*;
+import java.nio.DoubleBuffer;
+import java.util.*;
+import java.util.logging.Level;
+
+/**
+ * Reads the features of a GeoJSON document one at a time, without parsing the entire document into memory. Features
+ * are read directly from the tokens of a Jackson {@link JsonParser}, and each geometry's coordinates are decoded into a
+ * single packed coordinate buffer referenced by its {@link GeoJSONPositionArray}s. The reader therefore handles
+ * FeatureCollections far larger than the available memory, provided each individual feature fits.
+ * <p>
+ * The reader accepts the following documents: <ul> <li>a FeatureCollection, whose "features" array is streamed;</li>
+ * <li>a single Feature;</li> <li>a single geometry, which is returned wrapped in a Feature without properties;</li>
+ * <li>a JSON array of Features or geometries;</li> <li>newline-delimited GeoJSON, a sequence of any of the above
+ * separated by whitespace.</li> </ul>
+ * <p>
+ * A reader may be configured with a bounding sector. Features whose geometry lies entirely outside the sector are
+ * discarded while they are parsed: a feature's "bbox" member, if it precedes the geometry, rejects the feature without
+ * decoding its coordinates, and the members of a rejected feature that follow its geometry are skipped without being
+ * parsed.
+ * <p>
+ * GeoJSONFeatureReader is not thread safe.
+ *
+ * @version $Id$
+ * @see GeoJSONDoc
+ */
+public class GeoJSONFeatureReader implements Iterator<GeoJSONFeature>, Closeable
+{
+    protected static final int INITIAL_COORDINATE_CAPACITY = 1024;
+
+    /**
+     * Value returned by {@link #parseObject(boolean, boolean)} when a root object's "features" array is being
+     * streamed.
+     */
+    protected static final Object STREAMING_FEATURES = new Object();
+    /** Value returned by {@link #parseObject(boolean, boolean)} when an object is rejected by the bounding sector. */
+    protected static final Object REJECTED = new Object();
+
+    protected JsonParser parser;
+    protected String displayName;
+    protected Sector sector;
+    /** True while the elements of a root array or a root FeatureCollection's "features" array are read. */
+    protected boolean streamingArray;
+    /** True if the array being streamed is the "features" array of a root FeatureCollection. */
+    protected boolean streamingCollection;
+    protected GeoJSONFeature nextFeature;
+    protected boolean endOfStream;
+    protected int featureCount;
+    protected int rejectedCount;
+
+    /** Scratch storage for the coordinates of the geometry being read. */
+    protected double[] coords = new double[INITIAL_COORDINATE_CAPACITY];
+    protected int coordCount;
+    /** The bounds of the coordinates read since the current root-level object began. */
+    protected double minLat, maxLat, minLon, maxLon;
+    protected boolean haveBounds;
+
+    /**
+     * Creates a reader for all the features of a GeoJSON document.
+     *
+     * @param source GeoJSON document. May be a file path {@link String}, {@link java.io.File}, {@link java.net.URL},
+     *               {@link java.net.URI} or {@link java.io.InputStream}.
+     *
+     * @throws IllegalArgumentException if the source is null or empty.
+     * @throws WWRuntimeException       if the source cannot be opened.
+     */
+    public GeoJSONFeatureReader(Object source)
+    {
+        this(source, null);
+    }
+
+    /**
+     * Creates a reader for the features of a GeoJSON document that intersect a specified sector.
+     *
+     * @param source GeoJSON document. May be a file path {@link String}, {@link java.io.File}, {@link java.net.URL},
+     *               {@link java.net.URI} or {@link java.io.InputStream}.
+     * @param sector the sector features must intersect to be returned. May be null, in which case all features are
+     *               returned.
+     *
+     * @throws IllegalArgumentException if the source is null or empty.
+     * @throws WWRuntimeException       if the source cannot be opened.
+     */
+    public GeoJSONFeatureReader(Object source, Sector sector)
+    {
+        if (WWUtil.isEmpty(source))
+        {
+            String message = Logging.getMessage("nullValue.SourceIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.displayName = WWIO.getSourcePath(source);
+        this.sector = sector;
+
+        try
+        {
+            this.parser = new JsonFactory().createJsonParser(WWIO.openStream(source));
+        }
+        catch (Exception e)
+        {
+            String message = Logging.getMessage("generic.ExceptionWhileReading", this.displayName);
+            Logging.logger().log(Level.SEVERE, message, e);
+            throw new WWRuntimeException(message, e);
+        }
+    }
+
+    /**
+     * Indicates the sector features must intersect to be returned.
+     *
+     * @return the bounding sector, or null if features are not filtered.
+     */
+    public Sector getSector()
+    {
+        return this.sector;
+    }
+
+    /**
+     * Indicates the number of features returned so far.
+     *
+     * @return the number of features read.
+     */
+    public int getFeatureCount()
+    {
+        return this.featureCount;
+    }
+
+    /**
+     * Indicates the number of features discarded so far because they do not intersect this reader's sector.
+     *
+     * @return the number of features rejected.
+     */
+    public int getRejectedCount()
+    {
+        return this.rejectedCount;
+    }
+
+    /**
+     * Reads the next feature of the document.
+     *
+     * @return the next feature, or null if the end of the document has been reached.
+     *
+     * @throws IOException if an error occurs while reading the document.
+     */
+    public GeoJSONFeature readFeature() throws IOException
+    {
+        if (this.nextFeature != null)
+        {
+            GeoJSONFeature feature = this.nextFeature;
+            this.nextFeature = null;
+            return feature;
+        }
+
+        while (!this.endOfStream)
+        {
+            Object o = this.readNextObject();
+            if (o == null || o == STREAMING_FEATURES)
+                continue;
+
+            if (o == REJECTED)
+            {
+                this.rejectedCount++;
+                continue;
+            }
+
+            GeoJSONFeature feature = this.asFeature(o);
+            if (feature != null)
+            {
+                this.featureCount++;
+                return feature;
+            }
+
+            Logging.logger().warning(Logging.getMessage("generic.UnrecognizedObjectType", o));
+        }
+
+        return null;
+    }
+
+    public boolean hasNext()
+    {
+        if (this.nextFeature == null && !this.endOfStream)
+        {
+            try
+            {
+                this.nextFeature = this.readFeature();
+            }
+            catch (IOException e)
+            {
+                String message = Logging.getMessage("generic.ExceptionWhileReading", this.displayName);
+                Logging.logger().log(Level.SEVERE, message, e);
+                throw new WWRuntimeException(message, e);
+            }
+        }
+
+        return this.nextFeature != null;
+    }
+
+    public GeoJSONFeature next()
+    {
+        if (!this.hasNext())
+            throw new NoSuchElementException();
+
+        GeoJSONFeature feature = this.nextFeature;
+        this.nextFeature = null;
+        return feature;
+    }
+
+    public void remove()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public void close()
+    {
+        this.endOfStream = true;
+        this.nextFeature = null;
+
+        if (this.parser != null)
+        {
+            WWIO.closeStream(this.parser, this.displayName);
+            this.parser = null;
+        }
+    }
+
+    //**************************************************************//
+    //********************  Document Structure  ********************//
+    //**************************************************************//
+
+    /**
+     * Reads the next root-level value, or the next element of the array being streamed.
+     *
+     * @return the object read, {@link #STREAMING_FEATURES} if the "features" array of a FeatureCollection has been
+     *         entered, {@link #REJECTED} if the object lies outside this reader's sector, or null if the value read is
+     *         not an object.
+     *
+     * @throws IOException if an error occurs while reading the document.
+     */
+    protected Object readNextObject() throws IOException
+    {
+        JsonToken token = this.parser != null ? this.parser.nextToken() : null;
+        if (token == null)
+        {
+            this.endOfStream = true;
+            return null;
+        }
+
+        if (this.streamingArray)
+        {
+            if (token == JsonToken.END_ARRAY)
+            {
+                if (this.streamingCollection)
+                    this.skipRemainingFields();
+
+                this.streamingArray = false;
+                this.streamingCollection = false;
+                return null;
+            }
+
+            if (token == JsonToken.START_OBJECT)
+                return this.parseRootObject(false);
+        }
+        else
+        {
+            if (token == JsonToken.START_ARRAY)
+            {
+                this.streamingArray = true;
+                return null;
+            }
+
+            if (token == JsonToken.START_OBJECT)
+                return this.parseRootObject(true);
+        }
+
+        Logging.logger().warning(Logging.getMessage("generic.UnexpectedEvent", token));
+        this.parser.skipChildren();
+        return null;
+    }
+
+    protected Object parseRootObject(boolean allowFeatureStream) throws IOException
+    {
+        this.coordCount = 0;
+        this.haveBounds = false;
+
+        Object o = this.parseObject(allowFeatureStream, true);
+        if (o == STREAMING_FEATURES || o == REJECTED)
+            return o;
+
+        if (this.sector != null && !this.isInSector())
+            return REJECTED;
+
+        return o;
+    }
+
+    /**
+     * Skips the members of the current object up to and including its end. Used to skip the members of a
+     * FeatureCollection that follow its "features" array.
+     *
+     * @throws IOException if an error occurs while reading the document.
+     */
+    protected void skipRemainingFields() throws IOException
+    {
+        for (JsonToken token = this.parser.nextToken(); token != null && token != JsonToken.END_OBJECT;
+            token = this.parser.nextToken())
+        {
+            this.parser.nextToken(); // the field's value
+            this.parser.skipChildren();
+        }
+    }
+
+    protected GeoJSONFeature asFeature(Object o)
+    {
+        if (o instanceof GeoJSONFeature)
+            return (GeoJSONFeature) o;
+
+        if (o instanceof GeoJSONGeometry)
+        {
+            AVList fields = new AVListImpl();
+            fields.setValue(GeoJSONConstants.FIELD_TYPE, GeoJSONConstants.TYPE_FEATURE);
+            fields.setValue(GeoJSONConstants.FIELD_GEOMETRY, o);
+            return new GeoJSONFeature(fields);
+        }
+
+        return null;
+    }
+
+    //**************************************************************//
+    //********************  Object Parsing  ************************//
+    //**************************************************************//
+
+    /**
+     * Parses a GeoJSON object. The parser's current token must be the object's start.
+     *
+     * @param allowFeatureStream true if the object is at the root of the document, in which case its "features" array
+     *                           is streamed rather than parsed.
+     * @param isFeature          true if the object is a feature read from the document's root or from the array being
+     *                           streamed, in which case it is rejected as soon as its bounding box or geometry is found
+     *                           to lie outside this reader's sector.
+     *
+     * @return the object parsed, {@link #STREAMING_FEATURES} if the object's "features" array has been entered, or
+     *         {@link #REJECTED} if the object has been found to lie outside this reader's sector.
+     *
+     * @throws IOException if an error occurs while reading the document.
+     */
+    protected Object parseObject(boolean allowFeatureStream, boolean isFeature) throws IOException
+    {
+        AVList fields = new AVListImpl();
+        boolean rejected = false;
+
+        for (JsonToken token = this.parser.nextToken(); token != null && token != JsonToken.END_OBJECT;
+            token = this.parser.nextToken())
+        {
+            String name = this.parser.getCurrentName();
+            JsonToken valueToken = this.parser.nextToken();
+
+            if (rejected)
+            {
+                this.parser.skipChildren();
+                continue;
+            }
+
+            if (GeoJSONConstants.FIELD_FEATURES.equals(name) && allowFeatureStream
+                && valueToken == JsonToken.START_ARRAY)
+            {
+                this.streamingArray = true;
+                this.streamingCollection = true;
+                return STREAMING_FEATURES;
+            }
+            else if (GeoJSONConstants.FIELD_COORDINATES.equals(name) && valueToken == JsonToken.START_ARRAY)
+            {
+                fields.setValue(name, this.parseCoordinates());
+            }
+            else if (GeoJSONConstants.FIELD_GEOMETRY.equals(name) && valueToken == JsonToken.START_OBJECT)
+            {
+                fields.setValue(name, this.parseObject(false, false));
+                rejected = isFeature && this.sector != null && !this.isInSector();
+            }
+            else if (GeoJSONConstants.FIELD_GEOMETRIES.equals(name) && valueToken == JsonToken.START_ARRAY)
+            {
+                fields.setValue(name, this.parseGeometries());
+            }
+            else if (GeoJSONConstants.FIELD_BBOX.equals(name) && valueToken == JsonToken.START_ARRAY)
+            {
+                Object[] bbox = this.parseArray();
+                fields.setValue(name, bbox);
+                rejected = isFeature && this.sector != null && !this.bboxIntersectsSector(bbox);
+            }
+            else
+            {
+                fields.setValue(name, this.parseValue(valueToken));
+            }
+        }
+
+        return rejected ? REJECTED : this.createObject(fields);
+    }
+
+    protected GeoJSONGeometry[] parseGeometries() throws IOException
+    {
+        List<GeoJSONGeometry> list = new ArrayList<GeoJSONGeometry>();
+
+        for (JsonToken token = this.parser.nextToken(); token != null && token != JsonToken.END_ARRAY;
+            token = this.parser.nextToken())
+        {
+            Object o = token == JsonToken.START_OBJECT ? this.parseObject(false, false) : this.parseValue(token);
+            if (o instanceof GeoJSONGeometry)
+                list.add((GeoJSONGeometry) o);
+            else
+                Logging.logger().warning(Logging.getMessage("generic.UnrecognizedObjectType", o));
+        }
+
+        return list.toArray(new GeoJSONGeometry[list.size()]);
+    }
+
+    protected Object createObject(AVList fields)
+    {
+        Object type = fields.getValue(GeoJSONConstants.FIELD_TYPE);
+
+        if (GeoJSONConstants.TYPE_POINT.equals(type))
+            return new GeoJSONPoint(fields);
+
+        else if (GeoJSONConstants.TYPE_MULTI_POINT.equals(type))
+            return new GeoJSONMultiPoint(fields);
+
+        else if (GeoJSONConstants.TYPE_LINE_STRING.equals(type))
+            return new GeoJSONLineString(fields);
+
+        else if (GeoJSONConstants.TYPE_MULTI_LINE_STRING.equals(type))
+            return new GeoJSONMultiLineString(fields);
+
+        else if (GeoJSONConstants.TYPE_POLYGON.equals(type))
+            return new GeoJSONPolygon(fields);
+
+        else if (GeoJSONConstants.TYPE_MULTI_POLYGON.equals(type))
+            return new GeoJSONMultiPolygon(fields);
+
+        else if (GeoJSONConstants.TYPE_GEOMETRY_COLLECTION.equals(type))
+            return new GeoJSONGeometryCollection(fields);
+
+        else if (GeoJSONConstants.TYPE_FEATURE.equals(type))
+            return new GeoJSONFeature(fields);
+
+        else
+            return fields;
+    }
+
+    /**
+     * Parses a JSON value that is not part of the GeoJSON structure, such as a feature's properties. Objects are
+     * returned as {@link AVList}s, arrays as <code>Object[]</code>, and numbers as {@link Double}s.
+     *
+     * @param token the value's first token.
+     *
+     * @return the value.
+     *
+     * @throws IOException if an error occurs while reading the document.
+     */
+    protected Object parseValue(JsonToken token) throws IOException
+    {
+        if (token == null)
+            return null;
+
+        switch (token)
+        {
+            case START_OBJECT:
+                AVList fields = new AVListImpl();
+                for (JsonToken t = this.parser.nextToken(); t != null && t != JsonToken.END_OBJECT;
+                    t = this.parser.nextToken())
+                {
+                    String name = this.parser.getCurrentName();
+                    fields.setValue(name, this.parseValue(this.parser.nextToken()));
+                }
+                return fields;
+            case START_ARRAY:
+                return this.parseArray();
+            case VALUE_STRING:
+                return this.parser.getText();
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return this.parser.getDoubleValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_NULL:
+                return null;
+            default:
+                Logging.logger().warning(Logging.getMessage("generic.UnexpectedEvent", token));
+                this.parser.skipChildren();
+                return null;
+        }
+    }
+
+    protected Object[] parseArray() throws IOException
+    {
+        List<Object> list = new ArrayList<Object>();
+
+        for (JsonToken token = this.parser.nextToken(); token != null && token != JsonToken.END_ARRAY;
+            token = this.parser.nextToken())
+        {
+            list.add(this.parseValue(token));
+        }
+
+        return list.toArray();
+    }
+
+    //**************************************************************//
+    //********************  Coordinate Parsing  ********************//
+    //**************************************************************//
+
+    /**
+     * Parses a geometry's "coordinates" member into a single packed buffer. The parser's current token must be the
+     * start of the coordinates array.
+     *
+     * @return a {@link GeoJSONPositionArray} for a position or an array of positions, a
+     *         <code>GeoJSONPositionArray[]</code> for an array of position arrays, a
+     *         <code>GeoJSONPositionArray[][]</code> for an array of arrays of position arrays, or null if the
+     *         coordinates are empty.
+     *
+     * @throws IOException if an error occurs while reading the document.
+     */
+    protected Object parseCoordinates() throws IOException
+    {
+        this.coordCount = 0;
+
+        Object structure = this.parseCoordinateArray(this.parser.nextToken());
+        if (structure == null)
+            return null;
+
+        DoubleBuffer buffer = DoubleBuffer.wrap(Arrays.copyOf(this.coords, this.coordCount));
+        return this.resolveCoordinates(structure, buffer);
+    }
+
+    /**
+     * Parses the contents of a coordinates array, appending each position to the coordinate scratch buffer.
+     *
+     * @param token the first token following the array's start.
+     *
+     * @return an <code>int[]</code> of {start, end, positionSize} if the array is a position or an array of positions,
+     *         a List of the structures of its elements if the array contains deeper arrays, or null if it is empty.
+     *
+     * @throws IOException if an error occurs while reading the document.
+     */
+    protected Object parseCoordinateArray(JsonToken token) throws IOException
+    {
+        if (isNumber(token))
+        {
+            int start = this.coordCount;
+            int positionSize = this.parsePosition(0);
+            return new int[] {start, this.coordCount, positionSize};
+        }
+
+        int[] positions = null;
+        List<Object> elements = null;
+
+        for (; token != null && token != JsonToken.END_ARRAY; token = this.parser.nextToken())
+        {
+            if (token != JsonToken.START_ARRAY)
+            {
+                Logging.logger().warning(Logging.getMessage("generic.UnexpectedEvent", token));
+                this.parser.skipChildren();
+                continue;
+            }
+
+            JsonToken first = this.parser.nextToken();
+            if (isNumber(first))
+            {
+                // Consecutive positions are stored contiguously, so an array of positions is a single range.
+                if (positions == null)
+                    positions = new int[] {this.coordCount, this.coordCount, 0};
+                positions[2] = this.parsePosition(positions[2]);
+                positions[1] = this.coordCount;
+            }
+            else
+            {
+                Object element = this.parseCoordinateArray(first);
+                if (element != null)
+                {
+                    if (elements == null)
+                        elements = new ArrayList<Object>();
+                    elements.add(element);
+                }
+            }
+        }
+
+        return elements != null ? elements : positions;
+    }
+
+    /**
+     * Parses a position whose first coordinate is the parser's current token, and appends it to the coordinate
+     * scratch buffer. Positions within one array all have the size of the array's first position: extra coordinates
+     * are dropped and missing coordinates are set to zero.
+     *
+     * @param positionSize the number of coordinates per position, or 0 if this is the first position of its array.
+     *
+     * @return the number of coordinates stored for the position.
+     *
+     * @throws IOException if an error occurs while reading the document.
+     */
+    protected int parsePosition(int positionSize) throws IOException
+    {
+        int n = 0;
+        double lon = 0, lat = 0;
+
+        for (JsonToken token = this.parser.getCurrentToken(); token != JsonToken.END_ARRAY;
+            token = this.parser.nextToken())
+        {
+            if (token == null)
+                throw new EOFException(this.displayName);
+
+            if (!isNumber(token))
+            {
+                Logging.logger().warning(Logging.getMessage("generic.UnexpectedEvent", token));
+                this.parser.skipChildren();
+                continue;
+            }
+
+            double value = this.parser.getDoubleValue();
+            if (n == 0)
+                lon = value;
+            else if (n == 1)
+                lat = value;
+
+            if (positionSize == 0 || n < positionSize)
+                this.appendCoordinate(value);
+            n++;
+        }
+
+        if (positionSize == 0)
+            positionSize = Math.max(n, 2);
+        for (; n < positionSize; n++)
+        {
+            this.appendCoordinate(0);
+        }
+
+        this.addToBounds(lat, lon);
+        return positionSize;
+    }
+
+    protected void appendCoordinate(double value)
+    {
+        if (this.coordCount == this.coords.length)
+            this.coords = Arrays.copyOf(this.coords, 2 * this.coords.length);
+
+        this.coords[this.coordCount++] = value;
+    }
+
+    protected Object resolveCoordinates(Object structure, DoubleBuffer buffer)
+    {
+        if (structure instanceof int[])
+        {
+            int[] range = (int[]) structure;
+            return new GeoJSONPositionArray(range[2], buffer, range[0], range[1]);
+        }
+
+        List<?> elements = (List<?>) structure;
+        Object first = this.resolveCoordinates(elements.get(0), buffer);
+
+        if (first instanceof GeoJSONPositionArray)
+        {
+            List<GeoJSONPositionArray> list = new ArrayList<GeoJSONPositionArray>(elements.size());
+            list.add((GeoJSONPositionArray) first);
+            for (int i = 1; i < elements.size(); i++)
+            {
+                Object o = this.resolveCoordinates(elements.get(i), buffer);
+                if (o instanceof GeoJSONPositionArray)
+                    list.add((GeoJSONPositionArray) o);
+            }
+            return list.toArray(new GeoJSONPositionArray[list.size()]);
+        }
+        else
+        {
+            List<GeoJSONPositionArray[]> list = new ArrayList<GeoJSONPositionArray[]>(elements.size());
+            list.add((GeoJSONPositionArray[]) first);
+            for (int i = 1; i < elements.size(); i++)
+            {
+                Object o = this.resolveCoordinates(elements.get(i), buffer);
+                if (o instanceof GeoJSONPositionArray[])
+                    list.add((GeoJSONPositionArray[]) o);
+            }
+            return list.toArray(new GeoJSONPositionArray[list.size()][]);
+        }
+    }
+
+    protected static boolean isNumber(JsonToken token)
+    {
+        return token == JsonToken.VALUE_NUMBER_FLOAT || token == JsonToken.VALUE_NUMBER_INT;
+    }
+
+    //**************************************************************//
+    //********************  Bounds Filtering  **********************//
+    //**************************************************************//
+
+    protected void addToBounds(double lat, double lon)
+    {
+        if (!this.haveBounds)
+        {
+            this.minLat = this.maxLat = lat;
+            this.minLon = this.maxLon = lon;
+            this.haveBounds = true;
+            return;
+        }
+
+        if (lat < this.minLat)
+            this.minLat = lat;
+        else if (lat > this.maxLat)
+            this.maxLat = lat;
+
+        if (lon < this.minLon)
+            this.minLon = lon;
+        else if (lon > this.maxLon)
+            this.maxLon = lon;
+    }
+
+    /**
+     * Indicates whether the coordinates read since the current root-level object began intersect this reader's
+     * sector. Objects without coordinates are considered to lie outside the sector.
+     *
+     * @return true if the coordinates intersect the sector, otherwise false.
+     */
+    protected boolean isInSector()
+    {
+        return this.haveBounds && this.intersectsSector(this.minLat, this.maxLat, this.minLon, this.maxLon);
+    }
+
+    /**
+     * Indicates whether a GeoJSON "bbox" member intersects this reader's sector. A bounding box that cannot be
+     * interpreted is considered to intersect the sector, so that the feature's coordinates decide.
+     *
+     * @param bbox the bounding box values, either {west, south, east, north} or {west, south, minAltitude, east, north,
+     *             maxAltitude}.
+     *
+     * @return false if the bounding box lies outside the sector, otherwise true.
+     */
+    protected boolean bboxIntersectsSector(Object[] bbox)
+    {
+        int dims = bbox.length / 2;
+        if ((dims != 2 && dims != 3) || bbox.length % 2 != 0)
+            return true;
+
+        for (Object o : bbox)
+        {
+            if (!(o instanceof Double))
+                return true;
+        }
+
+        return this.intersectsSector((Double) bbox[1], (Double) bbox[dims + 1], (Double) bbox[0], (Double) bbox[dims]);
+    }
+
+    protected boolean intersectsSector(double minLat, double maxLat, double minLon, double maxLon)
+    {
+        // A bounding box whose west edge is greater than its east edge crosses the antimeridian; test the sector
+        // against the full range of longitudes in that case.
+        if (minLon > maxLon)
+        {
+            minLon = -180;
+            maxLon = 180;
+        }
+
+        return this.sector.intersects(Sector.fromDegrees(minLat, maxLat, minLon, maxLon));
+    }
+}
@@ -0,0 +1,488 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.formats.mvt;
+
+import gov.nasa.worldwind.util.*;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A decoded Mapbox Vector Tile (MVT). Each of the tile's layers stores its features in packed primitive arrays rather
+ * than as per-feature objects: feature types, ids and property tags are held in parallel arrays, and every feature's
+ * geometry is decoded from the MVT command stream into a single array of tile coordinates shared by all features in the
+ * layer. Features are divided into parts, each part being one point of a point feature, one line of a line feature or
+ * one ring of a polygon feature. Tile coordinates are integers in the range [0, extent], with the origin at the tile's
+ * upper left corner and y increasing downward; coordinates outside that range fall in the tile's buffer region.
+ * <p>
+ * Decoding has no dependency on a protocol buffer runtime, and MVTTile instances are immutable once decoded, so tiles
+ * may be decoded concurrently on any thread.
+ *
+ * @version $Id$
+ * @see <a href="https://github.com/mapbox/vector-tile-spec">Mapbox Vector Tile Specification</a>
+ */
+public class MVTTile
+{
+    public static final int GEOMETRY_UNKNOWN = 0;
+    public static final int GEOMETRY_POINT = 1;
+    public static final int GEOMETRY_LINESTRING = 2;
+    public static final int GEOMETRY_POLYGON = 3;
+
+    /** The tile extent assumed when a layer does not specify one. */
+    public static final int DEFAULT_EXTENT = 4096;
+
+    protected static final int COMMAND_MOVE_TO = 1;
+    protected static final int COMMAND_LINE_TO = 2;
+    protected static final int COMMAND_CLOSE_PATH = 7;
+
+    /** The features of one named layer within a vector tile. */
+    public static class Layer
+    {
+        protected String name;
+        protected int version = 1;
+        protected int extent = DEFAULT_EXTENT;
+        protected String[] keys;
+        protected Object[] values;
+        protected int featureCount;
+        protected long[] featureIds;
+        protected byte[] featureTypes;
+        protected int[] featureTagStart;
+        protected int[] tags;
+        protected int[] featurePartStart;
+        protected int[] partPointStart;
+        protected int[] coordinates;
+
+        public String getName()
+        {
+            return this.name;
+        }
+
+        public int getVersion()
+        {
+            return this.version;
+        }
+
+        /**
+         * Indicates the number of tile coordinate units spanning the tile's width and height.
+         *
+         * @return the layer's extent.
+         */
+        public int getExtent()
+        {
+            return this.extent;
+        }
+
+        public int getFeatureCount()
+        {
+            return this.featureCount;
+        }
+
+        /**
+         * Indicates a feature's id.
+         *
+         * @param feature the feature index.
+         *
+         * @return the feature's id, or 0 if the feature has no id.
+         */
+        public long getFeatureId(int feature)
+        {
+            return this.featureIds[feature];
+        }
+
+        /**
+         * Indicates a feature's geometry type.
+         *
+         * @param feature the feature index.
+         *
+         * @return one of {@link #GEOMETRY_POINT}, {@link #GEOMETRY_LINESTRING}, {@link #GEOMETRY_POLYGON} or {@link
+         *         #GEOMETRY_UNKNOWN}.
+         */
+        public int getFeatureType(int feature)
+        {
+            return this.featureTypes[feature];
+        }
+
+        /**
+         * Returns a feature's value for a property key.
+         *
+         * @param feature the feature index.
+         * @param key     the property key.
+         *
+         * @return the property value, a {@link String}, {@link Float}, {@link Double}, {@link Long} or {@link Boolean},
+         *         or null if the feature does not have the property.
+         */
+        public Object getFeatureProperty(int feature, String key)
+        {
+            for (int i = this.featureTagStart[feature]; i < this.featureTagStart[feature + 1]; i += 2)
+            {
+                if (this.keys[this.tags[i]].equals(key))
+                    return this.values[this.tags[i + 1]];
+            }
+
+            return null;
+        }
+
+        /**
+         * Returns all of a feature's properties. The returned map is created by this call.
+         *
+         * @param feature the feature index.
+         *
+         * @return a map of the feature's property keys to values, in the order they appear in the tile.
+         */
+        public Map<String, Object> getFeatureProperties(int feature)
+        {
+            Map<String, Object> properties = new LinkedHashMap<String, Object>();
+            for (int i = this.featureTagStart[feature]; i < this.featureTagStart[feature + 1]; i += 2)
+            {
+                properties.put(this.keys[this.tags[i]], this.values[this.tags[i + 1]]);
+            }
+
+            return properties;
+        }
+
+        public int getFirstPart(int feature)
+        {
+            return this.featurePartStart[feature];
+        }
+
+        public int getPartCount(int feature)
+        {
+            return this.featurePartStart[feature + 1] - this.featurePartStart[feature];
+        }
+
+        /**
+         * Indicates the index of a part's first point in the array returned by {@link #getCoordinates()}. The point's x
+         * coordinate is at twice this index, and its y coordinate immediately follows.
+         *
+         * @param part the part index.
+         *
+         * @return the index of the part's first point.
+         */
+        public int getFirstPoint(int part)
+        {
+            return this.partPointStart[part];
+        }
+
+        public int getPointCount(int part)
+        {
+            return this.partPointStart[part + 1] - this.partPointStart[part];
+        }
+
+        /**
+         * Returns the packed tile coordinates of every point in the layer, as consecutive x, y pairs. The returned
+         * array is the layer's internal storage and must not be modified. Polygon rings are not explicitly closed;
+         * their first point is not repeated.
+         *
+         * @return the layer's tile coordinates.
+         */
+        public int[] getCoordinates()
+        {
+            return this.coordinates;
+        }
+    }
+
+    protected final List<Layer> layers;
+
+    protected MVTTile(List<Layer> layers)
+    {
+        this.layers = Collections.unmodifiableList(layers);
+    }
+
+    /**
+     * Decodes a vector tile. Tiles compressed with gzip, as they are commonly stored and served, are decompressed
+     * before decoding. The bytes between the buffer's position and its limit are decoded, and the buffer's position is
+     * not modified.
+     *
+     * @param buffer the encoded tile.
+     *
+     * @return the decoded tile.
+     *
+     * @throws IOException              if the tile cannot be decompressed or is not a valid vector tile.
+     * @throws IllegalArgumentException if the buffer is null.
+     */
+    public static MVTTile decode(ByteBuffer buffer) throws IOException
+    {
+        if (buffer == null)
+        {
+            String message = Logging.getMessage("nullValue.BufferIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (isGzipped(buffer))
+            buffer = decompress(buffer);
+
+        List<Layer> layers = new ArrayList<Layer>();
+        ProtobufReader reader = new ProtobufReader(buffer);
+        while (reader.next())
+        {
+            if (reader.fieldNumber() == 3 && reader.wireType() == ProtobufReader.WIRE_LENGTH_DELIMITED)
+                layers.add(decodeLayer(reader.readMessage()));
+            else
+                reader.skip();
+        }
+
+        return new MVTTile(layers);
+    }
+
+    public List<Layer> getLayers()
+    {
+        return this.layers;
+    }
+
+    /**
+     * Returns the layer with a specified name.
+     *
+     * @param name the layer name.
+     *
+     * @return the named layer, or null if the tile has no layer with that name.
+     */
+    public Layer getLayer(String name)
+    {
+        for (Layer layer : this.layers)
+        {
+            if (layer.name != null && layer.name.equals(name))
+                return layer;
+        }
+
+        return null;
+    }
+
+    protected static boolean isGzipped(ByteBuffer buffer)
+    {
+        int pos = buffer.position();
+        return buffer.remaining() >= 2 && (buffer.get(pos) & 0xff) == 0x1f && (buffer.get(pos + 1) & 0xff) == 0x8b;
+    }
+
+    protected static ByteBuffer decompress(ByteBuffer buffer) throws IOException
+    {
+        InputStream stream = new GZIPInputStream(WWIO.getInputStreamFromByteBuffer(buffer.duplicate()));
+        try
+        {
+            return WWIO.readStreamToBuffer(stream);
+        }
+        finally
+        {
+            WWIO.closeStream(stream, null);
+        }
+    }
+
+    protected static Layer decodeLayer(ProtobufReader reader) throws IOException
+    {
+        Layer layer = new Layer();
+        List<String> keys = new ArrayList<String>();
+        List<Object> values = new ArrayList<Object>();
+        List<ProtobufReader> features = new ArrayList<ProtobufReader>();
+
+        while (reader.next())
+        {
+            switch (reader.fieldNumber())
+            {
+                case 1:
+                    layer.name = reader.readString();
+                    break;
+                case 2:
+                    features.add(reader.readMessage()); // decoded below, once the feature count is known
+                    break;
+                case 3:
+                    keys.add(reader.readString());
+                    break;
+                case 4:
+                    values.add(decodeValue(reader.readMessage()));
+                    break;
+                case 5:
+                    layer.extent = (int) reader.readVarint();
+                    break;
+                case 15:
+                    layer.version = (int) reader.readVarint();
+                    break;
+                default:
+                    reader.skip();
+            }
+        }
+
+        layer.keys = keys.toArray(new String[keys.size()]);
+        layer.values = values.toArray();
+        layer.featureCount = features.size();
+        layer.featureIds = new long[layer.featureCount];
+        layer.featureTypes = new byte[layer.featureCount];
+        layer.featureTagStart = new int[layer.featureCount + 1];
+        layer.featurePartStart = new int[layer.featureCount + 1];
+
+        ProtobufReader.IntArray tags = new ProtobufReader.IntArray(16 * layer.featureCount);
+        ProtobufReader.IntArray parts = new ProtobufReader.IntArray(layer.featureCount + 1);
+        ProtobufReader.IntArray coords = new ProtobufReader.IntArray(64 * layer.featureCount);
+        ProtobufReader.IntArray geometry = new ProtobufReader.IntArray(64);
+
+        for (int i = 0; i < layer.featureCount; i++)
+        {
+            layer.featureTagStart[i] = tags.size();
+            layer.featurePartStart[i] = parts.size();
+            geometry.clear();
+
+            ProtobufReader feature = features.get(i);
+            while (feature.next())
+            {
+                switch (feature.fieldNumber())
+                {
+                    case 1:
+                        layer.featureIds[i] = feature.readVarint();
+                        break;
+                    case 2:
+                        feature.readPackedUInt32(tags);
+                        break;
+                    case 3:
+                        layer.featureTypes[i] = (byte) feature.readVarint();
+                        break;
+                    case 4:
+                        feature.readPackedUInt32(geometry);
+                        break;
+                    default:
+                        feature.skip();
+                }
+            }
+
+            if ((tags.size() - layer.featureTagStart[i]) % 2 != 0) // tags are key and value index pairs
+                throw new IOException(Logging.getMessage("generic.InvalidTupleSize",
+                    tags.size() - layer.featureTagStart[i]));
+
+            decodeGeometry(i, geometry, parts, coords);
+        }
+
+        layer.featureTagStart[layer.featureCount] = tags.size();
+        layer.featurePartStart[layer.featureCount] = parts.size();
+        layer.tags = tags.toArray();
+
+        parts.add(coords.size() / 2); // terminate the last part
+        layer.partPointStart = parts.toArray();
+        layer.coordinates = coords.toArray();
+
+        validateTags(layer);
+
+        return layer;
+    }
+
+    protected static void validateTags(Layer layer) throws IOException
+    {
+        for (int i = 0; i < layer.tags.length; i += 2)
+        {
+            if (layer.tags[i] < 0 || layer.tags[i] >= layer.keys.length)
+                throw new IOException(Logging.getMessage("generic.InvalidIndex", layer.tags[i]));
+
+            if (layer.tags[i + 1] < 0 || layer.tags[i + 1] >= layer.values.length)
+                throw new IOException(Logging.getMessage("generic.InvalidIndex", layer.tags[i + 1]));
+        }
+    }
+
+    /**
+     * Decodes a feature's geometry command stream into parts and tile coordinates. Each MoveTo starts a new part;
+     * LineTo appends to the current part and ClosePath ends the current polygon ring without repeating its first
+     * point.
+     *
+     * @param feature  the feature index, used in error messages.
+     * @param geometry the feature's command stream.
+     * @param parts    the index of each part's first point, appended to by this method.
+     * @param coords   the layer's tile coordinates, appended to by this method.
+     *
+     * @throws IOException if the command stream is malformed.
+     */
+    protected static void decodeGeometry(int feature, ProtobufReader.IntArray geometry, ProtobufReader.IntArray parts,
+        ProtobufReader.IntArray coords) throws IOException
+    {
+        int firstPart = parts.size();
+        int x = 0;
+        int y = 0;
+        int i = 0;
+
+        while (i < geometry.size())
+        {
+            int command = geometry.get(i++);
+            int id = command & 0x7;
+            int count = command >>> 3;
+
+            if (id == COMMAND_CLOSE_PATH)
+                continue;
+
+            if ((id != COMMAND_MOVE_TO && id != COMMAND_LINE_TO) || i + 2 * count > geometry.size())
+                throw new IOException(Logging.getMessage("MVT.InvalidGeometryCommand", command, feature));
+
+            for (int j = 0; j < count; j++)
+            {
+                x += (int) ProtobufReader.decodeZigZag(geometry.get(i++) & 0xffffffffL);
+                y += (int) ProtobufReader.decodeZigZag(geometry.get(i++) & 0xffffffffL);
+
+                if (id == COMMAND_MOVE_TO)
+                    parts.add(coords.size() / 2);
+                else if (parts.size() == firstPart) // LineTo without a preceding MoveTo
+                    throw new IOException(Logging.getMessage("MVT.InvalidGeometryCommand", command, feature));
+
+                coords.add(x);
+                coords.add(y);
+            }
+        }
+    }
+
+    protected static Object decodeValue(ProtobufReader reader) throws IOException
+    {
+        Object value = null;
+
+        while (reader.next())
+        {
+            switch (reader.fieldNumber())
+            {
+                case 1:
+                    value = reader.readString();
+                    break;
+                case 2:
+                    value = reader.readFloat();
+                    break;
+                case 3:
+                    value = reader.readDouble();
+                    break;
+                case 4:
+                case 5:
+                    value = reader.readVarint();
+                    break;
+                case 6:
+                    value = reader.readSVarint();
+                    break;
+                case 7:
+                    value = reader.readVarint() != 0;
+                    break;
+                default:
+                    reader.skip();
+            }
+        }
+
+        return value;
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.formats.mvt;
+
+import gov.nasa.worldwind.util.Logging;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Minimal reader for the protocol buffer wire format, sufficient to decode Mapbox Vector Tiles without a dependency on
+ * the protocol buffer runtime. The reader operates on a region of a byte buffer and does not copy the buffer's
+ * contents or its position, limit or byte order.
+ *
+ * @version $Id$
+ */
+class ProtobufReader
+{
+    static final int WIRE_VARINT = 0;
+    static final int WIRE_FIXED64 = 1;
+    static final int WIRE_LENGTH_DELIMITED = 2;
+    static final int WIRE_FIXED32 = 5;
+
+    protected final ByteBuffer buffer;
+    protected int position;
+    protected final int limit;
+    protected int tag;
+
+    /**
+     * Creates a reader for the bytes between the buffer's position and its limit. The buffer's position and limit are
+     * not modified.
+     *
+     * @param buffer the buffer to read.
+     */
+    ProtobufReader(ByteBuffer buffer)
+    {
+        this(buffer, buffer.position(), buffer.limit());
+    }
+
+    ProtobufReader(ByteBuffer buffer, int position, int limit)
+    {
+        this.buffer = buffer;
+        this.position = position;
+        this.limit = limit;
+    }
+
+    /**
+     * Advances to the next field.
+     *
+     * @return true if a field was read, or false if the end of the message has been reached.
+     *
+     * @throws IOException if the message is truncated.
+     */
+    boolean next() throws IOException
+    {
+        if (this.position >= this.limit)
+            return false;
+
+        this.tag = (int) this.readVarint();
+        return true;
+    }
+
+    int fieldNumber()
+    {
+        return this.tag >>> 3;
+    }
+
+    int wireType()
+    {
+        return this.tag & 0x7;
+    }
+
+    int position()
+    {
+        return this.position;
+    }
+
+    long readVarint() throws IOException
+    {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7)
+        {
+            if (this.position >= this.limit)
+                throw new IOException(Logging.getMessage("MVT.TruncatedTile", this.position));
+
+            byte b = this.buffer.get(this.position++);
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+
+        throw new IOException(Logging.getMessage("MVT.TruncatedTile", this.position));
+    }
+
+    long readSVarint() throws IOException
+    {
+        return decodeZigZag(this.readVarint());
+    }
+
+    float readFloat() throws IOException
+    {
+        this.require(4);
+        return Float.intBitsToFloat((int) this.readLittleEndian(4));
+    }
+
+    double readDouble() throws IOException
+    {
+        this.require(8);
+        return Double.longBitsToDouble(this.readLittleEndian(8));
+    }
+
+    String readString() throws IOException
+    {
+        int length = this.readLength();
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++)
+        {
+            bytes[i] = this.buffer.get(this.position + i);
+        }
+
+        this.position += length;
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns a reader for the embedded message at the current position, and advances past it.
+     *
+     * @return a reader limited to the embedded message.
+     *
+     * @throws IOException if the message is truncated.
+     */
+    ProtobufReader readMessage() throws IOException
+    {
+        int length = this.readLength();
+        ProtobufReader reader = new ProtobufReader(this.buffer, this.position, this.position + length);
+        this.position += length;
+        return reader;
+    }
+
+    /**
+     * Reads a packed or unpacked repeated unsigned 32-bit field and appends its values to an array.
+     *
+     * @param array the array to append to.
+     *
+     * @throws IOException if the field is truncated.
+     */
+    void readPackedUInt32(IntArray array) throws IOException
+    {
+        if (this.wireType() == WIRE_VARINT)
+        {
+            array.add((int) this.readVarint());
+            return;
+        }
+
+        int length = this.readLength();
+        int end = this.position + length;
+        while (this.position < end)
+        {
+            array.add((int) this.readVarint());
+        }
+    }
+
+    void skip() throws IOException
+    {
+        switch (this.wireType())
+        {
+            case WIRE_VARINT:
+                this.readVarint();
+                break;
+            case WIRE_FIXED64:
+                this.require(8);
+                this.position += 8;
+                break;
+            case WIRE_LENGTH_DELIMITED:
+                int length = this.readLength();
+                this.position += length;
+                break;
+            case WIRE_FIXED32:
+                this.require(4);
+                this.position += 4;
+                break;
+            default:
+                throw new IOException(Logging.getMessage("MVT.InvalidWireType", this.wireType(), this.position));
+        }
+    }
+
+    protected long readLittleEndian(int length)
+    {
+        long value = 0;
+        for (int i = 0; i < length; i++)
+        {
+            value |= (long) (this.buffer.get(this.position++) & 0xff) << (8 * i);
+        }
+
+        return value;
+    }
+
+    protected int readLength() throws IOException
+    {
+        long length = this.readVarint();
+        if (length < 0 || length > this.limit - this.position)
+            throw new IOException(Logging.getMessage("MVT.TruncatedTile", this.position));
+
+        return (int) length;
+    }
+
+    protected void require(int length) throws IOException
+    {
+        if (this.limit - this.position < length)
+            throw new IOException(Logging.getMessage("MVT.TruncatedTile", this.position));
+    }
+
+    static long decodeZigZag(long value)
+    {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /** A growable array of ints, used to accumulate packed fields without boxing. */
+    static class IntArray
+    {
+        protected int[] values;
+        protected int size;
+
+        IntArray(int capacity)
+        {
+            this.values = new int[Math.max(capacity, 1)];
+        }
+
+        void add(int value)
+        {
+            if (this.size == this.values.length)
+                this.values = Arrays.copyOf(this.values, 2 * this.values.length);
+
+            this.values[this.size++] = value;
+        }
+
+        int get(int index)
+        {
+            return this.values[index];
+        }
+
+        int size()
+        {
+            return this.size;
+        }
+
+        void clear()
+        {
+            this.size = 0;
+        }
+
+        int[] toArray()
+        {
+            return Arrays.copyOf(this.values, this.size);
+        }
+    }
+}
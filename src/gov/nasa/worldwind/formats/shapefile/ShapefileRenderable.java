@@ -182,6 +182,17 @@ public abstract class ShapefileRenderable extends WWObjectImpl
             }
         }
 
+        /**
+         * Returns the attributes this record is drawn with: its highlight attributes if it is highlighted, otherwise its
+         * normal attributes, or the shapefile renderable's defaults if those are not specified.
+         *
+         * @return this record's active attributes.
+         */
+        public ShapeAttributes getActiveAttributes()
+        {
+            return this.shapefileRenderable.determineActiveAttributes(this);
+        }
+
         public int getBoundaryCount()
         {
             return this.numberOfParts;
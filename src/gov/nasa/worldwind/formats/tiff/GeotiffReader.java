@@ -59,6 +59,9 @@ public class GeotiffReader implements Disposable {
     private ArrayList<TiffIFDEntry[]> tiffIFDs = null;
     private ArrayList<AVList> metadata = null;
 
+    // A read-only view of the whole file used by windowed reads, created on first use.
+    private ByteBuffer mappedFile = null;
+
     public GeotiffReader(String sourceFilename) throws IOException {
         this.sourceFilename = sourceFilename;
         this.sourceFile = new RandomAccessFile(sourceFilename, "r");
@@ -73,6 +76,33 @@ public class GeotiffReader implements Disposable {
         this(sourceFile.getAbsolutePath());
     }
 
+    /**
+     * Creates a reader for a TIFF file read through a channel, such as a
+     * {@link gov.nasa.worldwind.retrieve.ByteRangeChannel} over a remote file. The reader moves the channel's position
+     * while reading the file's headers and closes the channel when the reader is closed.
+     *
+     * @param channel    the file's channel.
+     * @param sourceName a name identifying the file, used as the file name in the image metadata and in messages.
+     *
+     * @throws IOException              if the file's headers cannot be read.
+     * @throws IllegalArgumentException if the channel is null.
+     */
+    public GeotiffReader(FileChannel channel, String sourceName) throws IOException {
+        if (channel == null) {
+            String message = Logging.getMessage("nullValue.ChannelIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.sourceFilename = sourceName;
+        this.theChannel = channel;
+        this.theChannel.position(0);
+
+        this.tiffReader = new TIFFReader(this.theChannel);
+
+        readTiffHeaders();
+    }
+
     protected AVList getMetadata(int imageIndex) throws IOException {
         this.checkImageIndex(imageIndex);
         AVList values = this.metadata.get(imageIndex);
@@ -132,6 +162,115 @@ public class GeotiffReader implements Disposable {
         return this.doRead(imageIndex);
     }
 
+    /**
+     * Reads a window of an image, optionally subsampled. Only the strips or tiles of the file that intersect the
+     * window are read, and independent strips and tiles are decompressed in parallel. When the subsample factor is at
+     * least that of one of the image's internal overviews (reduced-resolution images stored in the file after the
+     * image), pixels are read from the smallest such overview instead of from the full-resolution image. The cost of a
+     * read is therefore proportional to the window and the output size rather than to the size of the file.
+     * <p>
+     * The returned raster's metadata is that of the image, with the width and height of the raster and, if the image
+     * is georeferenced, the sector covered by the window.
+     * <p>
+     * Windows may be read concurrently by several threads.
+     *
+     * @param imageIndex the index of the full-resolution image.
+     * @param window     the window to read, in pixels of the full-resolution image. The window is clipped to the
+     *                   image.
+     * @param subsample  the number of full-resolution pixels, in each dimension, per output pixel. 1 reads the window
+     *                   at full resolution.
+     *
+     * @return a raster holding the window's pixels.
+     *
+     * @throws IOException              if the image cannot be read or its format is not supported.
+     * @throws IllegalArgumentException if the image index is invalid, the window is null or does not intersect the
+     *                                  image, or the subsample factor is less than 1.
+     */
+    public DataRaster readDataRaster(int imageIndex, Rectangle window, int subsample) throws IOException {
+        checkImageIndex(imageIndex);
+
+        if (window == null) {
+            String message = Logging.getMessage("nullValue.RectangleIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (subsample < 1) {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "subsample < 1");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        // Extracting an image's tags may read from the channel at its current position.
+        BaselineTiff tiff;
+        synchronized (this.tiffReader) {
+            tiff = BaselineTiff.extract(this.tiffIFDs.get(imageIndex), this.tiffReader);
+        }
+        if (null == tiff || tiff.width <= 0 || tiff.height <= 0) {
+            String message = Logging.getMessage("GeotiffReader.BadGeotiff");
+            Logging.logger().severe(message);
+            throw new IOException(message);
+        }
+
+        Rectangle clipped = window.intersection(new Rectangle(0, 0, tiff.width, tiff.height));
+        if (clipped.isEmpty()) {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", window);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        // Elevation rasters treat pixels as points: their sectors span the centers of the edge pixels, and each
+        // output pixel samples the first pixel of its footprint so that output pixels are evenly spaced. Images treat
+        // pixels as areas: their sectors span the outer edges of the edge pixels, and each output pixel samples the
+        // center of its footprint.
+        AVList values = this.metadata.get(imageIndex).copy();
+        boolean pixelIsPoint = values.getValue(AVKey.PIXEL_FORMAT) == AVKey.ELEVATION;
+
+        int levelIndex;
+        BaselineTiff level;
+        synchronized (this.tiffReader) {
+            levelIndex = this.selectOverview(imageIndex, tiff, subsample);
+            level = (levelIndex == imageIndex) ? tiff
+                    : BaselineTiff.extract(this.tiffIFDs.get(levelIndex), this.tiffReader);
+        }
+        int outWidth = (clipped.width + subsample - 1) / subsample;
+        int outHeight = (clipped.height + subsample - 1) / subsample;
+        int[] columns = computeSampleCoordinates(clipped.x, clipped.width, outWidth, subsample, tiff.width,
+                level.width, pixelIsPoint);
+        int[] rows = computeSampleCoordinates(clipped.y, clipped.height, outHeight, subsample, tiff.height,
+                level.height, pixelIsPoint);
+
+        TiffWindowReader reader = new TiffWindowReader(this.tiffIFDs.get(levelIndex), level, this.tiffReader,
+                this.theChannel, this.getMappedFile());
+        byte[] pixels = reader.read(columns, rows);
+
+        values.setValue(AVKey.WIDTH, outWidth);
+        values.setValue(AVKey.HEIGHT, outHeight);
+        Sector sector = (Sector) values.getValue(AVKey.SECTOR);
+        if (null != sector) {
+            double maxLat, minLat, minLon, maxLon;
+            if (pixelIsPoint) {
+                double dLat = (tiff.height > 1) ? sector.getDeltaLatDegrees() / (tiff.height - 1) : 0;
+                double dLon = (tiff.width > 1) ? sector.getDeltaLonDegrees() / (tiff.width - 1) : 0;
+                maxLat = sector.getMaxLatitude().degrees - clipped.y * dLat;
+                minLat = maxLat - (outHeight - 1) * subsample * dLat;
+                minLon = sector.getMinLongitude().degrees + clipped.x * dLon;
+                maxLon = minLon + (outWidth - 1) * subsample * dLon;
+            } else {
+                double dLat = sector.getDeltaLatDegrees() / tiff.height;
+                double dLon = sector.getDeltaLonDegrees() / tiff.width;
+                maxLat = sector.getMaxLatitude().degrees - clipped.y * dLat;
+                minLat = maxLat - clipped.height * dLat;
+                minLon = sector.getMinLongitude().degrees + clipped.x * dLon;
+                maxLon = minLon + clipped.width * dLon;
+            }
+            values.setValue(AVKey.SECTOR, Sector.fromDegrees(minLat, maxLat, minLon, maxLon));
+            values.setValue(AVKey.ORIGIN, LatLon.fromDegrees(maxLat, minLon));
+        }
+
+        return this.createRaster(imageIndex, tiff, pixels, outWidth, outHeight, values);
+    }
+
     public BufferedImage read() throws IOException {
         return this.read(0);
     }
@@ -152,6 +291,79 @@ public class GeotiffReader implements Disposable {
         throw new IOException(message);
     }
 
+    /**
+     * Indicates whether windows of an image can be read by {@link #readDataRaster(int, java.awt.Rectangle, int)}.
+     * Windows can be read from elevations of 8, 16 or 32-bit integers or 32-bit floats, and from grayscale images of
+     * 8 or 16 bits and RGB, RGBA and palette images of 8 bits per sample, that are uncompressed or LZW or Deflate
+     * compressed. Other images can only be read in full.
+     *
+     * @param imageIndex the index of the image.
+     *
+     * @return true if windows of the image can be read, otherwise false.
+     *
+     * @throws IOException if the image index is invalid.
+     */
+    public boolean canReadWindow(int imageIndex) throws IOException {
+        checkImageIndex(imageIndex);
+
+        BaselineTiff tiff;
+        synchronized (this.tiffReader) {
+            tiff = BaselineTiff.extract(this.tiffIFDs.get(imageIndex), this.tiffReader);
+        }
+        if (null == tiff || tiff.width <= 0 || tiff.height <= 0
+                || TiffWindowReader.checkSupported(this.tiffIFDs.get(imageIndex), tiff) != null) {
+            return false;
+        }
+
+        AVList values = this.metadata.get(imageIndex);
+        Object dataType = values.getValue(AVKey.DATA_TYPE);
+        if (values.getValue(AVKey.PIXEL_FORMAT) == AVKey.ELEVATION) {
+            return dataType == AVKey.INT8 || dataType == AVKey.INT16 || dataType == AVKey.INT32
+                    || dataType == AVKey.FLOAT32;
+        } else if (values.getValue(AVKey.PIXEL_FORMAT) != AVKey.IMAGE) {
+            return false;
+        } else if (values.getValue(AVKey.IMAGE_COLOR_FORMAT) == AVKey.GRAYSCALE) {
+            return dataType == AVKey.INT8 || dataType == AVKey.INT16;
+        } else if (values.getValue(AVKey.IMAGE_COLOR_FORMAT) == AVKey.COLOR && tiff.bitsPerSample[0] == 8) {
+            return (tiff.photometric == Tiff.Photometric.Color_RGB
+                    && (tiff.samplesPerPixel == Tiff.SamplesPerPixel.RGB
+                    || tiff.samplesPerPixel == Tiff.SamplesPerPixel.RGBA))
+                    || tiff.photometric == Tiff.Photometric.Color_Palette;
+        }
+
+        return false;
+    }
+
+    /**
+     * Indicates whether an image is stored in tiles rather than strips. Windowed reads of a tiled image decode only
+     * the tiles the window intersects, whereas windowed reads of a stripped image decode the full width of each strip.
+     *
+     * @param imageIndex the index of the image.
+     *
+     * @return true if the image is tiled, otherwise false.
+     *
+     * @throws IOException if the image index is invalid.
+     */
+    public boolean isTiled(int imageIndex) throws IOException {
+        checkImageIndex(imageIndex);
+        return getByTag(this.tiffIFDs.get(imageIndex), Tiff.Tag.TILE_WIDTH) != null;
+    }
+
+    /**
+     * Indicates whether an image's pixel data are compressed.
+     *
+     * @param imageIndex the index of the image.
+     *
+     * @return true if the image is compressed, otherwise false.
+     *
+     * @throws IOException if the image index is invalid.
+     */
+    public boolean isCompressed(int imageIndex) throws IOException {
+        checkImageIndex(imageIndex);
+        TiffIFDEntry entry = getByTag(this.tiffIFDs.get(imageIndex), Tiff.Tag.COMPRESSION);
+        return entry != null && entry.asLong() != Tiff.Compression.NONE;
+    }
+
     public boolean isGeotiff(int imageIndex) throws IOException {
         AVList values = this.metadata.get(imageIndex);
         return (null != values && values.hasKey(AVKey.COORDINATE_SYSTEM));
@@ -214,6 +426,10 @@ public class GeotiffReader implements Disposable {
             tiff.rowsPerStrip = Integer.MAX_VALUE;
         }
 
+        if (tiff.planarConfig == Tiff.Undefined) {
+            tiff.planarConfig = Tiff.PlanarConfiguration.DEFAULT; // the tag is optional
+        }
+
         if (tiff.planarConfig != Tiff.PlanarConfiguration.PLANAR
                 && tiff.planarConfig != Tiff.PlanarConfiguration.CHUNKY) {
             String msg = Logging.getMessage("GeotiffReader.InvalidIFDEntryValue", tiff.planarConfig,
@@ -222,6 +438,11 @@ public class GeotiffReader implements Disposable {
             throw new IOException(msg);
         }
 
+        // Internally tiled images are read through the windowed reader.
+        if (getByTag(ifd, Tiff.Tag.TILE_WIDTH) != null) {
+            return this.readDataRaster(imageIndex, new Rectangle(0, 0, tiff.width, tiff.height), 1);
+        }
+
         for (TiffIFDEntry entry : ifd) {
             try {
                 switch (entry.tag) {
@@ -268,13 +489,6 @@ public class GeotiffReader implements Disposable {
             throw new IOException(message);
         }
 
-        notToday = getByTag(ifd, Tiff.Tag.TILE_WIDTH);
-        if (notToday != null) {
-            String message = Logging.getMessage("GeotiffReader.NoTiled");
-            Logging.logger().severe(message);
-            throw new IOException(message);
-        }
-
         long offset = stripOffsets[0];
 
         if (values.getValue(AVKey.PIXEL_FORMAT) == AVKey.ELEVATION) {
@@ -466,6 +680,169 @@ public class GeotiffReader implements Disposable {
         throw new IOException(message);
     }
 
+    /**
+     * Selects the image to read for a subsampled read: the smallest of the image's overviews whose resolution is at
+     * least that of the subsampled output, or the image itself if it has no such overview. Overviews are the
+     * reduced-resolution images with the same sample layout that follow the image in the file.
+     */
+    private int selectOverview(int imageIndex, BaselineTiff tiff, int subsample) {
+        int selected = imageIndex;
+        int selectedWidth = tiff.width;
+
+        for (int i = imageIndex + 1; i < this.tiffIFDs.size(); i++) {
+            TiffIFDEntry[] ifd = this.tiffIFDs.get(i);
+            TiffIFDEntry subfileType = getByTag(ifd, Tiff.Tag.NEW_SUBFILE_TYPE);
+            if (subfileType == null || (subfileType.asLong() & Tiff.NewSubfileType.REDUCED_RESOLUTION) == 0) {
+                break; // the next full-resolution image
+            }
+
+            BaselineTiff overview = BaselineTiff.extract(ifd, this.tiffReader);
+            if (overview == null || overview.width <= 0 || overview.height <= 0
+                    || overview.samplesPerPixel != tiff.samplesPerPixel
+                    || !java.util.Arrays.equals(overview.bitsPerSample, tiff.bitsPerSample)
+                    || (subfileType.asLong() & Tiff.NewSubfileType.MASK) != 0
+                    || TiffWindowReader.checkSupported(ifd, overview) != null) {
+                continue;
+            }
+
+            if ((long) overview.width * subsample >= tiff.width && overview.width < selectedWidth) {
+                selected = i;
+                selectedWidth = overview.width;
+            }
+        }
+
+        return selected;
+    }
+
+    /**
+     * Computes the coordinates of the pixels sampled along one axis of a window, in the coordinates of the image or
+     * overview read. Each output pixel samples either the first pixel of its footprint or the pixel under the
+     * footprint's center.
+     */
+    private static int[] computeSampleCoordinates(int start, int length, int count, int subsample, int imageSize,
+            int levelSize, boolean firstPixel) {
+        int[] coords = new int[count];
+        for (int i = 0; i < count; i++) {
+            double position;
+            if (firstPixel) {
+                position = start + i * subsample + 0.5;
+            } else {
+                int footprintEnd = Math.min(start + (i + 1) * subsample, start + length);
+                position = 0.5 * (start + i * subsample + footprintEnd);
+            }
+            int c = (int) (position * levelSize / imageSize);
+            coords[i] = Math.max(0, Math.min(levelSize - 1, c));
+        }
+        return coords;
+    }
+
+    private synchronized ByteBuffer getMappedFile() throws IOException {
+        if (this.mappedFile == null && this.sourceFile != null && this.theChannel.size() <= Integer.MAX_VALUE) {
+            // Files too large to map in one piece, and files read through other channels, are read through the
+            // channel.
+            this.mappedFile = this.theChannel.map(FileChannel.MapMode.READ_ONLY, 0, this.theChannel.size());
+        }
+        return this.mappedFile;
+    }
+
+    /**
+     * Creates a raster from pixel-interleaved samples read by a windowed read.
+     */
+    private DataRaster createRaster(int imageIndex, BaselineTiff tiff, byte[] pixels, int width, int height,
+            AVList values) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(pixels).order(this.tiffReader.getByteOrder());
+        int pixelBytes = pixels.length / (width * height);
+        int numPixels = width * height;
+
+        if (values.getValue(AVKey.PIXEL_FORMAT) == AVKey.ELEVATION) {
+            ByteBufferRaster raster = new ByteBufferRaster(width, height, (Sector) values.getValue(AVKey.SECTOR),
+                    values);
+            Object dataType = values.getValue(AVKey.DATA_TYPE);
+
+            for (int i = 0, p = 0; i < numPixels; i++, p += pixelBytes) {
+                double value;
+                if (dataType == AVKey.INT8) {
+                    value = buffer.get(p);
+                } else if (dataType == AVKey.INT16) {
+                    value = buffer.getShort(p);
+                } else if (dataType == AVKey.INT32) {
+                    value = buffer.getInt(p);
+                } else if (dataType == AVKey.FLOAT32) {
+                    value = buffer.getFloat(p);
+                } else {
+                    String message = Logging.getMessage("Geotiff.UnsupportedDataTypeRaster", tiff.toString());
+                    Logging.logger().severe(message);
+                    throw new IOException(message);
+                }
+                raster.setDoubleAtPosition(i / width, i % width, value);
+            }
+
+            ElevationsUtil.rectify(raster);
+
+            return raster;
+        }
+
+        BufferedImage image = null;
+
+        if (values.getValue(AVKey.PIXEL_FORMAT) == AVKey.IMAGE
+                && values.getValue(AVKey.IMAGE_COLOR_FORMAT) == AVKey.GRAYSCALE) {
+            if (values.getValue(AVKey.DATA_TYPE) == AVKey.INT8) {
+                image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+                byte[] gray = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+                for (int i = 0, p = 0; i < numPixels; i++, p += pixelBytes) {
+                    gray[i] = pixels[p];
+                }
+            } else if (values.getValue(AVKey.DATA_TYPE) == AVKey.INT16) {
+                image = new BufferedImage(width, height, BufferedImage.TYPE_USHORT_GRAY);
+                short[] gray = ((DataBufferUShort) image.getRaster().getDataBuffer()).getData();
+                for (int i = 0, p = 0; i < numPixels; i++, p += pixelBytes) {
+                    gray[i] = buffer.getShort(p);
+                }
+            }
+        } else if (values.getValue(AVKey.PIXEL_FORMAT) == AVKey.IMAGE
+                && values.getValue(AVKey.IMAGE_COLOR_FORMAT) == AVKey.COLOR && pixelBytes == tiff.samplesPerPixel) {
+            ColorModel colorModel = null;
+
+            if (tiff.photometric == Tiff.Photometric.Color_RGB
+                    && (tiff.samplesPerPixel == Tiff.SamplesPerPixel.RGB
+                    || tiff.samplesPerPixel == Tiff.SamplesPerPixel.RGBA)) {
+                boolean hasAlpha = tiff.samplesPerPixel == Tiff.SamplesPerPixel.RGBA;
+                colorModel = new ComponentColorModel(ColorSpace.getInstance(ColorSpace.CS_sRGB), tiff.bitsPerSample,
+                        hasAlpha, false, hasAlpha ? Transparency.TRANSLUCENT : Transparency.OPAQUE,
+                        DataBuffer.TYPE_BYTE);
+            } else if (tiff.photometric == Tiff.Photometric.Color_Palette) {
+                byte[][] cmap;
+                synchronized (this.tiffReader) {
+                    cmap = this.tiffReader.readColorMap(getByTag(this.tiffIFDs.get(imageIndex),
+                            Tiff.Tag.COLORMAP));
+                }
+                colorModel = new IndexColorModel(tiff.bitsPerSample[0], cmap[0].length, cmap[0], cmap[1], cmap[2]);
+            }
+
+            if (colorModel != null) {
+                int[] bandOffsets = new int[tiff.samplesPerPixel];
+                for (int i = 0; i < bandOffsets.length; i++) {
+                    bandOffsets[i] = i;
+                }
+
+                SampleModel sampleModel = new PixelInterleavedSampleModel(DataBuffer.TYPE_BYTE, width, height,
+                        tiff.samplesPerPixel, width * tiff.samplesPerPixel, bandOffsets);
+                WritableRaster raster = Raster.createWritableRaster(sampleModel,
+                        new DataBufferByte(pixels, pixels.length), new Point(0, 0));
+                image = new BufferedImage(colorModel, raster, false, null);
+            }
+        }
+
+        if (null == image) {
+            String message = Logging.getMessage("Geotiff.UnsupportedDataTypeRaster", tiff.toString());
+            Logging.logger().severe(message);
+            throw new IOException(message);
+        }
+
+        image = ImageUtil.toCompatibleImage(image);
+        return BufferedImageRaster.wrap(image, values);
+    }
+
     /**
      * Returns true if georeferencing information was found in this file.
      * <p>
@@ -919,6 +1296,7 @@ public class GeotiffReader implements Disposable {
      */
     @Override
     public void dispose() {
+        this.mappedFile = null;
         try {
             WWIO.closeStream(this.theChannel, this.sourceFilename);
             WWIO.closeStream(this.sourceFile, this.sourceFilename);
@@ -29,6 +29,7 @@ package gov.nasa.worldwind.formats.tiff;
 
 import gov.nasa.worldwind.util.Logging;
 
+import java.io.IOException;
 import java.nio.channels.FileChannel;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
@@ -47,7 +48,18 @@ class TIFFIFDFactory
 
     }
 
-    public static TiffIFDEntry create(FileChannel fc, ByteOrder tiffFileOrder)
+    /**
+     * Reads the IFD entry at the channel's current position, along with the entry's data if it does not fit in the
+     * entry itself.
+     *
+     * @param fc            the channel to read from.
+     * @param tiffFileOrder the byte order of the TIFF file.
+     *
+     * @return the IFD entry, or null if the channel is null or the entry cannot be parsed.
+     *
+     * @throws IOException if the channel cannot be read, or if the entry's data does not lie within the file.
+     */
+    public static TiffIFDEntry create(FileChannel fc, ByteOrder tiffFileOrder) throws IOException
     {
         if( null == fc )
             return null;
@@ -89,11 +101,20 @@ class TIFFIFDFactory
             else
             {
                 long offset = getUnsignedInt( header );
-                int size = MASK_USHORT & (int)calcSize( type, count );
+                long size = calcSize( type, count );
+
+                // A corrupt count or offset must not make us allocate a buffer the file cannot fill.
+                if( size > Integer.MAX_VALUE || offset + size > fc.size() )
+                {
+                    String message = Logging.getMessage("GeotiffReader.IFDEntryOutOfRange", tag, size, offset,
+                        fc.size());
+                    Logging.logger().severe(message);
+                    throw new IOException(message);
+                }
 
                 if( size > 0L )
                 {
-                    ByteBuffer data = ByteBuffer.allocateDirect( size ).order( tiffFileOrder );
+                    ByteBuffer data = ByteBuffer.allocateDirect( (int) size ).order( tiffFileOrder );
                     savedPosition = fc.position();
                     fc.position( offset );
                     fc.read( data );
@@ -108,7 +129,7 @@ class TIFFIFDFactory
                     return new TiffIFDEntry(tag, type, count, offset );
             }
         }
-        catch(Exception e)
+        catch(RuntimeException e)
         {
             Logging.logger().finest( e.getMessage() );
 
@@ -54,6 +54,7 @@ public interface Tiff
     public interface Tag
     {
         // Baseline Tiff 6.0 tags...
+        public static final int NEW_SUBFILE_TYPE = 254;
         public static final int IMAGE_WIDTH = 256;
         public static final int IMAGE_LENGTH = 257;
         public static final int BITS_PER_SAMPLE = 258;
@@ -213,9 +214,27 @@ public interface Tiff
         public static final int NONE = 1;
         public static final int LZW = 5;
         public static final int JPEG = 6;
+        public static final int DEFLATE = 8;
+        public static final int ADOBE_DEFLATE = 32946;
         public static final int PACKBITS = 32773;
     }
 
+    public interface Predictor
+    {
+        public static final int NONE = 1;
+        public static final int HORIZONTAL_DIFFERENCING = 2;
+        public static final int FLOATING_POINT = 3;
+    }
+
+    // Bit flags of the NewSubfileType tag.
+    public interface NewSubfileType
+    {
+        // The image is a reduced-resolution version of another image in this file.
+        public static final int REDUCED_RESOLUTION = 1;
+        public static final int PAGE = 2;
+        public static final int MASK = 4;
+    }
+
     public interface PlanarConfiguration
     {
         // CHUNKY
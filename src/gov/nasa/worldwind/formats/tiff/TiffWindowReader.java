@@ -0,0 +1,583 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.formats.tiff;
+
+import gov.nasa.worldwind.util.Logging;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.zip.*;
+
+/**
+ * Decodes a window of one TIFF image's pixels. Only the strips or tiles that intersect the window are read and
+ * decompressed, and independent strips and tiles are decompressed in parallel. Data are read from a memory-mapped view
+ * of the file when one is available.
+ * <p>
+ * Uncompressed, LZW and Deflate compressed images are supported, with or without horizontal differencing. Pixels are
+ * returned pixel-interleaved and in the file's byte order regardless of the image's planar configuration.
+ *
+ * @version $Id$
+ */
+class TiffWindowReader
+{
+    protected static final int NUM_THREADS = Runtime.getRuntime().availableProcessors();
+    protected static ExecutorService executor;
+
+    protected final TIFFReader tiffReader;
+    protected final FileChannel channel;
+    protected final ByteBuffer mappedFile;
+    protected final ByteOrder byteOrder;
+
+    protected final int width;
+    protected final int height;
+    protected final int samplesPerPixel;
+    protected final int bytesPerSample;
+    protected final boolean planar;
+    protected final boolean tiled;
+    protected final int blockWidth;
+    protected final int blockHeight;
+    protected final int blocksAcross;
+    protected final int blocksDown;
+    protected final long[] offsets;
+    protected final long[] counts;
+    protected final int compression;
+    protected final int predictor;
+
+    /**
+     * Creates a reader for one image of a TIFF file.
+     *
+     * @param ifd        the image's file directory.
+     * @param tiff       the image's baseline tags.
+     * @param tiffReader the reader of the file, which provides the file's byte order and LZW decoder.
+     * @param channel    the file's channel. Used only when mappedFile is null.
+     * @param mappedFile a read-only mapping of the entire file, or null if the file is read through its channel.
+     *
+     * @throws IOException if the image's layout or compression is not supported.
+     */
+    TiffWindowReader(TiffIFDEntry[] ifd, BaselineTiff tiff, TIFFReader tiffReader, FileChannel channel,
+        ByteBuffer mappedFile) throws IOException
+    {
+        this.tiffReader = tiffReader;
+        this.channel = channel;
+        this.mappedFile = mappedFile;
+        this.byteOrder = tiffReader.getByteOrder();
+
+        this.width = tiff.width;
+        this.height = tiff.height;
+        this.samplesPerPixel = tiff.samplesPerPixel;
+        this.planar = tiff.planarConfig == Tiff.PlanarConfiguration.PLANAR && tiff.samplesPerPixel > 1;
+
+        String unsupported = checkSupported(ifd, tiff);
+        if (unsupported != null)
+        {
+            Logging.logger().severe(unsupported);
+            throw new IOException(unsupported);
+        }
+
+        this.bytesPerSample = tiff.bitsPerSample[0] / 8;
+
+        TiffIFDEntry tileWidth = null, tileLength = null, tileOffsets = null, tileCounts = null;
+        TiffIFDEntry stripOffsets = null, stripCounts = null, compressionEntry = null, predictorEntry = null;
+        for (TiffIFDEntry entry : ifd)
+        {
+            switch (entry.tag)
+            {
+                case Tiff.Tag.TILE_WIDTH:
+                    tileWidth = entry;
+                    break;
+                case Tiff.Tag.TILE_LENGTH:
+                    tileLength = entry;
+                    break;
+                case Tiff.Tag.TILE_OFFSETS:
+                    tileOffsets = entry;
+                    break;
+                case Tiff.Tag.TILE_COUNTS:
+                    tileCounts = entry;
+                    break;
+                case Tiff.Tag.STRIP_OFFSETS:
+                    stripOffsets = entry;
+                    break;
+                case Tiff.Tag.STRIP_BYTE_COUNTS:
+                    stripCounts = entry;
+                    break;
+                case Tiff.Tag.COMPRESSION:
+                    compressionEntry = entry;
+                    break;
+                case Tiff.Tag.TIFF_PREDICTOR:
+                    predictorEntry = entry;
+                    break;
+            }
+        }
+
+        this.tiled = tileWidth != null;
+        if (this.tiled)
+        {
+            if (tileLength == null || tileOffsets == null || tileCounts == null)
+            {
+                String message = Logging.getMessage("GeotiffReader.MissingRequiredTag",
+                    tileLength == null ? "TileLength" : tileOffsets == null ? "TileOffsets" : "TileByteCounts");
+                Logging.logger().severe(message);
+                throw new IOException(message);
+            }
+
+            this.blockWidth = (int) tileWidth.asLong();
+            this.blockHeight = (int) tileLength.asLong();
+            this.offsets = tileOffsets.getAsLongs();
+            this.counts = tileCounts.getAsLongs();
+        }
+        else
+        {
+            if (stripOffsets == null || stripCounts == null)
+            {
+                String message = Logging.getMessage("GeotiffReader.MissingRequiredTag",
+                    stripOffsets == null ? "StripOffsets" : "StripCounts");
+                Logging.logger().severe(message);
+                throw new IOException(message);
+            }
+
+            this.blockWidth = this.width;
+            this.blockHeight = (tiff.rowsPerStrip > 0 && tiff.rowsPerStrip < this.height) ? tiff.rowsPerStrip
+                : this.height;
+            this.offsets = stripOffsets.getAsLongs();
+            this.counts = stripCounts.getAsLongs();
+        }
+
+        if (this.blockWidth <= 0 || this.blockHeight <= 0)
+        {
+            String message = Logging.getMessage("GeotiffReader.InvalidIFDEntryValue",
+                this.blockWidth <= 0 ? this.blockWidth : this.blockHeight, "TileWidth/TileLength",
+                this.blockWidth <= 0 ? Tiff.Tag.TILE_WIDTH : Tiff.Tag.TILE_LENGTH);
+            Logging.logger().severe(message);
+            throw new IOException(message);
+        }
+
+        this.blocksAcross = (this.width + this.blockWidth - 1) / this.blockWidth;
+        this.blocksDown = (this.height + this.blockHeight - 1) / this.blockHeight;
+
+        int numBlocks = this.blocksAcross * this.blocksDown * (this.planar ? this.samplesPerPixel : 1);
+        if (this.offsets == null || this.counts == null || this.offsets.length < numBlocks
+            || this.counts.length < numBlocks)
+        {
+            String message = Logging.getMessage("GeotiffReader.MissingRequiredTag",
+                this.tiled ? "TileOffsets" : "StripOffsets");
+            Logging.logger().severe(message);
+            throw new IOException(message);
+        }
+
+        this.compression = compressionEntry != null ? (int) compressionEntry.asLong() : Tiff.Compression.NONE;
+        this.predictor = predictorEntry != null ? (int) predictorEntry.asLong() : Tiff.Predictor.NONE;
+    }
+
+    /**
+     * Indicates whether an image's samples, compression and predictor can be decoded by this reader. Supported images
+     * have samples of 8, 16, 32 or 64 bits, all of one size, and are uncompressed or LZW or Deflate compressed without
+     * floating-point prediction.
+     *
+     * @param ifd  the image's file directory.
+     * @param tiff the image's baseline tags.
+     *
+     * @return null if the image can be decoded, otherwise a message describing why it cannot.
+     */
+    static String checkSupported(TiffIFDEntry[] ifd, BaselineTiff tiff)
+    {
+        if (tiff.bitsPerSample == null || tiff.bitsPerSample.length == 0)
+            return Logging.getMessage("GeotiffReader.MissingRequiredTag", "BitsPerSample");
+
+        for (int bits : tiff.bitsPerSample)
+        {
+            if (bits != tiff.bitsPerSample[0] || (bits != 8 && bits != 16 && bits != 32 && bits != 64))
+                return Logging.getMessage("Geotiff.UnsupportedDataTypeRaster", tiff.toString());
+        }
+
+        for (TiffIFDEntry entry : ifd)
+        {
+            if (entry.tag == Tiff.Tag.COMPRESSION)
+            {
+                long compression = entry.asLong();
+                if (compression != Tiff.Compression.NONE && compression != Tiff.Compression.LZW
+                    && compression != Tiff.Compression.DEFLATE && compression != Tiff.Compression.ADOBE_DEFLATE)
+                    return Logging.getMessage("GeotiffReader.CompressionFormatNotSupported");
+            }
+            else if (entry.tag == Tiff.Tag.TIFF_PREDICTOR && entry.asLong() == Tiff.Predictor.FLOATING_POINT)
+            {
+                return Logging.getMessage("GeotiffReader.CompressionFormatNotSupported");
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Reads the pixels at the intersections of a set of columns and rows. Columns and rows must be given in
+     * non-decreasing order and may repeat; they select the pixels of a window, optionally subsampled.
+     *
+     * @param columns the image columns to read.
+     * @param rows    the image rows to read.
+     *
+     * @return the pixels, pixel-interleaved, row by row, in the file's byte order. The array's length is
+     *         <code>columns.length * rows.length * samplesPerPixel * bytesPerSample</code>.
+     *
+     * @throws IOException if a strip or tile cannot be read or decompressed.
+     */
+    byte[] read(final int[] columns, final int[] rows) throws IOException
+    {
+        final byte[] pixels = new byte[columns.length * rows.length * this.samplesPerPixel * this.bytesPerSample];
+        final int[] columnStarts = computeBlockStarts(columns, this.blockWidth, this.blocksAcross);
+        final int[] rowStarts = computeBlockStarts(rows, this.blockHeight, this.blocksDown);
+
+        // Collect the strips or tiles that contain at least one of the requested pixels.
+        int blocksPerPlane = this.blocksAcross * this.blocksDown;
+        int numPlanes = this.planar ? this.samplesPerPixel : 1;
+        final List<Integer> blocks = new ArrayList<Integer>();
+        for (int plane = 0; plane < numPlanes; plane++)
+        {
+            for (int by = 0; by < this.blocksDown; by++)
+            {
+                if (rowStarts[by] == rowStarts[by + 1])
+                    continue;
+
+                for (int bx = 0; bx < this.blocksAcross; bx++)
+                {
+                    if (columnStarts[bx] != columnStarts[bx + 1])
+                        blocks.add(plane * blocksPerPlane + by * this.blocksAcross + bx);
+                }
+            }
+        }
+
+        if (blocks.size() == 1)
+        {
+            this.readBlock(blocks.get(0), columns, rows, columnStarts, rowStarts, pixels);
+            return pixels;
+        }
+
+        // The calling thread and up to NUM_THREADS - 1 pool threads take blocks from a shared counter. Each block
+        // writes a disjoint set of output pixels, so no further synchronization is needed.
+        final AtomicInteger nextBlock = new AtomicInteger();
+        final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+        final CountDownLatch remaining = new CountDownLatch(blocks.size());
+        Runnable worker = new Runnable()
+        {
+            public void run()
+            {
+                for (int i = nextBlock.getAndIncrement(); i < blocks.size(); i = nextBlock.getAndIncrement())
+                {
+                    try
+                    {
+                        if (failure.get() == null)
+                            readBlock(blocks.get(i), columns, rows, columnStarts, rowStarts, pixels);
+                    }
+                    catch (Exception e)
+                    {
+                        failure.compareAndSet(null, e);
+                    }
+                    finally
+                    {
+                        remaining.countDown();
+                    }
+                }
+            }
+        };
+
+        ExecutorService service = getExecutor();
+        for (int i = 1; i < Math.min(NUM_THREADS, blocks.size()); i++)
+        {
+            service.execute(worker);
+        }
+        worker.run();
+
+        try
+        {
+            remaining.await();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        }
+
+        Exception e = failure.get();
+        if (e instanceof IOException)
+            throw (IOException) e;
+        else if (e != null)
+            throw new IOException(Logging.getMessage("generic.ExceptionWhileReading", e.getMessage()), e);
+
+        return pixels;
+    }
+
+    /**
+     * Decodes one strip or tile and copies the requested pixels it contains to the output.
+     *
+     * @param block        the index of the strip or tile.
+     * @param columns      the requested image columns.
+     * @param rows         the requested image rows.
+     * @param columnStarts the index of the first requested column in each column of blocks.
+     * @param rowStarts    the index of the first requested row in each row of blocks.
+     * @param pixels       the output pixels.
+     *
+     * @throws IOException if the block cannot be read or decompressed.
+     */
+    protected void readBlock(int block, int[] columns, int[] rows, int[] columnStarts, int[] rowStarts,
+        byte[] pixels) throws IOException
+    {
+        int blocksPerPlane = this.blocksAcross * this.blocksDown;
+        int plane = block / blocksPerPlane;
+        int by = (block % blocksPerPlane) / this.blocksAcross;
+        int bx = (block % blocksPerPlane) % this.blocksAcross;
+        int x0 = bx * this.blockWidth;
+        int y0 = by * this.blockHeight;
+
+        // Strips are not padded; the last strip of an image may hold fewer rows. Tiles are always full size.
+        int blockRows = this.tiled ? this.blockHeight : Math.min(this.blockHeight, this.height - y0);
+        int srcPixelBytes = this.planar ? this.bytesPerSample : this.samplesPerPixel * this.bytesPerSample;
+        int dstPixelBytes = this.samplesPerPixel * this.bytesPerSample;
+        int srcRowBytes = this.blockWidth * srcPixelBytes;
+        int dstRowBytes = columns.length * dstPixelBytes;
+        int dstPlaneOffset = this.planar ? plane * this.bytesPerSample : 0;
+
+        ByteBuffer data = this.decodeBlock(block, srcRowBytes, blockRows);
+
+        for (int r = rowStarts[by]; r < rowStarts[by + 1]; r++)
+        {
+            int srcRow = (rows[r] - y0) * srcRowBytes;
+            int dstRow = r * dstRowBytes;
+
+            for (int c = columnStarts[bx]; c < columnStarts[bx + 1]; )
+            {
+                // Copy runs of adjacent pixels at once when the output is contiguous.
+                int run = 1;
+                if (!this.planar)
+                {
+                    while (c + run < columnStarts[bx + 1] && columns[c + run] == columns[c] + run)
+                    {
+                        run++;
+                    }
+                }
+
+                int src = srcRow + (columns[c] - x0) * srcPixelBytes;
+                int length = Math.min(run * srcPixelBytes, data.limit() - src);
+                if (length > 0) // a truncated block leaves the remaining pixels zero
+                {
+                    data.position(src);
+                    data.get(pixels, dstRow + c * dstPixelBytes + dstPlaneOffset, length);
+                }
+
+                c += run;
+            }
+        }
+    }
+
+    /**
+     * Reads and decompresses one strip or tile.
+     *
+     * @param block    the index of the strip or tile.
+     * @param rowBytes the number of bytes in one row of the block.
+     * @param numRows  the number of rows in the block.
+     *
+     * @return the decompressed block. The buffer may be shorter than a full block if an uncompressed block is
+     *         truncated.
+     *
+     * @throws IOException if the block cannot be read or decompressed.
+     */
+    protected ByteBuffer decodeBlock(int block, int rowBytes, int numRows) throws IOException
+    {
+        int length = rowBytes * numRows;
+        int count = (int) this.counts[block];
+        if (count <= 0 || this.offsets[block] <= 0) // a sparse file omits blocks with no data
+            return ByteBuffer.wrap(new byte[length]);
+
+        ByteBuffer raw = this.readBytes(this.offsets[block], count);
+        if (this.compression == Tiff.Compression.NONE && this.predictor != Tiff.Predictor.HORIZONTAL_DIFFERENCING)
+            return raw;
+
+        byte[] bytes = new byte[raw.remaining()];
+        raw.get(bytes);
+
+        byte[] data;
+        if (this.compression == Tiff.Compression.LZW)
+        {
+            try
+            {
+                data = this.tiffReader.lzwUncompress(bytes, length);
+            }
+            catch (RuntimeException e) // the decoder overruns its output buffer on corrupt data
+            {
+                throw new IOException(Logging.getMessage("generic.ExceptionWhileReading", e.getMessage()), e);
+            }
+        }
+        else if (this.compression == Tiff.Compression.DEFLATE || this.compression == Tiff.Compression.ADOBE_DEFLATE)
+        {
+            data = inflate(bytes, length);
+        }
+        else
+        {
+            data = bytes;
+        }
+
+        if (data.length < length)
+            data = Arrays.copyOf(data, length);
+
+        if (this.predictor == Tiff.Predictor.HORIZONTAL_DIFFERENCING)
+            this.undoHorizontalDifferencing(data, rowBytes, numRows);
+
+        return ByteBuffer.wrap(data, 0, length).slice();
+    }
+
+    protected ByteBuffer readBytes(long offset, int count) throws IOException
+    {
+        if (this.mappedFile != null)
+        {
+            ByteBuffer buffer = this.mappedFile.duplicate();
+            int limit = (int) Math.min(buffer.capacity(), offset + count);
+            buffer.limit(limit).position((int) Math.min(offset, limit));
+            return buffer.slice();
+        }
+
+        // Positional reads do not modify the channel's position and may proceed concurrently.
+        ByteBuffer buffer = ByteBuffer.allocate(count);
+        while (buffer.hasRemaining())
+        {
+            if (this.channel.read(buffer, offset + buffer.position()) < 0)
+                break;
+        }
+
+        buffer.flip();
+        return buffer;
+    }
+
+    protected void undoHorizontalDifferencing(byte[] data, int rowBytes, int numRows)
+    {
+        int stride = this.planar ? 1 : this.samplesPerPixel;
+        ByteBuffer buffer = ByteBuffer.wrap(data).order(this.byteOrder);
+
+        for (int row = 0; row < numRows; row++)
+        {
+            int start = row * rowBytes;
+            int rowSamples = rowBytes / this.bytesPerSample;
+
+            for (int i = stride; i < rowSamples; i++)
+            {
+                int index = start + i * this.bytesPerSample;
+                int previous = index - stride * this.bytesPerSample;
+
+                switch (this.bytesPerSample)
+                {
+                    case 1:
+                        data[index] += data[previous];
+                        break;
+                    case 2:
+                        buffer.putShort(index, (short) (buffer.getShort(index) + buffer.getShort(previous)));
+                        break;
+                    case 4:
+                        buffer.putInt(index, buffer.getInt(index) + buffer.getInt(previous));
+                        break;
+                    default:
+                        buffer.putLong(index, buffer.getLong(index) + buffer.getLong(previous));
+                        break;
+                }
+            }
+        }
+    }
+
+    protected static byte[] inflate(byte[] input, int length) throws IOException
+    {
+        Inflater inflater = new Inflater();
+        try
+        {
+            inflater.setInput(input);
+            byte[] output = new byte[length];
+            int n = 0;
+            while (n < length && !inflater.finished() && !inflater.needsInput())
+            {
+                n += inflater.inflate(output, n, length - n);
+            }
+            return output;
+        }
+        catch (DataFormatException e)
+        {
+            throw new IOException(Logging.getMessage("GeotiffReader.CompressionFormatNotSupported"), e);
+        }
+        finally
+        {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Computes, for each row or column of blocks, the index of the first requested coordinate falling in that row or
+     * column. The coordinates of block i are therefore those in [starts[i], starts[i + 1]).
+     *
+     * @param coordinates the requested coordinates, in non-decreasing order.
+     * @param blockSize   the width or height of a block.
+     * @param numBlocks   the number of blocks across or down the image.
+     *
+     * @return an array of numBlocks + 1 indices into the coordinates.
+     */
+    protected static int[] computeBlockStarts(int[] coordinates, int blockSize, int numBlocks)
+    {
+        int[] starts = new int[numBlocks + 1];
+        int i = 0;
+        for (int b = 0; b <= numBlocks; b++)
+        {
+            while (i < coordinates.length && coordinates[i] < b * (long) blockSize)
+            {
+                i++;
+            }
+            starts[b] = i;
+        }
+        starts[numBlocks] = coordinates.length;
+
+        return starts;
+    }
+
+    protected static synchronized ExecutorService getExecutor()
+    {
+        if (executor == null)
+        {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(NUM_THREADS, NUM_THREADS, 2, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory()
+            {
+                public Thread newThread(Runnable runnable)
+                {
+                    Thread thread = new Thread(runnable, "TIFF Decoder");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            pool.allowCoreThreadTimeOut(true);
+            executor = pool;
+        }
+
+        return executor;
+    }
+}
@@ -140,6 +140,14 @@ public class VPFBasicFeatureFactory implements VPFFeatureFactory
             throw new IllegalStateException(message);
         }
 
+        // When features are requested for a single tile, read only the feature and join table rows of that tile.
+        if (this.tile != null)
+        {
+            Collection<? extends VPFFeature> results = this.doCreateTileFeatures(featureClass);
+            if (results != null)
+                return results;
+        }
+
         ArrayList<VPFFeature> results = new ArrayList<VPFFeature>();
 
         VPFBufferedRecordData featureTable = this.createFeatureTable(featureClass);
@@ -147,7 +155,7 @@ public class VPFBasicFeatureFactory implements VPFFeatureFactory
             return null;
 
         VPFBufferedRecordData joinTable = this.createJoinTable(featureClass);
-        Iterable<String> attributeKeys = this.getFeatureAttributeKeys(featureTable);
+        Iterable<String> attributeKeys = this.getFeatureAttributeKeys(featureTable.getRecordParameterNames());
 
         for (VPFRecord featureRow : featureTable)
         {
@@ -224,6 +232,115 @@ public class VPFBasicFeatureFactory implements VPFFeatureFactory
         return feature;
     }
 
+    //**************************************************************//
+    //********************  Tile Feature Assembly  *****************//
+    //**************************************************************//
+
+    /**
+     * Creates the simple features of this factory's tile by decoding only the feature table rows, or join table rows,
+     * whose tile id matches the tile. The rows of each table are located through the table's tile id index, which is
+     * built once per coverage table and shared by all tiles.
+     *
+     * @param featureClass the feature class to create features for.
+     *
+     * @return the tile's features, or null if the feature class's tables do not have tile ids.
+     */
+    protected Collection<? extends VPFFeature> doCreateTileFeatures(VPFFeatureClass featureClass)
+    {
+        VPFMappedRecordData featureTable = featureClass.getCoverage().getMappedTable(
+            featureClass.getFeatureTableName());
+        if (featureTable == null)
+            return null;
+
+        VPFMappedRecordData joinTable = null;
+        if (featureClass.getJoinTableName() != null)
+        {
+            joinTable = featureClass.getCoverage().getMappedTable(featureClass.getJoinTableName());
+            if (joinTable == null || !joinTable.hasRecordParameter("tile_id"))
+                return null;
+        }
+        else if (!featureTable.hasRecordParameter("tile_id"))
+        {
+            return null;
+        }
+
+        Iterable<String> attributeKeys = this.getFeatureAttributeKeys(featureTable.getRecordParameterNames());
+
+        return (joinTable != null) ?
+            this.createCompoundTileFeatures(featureClass, featureTable, joinTable, attributeKeys)
+            : this.createSimpleTileFeatures(featureClass, featureTable, attributeKeys);
+    }
+
+    protected Collection<? extends VPFFeature> createSimpleTileFeatures(VPFFeatureClass featureClass,
+        VPFMappedRecordData featureTable, Iterable<String> attributeKeys)
+    {
+        ArrayList<VPFFeature> results = new ArrayList<VPFFeature>();
+
+        for (int id : featureTable.getRecordIds("tile_id", this.tile.getId()))
+        {
+            VPFFeature feature = this.createSimpleFeature(featureClass, featureTable.getRecord(id), attributeKeys);
+            if (feature != null)
+                results.add(feature);
+        }
+
+        return results;
+    }
+
+    protected Collection<? extends VPFFeature> createCompoundTileFeatures(VPFFeatureClass featureClass,
+        VPFMappedRecordData featureTable, VPFMappedRecordData joinTable, Iterable<String> attributeKeys)
+    {
+        VPFRelation featureToJoin = this.getFeatureToJoinRelation(featureClass);
+        if (featureToJoin == null)
+            return null;
+
+        VPFRelation joinToPrimitive = this.getJoinToPrimitiveRelation(featureClass);
+        if (joinToPrimitive == null)
+            return null;
+
+        String joinFeatureKey = featureToJoin.getTable2Key();
+        String joinPrimitiveKey = joinToPrimitive.getTable1Key();
+        String primitiveTable = joinToPrimitive.getTable2();
+
+        // Group the tile's join rows by feature id. A sorted map creates features in feature id order, as
+        // doCreateSimpleFeatures does.
+        int[] joinIds = joinTable.getRecordIds("tile_id", this.tile.getId());
+        SortedMap<Integer, int[]> featurePrimitives = new TreeMap<Integer, int[]>();
+
+        for (int joinId : joinIds)
+        {
+            VPFRecord joinRow = joinTable.getRecord(joinId);
+            int featureId = asInt(joinRow.getValue(joinFeatureKey));
+            int primitiveId = asInt(joinRow.getValue(joinPrimitiveKey));
+
+            int[] ids = featurePrimitives.get(featureId);
+            ids = (ids != null) ? Arrays.copyOf(ids, ids.length + 1) : new int[1];
+            ids[ids.length - 1] = primitiveId;
+            featurePrimitives.put(featureId, ids);
+        }
+
+        ArrayList<VPFFeature> results = new ArrayList<VPFFeature>(featurePrimitives.size());
+
+        for (Map.Entry<Integer, int[]> entry : featurePrimitives.entrySet())
+        {
+            int featureId = entry.getKey();
+            if (featureId < 1 || featureId > featureTable.getNumRecords())
+                continue;
+
+            VPFBoundingBox bounds = null;
+            for (int primitiveId : entry.getValue())
+            {
+                VPFPrimitiveData.PrimitiveInfo primitiveInfo = this.primitiveData.getPrimitiveInfo(primitiveTable,
+                    primitiveId);
+                bounds = (bounds != null) ? bounds.union(primitiveInfo.getBounds()) : primitiveInfo.getBounds();
+            }
+
+            results.add(this.createFeature(featureClass, featureTable.getRecord(featureId), attributeKeys, bounds,
+                entry.getValue()));
+        }
+
+        return results;
+    }
+
     //**************************************************************//
     //********************  Complex Feature Assembly  **************//
     //**************************************************************//
@@ -286,10 +403,15 @@ public class VPFBasicFeatureFactory implements VPFFeatureFactory
     }
 
     protected Iterable<String> getFeatureAttributeKeys(VPFBufferedRecordData table)
+    {
+        return this.getFeatureAttributeKeys(table.getRecordParameterNames());
+    }
+
+    protected Iterable<String> getFeatureAttributeKeys(Iterable<String> parameterNames)
     {
         ArrayList<String> keys = new ArrayList<String>();
 
-        for (String name : table.getRecordParameterNames())
+        for (String name : parameterNames)
         {
             if (name.equalsIgnoreCase("id") ||
                 name.equalsIgnoreCase("tile_id") ||
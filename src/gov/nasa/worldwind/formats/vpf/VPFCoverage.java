@@ -32,7 +32,7 @@ import gov.nasa.worldwind.exception.WWRuntimeException;
 import gov.nasa.worldwind.util.*;
 
 import java.io.*;
-import java.util.ArrayList;
+import java.util.*;
 
 /**
  * DIGEST Part 2, Annex C.2.2.2.3:<br>A coverage is composed of features whose primitives maintain topological
@@ -51,6 +51,7 @@ public class VPFCoverage extends AVListImpl
     private VPFBufferedRecordData characterValueDescriptionTable;
     private VPFBufferedRecordData integerValueDescriptionTable;
     private VPFBufferedRecordData symbolRelatedAttributeTable;
+    private final Map<String, VPFMappedRecordData> mappedTables = new HashMap<String, VPFMappedRecordData>();
 
     protected VPFCoverage(VPFLibrary library)
     {
@@ -261,6 +262,37 @@ public class VPFCoverage extends AVListImpl
         return array;
     }
 
+    /**
+     * Returns a table in this Coverage's directory, opened for reading records on demand. Tables are opened the first
+     * time they are requested and shared thereafter, so that the record indices built by {@link
+     * VPFMappedRecordData#getRecordIds(String, int)} serve every tile of the coverage.
+     *
+     * @param tableName the table's file name.
+     *
+     * @return the table, or null if the table does not exist or cannot be opened.
+     *
+     * @throws IllegalArgumentException if the table name is null.
+     */
+    public VPFMappedRecordData getMappedTable(String tableName)
+    {
+        if (tableName == null)
+        {
+            String message = Logging.getMessage("nullValue.NameIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        synchronized (this.mappedTables)
+        {
+            if (this.mappedTables.containsKey(tableName))
+                return this.mappedTables.get(tableName);
+
+            VPFMappedRecordData table = VPFUtils.openTable(new File(this.getFilePath(), tableName));
+            this.mappedTables.put(tableName, table);
+            return table;
+        }
+    }
+
     public VPFBufferedRecordData getFeatureClassSchemaTable()
     {
         return this.featureClassSchemaTable;
@@ -68,6 +68,8 @@ public class VPFLayer extends AbstractLayer
     // Threaded requests
     protected Queue<Runnable> requestQ = new PriorityBlockingQueue<Runnable>(4);
     protected Queue<Disposable> disposalQ = new ConcurrentLinkedQueue<Disposable>();
+    protected Map<VPFCoverage, VPFFeatureClass[]> featureClasses
+        = new ConcurrentHashMap<VPFCoverage, VPFFeatureClass[]>();
 
     // --- Inner classes ----------------------------------------------------------------------
 
@@ -300,8 +302,7 @@ public class VPFLayer extends AbstractLayer
         ArrayList<VPFSymbol> list = new ArrayList<VPFSymbol>();
 
         // Create coverage renderables for one tile - if tile is null gets all coverage
-        VPFFeatureClass[] array = VPFUtils.readFeatureClasses(coverage, new VPFFeatureTableFilter());
-        for (VPFFeatureClass cls : array)
+        for (VPFFeatureClass cls : this.getFeatureClasses(coverage))
         {
             Collection<? extends VPFSymbol> symbols = cls.createFeatureSymbols(symbolFactory);
             if (symbols != null)
@@ -311,6 +312,26 @@ public class VPFLayer extends AbstractLayer
         return new VPFSymbolCollection(list);
     }
 
+    /**
+     * Returns the feature classes of a coverage. The feature classes are read the first time a coverage's tiles are
+     * loaded, and are shared by the coverage's tiles thereafter.
+     *
+     * @param coverage the coverage.
+     *
+     * @return the coverage's feature classes.
+     */
+    protected VPFFeatureClass[] getFeatureClasses(VPFCoverage coverage)
+    {
+        VPFFeatureClass[] array = this.featureClasses.get(coverage);
+        if (array == null)
+        {
+            array = VPFUtils.readFeatureClasses(coverage, new VPFFeatureTableFilter());
+            this.featureClasses.put(coverage, array);
+        }
+
+        return array;
+    }
+
     protected static class RequestTask implements Runnable, Comparable<RequestTask>
     {
         protected VPFCoverageRenderable coverageRenderable;
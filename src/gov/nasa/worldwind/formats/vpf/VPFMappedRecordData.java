@@ -0,0 +1,380 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+package gov.nasa.worldwind.formats.vpf;
+
+import gov.nasa.worldwind.util.Logging;
+
+import java.nio.*;
+import java.util.*;
+
+/**
+ * A VPF table whose records are decoded on demand from a memory-mapped table file. Record offsets are read from the
+ * table's memory-mapped variable-length index file when the table has one, and are otherwise computed from the fixed
+ * record length, so opening a table costs no more than reading its header regardless of the table's size.
+ * <p>
+ * Tables shared by all tiles of a coverage, such as feature and join tables, may be queried for the records having a
+ * specified value in an integer column; see {@link #getRecordIds(String, int)}. The first query on a column decodes that
+ * column alone for all records, and later queries are answered from the resulting index.
+ * <p>
+ * VPFMappedRecordData is safe for use by multiple threads.
+ *
+ * @version $Id$
+ * @see VPFTableReader#open(java.io.File)
+ */
+public class VPFMappedRecordData implements Iterable<VPFRecord>
+{
+    protected final String path;
+    protected final ByteBuffer buffer;
+    protected final ByteOrder byteOrder;
+    protected final VPFTableReader.Column[] columns;
+    protected final VPFDataType[] columnTypes;
+    protected final Map<String, Integer> columnIndices = new HashMap<String, Integer>();
+    /** The mapped variable-length index, or null if the table's records have a fixed length. */
+    protected final ByteBuffer recordIndex;
+    protected final int bodyOffset;
+    protected final int recordLength;
+    protected final int numRecords;
+    /** Record ids grouped by column value, keyed by column name. */
+    protected final Map<String, Map<Integer, int[]>> valueIndices = new HashMap<String, Map<Integer, int[]>>();
+
+    /**
+     * Creates a table on a memory-mapped table file.
+     *
+     * @param path         the table's path, used in messages.
+     * @param buffer       the mapped table, with the byte order specified by the table header.
+     * @param columns      the table's column definitions.
+     * @param recordIndex  the mapped variable-length index, or null if the table's records have a fixed length.
+     * @param bodyOffset   the offset of the first record.
+     * @param recordLength the length of each record if the table has no variable-length index, otherwise ignored.
+     *
+     * @throws IllegalArgumentException if the buffer or columns are null, or if the record index is null and the
+     *                                  record length is not positive.
+     */
+    public VPFMappedRecordData(String path, ByteBuffer buffer, VPFTableReader.Column[] columns,
+        ByteBuffer recordIndex, int bodyOffset, int recordLength)
+    {
+        if (buffer == null)
+        {
+            String message = Logging.getMessage("nullValue.BufferIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (columns == null)
+        {
+            String message = Logging.getMessage("nullValue.ArrayIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (recordIndex == null && recordLength <= 0)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "recordLength <= 0");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.path = path;
+        this.buffer = buffer;
+        this.byteOrder = buffer.order();
+        this.columns = columns;
+        this.columnTypes = new VPFDataType[columns.length];
+        this.bodyOffset = bodyOffset;
+        this.recordLength = recordLength;
+
+        for (int i = 0; i < columns.length; i++)
+        {
+            this.columnTypes[i] = VPFDataType.fromTypeName(columns[i].dataType);
+            this.columnIndices.put(columns[i].name, i);
+        }
+
+        if (recordIndex != null)
+        {
+            // The variable-length index is always least significant byte first. See MIL-STD-2407, section 5.3.1.2.
+            this.recordIndex = recordIndex.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            this.numRecords = this.recordIndex.getInt(0);
+        }
+        else
+        {
+            this.recordIndex = null;
+            this.numRecords = (buffer.limit() - bodyOffset) / recordLength;
+        }
+    }
+
+    public int getNumRecords()
+    {
+        return this.numRecords;
+    }
+
+    public Iterable<String> getRecordParameterNames()
+    {
+        return Collections.unmodifiableSet(this.columnIndices.keySet());
+    }
+
+    public boolean hasRecordParameter(String parameterName)
+    {
+        return this.columnIndices.containsKey(parameterName);
+    }
+
+    /**
+     * Decodes a record.
+     *
+     * @param id the record's row id, from 1 to the number of records.
+     *
+     * @return the record.
+     *
+     * @throws IllegalArgumentException if the id is out of range.
+     */
+    public VPFRecord getRecord(int id)
+    {
+        if (id < 1 || id > this.numRecords)
+        {
+            String message = Logging.getMessage("generic.indexOutOfRange", id);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        ByteBuffer bb = this.positionAtRecord(id);
+
+        VPFDataBuffer[] values = new VPFDataBuffer[this.columns.length];
+        for (int col = 0; col < this.columns.length; col++)
+        {
+            values[col] = this.readField(bb, col);
+        }
+
+        return new RecordImpl(id, values);
+    }
+
+    /**
+     * Returns the ids of the records whose value in the specified column equals an integer value. Triplet id values
+     * are compared by their id component. The column is decoded for all records the first time it is queried.
+     *
+     * @param parameterName the column name.
+     * @param value         the value to match.
+     *
+     * @return the ids of the matching records in ascending order, or an empty array if no record matches or the table
+     *         has no such column.
+     *
+     * @throws IllegalArgumentException if the parameter name is null.
+     */
+    public int[] getRecordIds(String parameterName, int value)
+    {
+        if (parameterName == null)
+        {
+            String message = Logging.getMessage("nullValue.ParameterNameIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        Map<Integer, int[]> index;
+        synchronized (this.valueIndices)
+        {
+            index = this.valueIndices.get(parameterName);
+            if (index == null)
+            {
+                index = this.buildValueIndex(parameterName);
+                this.valueIndices.put(parameterName, index);
+            }
+        }
+
+        int[] ids = index.get(value);
+        return (ids != null) ? ids.clone() : new int[0];
+    }
+
+    public Iterator<VPFRecord> iterator()
+    {
+        return new Iterator<VPFRecord>()
+        {
+            private int id = 0;
+
+            public boolean hasNext()
+            {
+                return this.id < numRecords;
+            }
+
+            public VPFRecord next()
+            {
+                if (!this.hasNext())
+                    throw new NoSuchElementException();
+
+                return getRecord(++this.id);
+            }
+
+            public void remove()
+            {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.path;
+    }
+
+    //**************************************************************//
+    //********************  Record Decoding  ***********************//
+    //**************************************************************//
+
+    /**
+     * Returns a view of the mapped table positioned at the start of a record. Each caller receives its own view, so
+     * that records may be decoded concurrently.
+     *
+     * @param id the record's row id.
+     *
+     * @return a buffer positioned at the record.
+     */
+    protected ByteBuffer positionAtRecord(int id)
+    {
+        ByteBuffer bb = this.buffer.duplicate().order(this.byteOrder);
+        bb.position(this.getRecordOffset(id));
+        return bb;
+    }
+
+    protected int getRecordOffset(int id)
+    {
+        if (this.recordIndex != null)
+            return this.recordIndex.getInt(8 * id); // An 8 byte header precedes the (offset, length) entries.
+
+        return this.bodyOffset + (id - 1) * this.recordLength;
+    }
+
+    protected VPFDataBuffer readField(ByteBuffer bb, int col)
+    {
+        VPFTableReader.Column column = this.columns[col];
+        VPFDataBuffer dataBuffer = this.columnTypes[col].createDataBuffer(1, column.numElements);
+
+        if (column.isVariableLengthField())
+            dataBuffer.read(bb);
+        else
+            dataBuffer.read(bb, column.numElements);
+
+        return dataBuffer;
+    }
+
+    protected Map<Integer, int[]> buildValueIndex(String parameterName)
+    {
+        Integer col = this.columnIndices.get(parameterName);
+        if (col == null)
+            return Collections.emptyMap();
+
+        // Compute the column's offset within each record if all preceding columns have a fixed length. Otherwise the
+        // preceding fields of each record must be decoded to find the column.
+        int fieldOffset = 0;
+        for (int i = 0; i < col && fieldOffset >= 0; i++)
+        {
+            fieldOffset = this.columns[i].isVariableLengthField() ? -1 : fieldOffset + this.columns[i].getFieldLength();
+        }
+
+        int[] values = new int[this.numRecords + 1];
+        Map<Integer, Integer> counts = new HashMap<Integer, Integer>();
+
+        for (int id = 1; id <= this.numRecords; id++)
+        {
+            ByteBuffer bb = this.positionAtRecord(id);
+            if (fieldOffset >= 0)
+            {
+                bb.position(bb.position() + fieldOffset);
+            }
+            else
+            {
+                for (int i = 0; i < col; i++)
+                {
+                    this.readField(bb, i);
+                }
+            }
+
+            int value = asInt(this.readField(bb, col).get(1));
+            values[id] = value;
+
+            Integer count = counts.get(value);
+            counts.put(value, (count != null) ? count + 1 : 1);
+        }
+
+        Map<Integer, int[]> index = new HashMap<Integer, int[]>(2 * counts.size());
+        for (Map.Entry<Integer, Integer> entry : counts.entrySet())
+        {
+            index.put(entry.getKey(), new int[entry.getValue()]);
+        }
+
+        // Fill each id array from its end, counting down, so that the ids are in ascending order.
+        for (int id = this.numRecords; id >= 1; id--)
+        {
+            int count = counts.get(values[id]) - 1;
+            counts.put(values[id], count);
+            index.get(values[id])[count] = id;
+        }
+
+        return index;
+    }
+
+    protected static int asInt(Object o)
+    {
+        if (o instanceof Number)
+            return ((Number) o).intValue();
+        else if (o instanceof VPFTripletId)
+            return ((VPFTripletId) o).getId();
+
+        return -1;
+    }
+
+    //**************************************************************//
+    //********************  Record Implementation  *****************//
+    //**************************************************************//
+
+    protected class RecordImpl implements VPFRecord
+    {
+        protected final int id;
+        protected final VPFDataBuffer[] values;
+
+        public RecordImpl(int id, VPFDataBuffer[] values)
+        {
+            this.id = id;
+            this.values = values;
+        }
+
+        public int getId()
+        {
+            return this.id;
+        }
+
+        public boolean hasValue(String parameterName)
+        {
+            Integer col = columnIndices.get(parameterName);
+            return (col != null) && this.values[col].hasValue(1);
+        }
+
+        public Object getValue(String parameterName)
+        {
+            Integer col = columnIndices.get(parameterName);
+            return (col != null) ? this.values[col].get(1) : null;
+        }
+    }
+}
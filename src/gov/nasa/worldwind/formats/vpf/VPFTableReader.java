@@ -68,9 +68,43 @@ public class VPFTableReader
         }
     }
 
+    /**
+     * Opens a VPF table for reading records on demand. The table and its variable-length index file, if any, are
+     * memory-mapped; only the table header is read when the table is opened.
+     *
+     * @param file the table file.
+     *
+     * @return the opened table.
+     *
+     * @throws IllegalArgumentException if the file is null.
+     * @throws WWRuntimeException       if the table cannot be opened.
+     */
+    public VPFMappedRecordData open(File file)
+    {
+        if (file == null)
+        {
+            String message = Logging.getMessage("nullValue.FileIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        try
+        {
+            ByteBuffer buffer = this.readFileToBuffer(file);
+            return this.doOpen(file, buffer);
+        }
+        catch (Exception e)
+        {
+            String message = Logging.getMessage("VPF.ExceptionAttemptingToReadTable", file.getPath());
+            Logging.logger().log(java.util.logging.Level.SEVERE, message, e);
+            throw new WWRuntimeException(message, e);
+        }
+    }
+
     protected ByteBuffer readFileToBuffer(File file) throws IOException
     {
-        ByteBuffer buffer = WWIO.readFileToBuffer(file, true); // Read VPF table to a direct ByteBuffer.
+        // Map the VPF table rather than reading it, so that it is neither copied nor held in the Java heap.
+        ByteBuffer buffer = WWIO.mapFile(file);
         buffer.order(ByteOrder.LITTLE_ENDIAN); // Default to least significant byte first order.
         return buffer;
     }
@@ -104,6 +138,32 @@ public class VPFTableReader
         return this.readRecordData(buffer, header.columns, recordIndex);
     }
 
+    protected VPFMappedRecordData doOpen(File file, ByteBuffer buffer) throws IOException
+    {
+        Header header = this.readHeader(buffer);
+        buffer.order(header.byteOrder);
+        int bodyOffset = 4 + header.length;
+
+        // Use the variable-length record index if the table has one. Otherwise the table's records must have a fixed
+        // length, and the record offsets are computed from the record length.
+        File recordIndexFile = new File(file.getParent(), getRecordIndexFilename(file.getName()));
+        if (recordIndexFile.exists())
+        {
+            ByteBuffer indexBuffer = this.readFileToBuffer(recordIndexFile);
+            return new VPFMappedRecordData(file.getPath(), buffer, header.columns, indexBuffer, bodyOffset, -1);
+        }
+
+        int recordLength = computeRecordLength(header);
+        if (recordLength <= 0)
+        {
+            String message = Logging.getMessage("VPF.VariableLengthIndexFileMissing");
+            Logging.logger().severe(message);
+            throw new WWRuntimeException(message);
+        }
+
+        return new VPFMappedRecordData(file.getPath(), buffer, header.columns, null, bodyOffset, recordLength);
+    }
+
     //**************************************************************//
     //********************  Header  ********************************//
     //**************************************************************//
@@ -460,26 +520,16 @@ public class VPFTableReader
 
     protected RecordIndex computeRecordIndex(ByteBuffer buffer, Header header)
     {
-        // Compute a fixed length record size by summing the sizes of individual columns. Assume that the bytes of row
-        // values are tightly packed.
-        int recordLength = 0;
-        for (Column col : header.columns)
-        {
-            // If any column contains a variable length field, then we cannot compute a record size for this table.
-            if (col.isVariableLengthField())
-            {
-                return null;
-            }
-
-            recordLength += col.getFieldLength();
-        }
+        int recordLength = computeRecordLength(header);
+        if (recordLength < 0)
+            return null;
 
         // Body offset is size of header length field (4 bytes) plus the length of the header content.
         // Body length is remaining bytes in file minus the body offset.
         // Number of records is the number of times a record with a fixed length can appear in the body.
         int bodyOffset = 4 + header.length;
         int bodyLength = buffer.limit() - bodyOffset;
-        int numRecords = bodyLength / recordLength;
+        int numRecords = (recordLength > 0) ? bodyLength / recordLength : 0;
 
         RecordIndex index = new RecordIndex();
         index.headerLength = header.length;
@@ -495,4 +545,30 @@ public class VPFTableReader
 
         return index;
     }
+
+    /**
+     * Computes the length of a table's records by summing the sizes of its columns, assuming that the bytes of row
+     * values are tightly packed.
+     *
+     * @param header the table header.
+     *
+     * @return the record length, or -1 if any column contains a variable length field.
+     */
+    protected static int computeRecordLength(Header header)
+    {
+        if (header.columns == null)
+            return -1;
+
+        int recordLength = 0;
+        for (Column col : header.columns)
+        {
+            // If any column contains a variable length field, then we cannot compute a record size for this table.
+            if (col.isVariableLengthField())
+                return -1;
+
+            recordLength += col.getFieldLength();
+        }
+
+        return recordLength;
+    }
 }
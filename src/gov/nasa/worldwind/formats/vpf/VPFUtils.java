@@ -66,6 +66,41 @@ public class VPFUtils
         }
     }
 
+    /**
+     * Opens a VPF table for reading records on demand. See {@link VPFTableReader#open(java.io.File)}.
+     *
+     * @param file the table file.
+     *
+     * @return the opened table, or null if the file does not exist or cannot be opened.
+     *
+     * @throws IllegalArgumentException if the file is null.
+     */
+    public static VPFMappedRecordData openTable(File file)
+    {
+        if (file == null)
+        {
+            String message = Logging.getMessage("nullValue.FileIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (!file.exists())
+        {
+            return null;
+        }
+
+        try
+        {
+            VPFTableReader tableReader = new VPFTableReader();
+            return tableReader.open(file);
+        }
+        catch (WWRuntimeException e)
+        {
+            // Exception already logged by VPFTableReader.
+            return null;
+        }
+    }
+
     public static VPFDatabase readDatabase(File file)
     {
         if (file == null)
@@ -55,6 +55,8 @@ import java.util.Map;
 public class BasicTiledImageLayer extends TiledImageLayer implements BulkRetrievable
 {
     protected final Object fileLock = new Object();
+    protected TextureDecodePipeline texturePipeline;
+    protected final TextureDecodePipeline.Listener texturePipelineListener = new TexturePipelineListener();
 
     // Layer resource properties.
     protected static final int RESOURCE_ID_OGC_CAPABILITIES = 1;
@@ -235,8 +237,46 @@ public class BasicTiledImageLayer extends TiledImageLayer implements BulkRetriev
         }
     }
 
+    /**
+     * Returns the pipeline that decodes and uploads this layer's textures.
+     *
+     * @return the texture pipeline, or null if the layer's request tasks load textures themselves.
+     *
+     * @see #setTexturePipeline(TextureDecodePipeline)
+     */
+    public TextureDecodePipeline getTexturePipeline()
+    {
+        return this.texturePipeline;
+    }
+
+    /**
+     * Specifies a pipeline to decode and upload this layer's textures. When a pipeline is specified, the layer's
+     * request tasks only read texture files, leaving their decoding to the pipeline's decoding threads, and the layer
+     * creates at most the pipeline's per-frame budget of textures each frame. Several layers may share a pipeline.
+     * When no pipeline is specified, the request tasks decode the textures and each texture is created when its tile
+     * is first drawn.
+     *
+     * @param texturePipeline the texture pipeline. May be null.
+     */
+    public void setTexturePipeline(TextureDecodePipeline texturePipeline)
+    {
+        this.texturePipeline = texturePipeline;
+    }
+
+    @Override
+    protected void draw(DrawContext dc)
+    {
+        if (this.texturePipeline != null)
+            this.texturePipeline.uploadTextures(dc);
+
+        super.draw(dc);
+    }
+
     protected void requestTexture(DrawContext dc, TextureTile tile)
     {
+        if (this.texturePipeline != null && this.texturePipeline.isPending(tile))
+            return; // the tile's texture is being decoded or waiting to be uploaded
+
         Vec4 centroid = tile.getCentroidPoint(dc.getGlobe());
         Vec4 referencePoint = this.getReferencePoint(dc);
         if (referencePoint != null)
@@ -267,9 +307,17 @@ public class BasicTiledImageLayer extends TiledImageLayer implements BulkRetriev
             if (Thread.currentThread().isInterrupted())
                 return; // the task was cancelled because it's a duplicate or for some other reason
 
+            TextureDecodePipeline pipeline = this.layer.getTexturePipeline();
+            if (pipeline != null && pipeline.isPending(this.tile))
+                return;
+
             final java.net.URL textureURL = this.layer.getDataFileStore().findFile(tile.getPath(), false);
             if (textureURL != null && !this.layer.isTextureFileExpired(tile, textureURL, this.layer.getDataFileStore()))
             {
+                // The pipeline reports the result of the decode to the layer's TexturePipelineListener.
+                if (pipeline != null && this.layer.queueTextureDecode(pipeline, tile, textureURL))
+                    return;
+
                 if (this.layer.loadTexture(tile, textureURL))
                 {
                     layer.getLevels().unmarkResourceAbsent(this.tile);
@@ -362,6 +410,73 @@ public class BasicTiledImageLayer extends TiledImageLayer implements BulkRetriev
         return true;
     }
 
+    /**
+     * Reads a texture file and queues it to be decoded by a texture pipeline.
+     *
+     * @param pipeline   the pipeline to decode the texture.
+     * @param tile       the tile whose texture to load.
+     * @param textureURL the location of the texture file.
+     *
+     * @return true if the texture was queued, false if the file could not be read or the pipeline has been shut down.
+     */
+    protected boolean queueTextureDecode(TextureDecodePipeline pipeline, TextureTile tile, java.net.URL textureURL)
+    {
+        ByteBuffer encodedData;
+
+        try
+        {
+            synchronized (this.fileLock)
+            {
+                encodedData = pipeline.readEncodedTexture(textureURL);
+            }
+        }
+        catch (Exception e)
+        {
+            String msg = Logging.getMessage("layers.TextureLayer.ExceptionAttemptingToReadTextureFile", textureURL);
+            Logging.logger().log(java.util.logging.Level.SEVERE, msg, e);
+            return false;
+        }
+
+        return pipeline.submit(new TextureDecodePipeline.Request(tile, textureURL, encodedData,
+            this.getTextureFormat(), this.isUseMipMaps(), this.texturePipelineListener));
+    }
+
+    /** Completes the loading of textures decoded by the layer's texture pipeline. */
+    protected class TexturePipelineListener implements TextureDecodePipeline.Listener
+    {
+        public void textureDecoded(TextureDecodePipeline.Request request)
+        {
+            // Request a frame so that the texture is uploaded.
+            firePropertyChange(AVKey.LAYER, null, BasicTiledImageLayer.this);
+        }
+
+        public void textureDecodeFailed(TextureDecodePipeline.Request request)
+        {
+            // Assume that something is wrong with the file and delete it.
+            getDataFileStore().removeFile(request.getURL());
+            String message = Logging.getMessage("generic.DeletedCorruptDataFile", request.getURL());
+            Logging.logger().info(message);
+
+            retrieveTexture(request.getTile(), createDownloadPostProcessor(request.getTile()));
+        }
+
+        public void textureUploaded(DrawContext dc, TextureDecodePipeline.Request request)
+        {
+            TextureTile tile = request.getTile();
+            if (tile.getLevelNumber() != 0 || !isRetainLevelZeroTiles())
+                addTileToCache(tile);
+
+            getLevels().unmarkResourceAbsent(tile);
+            firePropertyChange(AVKey.LAYER, null, BasicTiledImageLayer.this);
+        }
+
+        public void textureUploadFailed(DrawContext dc, TextureDecodePipeline.Request request)
+        {
+            // Avoid requesting the tile again every frame.
+            getLevels().markResourceAbsent(request.getTile());
+        }
+    }
+
     /**
      * Reads and returns the texture data at the specified URL, optionally converting it to the specified format and
      * generating mip-maps. If <code>textureFormat</code> is a recognized mime type, this returns the texture data in
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.layers;
+
+import com.jogamp.opengl.util.texture.TextureData;
+import com.jogamp.opengl.util.texture.awt.AWTTextureIO;
+import gov.nasa.worldwind.*;
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.data.*;
+import gov.nasa.worldwind.retrieve.ByteRangeChannel;
+import gov.nasa.worldwind.util.*;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.URL;
+
+/**
+ * A tiled image layer whose imagery is read directly from a cloud-optimized GeoTIFF, local or remote, without first
+ * being imported into a tile pyramid. The layer's levels coincide with the GeoTIFF's overviews, and each tile's image
+ * is read from the overview matching the tile's level. Only the GeoTIFF tiles covering a requested image tile are read;
+ * those of a remote GeoTIFF are retrieved with HTTP range requests and cached in the data file store by a {@link
+ * ByteRangeChannel}. No image tile files are written.
+ * <p>
+ * The GeoTIFF must be tiled, in geographic coordinates and contain imagery. Parts of tiles the GeoTIFF does not cover
+ * are transparent.
+ *
+ * @version $Id$
+ * @see COGRasterSource
+ */
+public class COGTiledImageLayer extends BasicTiledImageLayer
+{
+    /** The default number of pixels across and down a tile. */
+    public static final int DEFAULT_TILE_SIZE = 512;
+
+    protected final COGRasterSource source;
+
+    /**
+     * Creates a layer for a cloud-optimized GeoTIFF, caching the bytes of a remote GeoTIFF in the data file store.
+     *
+     * @param url the GeoTIFF's URL.
+     *
+     * @throws IOException              if the GeoTIFF cannot be read, or is not a tiled geographic image GeoTIFF.
+     * @throws IllegalArgumentException if the URL is null.
+     */
+    public COGTiledImageLayer(URL url) throws IOException
+    {
+        this(url, null);
+    }
+
+    /**
+     * Creates a layer for a cloud-optimized GeoTIFF, caching the bytes of a remote GeoTIFF in the data file store.
+     *
+     * @param url    the GeoTIFF's URL.
+     * @param params the layer's configuration parameters. May be null. Level set parameters not specified are computed
+     *               from the GeoTIFF, as described by {@link COGRasterSource#getLevelSetParams(int, int,
+     *               gov.nasa.worldwind.avlist.AVList)}.
+     *
+     * @throws IOException              if the GeoTIFF cannot be read, or is not a tiled geographic image GeoTIFF.
+     * @throws IllegalArgumentException if the URL is null.
+     */
+    public COGTiledImageLayer(URL url, AVList params) throws IOException
+    {
+        this(new COGRasterSource(url, WorldWind.getDataFileStore(), null), params);
+    }
+
+    /**
+     * Creates a layer reading a cloud-optimized GeoTIFF from a source. The source is disposed when the layer is
+     * disposed.
+     *
+     * @param source the GeoTIFF's source.
+     * @param params the layer's configuration parameters. May be null. Level set parameters not specified are computed
+     *               from the GeoTIFF, as described by {@link COGRasterSource#getLevelSetParams(int, int,
+     *               gov.nasa.worldwind.avlist.AVList)}.
+     *
+     * @throws IOException              if the GeoTIFF does not contain imagery.
+     * @throws IllegalArgumentException if the source is null.
+     */
+    public COGTiledImageLayer(COGRasterSource source, AVList params) throws IOException
+    {
+        super(createParams(source, params));
+
+        this.source = source;
+    }
+
+    protected static AVList createParams(COGRasterSource source, AVList params) throws IOException
+    {
+        if (source == null)
+        {
+            String message = Logging.getMessage("nullValue.SourceIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (source.isElevation())
+            throw new IOException(Logging.getMessage("COGRasterSource.NotImage", source.getName()));
+
+        params = params != null ? params.copy() : new AVListImpl();
+        if (params.getValue(AVKey.DISPLAY_NAME) == null)
+            params.setValue(AVKey.DISPLAY_NAME, WWIO.getFilename(source.getName()));
+        if (params.getValue(AVKey.USE_TRANSPARENT_TEXTURES) == null)
+            params.setValue(AVKey.USE_TRANSPARENT_TEXTURES, true);
+
+        source.getLevelSetParams(AVListImpl.getIntegerValue(params, AVKey.TILE_WIDTH, DEFAULT_TILE_SIZE),
+            AVListImpl.getIntegerValue(params, AVKey.TILE_HEIGHT, DEFAULT_TILE_SIZE), params);
+
+        return params;
+    }
+
+    /**
+     * Returns the source from which this layer's imagery is read.
+     *
+     * @return this layer's GeoTIFF source.
+     */
+    public COGRasterSource getSource()
+    {
+        return this.source;
+    }
+
+    @Override
+    public void dispose()
+    {
+        super.dispose();
+        this.source.dispose();
+    }
+
+    /**
+     * Reads a tile's image from the GeoTIFF, instead of retrieving a tile file. This runs on the task service thread
+     * requesting the tile, and waits for any byte ranges of a remote GeoTIFF it needs to be retrieved. The tile is
+     * marked absent if the GeoTIFF cannot be read.
+     *
+     * @param tile          the tile whose image to read.
+     * @param postProcessor unused.
+     */
+    @Override
+    protected void retrieveTexture(TextureTile tile, DownloadPostProcessor postProcessor)
+    {
+        try
+        {
+            BufferedImage image = this.readImage(tile);
+            if (image == null)
+            {
+                this.getLevels().markResourceAbsent(tile);
+                return;
+            }
+
+            TextureData textureData = AWTTextureIO.newTextureData(Configuration.getMaxCompatibleGLProfile(), image,
+                this.isUseMipMaps());
+            tile.setTextureData(textureData);
+            if (tile.getLevelNumber() != 0 || !this.isRetainLevelZeroTiles())
+                this.addTileToCache(tile);
+
+            this.getLevels().unmarkResourceAbsent(tile);
+            this.firePropertyChange(AVKey.LAYER, null, this);
+        }
+        catch (IOException e)
+        {
+            this.getLevels().markResourceAbsent(tile);
+            String message = Logging.getMessage("layers.TextureLayer.ExceptionAttemptingToReadTextureFile",
+                tile.getPath());
+            Logging.logger().log(java.util.logging.Level.FINE, message, e);
+        }
+    }
+
+    /**
+     * Reads a tile's image from the GeoTIFF.
+     *
+     * @param tile the tile whose image to read.
+     *
+     * @return the tile's image, or null if the GeoTIFF does not intersect the tile.
+     *
+     * @throws IOException if the GeoTIFF cannot be read.
+     */
+    protected BufferedImage readImage(TextureTile tile) throws IOException
+    {
+        BufferedImageRaster canvas = new BufferedImageRaster(tile.getWidth(), tile.getHeight(),
+            java.awt.Transparency.TRANSLUCENT, tile.getSector());
+
+        return this.source.drawOnTo(canvas) ? canvas.getBufferedImage() : null;
+    }
+}
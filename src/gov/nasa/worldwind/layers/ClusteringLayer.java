@@ -0,0 +1,844 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.layers;
+
+import gov.nasa.worldwind.*;
+import gov.nasa.worldwind.avlist.AVKey;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.Globe;
+import gov.nasa.worldwind.render.*;
+import gov.nasa.worldwind.util.Logging;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.*;
+import java.util.List;
+
+/**
+ * A layer that aggregates many located items, such as {@link PointPlacemark}s, into clusters when they are too close
+ * together on the screen to be told apart. Each cluster is displayed as a marker labeled with the number of items it
+ * contains. As the view approaches, clusters expand into smaller clusters and finally into the individual items.
+ * <p>
+ * Items are held in a geographic quadtree in which each node records the number of items beneath it and their
+ * centroid, so every node is a potential cluster. The quadtree is maintained incrementally: adding or removing an item
+ * updates the nodes on its path to the root, subdividing nodes that hold more than {@link #getMaxNodeItems()} items and
+ * collapsing nodes whose descendants have become sparse. Each frame the layer descends the quadtree from the root,
+ * skipping nodes outside the view frustum and stopping at nodes that appear smaller than {@link
+ * #getClusterPixelSize()} on the screen. The per-frame cost is therefore proportional to the number of clusters
+ * displayed rather than to the number of items in the layer.
+ * <p>
+ * Items that are {@link Renderable} are drawn themselves when they are displayed individually; other items are
+ * represented only by the clusters that contain them. A leaf node that appears larger than the cluster pixel size
+ * displays its items individually. When a cluster marker is picked, the picked object is the {@link Cluster}, whose
+ * sector an application can use to zoom to the cluster's items.
+ * <p>
+ * The layer indexes each item at the position it has when it is added. When an item moves, the application calls
+ * {@link #updateItem(Locatable)} to re-index it.
+ *
+ * @version $Id$
+ * @see IndexedRenderableLayer
+ */
+public class ClusteringLayer extends AbstractLayer
+{
+    /** The default maximum number of items a quadtree node holds before it is subdivided. */
+    protected static final int DEFAULT_MAX_NODE_ITEMS = 8;
+    /** The default maximum depth of the quadtree. */
+    protected static final int DEFAULT_MAX_LEVELS = 24;
+    /** The default screen size, in pixels, below which a quadtree node is displayed as a single cluster. */
+    protected static final int DEFAULT_CLUSTER_PIXEL_SIZE = 64;
+
+    /**
+     * A quadtree node, displayed as a cluster of the items beneath it when it appears small on the screen. The count,
+     * position and sector of a cluster change as items are added and removed.
+     */
+    public static class Cluster
+    {
+        protected final Cluster parent;
+        protected final Sector sector;
+        protected final int level;
+        protected Cluster[] children;
+        /** The items held by this node. Only leaf nodes hold items. */
+        protected List<Entry> entries = new ArrayList<Entry>();
+        /** The number of items held by this node and its descendants. */
+        protected int count;
+        protected double sumLatitude;
+        protected double sumLongitude;
+        /** The maximum altitude of the items held by this node and its descendants. */
+        protected double maxAltitude;
+        protected Extent extent;
+        protected int extentGeneration = -1;
+        /** The marker displaying this cluster, and the count it was last updated for. */
+        protected PointPlacemark marker;
+        protected int markerCount;
+
+        public Cluster(Cluster parent, Sector sector, int level)
+        {
+            this.parent = parent;
+            this.sector = sector;
+            this.level = level;
+        }
+
+        /**
+         * Returns the number of items in this cluster.
+         *
+         * @return the number of items.
+         */
+        public int getCount()
+        {
+            return this.count;
+        }
+
+        /**
+         * Returns the centroid of the locations of the items in this cluster, on the surface.
+         *
+         * @return the cluster's position, or null if the cluster is empty.
+         */
+        public Position getPosition()
+        {
+            return this.count > 0 ? Position.fromDegrees(this.sumLatitude / this.count,
+                this.sumLongitude / this.count, 0) : null;
+        }
+
+        /**
+         * Returns the quadtree sector containing this cluster's items.
+         *
+         * @return the cluster's sector.
+         */
+        public Sector getSector()
+        {
+            return this.sector;
+        }
+
+        /**
+         * Returns the cluster's depth in the quadtree. The root, which contains every item, is at level 0.
+         *
+         * @return the cluster's level.
+         */
+        public int getLevel()
+        {
+            return this.level;
+        }
+    }
+
+    /** An indexed item and the location it is indexed at. */
+    protected static class Entry
+    {
+        protected final Locatable item;
+        protected double latitude;
+        protected double longitude;
+        protected double altitude;
+        protected Cluster node;
+
+        public Entry(Locatable item)
+        {
+            this.item = item;
+        }
+    }
+
+    protected int maxNodeItems = DEFAULT_MAX_NODE_ITEMS;
+    protected int maxLevels = DEFAULT_MAX_LEVELS;
+    protected int clusterPixelSize = DEFAULT_CLUSTER_PIXEL_SIZE;
+    protected PointPlacemarkAttributes clusterAttributes;
+
+    /** Maps items to their entries. Guards all access to the index. */
+    protected final Map<Locatable, Entry> entries = new IdentityHashMap<Locatable, Entry>();
+    protected Cluster root = new Cluster(null, Sector.FULL_SPHERE, 0);
+
+    /** Incremented whenever the globe or vertical exaggeration changes, invalidating the node extents. */
+    protected int extentGeneration;
+    protected Object lastGlobeStateKey;
+    protected double lastVerticalExaggeration;
+
+    /** The clusters and items displayed in the current frame, shared by the pick and render passes. */
+    protected List<Cluster> frameClusters = new ArrayList<Cluster>();
+    protected List<Locatable> frameItems = new ArrayList<Locatable>();
+    protected long frameTimeStamp = -1;
+    protected Object frameGlobeStateKey;
+
+    /** Creates an empty clustering layer. */
+    public ClusteringLayer()
+    {
+    }
+
+    /**
+     * Indicates the maximum number of items a quadtree node holds before it is subdivided.
+     *
+     * @return the maximum number of items per node.
+     */
+    public int getMaxNodeItems()
+    {
+        return this.maxNodeItems;
+    }
+
+    /**
+     * Specifies the maximum number of items a quadtree node holds before it is subdivided. Nodes that already exist are
+     * not affected.
+     *
+     * @param maxNodeItems the maximum number of items per node.
+     *
+     * @throws IllegalArgumentException if the number is less than 1.
+     */
+    public void setMaxNodeItems(int maxNodeItems)
+    {
+        if (maxNodeItems < 1)
+        {
+            String msg = Logging.getMessage("generic.ArgumentOutOfRange", maxNodeItems);
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        this.maxNodeItems = maxNodeItems;
+    }
+
+    /**
+     * Indicates the screen size below which a quadtree node is displayed as a single cluster.
+     *
+     * @return the cluster size, in pixels.
+     */
+    public int getClusterPixelSize()
+    {
+        return this.clusterPixelSize;
+    }
+
+    /**
+     * Specifies the screen size below which a quadtree node is displayed as a single cluster. Larger sizes display
+     * fewer, larger clusters.
+     *
+     * @param clusterPixelSize the cluster size, in pixels.
+     *
+     * @throws IllegalArgumentException if the size is less than 1.
+     */
+    public void setClusterPixelSize(int clusterPixelSize)
+    {
+        if (clusterPixelSize < 1)
+        {
+            String msg = Logging.getMessage("generic.ArgumentOutOfRange", clusterPixelSize);
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        this.clusterPixelSize = clusterPixelSize;
+    }
+
+    /**
+     * Indicates the attributes of the cluster markers.
+     *
+     * @return the cluster marker attributes, or null if the default attributes are used.
+     */
+    public PointPlacemarkAttributes getClusterAttributes()
+    {
+        return this.clusterAttributes;
+    }
+
+    /**
+     * Specifies the attributes of the cluster markers. The label of each marker is the number of items in its
+     * cluster.
+     *
+     * @param attributes the cluster marker attributes. May be null, in which case the default attributes are used.
+     */
+    public void setClusterAttributes(PointPlacemarkAttributes attributes)
+    {
+        this.clusterAttributes = attributes;
+
+        synchronized (this.entries)
+        {
+            this.clearMarkers(this.root);
+        }
+    }
+
+    /**
+     * Returns the number of items in the layer.
+     *
+     * @return the number of items.
+     */
+    public int getItemCount()
+    {
+        synchronized (this.entries)
+        {
+            return this.entries.size();
+        }
+    }
+
+    /**
+     * Adds an item to the layer, indexing it at its current position. Adding an item that is already in the layer
+     * re-indexes it.
+     *
+     * @param item the item to add.
+     *
+     * @throws IllegalArgumentException if the item is null or has no position.
+     */
+    public void addItem(Locatable item)
+    {
+        if (item == null || item.getPosition() == null)
+        {
+            String msg = Logging.getMessage(item == null ? "nullValue.ObjectIsNull" : "nullValue.PositionIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        synchronized (this.entries)
+        {
+            Entry entry = this.entries.get(item);
+            if (entry != null)
+            {
+                this.removeFromIndex(entry);
+            }
+            else
+            {
+                entry = new Entry(item);
+                this.entries.put(item, entry);
+            }
+
+            this.insert(entry);
+        }
+    }
+
+    /**
+     * Adds items to the layer. Items with no position are skipped.
+     *
+     * @param items the items to add.
+     *
+     * @throws IllegalArgumentException if the iterable is null.
+     */
+    public void addItems(Iterable<? extends Locatable> items)
+    {
+        if (items == null)
+        {
+            String msg = Logging.getMessage("nullValue.IterableIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        synchronized (this.entries)
+        {
+            for (Locatable item : items)
+            {
+                if (item != null && item.getPosition() != null)
+                    this.addItem(item);
+            }
+        }
+    }
+
+    /**
+     * Removes an item from the layer. Does nothing if the item is not in the layer.
+     *
+     * @param item the item to remove.
+     */
+    public void removeItem(Locatable item)
+    {
+        if (item == null)
+            return;
+
+        synchronized (this.entries)
+        {
+            Entry entry = this.entries.remove(item);
+            if (entry != null)
+                this.removeFromIndex(entry);
+        }
+    }
+
+    /** Removes all items from the layer. */
+    public void removeAllItems()
+    {
+        synchronized (this.entries)
+        {
+            this.entries.clear();
+            this.root = new Cluster(null, Sector.FULL_SPHERE, 0);
+        }
+    }
+
+    /**
+     * Re-indexes an item at its current position. Call this after moving an item.
+     *
+     * @param item the item that moved.
+     */
+    public void updateItem(Locatable item)
+    {
+        if (item == null || item.getPosition() == null)
+            return;
+
+        synchronized (this.entries)
+        {
+            if (this.entries.containsKey(item))
+                this.addItem(item);
+        }
+    }
+
+    /**
+     * Selects the clusters and individual items to display for a view. A quadtree node outside the frustum is skipped,
+     * and one whose sector appears smaller than the cluster pixel size is selected as a cluster. Items of leaf nodes
+     * that appear larger than the cluster pixel size are selected individually, as are single items. The draw context
+     * must specify a globe; the layer does not otherwise draw or modify it.
+     *
+     * @param dc             the current draw context.
+     * @param frustum        the frustum in model coordinates.
+     * @param eyePoint       the eye point in model coordinates.
+     * @param pixelSizeScale the size of a pixel at unit distance from the eye, as returned by
+     *                       <code>View.computePixelSizeAtDistance(1)</code>.
+     * @param clusters       the collection to receive the selected clusters.
+     * @param items          the collection to receive the selected individual items.
+     *
+     * @throws IllegalArgumentException if any argument is null, or if the draw context has no globe.
+     */
+    public void selectClusters(DrawContext dc, Frustum frustum, Vec4 eyePoint, double pixelSizeScale,
+        Collection<? super Cluster> clusters, Collection<? super Locatable> items)
+    {
+        if (dc == null)
+        {
+            String msg = Logging.getMessage("nullValue.DrawContextIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (dc.getGlobe() == null)
+        {
+            String msg = Logging.getMessage("layers.AbstractLayer.NoGlobeSpecifiedInDrawingContext");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (frustum == null)
+        {
+            String msg = Logging.getMessage("nullValue.FrustumIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (eyePoint == null)
+        {
+            String msg = Logging.getMessage("nullValue.EyeIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (clusters == null || items == null)
+        {
+            String msg = Logging.getMessage("nullValue.CollectionIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        synchronized (this.entries)
+        {
+            Globe globe = dc.getGlobe();
+            double ve = dc.getVerticalExaggeration();
+            Object globeStateKey = globe.getGlobeStateKey();
+            if (!globeStateKey.equals(this.lastGlobeStateKey) || ve != this.lastVerticalExaggeration)
+            {
+                this.lastGlobeStateKey = globeStateKey;
+                this.lastVerticalExaggeration = ve;
+                this.extentGeneration++;
+            }
+
+            if (this.root.count > 0)
+                this.selectClusters(globe, ve, frustum, eyePoint, pixelSizeScale, this.root, clusters, items);
+        }
+    }
+
+    protected void selectClusters(Globe globe, double ve, Frustum frustum, Vec4 eyePoint, double pixelSizeScale,
+        Cluster node, Collection<? super Cluster> clusters, Collection<? super Locatable> items)
+    {
+        if (!frustum.intersects(this.getNodeExtent(globe, ve, node)))
+            return;
+
+        if (node.count == 1 && node.children == null)
+        {
+            items.add(node.entries.get(0).item);
+        }
+        else if (this.computePixelSize(globe, eyePoint, pixelSizeScale, node) <= this.clusterPixelSize)
+        {
+            clusters.add(node);
+        }
+        else if (node.children == null)
+        {
+            for (Entry entry : node.entries)
+            {
+                items.add(entry.item);
+            }
+        }
+        else
+        {
+            for (Cluster child : node.children)
+            {
+                if (child != null && child.count > 0)
+                    this.selectClusters(globe, ve, frustum, eyePoint, pixelSizeScale, child, clusters, items);
+            }
+        }
+    }
+
+    /**
+     * Computes the approximate screen size of a quadtree node's sector: the length of the sector's longer side on the
+     * globe divided by the size of a pixel at the node's centroid.
+     *
+     * @param globe          the globe.
+     * @param eyePoint       the eye point in model coordinates.
+     * @param pixelSizeScale the size of a pixel at unit distance from the eye.
+     * @param node           the node.
+     *
+     * @return the node's screen size, in pixels.
+     */
+    protected double computePixelSize(Globe globe, Vec4 eyePoint, double pixelSizeScale, Cluster node)
+    {
+        Sector sector = node.sector;
+        double minAbsLat = sector.getMinLatitude().degrees * sector.getMaxLatitude().degrees <= 0 ? 0
+            : Math.min(Math.abs(sector.getMinLatitude().degrees), Math.abs(sector.getMaxLatitude().degrees));
+        double dLat = sector.getDeltaLatRadians();
+        double dLon = sector.getDeltaLonRadians() * Math.cos(Math.toRadians(minAbsLat));
+        double size = Math.max(dLat, dLon) * globe.getRadius();
+
+        Vec4 point = globe.computePointFromPosition(Angle.fromDegrees(node.sumLatitude / node.count),
+            Angle.fromDegrees(node.sumLongitude / node.count), 0);
+        double distance = Math.max(eyePoint.distanceTo3(point) - size / 2, 1);
+
+        return size / (distance * pixelSizeScale);
+    }
+
+    /**
+     * Selects the clusters and items to display in the current frame. The selection is made once per frame and globe,
+     * and shared by the pick and render passes.
+     *
+     * @param dc the current draw context.
+     */
+    protected void selectFrameClusters(DrawContext dc)
+    {
+        Object globeStateKey = dc.getGlobe().getGlobeStateKey();
+        if (this.frameTimeStamp == dc.getFrameTimeStamp() && globeStateKey.equals(this.frameGlobeStateKey))
+            return;
+
+        // The pick and render passes may still hold the previous lists, so select into new ones.
+        List<Cluster> clusters = new ArrayList<Cluster>(this.frameClusters.size());
+        List<Locatable> items = new ArrayList<Locatable>(this.frameItems.size());
+        View view = dc.getView();
+        this.selectClusters(dc, view.getFrustumInModelCoordinates(), view.getEyePoint(),
+            view.computePixelSizeAtDistance(1), clusters, items);
+
+        this.frameClusters = clusters;
+        this.frameItems = items;
+        this.frameTimeStamp = dc.getFrameTimeStamp();
+        this.frameGlobeStateKey = globeStateKey;
+    }
+
+    @Override
+    protected void doPick(DrawContext dc, Point pickPoint)
+    {
+        this.doRender(dc);
+    }
+
+    @Override
+    protected void doRender(DrawContext dc)
+    {
+        this.selectFrameClusters(dc);
+
+        List<Cluster> clusters = this.frameClusters;
+        List<Locatable> items = this.frameItems;
+
+        for (Cluster cluster : clusters)
+        {
+            PointPlacemark marker = this.getClusterMarker(cluster);
+            if (marker != null)
+                marker.render(dc);
+        }
+
+        for (Locatable item : items)
+        {
+            if (item instanceof Renderable)
+                ((Renderable) item).render(dc);
+        }
+    }
+
+    /**
+     * Returns the marker displaying a cluster, creating or updating it if necessary.
+     *
+     * @param cluster the cluster.
+     *
+     * @return the cluster's marker.
+     */
+    protected PointPlacemark getClusterMarker(Cluster cluster)
+    {
+        synchronized (this.entries)
+        {
+            if (cluster.count == 0)
+                return null;
+
+            if (cluster.marker == null)
+            {
+                cluster.marker = this.createClusterMarker(cluster);
+                cluster.markerCount = 0;
+            }
+
+            if (cluster.markerCount != cluster.count)
+            {
+                this.updateClusterMarker(cluster, cluster.marker);
+                cluster.markerCount = cluster.count;
+            }
+
+            return cluster.marker;
+        }
+    }
+
+    /**
+     * Creates the marker displaying a cluster. The marker is clamped to the ground and picks as the cluster.
+     *
+     * @param cluster the cluster.
+     *
+     * @return a new marker.
+     */
+    protected PointPlacemark createClusterMarker(Cluster cluster)
+    {
+        PointPlacemark marker = new PointPlacemark(cluster.getPosition());
+        marker.setAltitudeMode(WorldWind.CLAMP_TO_GROUND);
+        marker.setDelegateOwner(cluster);
+        marker.setAttributes(this.clusterAttributes != null ? this.clusterAttributes
+            : this.createDefaultClusterAttributes());
+
+        return marker;
+    }
+
+    /**
+     * Updates a cluster's marker to the cluster's current position and count.
+     *
+     * @param cluster the cluster.
+     * @param marker  the cluster's marker.
+     */
+    protected void updateClusterMarker(Cluster cluster, PointPlacemark marker)
+    {
+        marker.setPosition(cluster.getPosition());
+        marker.setLabelText(Integer.toString(cluster.count));
+    }
+
+    /**
+     * Creates the default cluster marker attributes: a translucent circle with the item count centered on it.
+     *
+     * @return the default cluster marker attributes.
+     */
+    protected PointPlacemarkAttributes createDefaultClusterAttributes()
+    {
+        int size = 32;
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        try
+        {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setColor(new Color(255, 140, 0, 200));
+            g.fillOval(1, 1, size - 2, size - 2);
+            g.setColor(Color.WHITE);
+            g.setStroke(new BasicStroke(2));
+            g.drawOval(2, 2, size - 4, size - 4);
+        }
+        finally
+        {
+            g.dispose();
+        }
+
+        PointPlacemarkAttributes attrs = new PointPlacemarkAttributes();
+        attrs.setImage(image);
+        attrs.setImageAddress("ClusteringLayer.DefaultClusterImage");
+        attrs.setImageOffset(Offset.CENTER);
+        attrs.setScale(1d);
+        attrs.setLabelOffset(new Offset(0d, 0.3, AVKey.FRACTION, AVKey.FRACTION));
+        attrs.setLabelColor("ffffffff");
+        attrs.setLabelScale(1d);
+
+        return attrs;
+    }
+
+    protected void insert(Entry entry)
+    {
+        Position position = entry.item.getPosition();
+        entry.latitude = Angle.normalizedDegreesLatitude(position.getLatitude().degrees);
+        entry.longitude = Angle.normalizedDegreesLongitude(position.getLongitude().degrees);
+        entry.altitude = Math.max(position.getElevation(), 0);
+
+        Cluster node = this.root;
+        while (node.children != null)
+        {
+            node = this.getOrCreateChild(node, this.childIndex(node, entry.latitude, entry.longitude));
+        }
+
+        node.entries.add(entry);
+        entry.node = node;
+
+        for (Cluster n = node; n != null; n = n.parent)
+        {
+            n.count++;
+            n.sumLatitude += entry.latitude;
+            n.sumLongitude += entry.longitude;
+            if (entry.altitude > n.maxAltitude)
+            {
+                n.maxAltitude = entry.altitude;
+                n.extent = null;
+            }
+        }
+
+        if (node.entries.size() > this.maxNodeItems && node.level < this.maxLevels)
+            this.split(node);
+    }
+
+    protected void removeFromIndex(Entry entry)
+    {
+        Cluster node = entry.node;
+        if (node == null)
+            return;
+
+        node.entries.remove(entry);
+        entry.node = null;
+
+        // Find the highest ancestor sparse enough to hold its descendants' items itself.
+        Cluster collapse = null;
+        for (Cluster n = node; n != null; n = n.parent)
+        {
+            n.count--;
+            n.sumLatitude -= entry.latitude;
+            n.sumLongitude -= entry.longitude;
+            if (n.count == 0)
+                n.sumLatitude = n.sumLongitude = 0; // avoid accumulating round-off in empty nodes
+            if (n.children != null && n.count <= this.maxNodeItems / 2)
+                collapse = n;
+        }
+
+        if (collapse != null)
+            this.collapse(collapse);
+    }
+
+    /** Subdivides a leaf node, moving its items to the children they fall in. */
+    protected void split(Cluster node)
+    {
+        node.children = new Cluster[4];
+
+        List<Entry> entries = node.entries;
+        node.entries = new ArrayList<Entry>();
+        for (Entry entry : entries)
+        {
+            Cluster child = this.getOrCreateChild(node, this.childIndex(node, entry.latitude, entry.longitude));
+            child.entries.add(entry);
+            child.count++;
+            child.sumLatitude += entry.latitude;
+            child.sumLongitude += entry.longitude;
+            child.maxAltitude = Math.max(child.maxAltitude, entry.altitude);
+            entry.node = child;
+        }
+
+        for (Cluster child : node.children)
+        {
+            if (child != null && child.entries.size() > this.maxNodeItems && child.level < this.maxLevels)
+                this.split(child);
+        }
+    }
+
+    /** Moves the items of a node's descendants to the node, and removes its children. */
+    protected void collapse(Cluster node)
+    {
+        List<Entry> entries = new ArrayList<Entry>(node.count);
+        this.collectEntries(node, entries);
+
+        node.children = null;
+        node.entries = entries;
+        for (Entry entry : entries)
+        {
+            entry.node = node;
+        }
+    }
+
+    protected void collectEntries(Cluster node, List<Entry> result)
+    {
+        result.addAll(node.entries);
+
+        if (node.children != null)
+        {
+            for (Cluster child : node.children)
+            {
+                if (child != null)
+                    this.collectEntries(child, result);
+            }
+        }
+    }
+
+    protected void clearMarkers(Cluster node)
+    {
+        node.marker = null;
+
+        if (node.children != null)
+        {
+            for (Cluster child : node.children)
+            {
+                if (child != null)
+                    this.clearMarkers(child);
+            }
+        }
+    }
+
+    /**
+     * Determines the child quadrant of a node containing a location, in the order of {@link Sector#subdivide()}.
+     *
+     * @param node      the node.
+     * @param latitude  the location's latitude, in degrees.
+     * @param longitude the location's longitude, in degrees.
+     *
+     * @return the index of the child containing the location.
+     */
+    protected int childIndex(Cluster node, double latitude, double longitude)
+    {
+        Sector sector = node.sector;
+        double midLat = 0.5 * (sector.getMinLatitude().degrees + sector.getMaxLatitude().degrees);
+        double midLon = 0.5 * (sector.getMinLongitude().degrees + sector.getMaxLongitude().degrees);
+
+        return (latitude >= midLat ? 2 : 0) + (longitude >= midLon ? 1 : 0);
+    }
+
+    protected Cluster getOrCreateChild(Cluster node, int index)
+    {
+        Cluster child = node.children[index];
+        if (child == null)
+        {
+            child = new Cluster(node, node.sector.subdivide()[index], node.level + 1);
+            node.children[index] = child;
+        }
+
+        return child;
+    }
+
+    protected Extent getNodeExtent(Globe globe, double ve, Cluster node)
+    {
+        if (node.extent == null || node.extentGeneration != this.extentGeneration)
+        {
+            node.extent = Sector.computeBoundingBox(globe, ve, node.sector, globe.getMinElevation(),
+                globe.getMaxElevation() + node.maxAltitude);
+            node.extentGeneration = this.extentGeneration;
+        }
+
+        return node.extent;
+    }
+
+    @Override
+    public String toString()
+    {
+        return Logging.getMessage("layers.ClusteringLayer.Name");
+    }
+}
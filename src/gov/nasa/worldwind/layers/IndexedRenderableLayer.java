@@ -0,0 +1,791 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.layers;
+
+import gov.nasa.worldwind.*;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.render.*;
+import gov.nasa.worldwind.render.airspaces.Airspace;
+import gov.nasa.worldwind.util.Logging;
+
+import java.util.*;
+
+/**
+ * A {@link RenderableLayer} that keeps its renderables in a geographic quadtree and, each frame, pre-renders, picks and
+ * renders only those whose quadtree node intersects the view frustum. The per-frame cost of the layer is therefore
+ * proportional to the number of renderables near the view rather than to the number of renderables in the layer.
+ * <p>
+ * Each renderable is indexed by its geographic bounds and an upper bound on its altitude. The bounds are determined by
+ * {@link #computeSector(DrawContext, Renderable)} and {@link #computeMaxAltitude(Renderable)}, which recognize the
+ * WorldWind shapes, surface objects, placemarks and airspaces. Renderables whose bounds cannot be determined are drawn
+ * every frame, as they are by <code>RenderableLayer</code>. Each quadtree node is tested against the frustum using a
+ * box spanning the node's sector from the globe's minimum elevation to the globe's maximum elevation plus the maximum
+ * altitude of the renderables beneath the node.
+ * <p>
+ * Renderables are indexed lazily on the rendering thread, so adding renderables is inexpensive and may be done from
+ * any thread. When a renderable's geometry changes, the application calls {@link #updateRenderable(Renderable)} to
+ * re-index it. When movement tracking is enabled, the layer also detects {@link Movable} renderables whose reference
+ * position has changed since the previous frame and re-indexes them; see {@link #setTrackMovables(boolean)}. Re-indexing
+ * a renderable moves it from one quadtree node to another and does not rebuild the index.
+ * <p>
+ * The layer passes the visible renderables to the renderers in the order in which they were added to the layer, so
+ * surface shapes overlap as they do in a <code>RenderableLayer</code>. When a custom Iterable has been specified by
+ * {@link #setRenderables(Iterable)}, the layer is not indexed and draws every renderable of the Iterable.
+ *
+ * @version $Id$
+ * @see RenderableLayer
+ */
+public class IndexedRenderableLayer extends RenderableLayer
+{
+    /** The default maximum number of renderables a quadtree node holds before it is subdivided. */
+    protected static final int DEFAULT_MAX_NODE_ITEMS = 32;
+    /** The default maximum depth of the quadtree. */
+    protected static final int DEFAULT_MAX_LEVELS = 16;
+
+    protected static final Comparator<Entry> ORDINAL_COMPARATOR = new Comparator<Entry>()
+    {
+        public int compare(Entry a, Entry b)
+        {
+            return a.ordinal < b.ordinal ? -1 : a.ordinal == b.ordinal ? 0 : 1;
+        }
+    };
+
+    /** An indexed renderable. */
+    protected static class Entry
+    {
+        protected final Renderable renderable;
+        protected long ordinal;
+        /** The node holding the entry, or null if the entry is not in the quadtree. */
+        protected Node node;
+        protected Sector sector;
+        protected double maxAltitude;
+        /** The reference position of a Movable renderable when it was last indexed. */
+        protected Position referencePosition;
+        /** The entry's index in the list of tracked entries, or -1 if the renderable is not Movable. */
+        protected int trackedIndex = -1;
+        protected boolean pending;
+        protected boolean removed;
+
+        public Entry(Renderable renderable, long ordinal)
+        {
+            this.renderable = renderable;
+            this.ordinal = ordinal;
+        }
+    }
+
+    /** A quadtree node. */
+    protected static class Node
+    {
+        protected final Node parent;
+        protected final Sector sector;
+        protected final int level;
+        protected Node[] children;
+        protected final List<Entry> entries = new ArrayList<Entry>();
+        /** The number of entries held by this node and its descendants. */
+        protected int count;
+        /** The maximum altitude of the entries held by this node and its descendants. */
+        protected double maxAltitude;
+        protected Extent extent;
+        protected int extentGeneration = -1;
+
+        public Node(Node parent, Sector sector, int level)
+        {
+            this.parent = parent;
+            this.sector = sector;
+            this.level = level;
+        }
+    }
+
+    protected int maxNodeItems = DEFAULT_MAX_NODE_ITEMS;
+    protected int maxLevels = DEFAULT_MAX_LEVELS;
+    protected boolean trackMovables = true;
+
+    /** Maps renderables to their entries. Guards all access to the index. */
+    protected final Map<Renderable, Entry> entries = new IdentityHashMap<Renderable, Entry>();
+    protected Node root = new Node(null, Sector.FULL_SPHERE, 0);
+    /** Entries waiting to be placed in the quadtree. */
+    protected List<Entry> pendingEntries = new ArrayList<Entry>();
+    /** Entries whose bounds cannot be determined. Visited every frame. */
+    protected final List<Entry> unboundedEntries = new ArrayList<Entry>();
+    /** Entries of Movable renderables, kept in a list so that movement tracking scans them sequentially. */
+    protected final List<Entry> trackedEntries = new ArrayList<Entry>();
+    protected long nextOrdinal;
+
+    /** Incremented whenever the globe or vertical exaggeration changes, invalidating the node extents. */
+    protected int extentGeneration;
+    protected Object lastGlobeStateKey;
+    protected double lastVerticalExaggeration;
+    protected final List<Entry> visibleEntries = new ArrayList<Entry>();
+
+    /** The renderables found visible in the current frame, shared by the pre-render, pick and render passes. */
+    protected List<Renderable> frameRenderables = new ArrayList<Renderable>();
+    protected long frameTimeStamp = -1;
+    protected Object frameGlobeStateKey;
+
+    /** Creates a new <code>IndexedRenderableLayer</code> with a null <code>delegateOwner</code> */
+    public IndexedRenderableLayer()
+    {
+    }
+
+    /**
+     * Indicates the maximum number of renderables a quadtree node holds before it is subdivided.
+     *
+     * @return the maximum number of renderables per node.
+     */
+    public int getMaxNodeItems()
+    {
+        return this.maxNodeItems;
+    }
+
+    /**
+     * Specifies the maximum number of renderables a quadtree node holds before it is subdivided. Nodes that already
+     * exist are not affected.
+     *
+     * @param maxNodeItems the maximum number of renderables per node.
+     *
+     * @throws IllegalArgumentException if the number is less than 1.
+     */
+    public void setMaxNodeItems(int maxNodeItems)
+    {
+        if (maxNodeItems < 1)
+        {
+            String msg = Logging.getMessage("generic.ArgumentOutOfRange", maxNodeItems);
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        this.maxNodeItems = maxNodeItems;
+    }
+
+    /**
+     * Indicates whether the layer re-indexes {@link Movable} renderables whose reference position has changed.
+     *
+     * @return true if movement is tracked, otherwise false.
+     *
+     * @see #setTrackMovables(boolean)
+     */
+    public boolean isTrackMovables()
+    {
+        return this.trackMovables;
+    }
+
+    /**
+     * Specifies whether the layer compares the reference position of each {@link Movable} renderable with its indexed
+     * position every frame, and re-indexes the renderables that have moved. The comparison is inexpensive but visits
+     * every renderable. Applications that call {@link #updateRenderable(Renderable)} after moving a renderable can
+     * disable tracking so that the per-frame cost of the layer depends only on the renderables in view. Tracking is
+     * enabled by default.
+     *
+     * @param trackMovables true to track movement, false to rely on <code>updateRenderable</code>.
+     */
+    public void setTrackMovables(boolean trackMovables)
+    {
+        this.trackMovables = trackMovables;
+    }
+
+    @Override
+    public void addRenderable(Renderable renderable)
+    {
+        super.addRenderable(renderable);
+        this.addEntry(renderable);
+    }
+
+    @Override
+    public void addRenderable(int index, Renderable renderable)
+    {
+        super.addRenderable(index, renderable);
+
+        synchronized (this.entries)
+        {
+            this.addEntry(renderable);
+
+            // Renumber the entries to match the order of the layer's renderables.
+            long ordinal = 0;
+            for (Renderable r : this.renderables)
+            {
+                Entry entry = this.entries.get(r);
+                if (entry != null)
+                    entry.ordinal = ordinal++;
+            }
+            this.nextOrdinal = ordinal;
+        }
+    }
+
+    @Override
+    public void addRenderables(Iterable<? extends Renderable> renderables)
+    {
+        super.addRenderables(renderables);
+
+        synchronized (this.entries)
+        {
+            for (Renderable renderable : renderables)
+            {
+                if (renderable != null)
+                    this.addEntry(renderable);
+            }
+        }
+    }
+
+    @Override
+    public void removeRenderable(Renderable renderable)
+    {
+        super.removeRenderable(renderable);
+
+        synchronized (this.entries)
+        {
+            Entry entry = this.entries.remove(renderable);
+            if (entry != null)
+            {
+                entry.removed = true;
+                this.removeFromIndex(entry);
+                this.removeTrackedEntry(entry);
+            }
+        }
+    }
+
+    @Override
+    protected void clearRenderables()
+    {
+        super.clearRenderables();
+
+        synchronized (this.entries)
+        {
+            for (Entry entry : this.entries.values())
+            {
+                entry.removed = true;
+            }
+
+            this.entries.clear();
+            this.root = new Node(null, Sector.FULL_SPHERE, 0);
+            this.pendingEntries = new ArrayList<Entry>();
+            this.unboundedEntries.clear();
+            this.trackedEntries.clear();
+            this.visibleEntries.clear();
+            this.frameRenderables = new ArrayList<Renderable>();
+            this.frameTimeStamp = -1;
+        }
+    }
+
+    /**
+     * Re-indexes a renderable whose geometry has changed. The renderable is placed in the quadtree node matching its
+     * new bounds the next time the layer is drawn. This does nothing if the renderable is not in this layer.
+     *
+     * @param renderable the renderable to re-index.
+     *
+     * @throws IllegalArgumentException if the renderable is null.
+     */
+    public void updateRenderable(Renderable renderable)
+    {
+        if (renderable == null)
+        {
+            String msg = Logging.getMessage("nullValue.RenderableIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        synchronized (this.entries)
+        {
+            Entry entry = this.entries.get(renderable);
+            if (entry != null)
+                this.invalidateEntry(entry);
+        }
+    }
+
+    /**
+     * Selects the renderables of this layer whose quadtree node intersects a frustum, in the order in which they were
+     * added to the layer. Renderables whose bounds cannot be determined are always selected. The draw context must
+     * specify a globe; the layer does not otherwise draw or modify it.
+     *
+     * @param dc      the current draw context.
+     * @param frustum the frustum in model coordinates.
+     * @param result  the collection to receive the selected renderables.
+     *
+     * @throws IllegalArgumentException if any argument is null, or if the draw context has no globe.
+     */
+    public void selectRenderables(DrawContext dc, Frustum frustum, Collection<? super Renderable> result)
+    {
+        if (dc == null)
+        {
+            String msg = Logging.getMessage("nullValue.DrawContextIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (dc.getGlobe() == null)
+        {
+            String msg = Logging.getMessage("layers.AbstractLayer.NoGlobeSpecifiedInDrawingContext");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (frustum == null)
+        {
+            String msg = Logging.getMessage("nullValue.FrustumIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (result == null)
+        {
+            String msg = Logging.getMessage("nullValue.CollectionIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        synchronized (this.entries)
+        {
+            Globe globe = dc.getGlobe();
+            double ve = dc.getVerticalExaggeration();
+            Object globeStateKey = globe.getGlobeStateKey();
+            if (!globeStateKey.equals(this.lastGlobeStateKey) || ve != this.lastVerticalExaggeration)
+            {
+                this.lastGlobeStateKey = globeStateKey;
+                this.lastVerticalExaggeration = ve;
+                this.extentGeneration++;
+            }
+
+            if (this.trackMovables)
+                this.detectMovedEntries();
+
+            this.indexPendingEntries(dc);
+
+            this.visibleEntries.clear();
+            this.visibleEntries.addAll(this.unboundedEntries);
+            if (this.root.count > 0)
+                this.collectVisibleEntries(globe, ve, frustum, this.root, this.visibleEntries);
+
+            Collections.sort(this.visibleEntries, ORDINAL_COMPARATOR);
+            for (Entry entry : this.visibleEntries)
+            {
+                result.add(entry.renderable);
+            }
+            this.visibleEntries.clear();
+        }
+    }
+
+    /**
+     * Returns the renderables to draw in the current frame. The renderables are selected once per frame and globe, and
+     * shared by the pre-render, pick and render passes.
+     *
+     * @param dc the current draw context.
+     *
+     * @return the renderables intersecting the view frustum.
+     */
+    protected Iterable<? extends Renderable> getVisibleRenderables(DrawContext dc)
+    {
+        if (this.renderablesOverride != null)
+            return this.renderablesOverride;
+
+        Object globeStateKey = dc.getGlobe().getGlobeStateKey();
+        if (this.frameTimeStamp == dc.getFrameTimeStamp() && globeStateKey.equals(this.frameGlobeStateKey))
+            return this.frameRenderables;
+
+        // The pick and render passes may still hold the previous list, so select into a new one.
+        List<Renderable> list = new ArrayList<Renderable>(this.frameRenderables.size());
+        this.selectRenderables(dc, dc.getView().getFrustumInModelCoordinates(), list);
+
+        this.frameRenderables = list;
+        this.frameTimeStamp = dc.getFrameTimeStamp();
+        this.frameGlobeStateKey = globeStateKey;
+
+        return list;
+    }
+
+    @Override
+    protected void doPreRender(DrawContext dc)
+    {
+        this.doPreRender(dc, this.getVisibleRenderables(dc));
+    }
+
+    @Override
+    protected void doPick(DrawContext dc, java.awt.Point pickPoint)
+    {
+        this.doPick(dc, this.getVisibleRenderables(dc), pickPoint);
+    }
+
+    @Override
+    protected void doRender(DrawContext dc)
+    {
+        this.doRender(dc, this.getVisibleRenderables(dc));
+    }
+
+    /**
+     * Computes the geographic bounds of a renderable. This recognizes {@link GeographicExtent}, {@link
+     * SurfaceRenderable}, {@link PointPlacemark} and {@link Locatable} renderables. Subclasses may override this method
+     * to index other kinds of renderable.
+     *
+     * @param dc         the current draw context.
+     * @param renderable the renderable.
+     *
+     * @return the renderable's sector, or null if it cannot be determined.
+     */
+    protected Sector computeSector(DrawContext dc, Renderable renderable)
+    {
+        if (renderable instanceof GeographicExtent)
+        {
+            return ((GeographicExtent) renderable).getSector();
+        }
+        else if (renderable instanceof SurfaceRenderable)
+        {
+            List<Sector> sectors = ((SurfaceRenderable) renderable).getSectors(dc);
+            return sectors != null && sectors.size() > 0 ? Sector.union(sectors) : null;
+        }
+        else if (renderable instanceof PointPlacemark)
+        {
+            Position position = ((PointPlacemark) renderable).getPosition();
+            return position != null ? new Sector(position.latitude, position.latitude, position.longitude,
+                position.longitude) : null;
+        }
+        else if (renderable instanceof Locatable)
+        {
+            Position position = ((Locatable) renderable).getPosition();
+            return position != null ? new Sector(position.latitude, position.latitude, position.longitude,
+                position.longitude) : null;
+        }
+
+        return null;
+    }
+
+    /**
+     * Computes an upper bound on the altitude of a renderable, in meters above the terrain for renderables drawn
+     * relative to the terrain and in meters above the ellipsoid otherwise. The layer adds the globe's maximum elevation
+     * to this value, so the bound holds in either case. Subclasses may override this method to index other kinds of
+     * renderable.
+     *
+     * @param renderable the renderable.
+     *
+     * @return the renderable's maximum altitude, or {@link Double#POSITIVE_INFINITY} if it cannot be determined.
+     */
+    protected double computeMaxAltitude(Renderable renderable)
+    {
+        if (renderable instanceof SurfaceRenderable)
+        {
+            return 0;
+        }
+        else if (renderable instanceof PointPlacemark)
+        {
+            return this.computeMaxAltitude(((PointPlacemark) renderable).getPosition());
+        }
+        else if (renderable instanceof Path)
+        {
+            return this.computeMaxAltitude(((Path) renderable).getPositions());
+        }
+        else if (renderable instanceof ExtrudedPolygon)
+        {
+            ExtrudedPolygon polygon = (ExtrudedPolygon) renderable;
+            return Math.max(polygon.getHeight(), this.computeMaxAltitude(polygon.getOuterBoundary()));
+        }
+        else if (renderable instanceof Polygon)
+        {
+            return this.computeMaxAltitude(((Polygon) renderable).getOuterBoundary());
+        }
+        else if (renderable instanceof RigidShape)
+        {
+            RigidShape shape = (RigidShape) renderable;
+            double radius = Math.max(shape.getVerticalRadius(),
+                Math.max(shape.getNorthSouthRadius(), shape.getEastWestRadius()));
+            return this.computeMaxAltitude(shape.getCenterPosition()) + radius;
+        }
+        else if (renderable instanceof Airspace)
+        {
+            double[] altitudes = ((Airspace) renderable).getAltitudes();
+            return altitudes != null && altitudes.length > 1 ? Math.max(altitudes[0], altitudes[1])
+                : Double.POSITIVE_INFINITY;
+        }
+        else if (renderable instanceof Locatable)
+        {
+            return this.computeMaxAltitude(((Locatable) renderable).getPosition());
+        }
+
+        return Double.POSITIVE_INFINITY;
+    }
+
+    protected double computeMaxAltitude(LatLon location)
+    {
+        if (location == null)
+            return Double.POSITIVE_INFINITY;
+
+        return location instanceof Position ? Math.max(0, ((Position) location).getElevation()) : 0;
+    }
+
+    protected double computeMaxAltitude(Iterable<? extends LatLon> locations)
+    {
+        if (locations == null)
+            return Double.POSITIVE_INFINITY;
+
+        double max = 0;
+        for (LatLon location : locations)
+        {
+            if (location instanceof Position)
+                max = Math.max(max, ((Position) location).getElevation());
+        }
+
+        return max;
+    }
+
+    protected void addEntry(Renderable renderable)
+    {
+        synchronized (this.entries)
+        {
+            Entry entry = this.entries.get(renderable);
+            if (entry != null) // the renderable is already in the layer
+                return;
+
+            entry = new Entry(renderable, this.nextOrdinal++);
+            this.entries.put(renderable, entry);
+            entry.pending = true;
+            this.pendingEntries.add(entry);
+
+            if (renderable instanceof Movable)
+            {
+                entry.trackedIndex = this.trackedEntries.size();
+                this.trackedEntries.add(entry);
+            }
+        }
+    }
+
+    protected void removeTrackedEntry(Entry entry)
+    {
+        if (entry.trackedIndex < 0)
+            return;
+
+        // Move the last tracked entry into the removed entry's slot.
+        Entry last = this.trackedEntries.remove(this.trackedEntries.size() - 1);
+        if (last != entry)
+        {
+            this.trackedEntries.set(entry.trackedIndex, last);
+            last.trackedIndex = entry.trackedIndex;
+        }
+        entry.trackedIndex = -1;
+    }
+
+    /** Removes an entry from the quadtree and schedules it to be indexed again. */
+    protected void invalidateEntry(Entry entry)
+    {
+        if (entry.pending)
+            return;
+
+        this.removeFromIndex(entry);
+        entry.pending = true;
+        this.pendingEntries.add(entry);
+    }
+
+    /** Removes an entry from the quadtree or the unbounded list. Pending entries are dropped when indexed. */
+    protected void removeFromIndex(Entry entry)
+    {
+        if (entry.node != null)
+        {
+            Node node = entry.node;
+            node.entries.remove(entry);
+            entry.node = null;
+
+            // Node altitudes are left as they are. They remain upper bounds.
+            for (; node != null; node = node.parent)
+            {
+                node.count--;
+            }
+        }
+        else if (!entry.pending)
+        {
+            this.unboundedEntries.remove(entry);
+        }
+    }
+
+    protected void detectMovedEntries()
+    {
+        for (int i = 0; i < this.trackedEntries.size(); i++)
+        {
+            Entry entry = this.trackedEntries.get(i);
+            if (entry.pending)
+                continue;
+
+            Position position = ((Movable) entry.renderable).getReferencePosition();
+            if (position != entry.referencePosition
+                && (position == null || !position.equals(entry.referencePosition)))
+            {
+                this.invalidateEntry(entry);
+            }
+        }
+    }
+
+    protected void indexPendingEntries(DrawContext dc)
+    {
+        if (this.pendingEntries.isEmpty())
+            return;
+
+        List<Entry> pending = this.pendingEntries;
+        this.pendingEntries = new ArrayList<Entry>();
+
+        for (Entry entry : pending)
+        {
+            if (entry.removed || !entry.pending)
+                continue;
+
+            entry.pending = false;
+            entry.referencePosition = entry.renderable instanceof Movable
+                ? ((Movable) entry.renderable).getReferencePosition() : null;
+
+            try
+            {
+                entry.sector = this.computeSector(dc, entry.renderable);
+                entry.maxAltitude = this.computeMaxAltitude(entry.renderable);
+            }
+            catch (Exception e)
+            {
+                String msg = Logging.getMessage("layers.IndexedRenderableLayer.ExceptionIndexingRenderable",
+                    entry.renderable);
+                Logging.logger().log(java.util.logging.Level.FINE, msg, e);
+                entry.sector = null;
+            }
+
+            if (entry.sector == null || Double.isInfinite(entry.maxAltitude) || Double.isNaN(entry.maxAltitude))
+                this.unboundedEntries.add(entry);
+            else
+                this.insert(entry);
+        }
+    }
+
+    protected void insert(Entry entry)
+    {
+        Node node = this.root;
+        while (node.children != null)
+        {
+            Node child = this.findContainingChild(node, entry.sector);
+            if (child == null)
+                break;
+
+            node = child;
+        }
+
+        this.addToNode(node, entry);
+
+        if (node.children == null && node.entries.size() > this.maxNodeItems && node.level < this.maxLevels)
+            this.split(node);
+    }
+
+    protected Node findContainingChild(Node node, Sector sector)
+    {
+        for (Node child : node.children)
+        {
+            if (child.sector.contains(sector))
+                return child;
+        }
+
+        return null;
+    }
+
+    protected void addToNode(Node node, Entry entry)
+    {
+        node.entries.add(entry);
+        entry.node = node;
+
+        for (; node != null; node = node.parent)
+        {
+            node.count++;
+            if (entry.maxAltitude > node.maxAltitude)
+            {
+                node.maxAltitude = entry.maxAltitude;
+                node.extent = null;
+            }
+        }
+    }
+
+    /** Subdivides a node, moving the entries that fit within a child node to that child. */
+    protected void split(Node node)
+    {
+        Sector[] sectors = node.sector.subdivide();
+        node.children = new Node[sectors.length];
+        for (int i = 0; i < sectors.length; i++)
+        {
+            node.children[i] = new Node(node, sectors[i], node.level + 1);
+        }
+
+        List<Entry> remaining = new ArrayList<Entry>();
+        for (Entry entry : node.entries)
+        {
+            Node child = this.findContainingChild(node, entry.sector);
+            if (child == null)
+            {
+                remaining.add(entry);
+                continue;
+            }
+
+            child.entries.add(entry);
+            child.count++;
+            child.maxAltitude = Math.max(child.maxAltitude, entry.maxAltitude);
+            entry.node = child;
+        }
+
+        node.entries.clear();
+        node.entries.addAll(remaining);
+
+        for (Node child : node.children)
+        {
+            if (child.entries.size() > this.maxNodeItems && child.level < this.maxLevels)
+                this.split(child);
+        }
+    }
+
+    protected void collectVisibleEntries(Globe globe, double ve, Frustum frustum, Node node, List<Entry> result)
+    {
+        if (!frustum.intersects(this.getNodeExtent(globe, ve, node)))
+            return;
+
+        result.addAll(node.entries);
+
+        if (node.children != null)
+        {
+            for (Node child : node.children)
+            {
+                if (child.count > 0)
+                    this.collectVisibleEntries(globe, ve, frustum, child, result);
+            }
+        }
+    }
+
+    protected Extent getNodeExtent(Globe globe, double ve, Node node)
+    {
+        if (node.extent == null || node.extentGeneration != this.extentGeneration)
+        {
+            node.extent = Sector.computeBoundingBox(globe, ve, node.sector, globe.getMinElevation(),
+                globe.getMaxElevation() + node.maxAltitude);
+            node.extentGeneration = this.extentGeneration;
+        }
+
+        return node.extent;
+    }
+
+    @Override
+    public String toString()
+    {
+        return Logging.getMessage("layers.IndexedRenderableLayer.Name");
+    }
+}
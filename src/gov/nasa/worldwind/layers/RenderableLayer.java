@@ -30,7 +30,7 @@ package gov.nasa.worldwind.layers;
 import gov.nasa.worldwind.*;
 import gov.nasa.worldwind.avlist.AVList;
 import gov.nasa.worldwind.event.*;
-import gov.nasa.worldwind.pick.PickSupport;
+import gov.nasa.worldwind.pick.*;
 import gov.nasa.worldwind.render.*;
 import gov.nasa.worldwind.util.Logging;
 
@@ -51,6 +51,8 @@ public class RenderableLayer extends AbstractLayer
     protected Collection<Renderable> renderables = new ConcurrentLinkedQueue<Renderable>();
     protected Iterable<Renderable> renderablesOverride;
     protected PickSupport pickSupport = new PickSupport();
+    /** The picker used when geometric picking is enabled, or null if geometric picking is disabled. */
+    protected GeometricPicker geometricPicker;
 
     /** Creates a new <code>RenderableLayer</code> with a null <code>delegateOwner</code> */
     public RenderableLayer()
@@ -430,6 +432,47 @@ public class RenderableLayer extends AbstractLayer
         this.renderables.clear();
     }
 
+    /**
+     * Indicates whether this layer picks its renderables geometrically. See {@link #setGeometricPicking(boolean)}.
+     *
+     * @return true if this layer picks its renderables geometrically, otherwise false.
+     */
+    public boolean isGeometricPicking()
+    {
+        return this.geometricPicker != null;
+    }
+
+    /**
+     * Specifies whether this layer picks its renderables geometrically, by testing their geometry on the CPU with a
+     * {@link GeometricPicker}, rather than by drawing them in unique pick colors. Geometric picking avoids drawing
+     * layers with many renderables during picking, and its cost depends on the number of renderables near the pick
+     * point rather than on the total number. Renderables the picker does not support are picked by color. Geometric
+     * picking is disabled by default.
+     * <p>
+     * The picker recomputes a renderable's geometry when the layer's renderables change and when a renderable is moved.
+     * Applications that change a renderable's geometry in other ways call {@link GeometricPicker#invalidate()} on the
+     * layer's picker.
+     *
+     * @param geometricPicking true to pick renderables geometrically, false to pick them by color.
+     */
+    public void setGeometricPicking(boolean geometricPicking)
+    {
+        if (geometricPicking && this.geometricPicker == null)
+            this.geometricPicker = new GeometricPicker();
+        else if (!geometricPicking)
+            this.geometricPicker = null;
+    }
+
+    /**
+     * Returns the picker this layer uses when geometric picking is enabled.
+     *
+     * @return this layer's geometric picker, or null if geometric picking is disabled.
+     */
+    public GeometricPicker getGeometricPicker()
+    {
+        return this.geometricPicker;
+    }
+
     protected void doPreRender(DrawContext dc)
     {
         this.doPreRender(dc, this.getActiveRenderables());
@@ -467,6 +510,13 @@ public class RenderableLayer extends AbstractLayer
 
     protected void doPick(DrawContext dc, Iterable<? extends Renderable> renderables, java.awt.Point pickPoint)
     {
+        if (this.geometricPicker != null)
+        {
+            renderables = this.doGeometricPick(dc, renderables, pickPoint);
+            if (!renderables.iterator().hasNext())
+                return;
+        }
+
         GL2 gl = dc.getGL().getGL2(); // GL initialization checks for GL2 compatibility.
         this.pickSupport.clearPickList();
         this.pickSupport.beginPicking(dc);
@@ -518,6 +568,60 @@ public class RenderableLayer extends AbstractLayer
         }
     }
 
+    /**
+     * Picks renderables geometrically, adding the nearest renderable at the pick point, or all renderables at the pick
+     * point if deep picking is enabled, to the draw context's picked objects, and the renderables within the draw
+     * context's pick rectangle to its objects in the pick rectangle.
+     *
+     * @param dc          the current draw context.
+     * @param renderables the renderables to pick.
+     * @param pickPoint   the pick point, or null if there is no pick point.
+     *
+     * @return the renderables the geometric picker does not support, which must be picked by color.
+     */
+    protected Iterable<? extends Renderable> doGeometricPick(DrawContext dc, Iterable<? extends Renderable> renderables,
+        java.awt.Point pickPoint)
+    {
+        GeometricPicker picker = this.geometricPicker;
+        picker.setObjects(renderables);
+
+        GeometricPicker.ScreenProjection projection = GeometricPicker.ScreenProjection.fromView(dc.getView(),
+            dc.getGlobe());
+
+        if (pickPoint != null)
+        {
+            List<PickedObject> pickedObjects = picker.pick(dc.getGlobe(), dc.getVerticalExaggeration(), projection,
+                pickPoint);
+            for (PickedObject po : pickedObjects)
+            {
+                po.setParentLayer(this);
+                dc.addPickedObject(po);
+
+                if (!dc.isDeepPickingEnabled())
+                    break; // the nearest object is first
+            }
+        }
+
+        java.awt.Rectangle pickRect = dc.getPickRectangle();
+        if (pickRect != null && !pickRect.isEmpty())
+        {
+            for (PickedObject po : picker.pickInRectangle(dc.getGlobe(), dc.getVerticalExaggeration(), projection,
+                pickRect))
+            {
+                po.setParentLayer(this);
+                dc.addObjectInPickRectangle(po);
+            }
+        }
+
+        List<Renderable> unsupported = new ArrayList<Renderable>();
+        for (Object o : picker.getUnsupportedObjects())
+        {
+            unsupported.add((Renderable) o);
+        }
+
+        return unsupported;
+    }
+
     protected void doRender(DrawContext dc, Iterable<? extends Renderable> renderables)
     {
         for (Renderable renderable : renderables)
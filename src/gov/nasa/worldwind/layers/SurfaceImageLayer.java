@@ -27,12 +27,15 @@
  */
 package gov.nasa.worldwind.layers;
 
+import gov.nasa.worldwind.*;
 import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.cache.FileStore;
 import gov.nasa.worldwind.data.*;
 import gov.nasa.worldwind.exception.WWRuntimeException;
 import gov.nasa.worldwind.geom.*;
 import gov.nasa.worldwind.render.*;
 import gov.nasa.worldwind.util.*;
+import org.w3c.dom.Document;
 
 import javax.imageio.ImageIO;
 import java.awt.image.*;
@@ -46,15 +49,28 @@ import java.util.concurrent.ConcurrentHashMap;
  * Note: The view input handlers detect surface images rather than the terrain as the top picked object in {@link
  * gov.nasa.worldwind.event.SelectEvent}s and will not respond to the user's attempts at navigation when the cursor is
  * over the image. If this is not the desired behavior, disable picking for the layer containing the surface image.
+ * <p>
+ * Image files with more pixels than the layer's pyramid threshold are not read into memory. The first time such an
+ * image is added it is installed into the data file store as a tiled image pyramid, in the format written by {@link
+ * TiledImageProducer}, and later additions of the same unmodified file reuse the installed pyramid. Only the pyramid
+ * tiles that are visible, at the level of detail needed, are then loaded when the layer is drawn. See {@link
+ * #setPyramidThreshold(long)}.
  *
  * @author tag
  * @version $Id: SurfaceImageLayer.java 1171 2013-02-11 21:45:02Z dcollins $
  */
 public class SurfaceImageLayer extends RenderableLayer
 {
+    /** The default number of pixels above which image files are installed as tiled image pyramids. */
+    protected static final long DEFAULT_PYRAMID_THRESHOLD = 4096L * 4096L;
+    /** The data file store path under which image pyramids are installed. */
+    protected static final String PYRAMID_CACHE_PATH = "SurfaceImageLayer";
+
     protected ImageTiler imageTiler = new ImageTiler();
     protected ConcurrentHashMap<String, ArrayList<SurfaceImage>> imageTable =
         new ConcurrentHashMap<String, ArrayList<SurfaceImage>>();
+    protected ConcurrentHashMap<String, Layer> pyramidTable = new ConcurrentHashMap<String, Layer>();
+    protected long pyramidThreshold = DEFAULT_PYRAMID_THRESHOLD;
 
     protected BasicDataRasterReaderFactory factory = new BasicDataRasterReaderFactory();
 
@@ -64,6 +80,35 @@ public class SurfaceImageLayer extends RenderableLayer
         super.dispose();
 
         this.imageTable.clear();
+
+        for (Layer pyramid : this.pyramidTable.values())
+        {
+            pyramid.removePropertyChangeListener(this);
+            pyramid.dispose();
+        }
+        this.pyramidTable.clear();
+    }
+
+    /**
+     * Returns the number of pixels above which image files are installed as tiled image pyramids.
+     *
+     * @return the pyramid threshold, in pixels.
+     */
+    public long getPyramidThreshold()
+    {
+        return this.pyramidThreshold;
+    }
+
+    /**
+     * Specifies the number of pixels above which image files added by path are installed as tiled image pyramids rather
+     * than read into memory. Specify {@link Long#MAX_VALUE} to always read images into memory. The default is 4096 x
+     * 4096 pixels.
+     *
+     * @param threshold the pyramid threshold, in pixels.
+     */
+    public void setPyramidThreshold(long threshold)
+    {
+        this.pyramidThreshold = threshold;
     }
 
     /**
@@ -86,6 +131,9 @@ public class SurfaceImageLayer extends RenderableLayer
      */
     public void addImage(final String imagePath) throws IOException
     {
+        if (this.addImagePyramid(imagePath, null))
+            return;
+
         DataRaster raster = this.openDataRaster(imagePath, null);
         final BufferedImage image = this.getBufferedImage(raster);
 
@@ -203,6 +251,151 @@ public class SurfaceImageLayer extends RenderableLayer
         return raster;
     }
 
+    /**
+     * Adds an image file as a tiled image pyramid if the file has more pixels than the pyramid threshold. The image's
+     * dimensions and location are read from its metadata without reading its pixels.
+     *
+     * @param imagePath the path to the image file.
+     * @param sector    the geographic location of the image, or null to use the location in the image's metadata.
+     *
+     * @return true if the image was added as a pyramid, and false if the image is not large enough, or its metadata
+     *         cannot be read, and must be read into memory.
+     *
+     * @throws WWRuntimeException if the image pyramid cannot be installed.
+     */
+    protected boolean addImagePyramid(String imagePath, Sector sector)
+    {
+        File file = WWIO.getFileForLocalAddress(imagePath);
+        if (file == null || !file.exists())
+            return false;
+
+        AVList params = new AVListImpl();
+        try
+        {
+            DataRasterReader reader = this.factory.findReaderFor(file, params);
+            if (reader == null)
+                return false;
+
+            reader.readMetadata(file, params);
+        }
+        catch (Exception e)
+        {
+            Logging.logger().finest(Logging.getMessage("generic.ExceptionWhileReading", imagePath));
+            return false;
+        }
+
+        if (sector != null)
+            params.setValue(AVKey.SECTOR, sector);
+
+        Integer width = AVListImpl.getIntegerValue(params, AVKey.WIDTH);
+        Integer height = AVListImpl.getIntegerValue(params, AVKey.HEIGHT);
+        if (width == null || height == null || params.getValue(AVKey.SECTOR) == null
+            || (long) width * height <= this.getPyramidThreshold())
+        {
+            return false;
+        }
+
+        Layer pyramid = this.openImagePyramid(file, params);
+        pyramid.setOpacity(this.getOpacity());
+        pyramid.addPropertyChangeListener(this);
+
+        this.removeImage(imagePath);
+        this.pyramidTable.put(imagePath, pyramid);
+        this.firePropertyChange(AVKey.LAYER, null, this);
+
+        return true;
+    }
+
+    /**
+     * Opens the tiled image pyramid for an image file, installing it into the data file store if no pyramid has been
+     * installed for the file's current contents.
+     *
+     * @param file   the image file.
+     * @param params the image's metadata, including its sector.
+     *
+     * @return a tiled image layer that draws the pyramid.
+     *
+     * @throws WWRuntimeException if the image pyramid cannot be installed.
+     */
+    protected Layer openImagePyramid(File file, AVList params)
+    {
+        FileStore fileStore = WorldWind.getDataFileStore();
+
+        AVList storeParams = new AVListImpl();
+        storeParams.setValue(AVKey.FILE_STORE_LOCATION, fileStore.getWriteLocation().getAbsolutePath());
+        storeParams.setValue(AVKey.DATA_CACHE_NAME, this.makePyramidCacheName(file, (Sector) params.getValue(
+            AVKey.SECTOR)));
+        storeParams.setValue(AVKey.DATASET_NAME, file.getName());
+
+        // The producer writes the configuration file once, after all tiles are installed, so an existing file marks a
+        // complete pyramid.
+        Object configSource = fileStore.findFile(DataConfigurationUtils.getDataConfigFilename(storeParams, ".xml"),
+            false);
+        if (configSource == null)
+            configSource = this.installImagePyramid(file, params, storeParams);
+
+        Layer layer = (Layer) BasicFactory.create(AVKey.LAYER_FACTORY, configSource);
+        layer.setEnabled(true); // the layer factory creates disabled layers
+
+        return layer;
+    }
+
+    /**
+     * Installs an image file into the data file store as a tiled image pyramid.
+     *
+     * @param file        the image file.
+     * @param params      the image's metadata, including its sector.
+     * @param storeParams the install location parameters.
+     *
+     * @return the installed pyramid's configuration element.
+     *
+     * @throws WWRuntimeException if the image pyramid cannot be installed.
+     */
+    protected Object installImagePyramid(File file, AVList params, AVList storeParams)
+    {
+        TiledImageProducer producer = new TiledImageProducer();
+        try
+        {
+            producer.setStoreParameters(storeParams);
+            producer.offerDataSource(file, params);
+            producer.startProduction();
+        }
+        catch (Exception e)
+        {
+            producer.removeProductionState();
+            String message = Logging.getMessage("generic.ImageReadFailed", file);
+            Logging.logger().log(java.util.logging.Level.SEVERE, message, e);
+            throw new WWRuntimeException(message, e);
+        }
+
+        Iterator<?> results = producer.getProductionResults().iterator();
+        Object o = results.hasNext() ? results.next() : null;
+        if (!(o instanceof Document))
+        {
+            String message = Logging.getMessage("generic.ImageReadFailed", file);
+            Logging.logger().severe(message);
+            throw new WWRuntimeException(message);
+        }
+
+        return ((Document) o).getDocumentElement();
+    }
+
+    /**
+     * Computes the data file store path of an image file's pyramid. The path changes when the file is modified or
+     * placed at a different location, so stale pyramids are never reused.
+     *
+     * @param file   the image file.
+     * @param sector the image's sector.
+     *
+     * @return the pyramid's cache name.
+     */
+    protected String makePyramidCacheName(File file, Sector sector)
+    {
+        String key = file.getAbsolutePath() + "|" + file.length() + "|" + file.lastModified() + "|" + sector;
+        return PYRAMID_CACHE_PATH + "/" + WWIO.replaceIllegalFileNameCharacters(file.getName()) + "-"
+            + Integer.toHexString(key.hashCode());
+    }
+
     /**
      * Add an image to the collection and specify its coverage. The image is assumed to be in geographic projection
      * (latitude and longitude).
@@ -222,6 +415,9 @@ public class SurfaceImageLayer extends RenderableLayer
         if (null != sector)
             params.setValue(AVKey.SECTOR, sector);
 
+        if (this.addImagePyramid(imagePath, sector))
+            return;
+
         DataRaster raster = this.openDataRaster(imagePath, params);
         final BufferedImage image = this.getBufferedImage(raster);
 
@@ -404,6 +600,13 @@ public class SurfaceImageLayer extends RenderableLayer
 
     public void removeImage(String imagePath)
     {
+        Layer pyramid = this.pyramidTable.remove(imagePath);
+        if (pyramid != null)
+        {
+            pyramid.removePropertyChangeListener(this);
+            pyramid.dispose();
+        }
+
         ArrayList<SurfaceImage> images = this.imageTable.get(imagePath);
         if (images == null)
             return;
@@ -430,6 +633,11 @@ public class SurfaceImageLayer extends RenderableLayer
                     si.setOpacity(opacity);
             }
         }
+
+        for (Layer pyramid : this.pyramidTable.values())
+        {
+            pyramid.setOpacity(opacity);
+        }
     }
 
     @SuppressWarnings({"UnusedDeclaration"})
@@ -442,7 +650,29 @@ public class SurfaceImageLayer extends RenderableLayer
             count += images.size();
         }
 
-        return count;
+        return count + this.pyramidTable.size();
+    }
+
+    @Override
+    protected void doPreRender(DrawContext dc)
+    {
+        super.doPreRender(dc);
+
+        for (Layer pyramid : this.pyramidTable.values())
+        {
+            pyramid.preRender(dc);
+        }
+    }
+
+    @Override
+    protected void doRender(DrawContext dc)
+    {
+        super.doRender(dc);
+
+        for (Layer pyramid : this.pyramidTable.values())
+        {
+            pyramid.render(dc);
+        }
     }
 
     /**
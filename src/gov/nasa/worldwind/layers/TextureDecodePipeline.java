@@ -0,0 +1,1011 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.layers;
+
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.util.texture.*;
+import gov.nasa.worldwind.formats.dds.*;
+import gov.nasa.worldwind.render.DrawContext;
+import gov.nasa.worldwind.util.*;
+
+import javax.imageio.ImageIO;
+import java.awt.color.ColorSpace;
+import java.awt.image.*;
+import java.io.*;
+import java.net.URL;
+import java.nio.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.logging.Level;
+
+/**
+ * Loads the textures of {@link TextureTile}s in three stages, so that image decoding neither competes with retrieval
+ * in the WorldWind task service nor stalls the rendering thread. A tiled image layer uses a pipeline once one is
+ * attached with {@link BasicTiledImageLayer#setTexturePipeline(TextureDecodePipeline)}. Layers that share a pipeline
+ * share its decoding threads, its buffer pool and its upload budget.
+ * <p>
+ * <ol> <li>The layer's request task reads the tile's encoded image file into memory on a task service thread. See
+ * {@link #readEncodedTexture(java.net.URL)}.</li> <li>A thread of this pipeline's decoding pool decodes the image into
+ * {@link TextureData}. DDS images are read as-is. Other images are decoded with ImageIO and converted to RGB or
+ * premultiplied RGBA bytes in a direct buffer taken from this pipeline's buffer pool. Decoding requests are ordered by
+ * tile priority.</li> <li>The decoded texture waits in the upload queue until a layer using this pipeline renders.
+ * Textures are then created from the queue on the rendering thread, at most {@link #getUploadBudget()} per frame and
+ * only while the frame's upload time is within {@link #getUploadTimeBudget()}. A texture's buffer returns to the pool
+ * once the texture has been created.</li> </ol>
+ * <p>
+ * The pipeline tracks the length of each queue and the time spent in each stage. These are available from its
+ * accessors and, while textures are uploaded, as the per-frame statistics {@link
+ * PerformanceStatistic#TEXTURE_DECODE_QUEUE}, {@link PerformanceStatistic#TEXTURE_UPLOAD_QUEUE} and {@link
+ * PerformanceStatistic#TEXTURE_DECODE_TIME}.
+ *
+ * @version $Id$
+ * @see BasicTiledImageLayer#setTexturePipeline(TextureDecodePipeline)
+ */
+public class TextureDecodePipeline
+{
+    /** Receives the results of a pipeline's requests. */
+    public interface Listener
+    {
+        /**
+         * Called on a decoding thread when a request's texture has been decoded and queued for upload.
+         *
+         * @param request the request.
+         */
+        void textureDecoded(Request request);
+
+        /**
+         * Called on a decoding thread when a request's texture cannot be decoded.
+         *
+         * @param request the request.
+         */
+        void textureDecodeFailed(Request request);
+
+        /**
+         * Called on the rendering thread when a texture has been created from a request's texture data.
+         *
+         * @param dc      the current draw context.
+         * @param request the request.
+         */
+        void textureUploaded(DrawContext dc, Request request);
+
+        /**
+         * Called on the rendering thread when a texture cannot be created from a request's texture data.
+         *
+         * @param dc      the current draw context.
+         * @param request the request.
+         */
+        void textureUploadFailed(DrawContext dc, Request request);
+    }
+
+    protected static final int DEFAULT_UPLOAD_BUDGET = 8;
+    protected static final long DEFAULT_UPLOAD_TIME_BUDGET = 4; // milliseconds
+    protected static final long DEFAULT_MAX_POOLED_BYTES = 64L * 1024L * 1024L;
+    protected static final byte[] DDS_MAGIC = new byte[] {'D', 'D', 'S', ' '};
+
+    protected final ThreadPoolExecutor executor;
+    protected final int poolSize;
+    protected int uploadBudget = DEFAULT_UPLOAD_BUDGET;
+    protected long uploadTimeBudget = DEFAULT_UPLOAD_TIME_BUDGET;
+    protected long maxPooledBytes = DEFAULT_MAX_POOLED_BYTES;
+
+    protected final Set<TextureTile> pendingTiles = Collections.newSetFromMap(
+        new ConcurrentHashMap<TextureTile, Boolean>());
+    protected final PriorityBlockingQueue<Request> uploadQueue = new PriorityBlockingQueue<Request>();
+    protected final ConcurrentHashMap<Integer, Queue<ByteBuffer>> bufferPool =
+        new ConcurrentHashMap<Integer, Queue<ByteBuffer>>();
+    protected final AtomicLong pooledBytes = new AtomicLong();
+
+    // Rendering thread state.
+    protected long uploadFrame = -1;
+    protected int uploadedInFrame;
+    protected long uploadNanosInFrame;
+
+    // Statistics.
+    protected final AtomicLong readCount = new AtomicLong();
+    protected final AtomicLong readNanos = new AtomicLong();
+    protected final AtomicLong decodedCount = new AtomicLong();
+    protected final AtomicLong failedCount = new AtomicLong();
+    protected final AtomicLong decodeNanos = new AtomicLong();
+    protected final AtomicLong maxDecodeNanos = new AtomicLong();
+    protected final AtomicLong decodeWaitNanos = new AtomicLong();
+    protected final AtomicLong uploadedCount = new AtomicLong();
+    protected final AtomicLong uploadFailedCount = new AtomicLong();
+    protected final AtomicLong uploadNanos = new AtomicLong();
+    protected final AtomicLong reusedBufferCount = new AtomicLong();
+
+    /** Creates a pipeline with one decoding thread per available processor, less one for the rendering thread. */
+    public TextureDecodePipeline()
+    {
+        this(Math.max(Runtime.getRuntime().availableProcessors() - 1, 1));
+    }
+
+    /**
+     * Creates a pipeline with a specified number of decoding threads.
+     *
+     * @param poolSize the number of decoding threads.
+     *
+     * @throws IllegalArgumentException if the pool size is less than 1.
+     */
+    public TextureDecodePipeline(int poolSize)
+    {
+        if (poolSize < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "poolSize < 1");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.poolSize = poolSize;
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 2, TimeUnit.SECONDS,
+            new PriorityBlockingQueue<Runnable>(), // bounded by the number of tiles, each has at most one request
+            new ThreadFactory()
+            {
+                public Thread newThread(Runnable runnable)
+                {
+                    Thread thread = new Thread(runnable, "Texture Decoder");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                }
+            });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Returns the number of decoding threads.
+     *
+     * @return the number of decoding threads.
+     */
+    public int getPoolSize()
+    {
+        return this.poolSize;
+    }
+
+    /**
+     * Returns the maximum number of textures created per frame.
+     *
+     * @return the upload budget.
+     */
+    public int getUploadBudget()
+    {
+        return this.uploadBudget;
+    }
+
+    /**
+     * Specifies the maximum number of textures created per frame.
+     *
+     * @param uploadBudget the upload budget.
+     *
+     * @throws IllegalArgumentException if the budget is less than 1.
+     */
+    public void setUploadBudget(int uploadBudget)
+    {
+        if (uploadBudget < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "uploadBudget < 1");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.uploadBudget = uploadBudget;
+    }
+
+    /**
+     * Returns the time per frame, in milliseconds, after which no further textures are created in that frame.
+     *
+     * @return the upload time budget, in milliseconds.
+     */
+    public long getUploadTimeBudget()
+    {
+        return this.uploadTimeBudget;
+    }
+
+    /**
+     * Specifies the time per frame, in milliseconds, after which no further textures are created in that frame. At
+     * least one texture is created per frame regardless of this budget, so that the upload queue always drains.
+     *
+     * @param uploadTimeBudget the upload time budget, in milliseconds.
+     *
+     * @throws IllegalArgumentException if the budget is negative.
+     */
+    public void setUploadTimeBudget(long uploadTimeBudget)
+    {
+        if (uploadTimeBudget < 0)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "uploadTimeBudget < 0");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.uploadTimeBudget = uploadTimeBudget;
+    }
+
+    /**
+     * Returns the maximum number of bytes of direct buffers the pipeline keeps for reuse.
+     *
+     * @return the buffer pool capacity, in bytes.
+     */
+    public long getMaxPooledBytes()
+    {
+        return this.maxPooledBytes;
+    }
+
+    /**
+     * Specifies the maximum number of bytes of direct buffers the pipeline keeps for reuse. Buffers returned when the
+     * pool is full are left to the garbage collector.
+     *
+     * @param maxPooledBytes the buffer pool capacity, in bytes.
+     *
+     * @throws IllegalArgumentException if the capacity is negative.
+     */
+    public void setMaxPooledBytes(long maxPooledBytes)
+    {
+        if (maxPooledBytes < 0)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "maxPooledBytes < 0");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.maxPooledBytes = maxPooledBytes;
+    }
+
+    /**
+     * Indicates whether a tile has a request in this pipeline that has not yet been uploaded or failed.
+     *
+     * @param tile the tile.
+     *
+     * @return true if the tile's texture is being decoded or waiting to be uploaded, otherwise false.
+     */
+    public boolean isPending(TextureTile tile)
+    {
+        return tile != null && this.pendingTiles.contains(tile);
+    }
+
+    /**
+     * Returns the number of requests that have been submitted but not yet uploaded or failed.
+     *
+     * @return the number of pending requests.
+     */
+    public int getPendingCount()
+    {
+        return this.pendingTiles.size();
+    }
+
+    /**
+     * Returns the number of requests waiting for a decoding thread.
+     *
+     * @return the decode queue length.
+     */
+    public int getDecodeQueueLength()
+    {
+        return this.executor.getQueue().size();
+    }
+
+    /**
+     * Returns the number of decoded textures waiting to be uploaded.
+     *
+     * @return the upload queue length.
+     */
+    public int getUploadQueueLength()
+    {
+        return this.uploadQueue.size();
+    }
+
+    /**
+     * Returns the number of encoded files read by {@link #readEncodedTexture(java.net.URL)}.
+     *
+     * @return the number of files read.
+     */
+    public long getReadCount()
+    {
+        return this.readCount.get();
+    }
+
+    /**
+     * Returns the number of textures decoded.
+     *
+     * @return the number of textures decoded.
+     */
+    public long getDecodedCount()
+    {
+        return this.decodedCount.get();
+    }
+
+    /**
+     * Returns the number of requests whose texture could not be decoded.
+     *
+     * @return the number of failed requests.
+     */
+    public long getFailedCount()
+    {
+        return this.failedCount.get();
+    }
+
+    /**
+     * Returns the number of textures created from decoded texture data.
+     *
+     * @return the number of textures uploaded.
+     */
+    public long getUploadedCount()
+    {
+        return this.uploadedCount.get();
+    }
+
+    /**
+     * Returns the number of decoded requests from whose texture data a texture could not be created.
+     *
+     * @return the number of failed uploads.
+     */
+    public long getUploadFailedCount()
+    {
+        return this.uploadFailedCount.get();
+    }
+
+    /**
+     * Returns the number of pixel buffers taken from the buffer pool rather than allocated.
+     *
+     * @return the number of reused buffers.
+     */
+    public long getReusedBufferCount()
+    {
+        return this.reusedBufferCount.get();
+    }
+
+    /**
+     * Returns the number of bytes of direct buffers currently held by the buffer pool.
+     *
+     * @return the pooled buffer size, in bytes.
+     */
+    public long getPooledBytes()
+    {
+        return this.pooledBytes.get();
+    }
+
+    /**
+     * Returns the average time to read an encoded file.
+     *
+     * @return the average read time, in milliseconds.
+     */
+    public double getAverageReadTime()
+    {
+        return average(this.readNanos.get(), this.readCount.get());
+    }
+
+    /**
+     * Returns the average time spent decoding a texture, not including the time the request waited in the decode
+     * queue.
+     *
+     * @return the average decode time, in milliseconds.
+     */
+    public double getAverageDecodeTime()
+    {
+        return average(this.decodeNanos.get(), this.decodedCount.get() + this.failedCount.get());
+    }
+
+    /**
+     * Returns the longest time spent decoding a texture.
+     *
+     * @return the maximum decode time, in milliseconds.
+     */
+    public double getMaxDecodeTime()
+    {
+        return this.maxDecodeNanos.get() / 1e6;
+    }
+
+    /**
+     * Returns the average time a request waited in the decode queue before a decoding thread started it.
+     *
+     * @return the average decode queue wait, in milliseconds.
+     */
+    public double getAverageDecodeWaitTime()
+    {
+        return average(this.decodeWaitNanos.get(), this.decodedCount.get() + this.failedCount.get());
+    }
+
+    /**
+     * Returns the average time spent creating a texture on the rendering thread.
+     *
+     * @return the average upload time, in milliseconds.
+     */
+    public double getAverageUploadTime()
+    {
+        return average(this.uploadNanos.get(), this.uploadedCount.get());
+    }
+
+    /** Sets the read, decode and upload counts and times to zero. */
+    public void resetStatistics()
+    {
+        this.readCount.set(0);
+        this.readNanos.set(0);
+        this.decodedCount.set(0);
+        this.failedCount.set(0);
+        this.decodeNanos.set(0);
+        this.maxDecodeNanos.set(0);
+        this.decodeWaitNanos.set(0);
+        this.uploadedCount.set(0);
+        this.uploadFailedCount.set(0);
+        this.uploadNanos.set(0);
+        this.reusedBufferCount.set(0);
+    }
+
+    protected static double average(long nanos, long count)
+    {
+        return count > 0 ? nanos / 1e6 / count : 0;
+    }
+
+    /**
+     * Stops the pipeline's decoding threads. Queued decode requests and textures waiting to be uploaded are
+     * discarded.
+     */
+    public void shutdown()
+    {
+        this.executor.shutdownNow();
+        this.uploadQueue.clear();
+        this.pendingTiles.clear();
+        this.bufferPool.clear();
+        this.pooledBytes.set(0);
+    }
+
+    /**
+     * Reads an encoded image file into memory. This is the pipeline's first stage, performed on the caller's thread.
+     *
+     * @param url the location of the file.
+     *
+     * @return the file's contents.
+     *
+     * @throws IOException              if the file cannot be read.
+     * @throws IllegalArgumentException if the URL is null.
+     */
+    public ByteBuffer readEncodedTexture(URL url) throws IOException
+    {
+        if (url == null)
+        {
+            String message = Logging.getMessage("nullValue.URLIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        long start = System.nanoTime();
+        ByteBuffer buffer = WWIO.readURLContentToBuffer(url);
+        this.readNanos.addAndGet(System.nanoTime() - start);
+        this.readCount.incrementAndGet();
+
+        return buffer;
+    }
+
+    /**
+     * Queues a request for decoding. The request's tile is pending until its texture is uploaded or decoding fails.
+     *
+     * @param request the request.
+     *
+     * @return true if the request was queued, false if the request's tile is already pending or the pipeline has been
+     * shut down.
+     *
+     * @throws IllegalArgumentException if the request is null.
+     */
+    public boolean submit(Request request)
+    {
+        if (request == null)
+        {
+            String message = Logging.getMessage("nullValue.RequestTaskIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (this.executor.isShutdown() || !this.pendingTiles.add(request.tile))
+            return false;
+
+        request.pipeline = this;
+        request.submitTime = System.nanoTime();
+        try
+        {
+            this.executor.execute(request);
+            return true;
+        }
+        catch (RejectedExecutionException e)
+        {
+            this.pendingTiles.remove(request.tile);
+            return false;
+        }
+    }
+
+    /**
+     * Creates textures from the upload queue, highest priority tiles first, until the queue is empty or the frame's
+     * upload budget is spent. Each layer using the pipeline calls this before it draws, and all such calls in a frame
+     * share the frame's budget. Called on the rendering thread.
+     *
+     * @param dc the current draw context.
+     *
+     * @return the number of textures created.
+     *
+     * @throws IllegalArgumentException if the draw context is null.
+     */
+    public int uploadTextures(DrawContext dc)
+    {
+        if (dc == null)
+        {
+            String message = Logging.getMessage("nullValue.DrawContextIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        boolean firstInFrame = dc.getFrameTimeStamp() != this.uploadFrame;
+        if (firstInFrame)
+        {
+            this.uploadFrame = dc.getFrameTimeStamp();
+            this.uploadedInFrame = 0;
+            this.uploadNanosInFrame = 0;
+        }
+
+        int count = 0;
+        long timeBudget = TimeUnit.MILLISECONDS.toNanos(this.uploadTimeBudget);
+        while (this.uploadedInFrame < this.uploadBudget
+            && (this.uploadedInFrame == 0 || this.uploadNanosInFrame < timeBudget))
+        {
+            Request request = this.uploadQueue.poll();
+            if (request == null)
+                break;
+
+            long start = System.nanoTime();
+            boolean uploaded = this.uploadTexture(dc, request);
+            long elapsed = System.nanoTime() - start;
+
+            this.pendingTiles.remove(request.tile);
+            this.uploadedInFrame++;
+            this.uploadNanosInFrame += elapsed;
+            if (uploaded)
+            {
+                count++;
+                this.uploadNanos.addAndGet(elapsed);
+                this.uploadedCount.incrementAndGet();
+                request.listener.textureUploaded(dc, request);
+            }
+            else
+            {
+                this.uploadFailedCount.incrementAndGet();
+                request.listener.textureUploadFailed(dc, request);
+            }
+        }
+
+        if (firstInFrame)
+        {
+            dc.setPerFrameStatistic(PerformanceStatistic.TEXTURE_DECODE_QUEUE, "Texture Decode Queue",
+                this.getDecodeQueueLength());
+            dc.setPerFrameStatistic(PerformanceStatistic.TEXTURE_UPLOAD_QUEUE, "Texture Upload Queue",
+                this.getUploadQueueLength());
+            dc.setPerFrameStatistic(PerformanceStatistic.TEXTURE_DECODE_TIME, "Texture Decode Time (ms)",
+                this.getAverageDecodeTime());
+        }
+
+        return count;
+    }
+
+    /**
+     * Creates a texture from a request's decoded texture data and installs it in the request's tile. The texture
+     * data's buffer is returned to the buffer pool whether or not the texture is created.
+     *
+     * @param dc      the current draw context.
+     * @param request the decoded request.
+     *
+     * @return true if the texture was created, otherwise false.
+     */
+    protected boolean uploadTexture(DrawContext dc, Request request)
+    {
+        request.tile.setTextureData(request.textureData);
+        boolean created = request.tile.initializeTexture(dc) != null;
+
+        // The tile must not retain texture data whose buffer has been returned to the pool.
+        if (!created)
+            request.tile.setTextureData(null);
+
+        request.textureData.flush();
+        request.textureData = null;
+        return created;
+    }
+
+    /**
+     * Called on a decoding thread to decode a request's texture and queue it for upload.
+     *
+     * @param request the request to decode.
+     */
+    protected void decode(Request request)
+    {
+        long start = System.nanoTime();
+        this.decodeWaitNanos.addAndGet(start - request.submitTime);
+
+        try
+        {
+            request.textureData = this.decodeTexture(request.encodedData, request.textureFormat,
+                request.useMipMaps);
+            if (request.textureData == null)
+            {
+                String message = Logging.getMessage("layers.TextureLayer.ExceptionAttemptingToReadTextureFile",
+                    request.url);
+                Logging.logger().severe(message);
+            }
+        }
+        catch (Throwable t)
+        {
+            String message = Logging.getMessage("layers.TextureLayer.ExceptionAttemptingToReadTextureFile",
+                request.url);
+            Logging.logger().log(Level.SEVERE, message, t);
+            request.textureData = null;
+        }
+        finally
+        {
+            request.encodedData = null;
+            long elapsed = System.nanoTime() - start;
+            this.decodeNanos.addAndGet(elapsed);
+            for (long max = this.maxDecodeNanos.get(); elapsed > max; max = this.maxDecodeNanos.get())
+            {
+                if (this.maxDecodeNanos.compareAndSet(max, elapsed))
+                    break;
+            }
+        }
+
+        if (request.textureData != null)
+        {
+            this.decodedCount.incrementAndGet();
+            this.uploadQueue.add(request);
+            request.listener.textureDecoded(request);
+        }
+        else
+        {
+            this.failedCount.incrementAndGet();
+            this.pendingTiles.remove(request.tile);
+            request.listener.textureDecodeFailed(request);
+        }
+    }
+
+    /**
+     * Decodes an encoded image into texture data. DDS images are read without conversion. If the texture format is
+     * <code>image/dds</code>, other images are compressed to DDS. Otherwise they are decoded with ImageIO into RGB or
+     * premultiplied RGBA bytes held in a buffer from the buffer pool. The buffer returns to the pool when the texture
+     * data is flushed. Does no OpenGL work.
+     *
+     * @param encodedData   the encoded image.
+     * @param textureFormat the texture format to produce, or null to use the image's own format.
+     * @param useMipMaps    true to use the image's mip-maps or have them generated when the texture is created.
+     *
+     * @return the texture data, or null if the image is in a format ImageIO does not recognize.
+     *
+     * @throws IOException              if the image cannot be decoded.
+     * @throws IllegalArgumentException if the encoded data is null.
+     */
+    public TextureData decodeTexture(ByteBuffer encodedData, String textureFormat, boolean useMipMaps)
+        throws IOException
+    {
+        if (encodedData == null)
+        {
+            String message = Logging.getMessage("nullValue.BufferIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        boolean ddsFormat = isDDS(encodedData);
+        if (!ddsFormat && "image/dds".equalsIgnoreCase(textureFormat))
+        {
+            DXTCompressionAttributes attributes = DDSCompressor.getDefaultCompressionAttributes();
+            attributes.setBuildMipmaps(useMipMaps);
+            ByteBuffer ddsData = DDSCompressor.compressImageBuffer(encodedData, attributes);
+            if (ddsData != null)
+            {
+                encodedData = ddsData;
+                ddsFormat = true;
+            }
+        }
+
+        if (ddsFormat)
+        {
+            return TextureIO.newTextureData(null, WWIO.getInputStreamFromByteBuffer(encodedData), useMipMaps,
+                TextureIO.DDS);
+        }
+
+        BufferedImage image = ImageIO.read(WWIO.getInputStreamFromByteBuffer(encodedData));
+        if (image == null)
+            return null;
+
+        return this.createTextureData(image, useMipMaps);
+    }
+
+    protected static boolean isDDS(ByteBuffer buffer)
+    {
+        if (buffer.remaining() < DDS_MAGIC.length)
+            return false;
+
+        for (int i = 0; i < DDS_MAGIC.length; i++)
+        {
+            if (buffer.get(buffer.position() + i) != DDS_MAGIC[i])
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Creates texture data holding an image's pixels in a pooled direct buffer. Images with alpha become premultiplied
+     * RGBA bytes, matching the textures JOGL creates from images; opaque images become RGB bytes. Rows are stored top
+     * to bottom, so the texture data must be flipped vertically.
+     *
+     * @param image      the image.
+     * @param useMipMaps true to have mip-maps generated when the texture is created.
+     *
+     * @return the texture data.
+     */
+    protected TextureData createTextureData(BufferedImage image, boolean useMipMaps)
+    {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        boolean hasAlpha = image.getColorModel().hasAlpha();
+        int format = hasAlpha ? GL.GL_RGBA : GL.GL_RGB;
+
+        final ByteBuffer buffer = this.acquireBuffer(width * height * (hasAlpha ? 4 : 3));
+        writePixels(image, hasAlpha, buffer);
+        buffer.flip();
+
+        TextureData.Flusher flusher = new TextureData.Flusher()
+        {
+            protected final AtomicBoolean flushed = new AtomicBoolean();
+
+            public void flush()
+            {
+                if (this.flushed.compareAndSet(false, true))
+                    releaseBuffer(buffer);
+            }
+        };
+
+        return new TextureData(null, format, width, height, 0, format, GL.GL_UNSIGNED_BYTE, useMipMaps, false, true,
+            buffer, flusher);
+    }
+
+    /**
+     * Writes an image's pixels to a buffer as RGB bytes, or as premultiplied RGBA bytes if the image has alpha. The
+     * interleaved byte layouts ImageIO produces for JPEG and PNG images are read directly from the image's raster;
+     * other images are read a row at a time through {@link BufferedImage#getRGB(int, int, int, int, int[], int, int)}.
+     *
+     * @param image    the image.
+     * @param hasAlpha true if the image has alpha.
+     * @param buffer   the buffer to write to, beginning at its position.
+     */
+    protected static void writePixels(BufferedImage image, boolean hasAlpha, ByteBuffer buffer)
+    {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        WritableRaster raster = image.getRaster();
+        ColorModel cm = image.getColorModel();
+
+        if (raster.getDataBuffer() instanceof DataBufferByte && raster.getParent() == null
+            && raster.getSampleModel() instanceof PixelInterleavedSampleModel && cm instanceof ComponentColorModel
+            && raster.getNumBands() == cm.getNumComponents()
+            && (cm.getColorSpace().isCS_sRGB() || cm.getColorSpace().getType() == ColorSpace.TYPE_GRAY))
+        {
+            PixelInterleavedSampleModel sm = (PixelInterleavedSampleModel) raster.getSampleModel();
+            byte[] data = ((DataBufferByte) raster.getDataBuffer()).getData();
+            int[] offsets = sm.getBandOffsets();
+            int base = raster.getDataBuffer().getOffset();
+            int pixelStride = sm.getPixelStride();
+            int scanlineStride = sm.getScanlineStride();
+            boolean gray = cm.getNumColorComponents() == 1;
+            boolean premultiply = hasAlpha && !cm.isAlphaPremultiplied();
+            int r = offsets[0];
+            int g = gray ? offsets[0] : offsets[1];
+            int b = gray ? offsets[0] : offsets[2];
+            int a = hasAlpha ? offsets[offsets.length - 1] : 0;
+
+            for (int y = 0; y < height; y++)
+            {
+                for (int i = base + y * scanlineStride, x = 0; x < width; x++, i += pixelStride)
+                {
+                    int alpha = hasAlpha ? data[i + a] & 0xFF : 0xFF;
+                    buffer.put(premultiply ? multiply(data[i + r] & 0xFF, alpha) : data[i + r]);
+                    buffer.put(premultiply ? multiply(data[i + g] & 0xFF, alpha) : data[i + g]);
+                    buffer.put(premultiply ? multiply(data[i + b] & 0xFF, alpha) : data[i + b]);
+                    if (hasAlpha)
+                        buffer.put((byte) alpha);
+                }
+            }
+        }
+        else
+        {
+            int[] row = new int[width];
+            for (int y = 0; y < height; y++)
+            {
+                image.getRGB(0, y, width, 1, row, 0, width);
+                for (int x = 0; x < width; x++)
+                {
+                    int argb = row[x];
+                    int alpha = hasAlpha ? argb >>> 24 : 0xFF;
+                    buffer.put(multiply((argb >> 16) & 0xFF, alpha));
+                    buffer.put(multiply((argb >> 8) & 0xFF, alpha));
+                    buffer.put(multiply(argb & 0xFF, alpha));
+                    if (hasAlpha)
+                        buffer.put((byte) alpha);
+                }
+            }
+        }
+    }
+
+    protected static byte multiply(int component, int alpha)
+    {
+        return (byte) (alpha == 0xFF ? component : (component * alpha + 127) / 255);
+    }
+
+    /**
+     * Returns a direct buffer with a specified capacity, taken from the buffer pool if the pool holds one.
+     *
+     * @param capacity the buffer capacity, in bytes.
+     *
+     * @return a cleared buffer with the specified capacity.
+     */
+    protected ByteBuffer acquireBuffer(int capacity)
+    {
+        Queue<ByteBuffer> queue = this.bufferPool.get(capacity);
+        ByteBuffer buffer = queue != null ? queue.poll() : null;
+        if (buffer == null)
+            return ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+
+        this.pooledBytes.addAndGet(-capacity);
+        this.reusedBufferCount.incrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer to the buffer pool, unless the pool is full.
+     *
+     * @param buffer the buffer to return.
+     */
+    protected void releaseBuffer(ByteBuffer buffer)
+    {
+        int capacity = buffer.capacity();
+        if (this.pooledBytes.addAndGet(capacity) > this.maxPooledBytes)
+        {
+            this.pooledBytes.addAndGet(-capacity);
+            return;
+        }
+
+        Queue<ByteBuffer> queue = this.bufferPool.get(capacity);
+        if (queue == null)
+        {
+            Queue<ByteBuffer> newQueue = new ConcurrentLinkedQueue<ByteBuffer>();
+            queue = this.bufferPool.putIfAbsent(capacity, newQueue);
+            if (queue == null)
+                queue = newQueue;
+        }
+
+        queue.add(buffer);
+    }
+
+    /**
+     * A request to load a tile's texture from its encoded image. Requests are ordered by tile priority, lowest first,
+     * in both the decode and upload queues.
+     */
+    public static class Request implements Runnable, Comparable<Request>
+    {
+        protected final TextureTile tile;
+        protected final URL url;
+        protected final String textureFormat;
+        protected final boolean useMipMaps;
+        protected final Listener listener;
+        protected TextureDecodePipeline pipeline;
+        protected ByteBuffer encodedData;
+        protected TextureData textureData;
+        protected long submitTime;
+
+        /**
+         * Creates a request.
+         *
+         * @param tile          the tile whose texture to load.
+         * @param url           the location the encoded image was read from. Used to identify the image in messages.
+         * @param encodedData   the encoded image.
+         * @param textureFormat the texture format to produce, or null to use the image's own format. See {@link
+         *                      TextureDecodePipeline#decodeTexture(java.nio.ByteBuffer, String, boolean)}.
+         * @param useMipMaps    true to use or generate mip-maps.
+         * @param listener      the listener to notify of the request's progress.
+         *
+         * @throws IllegalArgumentException if the tile, encoded data or listener is null.
+         */
+        public Request(TextureTile tile, URL url, ByteBuffer encodedData, String textureFormat, boolean useMipMaps,
+            Listener listener)
+        {
+            if (tile == null)
+            {
+                String message = Logging.getMessage("nullValue.TileIsNull");
+                Logging.logger().severe(message);
+                throw new IllegalArgumentException(message);
+            }
+
+            if (encodedData == null)
+            {
+                String message = Logging.getMessage("nullValue.BufferIsNull");
+                Logging.logger().severe(message);
+                throw new IllegalArgumentException(message);
+            }
+
+            if (listener == null)
+            {
+                String message = Logging.getMessage("nullValue.ListenerIsNull");
+                Logging.logger().severe(message);
+                throw new IllegalArgumentException(message);
+            }
+
+            this.tile = tile;
+            this.url = url;
+            this.encodedData = encodedData;
+            this.textureFormat = textureFormat;
+            this.useMipMaps = useMipMaps;
+            this.listener = listener;
+        }
+
+        public TextureTile getTile()
+        {
+            return this.tile;
+        }
+
+        public URL getURL()
+        {
+            return this.url;
+        }
+
+        /**
+         * Returns the decoded texture data. Null until the request has been decoded, and after its texture has been
+         * uploaded.
+         *
+         * @return the decoded texture data, or null.
+         */
+        public TextureData getTextureData()
+        {
+            return this.textureData;
+        }
+
+        public void run()
+        {
+            if (Thread.currentThread().isInterrupted())
+            {
+                this.pipeline.pendingTiles.remove(this.tile);
+                return;
+            }
+
+            this.pipeline.decode(this);
+        }
+
+        public int compareTo(Request that)
+        {
+            return Double.compare(this.tile.getPriority(), that.tile.getPriority());
+        }
+
+        public String toString()
+        {
+            return this.tile.toString();
+        }
+    }
+}
@@ -0,0 +1,1443 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.layers.mercator;
+
+import com.jogamp.common.nio.Buffers;
+import com.jogamp.opengl.*;
+import gov.nasa.worldwind.*;
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.cache.*;
+import gov.nasa.worldwind.formats.mvt.MVTTile;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.layers.AbstractLayer;
+import gov.nasa.worldwind.render.*;
+import gov.nasa.worldwind.retrieve.*;
+import gov.nasa.worldwind.util.*;
+
+import java.awt.*;
+import java.io.*;
+import java.net.*;
+import java.nio.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.PriorityBlockingQueue;
+
+/**
+ * Displays Mapbox Vector Tiles (MVT) organized in a Web Mercator tile pyramid. The layer's {@link LevelSet} defines the
+ * pyramid exactly as it does for {@link BasicMercatorTiledImageLayer}: the level set's sector is a {@link
+ * MercatorSector}, its tile URL builder maps tiles to the service's tile URLs and its cache name and format suffix
+ * locate the tiles in the data file store.
+ * <p>
+ * Tiles are loaded on the {@link WorldWind#getTaskService() task service}, so several tiles are decoded and tessellated
+ * concurrently and none of that work occurs on the rendering thread. Each task decodes one tile with {@link MVTTile},
+ * tessellates its polygons with {@link PolygonTessellator2}, and packs the tile's vertices and indices into buffers
+ * ready for drawing. The tessellated geometry is kept in a memory cache shared by all MVT layers, and is also written
+ * to the file store beside the source tile so that later sessions load it without decoding or tessellating the tile
+ * again. The disk cache entry is ignored when the source tile is newer or the level's expiry time has passed.
+ * <p>
+ * Tiles are retrieved from the network like other tiled layers and saved to the file store. Tile URL builders that
+ * produce <code>file:</code> URLs read tiles directly from a local tile directory, such as one exported from an MBTiles
+ * file, without copying them into the file store.
+ * <p>
+ * Features are drawn as surface shapes, grouped by the name of the MVT layer containing them. Each group is drawn with
+ * the attributes assigned to its name by {@link #setLayerAttributes(String, ShapeAttributes)}, or the layer's default
+ * attributes if none are assigned. Polygons are drawn using the interior and outline attributes, lines using the
+ * outline attributes and points as point sprites in the outline color, with a size equal to the outline width. This
+ * layer does not support picking.
+ *
+ * @version $Id$
+ */
+public class MVTTiledLayer extends AbstractLayer
+{
+    /** The suffix of tessellation cache files in the file store. */
+    public static final String TESSELLATION_CACHE_SUFFIX = ".tess";
+
+    protected static final int TESSELLATION_CACHE_MAGIC = 0x4d565454; // "MVTT"
+    protected static final int TESSELLATION_CACHE_VERSION = 1;
+
+    /** A tile in the layer's Mercator tile pyramid, drawn into the scene's surface tiles. */
+    protected static class MVTSurfaceTile extends Tile implements OrderedRenderable, SurfaceRenderable
+    {
+        protected final MVTTiledLayer layer;
+        protected final MercatorSector mercatorSector;
+        protected MVTTileGeometry geometry;
+        protected final Object nullGeometryStateKey = new Object();
+
+        public MVTSurfaceTile(MVTTiledLayer layer, MercatorSector sector, Level level, int row, int column)
+        {
+            super(sector, level, row, column);
+            this.layer = layer;
+            this.mercatorSector = sector;
+        }
+
+        public MercatorSector getMercatorSector()
+        {
+            return this.mercatorSector;
+        }
+
+        public MVTTileGeometry getGeometry()
+        {
+            return this.geometry;
+        }
+
+        public void setGeometry(MVTTileGeometry geometry)
+        {
+            this.geometry = geometry;
+        }
+
+        public MVTSurfaceTile[] createSubTiles(Level nextLevel)
+        {
+            double d0 = this.mercatorSector.getMinLatPercent();
+            double d2 = this.mercatorSector.getMaxLatPercent();
+            double d1 = d0 + (d2 - d0) / 2.0;
+
+            Angle t0 = this.getSector().getMinLongitude();
+            Angle t2 = this.getSector().getMaxLongitude();
+            Angle t1 = Angle.midAngle(t0, t2);
+
+            int row = this.getRow();
+            int col = this.getColumn();
+
+            MVTSurfaceTile[] subTiles = new MVTSurfaceTile[4];
+            subTiles[0] = new MVTSurfaceTile(this.layer, new MercatorSector(d0, d1, t0, t1), nextLevel, 2 * row,
+                2 * col);
+            subTiles[1] = new MVTSurfaceTile(this.layer, new MercatorSector(d0, d1, t1, t2), nextLevel, 2 * row,
+                2 * col + 1);
+            subTiles[2] = new MVTSurfaceTile(this.layer, new MercatorSector(d1, d2, t0, t1), nextLevel, 2 * row + 1,
+                2 * col);
+            subTiles[3] = new MVTSurfaceTile(this.layer, new MercatorSector(d1, d2, t1, t2), nextLevel, 2 * row + 1,
+                2 * col + 1);
+
+            return subTiles;
+        }
+
+        @Override
+        public double getDistanceFromEye()
+        {
+            return 0; // ordered surface renderables don't use eye distance
+        }
+
+        @Override
+        public List<Sector> getSectors(DrawContext dc)
+        {
+            return Arrays.asList(this.getSector());
+        }
+
+        @Override
+        public void pick(DrawContext dc, Point pickPoint)
+        {
+        }
+
+        @Override
+        public Object getStateKey(DrawContext dc)
+        {
+            return this.geometry != null ? this.layer.createStateKey(this.geometry) : this.nullGeometryStateKey;
+        }
+
+        @Override
+        public void render(DrawContext dc)
+        {
+            this.layer.render(dc, this);
+        }
+    }
+
+    /** The features of one MVT layer within a tile's geometry, and their ranges in the geometry's index buffer. */
+    protected static class FeatureGroup
+    {
+        protected final String name;
+        protected Range interiorIndexRange = new Range(0, 0);
+        protected Range outlineIndexRange = new Range(0, 0);
+        protected Range pointIndexRange = new Range(0, 0);
+
+        public FeatureGroup(String name)
+        {
+            this.name = name;
+        }
+    }
+
+    /**
+     * The tessellated features of one tile. Vertices are geographic coordinates in degrees, longitude first, relative
+     * to the vertex offset. Every feature group's triangle, line and point indices are packed into a single index
+     * buffer.
+     */
+    protected static class MVTTileGeometry implements Cacheable
+    {
+        protected final Sector sector;
+        protected FloatBuffer vertices;
+        protected int vertexCount;
+        protected Vec4 vertexOffset;
+        protected IntBuffer indices;
+        protected List<FeatureGroup> featureGroups = new ArrayList<FeatureGroup>();
+
+        public MVTTileGeometry(Sector sector)
+        {
+            this.sector = sector;
+        }
+
+        @Override
+        public long getSizeInBytes()
+        {
+            return 128 + 64 * this.featureGroups.size() + this.sector.getSizeInBytes()
+                + (this.vertices != null ? 4 * this.vertices.capacity() : 0)
+                + (this.indices != null ? 4 * this.indices.capacity() : 0);
+        }
+    }
+
+    protected static class MVTTileGeometryStateKey
+    {
+        protected final MVTTileGeometry geometry;
+        protected final ShapeAttributes[] attributes;
+
+        public MVTTileGeometryStateKey(MVTTileGeometry geometry, ShapeAttributes[] attributes)
+        {
+            this.geometry = geometry;
+            this.attributes = attributes;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+                return true;
+            if (o == null || this.getClass() != o.getClass())
+                return false;
+
+            MVTTileGeometryStateKey that = (MVTTileGeometryStateKey) o;
+            return this.geometry == that.geometry && Arrays.equals(this.attributes, that.attributes);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 31 * System.identityHashCode(this.geometry) + Arrays.hashCode(this.attributes);
+        }
+    }
+
+    /**
+     * A polygon tessellator that also accepts the vertices of lines and points, so that every feature in a tile shares
+     * one vertex buffer.
+     */
+    protected static class MVTTessellator extends PolygonTessellator2
+    {
+        protected final double[] lineCoords = new double[3];
+
+        public int addLineVertex(double x, double y)
+        {
+            this.lineCoords[0] = x;
+            this.lineCoords[1] = y;
+            return this.putVertex(this.lineCoords, 0);
+        }
+    }
+
+    /** Loads one tile's geometry on the task service. */
+    protected static class LoadTask implements Runnable, Comparable<LoadTask>
+    {
+        protected final MVTTiledLayer layer;
+        protected final MVTSurfaceTile tile;
+
+        public LoadTask(MVTTiledLayer layer, MVTSurfaceTile tile)
+        {
+            this.layer = layer;
+            this.tile = tile;
+        }
+
+        @Override
+        public void run()
+        {
+            if (Thread.currentThread().isInterrupted())
+                return; // the task was cancelled because it's a duplicate or for some other reason
+
+            this.layer.loadTile(this.tile);
+        }
+
+        @Override
+        public int compareTo(LoadTask that)
+        {
+            return Double.compare(this.tile.getPriority(), that.tile.getPriority());
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+                return true;
+            if (o == null || this.getClass() != o.getClass())
+                return false;
+
+            // Don't include the layer in the comparison so that requests are shared among layers.
+            return this.tile.equals(((LoadTask) o).tile);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return this.tile.hashCode();
+        }
+
+        @Override
+        public String toString()
+        {
+            return this.tile.toString();
+        }
+    }
+
+    static
+    {
+        if (!WorldWind.getMemoryCacheSet().containsCache(MVTTileGeometry.class.getName()))
+        {
+            long size = Configuration.getLongValue(AVKey.MVT_GEOMETRY_CACHE_SIZE, (long) 50e6); // default 50MB
+            MemoryCache cache = new BasicMemoryCache((long) (0.8 * size), size);
+            cache.setName("MVT Geometry");
+            WorldWind.getMemoryCacheSet().addCache(MVTTileGeometry.class.getName(), cache);
+        }
+    }
+
+    protected static final ThreadLocal<MVTTessellator> tessellators = new ThreadLocal<MVTTessellator>()
+    {
+        @Override
+        protected MVTTessellator initialValue()
+        {
+            MVTTessellator tess = new MVTTessellator();
+            tess.setPolygonNormal(0, 0, 1); // tessellate in geographic coordinates
+            tess.setVertexStride(2);
+            return tess;
+        }
+    };
+
+    protected final LevelSet levels;
+    protected final Object fileLock = new Object();
+    protected MemoryCache cache = WorldWind.getMemoryCache(MVTTileGeometry.class.getName());
+    protected ShapeAttributes attributes = new BasicShapeAttributes();
+    protected Map<String, ShapeAttributes> layerAttributes = new HashMap<String, ShapeAttributes>();
+    protected boolean diskCacheEnabled = true;
+    protected double detailHintOrigin = 2.8;
+    protected double detailHint = 0;
+    // Properties supporting tile assembly and loading.
+    protected ArrayList<MVTSurfaceTile> topLevelTiles;
+    protected ArrayList<MVTSurfaceTile> currentTiles = new ArrayList<MVTSurfaceTile>();
+    protected MVTSurfaceTile currentAncestorTile;
+    protected PriorityBlockingQueue<Runnable> requestQueue = new PriorityBlockingQueue<Runnable>(200);
+    // Properties supporting rendering.
+    protected double[] matrixArray = new double[16];
+    protected double[] clipPlaneArray = new double[16];
+
+    /**
+     * Creates a layer for the vector tiles described by a level set.
+     *
+     * @param levelSet the tile pyramid. Its sector must be a {@link MercatorSector}.
+     *
+     * @throws IllegalArgumentException if the level set is null.
+     */
+    public MVTTiledLayer(LevelSet levelSet)
+    {
+        if (levelSet == null)
+        {
+            String message = Logging.getMessage("nullValue.LevelSetIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.levels = new LevelSet(levelSet); // the caller's levelSet may change internally, so we copy it.
+        this.setPickEnabled(false);
+    }
+
+    /**
+     * Creates a layer for the vector tiles described by level set parameters. See {@link LevelSet#LevelSet(AVList)}.
+     *
+     * @param params the level set parameters.
+     */
+    public MVTTiledLayer(AVList params)
+    {
+        this(new LevelSet(params));
+        this.setValue(AVKey.CONSTRUCTION_PARAMETERS, params);
+    }
+
+    public LevelSet getLevels()
+    {
+        return this.levels;
+    }
+
+    /**
+     * Returns the attributes used to draw features in MVT layers that have no attributes of their own.
+     *
+     * @return the default attributes.
+     */
+    public ShapeAttributes getAttributes()
+    {
+        return this.attributes;
+    }
+
+    /**
+     * Specifies the attributes used to draw features in MVT layers that have no attributes of their own.
+     *
+     * @param attributes the default attributes.
+     *
+     * @throws IllegalArgumentException if the attributes are null.
+     */
+    public void setAttributes(ShapeAttributes attributes)
+    {
+        if (attributes == null)
+        {
+            String message = Logging.getMessage("nullValue.AttributesIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.attributes = attributes;
+    }
+
+    /**
+     * Returns the attributes assigned to a named MVT layer.
+     *
+     * @param name the MVT layer name.
+     *
+     * @return the layer's attributes, or null if the layer uses the default attributes.
+     */
+    public ShapeAttributes getLayerAttributes(String name)
+    {
+        return this.layerAttributes.get(name);
+    }
+
+    /**
+     * Assigns attributes to the features of a named MVT layer. A layer can be hidden by assigning attributes that draw
+     * neither the interior nor the outline.
+     *
+     * @param name       the MVT layer name.
+     * @param attributes the layer's attributes. May be null to draw the layer with the default attributes.
+     *
+     * @throws IllegalArgumentException if the name is null.
+     */
+    public void setLayerAttributes(String name, ShapeAttributes attributes)
+    {
+        if (name == null)
+        {
+            String message = Logging.getMessage("nullValue.NameIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (attributes != null)
+            this.layerAttributes.put(name, attributes);
+        else
+            this.layerAttributes.remove(name);
+    }
+
+    /**
+     * Indicates whether tessellated tiles are written to and read from the data file store.
+     *
+     * @return true if the tessellation disk cache is enabled, otherwise false.
+     */
+    public boolean isDiskCacheEnabled()
+    {
+        return this.diskCacheEnabled;
+    }
+
+    public void setDiskCacheEnabled(boolean diskCacheEnabled)
+    {
+        this.diskCacheEnabled = diskCacheEnabled;
+    }
+
+    /**
+     * Indicates the layer's detail hint, which is described in {@link #setDetailHint(double)}.
+     *
+     * @return the detail hint.
+     */
+    public double getDetailHint()
+    {
+        return this.detailHint;
+    }
+
+    /**
+     * Modifies the default relationship of tile resolution to screen resolution as the viewing altitude changes, in
+     * the same manner as {@link gov.nasa.worldwind.layers.TiledImageLayer#setDetailHint(double)}. Values greater than 0
+     * select tiles from finer levels than the default, values less than 0 from coarser levels.
+     *
+     * @param detailHint the degree to modify the default relationship of tile resolution to screen resolution.
+     */
+    public void setDetailHint(double detailHint)
+    {
+        this.detailHint = detailHint;
+    }
+
+    protected double getDetailFactor()
+    {
+        return this.detailHintOrigin + this.getDetailHint();
+    }
+
+    @Override
+    public boolean isMultiResolution()
+    {
+        return this.levels.getNumLevels() > 1;
+    }
+
+    @Override
+    public boolean isLayerInView(DrawContext dc)
+    {
+        return dc.getVisibleSector() == null || this.levels.getSector().intersects(dc.getVisibleSector());
+    }
+
+    @Override
+    protected void doPreRender(DrawContext dc)
+    {
+        if (!this.isLayerInView(dc))
+            return;
+
+        // Assemble the tiles used for rendering, then add those tiles to the scene controller's list of renderables to
+        // draw into the scene's shared surface tiles.
+        this.assembleTiles(dc);
+        for (MVTSurfaceTile tile : this.currentTiles)
+        {
+            dc.addOrderedSurfaceRenderable(tile);
+        }
+
+        this.sendRequests();
+    }
+
+    @Override
+    protected void doRender(DrawContext dc)
+    {
+        // Tiles are drawn into the scene's surface tiles during pre-rendering.
+    }
+
+    // ============== Tile Assembly ======================= //
+
+    protected void assembleTiles(DrawContext dc)
+    {
+        this.currentTiles.clear();
+
+        if (this.topLevelTiles == null)
+            this.topLevelTiles = this.createTopLevelTiles();
+
+        for (MVTSurfaceTile tile : this.topLevelTiles)
+        {
+            this.currentAncestorTile = null;
+
+            if (this.isTileVisible(dc, tile))
+                this.addTileOrDescendants(dc, tile);
+        }
+    }
+
+    protected ArrayList<MVTSurfaceTile> createTopLevelTiles()
+    {
+        MercatorSector sector = (MercatorSector) this.levels.getSector();
+
+        Level level = this.levels.getFirstLevel();
+        Angle dLat = level.getTileDelta().getLatitude();
+        Angle dLon = level.getTileDelta().getLongitude();
+        Angle latOrigin = this.levels.getTileOrigin().getLatitude();
+        Angle lonOrigin = this.levels.getTileOrigin().getLongitude();
+
+        // Determine the row and column offset from the common WorldWind global tiling origin.
+        int firstRow = Tile.computeRow(dLat, sector.getMinLatitude(), latOrigin);
+        int firstCol = Tile.computeColumn(dLon, sector.getMinLongitude(), lonOrigin);
+        int lastRow = Tile.computeRow(dLat, sector.getMaxLatitude(), latOrigin);
+        int lastCol = Tile.computeColumn(dLon, sector.getMaxLongitude(), lonOrigin);
+
+        ArrayList<MVTSurfaceTile> tiles = new ArrayList<MVTSurfaceTile>(
+            (lastRow - firstRow + 1) * (lastCol - firstCol + 1));
+
+        // Mercator tile rows are evenly spaced in Mercator latitude percent, which spans 2 over 180 degrees.
+        double deltaLat = dLat.degrees / 90;
+        double d1 = -1.0 + deltaLat * firstRow;
+        for (int row = firstRow; row <= lastRow; row++)
+        {
+            double d2 = d1 + deltaLat;
+            Angle t1 = Tile.computeColumnLongitude(firstCol, dLon, lonOrigin);
+            for (int col = firstCol; col <= lastCol; col++)
+            {
+                Angle t2 = t1.add(dLon);
+                tiles.add(new MVTSurfaceTile(this, new MercatorSector(d1, d2, t1, t2), level, row, col));
+                t1 = t2;
+            }
+            d1 = d2;
+        }
+
+        return tiles;
+    }
+
+    protected boolean isTileVisible(DrawContext dc, MVTSurfaceTile tile)
+    {
+        Extent extent = Sector.computeBoundingBox(dc.getGlobe(), dc.getVerticalExaggeration(), tile.getSector());
+
+        return dc.getView().getFrustumInModelCoordinates().intersects(extent)
+            && (dc.getVisibleSector() == null || dc.getVisibleSector().intersects(tile.getSector()));
+    }
+
+    protected void addTileOrDescendants(DrawContext dc, MVTSurfaceTile tile)
+    {
+        tile.setGeometry(this.lookupGeometry(tile)); // may be null
+
+        if (this.meetsRenderCriteria(dc, tile))
+        {
+            this.addTile(dc, tile);
+            return;
+        }
+
+        // The tile does not meet the rendering criteria, so subdivide it. Tiles whose geometry is in memory become the
+        // ancestor whose geometry is drawn in place of descendants that aren't loaded yet. Tiles whose geometry is not
+        // in memory are requested before descending, which causes the layer's resolution to increase progressively.
+        MVTSurfaceTile previousAncestorTile = null;
+        try
+        {
+            if (tile.getGeometry() != null)
+            {
+                previousAncestorTile = this.currentAncestorTile;
+                this.currentAncestorTile = tile;
+            }
+            else
+            {
+                this.requestTile(dc, tile);
+            }
+
+            Level nextLevel = this.levels.getLevel(tile.getLevelNumber() + 1);
+            for (MVTSurfaceTile child : tile.createSubTiles(nextLevel))
+            {
+                if (this.levels.getSector().intersects(child.getSector()) && this.isTileVisible(dc, child))
+                    this.addTileOrDescendants(dc, child);
+            }
+        }
+        finally
+        {
+            if (previousAncestorTile != null)
+                this.currentAncestorTile = previousAncestorTile;
+        }
+    }
+
+    protected void addTile(DrawContext dc, MVTSurfaceTile tile)
+    {
+        if (tile.getGeometry() == null)
+        {
+            this.requestTile(dc, tile);
+
+            if (this.currentAncestorTile != null) // draw the ancestor's geometry clipped to this tile
+                tile.setGeometry(this.currentAncestorTile.getGeometry());
+        }
+
+        if (tile.getGeometry() == null || tile.getGeometry().vertexCount == 0)
+            return;
+
+        this.currentTiles.add(tile);
+    }
+
+    protected boolean meetsRenderCriteria(DrawContext dc, MVTSurfaceTile tile)
+    {
+        return this.levels.isFinalLevel(tile.getLevelNumber()) || !this.needToSplit(dc, tile);
+    }
+
+    protected boolean needToSplit(DrawContext dc, MVTSurfaceTile tile)
+    {
+        // Compute the tile's resolution in meters from its longitude span, since the latitude span of a Mercator level
+        // is expressed in Mercator percent. Take care to convert from radians to meters by multiplying by the globe's
+        // radius, not the length of a Cartesian point, which is incorrect when the globe is flat.
+        Level level = tile.getLevel();
+        double resolutionRadians = level.getTileDelta().getLongitude().radians / level.getTileWidth();
+        double resolutionMeters = dc.getGlobe().getRadius() * resolutionRadians;
+
+        // Apply the level of detail scale and the field of view scale as TiledImageLayer does, and split when the
+        // resolution becomes greater than the scaled eye distance.
+        double detailScale = Math.pow(10, -this.getDetailFactor());
+        double fieldOfViewScale = dc.getView().getFieldOfView().tanHalfAngle() / Angle.fromDegrees(45).tanHalfAngle();
+        fieldOfViewScale = WWMath.clamp(fieldOfViewScale, 0, 1);
+
+        double eyeDistanceMeters = tile.getSector().distanceTo(dc, dc.getView().getEyePoint());
+        return resolutionMeters > eyeDistanceMeters * detailScale * fieldOfViewScale;
+    }
+
+    protected MVTTileGeometry lookupGeometry(MVTSurfaceTile tile)
+    {
+        return (MVTTileGeometry) this.cache.getObject(tile.getTileKey());
+    }
+
+    protected void requestTile(DrawContext dc, MVTSurfaceTile tile)
+    {
+        if (tile.getLevel().isEmpty() || this.levels.isResourceAbsent(tile))
+            return;
+
+        Vec4 centroid = tile.getSector().computeCenterPoint(dc.getGlobe(), dc.getVerticalExaggeration());
+        tile.setPriority(centroid.distanceTo3(dc.getView().getEyePoint()));
+
+        this.requestQueue.add(new LoadTask(this, tile));
+    }
+
+    protected void sendRequests()
+    {
+        Runnable task;
+        while ((task = this.requestQueue.poll()) != null)
+        {
+            if (WorldWind.getTaskService().isFull())
+                break;
+
+            WorldWind.getTaskService().addTask(task);
+        }
+
+        this.requestQueue.clear(); // requests are regenerated each frame
+    }
+
+    // ============== Tile Loading ======================= //
+
+    /**
+     * Loads a tile's geometry into the memory cache, from the tessellation disk cache if possible and otherwise by
+     * decoding and tessellating the tile's source. If the source is not available locally, this requests its
+     * retrieval and returns; the tile is loaded by a later request once the source has been retrieved. Called on a
+     * task service thread.
+     *
+     * @param tile the tile to load.
+     *
+     * @return true if the tile's geometry is in the memory cache when this returns, otherwise false.
+     */
+    protected boolean loadTile(MVTSurfaceTile tile)
+    {
+        if (this.lookupGeometry(tile) != null)
+            return true;
+
+        URL sourceURL = null;
+        try
+        {
+            sourceURL = this.findTileSource(tile);
+
+            MVTTileGeometry geometry = this.isDiskCacheEnabled() ? this.readTessellation(tile, sourceURL) : null;
+            if (geometry == null)
+            {
+                if (sourceURL == null)
+                {
+                    if (!this.isLocalTileSource(tile)) // missing local tiles are marked absent by findTileSource
+                        this.retrieveTile(tile);
+                    return false;
+                }
+
+                ByteBuffer buffer;
+                synchronized (this.fileLock)
+                {
+                    buffer = WWIO.readURLContentToBuffer(sourceURL);
+                }
+
+                geometry = this.tessellate(tile, MVTTile.decode(buffer));
+
+                if (this.isDiskCacheEnabled())
+                    this.writeTessellation(tile, geometry);
+            }
+
+            this.cache.add(tile.getTileKey(), geometry);
+            this.firePropertyChange(AVKey.LAYER, null, this);
+            return true;
+        }
+        catch (IOException e)
+        {
+            Logging.logger().log(java.util.logging.Level.SEVERE,
+                Logging.getMessage("generic.ExceptionWhileReading", sourceURL), e);
+
+            // Remove a corrupt tile from the file store so that it's retrieved again, and stop requesting it until
+            // then. Tiles read directly from a local directory are not removed.
+            if (sourceURL != null && !this.isLocalTileSource(tile))
+                this.getDataFileStore().removeFile(sourceURL);
+            this.levels.markResourceAbsent(tile);
+            return false;
+        }
+    }
+
+    /**
+     * Indicates whether a tile is read directly from its resource URL rather than retrieved into the file store.
+     *
+     * @param tile the tile in question.
+     *
+     * @return true if the tile's resource URL is a <code>file:</code> URL, otherwise false.
+     */
+    protected boolean isLocalTileSource(MVTSurfaceTile tile)
+    {
+        try
+        {
+            URL url = tile.getResourceURL();
+            return url != null && "file".equalsIgnoreCase(url.getProtocol());
+        }
+        catch (MalformedURLException e)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Locates a tile's encoded source, either in a local tile directory or in the file store.
+     *
+     * @param tile the tile to locate.
+     *
+     * @return the source URL, or null if the source must be retrieved.
+     *
+     * @throws IOException if the tile's resource URL cannot be created.
+     */
+    protected URL findTileSource(MVTSurfaceTile tile) throws IOException
+    {
+        if (this.isLocalTileSource(tile))
+        {
+            URL url = tile.getResourceURL();
+            File file = WWIO.convertURLToFile(url);
+            if (file == null || !file.exists())
+            {
+                this.levels.markResourceAbsent(tile); // local tile directories need not contain every tile
+                return null;
+            }
+
+            return url;
+        }
+
+        URL url = this.getDataFileStore().findFile(tile.getPath(), false);
+        if (url != null && WWIO.isFileOutOfDate(url, tile.getLevel().getExpiryTime()))
+        {
+            this.getDataFileStore().removeFile(url);
+            return null;
+        }
+
+        return url;
+    }
+
+    protected String getTessellationPath(MVTSurfaceTile tile)
+    {
+        return WWIO.replaceSuffix(tile.getPath(), TESSELLATION_CACHE_SUFFIX);
+    }
+
+    /**
+     * Tessellates the features of a decoded tile. Tile coordinates are converted to geographic coordinates using the
+     * tile's Mercator sector, and polygons are clipped to the tile's sector during tessellation.
+     *
+     * @param tile    the tile whose features are tessellated.
+     * @param mvtTile the decoded tile.
+     *
+     * @return the tile's geometry.
+     */
+    protected MVTTileGeometry tessellate(MVTSurfaceTile tile, MVTTile mvtTile)
+    {
+        Sector sector = tile.getSector();
+        double xOffset = sector.getCentroid().longitude.degrees;
+        double yOffset = sector.getCentroid().latitude.degrees;
+
+        MVTTessellator tess = tessellators.get();
+        tess.reset();
+        tess.setPolygonClipCoords(sector.getMinLongitude().degrees, sector.getMaxLongitude().degrees,
+            sector.getMinLatitude().degrees, sector.getMaxLatitude().degrees);
+        tess.setVertexOffset(-xOffset, -yOffset, 0);
+
+        MVTTileGeometry geom = new MVTTileGeometry(sector);
+        IntBuffer interiorIndices = IntBuffer.allocate(1024);
+        IntBuffer outlineIndices = IntBuffer.allocate(1024);
+        IntBuffer pointIndices = IntBuffer.allocate(64);
+        IntBuffer indices = IntBuffer.allocate(2048);
+
+        for (MVTTile.Layer layer : mvtTile.getLayers())
+        {
+            interiorIndices.clear();
+            outlineIndices.clear();
+            pointIndices.clear();
+
+            for (int i = 0; i < layer.getFeatureCount(); i++)
+            {
+                int type = layer.getFeatureType(i);
+                if (type == MVTTile.GEOMETRY_POLYGON)
+                {
+                    this.tessellatePolygon(tile, layer, i, tess);
+                    interiorIndices = tess.getInteriorIndices(ensureCapacity(interiorIndices,
+                        tess.getInteriorIndexCount()));
+                    outlineIndices = tess.getBoundaryIndices(ensureCapacity(outlineIndices,
+                        tess.getBoundaryIndexCount()));
+                }
+                else if (type == MVTTile.GEOMETRY_LINESTRING)
+                {
+                    outlineIndices = this.tessellateLines(tile, layer, i, tess, outlineIndices);
+                }
+                else if (type == MVTTile.GEOMETRY_POINT)
+                {
+                    pointIndices = this.tessellatePoints(tile, layer, i, tess, pointIndices);
+                }
+            }
+
+            if (interiorIndices.position() + outlineIndices.position() + pointIndices.position() == 0)
+                continue;
+
+            // Pack the group's triangle, line and point indices into contiguous ranges of the tile's index buffer.
+            FeatureGroup group = new FeatureGroup(layer.getName());
+            indices = ensureCapacity(indices,
+                interiorIndices.position() + outlineIndices.position() + pointIndices.position());
+            group.interiorIndexRange.location = indices.position();
+            group.interiorIndexRange.length = interiorIndices.position();
+            indices.put(interiorIndices.flip());
+            group.outlineIndexRange.location = indices.position();
+            group.outlineIndexRange.length = outlineIndices.position();
+            indices.put(outlineIndices.flip());
+            group.pointIndexRange.location = indices.position();
+            group.pointIndexRange.length = pointIndices.position();
+            indices.put(pointIndices.flip());
+            geom.featureGroups.add(group);
+        }
+
+        geom.vertexCount = tess.getVertexCount();
+        geom.vertexOffset = new Vec4(xOffset, yOffset, 0);
+        geom.vertices = tess.getVertices(Buffers.newDirectFloatBuffer(2 * geom.vertexCount)).rewind();
+        geom.indices = Buffers.newDirectIntBuffer(indices.position()).put(indices.flip()).rewind();
+
+        return geom;
+    }
+
+    protected void tessellatePolygon(MVTSurfaceTile tile, MVTTile.Layer layer, int feature, MVTTessellator tess)
+    {
+        int[] coords = layer.getCoordinates();
+
+        // Tessellate all of the feature's rings as one polygon. The GLU tessellator's odd winding rule treats rings
+        // nested within exterior rings as holes, as the MVT specification's ring ordering intends.
+        tess.resetIndices(); // clear indices from previous features, but retain the accumulated vertices
+        tess.beginPolygon();
+        for (int part = layer.getFirstPart(feature); part < layer.getFirstPart(feature) + layer.getPartCount(feature);
+            part++)
+        {
+            tess.beginContour();
+            for (int p = layer.getFirstPoint(part); p < layer.getFirstPoint(part) + layer.getPointCount(part); p++)
+            {
+                tess.addVertex(this.computeLongitude(tile, layer, coords[2 * p]),
+                    this.computeLatitude(tile, layer, coords[2 * p + 1]), 0);
+            }
+            tess.endContour();
+        }
+        tess.endPolygon();
+    }
+
+    protected IntBuffer tessellateLines(MVTSurfaceTile tile, MVTTile.Layer layer, int feature, MVTTessellator tess,
+        IntBuffer lineIndices)
+    {
+        int[] coords = layer.getCoordinates();
+
+        for (int part = layer.getFirstPart(feature); part < layer.getFirstPart(feature) + layer.getPartCount(feature);
+            part++)
+        {
+            int prevIndex = -1;
+            for (int p = layer.getFirstPoint(part); p < layer.getFirstPoint(part) + layer.getPointCount(part); p++)
+            {
+                int index = tess.addLineVertex(this.computeLongitude(tile, layer, coords[2 * p]),
+                    this.computeLatitude(tile, layer, coords[2 * p + 1]));
+
+                if (prevIndex >= 0)
+                    lineIndices = ensureCapacity(lineIndices, 2).put(prevIndex).put(index);
+                prevIndex = index;
+            }
+        }
+
+        return lineIndices;
+    }
+
+    protected IntBuffer tessellatePoints(MVTSurfaceTile tile, MVTTile.Layer layer, int feature, MVTTessellator tess,
+        IntBuffer pointIndices)
+    {
+        int[] coords = layer.getCoordinates();
+
+        for (int part = layer.getFirstPart(feature); part < layer.getFirstPart(feature) + layer.getPartCount(feature);
+            part++)
+        {
+            int p = layer.getFirstPoint(part);
+            int x = coords[2 * p];
+            int y = coords[2 * p + 1];
+            if (x < 0 || x >= layer.getExtent() || y < 0 || y >= layer.getExtent())
+                continue; // points in the buffer region are drawn by the neighboring tile
+
+            pointIndices = ensureCapacity(pointIndices, 1).put(tess.addLineVertex(
+                this.computeLongitude(tile, layer, x), this.computeLatitude(tile, layer, y)));
+        }
+
+        return pointIndices;
+    }
+
+    protected double computeLongitude(MVTSurfaceTile tile, MVTTile.Layer layer, int x)
+    {
+        Sector sector = tile.getSector();
+        return sector.getMinLongitude().degrees + sector.getDeltaLonDegrees() * x / layer.getExtent();
+    }
+
+    protected double computeLatitude(MVTSurfaceTile tile, MVTTile.Layer layer, int y)
+    {
+        // Tile y coordinates increase downward from the tile's northern edge, linearly in Mercator latitude percent.
+        MercatorSector sector = tile.getMercatorSector();
+        double percent = sector.getMaxLatPercent()
+            - (sector.getMaxLatPercent() - sector.getMinLatPercent()) * y / layer.getExtent();
+        return Math.toDegrees(Math.atan(Math.sinh(percent * Math.PI)));
+    }
+
+    protected static IntBuffer ensureCapacity(IntBuffer buffer, int count)
+    {
+        if (buffer.remaining() >= count)
+            return buffer;
+
+        int capacity = Math.max(buffer.position() + count, buffer.capacity() + buffer.capacity() / 2);
+        IntBuffer newBuffer = IntBuffer.allocate(capacity);
+        newBuffer.put(buffer.flip());
+        return newBuffer;
+    }
+
+    // ============== Tessellation Disk Cache ======================= //
+
+    /**
+     * Reads a tile's geometry from the tessellation disk cache. Cache entries that are older than the tile's source,
+     * that have passed the level's expiry time or that cannot be read are removed.
+     *
+     * @param tile      the tile to read.
+     * @param sourceURL the tile's source, or null if the source is not available locally.
+     *
+     * @return the tile's geometry, or null if the cache has no valid entry for the tile.
+     */
+    protected MVTTileGeometry readTessellation(MVTSurfaceTile tile, URL sourceURL)
+    {
+        URL url = this.getDataFileStore().findFile(this.getTessellationPath(tile), false);
+        if (url == null)
+            return null;
+
+        File file = WWIO.convertURLToFile(url);
+        File sourceFile = sourceURL != null ? WWIO.convertURLToFile(sourceURL) : null;
+        if (file == null || (sourceFile != null && sourceFile.lastModified() > file.lastModified())
+            || WWIO.isFileOutOfDate(url, tile.getLevel().getExpiryTime()))
+        {
+            this.getDataFileStore().removeFile(url);
+            return null;
+        }
+
+        try
+        {
+            ByteBuffer buffer;
+            synchronized (this.fileLock)
+            {
+                buffer = WWIO.readFileToBuffer(file);
+            }
+
+            return this.decodeTessellation(tile, buffer);
+        }
+        catch (Exception e)
+        {
+            Logging.logger().log(java.util.logging.Level.WARNING,
+                Logging.getMessage("MVT.InvalidTessellationCacheFile", file), e);
+            this.getDataFileStore().removeFile(url);
+            return null;
+        }
+    }
+
+    protected void writeTessellation(MVTSurfaceTile tile, MVTTileGeometry geom)
+    {
+        File file = this.getDataFileStore().newFile(this.getTessellationPath(tile));
+        if (file == null)
+            return;
+
+        try
+        {
+            ByteBuffer buffer = this.encodeTessellation(geom);
+            synchronized (this.fileLock)
+            {
+                WWIO.saveBuffer(buffer, file);
+            }
+        }
+        catch (IOException e)
+        {
+            Logging.logger().log(java.util.logging.Level.WARNING,
+                Logging.getMessage("generic.ExceptionAttemptingToWriteTo", file), e);
+        }
+    }
+
+    /**
+     * Encodes tile geometry in the tessellation cache format: a magic number and version, the vertex offset, the vertex
+     * and index arrays, then each feature group's name and index ranges. All values are big endian.
+     *
+     * @param geom the geometry to encode.
+     *
+     * @return a buffer containing the encoded geometry, positioned at its start.
+     */
+    protected ByteBuffer encodeTessellation(MVTTileGeometry geom)
+    {
+        List<byte[]> names = new ArrayList<byte[]>(geom.featureGroups.size());
+        int size = 5 * 4 + 2 * 8 + 8 * geom.vertexCount + 4 * geom.indices.capacity();
+        for (FeatureGroup group : geom.featureGroups)
+        {
+            byte[] name = (group.name != null ? group.name : "").getBytes(StandardCharsets.UTF_8);
+            names.add(name);
+            size += 4 + name.length + 6 * 4;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(TESSELLATION_CACHE_MAGIC);
+        buffer.putInt(TESSELLATION_CACHE_VERSION);
+        buffer.putDouble(geom.vertexOffset.x);
+        buffer.putDouble(geom.vertexOffset.y);
+
+        buffer.putInt(geom.vertexCount);
+        buffer.asFloatBuffer().put(geom.vertices.duplicate());
+        buffer.position(buffer.position() + 4 * 2 * geom.vertexCount);
+
+        buffer.putInt(geom.indices.capacity());
+        buffer.asIntBuffer().put(geom.indices.duplicate());
+        buffer.position(buffer.position() + 4 * geom.indices.capacity());
+
+        buffer.putInt(geom.featureGroups.size());
+        for (int i = 0; i < geom.featureGroups.size(); i++)
+        {
+            FeatureGroup group = geom.featureGroups.get(i);
+            buffer.putInt(names.get(i).length).put(names.get(i));
+            putRange(buffer, group.interiorIndexRange);
+            putRange(buffer, group.outlineIndexRange);
+            putRange(buffer, group.pointIndexRange);
+        }
+
+        return buffer.flip();
+    }
+
+    /**
+     * Decodes tile geometry from the tessellation cache format described in {@link
+     * #encodeTessellation(MVTTileGeometry)}.
+     *
+     * @param tile   the tile whose geometry is decoded.
+     * @param buffer the encoded geometry.
+     *
+     * @return the decoded geometry.
+     *
+     * @throws IOException if the buffer does not contain a valid cache entry.
+     */
+    protected MVTTileGeometry decodeTessellation(MVTSurfaceTile tile, ByteBuffer buffer) throws IOException
+    {
+        try
+        {
+            if (buffer.getInt() != TESSELLATION_CACHE_MAGIC || buffer.getInt() != TESSELLATION_CACHE_VERSION)
+                throw new IOException(Logging.getMessage("MVT.InvalidTessellationCacheFile", tile));
+
+            MVTTileGeometry geom = new MVTTileGeometry(tile.getSector());
+            geom.vertexOffset = new Vec4(buffer.getDouble(), buffer.getDouble(), 0);
+
+            geom.vertexCount = buffer.getInt();
+            geom.vertices = Buffers.newDirectFloatBuffer(2 * geom.vertexCount);
+            FloatBuffer vertices = buffer.asFloatBuffer();
+            vertices.limit(2 * geom.vertexCount);
+            geom.vertices.put(vertices).rewind();
+            buffer.position(buffer.position() + 4 * 2 * geom.vertexCount);
+
+            int indexCount = buffer.getInt();
+            geom.indices = Buffers.newDirectIntBuffer(indexCount);
+            IntBuffer indices = buffer.asIntBuffer();
+            indices.limit(indexCount);
+            geom.indices.put(indices).rewind();
+            buffer.position(buffer.position() + 4 * indexCount);
+
+            int groupCount = buffer.getInt();
+            for (int i = 0; i < groupCount; i++)
+            {
+                byte[] name = new byte[buffer.getInt()];
+                buffer.get(name);
+
+                FeatureGroup group = new FeatureGroup(new String(name, StandardCharsets.UTF_8));
+                getRange(buffer, group.interiorIndexRange, indexCount);
+                getRange(buffer, group.outlineIndexRange, indexCount);
+                getRange(buffer, group.pointIndexRange, indexCount);
+                geom.featureGroups.add(group);
+            }
+
+            return geom;
+        }
+        catch (RuntimeException e) // a truncated entry, or a negative or oversize count
+        {
+            throw new IOException(Logging.getMessage("MVT.InvalidTessellationCacheFile", tile), e);
+        }
+    }
+
+    protected static void putRange(ByteBuffer buffer, Range range)
+    {
+        buffer.putInt(range.location).putInt(range.length);
+    }
+
+    protected static void getRange(ByteBuffer buffer, Range range, int indexCount) throws IOException
+    {
+        range.location = buffer.getInt();
+        range.length = buffer.getInt();
+
+        if (range.location < 0 || range.length < 0 || range.location + range.length > indexCount)
+            throw new IOException(Logging.getMessage("generic.InvalidIndex", range.location));
+    }
+
+    // ============== Tile Retrieval ======================= //
+
+    protected void retrieveTile(MVTSurfaceTile tile)
+    {
+        if (!this.isNetworkRetrievalEnabled())
+        {
+            this.levels.markResourceAbsent(tile);
+            return;
+        }
+
+        if (!WorldWind.getRetrievalService().isAvailable())
+            return;
+
+        URL url;
+        try
+        {
+            url = tile.getResourceURL();
+            if (url == null)
+                return;
+
+            if (WorldWind.getNetworkStatus().isHostUnavailable(url))
+            {
+                this.levels.markResourceAbsent(tile);
+                return;
+            }
+        }
+        catch (MalformedURLException e)
+        {
+            Logging.logger().log(java.util.logging.Level.SEVERE,
+                Logging.getMessage("layers.TextureLayer.ExceptionCreatingTextureUrl", tile), e);
+            return;
+        }
+
+        Retriever retriever = URLRetriever.createRetriever(url, new DownloadPostProcessor(tile, this));
+        if (retriever == null)
+        {
+            Logging.logger().severe(Logging.getMessage("layers.TextureLayer.UnknownRetrievalProtocol", url));
+            return;
+        }
+
+        // Apply any overridden timeouts.
+        Integer cto = AVListImpl.getIntegerValue(this, AVKey.URL_CONNECT_TIMEOUT);
+        if (cto != null && cto > 0)
+            retriever.setConnectTimeout(cto);
+        Integer cro = AVListImpl.getIntegerValue(this, AVKey.URL_READ_TIMEOUT);
+        if (cro != null && cro > 0)
+            retriever.setReadTimeout(cro);
+        Integer srl = AVListImpl.getIntegerValue(this, AVKey.RETRIEVAL_QUEUE_STALE_REQUEST_LIMIT);
+        if (srl != null && srl > 0)
+            retriever.setStaleRequestLimit(srl);
+
+        WorldWind.getRetrievalService().runRetriever(retriever, tile.getPriority());
+    }
+
+    protected static class DownloadPostProcessor extends AbstractRetrievalPostProcessor
+    {
+        protected final MVTSurfaceTile tile;
+        protected final MVTTiledLayer layer;
+
+        public DownloadPostProcessor(MVTSurfaceTile tile, MVTTiledLayer layer)
+        {
+            //noinspection RedundantCast
+            super((AVList) layer);
+
+            this.tile = tile;
+            this.layer = layer;
+        }
+
+        @Override
+        protected boolean overwriteExistingFile()
+        {
+            return true;
+        }
+
+        @Override
+        protected void markResourceAbsent()
+        {
+            this.layer.getLevels().markResourceAbsent(this.tile);
+        }
+
+        @Override
+        protected Object getFileLock()
+        {
+            return this.layer.fileLock;
+        }
+
+        @Override
+        protected File doGetOutputFile()
+        {
+            return this.layer.getDataFileStore().newFile(this.tile.getPath());
+        }
+
+        @Override
+        protected ByteBuffer handleSuccessfulRetrieval()
+        {
+            ByteBuffer buffer = super.handleSuccessfulRetrieval();
+
+            if (buffer != null) // the tile is loaded by the next request for it
+                this.layer.firePropertyChange(AVKey.LAYER, null, this);
+
+            return buffer;
+        }
+
+        @Override
+        protected ByteBuffer handleTextContent() throws IOException
+        {
+            this.markResourceAbsent();
+
+            return super.handleTextContent();
+        }
+    }
+
+    // ============== Rendering ======================= //
+
+    protected Object createStateKey(MVTTileGeometry geom)
+    {
+        ShapeAttributes[] attrs = new ShapeAttributes[geom.featureGroups.size()];
+        for (int i = 0; i < attrs.length; i++)
+        {
+            attrs[i] = this.determineActiveAttributes(geom.featureGroups.get(i)).copy();
+        }
+
+        return new MVTTileGeometryStateKey(geom, attrs);
+    }
+
+    protected ShapeAttributes determineActiveAttributes(FeatureGroup group)
+    {
+        ShapeAttributes attrs = group.name != null ? this.layerAttributes.get(group.name) : null;
+        return attrs != null ? attrs : this.attributes;
+    }
+
+    protected void render(DrawContext dc, MVTSurfaceTile tile)
+    {
+        try
+        {
+            this.beginDrawing(dc);
+            this.draw(dc, tile);
+        }
+        finally
+        {
+            this.endDrawing(dc);
+        }
+    }
+
+    protected void beginDrawing(DrawContext dc)
+    {
+        GL2 gl = dc.getGL().getGL2(); // GL initialization checks for GL2 compatibility.
+        gl.glDisable(GL.GL_DEPTH_TEST);
+        gl.glEnableClientState(GL2.GL_VERTEX_ARRAY); // all drawing uses vertex arrays
+        gl.glMatrixMode(GL2.GL_MODELVIEW);
+        gl.glPushMatrix();
+        gl.glEnable(GL.GL_BLEND);
+        gl.glEnable(GL.GL_LINE_SMOOTH);
+        gl.glBlendFunc(GL.GL_SRC_ALPHA, GL.GL_ONE_MINUS_SRC_ALPHA);
+    }
+
+    protected void endDrawing(DrawContext dc)
+    {
+        GL2 gl = dc.getGL().getGL2(); // GL initialization checks for GL2 compatibility.
+        gl.glEnable(GL.GL_DEPTH_TEST);
+        gl.glDisableClientState(GL2.GL_VERTEX_ARRAY);
+        gl.glColor4f(1, 1, 1, 1);
+        gl.glLineWidth(1);
+        gl.glPointSize(1);
+        gl.glPopMatrix();
+
+        Arrays.fill(this.clipPlaneArray, 0);
+        for (int i = 0; i < 4; i++)
+        {
+            gl.glDisable(GL2.GL_CLIP_PLANE0 + i);
+            gl.glClipPlane(GL2.GL_CLIP_PLANE0 + i, this.clipPlaneArray, 4 * i);
+        }
+
+        gl.glDisable(GL.GL_BLEND);
+        gl.glDisable(GL.GL_LINE_SMOOTH);
+        gl.glBlendFunc(GL.GL_ONE, GL.GL_ZERO);
+    }
+
+    protected void draw(DrawContext dc, MVTSurfaceTile tile)
+    {
+        GL2 gl = dc.getGL().getGL2(); // GL initialization checks for GL2 compatibility.
+        MVTTileGeometry geom = tile.getGeometry();
+
+        SurfaceTileDrawContext sdc = (SurfaceTileDrawContext) dc.getValue(AVKey.SURFACE_TILE_DRAW_CONTEXT);
+        Matrix modelview = sdc.getModelviewMatrix().multiply(Matrix.fromTranslation(geom.vertexOffset));
+        modelview.toArray(this.matrixArray, 0, false);
+        gl.glLoadMatrixd(this.matrixArray, 0);
+
+        gl.glVertexPointer(2, GL.GL_FLOAT, 0, geom.vertices);
+
+        // Clip rasterization to the tile's sector. The geometry may belong to an ancestor tile, and polygon geometry
+        // extends into the tile's buffer region.
+        this.applyClipSector(dc, tile.getSector(), geom.vertexOffset);
+
+        for (FeatureGroup group : geom.featureGroups)
+        {
+            this.drawFeatureGroup(dc, geom, group);
+        }
+    }
+
+    protected void applyClipSector(DrawContext dc, Sector sector, Vec4 vertexOffset)
+    {
+        fillArray4(this.clipPlaneArray, 0, 1, 0, 0, -(sector.getMinLongitude().degrees - vertexOffset.x));
+        fillArray4(this.clipPlaneArray, 4, -1, 0, 0, sector.getMaxLongitude().degrees - vertexOffset.x);
+        fillArray4(this.clipPlaneArray, 8, 0, 1, 0, -(sector.getMinLatitude().degrees - vertexOffset.y));
+        fillArray4(this.clipPlaneArray, 12, 0, -1, 0, sector.getMaxLatitude().degrees - vertexOffset.y);
+
+        GL2 gl = dc.getGL().getGL2(); // GL initialization checks for GL2 compatibility.
+        for (int i = 0; i < 4; i++)
+        {
+            gl.glEnable(GL2.GL_CLIP_PLANE0 + i);
+            gl.glClipPlane(GL2.GL_CLIP_PLANE0 + i, this.clipPlaneArray, 4 * i);
+        }
+    }
+
+    protected void drawFeatureGroup(DrawContext dc, MVTTileGeometry geom, FeatureGroup group)
+    {
+        GL2 gl = dc.getGL().getGL2(); // GL initialization checks for GL2 compatibility.
+        ShapeAttributes attrs = this.determineActiveAttributes(group);
+
+        if (attrs.isDrawInterior() && attrs.getInteriorOpacity() > 0 && group.interiorIndexRange.length > 0)
+        {
+            applyColor(gl, attrs.getInteriorMaterial().getDiffuse(), attrs.getInteriorOpacity());
+            gl.glDrawElements(GL.GL_TRIANGLES, group.interiorIndexRange.length, GL.GL_UNSIGNED_INT,
+                geom.indices.position(group.interiorIndexRange.location));
+            geom.indices.rewind();
+        }
+
+        if (attrs.isDrawOutline() && attrs.getOutlineOpacity() > 0)
+        {
+            applyColor(gl, attrs.getOutlineMaterial().getDiffuse(), attrs.getOutlineOpacity());
+
+            if (group.outlineIndexRange.length > 0)
+            {
+                gl.glLineWidth((float) attrs.getOutlineWidth());
+                gl.glDrawElements(GL.GL_LINES, group.outlineIndexRange.length, GL.GL_UNSIGNED_INT,
+                    geom.indices.position(group.outlineIndexRange.location));
+                geom.indices.rewind();
+            }
+
+            if (group.pointIndexRange.length > 0)
+            {
+                gl.glPointSize((float) attrs.getOutlineWidth());
+                gl.glDrawElements(GL.GL_POINTS, group.pointIndexRange.length, GL.GL_UNSIGNED_INT,
+                    geom.indices.position(group.pointIndexRange.location));
+                geom.indices.rewind();
+            }
+        }
+    }
+
+    protected static void applyColor(GL2 gl, Color rgb, double opacity)
+    {
+        double alpha = opacity * 255 + 0.5;
+        gl.glColor4ub((byte) rgb.getRed(), (byte) rgb.getGreen(), (byte) rgb.getBlue(), (byte) alpha);
+    }
+
+    protected static void fillArray4(double[] array, int offset, double x, double y, double z, double w)
+    {
+        array[0 + offset] = x;
+        array[1 + offset] = y;
+        array[2 + offset] = z;
+        array[3 + offset] = w;
+    }
+}
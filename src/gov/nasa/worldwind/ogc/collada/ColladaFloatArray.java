@@ -29,7 +29,7 @@
 package gov.nasa.worldwind.ogc.collada;
 
 import gov.nasa.worldwind.util.WWUtil;
-import gov.nasa.worldwind.util.xml.XMLEventParserContext;
+import gov.nasa.worldwind.util.xml.*;
 
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.events.XMLEvent;
@@ -65,6 +65,19 @@ public class ColladaFloatArray extends ColladaAbstractObject
         return (this.floats != null) ? this.floats : new float[0];
     }
 
+    /**
+     * {@inheritDoc} Overridden to use floats replayed from the {@link BinaryXMLEventCache}, which are already
+     * parsed.
+     */
+    @Override
+    protected void doAddCharacters(XMLEventParserContext ctx, XMLEvent event, Object... args)
+    {
+        if (event instanceof NumericCharacters && ((NumericCharacters) event).getFloats() != null)
+            this.floats = ((NumericCharacters) event).getFloats();
+        else
+            super.doAddCharacters(ctx, event, args);
+    }
+
     /** {@inheritDoc} Overridden to parse character content into a float[]. */
     @Override
     public Object parse(XMLEventParserContext ctx, XMLEvent event, Object... args) throws XMLStreamException
@@ -93,16 +106,6 @@ public class ColladaFloatArray extends ColladaAbstractObject
      */
     protected float[] parseFloats(String floatArrayString)
     {
-        String[] arrayOfNumbers = floatArrayString.split("\\s");
-        float[] ary = new float[arrayOfNumbers.length];
-
-        int i = 0;
-        for (String s : arrayOfNumbers)
-        {
-            if (!WWUtil.isEmpty(s))
-                ary[i++] = Float.parseFloat(s);
-        }
-
-        return ary;
+        return NumericCharacters.parseFloats(floatArrayString);
     }
 }
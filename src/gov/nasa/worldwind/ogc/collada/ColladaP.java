@@ -29,7 +29,7 @@
 package gov.nasa.worldwind.ogc.collada;
 
 import gov.nasa.worldwind.util.WWUtil;
-import gov.nasa.worldwind.util.xml.XMLEventParserContext;
+import gov.nasa.worldwind.util.xml.*;
 
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.events.XMLEvent;
@@ -68,6 +68,19 @@ public class ColladaP extends ColladaAbstractObject
         return this.indices;
     }
 
+    /**
+     * {@inheritDoc} Overridden to use indices replayed from the {@link BinaryXMLEventCache}, which are already
+     * parsed.
+     */
+    @Override
+    protected void doAddCharacters(XMLEventParserContext ctx, XMLEvent event, Object... args)
+    {
+        if (event instanceof NumericCharacters && ((NumericCharacters) event).getInts() != null)
+            this.indices = ((NumericCharacters) event).getInts();
+        else
+            super.doAddCharacters(ctx, event, args);
+    }
+
     /** {@inheritDoc} */
     @Override
     public Object parse(XMLEventParserContext ctx, XMLEvent event, Object... args) throws XMLStreamException
@@ -96,16 +109,6 @@ public class ColladaP extends ColladaAbstractObject
      */
     protected int[] parseInts(String intArrayString)
     {
-        String[] arrayOfNumbers = intArrayString.split("\\s");
-        int[] ints = new int[arrayOfNumbers.length];
-
-        int i = 0;
-        for (String s : arrayOfNumbers)
-        {
-            if (!WWUtil.isEmpty(s))
-                ints[i++] = Integer.parseInt(s);
-        }
-
-        return ints;
+        return NumericCharacters.parseInts(intArrayString);
     }
 }
@@ -38,10 +38,12 @@ import gov.nasa.worldwind.render.*;
 import gov.nasa.worldwind.util.*;
 import gov.nasa.worldwind.util.xml.*;
 
+import javax.xml.namespace.QName;
 import javax.xml.stream.*;
 import javax.xml.stream.events.XMLEvent;
 import java.io.*;
 import java.net.*;
+import java.util.*;
 
 /**
  * Parses a COLLADA document and provides access to its contents. Instructions for parsing COLLADA files and streams are
@@ -284,14 +286,39 @@ public class ColladaRoot extends ColladaAbstractObject implements ColladaRendera
      */
     protected void initialize() throws IOException
     {
-        this.eventStream = new BufferedInputStream(this.getColladaDoc().getInputStream());
-        this.eventReader = this.createReader(this.eventStream);
+        // Replay the document's events from the binary event cache if it has been parsed before. Otherwise parse the
+        // XML and record the events for the next time. Both steps do nothing if the cache is disabled.
+        File cacheSource = this.getColladaDoc() instanceof ColladaFile
+            ? ((ColladaFile) this.getColladaDoc()).getFile() : null;
+        this.eventReader = BinaryXMLEventCache.openCachedReader(cacheSource, "COLLADA");
+        if (this.eventReader == null)
+        {
+            this.eventStream = new BufferedInputStream(this.getColladaDoc().getInputStream());
+            this.eventReader = BinaryXMLEventCache.createRecordingReader(cacheSource, "COLLADA",
+                this.createReader(this.eventStream), this.getCachedNumericElements());
+        }
+
         if (this.eventReader == null)
             throw new WWRuntimeException(Logging.getMessage("XML.UnableToOpenDocument", this.getColladaDoc()));
 
         this.parserContext = this.createParserContext(this.eventReader);
     }
 
+    /**
+     * Indicates the elements whose content the {@link BinaryXMLEventCache} records as numbers. These are the
+     * <i>float_array</i> and <i>p</i> elements, which hold a model's vertex data and indices, and which {@link
+     * ColladaFloatArray} and {@link ColladaP} read directly from the cache.
+     *
+     * @return the names of the numeric elements, each mapped to the type of its content.
+     */
+    protected Map<QName, Integer> getCachedNumericElements()
+    {
+        Map<QName, Integer> elements = new HashMap<QName, Integer>();
+        elements.put(new QName(ColladaConstants.COLLADA_NAMESPACE, "float_array"), NumericCharacters.FLOATS);
+        elements.put(new QName(ColladaConstants.COLLADA_NAMESPACE, "p"), NumericCharacters.INTS);
+        return elements;
+    }
+
     /**
      * Indicates the document that is the source of this root.
      *
@@ -808,6 +835,9 @@ public class ColladaRoot extends ColladaAbstractObject implements ColladaRendera
     /** Closes the event stream associated with this context's XML event reader. */
     protected void closeEventStream()
     {
+        if (this.eventStream == null)
+            return; // the document was read from the binary event cache
+
         try
         {
             this.eventStream.close();
@@ -60,6 +60,16 @@ public class ColladaFile implements ColladaDoc
         this.colladaFile = file;
     }
 
+    /**
+     * Indicates the file from which COLLADA content is read.
+     *
+     * @return the file specified to the constructor.
+     */
+    public File getFile()
+    {
+        return this.colladaFile;
+    }
+
     /** {@inheritDoc} */
     public InputStream getInputStream() throws IOException
     {
@@ -36,7 +36,8 @@ import javax.xml.stream.events.XMLEvent;
 import java.util.ArrayList;
 
 /**
- * Parses KML <i>coordinates</i> elements.
+ * Parses KML <i>coordinates</i> elements. Coordinates replayed from the {@link BinaryXMLEventCache} are already parsed
+ * and are converted to positions directly.
  *
  * @author tag
  * @version $Id: KMLCoordinatesParser.java 1171 2013-02-11 21:45:02Z dcollins $
@@ -56,7 +57,27 @@ public class KMLCoordinatesParser extends AbstractXMLEventParser
     public Position.PositionList parse(XMLEventParserContext ctx, XMLEvent doubleEvent, Object... args)
         throws XMLStreamException
     {
-        String s = ctx.getStringParser().parseString(ctx, doubleEvent);
+        StringBuilder sb = new StringBuilder();
+        Position.PositionList replayedPositions = null;
+        String s = null;
+
+        for (XMLEvent event = ctx.nextEvent(); event != null; event = ctx.nextEvent())
+        {
+            if (ctx.isEndElement(event, doubleEvent))
+            {
+                if (replayedPositions != null)
+                    return replayedPositions;
+
+                s = sb.toString().trim();
+                break;
+            }
+
+            if (event instanceof NumericCharacters && ((NumericCharacters) event).getCoordinates() != null)
+                replayedPositions = this.makePositions(((NumericCharacters) event).getCoordinates());
+            else if (event.isCharacters())
+                sb.append(ctx.getCharacters(event));
+        }
+
         if (s == null || s.length() < 3) // "a,b" is the smallest possible coordinate string
             return null;
 
@@ -86,4 +107,23 @@ public class KMLCoordinatesParser extends AbstractXMLEventParser
 
         return new Position.PositionList(positions);
     }
+
+    /**
+     * Creates positions from coordinates replayed from the {@link BinaryXMLEventCache}.
+     *
+     * @param coords longitude, latitude and altitude triples.
+     *
+     * @return the positions.
+     */
+    protected Position.PositionList makePositions(double[] coords)
+    {
+        ArrayList<Position> positions = new ArrayList<Position>(coords.length / 3);
+
+        for (int i = 0; i < coords.length; i += 3)
+        {
+            positions.add(Position.fromDegrees(coords[i + 1], coords[i], coords[i + 2]));
+        }
+
+        return new Position.PositionList(positions);
+    }
 }
@@ -267,6 +267,10 @@ public class KMLNetworkLink extends KMLAbstractContainer implements PropertyChan
         {
             kmlRoot.addPropertyChangeListener(this);
 
+            // Network links in the new root refresh through the same scheduler as this link, if one is in use.
+            if (kmlRoot.getNetworkLinkRefreshScheduler() == null)
+                kmlRoot.setNetworkLinkRefreshScheduler(this.getRoot().getNetworkLinkRefreshScheduler());
+
             // Apply any updates contained in the new root's optional network link control.
             SwingUtilities.invokeLater(new Runnable()
             {
@@ -369,7 +373,8 @@ public class KMLNetworkLink extends KMLAbstractContainer implements PropertyChan
      */
     protected void requestResource(DrawContext dc)
     {
-        if (WorldWind.getTaskService().isFull())
+        KMLNetworkLinkRefreshScheduler scheduler = this.getRoot().getNetworkLinkRefreshScheduler();
+        if (scheduler != null ? scheduler.isPending(this) || scheduler.isFull() : WorldWind.getTaskService().isFull())
             return;
 
         KMLLink link = this.getLinkOrUrl();
@@ -386,7 +391,14 @@ public class KMLNetworkLink extends KMLAbstractContainer implements PropertyChan
         if (this.hasNetworkLinkControl() && this.getRoot().getNetworkLinkControl().getCookie() != null)
             address = address + this.getRoot().getNetworkLinkControl().getCookie();
 
-        WorldWind.getTaskService().addTask(new RequestTask(this, address));
+        // Don't request an address whose most recent retrieval failed until the absent resource interval elapses.
+        if (this.getRoot().getAbsentResourceList().isResourceAbsent(address))
+            return;
+
+        if (scheduler != null)
+            scheduler.requestRefresh(this, address);
+        else
+            WorldWind.getTaskService().addTask(new RequestTask(this, address));
     }
 
     /**
@@ -422,13 +434,10 @@ public class KMLNetworkLink extends KMLAbstractContainer implements PropertyChan
         if (o instanceof KMLRoot)
         {
             KMLRoot newRoot = (KMLRoot) o;
-            this.setNetworkResource(newRoot);
 
             // Check for an expiration time set through HTTP header or NetworkLinkControl
             long expiration = this.computeExpiryRefreshTime(newRoot, address);
-            this.getLinkOrUrl().setExpirationTime(expiration);
-
-            this.getRoot().firePropertyChange(AVKey.RETRIEVAL_STATE_SUCCESSFUL, null, KMLNetworkLink.this);
+            this.applyNetworkResource(newRoot, address, expiration);
         }
         // Anything other than a KMLRoot is not a valid link target
         else if (o != null)
@@ -439,6 +448,65 @@ public class KMLNetworkLink extends KMLAbstractContainer implements PropertyChan
         }
     }
 
+    /**
+     * Installs a newly retrieved network resource. This calls <code>{@link #setNetworkResource(KMLRoot)}</code>,
+     * specifies the resource's expiration time to this link's <code>KMLLink</code>, and sends an <code>{@link
+     * gov.nasa.worldwind.avlist.AVKey#RETRIEVAL_STATE_SUCCESSFUL}</code> property change event to this link's property
+     * change listeners. This method is safe to call from any thread.
+     *
+     * @param newRoot    the new network resource.
+     * @param address    the address the resource was retrieved from.
+     * @param expiration the expiration time of the resource, in milliseconds since the Epoch. Zero indicates that the
+     *                   resource does not expire.
+     */
+    protected void applyNetworkResource(KMLRoot newRoot, String address, long expiration)
+    {
+        this.setNetworkResource(newRoot);
+
+        KMLLink link = this.getLinkOrUrl();
+        if (link != null)
+            link.setExpirationTime(expiration);
+
+        this.getRoot().firePropertyChange(AVKey.RETRIEVAL_STATE_SUCCESSFUL, null, KMLNetworkLink.this);
+    }
+
+    /**
+     * Marks this link's current network resource as up to date without replacing it. Called when a refresh determines
+     * that the linked document has not changed since it was last retrieved.
+     *
+     * @param expiration the new expiration time of the resource, in milliseconds since the Epoch. Zero indicates that
+     *                   the resource does not expire.
+     */
+    protected void markNetworkResourceCurrent(long expiration)
+    {
+        this.networkResourceRetrievalTime.set(System.currentTimeMillis());
+
+        KMLLink link = this.getLinkOrUrl();
+        if (link != null)
+            link.setExpirationTime(expiration);
+    }
+
+    /**
+     * Marks an address of this link's network resource as absent after a failed retrieval, so that the address is not
+     * requested again until the absent resource interval of this link's root elapses.
+     *
+     * @param address the address that could not be retrieved.
+     */
+    protected void markNetworkResourceAbsent(String address)
+    {
+        this.getRoot().getAbsentResourceList().markResourceAbsent(address);
+    }
+
+    /**
+     * Clears the absent state of an address of this link's network resource after a successful retrieval.
+     *
+     * @param address the address that was retrieved.
+     */
+    protected void unmarkNetworkResourceAbsent(String address)
+    {
+        this.getRoot().getAbsentResourceList().unmarkResourceAbsent(address);
+    }
+
     /**
      * Indicates the expiration time of a linked resource. The expiration time is specified by (in order of priority): a
      * NetworkLinkControl/expires element in the target document, a HTTP Cache-Control header, or an HTTP Expires
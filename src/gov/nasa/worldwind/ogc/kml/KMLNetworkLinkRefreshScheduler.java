@@ -0,0 +1,561 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+package gov.nasa.worldwind.ogc.kml;
+
+import gov.nasa.worldwind.ogc.kml.io.*;
+import gov.nasa.worldwind.util.*;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.*;
+import java.net.*;
+import java.security.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * Retrieves and parses the documents referenced by {@link KMLNetworkLink}s on a bounded pool of worker threads, so that
+ * KML documents with many refreshing network links do not compete with other tasks in the WorldWind task service.
+ * <p>
+ * The scheduler does not decide when a link must refresh; that remains the responsibility of the link's {@link
+ * KMLLink}, which honors the <code>refreshMode</code>, <code>refreshInterval</code> and <code>viewRefreshMode</code>
+ * elements by advancing its update time. When a link detects that its resource is out of date it hands the request to
+ * this scheduler by calling {@link #requestRefresh(KMLNetworkLink, String)}.
+ * <p>
+ * Remote HTTP documents are retrieved directly using conditional requests. The scheduler remembers the
+ * <code>ETag</code> and <code>Last-Modified</code> headers of each link's most recent response and sends them back with
+ * the next request, so a server may answer with <code>304 Not Modified</code>. When the server does return content, a
+ * digest of the payload is compared with the previous payload and the document is parsed only if it changed. A newly
+ * parsed document is swapped into the link atomically through {@link KMLNetworkLink#setNetworkResource(KMLRoot)}.
+ * Local documents are resolved through {@link KMLNetworkLink#retrieveNetworkResource(String)} on the same pool.
+ * <p>
+ * A failed refresh does not leave the link requesting its resource on every frame. An address that cannot be
+ * retrieved is marked absent, and is not requested again until the absent resource interval elapses. A payload that
+ * is not a KML document marks the link's target invalid, as {@link KMLNetworkLink#retrieveNetworkResource(String)}
+ * does, and stops further retrievals.
+ * <p>
+ * A scheduler is attached to a KML document with
+ * {@link KMLRoot#setNetworkLinkRefreshScheduler(KMLNetworkLinkRefreshScheduler)} and is inherited by the documents
+ * its network links load.
+ *
+ * @version $Id$
+ */
+public class KMLNetworkLinkRefreshScheduler
+{
+    protected static final int DEFAULT_POOL_SIZE = 4;
+    protected static final int DEFAULT_QUEUE_SIZE = 200;
+    protected static final int DEFAULT_CONNECT_TIMEOUT = 10000;
+    protected static final int DEFAULT_READ_TIMEOUT = 20000;
+    protected static final String DIGEST_ALGORITHM = "SHA-1";
+
+    /** Conditional request and payload state remembered for each network link. */
+    protected static class ResourceState
+    {
+        /** The address of the most recent successful retrieval. */
+        protected String address;
+        /** The value of the <code>ETag</code> header of the most recent response, or null if none was returned. */
+        protected String entityTag;
+        /** The value of the <code>Last-Modified</code> header of the most recent response, or null. */
+        protected String lastModified;
+        /** The digest of the most recently parsed payload. */
+        protected byte[] digest;
+    }
+
+    protected final ThreadPoolExecutor executor;
+    /** The links that currently have a refresh queued or running. Prevents duplicate requests for the same link. */
+    protected final Set<KMLNetworkLink> pendingLinks = Collections.newSetFromMap(
+        new ConcurrentHashMap<KMLNetworkLink, Boolean>());
+    /** Per-link request state. Weakly keyed so that the scheduler does not keep discarded documents in memory. */
+    protected final Map<KMLNetworkLink, ResourceState> resourceStates = Collections.synchronizedMap(
+        new WeakHashMap<KMLNetworkLink, ResourceState>());
+    protected int connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+    protected int readTimeout = DEFAULT_READ_TIMEOUT;
+
+    protected final AtomicLong requestCount = new AtomicLong();
+    protected final AtomicLong notModifiedCount = new AtomicLong();
+    protected final AtomicLong unchangedCount = new AtomicLong();
+    protected final AtomicLong parseCount = new AtomicLong();
+
+    /** Creates a scheduler with a default pool size and queue size. */
+    public KMLNetworkLinkRefreshScheduler()
+    {
+        this(DEFAULT_POOL_SIZE, DEFAULT_QUEUE_SIZE);
+    }
+
+    /**
+     * Creates a scheduler with a specified number of worker threads and a specified maximum number of queued
+     * requests.
+     *
+     * @param poolSize  the number of worker threads.
+     * @param queueSize the maximum number of requests waiting for a worker thread.
+     *
+     * @throws IllegalArgumentException if either value is less than 1.
+     */
+    public KMLNetworkLinkRefreshScheduler(int poolSize, int queueSize)
+    {
+        if (poolSize < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "poolSize < 1");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (queueSize < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "queueSize < 1");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 2, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<Runnable>(queueSize),
+            new ThreadFactory()
+            {
+                public Thread newThread(Runnable runnable)
+                {
+                    Thread thread = new Thread(runnable, "KML NetworkLink Refresh");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                }
+            });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Queues a refresh of a network link's resource. This method returns immediately; the resource is retrieved and
+     * parsed on one of the scheduler's worker threads. A request is ignored if the link already has a refresh queued
+     * or running, or if the scheduler's queue is full.
+     *
+     * @param link    the network link to refresh.
+     * @param address the resolved address of the link's resource, including any view-dependent query string.
+     *
+     * @return true if the request was queued, otherwise false.
+     *
+     * @throws IllegalArgumentException if either argument is null.
+     */
+    public boolean requestRefresh(KMLNetworkLink link, String address)
+    {
+        if (link == null)
+        {
+            String message = Logging.getMessage("nullValue.ObjectIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (address == null)
+        {
+            String message = Logging.getMessage("nullValue.PathIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (this.executor.isShutdown() || !this.pendingLinks.add(link))
+            return false;
+
+        try
+        {
+            this.executor.execute(new RefreshTask(link, address));
+            return true;
+        }
+        catch (RejectedExecutionException e)
+        {
+            // The queue is full. The link will request the refresh again on a subsequent frame.
+            this.pendingLinks.remove(link);
+            return false;
+        }
+    }
+
+    /**
+     * Indicates whether a refresh of a specified link is queued or running.
+     *
+     * @param link the link in question.
+     *
+     * @return true if the link has a refresh pending, otherwise false.
+     */
+    public boolean isPending(KMLNetworkLink link)
+    {
+        return link != null && this.pendingLinks.contains(link);
+    }
+
+    /**
+     * Indicates whether the scheduler's request queue is full.
+     *
+     * @return true if no more requests can be queued, otherwise false.
+     */
+    public boolean isFull()
+    {
+        return this.executor.getQueue().remainingCapacity() == 0;
+    }
+
+    /**
+     * Stops the scheduler's worker threads. Queued requests are discarded.
+     *
+     * @param immediately true to interrupt running requests, false to let them complete.
+     */
+    public void shutdown(boolean immediately)
+    {
+        if (immediately)
+            this.executor.shutdownNow();
+        else
+            this.executor.shutdown();
+
+        this.pendingLinks.clear();
+    }
+
+    public int getConnectTimeout()
+    {
+        return this.connectTimeout;
+    }
+
+    public void setConnectTimeout(int connectTimeout)
+    {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public int getReadTimeout()
+    {
+        return this.readTimeout;
+    }
+
+    public void setReadTimeout(int readTimeout)
+    {
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * Returns the number of refresh requests the scheduler has executed.
+     *
+     * @return the number of executed requests.
+     */
+    public long getRequestCount()
+    {
+        return this.requestCount.get();
+    }
+
+    /**
+     * Returns the number of remote requests answered with <code>304 Not Modified</code>.
+     *
+     * @return the number of not-modified responses.
+     */
+    public long getNotModifiedCount()
+    {
+        return this.notModifiedCount.get();
+    }
+
+    /**
+     * Returns the number of remote responses whose payload was identical to the previously parsed payload, and which
+     * were therefore not parsed again.
+     *
+     * @return the number of unchanged payloads.
+     */
+    public long getUnchangedCount()
+    {
+        return this.unchangedCount.get();
+    }
+
+    /**
+     * Returns the number of remote documents the scheduler has parsed.
+     *
+     * @return the number of parsed documents.
+     */
+    public long getParseCount()
+    {
+        return this.parseCount.get();
+    }
+
+    /**
+     * Performs a refresh on the calling thread. Remote HTTP resources are retrieved with a conditional request; all
+     * other resources are passed to {@link KMLNetworkLink#retrieveNetworkResource(String)}.
+     *
+     * @param link    the link to refresh.
+     * @param address the address of the link's resource.
+     */
+    protected void doRefresh(KMLNetworkLink link, String address)
+    {
+        this.requestCount.incrementAndGet();
+
+        URL url = WWIO.makeURL(address);
+        if (url == null || !isHttpURL(url))
+        {
+            link.retrieveNetworkResource(address);
+            return;
+        }
+
+        try
+        {
+            this.refreshRemoteResource(link, address, url);
+        }
+        catch (Exception e)
+        {
+            link.markNetworkResourceAbsent(address);
+            String message = Logging.getMessage("generic.UnableToResolveReference", address);
+            Logging.logger().log(Level.WARNING, message, e);
+        }
+    }
+
+    /**
+     * Retrieves a remote resource with a conditional request and installs it in the link if its content changed.
+     *
+     * @param link    the link to refresh.
+     * @param address the address of the link's resource.
+     * @param url     the resource URL.
+     *
+     * @throws Exception if the resource cannot be retrieved or parsed.
+     */
+    protected void refreshRemoteResource(KMLNetworkLink link, String address, URL url) throws Exception
+    {
+        ResourceState state = this.resourceStates.get(link);
+        boolean sameAddress = state != null && address.equals(state.address);
+
+        HttpURLConnection connection = this.openConnection(url);
+        try
+        {
+            // Only send validators when asking for the same address; view-dependent queries change the address.
+            if (sameAddress && state.entityTag != null)
+                connection.setRequestProperty("If-None-Match", state.entityTag);
+            if (sameAddress && state.lastModified != null)
+                connection.setRequestProperty("If-Modified-Since", state.lastModified);
+
+            int responseCode = connection.getResponseCode();
+            if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED && link.getNetworkResource() != null)
+            {
+                this.notModifiedCount.incrementAndGet();
+                link.markNetworkResourceCurrent(this.computeExpirationTime(connection, null));
+                return;
+            }
+
+            if (responseCode != HttpURLConnection.HTTP_OK)
+            {
+                link.markNetworkResourceAbsent(address);
+                String message = Logging.getMessage("HTTPRetriever.ResponseInfo", responseCode,
+                    connection.getContentLength(), connection.getContentType(), address);
+                Logging.logger().warning(message);
+                return;
+            }
+
+            byte[] content;
+            InputStream stream = connection.getInputStream();
+            try
+            {
+                java.nio.ByteBuffer buffer = WWIO.readStreamToBuffer(stream);
+                content = new byte[buffer.remaining()];
+                buffer.get(content);
+            }
+            finally
+            {
+                WWIO.closeStream(stream, address);
+            }
+
+            ResourceState newState = new ResourceState();
+            newState.address = address;
+            newState.entityTag = connection.getHeaderField("ETag");
+            newState.lastModified = connection.getHeaderField("Last-Modified");
+            newState.digest = this.computeDigest(content);
+
+            link.unmarkNetworkResourceAbsent(address);
+
+            if (state != null && Arrays.equals(state.digest, newState.digest) && link.getNetworkResource() != null)
+            {
+                this.unchangedCount.incrementAndGet();
+                this.resourceStates.put(link, newState);
+                link.markNetworkResourceCurrent(this.computeExpirationTime(connection, null));
+                return;
+            }
+
+            KMLRoot newRoot = this.parseResource(content, address, connection.getContentType());
+            this.parseCount.incrementAndGet();
+            if (newRoot == null)
+            {
+                link.invalidTarget = true; // Stop trying to retrieve this resource
+                return;
+            }
+
+            this.resourceStates.put(link, newState);
+            link.applyNetworkResource(newRoot, address, this.computeExpirationTime(connection, newRoot));
+        }
+        finally
+        {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Opens a connection to a remote resource. The proxy configured for WorldWind, if any, is used.
+     *
+     * @param url the resource URL.
+     *
+     * @return a new connection.
+     *
+     * @throws IOException if the connection cannot be opened.
+     */
+    protected HttpURLConnection openConnection(URL url) throws IOException
+    {
+        Proxy proxy = WWIO.configureProxy();
+        URLConnection connection = proxy != null ? url.openConnection(proxy) : url.openConnection();
+        connection.setConnectTimeout(this.connectTimeout);
+        connection.setReadTimeout(this.readTimeout);
+        connection.setUseCaches(false);
+
+        return (HttpURLConnection) connection;
+    }
+
+    /**
+     * Parses a retrieved KML or KMZ payload. KMZ is detected either by the content type or by the ZIP signature at the
+     * start of the payload. Parsing is first attempted with a namespace aware parser and retried without namespace
+     * awareness if that fails, as in {@link KMLRoot#createAndParse(Object)}.
+     *
+     * @param content     the payload.
+     * @param address     the address the payload was retrieved from. Used to resolve relative references.
+     * @param contentType the content type reported by the server. May be null.
+     *
+     * @return the parsed document, or null if the payload is not a KML document.
+     *
+     * @throws IOException if an error occurs while reading the payload.
+     */
+    protected KMLRoot parseResource(byte[] content, String address, String contentType) throws IOException
+    {
+        try
+        {
+            return this.createRoot(content, address, contentType, true).parse();
+        }
+        catch (XMLStreamException e)
+        {
+            try
+            {
+                return this.createRoot(content, address, contentType, false).parse();
+            }
+            catch (XMLStreamException e1)
+            {
+                String message = Logging.getMessage("KML.InvalidNetworkLinkTarget", address);
+                Logging.logger().warning(message);
+                return null;
+            }
+        }
+    }
+
+    protected KMLRoot createRoot(byte[] content, String address, String contentType, boolean namespaceAware)
+        throws IOException
+    {
+        InputStream stream = new ByteArrayInputStream(content);
+
+        KMLDoc kmlDoc;
+        if (KMLConstants.KMZ_MIME_TYPE.equals(contentType) || isZipContent(content))
+            kmlDoc = new KMZInputStream(stream);
+        else
+            kmlDoc = new KMLInputStream(stream, WWIO.makeURI(address));
+
+        return new KMLRoot(kmlDoc, namespaceAware);
+    }
+
+    /**
+     * Computes the expiration time of a retrieved resource. The expiration is specified by (in order of priority): a
+     * NetworkLinkControl/expires element in the document, an HTTP Cache-Control max-age directive, or an HTTP Expires
+     * header.
+     *
+     * @param connection the connection the resource was retrieved from.
+     * @param root       the parsed document. May be null if the document was not parsed.
+     *
+     * @return the expiration time in milliseconds since the Epoch, or zero to indicate no expiration.
+     */
+    protected long computeExpirationTime(HttpURLConnection connection, KMLRoot root)
+    {
+        KMLNetworkLinkControl linkControl = root != null ? root.getNetworkLinkControl() : null;
+        if (linkControl != null && linkControl.getExpires() != null)
+        {
+            Long time = WWUtil.parseTimeString(linkControl.getExpires());
+            return time != null ? time : 0;
+        }
+
+        String cacheControl = connection.getHeaderField("Cache-Control");
+        if (cacheControl != null)
+        {
+            for (String directive : cacheControl.split(","))
+            {
+                directive = directive.trim();
+                if (directive.startsWith("max-age="))
+                {
+                    Long maxAge = WWUtil.makeLong(directive.substring("max-age=".length()));
+                    if (maxAge != null)
+                        return System.currentTimeMillis() + maxAge * 1000;
+                }
+            }
+        }
+
+        return connection.getExpiration();
+    }
+
+    protected byte[] computeDigest(byte[] content) throws NoSuchAlgorithmException
+    {
+        return MessageDigest.getInstance(DIGEST_ALGORITHM).digest(content);
+    }
+
+    protected static boolean isHttpURL(URL url)
+    {
+        String protocol = url.getProtocol();
+        return "http".equalsIgnoreCase(protocol) || "https".equalsIgnoreCase(protocol);
+    }
+
+    protected static boolean isZipContent(byte[] content)
+    {
+        return content.length >= 4 && content[0] == 'P' && content[1] == 'K' && content[2] == 3 && content[3] == 4;
+    }
+
+    /** Runs a single link refresh and releases the link's pending flag when done. */
+    protected class RefreshTask implements Runnable
+    {
+        protected final KMLNetworkLink link;
+        protected final String address;
+
+        public RefreshTask(KMLNetworkLink link, String address)
+        {
+            this.link = link;
+            this.address = address;
+        }
+
+        public void run()
+        {
+            try
+            {
+                if (!Thread.currentThread().isInterrupted())
+                    doRefresh(this.link, this.address);
+            }
+            finally
+            {
+                pendingLinks.remove(this.link);
+            }
+        }
+
+        public String toString()
+        {
+            return this.address;
+        }
+    }
+}
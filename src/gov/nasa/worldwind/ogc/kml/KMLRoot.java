@@ -38,12 +38,14 @@ import gov.nasa.worldwind.render.DrawContext;
 import gov.nasa.worldwind.util.*;
 import gov.nasa.worldwind.util.xml.*;
 
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
 import javax.xml.stream.*;
 import javax.xml.stream.events.XMLEvent;
 import java.beans.PropertyChangeSupport;
 import java.io.*;
 import java.net.*;
-import java.util.Map;
+import java.util.*;
 import java.util.zip.*;
 
 /**
@@ -84,6 +86,11 @@ public class KMLRoot extends KMLAbstractObject implements KMLRenderable
     protected KMLNetworkLinkControl networkLinkControl;
 
     protected AbsentResourceList absentResourceList = new AbsentResourceList();
+    /**
+     * The scheduler that refreshes this document's network links, or <code>null</code> to refresh them through the
+     * WorldWind task service.
+     */
+    protected KMLNetworkLinkRefreshScheduler networkLinkRefreshScheduler;
 
     /**
      * Creates a KML root for an untyped source. The source must be either a {@link File}, a {@link URL}, a {@link
@@ -459,14 +466,60 @@ public class KMLRoot extends KMLAbstractObject implements KMLRenderable
      */
     protected void initialize(boolean namespaceAware) throws IOException
     {
-        this.eventStream = this.getKMLDoc().getKMLStream();
-        this.eventReader = this.createReader(this.eventStream, namespaceAware);
+        // Replay the document's events from the binary event cache if it has been parsed before. Otherwise parse the
+        // XML and record the events for the next time. Both steps do nothing if the cache is disabled.
+        File cacheSource = this.getDocumentSourceFile();
+        String cacheVariant = namespaceAware ? "KML" : "KML-NamespaceUnaware";
+        this.eventReader = BinaryXMLEventCache.openCachedReader(cacheSource, cacheVariant);
+        if (this.eventReader == null)
+        {
+            this.eventStream = this.getKMLDoc().getKMLStream();
+            this.eventReader = BinaryXMLEventCache.createRecordingReader(cacheSource, cacheVariant,
+                this.createReader(this.eventStream, namespaceAware), this.getCachedNumericElements());
+        }
+
         if (this.eventReader == null)
             throw new WWRuntimeException(Logging.getMessage("XML.UnableToOpenDocument", this.getKMLDoc()));
 
         this.parserContext = this.createParserContext(this.eventReader);
     }
 
+    /**
+     * Indicates the elements whose content the {@link BinaryXMLEventCache} records as numbers. These are the
+     * <i>coordinates</i> elements, which hold most of the numbers in a typical document and which {@link
+     * KMLCoordinatesParser} reads directly from the cache.
+     *
+     * @return the names of the numeric elements, each mapped to the type of its content.
+     */
+    protected Map<QName, Integer> getCachedNumericElements()
+    {
+        Map<QName, Integer> elements = new HashMap<QName, Integer>();
+
+        elements.put(new QName(XMLConstants.NULL_NS_URI, "coordinates"), NumericCharacters.COORDINATES);
+        for (String ns : KMLConstants.KML_NAMESPACES)
+        {
+            elements.put(new QName(ns, "coordinates"), NumericCharacters.COORDINATES);
+        }
+
+        return elements;
+    }
+
+    /**
+     * Indicates the local file containing this root's document, if the document was opened from a KML or KMZ file.
+     * Used to key the document's entry in the {@link BinaryXMLEventCache}.
+     *
+     * @return the document's file, or null if the document was opened from a stream.
+     */
+    protected File getDocumentSourceFile()
+    {
+        if (this.getKMLDoc() instanceof KMLFile)
+            return ((KMLFile) this.getKMLDoc()).getZipFile();
+        else if (this.getKMLDoc() instanceof KMZFile)
+            return new File(((KMZFile) this.getKMLDoc()).getZipFile().getName());
+
+        return null;
+    }
+
     /**
      * Creates the event reader. Called from the constructor.
      *
@@ -1133,6 +1186,9 @@ public class KMLRoot extends KMLAbstractObject implements KMLRenderable
     /** Closes the event stream associated with this context's XML event reader. */
     protected void closeEventStream()
     {
+        if (this.eventStream == null)
+            return; // the document was read from the binary event cache
+
         try
         {
             this.eventStream.close();
@@ -1176,6 +1232,42 @@ public class KMLRoot extends KMLAbstractObject implements KMLRenderable
         return this.networkLinkControl;
     }
 
+    /**
+     * Indicates the list of references and network link addresses that could not be resolved. This method is safe to
+     * call from any thread.
+     *
+     * @return the absent resource list of this document.
+     */
+    protected AbsentResourceList getAbsentResourceList()
+    {
+        return this.absentResourceList;
+    }
+
+    /**
+     * Indicates the scheduler that refreshes this document's network links.
+     *
+     * @return the network link refresh scheduler, or <code>null</code> if network links are refreshed through the
+     *         WorldWind task service.
+     *
+     * @see #setNetworkLinkRefreshScheduler(KMLNetworkLinkRefreshScheduler)
+     */
+    public KMLNetworkLinkRefreshScheduler getNetworkLinkRefreshScheduler()
+    {
+        return this.networkLinkRefreshScheduler;
+    }
+
+    /**
+     * Specifies a scheduler that retrieves and parses the documents referenced by this document's network links. The
+     * scheduler is inherited by the documents those links load. If <code>null</code>, network links are retrieved
+     * through the WorldWind task service and file store. Initially <code>null</code>.
+     *
+     * @param scheduler the network link refresh scheduler. May be <code>null</code>.
+     */
+    public void setNetworkLinkRefreshScheduler(KMLNetworkLinkRefreshScheduler scheduler)
+    {
+        this.networkLinkRefreshScheduler = scheduler;
+    }
+
     /**
      * Returns the KML <code>Feature</code> element contained in the document root.
      *
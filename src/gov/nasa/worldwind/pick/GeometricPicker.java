@@ -0,0 +1,715 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.pick;
+
+import gov.nasa.worldwind.*;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.render.*;
+import gov.nasa.worldwind.render.airspaces.Airspace;
+import gov.nasa.worldwind.util.Logging;
+
+import java.awt.*;
+import java.awt.geom.Rectangle2D;
+import java.util.*;
+import java.util.List;
+
+/**
+ * Picks objects on the CPU by testing their geometry against a pick point or pick rectangle, as an alternative to
+ * drawing them in unique colors and reading back the frame buffer as {@link PickSupport} does. The picker needs no
+ * OpenGL context, so it can also answer pick queries in headless applications.
+ * <p>
+ * The picker computes the model coordinate geometry of {@link GeometricPickable} objects, and the bounding sphere of
+ * other {@link ExtentHolder} objects, and holds the geometry in a bounding volume hierarchy. A query visits only the
+ * hierarchy nodes whose screen projection intersects the pick region, then tests the geometry of the objects in those
+ * nodes exactly.
+ * <p>
+ * Geometry is recomputed when the set of objects, the globe or the vertical exaggeration changes, and for {@link
+ * Movable} objects whose reference position has changed. Applications that change an object's geometry in other ways,
+ * such as by replacing a path's positions, call {@link #invalidate()}.
+ *
+ * @version $Id$
+ * @see GeometricPickable
+ * @see PickGeometry
+ */
+public class GeometricPicker
+{
+    protected static final int MAX_LEAF_SIZE = 8;
+    protected static final double DEFAULT_PICK_TOLERANCE = 1;
+
+    /** Projects model coordinates to screen coordinates for a particular view. */
+    public static class ScreenProjection
+    {
+        protected final Matrix matrix;
+        protected final Rectangle viewport;
+        protected final Vec4 eyePoint;
+        protected final boolean horizonTest;
+        protected final double pixelsPerUnitAtUnitDepth;
+
+        /**
+         * Creates a screen projection.
+         *
+         * @param modelview  the modelview matrix.
+         * @param projection the perspective projection matrix.
+         * @param viewport   the viewport.
+         * @param globe      the globe, used to exclude geometry on its far side. May be null, in which case no geometry
+         *                   is excluded.
+         *
+         * @throws IllegalArgumentException if the modelview matrix, projection matrix or viewport is null.
+         */
+        public ScreenProjection(Matrix modelview, Matrix projection, Rectangle viewport, Globe globe)
+        {
+            if (modelview == null || projection == null)
+            {
+                String message = Logging.getMessage("nullValue.MatrixIsNull");
+                Logging.logger().severe(message);
+                throw new IllegalArgumentException(message);
+            }
+
+            if (viewport == null)
+            {
+                String message = Logging.getMessage("nullValue.RectangleIsNull");
+                Logging.logger().severe(message);
+                throw new IllegalArgumentException(message);
+            }
+
+            this.matrix = projection.multiply(modelview);
+            this.viewport = new Rectangle(viewport);
+            this.eyePoint = modelview.extractEyePoint();
+            this.horizonTest = globe != null && !(globe instanceof Globe2D);
+            this.pixelsPerUnitAtUnitDepth = 0.5 * projection.m11 * viewport.width;
+        }
+
+        /**
+         * Creates a screen projection for a view's current state.
+         *
+         * @param view  the view.
+         * @param globe the globe, used to exclude geometry on its far side. May be null.
+         *
+         * @return the view's screen projection.
+         *
+         * @throws IllegalArgumentException if the view is null.
+         */
+        public static ScreenProjection fromView(View view, Globe globe)
+        {
+            if (view == null)
+            {
+                String message = Logging.getMessage("nullValue.ViewIsNull");
+                Logging.logger().severe(message);
+                throw new IllegalArgumentException(message);
+            }
+
+            return new ScreenProjection(view.getModelviewMatrix(), view.getProjectionMatrix(), view.getViewport(),
+                globe);
+        }
+
+        /**
+         * Projects a model coordinate point to the screen.
+         *
+         * @param x      the point's x coordinate.
+         * @param y      the point's y coordinate.
+         * @param z      the point's z coordinate.
+         * @param result receives the screen x and y coordinates, with y measured down from the top of the viewport, and
+         *               the point's depth in front of the eye.
+         *
+         * @return false if the point is behind the eye, otherwise true.
+         */
+        public boolean project(double x, double y, double z, double[] result)
+        {
+            Matrix m = this.matrix;
+            double w = m.m41 * x + m.m42 * y + m.m43 * z + m.m44;
+            if (w <= 0)
+                return false;
+
+            double ndcX = (m.m11 * x + m.m12 * y + m.m13 * z + m.m14) / w;
+            double ndcY = (m.m21 * x + m.m22 * y + m.m23 * z + m.m24) / w;
+
+            result[0] = this.viewport.x + 0.5 * (ndcX + 1) * this.viewport.width;
+            result[1] = this.viewport.height - 1 - 0.5 * (ndcY + 1) * this.viewport.height;
+            result[2] = w;
+            return true;
+        }
+
+        /**
+         * Indicates whether a point on or near the globe's surface faces away from the eye.
+         *
+         * @param x the point's x coordinate.
+         * @param y the point's y coordinate.
+         * @param z the point's z coordinate.
+         *
+         * @return true if the point is on the far side of the globe, otherwise false.
+         */
+        public boolean isBeyondHorizon(double x, double y, double z)
+        {
+            return this.horizonTest
+                && (this.eyePoint.x - x) * x + (this.eyePoint.y - y) * y + (this.eyePoint.z - z) * z < 0;
+        }
+
+        /**
+         * Indicates the screen size of a unit length at unit depth, used to compute the screen size of spheres.
+         *
+         * @return the number of pixels per model coordinate unit at a depth of one unit.
+         */
+        public double getPixelsPerUnitAtUnitDepth()
+        {
+            return this.pixelsPerUnitAtUnitDepth;
+        }
+    }
+
+    /** An object and its geometry. */
+    protected static class Target
+    {
+        protected final Object object;
+        protected PickGeometry geometry;
+        protected Position referencePosition;
+
+        public Target(Object object)
+        {
+            this.object = object;
+        }
+    }
+
+    /** A node of the bounding volume hierarchy, spanning a range of the target array. */
+    protected static class Node
+    {
+        protected final double[] bounds = new double[6];
+        protected double pixelRadius;
+        protected Node left;
+        protected Node right;
+        protected int start;
+        protected int end;
+    }
+
+    protected double pickTolerance = DEFAULT_PICK_TOLERANCE;
+    protected final List<Object> objects = new ArrayList<Object>();
+    protected final List<Object> unsupportedObjects = new ArrayList<Object>();
+    protected Target[] targets = new Target[0];
+    protected Node root;
+    protected boolean invalid = true;
+    protected boolean trackMovables = true;
+    protected Object lastGlobeStateKey;
+    protected double lastVerticalExaggeration;
+
+    /** Creates an empty picker. */
+    public GeometricPicker()
+    {
+    }
+
+    /**
+     * Indicates the distance in pixels within which geometry is considered to be at the pick point.
+     *
+     * @return the pick tolerance, in pixels.
+     */
+    public double getPickTolerance()
+    {
+        return this.pickTolerance;
+    }
+
+    /**
+     * Specifies the distance in pixels within which geometry is considered to be at the pick point. The default is one
+     * pixel.
+     *
+     * @param pickTolerance the pick tolerance, in pixels.
+     */
+    public void setPickTolerance(double pickTolerance)
+    {
+        this.pickTolerance = pickTolerance;
+    }
+
+    /**
+     * Specifies the objects to pick. The picker recomputes its geometry only if the objects differ from those
+     * specified previously.
+     *
+     * @param objects the objects to pick.
+     *
+     * @throws IllegalArgumentException if the objects are null.
+     */
+    public void setObjects(Iterable<?> objects)
+    {
+        if (objects == null)
+        {
+            String message = Logging.getMessage("nullValue.IterableIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        int i = 0;
+        boolean changed = false;
+        for (Object o : objects)
+        {
+            if (i >= this.objects.size())
+            {
+                this.objects.add(o);
+                changed = true;
+            }
+            else if (this.objects.get(i) != o)
+            {
+                this.objects.set(i, o);
+                changed = true;
+            }
+            i++;
+        }
+
+        if (i < this.objects.size())
+        {
+            this.objects.subList(i, this.objects.size()).clear();
+            changed = true;
+        }
+
+        if (changed)
+            this.invalidate();
+    }
+
+    /**
+     * Indicates whether the picker detects objects that have moved. See {@link #setTrackMovables(boolean)}.
+     *
+     * @return true if the picker detects moved objects, otherwise false.
+     */
+    public boolean isTrackMovables()
+    {
+        return this.trackMovables;
+    }
+
+    /**
+     * Specifies whether the picker compares the reference position of each {@link Movable} object with the one its
+     * geometry was computed for, and recomputes the geometry of objects that have moved, before each query. The
+     * comparison visits every object, so its cost grows with the number of objects. Applications with many objects
+     * that move rarely, or that call {@link #invalidate()} when objects move, can disable it. It is enabled by
+     * default.
+     *
+     * @param trackMovables true to detect moved objects before each query, otherwise false.
+     */
+    public void setTrackMovables(boolean trackMovables)
+    {
+        this.trackMovables = trackMovables;
+    }
+
+    /** Causes the geometry of all objects to be recomputed before the next query. */
+    public void invalidate()
+    {
+        this.invalid = true;
+    }
+
+    /**
+     * Returns the objects that are neither {@link GeometricPickable} nor {@link ExtentHolder}, and therefore cannot be
+     * picked by this picker. The list is determined by the most recent query.
+     *
+     * @return the objects this picker cannot pick.
+     */
+    public List<Object> getUnsupportedObjects()
+    {
+        return Collections.unmodifiableList(this.unsupportedObjects);
+    }
+
+    /**
+     * Finds the objects drawn at a screen point.
+     *
+     * @param globe                the globe.
+     * @param verticalExaggeration the vertical exaggeration of the scene.
+     * @param projection           the screen projection.
+     * @param pickPoint            the screen point, with y measured down from the top of the viewport.
+     *
+     * @return the picked objects ordered from nearest to farthest.
+     *
+     * @throws IllegalArgumentException if the globe, projection or pick point is null.
+     */
+    public List<PickedObject> pick(Globe globe, double verticalExaggeration, ScreenProjection projection,
+        Point pickPoint)
+    {
+        if (pickPoint == null)
+        {
+            String message = Logging.getMessage("nullValue.PointIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.validate(globe, verticalExaggeration, projection);
+
+        final List<PickedObject> result = new ArrayList<PickedObject>();
+        if (this.root == null)
+            return result;
+
+        final Map<PickedObject, Double> depths = new HashMap<PickedObject, Double>();
+        Rectangle2D region = new Rectangle2D.Double(pickPoint.x - this.pickTolerance,
+            pickPoint.y - this.pickTolerance, 2 * this.pickTolerance, 2 * this.pickTolerance);
+        List<Target> candidates = new ArrayList<Target>();
+        this.collectCandidates(this.root, projection, region, candidates);
+
+        PickGeometry.Hit hit = new PickGeometry.Hit();
+        for (Target target : candidates)
+        {
+            if (this.isVisible(target.object)
+                && target.geometry.pick(projection, pickPoint.x, pickPoint.y, this.pickTolerance, hit))
+            {
+                PickedObject po = this.createPickedObject(globe, verticalExaggeration, pickPoint, target, hit.point);
+                depths.put(po, hit.depth);
+                result.add(po);
+            }
+        }
+
+        Collections.sort(result, new Comparator<PickedObject>()
+        {
+            public int compare(PickedObject a, PickedObject b)
+            {
+                return Double.compare(depths.get(a), depths.get(b));
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Finds the objects drawn within a screen rectangle.
+     *
+     * @param globe                the globe.
+     * @param verticalExaggeration the vertical exaggeration of the scene.
+     * @param projection           the screen projection.
+     * @param pickRect             the screen rectangle, with y measured down from the top of the viewport.
+     *
+     * @return the objects intersecting the rectangle, in the order they were specified.
+     *
+     * @throws IllegalArgumentException if the globe, projection or rectangle is null.
+     */
+    public List<PickedObject> pickInRectangle(Globe globe, double verticalExaggeration, ScreenProjection projection,
+        Rectangle pickRect)
+    {
+        if (pickRect == null)
+        {
+            String message = Logging.getMessage("nullValue.RectangleIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.validate(globe, verticalExaggeration, projection);
+
+        List<PickedObject> result = new ArrayList<PickedObject>();
+        if (this.root == null)
+            return result;
+
+        List<Target> candidates = new ArrayList<Target>();
+        this.collectCandidates(this.root, projection, pickRect, candidates);
+
+        for (Target target : candidates)
+        {
+            if (this.isVisible(target.object) && target.geometry.intersects(projection, pickRect))
+                result.add(this.createPickedObject(globe, verticalExaggeration, null, target, null));
+        }
+
+        return result;
+    }
+
+    protected void validate(Globe globe, double verticalExaggeration, ScreenProjection projection)
+    {
+        if (globe == null)
+        {
+            String message = Logging.getMessage("nullValue.GlobeIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (projection == null)
+        {
+            String message = Logging.getMessage("nullValue.ProjectionIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        Object globeStateKey = globe.getGlobeStateKey();
+        if (this.invalid || !globeStateKey.equals(this.lastGlobeStateKey)
+            || verticalExaggeration != this.lastVerticalExaggeration)
+        {
+            this.build(globe, verticalExaggeration);
+            this.lastGlobeStateKey = globeStateKey;
+            this.lastVerticalExaggeration = verticalExaggeration;
+            this.invalid = false;
+        }
+        else if (this.trackMovables && this.updateMovedTargets(globe, verticalExaggeration) && this.root != null)
+        {
+            this.refit(this.root);
+        }
+    }
+
+    protected void build(Globe globe, double verticalExaggeration)
+    {
+        List<Target> list = new ArrayList<Target>(this.objects.size());
+        this.unsupportedObjects.clear();
+
+        for (Object o : this.objects)
+        {
+            if (!(o instanceof GeometricPickable) && !(o instanceof ExtentHolder))
+            {
+                if (o != null)
+                    this.unsupportedObjects.add(o);
+                continue;
+            }
+
+            Target target = new Target(o);
+            this.computeGeometry(globe, verticalExaggeration, target);
+            if (target.geometry != null)
+                list.add(target);
+        }
+
+        this.targets = list.toArray(new Target[list.size()]);
+        this.root = this.targets.length > 0 ? this.buildNode(0, this.targets.length) : null;
+    }
+
+    protected void computeGeometry(Globe globe, double verticalExaggeration, Target target)
+    {
+        Object o = target.object;
+        target.referencePosition = o instanceof Movable ? ((Movable) o).getReferencePosition() : null;
+
+        try
+        {
+            if (o instanceof GeometricPickable)
+            {
+                target.geometry = ((GeometricPickable) o).getPickGeometry(globe, verticalExaggeration);
+            }
+            else
+            {
+                Extent extent = ((ExtentHolder) o).getExtent(globe, verticalExaggeration);
+                target.geometry = extent != null ? PickGeometry.fromExtent(extent) : null;
+            }
+        }
+        catch (Exception e)
+        {
+            String message = Logging.getMessage("GeometricPicker.ExceptionComputingPickGeometry", o);
+            Logging.logger().log(java.util.logging.Level.FINE, message, e);
+            target.geometry = null;
+        }
+    }
+
+    /**
+     * Recomputes the geometry of Movable targets whose reference position has changed.
+     *
+     * @return true if any geometry changed, otherwise false.
+     */
+    protected boolean updateMovedTargets(Globe globe, double verticalExaggeration)
+    {
+        boolean changed = false;
+
+        for (Target target : this.targets)
+        {
+            if (!(target.object instanceof Movable))
+                continue;
+
+            Position position = ((Movable) target.object).getReferencePosition();
+            if (position != target.referencePosition
+                && (position == null || !position.equals(target.referencePosition)))
+            {
+                PickGeometry geometry = target.geometry;
+                this.computeGeometry(globe, verticalExaggeration, target);
+                if (target.geometry == null)
+                    target.geometry = geometry; // keep the node bounds meaningful; the object is stale at worst
+                changed = true;
+            }
+        }
+
+        return changed;
+    }
+
+    protected Node buildNode(int start, int end)
+    {
+        Node node = new Node();
+        node.start = start;
+        node.end = end;
+        this.computeNodeBounds(node);
+
+        if (end - start <= MAX_LEAF_SIZE)
+            return node;
+
+        // Split at the median centroid along the longest axis.
+        double[] b = node.bounds;
+        int axis = b[3] - b[0] >= b[4] - b[1] && b[3] - b[0] >= b[5] - b[2] ? 0 : b[4] - b[1] >= b[5] - b[2] ? 1 : 2;
+        int mid = (start + end) >>> 1;
+        this.selectMedian(start, end, mid, axis);
+
+        node.left = this.buildNode(start, mid);
+        node.right = this.buildNode(mid, end);
+
+        return node;
+    }
+
+    /**
+     * Partially orders a range of the target array so that the target at index k is the one that would be there if
+     * the range were sorted by centroid along an axis, with no target before it having a greater centroid and no target
+     * after it having a lesser one. This takes time linear in the length of the range.
+     */
+    protected void selectMedian(int start, int end, int k, int axis)
+    {
+        Target[] t = this.targets;
+        int lo = start, hi = end - 1;
+        while (lo < hi)
+        {
+            double pivot = centroid(t[(lo + hi) >>> 1], axis);
+            int i = lo, j = hi;
+            while (i <= j)
+            {
+                while (centroid(t[i], axis) < pivot)
+                {
+                    i++;
+                }
+                while (centroid(t[j], axis) > pivot)
+                {
+                    j--;
+                }
+                if (i <= j)
+                {
+                    Target tmp = t[i];
+                    t[i++] = t[j];
+                    t[j--] = tmp;
+                }
+            }
+
+            if (k <= j)
+                hi = j;
+            else if (k >= i)
+                lo = i;
+            else
+                break;
+        }
+    }
+
+    protected static double centroid(Target target, int axis)
+    {
+        double[] b = target.geometry.getBounds();
+        return b[axis] + b[axis + 3];
+    }
+
+    protected void refit(Node node)
+    {
+        if (node.left != null)
+        {
+            this.refit(node.left);
+            this.refit(node.right);
+        }
+
+        this.computeNodeBounds(node);
+    }
+
+    protected void computeNodeBounds(Node node)
+    {
+        double[] b = node.bounds;
+        b[0] = b[1] = b[2] = Double.MAX_VALUE;
+        b[3] = b[4] = b[5] = -Double.MAX_VALUE;
+        node.pixelRadius = 0;
+
+        for (int i = node.start; i < node.end; i++)
+        {
+            double[] tb = this.targets[i].geometry.getBounds();
+            for (int j = 0; j < 3; j++)
+            {
+                b[j] = Math.min(b[j], tb[j]);
+                b[j + 3] = Math.max(b[j + 3], tb[j + 3]);
+            }
+            node.pixelRadius = Math.max(node.pixelRadius, this.targets[i].geometry.getPixelRadius());
+        }
+    }
+
+    protected void collectCandidates(Node node, ScreenProjection projection, Rectangle2D region, List<Target> result)
+    {
+        if (!this.intersects(node, projection, region))
+            return;
+
+        if (node.left == null)
+        {
+            result.addAll(Arrays.asList(this.targets).subList(node.start, node.end));
+            return;
+        }
+
+        this.collectCandidates(node.left, projection, region, result);
+        this.collectCandidates(node.right, projection, region, result);
+    }
+
+    /** Tests the screen projection of a node's bounding box against a screen region. */
+    protected boolean intersects(Node node, ScreenProjection projection, Rectangle2D region)
+    {
+        double[] b = node.bounds;
+        double[] p = new double[3];
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+
+        for (int i = 0; i < 8; i++)
+        {
+            if (!projection.project(b[(i & 1) == 0 ? 0 : 3], b[(i & 2) == 0 ? 1 : 4], b[(i & 4) == 0 ? 2 : 5], p))
+                return true; // the box spans the eye plane; its projection is unbounded
+
+            minX = Math.min(minX, p[0]);
+            minY = Math.min(minY, p[1]);
+            maxX = Math.max(maxX, p[0]);
+            maxY = Math.max(maxY, p[1]);
+        }
+
+        double pad = node.pixelRadius + this.pickTolerance;
+        return maxX + pad >= region.getMinX() && minX - pad <= region.getMaxX()
+            && maxY + pad >= region.getMinY() && minY - pad <= region.getMaxY();
+    }
+
+    protected boolean isVisible(Object o)
+    {
+        if (o instanceof AbstractShape)
+            return ((AbstractShape) o).isVisible();
+        else if (o instanceof PointPlacemark)
+            return ((PointPlacemark) o).isVisible();
+        else if (o instanceof SurfaceObject)
+            return ((SurfaceObject) o).isVisible();
+        else if (o instanceof Airspace)
+            return ((Airspace) o).isVisible();
+
+        return true;
+    }
+
+    protected PickedObject createPickedObject(Globe globe, double verticalExaggeration, Point pickPoint,
+        Target target, Vec4 point)
+    {
+        Object userObject = target.object;
+        Object delegateOwner = null;
+        if (userObject instanceof AbstractShape)
+            delegateOwner = ((AbstractShape) userObject).getDelegateOwner();
+        else if (userObject instanceof PointPlacemark)
+            delegateOwner = ((PointPlacemark) userObject).getDelegateOwner();
+        else if (userObject instanceof SurfaceObject)
+            delegateOwner = ((SurfaceObject) userObject).getDelegateOwner();
+        else if (userObject instanceof Airspace)
+            delegateOwner = ((Airspace) userObject).getDelegateOwner();
+
+        if (delegateOwner != null)
+            userObject = delegateOwner;
+
+        if (point == null)
+            return new PickedObject(0, userObject);
+
+        Position position = globe.computePositionFromPoint(point);
+        if (verticalExaggeration != 0 && verticalExaggeration != 1)
+            position = new Position(position, position.getElevation() / verticalExaggeration);
+
+        return new PickedObject(pickPoint, 0, userObject, position.getLatitude(), position.getLongitude(),
+            position.getElevation(), false);
+    }
+}
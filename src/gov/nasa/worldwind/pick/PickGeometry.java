@@ -0,0 +1,573 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.pick;
+
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.Globe;
+import gov.nasa.worldwind.util.Logging;
+
+import java.awt.geom.Rectangle2D;
+import java.util.List;
+
+/**
+ * The geometry of a pickable object in model coordinates, used by {@link GeometricPicker} to test the object against a
+ * pick point or pick rectangle on the CPU. Geometry is one of five kinds: <ul> <li>{@link #POINT}: a point drawn as a
+ * disc of fixed screen size;</li> <li>{@link #LINES}: one or more polylines drawn with a fixed screen width;</li>
+ * <li>{@link #POLYGON}: one or more rings enclosing a filled interior, tested with the even-odd rule;</li> <li>{@link
+ * #SPHERE}: a bounding sphere, used for objects that provide only their extent; and</li> <li>{@link #SCREEN_RECTANGLE}:
+ * a rectangle of fixed screen size placed relative to a point, such as a placemark image.</li> </ul>
+ * <p>
+ * Hit tests are performed in screen coordinates. Segments and rings with a vertex behind the eye are not tested, and
+ * geometry facing away from the eye on the far side of the globe is not picked.
+ *
+ * @version $Id$
+ * @see GeometricPickable
+ */
+public class PickGeometry
+{
+    public static final int POINT = 1;
+    public static final int LINES = 2;
+    public static final int POLYGON = 3;
+    public static final int SPHERE = 4;
+    public static final int SCREEN_RECTANGLE = 5;
+
+    /** The result of a hit test. */
+    public static class Hit
+    {
+        /** The distance of the hit from the eye, along the view direction. */
+        public double depth;
+        /** The model coordinate point of the hit. */
+        public Vec4 point;
+    }
+
+    protected final int type;
+    /** Vertex coordinates, three per vertex. */
+    protected final double[] coords;
+    /** The first vertex of each part, followed by the number of vertices. */
+    protected final int[] partStarts;
+    /** The radius of a point or the half-width of a line, in pixels. */
+    protected final double pixelRadius;
+    /** The radius of a sphere, in model coordinates. */
+    protected final double radius;
+    /** The geometry's bounding box in model coordinates: min x, y, z then max x, y, z. */
+    protected final double[] bounds = new double[6];
+    /** The screen rectangle of a {@link #SCREEN_RECTANGLE}, in pixels relative to its point. Null for other kinds. */
+    protected Rectangle2D screenRectangle;
+
+    protected PickGeometry(int type, double[] coords, int[] partStarts, double pixelRadius, double radius)
+    {
+        this.type = type;
+        this.coords = coords;
+        this.partStarts = partStarts;
+        this.pixelRadius = pixelRadius;
+        this.radius = radius;
+
+        this.bounds[0] = this.bounds[1] = this.bounds[2] = Double.MAX_VALUE;
+        this.bounds[3] = this.bounds[4] = this.bounds[5] = -Double.MAX_VALUE;
+        for (int i = 0; i < coords.length; i += 3)
+        {
+            for (int j = 0; j < 3; j++)
+            {
+                this.bounds[j] = Math.min(this.bounds[j], coords[i + j] - radius);
+                this.bounds[j + 3] = Math.max(this.bounds[j + 3], coords[i + j] + radius);
+            }
+        }
+    }
+
+    /**
+     * Creates the geometry of a point drawn as a disc of fixed screen size.
+     *
+     * @param point       the point in model coordinates.
+     * @param pixelRadius the radius of the disc, in pixels.
+     *
+     * @return the point geometry.
+     *
+     * @throws IllegalArgumentException if the point is null.
+     */
+    public static PickGeometry fromPoint(Vec4 point, double pixelRadius)
+    {
+        if (point == null)
+        {
+            String message = Logging.getMessage("nullValue.PointIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        return new PickGeometry(POINT, new double[] {point.x, point.y, point.z}, new int[] {0, 1}, pixelRadius, 0);
+    }
+
+    /**
+     * Creates the geometry of a rectangle of fixed screen size placed relative to a point. The rectangle is specified
+     * in pixels relative to the point's screen projection, with y increasing upward as in OpenGL window coordinates.
+     *
+     * @param point     the point in model coordinates.
+     * @param rectangle the rectangle's position relative to the point and its size, in pixels.
+     *
+     * @return the rectangle geometry.
+     *
+     * @throws IllegalArgumentException if the point or the rectangle is null.
+     */
+    public static PickGeometry fromScreenRectangle(Vec4 point, Rectangle2D rectangle)
+    {
+        if (point == null)
+        {
+            String message = Logging.getMessage("nullValue.PointIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (rectangle == null)
+        {
+            String message = Logging.getMessage("nullValue.RectangleIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        // The pixel radius bounds the rectangle's distance from the point, and is used to pad bounding volume tests.
+        double pixelRadius = Math.max(Math.max(Math.abs(rectangle.getMinX()), Math.abs(rectangle.getMaxX())),
+            Math.max(Math.abs(rectangle.getMinY()), Math.abs(rectangle.getMaxY())));
+
+        PickGeometry geometry = new PickGeometry(SCREEN_RECTANGLE, new double[] {point.x, point.y, point.z},
+            new int[] {0, 1}, pixelRadius, 0);
+        geometry.screenRectangle = (Rectangle2D) rectangle.clone();
+        return geometry;
+    }
+
+    /**
+     * Creates the geometry of one or more polylines.
+     *
+     * @param lines     the polylines' vertices in model coordinates.
+     * @param lineWidth the width of the lines, in pixels.
+     *
+     * @return the line geometry, or null if no line has a vertex.
+     *
+     * @throws IllegalArgumentException if the list of lines is null.
+     */
+    public static PickGeometry fromLines(List<? extends List<Vec4>> lines, double lineWidth)
+    {
+        return fromParts(LINES, lines, 0.5 * lineWidth);
+    }
+
+    /**
+     * Creates the geometry of a filled polygon. The rings need not be closed.
+     *
+     * @param rings        the vertices of the polygon's rings in model coordinates.
+     * @param outlineWidth the width of the polygon's outline, in pixels.
+     *
+     * @return the polygon geometry, or null if no ring has a vertex.
+     *
+     * @throws IllegalArgumentException if the list of rings is null.
+     */
+    public static PickGeometry fromPolygon(List<? extends List<Vec4>> rings, double outlineWidth)
+    {
+        return fromParts(POLYGON, rings, 0.5 * outlineWidth);
+    }
+
+    /**
+     * Creates the geometry of a sphere bounding an extent.
+     *
+     * @param extent the extent.
+     *
+     * @return the sphere geometry.
+     *
+     * @throws IllegalArgumentException if the extent is null.
+     */
+    public static PickGeometry fromExtent(Extent extent)
+    {
+        if (extent == null)
+        {
+            String message = Logging.getMessage("nullValue.ExtentIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        Vec4 c = extent.getCenter();
+        return new PickGeometry(SPHERE, new double[] {c.x, c.y, c.z}, new int[] {0, 1}, 0, extent.getRadius());
+    }
+
+    protected static PickGeometry fromParts(int type, List<? extends List<Vec4>> parts, double pixelRadius)
+    {
+        if (parts == null)
+        {
+            String message = Logging.getMessage("nullValue.ListIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        int numVertices = 0;
+        int numParts = 0;
+        for (List<Vec4> part : parts)
+        {
+            if (part != null && part.size() > 0)
+            {
+                numVertices += part.size();
+                numParts++;
+            }
+        }
+
+        if (numVertices == 0)
+            return null;
+
+        double[] coords = new double[3 * numVertices];
+        int[] partStarts = new int[numParts + 1];
+        int vertex = 0;
+        int partIndex = 0;
+        for (List<Vec4> part : parts)
+        {
+            if (part == null || part.size() == 0)
+                continue;
+
+            partStarts[partIndex++] = vertex;
+            for (Vec4 point : part)
+            {
+                coords[3 * vertex] = point.x;
+                coords[3 * vertex + 1] = point.y;
+                coords[3 * vertex + 2] = point.z;
+                vertex++;
+            }
+        }
+        partStarts[numParts] = vertex;
+
+        return new PickGeometry(type, coords, partStarts, pixelRadius, 0);
+    }
+
+    /**
+     * Computes the model coordinate point of a position drawn with a specified altitude mode.
+     *
+     * @param globe                the globe.
+     * @param verticalExaggeration the vertical exaggeration of the scene.
+     * @param position             the position.
+     * @param altitudeMode         the altitude mode: {@link WorldWind#CLAMP_TO_GROUND}, {@link
+     *                             WorldWind#RELATIVE_TO_GROUND} or {@link WorldWind#ABSOLUTE}.
+     *
+     * @return the model coordinate point.
+     */
+    public static Vec4 computePoint(Globe globe, double verticalExaggeration, LatLon position, int altitudeMode)
+    {
+        double elevation = position instanceof Position ? ((Position) position).getElevation() : 0;
+
+        if (altitudeMode == WorldWind.CLAMP_TO_GROUND)
+            elevation = globe.getElevation(position.getLatitude(), position.getLongitude());
+        else if (altitudeMode == WorldWind.RELATIVE_TO_GROUND)
+            elevation += globe.getElevation(position.getLatitude(), position.getLongitude());
+
+        return globe.computePointFromPosition(position.getLatitude(), position.getLongitude(),
+            elevation * verticalExaggeration);
+    }
+
+    /**
+     * Indicates the kind of this geometry.
+     *
+     * @return one of {@link #POINT}, {@link #LINES}, {@link #POLYGON}, {@link #SPHERE} or {@link
+     *         #SCREEN_RECTANGLE}.
+     */
+    public int getType()
+    {
+        return this.type;
+    }
+
+    /**
+     * Returns the screen rectangle of a {@link #SCREEN_RECTANGLE} geometry.
+     *
+     * @return the rectangle in pixels relative to the point's screen projection, with y increasing upward, or null if
+     *         this geometry is not a screen rectangle. The rectangle must not be modified.
+     */
+    public Rectangle2D getScreenRectangle()
+    {
+        return this.screenRectangle;
+    }
+
+    /**
+     * Returns the geometry's bounding box in model coordinates.
+     *
+     * @return an array of minimum x, y and z, followed by maximum x, y and z. The array must not be modified.
+     */
+    public double[] getBounds()
+    {
+        return this.bounds;
+    }
+
+    /**
+     * Indicates the distance in pixels by which the drawn geometry extends beyond its vertices.
+     *
+     * @return the radius of a point or the half-width of a line, in pixels.
+     */
+    public double getPixelRadius()
+    {
+        return this.pixelRadius;
+    }
+
+    /**
+     * Tests whether this geometry is drawn at a screen point, within a tolerance.
+     *
+     * @param projection the screen projection.
+     * @param x          the screen x coordinate.
+     * @param y          the screen y coordinate, measured down from the top of the viewport.
+     * @param tolerance  the pick tolerance, in pixels.
+     * @param hit        receives the depth and model point of the nearest hit.
+     *
+     * @return true if the geometry is hit, otherwise false.
+     */
+    public boolean pick(GeometricPicker.ScreenProjection projection, double x, double y, double tolerance, Hit hit)
+    {
+        double[] a = new double[3];
+        double[] b = new double[3];
+
+        if (this.type == SCREEN_RECTANGLE)
+        {
+            if (!this.project(projection, 0, a) || !this.computeScreenRectangle(a, tolerance).contains(x, y))
+                return false;
+
+            hit.depth = a[2];
+            hit.point = this.vertex(0);
+            return true;
+        }
+
+        if (this.type == POINT || this.type == SPHERE)
+        {
+            if (!this.project(projection, 0, a))
+                return false;
+
+            double r = tolerance + this.pixelRadius + this.computeScreenRadius(projection, a[2]);
+            double dx = a[0] - x;
+            double dy = a[1] - y;
+            if (dx * dx + dy * dy > r * r)
+                return false;
+
+            hit.depth = Math.max(0, a[2] - this.radius);
+            hit.point = new Vec4(this.coords[0], this.coords[1], this.coords[2]);
+            return true;
+        }
+
+        boolean found = false;
+        double r = tolerance + this.pixelRadius;
+        boolean closed = this.type == POLYGON;
+
+        for (int part = 0; part < this.partStarts.length - 1; part++)
+        {
+            int start = this.partStarts[part];
+            int end = this.partStarts[part + 1];
+            int last = closed ? end : end - 1;
+
+            if (end - start == 1)
+            {
+                if (this.project(projection, start, a) && this.distanceSquared(x, y, a, a) <= r * r
+                    && (!found || a[2] < hit.depth))
+                {
+                    hit.depth = a[2];
+                    hit.point = this.vertex(start);
+                    found = true;
+                }
+                continue;
+            }
+
+            for (int i = start; i < last; i++)
+            {
+                int j = i + 1 < end ? i + 1 : start;
+                if (!this.project(projection, i, a) || !this.project(projection, j, b))
+                    continue;
+
+                double t = this.segmentParameter(x, y, a, b);
+                double px = a[0] + t * (b[0] - a[0]) - x;
+                double py = a[1] + t * (b[1] - a[1]) - y;
+                double depth = a[2] + t * (b[2] - a[2]);
+                if (px * px + py * py <= r * r && (!found || depth < hit.depth))
+                {
+                    hit.depth = depth;
+                    hit.point = this.vertex(i).add3(this.vertex(j).subtract3(this.vertex(i)).multiply3(t));
+                    found = true;
+                }
+            }
+        }
+
+        if (!found && closed)
+            found = this.pickInterior(projection, x, y, hit);
+
+        return found;
+    }
+
+    /**
+     * Tests whether this geometry is drawn within a screen rectangle.
+     *
+     * @param projection the screen projection.
+     * @param rect       the screen rectangle, with y measured down from the top of the viewport.
+     *
+     * @return true if any part of the geometry is within the rectangle, otherwise false.
+     */
+    public boolean intersects(GeometricPicker.ScreenProjection projection, Rectangle2D rect)
+    {
+        double[] a = new double[3];
+        double[] b = new double[3];
+
+        if (this.type == SCREEN_RECTANGLE)
+            return this.project(projection, 0, a) && this.computeScreenRectangle(a, 0).intersects(rect);
+
+        if (this.type == POINT || this.type == SPHERE)
+        {
+            if (!this.project(projection, 0, a))
+                return false;
+
+            double r = this.pixelRadius + this.computeScreenRadius(projection, a[2]);
+            double dx = a[0] - Math.max(rect.getMinX(), Math.min(a[0], rect.getMaxX()));
+            double dy = a[1] - Math.max(rect.getMinY(), Math.min(a[1], rect.getMaxY()));
+            return dx * dx + dy * dy <= r * r;
+        }
+
+        Rectangle2D expanded = new Rectangle2D.Double(rect.getX() - this.pixelRadius, rect.getY() - this.pixelRadius,
+            rect.getWidth() + 2 * this.pixelRadius, rect.getHeight() + 2 * this.pixelRadius);
+        boolean closed = this.type == POLYGON;
+
+        for (int part = 0; part < this.partStarts.length - 1; part++)
+        {
+            int start = this.partStarts[part];
+            int end = this.partStarts[part + 1];
+            int last = closed ? end : end - 1;
+
+            if (end - start == 1)
+            {
+                if (this.project(projection, start, a) && expanded.contains(a[0], a[1]))
+                    return true;
+                continue;
+            }
+
+            for (int i = start; i < last; i++)
+            {
+                int j = i + 1 < end ? i + 1 : start;
+                if (this.project(projection, i, a) && this.project(projection, j, b)
+                    && expanded.intersectsLine(a[0], a[1], b[0], b[1]))
+                {
+                    return true;
+                }
+            }
+        }
+
+        return closed && this.pickInterior(projection, rect.getCenterX(), rect.getCenterY(), new Hit());
+    }
+
+    /** Tests a screen point against the polygon's interior using the even-odd rule. */
+    protected boolean pickInterior(GeometricPicker.ScreenProjection projection, double x, double y, Hit hit)
+    {
+        double[] a = new double[3];
+        double[] b = new double[3];
+        boolean inside = false;
+        double depth = Double.MAX_VALUE;
+        int nearest = 0;
+
+        for (int part = 0; part < this.partStarts.length - 1; part++)
+        {
+            int start = this.partStarts[part];
+            int end = this.partStarts[part + 1];
+            for (int i = start; i < end; i++)
+            {
+                int j = i + 1 < end ? i + 1 : start;
+                // The interior's projection is not meaningful unless every vertex is in front of the eye.
+                if (!this.project(projection, i, a) || !this.project(projection, j, b))
+                    return false;
+
+                if ((a[1] > y) != (b[1] > y) && x < a[0] + (y - a[1]) * (b[0] - a[0]) / (b[1] - a[1]))
+                    inside = !inside;
+
+                if (a[2] < depth)
+                {
+                    depth = a[2];
+                    nearest = i;
+                }
+            }
+        }
+
+        if (inside)
+        {
+            hit.depth = depth;
+            hit.point = this.vertex(nearest);
+        }
+
+        return inside;
+    }
+
+    /**
+     * Projects a vertex to the screen.
+     *
+     * @return false if the vertex is behind the eye or faces away from it on the far side of the globe.
+     */
+    protected boolean project(GeometricPicker.ScreenProjection projection, int vertex, double[] result)
+    {
+        double x = this.coords[3 * vertex];
+        double y = this.coords[3 * vertex + 1];
+        double z = this.coords[3 * vertex + 2];
+
+        if (this.type != SPHERE && projection.isBeyondHorizon(x, y, z))
+            return false;
+
+        return projection.project(x, y, z, result);
+    }
+
+    /**
+     * Computes the screen rectangle of a {@link #SCREEN_RECTANGLE} at its point's projection, with y measured down
+     * from the top of the viewport.
+     */
+    protected Rectangle2D computeScreenRectangle(double[] screenPoint, double tolerance)
+    {
+        Rectangle2D r = this.screenRectangle;
+        return new Rectangle2D.Double(screenPoint[0] + r.getMinX() - tolerance,
+            screenPoint[1] - r.getMaxY() - tolerance, r.getWidth() + 2 * tolerance, r.getHeight() + 2 * tolerance);
+    }
+
+    protected double computeScreenRadius(GeometricPicker.ScreenProjection projection, double depth)
+    {
+        return this.radius > 0 ? this.radius * projection.getPixelsPerUnitAtUnitDepth() / depth : 0;
+    }
+
+    protected Vec4 vertex(int vertex)
+    {
+        return new Vec4(this.coords[3 * vertex], this.coords[3 * vertex + 1], this.coords[3 * vertex + 2]);
+    }
+
+    /** Computes the parameter of the point on segment ab nearest a screen point. */
+    protected double segmentParameter(double x, double y, double[] a, double[] b)
+    {
+        double dx = b[0] - a[0];
+        double dy = b[1] - a[1];
+        double lengthSquared = dx * dx + dy * dy;
+        if (lengthSquared == 0)
+            return 0;
+
+        double t = ((x - a[0]) * dx + (y - a[1]) * dy) / lengthSquared;
+        return t < 0 ? 0 : t > 1 ? 1 : t;
+    }
+
+    protected double distanceSquared(double x, double y, double[] a, double[] b)
+    {
+        double t = this.segmentParameter(x, y, a, b);
+        double px = a[0] + t * (b[0] - a[0]) - x;
+        double py = a[1] + t * (b[1] - a[1]) - y;
+        return px * px + py * py;
+    }
+}
@@ -242,13 +242,23 @@ public abstract class AbstractShape extends WWObjectImpl
      */
     protected AbstractShapeData currentData;
 
+    /** Regenerates this shape's geometry off the rendering thread. Null if geometry is generated during rendering. */
+    protected ShapeGeometryScheduler geometryScheduler;
+    /** This shape's queued, running or unpublished geometry regeneration, or null if there is none. */
+    protected ShapeGeometryScheduler.Request geometryRequest;
+
     /**
-     * Returns the data cache entry for the current rendering.
+     * Returns the data cache entry for the current rendering. On a {@link ShapeGeometryScheduler} worker thread
+     * generating this shape's geometry, returns the entry being generated.
      *
      * @return the data cache entry for the current rendering.
      */
     protected AbstractShapeData getCurrentData()
     {
+        ShapeGeometryScheduler.Request request = this.geometryRequest;
+        if (request != null && request.isGeneratingThread())
+            return request.data;
+
         return this.currentData;
     }
 
@@ -378,6 +388,7 @@ public abstract class AbstractShape extends WWObjectImpl
         this.sector = source.sector;
         this.referencePosition = source.referencePosition;
         this.delegateOwner = source.delegateOwner;
+        this.geometryScheduler = source.geometryScheduler;
 
         this.initialize();
     }
@@ -385,7 +396,20 @@ public abstract class AbstractShape extends WWObjectImpl
     /** Invalidates computed values. Called when this shape's contents or certain attributes change. */
     protected void reset()
     {
-        this.shapeDataCache.removeAllEntries();
+        if (this.geometryRequest != null)
+            this.geometryRequest.discard();
+
+        if (this.isGeometryScheduled())
+        {
+            // Keep drawing the previous geometry until the scheduler replaces it.
+            this.shapeDataCache.setAllExpired(true);
+            this.shapeDataCache.clearExtents();
+        }
+        else
+        {
+            this.shapeDataCache.removeAllEntries();
+        }
+
         this.sector = null;
         this.surfaceShape = null;
     }
@@ -691,7 +715,7 @@ public abstract class AbstractShape extends WWObjectImpl
      */
     public Vec4 getReferencePoint()
     {
-        return this.currentData.getReferencePoint();
+        return this.getCurrentData().getReferencePoint();
     }
 
     public Extent getExtent(Globe globe, double verticalExaggeration)
@@ -967,6 +991,10 @@ public abstract class AbstractShape extends WWObjectImpl
             this.shapeDataCache.addEntry(this.currentData);
         }
 
+        // Swap in geometry regenerated off the rendering thread before the extent is tested.
+        if (this.geometryRequest != null && !dc.isOrderedRenderingMode())
+            this.publishGeometry(dc);
+
         if (dc.getSurfaceGeometry() == null)
             return;
 
@@ -1017,13 +1045,22 @@ public abstract class AbstractShape extends WWObjectImpl
             // Regenerate the positions and shape at a specified frequency.
             if (this.mustRegenerateGeometry(dc))
             {
-                if (!this.doMakeOrderedRenderable(dc))
-                    return;
+                if (this.isGeometryScheduled() && !dc.is2DGlobe())
+                {
+                    // Draw the previous geometry, if any, until the scheduler's result is published.
+                    if (this.geometryRequest == null)
+                        this.getGeometryScheduler().requestGeometry(this, dc);
+                }
+                else
+                {
+                    if (!this.doMakeOrderedRenderable(dc))
+                        return;
 
-                if (this.shouldUseVBOs(dc))
-                    this.fillVBO(dc);
+                    if (this.shouldUseVBOs(dc))
+                        this.fillVBO(dc);
 
-                this.getCurrentData().restartTimer(dc);
+                    this.getCurrentData().restartTimer(dc);
+                }
             }
 
             this.getCurrentData().setFrameNumber(dc.getFrameTimeStamp());
@@ -1038,6 +1075,51 @@ public abstract class AbstractShape extends WWObjectImpl
         this.addOrderedRenderable(dc);
     }
 
+    /**
+     * Replaces this shape's current cache entry with the entry regenerated by its {@link ShapeGeometryScheduler}, if
+     * that entry is complete and the current frame's publishing budget allows. Fills the new entry's vertex buffer
+     * objects and restarts its regeneration timer. Discards the regenerated entry if it is out of date.
+     *
+     * @param dc the current draw context.
+     */
+    protected void publishGeometry(DrawContext dc)
+    {
+        ShapeGeometryScheduler.Request request = this.geometryRequest;
+        if (!request.isDone())
+            return;
+
+        if (request.isDiscarded() || request.data == null || request.dc.getGlobe() != dc.getGlobe())
+        {
+            this.geometryRequest = null;
+            return;
+        }
+
+        if (!request.getScheduler().acquirePublishPermit(dc))
+            return; // keep drawing the previous geometry and publish during a later frame
+
+        this.geometryRequest = null;
+
+        if (dc.getGLRuntimeCapabilities().isUseVertexBufferObject())
+            this.clearCachedVbos(dc); // the previous entry's buffers
+
+        this.currentData = request.data;
+        this.shapeDataCache.putEntry(dc.getGlobe(), this.currentData);
+
+        // The geometry was computed for the eye position of the request's view. Measure view distance expiration from
+        // there rather than expiring the new geometry immediately.
+        Vec4 refPt = this.currentData.getReferencePoint();
+        if (refPt != null)
+            this.currentData.setReferenceDistance(request.dc.getView().getEyePoint().distanceTo3(refPt));
+
+        if (request.result)
+        {
+            if (this.shouldUseVBOs(dc))
+                this.fillVBO(dc);
+
+            this.currentData.restartTimer(dc);
+        }
+    }
+
     /**
      * Adds this shape to the draw context's ordered renderable list.
      *
@@ -1083,6 +1165,59 @@ public abstract class AbstractShape extends WWObjectImpl
         this.viewDistanceExpiration = viewDistanceExpiration;
     }
 
+    /**
+     * Returns the scheduler that regenerates this shape's geometry off the rendering thread.
+     *
+     * @return this shape's geometry scheduler, or null if this shape regenerates its geometry during rendering.
+     */
+    public ShapeGeometryScheduler getGeometryScheduler()
+    {
+        return this.geometryScheduler;
+    }
+
+    /**
+     * Specifies a scheduler to regenerate this shape's geometry off the rendering thread. While a scheduler is
+     * attached, this shape continues to draw its previous geometry when that geometry expires or becomes invalid, and
+     * draws the regenerated geometry once the scheduler has computed it and the frame's publishing budget allows. A
+     * shape that has no previous geometry is not drawn until its first geometry is published. Shapes that don't
+     * support off-thread generation ignore the scheduler.
+     * <p>
+     * This is useful for scenes holding many shapes whose geometry becomes invalid at the same time, for example
+     * when the vertical exaggeration changes. The default is null, which regenerates geometry during rendering.
+     *
+     * @param scheduler the scheduler to use, or null to regenerate this shape's geometry during rendering.
+     *
+     * @see #isAsyncGeometrySupported()
+     */
+    public void setGeometryScheduler(ShapeGeometryScheduler scheduler)
+    {
+        this.geometryScheduler = scheduler;
+    }
+
+    /**
+     * Indicates whether this shape's geometry can be generated on a {@link ShapeGeometryScheduler} worker thread.
+     * Subclasses that support this must generate their geometry in {@link #doMakeOrderedRenderable(DrawContext)}
+     * using only the draw context's model, globe, view, terrain and vertical exaggeration, must access their cache
+     * entry through {@link #getCurrentData()}, and must not use OpenGL or the GPU resource cache unless {@link
+     * #shouldUseVBOs(DrawContext)} returns true. This implementation returns false.
+     *
+     * @return true if this shape supports off-thread geometry generation, otherwise false.
+     */
+    protected boolean isAsyncGeometrySupported()
+    {
+        return false;
+    }
+
+    /**
+     * Indicates whether this shape's geometry is regenerated by a {@link ShapeGeometryScheduler}.
+     *
+     * @return true if this shape has a geometry scheduler and supports off-thread generation, otherwise false.
+     */
+    protected boolean isGeometryScheduled()
+    {
+        return this.geometryScheduler != null && this.isAsyncGeometrySupported();
+    }
+
     /**
      * Determines whether this shape's geometry should be invalidated because the view distance changed, and if so,
      * invalidates the geometry.
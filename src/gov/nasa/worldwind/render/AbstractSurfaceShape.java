@@ -35,6 +35,7 @@ import gov.nasa.worldwind.exception.WWRuntimeException;
 import gov.nasa.worldwind.geom.*;
 import gov.nasa.worldwind.globes.Globe;
 import gov.nasa.worldwind.ogc.kml.KMLConstants;
+import gov.nasa.worldwind.pick.*;
 import gov.nasa.worldwind.util.*;
 import gov.nasa.worldwind.util.combine.*;
 import gov.nasa.worldwind.util.measure.AreaMeasurer;
@@ -64,7 +65,7 @@ import java.util.List;
  * @version $Id: AbstractSurfaceShape.java 3240 2015-06-22 23:38:49Z tgaskins $
  */
 public abstract class AbstractSurfaceShape extends AbstractSurfaceObject implements SurfaceShape, Movable, Movable2,
-    Combinable, Draggable
+    Combinable, Draggable, GeometricPickable
 {
     /** The default interior color. */
     protected static final Material DEFAULT_INTERIOR_MATERIAL = Material.LIGHT_GRAY;
@@ -102,8 +103,8 @@ public abstract class AbstractSurfaceShape extends AbstractSurfaceObject impleme
     protected int minEdgeIntervals = DEFAULT_MIN_EDGE_INTERVALS;
     protected int maxEdgeIntervals = DEFAULT_MAX_EDGE_INTERVALS;
     // Rendering properties.
-    protected List<List<LatLon>> activeGeometry = new ArrayList<List<LatLon>>(); // re-determined each frame
-    protected List<List<LatLon>> activeOutlineGeometry = new ArrayList<List<LatLon>>(); // re-determined each frame
+    protected ContourBuffer activeContours = new ContourBuffer(); // re-determined each frame
+    protected ContourBuffer activeOutlineContours = new ContourBuffer(); // re-determined each frame
     protected WWTexture texture; // An optional texture.
     protected Map<Object, CacheEntry> sectorCache = new HashMap<Object, CacheEntry>();
     protected Map<Object, CacheEntry> geometryCache = new HashMap<Object, CacheEntry>();
@@ -810,37 +811,32 @@ public abstract class AbstractSurfaceShape extends AbstractSurfaceObject impleme
 
     protected void determineActiveGeometry(DrawContext dc, SurfaceTileDrawContext sdc)
     {
-        this.activeGeometry.clear();
-        this.activeOutlineGeometry.clear();
+        this.activeContours.clear();
+        this.activeOutlineContours.clear();
 
-        List<List<LatLon>> geom = this.getCachedGeometry(dc, sdc);
+        ContourBuffer geom = this.getCachedContours(dc, sdc);
         if (geom == null)
             return;
 
-        for (List<LatLon> locations : geom)
+        for (int i = 0; i < geom.getContourCount(); i++)
         {
-            List<LatLon> drawLocations = new ArrayList<LatLon>(locations);
-
-            String pole = this.containsPole(drawLocations);
+            String pole = this.containsPole(geom, i);
             if (pole != null)
             {
                 // Wrap the shape interior around the pole and along the anti-meridian. See WWJ-284.
-                List<LatLon> poleLocations = this.cutAlongDateLine(drawLocations, pole, dc.getGlobe());
-                this.activeGeometry.add(poleLocations);
+                this.cutAlongDateLine(geom, i, pole, dc.getGlobe(), this.activeContours);
                 // The outline need only compensate for dateline crossing. See WWJ-452.
-                List<List<LatLon>> datelineLocations = this.repeatAroundDateline(drawLocations);
-                this.activeOutlineGeometry.addAll(datelineLocations);
+                this.repeatAroundDateline(geom, i, this.activeOutlineContours);
             }
-            else if (LatLon.locationsCrossDateLine(drawLocations))
+            else if (geom.crossesDateLine(i))
             {
-                List<List<LatLon>> datelineLocations = this.repeatAroundDateline(drawLocations);
-                this.activeGeometry.addAll(datelineLocations);
-                this.activeOutlineGeometry.addAll(datelineLocations);
+                this.repeatAroundDateline(geom, i, this.activeContours);
+                this.repeatAroundDateline(geom, i, this.activeOutlineContours);
             }
             else
             {
-                this.activeGeometry.add(drawLocations);
-                this.activeOutlineGeometry.add(drawLocations);
+                this.activeContours.addContour(geom, i);
+                this.activeOutlineContours.addContour(geom, i);
             }
         }
     }
@@ -879,6 +875,23 @@ public abstract class AbstractSurfaceShape extends AbstractSurfaceObject impleme
         return LatLon.locationsContainPole(locations);
     }
 
+    /**
+     * Determine if a contour encloses either the North or South pole. The contour is treated as a closed loop.
+     *
+     * @param contours the buffer containing the contour.
+     * @param contour  the index of the contour to test.
+     *
+     * @return AVKey.NORTH if the North Pole is enclosed, AVKey.SOUTH if the South Pole is enclosed, or null if neither
+     *         pole is enclosed. Always returns null if {@link #canContainPole()} returns false.
+     */
+    protected String containsPole(ContourBuffer contours, int contour)
+    {
+        if (!this.canContainPole())
+            return null;
+
+        return contours.containsPole(contour);
+    }
+
     /**
      * Divide a list of locations that encloses a pole along the international date line. This method determines where
      * the locations cross the date line, and inserts locations to the pole, and then back to the intersection position.
@@ -913,14 +926,65 @@ public abstract class AbstractSurfaceShape extends AbstractSurfaceObject impleme
         return LatLon.repeatLocationsAroundDateline(locations);
     }
 
+    /**
+     * Appends a contour that encloses a pole to a destination buffer, divided along the international date line. See
+     * {@link #cutAlongDateLine(java.util.List, String, gov.nasa.worldwind.globes.Globe)}.
+     *
+     * @param contours the buffer containing the contour. This buffer is not modified.
+     * @param contour  the index of the contour to cut.
+     * @param pole     Pole contained by the contour, either AVKey.NORTH or AVKey.SOUTH.
+     * @param globe    Current globe.
+     * @param dest     the buffer to append the cut contour to.
+     */
+    protected void cutAlongDateLine(ContourBuffer contours, int contour, String pole, Globe globe, ContourBuffer dest)
+    {
+        // If the contour does not contain a pole, then there's nothing to do.
+        if (pole == null)
+            dest.addContour(contours, contour);
+        else
+            contours.cutAlongDateLine(contour, pole, globe, dest);
+    }
+
+    /**
+     * Appends two copies of a contour crossing the dateline to a destination buffer, one for either side of the date
+     * line. If the contour does not cross the dateline this appends a single copy. See {@link
+     * #repeatAroundDateline(java.util.List)}.
+     *
+     * @param contours the buffer containing the contour. This buffer is not modified.
+     * @param contour  the index of the contour to repeat.
+     * @param dest     the buffer to append the copies to.
+     */
+    protected void repeatAroundDateline(ContourBuffer contours, int contour, ContourBuffer dest)
+    {
+        contours.repeatAroundDateline(contour, dest);
+    }
+
+    /**
+     * Returns the shape's geometry for the tile currently being drawn, after cutting it at the dateline.
+     *
+     * @return the shape's active contours.
+     */
+    protected ContourBuffer getActiveContours()
+    {
+        return this.activeContours;
+    }
+
+    /**
+     * Returns the shape's geometry for the tile currently being drawn as lists of locations.
+     *
+     * @return a copy of the shape's active contours.
+     *
+     * @deprecated Use {@link #getActiveContours()}, which does not copy the shape's geometry.
+     */
+    @Deprecated
     protected List<List<LatLon>> getActiveGeometry()
     {
-        return this.activeGeometry;
+        return this.getActiveContours().toLocationLists();
     }
 
     protected void drawInterior(DrawContext dc, SurfaceTileDrawContext sdc)
     {
-        if (this.getActiveGeometry().isEmpty())
+        if (this.getActiveContours().isEmpty())
             return;
 
         this.applyInteriorState(dc, sdc, this.getActiveAttributes(), this.getInteriorTexture(),
@@ -935,17 +999,45 @@ public abstract class AbstractSurfaceShape extends AbstractSurfaceObject impleme
 
     protected void drawOutline(DrawContext dc, SurfaceTileDrawContext sdc)
     {
-        if (this.activeOutlineGeometry.isEmpty())
+        if (this.activeOutlineContours.isEmpty())
             return;
 
         this.applyOutlineState(dc, this.getActiveAttributes());
 
-        for (List<LatLon> drawLocations : this.activeOutlineGeometry)
+        for (int i = 0; i < this.activeOutlineContours.getContourCount(); i++)
         {
-            this.drawLineStrip(dc, drawLocations);
+            this.drawLineStrip(dc, this.activeOutlineContours, i);
         }
     }
 
+    protected void drawLineStrip(DrawContext dc, ContourBuffer contours, int contour)
+    {
+        Position refPos = this.getReferencePosition();
+        if (refPos == null)
+            return;
+
+        int offset = contours.getContourOffset(contour);
+        int count = contours.getContourSize(contour);
+
+        if (vertexBuffer == null || vertexBuffer.capacity() < 2 * count)
+            vertexBuffer = Buffers.newDirectFloatBuffer(2 * count);
+        vertexBuffer.clear();
+
+        double[] coords = contours.getCoords();
+        double refLat = refPos.getLatitude().degrees;
+        double refLon = refPos.getLongitude().degrees;
+        for (int i = 2 * offset; i < 2 * (offset + count); i += 2)
+        {
+            vertexBuffer.put((float) (coords[i + 1] - refLon));
+            vertexBuffer.put((float) (coords[i] - refLat));
+        }
+        vertexBuffer.flip();
+
+        GL2 gl = dc.getGL().getGL2(); // GL initialization checks for GL2 compatibility.
+        gl.glVertexPointer(2, GL.GL_FLOAT, 0, vertexBuffer);
+        gl.glDrawArrays(GL.GL_LINE_STRIP, 0, count);
+    }
+
     protected void drawLineStrip(DrawContext dc, List<LatLon> locations)
     {
         Position refPos = this.getReferencePosition();
@@ -983,8 +1075,17 @@ public abstract class AbstractSurfaceShape extends AbstractSurfaceObject impleme
         return this.texture;
     }
 
-    @SuppressWarnings({"unchecked"})
-    protected List<List<LatLon>> getCachedGeometry(DrawContext dc, SurfaceTileDrawContext sdc)
+    /**
+     * Returns the shape's geometry for the specified surface tile, creating and caching it if necessary.
+     *
+     * @param dc  the current draw context.
+     * @param sdc the context of the surface tile being drawn.
+     *
+     * @return the shape's contours, or null if the shape has no geometry.
+     *
+     * @throws IllegalArgumentException if the draw context is null.
+     */
+    protected ContourBuffer getCachedContours(DrawContext dc, SurfaceTileDrawContext sdc)
     {
         if (dc == null)
         {
@@ -997,23 +1098,82 @@ public abstract class AbstractSurfaceShape extends AbstractSurfaceObject impleme
         CacheEntry entry = this.geometryCache.get(key);
         if (entry != null)
         {
-            return (List<List<LatLon>>) entry.object;
+            return (ContourBuffer) entry.object;
         }
         else
         {
-            entry = new CacheEntry(this.createGeometry(dc.getGlobe(), sdc), dc);
+            ContourBuffer contours = this.createContours(dc.getGlobe(), sdc);
+            if (contours != null)
+                contours.trimToSize(); // cached geometry is retained across frames
+
+            entry = new CacheEntry(contours, dc);
             this.geometryCache.put(key, entry);
-            return (List<List<LatLon>>) entry.object;
+            return contours;
         }
     }
 
+    /**
+     * Returns the shape's geometry for the specified surface tile as lists of locations.
+     *
+     * @param dc  the current draw context.
+     * @param sdc the context of the surface tile being drawn.
+     *
+     * @return a copy of the shape's contours, or null if the shape has no geometry.
+     *
+     * @deprecated Use {@link #getCachedContours(DrawContext, SurfaceTileDrawContext)}, which does not copy the
+     *             shape's geometry.
+     */
+    @Deprecated
+    protected List<List<LatLon>> getCachedGeometry(DrawContext dc, SurfaceTileDrawContext sdc)
+    {
+        ContourBuffer contours = this.getCachedContours(dc, sdc);
+        return contours != null ? contours.toLocationLists() : null;
+    }
+
+    protected ContourBuffer createContours(Globe globe, SurfaceTileDrawContext sdc)
+    {
+        double edgeIntervalsPerDegree = this.computeEdgeIntervalsPerDegree(sdc);
+        return this.createContours(globe, edgeIntervalsPerDegree);
+    }
+
+    /**
+     * Creates the shape's geometry at the specified edge resolution, packed into a {@link ContourBuffer}. This is the
+     * form in which the shape caches, cuts at the dateline and tessellates its geometry, and the method the shape
+     * invokes to create it. The default implementation packs the location lists returned by {@link
+     * #createGeometry(gov.nasa.worldwind.globes.Globe, double)}, so subclasses may implement either method. The
+     * built-in shapes override this method, and subclasses of them that customize the geometry must do the same.
+     *
+     * @param globe                  the globe the shape is drawn on.
+     * @param edgeIntervalsPerDegree the number of edge intervals per degree of arc length.
+     *
+     * @return the shape's contours, or null if the shape has no geometry.
+     */
+    protected ContourBuffer createContours(Globe globe, double edgeIntervalsPerDegree)
+    {
+        return ContourBuffer.fromLocationLists(this.createGeometry(globe, edgeIntervalsPerDegree));
+    }
+
     protected List<List<LatLon>> createGeometry(Globe globe, SurfaceTileDrawContext sdc)
     {
         double edgeIntervalsPerDegree = this.computeEdgeIntervalsPerDegree(sdc);
         return this.createGeometry(globe, edgeIntervalsPerDegree);
     }
 
-    protected abstract List<List<LatLon>> createGeometry(Globe globe, double edgeIntervalsPerDegree);
+    /**
+     * Creates the shape's geometry at the specified edge resolution as lists of locations. The default implementation
+     * unpacks the contours returned by {@link #createContours(gov.nasa.worldwind.globes.Globe, double)}. Subclasses
+     * must override at least one of the two methods, since each one's default implementation invokes the other.
+     *
+     * @param globe                  the globe the shape is drawn on.
+     * @param edgeIntervalsPerDegree the number of edge intervals per degree of arc length.
+     *
+     * @return the shape's contours, or null if the shape has no geometry.
+     */
+    protected List<List<LatLon>> createGeometry(Globe globe, double edgeIntervalsPerDegree)
+    {
+        ContourBuffer contours = this.createContours(globe, edgeIntervalsPerDegree);
+        return contours != null ? contours.toLocationLists() : null;
+    }
 
     protected Object createGeometryKey(DrawContext dc, SurfaceTileDrawContext sdc)
     {
@@ -1039,6 +1199,63 @@ public abstract class AbstractSurfaceShape extends AbstractSurfaceObject impleme
         return intervalsPerDegree;
     }
 
+    //**************************************************************//
+    //********************  Geometric Picking  *********************//
+    //**************************************************************//
+
+    /** The angular resolution, in radians, at which a shape's edges are subdivided for geometric picking. */
+    protected static final double PICK_GEOMETRY_RESOLUTION = Math.toRadians(0.1);
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The shape's edges are subdivided at 0.1 degree intervals and placed on the globe's terrain, so the pick geometry
+     * approximates the shape as draped on the terrain. Shapes whose interior is not drawn, and open polylines, are
+     * picked along their outline only.
+     */
+    public PickGeometry getPickGeometry(Globe globe, double verticalExaggeration)
+    {
+        if (globe == null)
+        {
+            String message = Logging.getMessage("nullValue.GlobeIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        ContourBuffer contours = this.createContours(globe,
+            this.computeEdgeIntervalsPerDegree(PICK_GEOMETRY_RESOLUTION));
+        if (contours == null || contours.isEmpty())
+            return null;
+
+        List<List<Vec4>> rings = new ArrayList<List<Vec4>>(contours.getContourCount());
+        for (int i = 0; i < contours.getContourCount(); i++)
+        {
+            List<Vec4> ring = new ArrayList<Vec4>(contours.getContourSize(i));
+            for (LatLon location : contours.getContour(i))
+            {
+                ring.add(PickGeometry.computePoint(globe, verticalExaggeration, location, WorldWind.CLAMP_TO_GROUND));
+            }
+            rings.add(ring);
+        }
+
+        ShapeAttributes attrs = this.getAttributes();
+        double outlineWidth = attrs != null ? attrs.getOutlineWidth() : 1;
+
+        return this.isPickInterior() ? PickGeometry.fromPolygon(rings, outlineWidth) : PickGeometry.fromLines(rings,
+            outlineWidth);
+    }
+
+    /**
+     * Indicates whether this shape's interior is included in its pick geometry.
+     *
+     * @return true if the shape's interior is drawn, otherwise false.
+     */
+    protected boolean isPickInterior()
+    {
+        ShapeAttributes attrs = this.getAttributes();
+        return attrs == null || attrs.isDrawInterior();
+    }
+
     //**************************************************************//
     //********************  Combinable  ****************************//
     //**************************************************************//
@@ -1067,28 +1284,56 @@ public abstract class AbstractSurfaceShape extends AbstractSurfaceObject impleme
     protected void doCombineContours(CombineContext cc)
     {
         double edgeIntervalsPerDegree = this.computeEdgeIntervalsPerDegree(cc.getResolution());
-        List<List<LatLon>> contours = this.createGeometry(cc.getGlobe(), edgeIntervalsPerDegree);
+        ContourBuffer contours = this.createContours(cc.getGlobe(), edgeIntervalsPerDegree);
         if (contours == null)
             return; // shape has no caller specified data
 
-        for (List<LatLon> contour : contours)
+        ContourBuffer drawContours = new ContourBuffer();
+        for (int i = 0; i < contours.getContourCount(); i++)
         {
-            String pole = this.containsPole(contour);
+            String pole = this.containsPole(contours, i);
             if (pole != null) // Wrap the contour around the pole and along the anti-meridian. See WWJ-284.
             {
-                List<LatLon> poleContour = this.cutAlongDateLine(contour, pole, cc.getGlobe());
-                this.doCombineContour(cc, poleContour);
+                this.cutAlongDateLine(contours, i, pole, cc.getGlobe(), drawContours);
             }
-            else if (LatLon.locationsCrossDateLine(contour)) // Split the contour along the anti-meridian.
+            else if (contours.crossesDateLine(i)) // Split the contour along the anti-meridian.
             {
-                List<List<LatLon>> datelineContours = this.repeatAroundDateline(contour);
-                this.doCombineContour(cc, datelineContours.get(0));
-                this.doCombineContour(cc, datelineContours.get(1));
+                this.repeatAroundDateline(contours, i, drawContours);
             }
             else
             {
-                this.doCombineContour(cc, contour);
+                this.doCombineContour(cc, contours, i);
+                continue;
             }
+
+            for (int j = 0; j < drawContours.getContourCount(); j++)
+            {
+                this.doCombineContour(cc, drawContours, j);
+            }
+            drawContours.clear();
+        }
+    }
+
+    protected void doCombineContour(CombineContext cc, ContourBuffer contours, int contour)
+    {
+        GLUtessellator tess = cc.getTessellator();
+        double[] coords = contours.getCoords();
+        int offset = contours.getContourOffset(contour);
+        int count = contours.getContourSize(contour);
+
+        try
+        {
+            GLU.gluTessBeginContour(tess);
+
+            for (int i = 2 * offset; i < 2 * (offset + count); i += 2)
+            {
+                double[] vertex = {coords[i + 1], coords[i], 0};
+                GLU.gluTessVertex(tess, vertex, 0, vertex);
+            }
+        }
+        finally
+        {
+            GLU.gluTessEndContour(tess);
         }
     }
 
@@ -1344,6 +1589,147 @@ public abstract class AbstractSurfaceShape extends AbstractSurfaceObject impleme
         }
     }
 
+    /**
+     * Appends the specified locations to the last contour of a buffer, adding intermediate locations between each pair
+     * of locations according to this shape's path type. See {@link #generateIntermediateLocations(Iterable, double,
+     * boolean, java.util.List)}.
+     *
+     * @param iterable               the locations to append.
+     * @param edgeIntervalsPerDegree the number of edge intervals per degree of arc length.
+     * @param makeClosedPath         true to close the path by returning to the first location, otherwise false.
+     * @param contours               the buffer to append the locations to.
+     */
+    protected void generateIntermediateLocations(Iterable<? extends LatLon> iterable, double edgeIntervalsPerDegree,
+        boolean makeClosedPath, ContourBuffer contours)
+    {
+        LatLon firstLocation = null;
+        LatLon lastLocation = null;
+
+        for (LatLon ll : iterable)
+        {
+            if (firstLocation == null)
+            {
+                firstLocation = ll;
+            }
+            else
+            {
+                this.addIntermediateLocations(lastLocation, ll, edgeIntervalsPerDegree, contours);
+            }
+
+            contours.add(ll);
+            lastLocation = ll;
+        }
+
+        // Close the path by generating intermediate locations between the last and first locations, then repeating
+        // the first location, unless the specified locations already define a closed path.
+        if (makeClosedPath && firstLocation != null && !lastLocation.equals(firstLocation))
+        {
+            this.addIntermediateLocations(lastLocation, firstLocation, edgeIntervalsPerDegree, contours);
+            contours.add(firstLocation);
+        }
+    }
+
+    /**
+     * Appends the intermediate locations between two locations to the last contour of a buffer. This computes the same
+     * locations as {@link #addIntermediateLocations(gov.nasa.worldwind.geom.LatLon, gov.nasa.worldwind.geom.LatLon,
+     * double, java.util.List)}. The path's length and heading come from LatLon, but each intermediate location is
+     * computed inline from the equations of {@link LatLon#greatCircleEndPosition(LatLon, double, double)} and {@link
+     * LatLon#rhumbEndPosition(LatLon, double, double)}, so that the terms which are constant along the path are
+     * computed once and no LatLon is allocated per location.
+     *
+     * @param a                      the first location.
+     * @param b                      the second location.
+     * @param edgeIntervalsPerDegree the number of edge intervals per degree of arc length.
+     * @param contours               the buffer to append the locations to.
+     */
+    @SuppressWarnings({"StringEquality"})
+    protected void addIntermediateLocations(LatLon a, LatLon b, double edgeIntervalsPerDegree, ContourBuffer contours)
+    {
+        boolean greatCircle = this.pathType != null && this.pathType == AVKey.GREAT_CIRCLE;
+        boolean rhumbLine = this.pathType != null && (this.pathType == AVKey.RHUMB_LINE
+            || this.pathType == AVKey.LOXODROME);
+
+        // Linear interpolation between 2D coordinates is already performed by GL during shape rasterization. There is
+        // no need to duplicate that effort here.
+        if (!greatCircle && !rhumbLine)
+            return;
+
+        double pathLength = greatCircle ? LatLon.greatCircleDistance(a, b).radians : LatLon.rhumbDistance(a, b).radians;
+
+        double edgeIntervals = WWMath.clamp(edgeIntervalsPerDegree * Math.toDegrees(pathLength),
+            this.minEdgeIntervals, this.maxEdgeIntervals);
+        int numEdgeIntervals = (int) Math.ceil(edgeIntervals);
+
+        if (numEdgeIntervals <= 1)
+            return;
+
+        double heading = greatCircle ? LatLon.greatCircleAzimuth(a, b).radians : LatLon.rhumbAzimuth(a, b).radians;
+        double stepSize = pathLength / (numEdgeIntervals + 1);
+
+        double lat1 = a.latitude.radians;
+        double lon1 = a.longitude.radians;
+
+        // The trigonometric terms that depend only on the first location and the heading are constant along the path.
+        double sinLat = Math.sin(lat1);
+        double cosLat = Math.cos(lat1);
+        double sinHeading = Math.sin(heading);
+        double cosHeading = Math.cos(heading);
+
+        for (int i = 1; i <= numEdgeIntervals; i++)
+        {
+            double distance = i * stepSize;
+            double endLat, endLon;
+
+            if (distance == 0)
+            {
+                contours.add(a);
+                continue;
+            }
+
+            if (greatCircle)
+            {
+                // Taken from "Map Projections - A Working Manual", page 31, equation 5-5 and 5-6.
+                double sinDistance = Math.sin(distance);
+                double cosDistance = Math.cos(distance);
+                endLat = Math.asin(sinLat * cosDistance + cosLat * sinDistance * cosHeading);
+                endLon = lon1 + Math.atan2(sinDistance * sinHeading,
+                    cosLat * cosDistance - sinLat * sinDistance * cosHeading);
+            }
+            else
+            {
+                // Taken from http://www.movable-type.co.uk/scripts/latlong.html
+                double dLat = distance * cosHeading;
+                endLat = lat1 + dLat;
+                double q;
+                if (Math.abs(dLat) < NEAR_ZERO_THRESHOLD)
+                {
+                    q = cosLat;
+                }
+                else
+                {
+                    double dPhi = Math.log(
+                        Math.tan(endLat / 2.0 + Math.PI / 4.0) / Math.tan(lat1 / 2.0 + Math.PI / 4.0));
+                    q = (endLat - lat1) / dPhi;
+                }
+
+                double dLon = distance * sinHeading / q;
+                // Handle latitude passing over either pole.
+                if (Math.abs(endLat) > Math.PI / 2.0)
+                    endLat = endLat > 0 ? Math.PI - endLat : -Math.PI - endLat;
+                endLon = (lon1 + dLon + Math.PI) % (2 * Math.PI) - Math.PI;
+            }
+
+            if (Double.isNaN(endLat) || Double.isNaN(endLon))
+                contours.add(a);
+            else
+                contours.add(Angle.normalizedDegreesLatitude(Math.toDegrees(endLat)),
+                    Angle.normalizedDegreesLongitude(Math.toDegrees(endLon)));
+        }
+    }
+
+    /** The threshold below which rhumb line computations treat a change in latitude as zero. */
+    protected static final double NEAR_ZERO_THRESHOLD = 1e-15;
+
     //**************************************************************//
     //********************  Interior Tessellation  *****************//
     //**************************************************************//
@@ -1399,7 +1785,7 @@ public abstract class AbstractSurfaceShape extends AbstractSurfaceObject impleme
 
     protected Integer tessellateInteriorVertices(GLUtessellator tess)
     {
-        if (this.getActiveGeometry().isEmpty())
+        if (this.getActiveContours().isEmpty())
             return null;
 
         Position referencePos = this.getReferencePosition();
@@ -1409,18 +1795,26 @@ public abstract class AbstractSurfaceShape extends AbstractSurfaceObject impleme
         int numBytes = 0;
         GLU.gluTessBeginPolygon(tess, null);
 
-        for (List<LatLon> drawLocations : this.getActiveGeometry())
+        ContourBuffer contours = this.getActiveContours();
+        double[] coords = contours.getCoords();
+        double refLat = referencePos.getLatitude().degrees;
+        double refLon = referencePos.getLongitude().degrees;
+
+        for (int i = 0; i < contours.getContourCount(); i++)
         {
+            int offset = contours.getContourOffset(i);
+            int count = contours.getContourSize(i);
+
             GLU.gluTessBeginContour(tess);
-            for (LatLon ll : drawLocations)
+            for (int j = 2 * offset; j < 2 * (offset + count); j += 2)
             {
                 double[] vertex = new double[3];
-                vertex[0] = ll.getLongitude().degrees - referencePos.getLongitude().degrees;
-                vertex[1] = ll.getLatitude().degrees - referencePos.getLatitude().degrees;
+                vertex[0] = coords[j + 1] - refLon;
+                vertex[1] = coords[j] - refLat;
                 GLU.gluTessVertex(tess, vertex, 0, vertex);
-                numBytes += 3 * 8; // 3 coords of 8 bytes each
             }
             GLU.gluTessEndContour(tess);
+            numBytes += count * 3 * 8; // 3 coords of 8 bytes each
         }
 
         GLU.gluTessEndPolygon(tess);
@@ -121,7 +121,10 @@ public class DeclutterableText implements Declutterable
             if (this.getBounds(dc) == null)
                 return;
 
-            this.textRenderer.drawText(dc, this, 1, 1);
+            if (this.textRenderer.isEnableGlyphAtlas() && !dc.isPickingMode())
+                this.textRenderer.drawTextBatch(dc, this);
+            else
+                this.textRenderer.drawText(dc, this, 1, 1);
         }
         catch (Exception e)
         {
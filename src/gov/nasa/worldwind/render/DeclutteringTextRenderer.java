@@ -46,6 +46,11 @@ import java.util.Iterator;
 /**
  * A simplified version of {@link GeographicTextRenderer} that participates in globe text decluttering. See {@link
  * ClutterFilter} for more information on decluttering.
+ * <p>
+ * When glyph atlas drawing is enabled, each run of this renderer's text in the ordered renderable list is drawn as one
+ * {@link GlyphTextBatch}, with one draw call per font, rather than with a text renderer call per string. Text bounds
+ * are then measured with the cached text layouts of each font's {@link GlyphAtlas}, so measuring a string that has
+ * been displayed before costs a map lookup.
  *
  * @author tag
  * @version $Id: DeclutteringTextRenderer.java 2392 2014-10-20 20:02:44Z tgaskins $
@@ -59,6 +64,8 @@ public class DeclutteringTextRenderer
 
     // Flag indicating a JOGL text rendering problem. Set to avoid continual exception logging.
     protected boolean hasJOGLv111Bug = false;
+    protected boolean enableGlyphAtlas;
+    protected final GlyphTextBatch textBatch = new GlyphTextBatch();
 
     public Font getDefaultFont()
     {
@@ -78,6 +85,40 @@ public class DeclutteringTextRenderer
         return OGLTextRenderer.getOrCreateTextRenderer(dc.getTextRendererCache(), font);
     }
 
+    /**
+     * Returns the glyph atlas for a specified font, which caches the font's text layouts.
+     *
+     * @param dc   the current draw context.
+     * @param font the text font.
+     *
+     * @return the font's glyph atlas.
+     */
+    public GlyphAtlas getGlyphAtlas(DrawContext dc, Font font)
+    {
+        return dc.getTextRendererCache().getGlyphAtlas(font);
+    }
+
+    /**
+     * Indicates whether text is drawn in batches from glyph atlases.
+     *
+     * @return true if text is drawn from glyph atlases, false if it is drawn with text renderers. The default is false.
+     */
+    public boolean isEnableGlyphAtlas()
+    {
+        return this.enableGlyphAtlas;
+    }
+
+    /**
+     * Specifies whether text is drawn in batches from glyph atlases. Batched text is drawn with one draw call per font
+     * for each run of this renderer's text in the ordered renderable list.
+     *
+     * @param enableGlyphAtlas true to draw text from glyph atlases, false to draw it with text renderers.
+     */
+    public void setEnableGlyphAtlas(boolean enableGlyphAtlas)
+    {
+        this.enableGlyphAtlas = enableGlyphAtlas;
+    }
+
     /**
      * Adds ordered renderables to the ordered renderable list.
      *
@@ -299,6 +340,114 @@ public class DeclutteringTextRenderer
         return screenPoint;
     }
 
+    /**
+     * Draws a text and all subsequent text of this renderer in the ordered renderable list as one glyph text batch.
+     *
+     * @param dc    the current draw context.
+     * @param uText the first text to draw.
+     */
+    protected void drawTextBatch(DrawContext dc, DeclutterableText uText)
+    {
+        GlyphTextBatch batch = this.textBatch;
+        batch.clear();
+
+        try
+        {
+            this.addToTextBatch(dc, uText, batch);
+
+            Object nextItem = dc.peekOrderedRenderables();
+            while (nextItem instanceof DeclutterableText && ((DeclutterableText) nextItem).textRenderer == this)
+            {
+                dc.pollOrderedRenderables(); // take it off the queue
+                this.addToTextBatch(dc, (DeclutterableText) nextItem, batch);
+
+                nextItem = dc.peekOrderedRenderables();
+            }
+
+            if (batch.isEmpty())
+                return;
+
+            this.beginRendering(dc);
+            try
+            {
+                // Use a parallel projection that maps vertex z coordinates to window depth.
+                GL2 gl = dc.getGL().getGL2(); // GL initialization checks for GL2 compatibility.
+                gl.glMatrixMode(GL2.GL_PROJECTION);
+                gl.glLoadIdentity();
+                gl.glOrtho(0, dc.getView().getViewport().width, 0, dc.getView().getViewport().height, 0, -1);
+                gl.glMatrixMode(GL2.GL_MODELVIEW);
+                gl.glDepthFunc(this.isDepthTestText(dc) ? GL.GL_LESS : GL.GL_ALWAYS);
+
+                batch.draw(dc);
+            }
+            finally
+            {
+                this.endRendering(dc);
+            }
+        }
+        finally
+        {
+            batch.clear();
+        }
+    }
+
+    /**
+     * Adds a text, and its background if it has one, to a glyph text batch.
+     *
+     * @param dc    the current draw context.
+     * @param uText the text to add.
+     * @param batch the batch to add the text to.
+     */
+    protected void addToTextBatch(DrawContext dc, DeclutterableText uText, GlyphTextBatch batch)
+    {
+        GeographicText geographicText = uText.getText();
+        CharSequence charSequence = geographicText.getText();
+        if (charSequence == null || uText.getPoint() == null)
+            return;
+
+        Vec4 screenPoint = dc.getView().project(uText.getPoint());
+        if (screenPoint == null)
+            return;
+
+        Rectangle2D textBounds = uText.getBounds(dc);
+        if (textBounds == null)
+            return;
+
+        Point.Float drawPoint = this.computeDrawPoint(textBounds, screenPoint);
+        if (drawPoint == null)
+            return;
+
+        Font font = geographicText.getFont();
+        if (font == null)
+            font = this.getDefaultFont();
+        GlyphLayout layout = this.getGlyphAtlas(dc, font).getLayout(charSequence);
+
+        double depth = screenPoint.z - (8d * 0.00048875809d);
+        depth = depth < 0d ? 0d : (depth > 1d ? 1d : depth);
+
+        Color background = geographicText.getBackgroundColor();
+        if (background != null)
+            batch.addText(layout, drawPoint.x + 1, drawPoint.y - 1, 1, depth, background);
+
+        Color color = geographicText.getColor();
+        batch.addText(layout, drawPoint.x, drawPoint.y, 1, depth, color != null ? color : DEFAULT_COLOR);
+    }
+
+    /**
+     * Indicates whether text is depth tested against the scene, which it is when the eye is below the globe's maximum
+     * elevation.
+     *
+     * @param dc the current draw context.
+     *
+     * @return true if text is depth tested, otherwise false.
+     */
+    protected boolean isDepthTestText(DrawContext dc)
+    {
+        Position eyePos = dc.getView().getEyePosition();
+        return eyePos != null
+            && eyePos.getElevation() < (dc.getGlobe().getMaxElevation() * dc.getVerticalExaggeration());
+    }
+
     protected void setDepthFunc(DrawContext dc, Vec4 screenPoint)
     {
         GL gl = dc.getGL();
@@ -376,9 +525,11 @@ public class DeclutteringTextRenderer
 
         try
         {
-            TextRenderer textRenderer = this.getTextRenderer(dc, font);
-
-            Rectangle2D textBound = textRenderer.getBounds(charSequence);
+            // Measure text drawn from glyph atlases with the font's cached text layout, and other text with the text
+            // renderer that draws it.
+            Rectangle2D textBound = this.isEnableGlyphAtlas()
+                ? this.getGlyphAtlas(dc, font).getLayout(charSequence).getBounds()
+                : this.getTextRenderer(dc, font).getBounds(charSequence);
             double x = screenPoint.x - textBound.getWidth() / 2d;
             Rectangle2D bounds = new Rectangle2D.Float();
             bounds.setRect(x, screenPoint.y, textBound.getWidth(), textBound.getHeight());
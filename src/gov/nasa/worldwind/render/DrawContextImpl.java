@@ -117,52 +117,21 @@ public class DrawContextImpl extends WWObjectImpl implements DrawContext
     protected ClutterFilter clutterFilter;
 //    protected Map<String, GroupingFilter> groupingFilters;
 
-    protected static class OrderedRenderableEntry
+    /**
+     * The ordered renderables of the current frame. The queue reuses its storage from frame to frame, so adding ordered
+     * renderables does not allocate once it has grown to the scene's size.
+     */
+    protected OrderedRenderableQueue orderedRenderables = new OrderedRenderableQueue();
+    /** Selects the ordered renderables passed to the clutter filter. */
+    protected static final OrderedRenderableQueue.Filter DECLUTTERABLE_FILTER = new OrderedRenderableQueue.Filter()
     {
-        protected OrderedRenderable or;
-        protected double distanceFromEye;
-        protected long time;
-        protected int globeOffset;
-        protected SectorGeometryList surfaceGeometry;
-
-        public OrderedRenderableEntry(OrderedRenderable orderedRenderable, long insertionTime, DrawContext dc)
-        {
-            this.or = orderedRenderable;
-            this.distanceFromEye = orderedRenderable.getDistanceFromEye();
-            this.time = insertionTime;
-            if (dc.isContinuous2DGlobe())
-            {
-                this.globeOffset = ((Globe2D) dc.getGlobe()).getOffset();
-                this.surfaceGeometry = dc.getSurfaceGeometry();
-            }
-        }
-
-        public OrderedRenderableEntry(OrderedRenderable orderedRenderable, double distanceFromEye, long insertionTime,
-            DrawContext dc)
+        @Override
+        public boolean accept(OrderedRenderable orderedRenderable)
         {
-            this.or = orderedRenderable;
-            this.distanceFromEye = distanceFromEye;
-            this.time = insertionTime;
-            if (dc.isContinuous2DGlobe())
-            {
-                this.globeOffset = ((Globe2D) dc.getGlobe()).getOffset();
-                this.surfaceGeometry = dc.getSurfaceGeometry();
-            }
+            return orderedRenderable instanceof Declutterable
+                && ((Declutterable) orderedRenderable).isEnableDecluttering();
         }
-    }
-
-    protected PriorityQueue<OrderedRenderableEntry> orderedRenderables =
-        new PriorityQueue<OrderedRenderableEntry>(100, new Comparator<OrderedRenderableEntry>()
-        {
-            @Override
-			public int compare(OrderedRenderableEntry orA, OrderedRenderableEntry orB)
-            {
-                double eA = orA.distanceFromEye;
-                double eB = orB.distanceFromEye;
-
-                return eA > eB ? -1 : eA == eB ? (orA.time < orB.time ? -1 : orA.time == orB.time ? 0 : 1) : 1;
-            }
-        });
+    };
     // Use a standard Queue to store the ordered surface object renderables. Ordered surface renderables are processed
     // in the order they were submitted.
     protected Queue<OrderedRenderable> orderedSurfaceRenderables = new ArrayDeque<OrderedRenderable>();
@@ -769,7 +738,7 @@ public class DrawContextImpl extends WWObjectImpl implements DrawContext
             return; // benign event
         }
 
-        this.orderedRenderables.add(new OrderedRenderableEntry(orderedRenderable, System.nanoTime(), this));
+        this.addOrderedRenderableEntry(orderedRenderable, orderedRenderable.getDistanceFromEye());
     }
 
     /** {@inheritDoc} */
@@ -788,30 +757,40 @@ public class DrawContextImpl extends WWObjectImpl implements DrawContext
         // If multiple ordered renderables are added in this way, they are drawn according to the order in which they
         // are added.
         double eyeDistance = isBehind ? Double.MAX_VALUE : orderedRenderable.getDistanceFromEye();
-        this.orderedRenderables.add(
-            new OrderedRenderableEntry(orderedRenderable, eyeDistance, System.nanoTime(), this));
+        this.addOrderedRenderableEntry(orderedRenderable, eyeDistance);
+    }
+
+    protected void addOrderedRenderableEntry(OrderedRenderable orderedRenderable, double eyeDistance)
+    {
+        if (this.isContinuous2DGlobe())
+        {
+            this.orderedRenderables.add(orderedRenderable, eyeDistance, ((Globe2D) this.getGlobe()).getOffset(),
+                this.getSurfaceGeometry());
+        }
+        else
+        {
+            this.orderedRenderables.add(orderedRenderable, eyeDistance, 0, null);
+        }
     }
 
     @Override
 	public OrderedRenderable peekOrderedRenderables()
     {
-        OrderedRenderableEntry ore = this.orderedRenderables.peek();
-
-        return ore != null ? ore.or : null;
+        return this.orderedRenderables.peek();
     }
 
     @Override
 	public OrderedRenderable pollOrderedRenderables()
     {
-        OrderedRenderableEntry ore = this.orderedRenderables.poll();
+        OrderedRenderable or = this.orderedRenderables.poll();
 
-        if (ore != null && this.isContinuous2DGlobe())
+        if (or != null && this.isContinuous2DGlobe())
         {
-            ((Globe2D) this.getGlobe()).setOffset(ore.globeOffset);
-            this.setSurfaceGeometry(ore.surfaceGeometry);
+            ((Globe2D) this.getGlobe()).setOffset(this.orderedRenderables.getGlobeOffset());
+            this.setSurfaceGeometry(this.orderedRenderables.getSurfaceGeometry());
         }
 
-        return ore != null ? ore.or : null;
+        return or;
     }
 //
 //    public void applyDeclutterFilter2()
@@ -876,39 +855,16 @@ public class DrawContextImpl extends WWObjectImpl implements DrawContext
         if (this.getClutterFilter() == null)
             return;
 
-        // Collect all the active declutterables.
-        ArrayList<OrderedRenderableEntry> declutterableArray = new ArrayList<OrderedRenderableEntry>();
-        for (OrderedRenderableEntry ore : this.orderedRenderables)
-        {
-            if (ore.or instanceof Declutterable && ((Declutterable) ore.or).isEnableDecluttering())
-                declutterableArray.add(ore);
-        }
-
-        // Sort the declutterables front-to-back.
-        Collections.sort(declutterableArray, new Comparator<OrderedRenderableEntry>()
-        {
-            @Override
-			public int compare(OrderedRenderableEntry orA, OrderedRenderableEntry orB)
-            {
-                double eA = orA.distanceFromEye;
-                double eB = orB.distanceFromEye;
-
-                return eA < eB ? -1 : eA == eB ? (orA.time < orB.time ? -1 : orA.time == orB.time ? 0 : 1) : 1;
-            }
-        });
-
-        if (declutterableArray.size() == 0)
+        // Remove the active declutterables from the renderable list, sorted front-to-back. The clutter filter will add
+        // those it wants displayed back to the list, or it will add some other representation.
+        List<OrderedRenderable> removed = new ArrayList<OrderedRenderable>();
+        if (this.orderedRenderables.removeIf(DECLUTTERABLE_FILTER, removed) == 0)
             return;
 
-        // Prepare the declutterable list for the filter and remove eliminated ordered renderables from the renderable
-        // list. The clutter filter will add those it wants displayed back to the list, or it will add some other
-        // representation.
-        List<Declutterable> declutterables = new ArrayList<Declutterable>(declutterableArray.size());
-        for (OrderedRenderableEntry ore : declutterableArray)
+        List<Declutterable> declutterables = new ArrayList<Declutterable>(removed.size());
+        for (OrderedRenderable or : removed)
         {
-            declutterables.add((Declutterable) ore.or);
-
-            orderedRenderables.remove(ore);
+            declutterables.add((Declutterable) or);
         }
 
         // Tell the filter to apply itself and draw whatever it draws.
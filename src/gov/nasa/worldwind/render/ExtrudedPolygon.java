@@ -1315,6 +1315,12 @@ public class ExtrudedPolygon extends AbstractShape
         return this.getCurrent().capVertexBuffer != null || this.getCurrent().sideVertexBuffer != null;
     }
 
+    @Override
+    protected boolean isAsyncGeometrySupported()
+    {
+        return true;
+    }
+
     @Override
     protected boolean doMakeOrderedRenderable(DrawContext dc)
     {
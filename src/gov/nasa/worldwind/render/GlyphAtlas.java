@@ -0,0 +1,418 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.render;
+
+import gov.nasa.worldwind.exception.WWRuntimeException;
+import gov.nasa.worldwind.util.*;
+
+import com.jogamp.opengl.util.texture.TextureCoords;
+
+import java.awt.*;
+import java.awt.font.*;
+import java.awt.image.BufferedImage;
+import java.util.*;
+
+/**
+ * Glyph images and text layouts for one font, shared by every label drawn in that font. Text layouts are cached by
+ * string, so measuring a label that has been measured before is a single map lookup. Glyph images are rasterized with
+ * Java2D the first time a label containing them is drawn, and packed into a {@link TextureAtlas} that evicts its least
+ * recently used glyphs when full. Measuring text and rasterizing glyphs do not require OpenGL.
+ * <p>
+ * Glyph atlases are created and held by the {@link TextRendererCache}, and are obtained with {@link
+ * TextRendererCache#getGlyphAtlas(java.awt.Font)}. Text is rendered with the same settings as {@link OGLTextRenderer}
+ * uses by default: antialiased, without fractional metrics. Layout bounds therefore match the bounds returned by that
+ * text renderer. Labels are drawn from a glyph atlas by {@link GlyphTextBatch}.
+ *
+ * @version $Id$
+ * @see GlyphLayout
+ * @see GlyphTextBatch
+ */
+public class GlyphAtlas
+{
+    /** The default maximum number of text layouts cached by a glyph atlas. */
+    public static final int DEFAULT_LAYOUT_CAPACITY = 4096;
+    /** The width of a glyph atlas' texture, in pixels. */
+    protected static final int PAGE_WIDTH = 1024;
+    /** The initial height of a glyph atlas' texture, in pixels. */
+    protected static final int INITIAL_PAGE_HEIGHT = 128;
+    /** The height a glyph atlas' texture can grow to, in pixels. */
+    protected static final int MAX_PAGE_HEIGHT = 1024;
+
+    /**
+     * A glyph's pixel bounds relative to its origin on the baseline, in Java2D coordinates, and its texture coordinates
+     * in the atlas. Texture coordinates are maintained by {@link GlyphTextBatch} while it prepares to draw.
+     */
+    public static class Glyph
+    {
+        protected final int code;
+        /** The offset from the glyph's origin to the left edge of its image, in pixels. */
+        protected final int x;
+        /** The offset from the glyph's origin to the top edge of its image, in pixels. Negative above the baseline. */
+        protected final int y;
+        protected final int width;
+        protected final int height;
+        // The atlas stamps the glyph was last made resident and had its texture coordinates computed in.
+        protected int residentStamp;
+        protected int texCoordsStamp;
+        protected boolean resident;
+        protected float s0, t0, s1, t1;
+
+        public Glyph(int code, Rectangle pixelBounds)
+        {
+            this.code = code;
+            // Pad the image by one transparent pixel on each side, so that the atlas' border does not repeat the
+            // glyph's edge pixels.
+            this.x = pixelBounds.x - 1;
+            this.y = pixelBounds.y - 1;
+            this.width = pixelBounds.width > 0 && pixelBounds.height > 0 ? pixelBounds.width + 2 : 0;
+            this.height = pixelBounds.width > 0 && pixelBounds.height > 0 ? pixelBounds.height + 2 : 0;
+        }
+
+        public int getCode()
+        {
+            return this.code;
+        }
+
+        public int getX()
+        {
+            return this.x;
+        }
+
+        public int getY()
+        {
+            return this.y;
+        }
+
+        public int getWidth()
+        {
+            return this.width;
+        }
+
+        public int getHeight()
+        {
+            return this.height;
+        }
+
+        /**
+         * Indicates whether the glyph has an image. Glyphs such as spaces have only an advance.
+         *
+         * @return true if the glyph has no image, otherwise false.
+         */
+        public boolean isEmpty()
+        {
+            return this.width == 0;
+        }
+    }
+
+    /** The atlas texture, which tracks the glyphs it evicts. */
+    protected static class Page extends TextureAtlas
+    {
+        public Page()
+        {
+            // The rectangle packer grows the backing image only in height, so the page starts at its full width.
+            super(PAGE_WIDTH, INITIAL_PAGE_HEIGHT, PAGE_WIDTH, MAX_PAGE_HEIGHT);
+            this.setEvictOldElements(true);
+        }
+
+        /**
+         * Adds a glyph's image, logging rather than throwing if it does not fit.
+         *
+         * @param glyph the glyph.
+         * @param image the glyph's image.
+         *
+         * @return true if the image was added, otherwise false.
+         */
+        protected boolean tryAdd(Glyph glyph, BufferedImage image)
+        {
+            if (image.getWidth() + 2 > this.getMaxWidth() || image.getHeight() + 2 > this.getMaxHeight())
+                return false;
+
+            try
+            {
+                this.doAdd(glyph, image);
+                return true;
+            }
+            catch (WWRuntimeException e)
+            {
+                this.entryMap.remove(glyph);
+                Logging.logger().warning(Logging.getMessage("TextureAtlas.AtlasIsFull", glyph.code));
+                return false;
+            }
+        }
+
+        @Override
+        protected void doRemove(Entry entry)
+        {
+            super.doRemove(entry);
+            ((Glyph) entry.key).resident = false;
+        }
+    }
+
+    protected final Font font;
+    protected final FontRenderContext fontRenderContext;
+    protected final Map<Integer, Glyph> glyphs = new HashMap<Integer, Glyph>();
+    protected final LinkedHashMap<String, GlyphLayout> layouts;
+    protected int layoutCapacity = DEFAULT_LAYOUT_CAPACITY;
+    protected Page page;
+    /** Incremented each time a batch prepares glyphs from this atlas. */
+    protected int stamp;
+
+    /**
+     * Creates a glyph atlas for a font.
+     *
+     * @param font the font.
+     *
+     * @throws IllegalArgumentException if the font is null.
+     */
+    public GlyphAtlas(Font font)
+    {
+        if (font == null)
+        {
+            String message = Logging.getMessage("nullValue.FontIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.font = font;
+        this.fontRenderContext = new FontRenderContext(null, true, false);
+        this.layouts = new LinkedHashMap<String, GlyphLayout>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, GlyphLayout> eldest)
+            {
+                return this.size() > layoutCapacity;
+            }
+        };
+    }
+
+    public Font getFont()
+    {
+        return this.font;
+    }
+
+    public FontRenderContext getFontRenderContext()
+    {
+        return this.fontRenderContext;
+    }
+
+    /**
+     * Returns the layout of a string in this atlas' font, creating and caching it if necessary.
+     *
+     * @param text the text.
+     *
+     * @return the text's layout.
+     *
+     * @throws IllegalArgumentException if the text is null.
+     */
+    public synchronized GlyphLayout getLayout(CharSequence text)
+    {
+        if (text == null)
+        {
+            String message = Logging.getMessage("nullValue.CharSequenceIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        String key = text.toString();
+        GlyphLayout layout = this.layouts.get(key);
+        if (layout == null)
+        {
+            layout = new GlyphLayout(this, key);
+            this.layouts.put(key, layout);
+        }
+
+        return layout;
+    }
+
+    /**
+     * Returns the number of text layouts currently cached.
+     *
+     * @return the number of cached layouts.
+     */
+    public synchronized int getLayoutCount()
+    {
+        return this.layouts.size();
+    }
+
+    /**
+     * Indicates the maximum number of text layouts cached. The least recently used layouts are discarded when the cache
+     * is full.
+     *
+     * @return the maximum number of cached layouts.
+     */
+    public synchronized int getLayoutCapacity()
+    {
+        return this.layoutCapacity;
+    }
+
+    /**
+     * Specifies the maximum number of text layouts cached. To keep text measurement cheap, the capacity should exceed
+     * the number of distinct strings displayed at once in this atlas' font.
+     *
+     * @param capacity the maximum number of cached layouts.
+     *
+     * @throws IllegalArgumentException if the capacity is less than 1.
+     */
+    public synchronized void setLayoutCapacity(int capacity)
+    {
+        if (capacity < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "capacity < 1");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.layoutCapacity = capacity;
+
+        Iterator<GlyphLayout> iter = this.layouts.values().iterator();
+        while (this.layouts.size() > capacity && iter.hasNext())
+        {
+            iter.next();
+            iter.remove();
+        }
+    }
+
+    /**
+     * Returns the metrics of a glyph in this atlas' font, creating them if necessary.
+     *
+     * @param code the glyph code.
+     *
+     * @return the glyph.
+     */
+    public synchronized Glyph getGlyph(int code)
+    {
+        Glyph glyph = this.glyphs.get(code);
+        if (glyph == null)
+        {
+            GlyphVector gv = this.font.createGlyphVector(this.fontRenderContext, new int[] {code});
+            glyph = new Glyph(code, gv.getGlyphPixelBounds(0, this.fontRenderContext, 0, 0));
+            this.glyphs.put(code, glyph);
+        }
+
+        return glyph;
+    }
+
+    /**
+     * Returns the texture holding this atlas' glyph images, or null if no glyph image has been added yet.
+     *
+     * @return the atlas texture.
+     */
+    public TextureAtlas getTextureAtlas()
+    {
+        return this.page;
+    }
+
+    /**
+     * Starts a new pass of {@link #makeResident(Glyph)} and {@link #updateTexCoords(Glyph)} calls. Within a pass, each
+     * glyph is made resident and has its texture coordinates computed at most once.
+     */
+    protected void beginPass()
+    {
+        this.stamp++;
+    }
+
+    /**
+     * Adds a glyph's image to the atlas texture if it is not already there. Does nothing if the glyph has no image or
+     * has already been made resident during the current pass.
+     *
+     * @param glyph the glyph.
+     */
+    protected void makeResident(Glyph glyph)
+    {
+        if (glyph.residentStamp == this.stamp)
+            return;
+
+        glyph.residentStamp = this.stamp;
+        if (glyph.resident || glyph.isEmpty())
+            return;
+
+        if (this.page == null)
+            this.page = new Page();
+
+        glyph.resident = this.page.tryAdd(glyph, this.rasterize(glyph));
+    }
+
+    /**
+     * Computes a resident glyph's texture coordinates. Must be called after all glyphs for the pass have been made
+     * resident, because adding glyphs may move the others.
+     *
+     * @param glyph the glyph.
+     *
+     * @return true if the glyph can be drawn, otherwise false.
+     */
+    protected boolean updateTexCoords(Glyph glyph)
+    {
+        if (glyph.texCoordsStamp != this.stamp)
+        {
+            glyph.texCoordsStamp = this.stamp;
+            TextureCoords tc = glyph.resident ? this.page.getTexCoords(glyph) : null;
+            if (tc == null)
+            {
+                glyph.resident = false;
+            }
+            else
+            {
+                glyph.s0 = tc.left();
+                glyph.t0 = tc.bottom();
+                glyph.s1 = tc.right();
+                glyph.t1 = tc.top();
+            }
+        }
+
+        return glyph.resident;
+    }
+
+    /**
+     * Draws a glyph's image in white, with coverage in the alpha channel.
+     *
+     * @param glyph the glyph.
+     *
+     * @return the glyph's image.
+     */
+    protected BufferedImage rasterize(Glyph glyph)
+    {
+        BufferedImage image = new BufferedImage(glyph.width, glyph.height, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = image.createGraphics();
+        try
+        {
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_OFF);
+            g.setColor(Color.WHITE);
+            GlyphVector gv = this.font.createGlyphVector(this.fontRenderContext, new int[] {glyph.code});
+            g.drawGlyphVector(gv, -glyph.x, -glyph.y);
+        }
+        finally
+        {
+            g.dispose();
+        }
+
+        return image;
+    }
+}
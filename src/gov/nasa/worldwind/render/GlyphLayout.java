@@ -0,0 +1,153 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.render;
+
+import java.awt.*;
+import java.awt.font.GlyphVector;
+import java.awt.geom.Rectangle2D;
+
+/**
+ * The measured layout of a string in one font: its bounds and the position of each of its glyphs. Layouts are created
+ * and cached by a {@link GlyphAtlas}, and are immutable.
+ * <p>
+ * The bounds are the same as those returned by the JOGL <code>TextRenderer.getBounds</code> method for the atlas' font:
+ * the string's visual bounds padded by a small font-dependent margin and rounded out to whole pixels, in Java2D
+ * coordinates relative to the origin of the first glyph on the baseline.
+ *
+ * @version $Id$
+ */
+public class GlyphLayout
+{
+    protected final GlyphAtlas atlas;
+    protected final String text;
+    protected final double x;
+    protected final double y;
+    protected final double width;
+    protected final double height;
+    protected final GlyphAtlas.Glyph[] glyphs;
+    /** Glyph origins relative to the layout origin, as x and y pairs in Java2D coordinates. */
+    protected final float[] glyphPositions;
+
+    /**
+     * Lays out a string. Called by {@link GlyphAtlas#getLayout(CharSequence)}.
+     *
+     * @param atlas the atlas for the string's font.
+     * @param text  the string.
+     */
+    protected GlyphLayout(GlyphAtlas atlas, String text)
+    {
+        this.atlas = atlas;
+        this.text = text;
+
+        Font font = atlas.getFont();
+        GlyphVector gv = font.createGlyphVector(atlas.getFontRenderContext(), text);
+
+        // Pad and round the visual bounds the same way the JOGL text renderer does.
+        Rectangle2D visualBounds = gv.getVisualBounds();
+        int boundary = (int) Math.max(1, 0.015 * font.getSize());
+        this.x = (int) Math.floor(visualBounds.getMinX() - boundary);
+        this.y = (int) Math.floor(visualBounds.getMinY() - boundary);
+        this.width = (int) Math.ceil(visualBounds.getWidth() + 2 * boundary);
+        this.height = (int) Math.ceil(visualBounds.getHeight()) + 2 * boundary;
+
+        int numGlyphs = gv.getNumGlyphs();
+        int[] codes = gv.getGlyphCodes(0, numGlyphs, null);
+        this.glyphs = new GlyphAtlas.Glyph[numGlyphs];
+        for (int i = 0; i < numGlyphs; i++)
+        {
+            this.glyphs[i] = atlas.getGlyph(codes[i]);
+        }
+        this.glyphPositions = gv.getGlyphPositions(0, numGlyphs, null);
+    }
+
+    public GlyphAtlas getAtlas()
+    {
+        return this.atlas;
+    }
+
+    public String getText()
+    {
+        return this.text;
+    }
+
+    /**
+     * Returns the layout's bounds. See the class description for the definition of the bounds.
+     *
+     * @return a new rectangle containing the layout's bounds.
+     */
+    public Rectangle2D getBounds()
+    {
+        return new Rectangle2D.Double(this.x, this.y, this.width, this.height);
+    }
+
+    public double getWidth()
+    {
+        return this.width;
+    }
+
+    public double getHeight()
+    {
+        return this.height;
+    }
+
+    public int getGlyphCount()
+    {
+        return this.glyphs.length;
+    }
+
+    public GlyphAtlas.Glyph getGlyph(int index)
+    {
+        return this.glyphs[index];
+    }
+
+    /**
+     * Returns the horizontal offset of a glyph's origin from the layout's origin.
+     *
+     * @param index the glyph's index.
+     *
+     * @return the glyph's x offset, in pixels.
+     */
+    public float getGlyphX(int index)
+    {
+        return this.glyphPositions[2 * index];
+    }
+
+    /**
+     * Returns the vertical offset of a glyph's origin from the layout's origin, in Java2D coordinates.
+     *
+     * @param index the glyph's index.
+     *
+     * @return the glyph's y offset, in pixels. Positive below the baseline.
+     */
+    public float getGlyphY(int index)
+    {
+        return this.glyphPositions[2 * index + 1];
+    }
+}
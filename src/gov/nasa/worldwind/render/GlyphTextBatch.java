@@ -0,0 +1,347 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.render;
+
+import gov.nasa.worldwind.util.*;
+
+import com.jogamp.common.nio.Buffers;
+import com.jogamp.opengl.*;
+
+import java.awt.*;
+import java.nio.*;
+import java.util.*;
+
+/**
+ * Screen-space text collected during a frame and drawn as textured glyph quads, with one draw call per font. Text is
+ * added as {@link GlyphLayout}s, so measuring and laying out a label happens once per distinct string rather than once
+ * per frame. Within a font, text is drawn in the order it was added. Adding text and generating the quads does not
+ * require OpenGL.
+ * <p>
+ * The caller establishes the projection and depth state before calling {@link #draw(DrawContext)}. Vertex z
+ * coordinates are the depth specified for each text, so an orthographic projection that maps z directly to window
+ * depth, such as <code>glOrtho(0, width, 0, height, 0, -1)</code>, draws each text at its depth.
+ *
+ * @version $Id$
+ * @see GlyphAtlas
+ */
+public class GlyphTextBatch
+{
+    protected static final int INITIAL_CAPACITY = 64;
+
+    protected int count;
+    protected GlyphLayout[] layouts = new GlyphLayout[INITIAL_CAPACITY];
+    /** The x, y, scale and depth of each text. */
+    protected double[] placements = new double[4 * INITIAL_CAPACITY];
+    /** The premultiplied color of each text, packed as RGBA bytes in big-endian order. */
+    protected int[] colors = new int[INITIAL_CAPACITY];
+    // Glyph quads grouped by atlas, and each atlas' range of quads, determined by prepare.
+    protected int quadCount;
+    protected FloatBuffer vertices = Buffers.newDirectFloatBuffer(12 * INITIAL_CAPACITY);
+    protected FloatBuffer texCoords = Buffers.newDirectFloatBuffer(8 * INITIAL_CAPACITY);
+    protected ByteBuffer vertexColors = Buffers.newDirectByteBuffer(16 * INITIAL_CAPACITY).order(ByteOrder.BIG_ENDIAN);
+    protected java.util.List<GlyphAtlas> atlases = new ArrayList<GlyphAtlas>();
+    protected int[] atlasFirsts = new int[4];
+    protected int[] atlasCounts = new int[4];
+    protected int[] textAtlases = new int[INITIAL_CAPACITY];
+    protected final OGLStackHandler osh = new OGLStackHandler();
+
+    /**
+     * Returns the number of texts added since the last call to {@link #clear()}.
+     *
+     * @return the number of texts.
+     */
+    public int getTextCount()
+    {
+        return this.count;
+    }
+
+    /**
+     * Returns the number of glyph quads drawn. Valid after {@link #prepare()}.
+     *
+     * @return the number of glyph quads.
+     */
+    public int getQuadCount()
+    {
+        return this.quadCount;
+    }
+
+    /**
+     * Returns the number of draw calls this batch makes. Valid after {@link #prepare()}.
+     *
+     * @return the number of fonts containing the text.
+     */
+    public int getDrawCallCount()
+    {
+        int drawCalls = 0;
+        for (int i = 0; i < this.atlases.size(); i++)
+        {
+            if (this.atlasCounts[i] > 0)
+                drawCalls++;
+        }
+
+        return drawCalls;
+    }
+
+    public boolean isEmpty()
+    {
+        return this.count == 0;
+    }
+
+    /** Removes all text from this batch. */
+    public void clear()
+    {
+        Arrays.fill(this.layouts, 0, this.count, null);
+        this.count = 0;
+        this.quadCount = 0;
+        this.atlases.clear();
+    }
+
+    /**
+     * Adds text to this batch.
+     *
+     * @param layout the text's layout.
+     * @param x      the screen x coordinate of the text's origin on its baseline.
+     * @param y      the screen y coordinate of the text's origin on its baseline.
+     * @param scale  the amount to scale the text by, about its origin.
+     * @param depth  the window depth the text is drawn at, in the range [0, 1].
+     * @param color  the text's color.
+     *
+     * @throws IllegalArgumentException if the layout or color is null.
+     */
+    public void addText(GlyphLayout layout, double x, double y, double scale, double depth, Color color)
+    {
+        if (layout == null)
+        {
+            String msg = Logging.getMessage("nullValue.LayoutIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (color == null)
+        {
+            String msg = Logging.getMessage("nullValue.ColorIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (this.count == this.layouts.length)
+            this.growTexts();
+
+        int i = this.count++;
+        this.layouts[i] = layout;
+        this.placements[4 * i] = x;
+        this.placements[4 * i + 1] = y;
+        this.placements[4 * i + 2] = scale;
+        this.placements[4 * i + 3] = depth;
+
+        // Premultiply the color, because the atlas texture has premultiplied alpha.
+        int a = color.getAlpha();
+        int r = (color.getRed() * a + 127) / 255;
+        int g = (color.getGreen() * a + 127) / 255;
+        int b = (color.getBlue() * a + 127) / 255;
+        this.colors[i] = (r << 24) | (g << 16) | (b << 8) | a;
+    }
+
+    /**
+     * Adds the glyph images of this batch's text to their atlases if they are not already there, and generates the
+     * glyph quads grouped by atlas. Texture coordinates are computed only after every glyph image is in place, because
+     * adding an image may move the others. Glyphs whose image could not be added are not drawn.
+     *
+     * @return true if any glyph can be drawn, otherwise false.
+     */
+    public boolean prepare()
+    {
+        this.atlases.clear();
+        for (int i = 0; i < this.count; i++)
+        {
+            GlyphAtlas atlas = this.layouts[i].getAtlas();
+            int atlasIndex = this.atlases.indexOf(atlas);
+            if (atlasIndex < 0)
+            {
+                atlasIndex = this.atlases.size();
+                this.atlases.add(atlas);
+                atlas.beginPass();
+            }
+            this.textAtlases[i] = atlasIndex;
+        }
+
+        if (this.atlasCounts.length < this.atlases.size())
+        {
+            this.atlasFirsts = new int[this.atlases.size()];
+            this.atlasCounts = new int[this.atlases.size()];
+        }
+        Arrays.fill(this.atlasCounts, 0);
+
+        // Make every glyph resident.
+        for (int i = 0; i < this.count; i++)
+        {
+            GlyphLayout layout = this.layouts[i];
+            GlyphAtlas atlas = layout.getAtlas();
+            for (int gi = 0; gi < layout.getGlyphCount(); gi++)
+            {
+                atlas.makeResident(layout.getGlyph(gi));
+            }
+        }
+
+        // Count the quads of each atlas, then compute each atlas' range of quads.
+        for (int i = 0; i < this.count; i++)
+        {
+            GlyphLayout layout = this.layouts[i];
+            GlyphAtlas atlas = layout.getAtlas();
+            for (int gi = 0; gi < layout.getGlyphCount(); gi++)
+            {
+                if (atlas.updateTexCoords(layout.getGlyph(gi)))
+                    this.atlasCounts[this.textAtlases[i]]++;
+            }
+        }
+
+        this.quadCount = 0;
+        for (int a = 0; a < this.atlases.size(); a++)
+        {
+            this.atlasFirsts[a] = this.quadCount;
+            this.quadCount += this.atlasCounts[a];
+        }
+
+        if (this.quadCount > this.vertices.capacity() / 12)
+            this.growQuads(this.quadCount);
+
+        // Place each glyph's quad in its atlas' range, keeping the order the text was added within each atlas.
+        int[] next = Arrays.copyOf(this.atlasFirsts, this.atlases.size());
+        for (int i = 0; i < this.count; i++)
+        {
+            GlyphLayout layout = this.layouts[i];
+            double x = this.placements[4 * i];
+            double y = this.placements[4 * i + 1];
+            double scale = this.placements[4 * i + 2];
+            float z = (float) this.placements[4 * i + 3];
+            int color = this.colors[i];
+
+            for (int gi = 0; gi < layout.getGlyphCount(); gi++)
+            {
+                GlyphAtlas.Glyph glyph = layout.getGlyph(gi);
+                if (glyph.isEmpty() || !glyph.resident)
+                    continue;
+
+                // Java2D places y downward from the baseline; screen coordinates place it upward.
+                float left = (float) (x + scale * (layout.getGlyphX(gi) + glyph.x));
+                float right = (float) (x + scale * (layout.getGlyphX(gi) + glyph.x + glyph.width));
+                float top = (float) (y - scale * (layout.getGlyphY(gi) + glyph.y));
+                float bottom = (float) (y - scale * (layout.getGlyphY(gi) + glyph.y + glyph.height));
+                this.putQuad(next[this.textAtlases[i]]++, left, bottom, right, top, z, glyph, color);
+            }
+        }
+
+        return this.quadCount > 0;
+    }
+
+    protected void putQuad(int q, float left, float bottom, float right, float top, float z, GlyphAtlas.Glyph glyph,
+        int color)
+    {
+        FloatBuffer v = this.vertices;
+        int vi = 12 * q;
+        v.put(vi, left).put(vi + 1, bottom).put(vi + 2, z);
+        v.put(vi + 3, right).put(vi + 4, bottom).put(vi + 5, z);
+        v.put(vi + 6, right).put(vi + 7, top).put(vi + 8, z);
+        v.put(vi + 9, left).put(vi + 10, top).put(vi + 11, z);
+
+        FloatBuffer t = this.texCoords;
+        int ti = 8 * q;
+        t.put(ti, glyph.s0).put(ti + 1, glyph.t0).put(ti + 2, glyph.s1).put(ti + 3, glyph.t0);
+        t.put(ti + 4, glyph.s1).put(ti + 5, glyph.t1).put(ti + 6, glyph.s0).put(ti + 7, glyph.t1);
+
+        ByteBuffer c = this.vertexColors;
+        for (int ci = 16 * q; ci < 16 * q + 16; ci += 4)
+        {
+            c.putInt(ci, color);
+        }
+    }
+
+    /**
+     * Prepares and draws this batch's text. Enables texturing, premultiplied alpha blending and the vertex arrays it
+     * uses, and restores them afterwards. The caller's projection, modelview and depth state are used as is.
+     *
+     * @param dc the current draw context.
+     */
+    public void draw(DrawContext dc)
+    {
+        if (this.count == 0 || !this.prepare())
+            return;
+
+        GL2 gl = dc.getGL().getGL2(); // GL initialization checks for GL2 compatibility.
+
+        this.osh.clear();
+        this.osh.pushAttrib(gl, GL2.GL_COLOR_BUFFER_BIT | GL2.GL_ENABLE_BIT | GL2.GL_TEXTURE_BIT);
+        this.osh.pushClientAttrib(gl, GL2.GL_CLIENT_VERTEX_ARRAY_BIT);
+        try
+        {
+            gl.glEnable(GL.GL_TEXTURE_2D);
+            gl.glTexEnvi(GL2.GL_TEXTURE_ENV, GL2.GL_TEXTURE_ENV_MODE, GL2.GL_MODULATE);
+            gl.glEnable(GL.GL_BLEND);
+            OGLUtil.applyBlending(gl, true);
+
+            gl.glEnableClientState(GL2.GL_VERTEX_ARRAY);
+            gl.glEnableClientState(GL2.GL_TEXTURE_COORD_ARRAY);
+            gl.glEnableClientState(GL2.GL_COLOR_ARRAY);
+            gl.glVertexPointer(3, GL.GL_FLOAT, 0, this.vertices.rewind());
+            gl.glTexCoordPointer(2, GL.GL_FLOAT, 0, this.texCoords.rewind());
+            gl.glColorPointer(4, GL.GL_UNSIGNED_BYTE, 0, this.vertexColors.rewind());
+
+            for (int a = 0; a < this.atlases.size(); a++)
+            {
+                TextureAtlas texture = this.atlases.get(a).getTextureAtlas();
+                if (this.atlasCounts[a] > 0 && texture != null && texture.bind(dc))
+                    gl.glDrawArrays(GL2.GL_QUADS, 4 * this.atlasFirsts[a], 4 * this.atlasCounts[a]);
+            }
+        }
+        finally
+        {
+            this.osh.pop(gl);
+        }
+    }
+
+    protected void growTexts()
+    {
+        int capacity = 2 * this.layouts.length;
+        this.layouts = Arrays.copyOf(this.layouts, capacity);
+        this.placements = Arrays.copyOf(this.placements, 4 * capacity);
+        this.colors = Arrays.copyOf(this.colors, capacity);
+        this.textAtlases = new int[capacity]; // computed by prepare
+    }
+
+    protected void growQuads(int minCapacity)
+    {
+        int capacity = Math.max(minCapacity, 2 * (this.vertices.capacity() / 12));
+
+        // The quads are regenerated by each call to prepare, so their contents need not be kept.
+        this.vertices = Buffers.newDirectFloatBuffer(12 * capacity);
+        this.texCoords = Buffers.newDirectFloatBuffer(8 * capacity);
+        this.vertexColors = Buffers.newDirectByteBuffer(16 * capacity).order(ByteOrder.BIG_ENDIAN);
+    }
+}
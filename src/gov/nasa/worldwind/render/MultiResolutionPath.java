@@ -43,6 +43,10 @@ import java.util.Iterator;
  * Also, if the segment between any two positions is too small to be distinguished, it is not drawn. See {@link
  * #makePositions(DrawContext, gov.nasa.worldwind.render.Path.PathData)}.
  * <p>
+ * When this path is append-optimized (see {@link #setAppendOptimized(boolean)}), positions are skipped according to
+ * the skip count as they are appended, and the tessellation is rebuilt when the skip count changes. Small and
+ * non-visible segments are drawn without tessellation rather than skipped.
+ * <p>
  * NOTE: This shape does not draw correctly on a 2D globe when its positions span the dateline.
  *
  * @author tag
@@ -77,6 +81,8 @@ public class MultiResolutionPath extends Path
     {
         /** Maps indices of rendered positions to their corresponding ordinal numbers. */
         protected IntBuffer positionOrdinals;
+        /** The skip count used by the incremental tessellation of an append-optimized path. */
+        protected int appendSkipCount;
 
         /**
          * Creates a new MultiResolutionPathData with the specified draw context and path.
@@ -306,4 +312,59 @@ public class MultiResolutionPath extends Path
         MultiResolutionPathData mrpd = (MultiResolutionPathData) this.getCurrentPathData();
         return mrpd.positionOrdinals.get(positionIndex);
     }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Overridden to rebuild the tessellation when the skip count changes, since the skip count determines which
+     * positions are retained.
+     */
+    @Override
+    protected boolean isAppendStateValid(DrawContext dc, PathData pathData)
+    {
+        MultiResolutionPathData mrpd = (MultiResolutionPathData) pathData;
+        int skipCount = this.skipCountComputer.computeSkipCount(dc, pathData);
+        boolean valid = skipCount == mrpd.appendSkipCount && super.isAppendStateValid(dc, pathData);
+        mrpd.appendSkipCount = skipCount;
+
+        return valid;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Overridden to retain only the positions selected by this path's skip count, and the last position.
+     */
+    @Override
+    protected boolean isRetainedPosition(DrawContext dc, PathData pathData, int ordinal, boolean isLast)
+    {
+        return isLast || ordinal % ((MultiResolutionPathData) pathData).appendSkipCount == 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Overridden to prepare the PathData's positionOrdinals buffer as well.
+     */
+    @Override
+    protected void openAppendedIndices(PathData pathData, int count, int maxCount)
+    {
+        super.openAppendedIndices(pathData, count, maxCount);
+
+        MultiResolutionPathData mrpd = (MultiResolutionPathData) pathData;
+        mrpd.positionOrdinals = openIndexBuffer(mrpd.positionOrdinals, count, maxCount);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Overridden to complete the PathData's positionOrdinals buffer as well.
+     */
+    @Override
+    protected void closeAppendedIndices(PathData pathData)
+    {
+        super.closeAppendedIndices(pathData);
+
+        ((MultiResolutionPathData) pathData).positionOrdinals.flip();
+    }
 }
@@ -0,0 +1,414 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.render;
+
+import gov.nasa.worldwind.terrain.SectorGeometryList;
+
+import java.util.*;
+
+/**
+ * Collects a frame's ordered renderables and returns them farthest first, in the order they were added among those at
+ * equal eye distance. This is the order {@link DrawContextImpl} draws ordered renderables in.
+ * <p>
+ * The queue holds its entries in parallel arrays that are reused from frame to frame, so adding an ordered renderable
+ * allocates nothing once the arrays have grown to the frame's size. Entries are not kept in heap order as they are
+ * added. Instead the entries added since the last {@link #peek()} or {@link #poll()} are radix sorted by eye distance
+ * when one of those methods is next called, and merged with the remaining sorted entries. Ordered renderables added
+ * while the queue is being drained, such as those the clutter filter re-adds, are therefore drawn in their proper
+ * place.
+ * <p>
+ * Along with each ordered renderable the queue records the 2D globe offset and surface geometry current when it was
+ * added. These are returned for the most recently polled entry by {@link #getGlobeOffset()} and {@link
+ * #getSurfaceGeometry()}.
+ * <p>
+ * This class is not thread safe.
+ *
+ * @version $Id$
+ */
+public class OrderedRenderableQueue
+{
+    protected static final int INITIAL_CAPACITY = 128;
+    /** Segments at most this long are insertion sorted rather than radix sorted. */
+    protected static final int INSERTION_SORT_THRESHOLD = 32;
+
+    // Entry data, indexed in insertion order.
+    protected OrderedRenderable[] renderables = new OrderedRenderable[INITIAL_CAPACITY];
+    /** Sort keys derived from the eye distances. Unsigned ascending order is decreasing eye distance. */
+    protected long[] keys = new long[INITIAL_CAPACITY];
+    protected int[] globeOffsets = new int[INITIAL_CAPACITY];
+    protected SectorGeometryList[] surfaceGeometries = new SectorGeometryList[INITIAL_CAPACITY];
+    protected int count;
+
+    // Drawing order. The entries at order[head, sortedEnd) are sorted, those at order[sortedEnd, end) have been added
+    // since and are in insertion order. Every entry appears in the order array at most once, so end <= count.
+    protected int[] order = new int[INITIAL_CAPACITY];
+    protected int[] scratch = new int[INITIAL_CAPACITY];
+    protected final int[] histograms = new int[8 * 256];
+    protected int head;
+    protected int sortedEnd;
+    protected int end;
+    protected int polled = -1;
+
+    /** Creates an empty queue. */
+    public OrderedRenderableQueue()
+    {
+    }
+
+    /**
+     * Adds an ordered renderable to the queue.
+     *
+     * @param orderedRenderable the ordered renderable.
+     * @param distanceFromEye   the eye distance the ordered renderable is sorted by.
+     * @param globeOffset       the offset of the 2D globe the ordered renderable is drawn on. Ignored for other globes.
+     * @param surfaceGeometry   the surface geometry of the 2D globe the ordered renderable is drawn on. May be null.
+     */
+    public void add(OrderedRenderable orderedRenderable, double distanceFromEye, int globeOffset,
+        SectorGeometryList surfaceGeometry)
+    {
+        if (this.count == this.renderables.length)
+            this.grow();
+
+        int i = this.count++;
+        this.renderables[i] = orderedRenderable;
+        this.keys[i] = makeKey(distanceFromEye);
+        this.globeOffsets[i] = globeOffset;
+        this.surfaceGeometries[i] = surfaceGeometry;
+        this.order[this.end++] = i;
+    }
+
+    /**
+     * Returns the next ordered renderable to draw without removing it from the queue.
+     *
+     * @return the farthest ordered renderable, or null if the queue is empty.
+     */
+    public OrderedRenderable peek()
+    {
+        this.sort();
+
+        return this.head < this.end ? this.renderables[this.order[this.head]] : null;
+    }
+
+    /**
+     * Removes and returns the next ordered renderable to draw.
+     *
+     * @return the farthest ordered renderable, or null if the queue is empty.
+     */
+    public OrderedRenderable poll()
+    {
+        this.sort();
+
+        if (this.head == this.end)
+            return null;
+
+        this.polled = this.order[this.head++];
+        return this.renderables[this.polled];
+    }
+
+    /**
+     * Returns the 2D globe offset recorded with the ordered renderable most recently returned by {@link #poll()}.
+     *
+     * @return the recorded globe offset, or 0 if no ordered renderable has been polled since the queue was cleared.
+     */
+    public int getGlobeOffset()
+    {
+        return this.polled >= 0 ? this.globeOffsets[this.polled] : 0;
+    }
+
+    /**
+     * Returns the surface geometry recorded with the ordered renderable most recently returned by {@link #poll()}.
+     *
+     * @return the recorded surface geometry, or null if no ordered renderable has been polled since the queue was
+     *         cleared.
+     */
+    public SectorGeometryList getSurfaceGeometry()
+    {
+        return this.polled >= 0 ? this.surfaceGeometries[this.polled] : null;
+    }
+
+    /**
+     * Returns the number of ordered renderables in the queue.
+     *
+     * @return the number of ordered renderables not yet polled or removed.
+     */
+    public int size()
+    {
+        return this.end - this.head;
+    }
+
+    /**
+     * Indicates whether the queue is empty.
+     *
+     * @return true if the queue contains no ordered renderables, otherwise false.
+     */
+    public boolean isEmpty()
+    {
+        return this.head == this.end;
+    }
+
+    /** Removes all ordered renderables from the queue. The queue's storage is retained for the next frame. */
+    public void clear()
+    {
+        Arrays.fill(this.renderables, 0, this.count, null);
+        Arrays.fill(this.surfaceGeometries, 0, this.count, null);
+        this.count = 0;
+        this.head = 0;
+        this.sortedEnd = 0;
+        this.end = 0;
+        this.polled = -1;
+    }
+
+    /**
+     * Removes the ordered renderables accepted by a filter and appends them to a list front to back: nearest first,
+     * and in the order they were added among those at equal eye distance. The order of the remaining ordered
+     * renderables is unchanged.
+     *
+     * @param filter  selects the ordered renderables to remove.
+     * @param removed the list to append the removed ordered renderables to.
+     *
+     * @return the number of ordered renderables removed.
+     */
+    public int removeIf(Filter filter, List<OrderedRenderable> removed)
+    {
+        this.sort();
+
+        // Walk the drawing order backwards, reversing each run of equal keys so that insertion order is kept within
+        // the run. Removed entries are marked in the order array and compacted afterwards.
+        int numRemoved = 0;
+        for (int i = this.end - 1; i >= this.head; )
+        {
+            long key = this.keys[this.order[i]];
+            int j = i;
+            while (j > this.head && this.keys[this.order[j - 1]] == key)
+            {
+                j--;
+            }
+
+            for (int k = j; k <= i; k++)
+            {
+                OrderedRenderable or = this.renderables[this.order[k]];
+                if (filter.accept(or))
+                {
+                    removed.add(or);
+                    this.order[k] = -1;
+                    numRemoved++;
+                }
+            }
+
+            i = j - 1;
+        }
+
+        if (numRemoved > 0)
+        {
+            int w = this.head;
+            for (int i = this.head; i < this.end; i++)
+            {
+                if (this.order[i] >= 0)
+                    this.order[w++] = this.order[i];
+            }
+            this.end = w;
+            this.sortedEnd = w;
+        }
+
+        return numRemoved;
+    }
+
+    /** Selects ordered renderables to remove in {@link OrderedRenderableQueue#removeIf(Filter, List)}. */
+    public interface Filter
+    {
+        boolean accept(OrderedRenderable orderedRenderable);
+    }
+
+    /**
+     * Returns the sort key for an eye distance. Keys compared as unsigned integers order eye distances from largest to
+     * smallest. Positive and negative zero share a key, as do all NaN distances, which sort as if farther than
+     * positive infinity.
+     *
+     * @param distance the eye distance.
+     *
+     * @return the sort key.
+     */
+    protected static long makeKey(double distance)
+    {
+        long bits = Double.doubleToLongBits(distance + 0.0); // adding 0 turns -0 into +0
+        bits ^= (bits >> 63) & Long.MAX_VALUE; // signed integer order now matches the order of the distances
+        return ~bits ^ Long.MIN_VALUE; // reverse the order and shift it to unsigned integer order
+    }
+
+    /** Sorts the entries added since the last sort and merges them with the remaining sorted entries. */
+    protected void sort()
+    {
+        if (this.sortedEnd == this.end)
+            return;
+
+        if (this.end - this.sortedEnd <= INSERTION_SORT_THRESHOLD)
+            this.insertionSort(this.sortedEnd, this.end);
+        else
+            this.radixSort(this.sortedEnd, this.end);
+
+        if (this.head < this.sortedEnd)
+            this.merge(this.head, this.sortedEnd, this.end);
+
+        this.sortedEnd = this.end;
+    }
+
+    /**
+     * Sorts a segment of the order array by key. The sort is stable.
+     *
+     * @param from the first index of the segment.
+     * @param to   the index following the segment.
+     */
+    protected void insertionSort(int from, int to)
+    {
+        int[] order = this.order;
+        long[] keys = this.keys;
+
+        for (int i = from + 1; i < to; i++)
+        {
+            int index = order[i];
+            long key = keys[index];
+            int j = i - 1;
+            while (j >= from && Long.compareUnsigned(keys[order[j]], key) > 0)
+            {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = index;
+        }
+    }
+
+    /**
+     * Sorts a segment of the order array by key with a least significant digit radix sort of eight 8-bit digits.
+     * Digits that are the same for every entry in the segment are skipped. The sort is stable.
+     *
+     * @param from the first index of the segment.
+     * @param to   the index following the segment.
+     */
+    protected void radixSort(int from, int to)
+    {
+        int n = to - from;
+        int[] hist = this.histograms;
+        long[] keys = this.keys;
+        Arrays.fill(hist, 0);
+
+        for (int i = from; i < to; i++)
+        {
+            long key = keys[this.order[i]];
+            for (int d = 0; d < 8; d++)
+            {
+                hist[(d << 8) | (int) ((key >>> (d << 3)) & 0xff)]++;
+            }
+        }
+
+        int[] src = this.order;
+        int srcFrom = from;
+        int[] dst = this.scratch;
+        int dstFrom = 0;
+
+        for (int d = 0; d < 8; d++)
+        {
+            int base = d << 8;
+            int shift = d << 3;
+
+            // Skip the digit if every key has the same value for it.
+            if (hist[base | (int) ((keys[src[srcFrom]] >>> shift) & 0xff)] == n)
+                continue;
+
+            int offset = dstFrom;
+            for (int b = 0; b < 256; b++)
+            {
+                int c = hist[base + b];
+                hist[base + b] = offset;
+                offset += c;
+            }
+
+            for (int i = srcFrom; i < srcFrom + n; i++)
+            {
+                int index = src[i];
+                dst[hist[base | (int) ((keys[index] >>> shift) & 0xff)]++] = index;
+            }
+
+            int[] tmpArray = src;
+            src = dst;
+            dst = tmpArray;
+            int tmpFrom = srcFrom;
+            srcFrom = dstFrom;
+            dstFrom = tmpFrom;
+        }
+
+        if (src != this.order)
+            System.arraycopy(src, srcFrom, this.order, from, n);
+    }
+
+    /**
+     * Merges two adjacent sorted segments of the order array. Entries of the first segment precede entries of the
+     * second with the same key.
+     *
+     * @param from the first index of the first segment.
+     * @param mid  the first index of the second segment.
+     * @param to   the index following the second segment.
+     */
+    protected void merge(int from, int mid, int to)
+    {
+        int[] order = this.order;
+        long[] keys = this.keys;
+
+        // Nothing to do if the segments are already in order, as when entries are added nearer than the ones remaining.
+        if (Long.compareUnsigned(keys[order[mid - 1]], keys[order[mid]]) <= 0)
+            return;
+
+        int n = mid - from;
+        System.arraycopy(order, from, this.scratch, 0, n);
+
+        int i = 0, j = mid, w = from;
+        while (i < n && j < to)
+        {
+            if (Long.compareUnsigned(keys[this.scratch[i]], keys[order[j]]) <= 0)
+                order[w++] = this.scratch[i++];
+            else
+                order[w++] = order[j++];
+        }
+
+        while (i < n)
+        {
+            order[w++] = this.scratch[i++];
+        }
+    }
+
+    protected void grow()
+    {
+        int capacity = 2 * this.renderables.length;
+        this.renderables = Arrays.copyOf(this.renderables, capacity);
+        this.keys = Arrays.copyOf(this.keys, capacity);
+        this.globeOffsets = Arrays.copyOf(this.globeOffsets, capacity);
+        this.surfaceGeometries = Arrays.copyOf(this.surfaceGeometries, capacity);
+        this.order = Arrays.copyOf(this.order, capacity);
+        this.scratch = new int[capacity];
+    }
+}
@@ -34,7 +34,7 @@ import gov.nasa.worldwind.cache.*;
 import gov.nasa.worldwind.geom.*;
 import gov.nasa.worldwind.geom.Box;
 import gov.nasa.worldwind.geom.Cylinder;
-import gov.nasa.worldwind.globes.Globe;
+import gov.nasa.worldwind.globes.*;
 import gov.nasa.worldwind.layers.Layer;
 import gov.nasa.worldwind.ogc.kml.impl.KMLExportUtil;
 import gov.nasa.worldwind.pick.*;
@@ -102,7 +102,7 @@ import java.util.List;
  * @author tag
  * @version $Id: Path.java 3032 2015-04-17 17:53:35Z dcollins $
  */
-public class Path extends AbstractShape {
+public class Path extends AbstractShape implements GeometricPickable {
 
     /**
      * The default interior color.
@@ -224,6 +224,21 @@ public class Path extends AbstractShape {
          * Indicates the number of vertices represented by <code>renderedPath</code>.
          */
         protected int vertexCount;
+        /**
+         * Counts the computations of <code>renderedPath</code>. Used by {@link PathBatch} to detect paths whose
+         * vertices have changed.
+         */
+        protected long renderedPathVersion;
+        /**
+         * The incremental tessellation state of an append-optimized path, or <code>null</code> if this data was built
+         * by a full tessellation. See {@link Path#setAppendOptimized(boolean)}.
+         */
+        protected AppendState appendState;
+        /**
+         * The distance in meters between the tessellated positions of the segment currently being tessellated, or 0 to
+         * compute the distance from the path's terrain-conformance or num-subsegments properties.
+         */
+        protected double tessellationStep;
 
         public PathData(DrawContext dc, Path shape) {
             super(dc, shape.minExpiryTime, shape.maxExpiryTime);
@@ -381,6 +396,97 @@ public class Path extends AbstractShape {
         }
     }
 
+    /**
+     * Holds the incremental tessellation state of an append-optimized path. See {@link #setAppendOptimized(boolean)}.
+     * The arrays are indexed by retained position: the originally specified positions that are part of the
+     * tessellation, in order. They grow by doubling as positions are appended.
+     */
+    protected static class AppendState {
+
+        /**
+         * The number of originally specified positions consumed by the tessellation.
+         */
+        protected int sourceCount;
+        /**
+         * The number of retained positions.
+         */
+        protected int count;
+        /**
+         * The ordinal number of each retained position.
+         */
+        protected int[] ordinals = new int[16];
+        /**
+         * The index in <code>tessellatedPositions</code> of each retained position.
+         */
+        protected int[] tessellatedIndices = new int[16];
+        /**
+         * The tessellation level of the segment ending at each retained position. See {@link
+         * Path#computeSegmentLevel(DrawContext, Position, Position, Vec4, Vec4)}.
+         */
+        protected int[] levels = new int[16];
+        /**
+         * The bounds of the rendered vertices relative to the reference point: minimum and maximum X, Y and Z.
+         */
+        protected double[] bounds = new double[]{Double.MAX_VALUE, -Double.MAX_VALUE, Double.MAX_VALUE,
+            -Double.MAX_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE};
+        /**
+         * The index of the first float in <code>renderedPath</code> that changed since the vertex buffer object was
+         * last filled.
+         */
+        protected int dirtyStart;
+        /**
+         * The capacity in floats of the vertex buffer object, or 0 if the buffer object has not been allocated.
+         */
+        protected int vboCapacity;
+        /**
+         * The frame time at which the view- and terrain-dependent parts of the tessellation were last refreshed.
+         */
+        protected long refreshTime;
+        /**
+         * The globe state key of the globe the tessellation was computed for.
+         */
+        protected GlobeStateKey globeStateKey;
+        /**
+         * The vertical exaggeration the tessellation was computed for.
+         */
+        protected double verticalExaggeration;
+
+        protected void add(int ordinal, int tessellatedIndex, int level) {
+            if (this.count == this.ordinals.length) {
+                this.ordinals = Arrays.copyOf(this.ordinals, 2 * this.count);
+                this.tessellatedIndices = Arrays.copyOf(this.tessellatedIndices, 2 * this.count);
+                this.levels = Arrays.copyOf(this.levels, 2 * this.count);
+            }
+
+            this.ordinals[this.count] = ordinal;
+            this.tessellatedIndices[this.count] = tessellatedIndex;
+            this.levels[this.count] = level;
+            this.count++;
+        }
+
+        protected void addToBounds(double x, double y, double z) {
+            double[] b = this.bounds;
+            if (x < b[0]) {
+                b[0] = x;
+            }
+            if (x > b[1]) {
+                b[1] = x;
+            }
+            if (y < b[2]) {
+                b[2] = y;
+            }
+            if (y > b[3]) {
+                b[3] = y;
+            }
+            if (z < b[4]) {
+                b[4] = z;
+            }
+            if (z > b[5]) {
+                b[5] = z;
+            }
+        }
+    }
+
     @Override
     protected SurfaceShape createSurfaceShape() {
         SurfacePolyline polyline = new SurfacePolyline();
@@ -684,6 +790,9 @@ public class Path extends AbstractShape {
     protected double showPositionsScale = DEFAULT_DRAW_POSITIONS_SCALE;
     protected boolean positionsSpanDateline;
     protected LengthMeasurer measurer = new LengthMeasurer();
+    protected boolean measurerOutdated; // true if positions were appended since the measurer was last updated
+    protected boolean appendOptimized;
+    protected ArrayList<Position> appendablePositions; // the positions list owned by this path, if any
 
     /**
      * Creates a path with no positions.
@@ -812,9 +921,12 @@ public class Path extends AbstractShape {
 
     @Override
     protected void reset() {
-        for (ShapeDataCache.ShapeDataCacheEntry entry : this.shapeDataCache) {
-            ((PathData) entry).tessellatedPositions = null;
-            ((PathData) entry).tessellatedColors = null;
+        // Scheduled geometry keeps drawing the expired entries until their replacements are published.
+        if (!this.isGeometryScheduled()) {
+            for (ShapeDataCache.ShapeDataCacheEntry entry : this.shapeDataCache) {
+                ((PathData) entry).tessellatedPositions = null;
+                ((PathData) entry).tessellatedColors = null;
+            }
         }
 
         super.reset();
@@ -849,7 +961,114 @@ public class Path extends AbstractShape {
         this.computePositionCount();
         this.positionsSpanDateline = LatLon.locationsCrossDateLine(this.positions);
         this.measurer.setPositions(this.positions);
+        this.measurerOutdated = false;
+
+        this.reset();
+    }
+
+    /**
+     * Appends a position to the end of this path's positions. See {@link #appendPositions(Iterable)}.
+     *
+     * @param position the position to append.
+     *
+     * @throws IllegalArgumentException if the position is null.
+     */
+    public void appendPosition(Position position) {
+        if (position == null) {
+            String message = Logging.getMessage("nullValue.PositionIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.appendPositions(Collections.singletonList(position));
+    }
 
+    /**
+     * Appends positions to the end of this path's positions. The first call copies this path's current positions to a
+     * list owned by this path; the positions list specified to {@link #setPositions(Iterable)} is not modified.
+     * <p>
+     * If this path is append-optimized, only the segments ending at the appended positions are tessellated and
+     * projected the next time this path is drawn. Otherwise the path's geometry is rebuilt as it is when the positions
+     * are replaced. See {@link #setAppendOptimized(boolean)}.
+     *
+     * @param positions the positions to append.
+     *
+     * @throws IllegalArgumentException if positions is null.
+     */
+    public void appendPositions(Iterable<? extends Position> positions) {
+        if (positions == null) {
+            String message = Logging.getMessage("nullValue.PositionsListIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (this.appendablePositions == null || this.positions != this.appendablePositions) {
+            this.appendablePositions = new ArrayList<>(Math.max(2 * this.numPositions, 16));
+            if (this.positions != null) {
+                for (Position pos : this.positions) {
+                    this.appendablePositions.add(pos);
+                }
+            }
+            this.positions = this.appendablePositions;
+        }
+
+        Position last = this.appendablePositions.isEmpty() ? null
+                : this.appendablePositions.get(this.appendablePositions.size() - 1);
+        for (Position pos : positions) {
+            if (last != null && LatLon.locationsCrossDateline(last, pos)) {
+                this.positionsSpanDateline = true;
+            }
+
+            this.appendablePositions.add(pos);
+            last = pos;
+        }
+
+        this.numPositions = this.appendablePositions.size();
+        this.measurerOutdated = true;
+
+        if (this.isAppendOptimized()) {
+            // Keep the cached geometry; it's extended when next drawn. See mustRegenerateGeometry. The cached extents
+            // no longer bound the path, and must not prevent it from being drawn.
+            for (ShapeDataCache.ShapeDataCacheEntry entry : this.shapeDataCache) {
+                entry.setExtent(null);
+            }
+            this.sector = null;
+            this.surfaceShape = null;
+        } else {
+            this.reset();
+        }
+    }
+
+    /**
+     * Indicates whether this path's geometry is extended incrementally as positions are appended. See {@link
+     * #setAppendOptimized(boolean)}.
+     *
+     * @return true if this path is append-optimized, otherwise false.
+     */
+    public boolean isAppendOptimized() {
+        return this.appendOptimized;
+    }
+
+    /**
+     * Specifies whether this path's geometry is extended incrementally as positions are appended by {@link
+     * #appendPositions(Iterable)}, such as when the path displays a track that grows over time. An append-optimized
+     * path tessellates and projects only the segments ending at newly appended positions, and grows its vertex buffers
+     * geometrically so that appending does not copy the existing geometry on each update. The vertex buffer object, if
+     * used, is updated with only the vertices that changed.
+     * <p>
+     * The tessellation of existing segments is refreshed when the path's geometry expires (see {@link
+     * #setGeometryRegenerationInterval(int)}), but a segment is re-tessellated only if its tessellation level changes:
+     * when it becomes visible or hidden, becomes large or small on screen, or, for terrain-following paths, when the
+     * eye distance changes enough to halve or double the spacing of its tessellated positions. Terrain-dependent
+     * vertices of a segment are recomputed only if the terrain beneath the segment's end and middle positions has
+     * changed. A change of globe, vertical exaggeration or any other path property rebuilds the path's geometry.
+     * <p>
+     * On 2D globes, append-optimized paths are tessellated in full.
+     *
+     * @param appendOptimized true to extend this path's geometry incrementally, otherwise false.
+     */
+    public void setAppendOptimized(boolean appendOptimized) {
+        this.appendOptimized = appendOptimized;
         this.reset();
     }
 
@@ -997,17 +1216,23 @@ public class Path extends AbstractShape {
     public double getLength() {
         PathData data = this.getCurrentPathData();
         if (data != null && data.getGlobeStateKey() != null) {
-            return this.measurer.getLength(data.getGlobeStateKey().getGlobe());
+            return this.getMeasurer().getLength(data.getGlobeStateKey().getGlobe());
         }
         return 0;
     }
 
     public double getLength(Globe globe) {
         // The length measurer will throw an exception and log the error if globe is null
-        return this.measurer.getLength(globe);
+        return this.getMeasurer().getLength(globe);
     }
 
     public LengthMeasurer getMeasurer() {
+        if (this.measurerOutdated) {
+            // The measurer copies its positions, so appended positions are passed to it only when it's needed.
+            this.measurer.setPositions(this.positions);
+            this.measurerOutdated = false;
+        }
+
         return this.measurer;
     }
 
@@ -1180,6 +1405,11 @@ public class Path extends AbstractShape {
             return true;
         }
 
+        AppendState appendState = this.getCurrentPathData().appendState;
+        if (appendState != null && appendState.sourceCount != this.numPositions) {
+            return true;
+        }
+
         return super.mustRegenerateGeometry(dc);
     }
 
@@ -1270,22 +1500,32 @@ public class Path extends AbstractShape {
             return false;
         }
 
-        // Recompute tessellated positions because the geometry or view may have changed.
-        this.makeTessellatedPositions(dc, pathData);
-        if (pathData.tessellatedPositions == null || pathData.tessellatedPositions.size() < 2) {
-            return false;
-        }
+        if (this.isAppendOptimized() && !dc.is2DGlobe()) {
+            // Tessellate and project only what changed since the geometry was last made.
+            if (!this.makeAppendedGeometry(dc, pathData)) {
+                return false;
+            }
+        } else {
+            pathData.appendState = null;
 
-        // Create the rendered Cartesian points.
-        int previousSize = pathData.renderedPath != null ? pathData.renderedPath.limit() : 0;
-        this.computePath(dc, pathData.tessellatedPositions, pathData);
-        if (pathData.renderedPath == null || pathData.renderedPath.limit() < 6) {
-            return false;
-        }
+            // Recompute tessellated positions because the geometry or view may have changed.
+            this.makeTessellatedPositions(dc, pathData);
+            if (pathData.tessellatedPositions == null || pathData.tessellatedPositions.size() < 2) {
+                return false;
+            }
 
-        if (pathData.renderedPath.limit() > previousSize && this.shouldUseVBOs(dc)) {
-            this.clearCachedVbos(dc);
+            // Create the rendered Cartesian points.
+            int previousSize = pathData.renderedPath != null ? pathData.renderedPath.limit() : 0;
+            this.computePath(dc, pathData.tessellatedPositions, pathData);
+            if (pathData.renderedPath == null || pathData.renderedPath.limit() < 6) {
+                return false;
+            }
+
+            if (pathData.renderedPath.limit() > previousSize && this.shouldUseVBOs(dc)) {
+                this.clearCachedVbos(dc);
+            }
         }
+        pathData.renderedPathVersion++;
 
         pathData.setExtent(this.computeExtent(pathData));
 
@@ -1339,11 +1579,71 @@ public class Path extends AbstractShape {
         }
     }
 
+    /**
+     * Computes this path's geometry for the current frame as {@link #render(DrawContext)} does, but does not add the
+     * path to the ordered renderable list. {@link PathBatch} uses this to draw the geometry of many paths itself.
+     *
+     * @param dc the current draw context.
+     * @return this path's current data, or null if the path is not visible in the current frame.
+     */
+    protected PathData makeBatchedGeometry(DrawContext dc) {
+        this.currentData = (AbstractShapeData) this.shapeDataCache.getEntry(dc.getGlobe());
+        if (this.currentData == null) {
+            this.currentData = this.createCacheEntry(dc);
+            this.shapeDataCache.addEntry(this.currentData);
+        }
+
+        if (dc.getSurfaceGeometry() == null || !this.isVisible()) {
+            return null;
+        }
+
+        if (this.isTerrainDependent()) {
+            this.checkViewDistanceExpiration(dc);
+        }
+
+        if (this.currentData.getVerticalExaggeration() != dc.getVerticalExaggeration()) {
+            this.currentData.setExtent(null);
+        }
+
+        if (this.getExtent() != null && (!this.intersectsFrustum(dc) || dc.isSmall(this.getExtent(), 1))) {
+            return null;
+        }
+
+        if (dc.getFrameTimeStamp() != this.getCurrentData().getFrameNumber()) {
+            this.determineActiveAttributes();
+            if (this.getActiveAttributes() == null) {
+                return null;
+            }
+
+            if (this.mustRegenerateGeometry(dc)) {
+                if (!this.doMakeOrderedRenderable(dc)) {
+                    return null;
+                }
+
+                this.getCurrentData().restartTimer(dc);
+            }
+
+            this.getCurrentData().setFrameNumber(dc.getFrameTimeStamp());
+        }
+
+        return this.isOrderedRenderableValid(dc) ? this.getCurrentPathData() : null;
+    }
+
     @Override
     protected boolean isOrderedRenderableValid(DrawContext dc) {
         return this.getCurrentPathData().renderedPath != null && this.getCurrentPathData().vertexCount >= 2;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Append-optimized paths update their geometry incrementally and always do so during rendering.
+     */
+    @Override
+    protected boolean isAsyncGeometrySupported() {
+        return !this.isAppendOptimized();
+    }
+
     /**
      * {@inheritDoc}
      * <p>
@@ -2257,7 +2557,9 @@ public class Path extends AbstractShape {
         Angle segmentDistance = null;
 
         for (double s = 0, p = 0; s < 1;) {
-            if (this.isFollowTerrain() || dc.is2DGlobe()) {
+            if (pathData.tessellationStep > 0) {
+                p += pathData.tessellationStep;
+            } else if (this.isFollowTerrain() || dc.is2DGlobe()) {
                 p += this.terrainConformance * dc.getView().computePixelSizeAtDistance(
                         ptA.distanceTo3(dc.getView().getEyePoint()));
             } else {
@@ -2343,6 +2645,631 @@ public class Path extends AbstractShape {
         return ang.radians * (dc.getGlobe().getRadius() + height * dc.getVerticalExaggeration());
     }
 
+    /**
+     * Indicates that a segment is drawn as a single line between its end positions.
+     */
+    protected static final int LEVEL_UNTESSELLATED = Integer.MIN_VALUE;
+    /**
+     * Indicates that a segment is tessellated with the path's constant number of subsegments.
+     */
+    protected static final int LEVEL_SUBSEGMENTS = Integer.MAX_VALUE;
+    /**
+     * The axes of the extents of append-optimized paths.
+     */
+    protected static final Vec4[] APPEND_BOUNDS_AXES = new Vec4[]{new Vec4(1, 0, 0), new Vec4(0, 1, 0),
+        new Vec4(0, 0, 1)};
+
+    /**
+     * Makes the geometry of an append-optimized path. Rebuilds the geometry if the path data has no incremental
+     * tessellation state or that state no longer applies, refreshes the view- and terrain-dependent parts of the
+     * tessellation if the geometry has expired, then tessellates and projects the segments ending at positions appended
+     * since the geometry was last made.
+     *
+     * @param dc the current draw context.
+     * @param pathData the current globe-specific path data.
+     *
+     * @return true if the path has geometry to draw, otherwise false.
+     */
+    protected boolean makeAppendedGeometry(DrawContext dc, PathData pathData) {
+        if (this.numPositions < 2) {
+            return false;
+        }
+
+        List<? extends Position> positionList = this.getPositionList();
+
+        if (!this.isAppendStateValid(dc, pathData)) {
+            this.beginAppendedTessellation(dc, pathData);
+        } else if (pathData.isExpired(dc)
+                || dc.getFrameTimeStamp() - pathData.appendState.refreshTime >= this.maxExpiryTime) {
+            // Appending restarts the expiry timer, so the refresh time is tracked separately to ensure that a path
+            // appended to more often than it expires is refreshed nonetheless.
+            this.refreshAppendedTessellation(dc, pathData, positionList);
+        }
+
+        this.appendTessellatedPositions(dc, pathData, positionList);
+
+        return pathData.tessellatedPositions.size() >= 2;
+    }
+
+    /**
+     * Returns this path's positions as a random-access list, copying them to a list owned by this path if the positions
+     * specified by the application are not one.
+     *
+     * @return this path's positions.
+     */
+    protected List<? extends Position> getPositionList() {
+        if (this.positions instanceof List && this.positions instanceof RandomAccess) {
+            return (List<? extends Position>) this.positions;
+        }
+
+        ArrayList<Position> list = new ArrayList<>(this.numPositions);
+        for (Position pos : this.positions) {
+            list.add(pos);
+        }
+        this.appendablePositions = list;
+        this.positions = list;
+
+        return list;
+    }
+
+    /**
+     * Indicates whether the incremental tessellation state of the specified path data can be extended in the current
+     * frame. The state cannot be extended if it was computed for a different globe state or vertical exaggeration, or
+     * if its vertex layout differs from the one this path currently requires.
+     *
+     * @param dc the current draw context.
+     * @param pathData the current globe-specific path data.
+     *
+     * @return true if the state can be extended, otherwise false.
+     */
+    protected boolean isAppendStateValid(DrawContext dc, PathData pathData) {
+        return pathData.appendState != null
+                && pathData.appendState.count > 0
+                && pathData.appendState.sourceCount <= this.numPositions
+                && pathData.appendState.verticalExaggeration == dc.getVerticalExaggeration()
+                && dc.getGlobe().getGlobeStateKey(dc).equals(pathData.appendState.globeStateKey)
+                && pathData.hasExtrusionPoints == this.isAppendedPathExtruded()
+                && pathData.vertexStride == (this.positionColors != null ? 7 : 3);
+    }
+
+    /**
+     * Indicates whether the vertices of an append-optimized path include extrusion points. This mirrors the choice
+     * made by {@link #computePath(DrawContext, List, PathData)}.
+     *
+     * @return true if the path's vertices include extrusion points, otherwise false.
+     */
+    protected boolean isAppendedPathExtruded() {
+        return this.isExtrude() && !(this.getAltitudeMode() == WorldWind.CLAMP_TO_GROUND && this.offset == 0);
+    }
+
+    /**
+     * Discards the incremental tessellation state of the specified path data and prepares it for tessellating this
+     * path from its first position.
+     *
+     * @param dc the current draw context.
+     * @param pathData the current globe-specific path data.
+     */
+    protected void beginAppendedTessellation(DrawContext dc, PathData pathData) {
+        AppendState state = new AppendState();
+        state.refreshTime = dc.getFrameTimeStamp();
+        state.globeStateKey = dc.getGlobe().getGlobeStateKey(dc);
+        state.verticalExaggeration = dc.getVerticalExaggeration();
+        if (pathData.appendState != null) {
+            state.vboCapacity = pathData.appendState.vboCapacity; // the buffer object is kept
+        }
+        pathData.appendState = state;
+
+        int capacity = Math.max(2 * this.numPositions, 16);
+        pathData.tessellatedPositions = new ArrayList<>(capacity);
+        pathData.tessellatedColors = this.positionColors != null ? new ArrayList<>(capacity) : null;
+        pathData.splitPositions = null;
+        pathData.hasExtrusionPoints = this.isAppendedPathExtruded();
+        pathData.vertexStride = this.positionColors != null ? 7 : 3;
+        pathData.colorOffset = this.positionColors != null ? 3 : 0;
+        pathData.vertexCount = 0;
+
+        this.openAppendedIndices(pathData, 0, this.numPositions);
+        this.closeAppendedIndices(pathData);
+    }
+
+    /**
+     * Tessellates and projects the segments ending at the positions appended since the incremental tessellation state
+     * of the specified path data was last extended.
+     *
+     * @param dc the current draw context.
+     * @param pathData the current globe-specific path data.
+     * @param positionList this path's positions.
+     */
+    protected void appendTessellatedPositions(DrawContext dc, PathData pathData,
+            List<? extends Position> positionList) {
+        AppendState state = pathData.appendState;
+        if (state.count > 0 && state.sourceCount == this.numPositions) {
+            return;
+        }
+
+        // The last retained position may have been retained only because it ended the path. If it would not
+        // otherwise be retained, remove it so the path is continued from the position before it.
+        if (state.count > 1 && !this.isRetainedPosition(dc, pathData, state.ordinals[state.count - 1], false)) {
+            this.truncateAppendedTessellation(dc, pathData, state.count - 1);
+        }
+
+        int firstNew = pathData.tessellatedPositions.size();
+        this.openAppendedIndices(pathData, state.count, state.count + this.numPositions - state.sourceCount);
+
+        if (state.count == 0) {
+            Position pos = positionList.get(0);
+            this.addTessellatedPosition(pos, this.getColor(pos, 0), 0, pathData);
+            state.add(0, 0, LEVEL_UNTESSELLATED);
+            state.sourceCount = 1;
+        }
+
+        int ordinalA = state.ordinals[state.count - 1];
+        Position posA = positionList.get(ordinalA);
+        Color colorA = this.getColor(posA, ordinalA);
+        Vec4 ptA = this.computePoint(dc.getTerrain(), posA);
+
+        for (int i = state.sourceCount; i < this.numPositions; i++) {
+            if (!this.isRetainedPosition(dc, pathData, i, i == this.numPositions - 1)) {
+                continue;
+            }
+
+            Position posB = positionList.get(i);
+            Color colorB = this.getColor(posB, i);
+            Vec4 ptB = this.computePoint(dc.getTerrain(), posB);
+
+            int level = this.computeSegmentLevel(dc, posA, posB, ptA, ptB);
+            this.makeAppendedSegment(dc, posA, posB, ptA, ptB, colorA, colorB, ordinalA, i, level, pathData);
+            state.add(i, pathData.tessellatedPositions.size() - 1, level);
+
+            posA = posB;
+            ptA = ptB;
+            colorA = colorB;
+            ordinalA = i;
+        }
+
+        state.sourceCount = this.numPositions;
+        this.closeAppendedIndices(pathData);
+
+        this.computeAppendedPoints(dc, pathData, firstNew, pathData.tessellatedPositions.size());
+    }
+
+    /**
+     * Indicates whether one of this path's positions is part of its tessellation. Path retains all of its positions.
+     * Subclasses that omit positions must retain the last position.
+     *
+     * @param dc the current draw context.
+     * @param pathData the current globe-specific path data.
+     * @param ordinal the position's ordinal number.
+     * @param isLast true if the position is this path's last position, otherwise false.
+     *
+     * @return true if the position is part of the tessellation, otherwise false.
+     */
+    @SuppressWarnings("UnusedParameters")
+    protected boolean isRetainedPosition(DrawContext dc, PathData pathData, int ordinal, boolean isLast) {
+        return true;
+    }
+
+    /**
+     * Removes the retained positions following the specified number of retained positions, and the tessellated
+     * positions and vertices of the segments ending at them, from an append-optimized path's geometry.
+     *
+     * @param dc the current draw context.
+     * @param pathData the current globe-specific path data.
+     * @param count the number of retained positions to keep.
+     */
+    protected void truncateAppendedTessellation(DrawContext dc, PathData pathData, int count) {
+        AppendState state = pathData.appendState;
+        state.count = count;
+        state.sourceCount = state.ordinals[count - 1] + 1;
+
+        int size = state.tessellatedIndices[count - 1] + 1;
+        pathData.tessellatedPositions.subList(size, pathData.tessellatedPositions.size()).clear();
+        if (pathData.tessellatedColors != null) {
+            pathData.tessellatedColors.subList(size, pathData.tessellatedColors.size()).clear();
+        }
+
+        this.openAppendedIndices(pathData, count, count);
+        this.closeAppendedIndices(pathData);
+
+        this.computeAppendedPoints(dc, pathData, size, size);
+    }
+
+    /**
+     * Computes the tessellation level of a segment of an append-optimized path. A segment is re-tessellated only when
+     * its level changes. The level is {@link #LEVEL_UNTESSELLATED} if the segment is drawn as a single line because it
+     * is small, not visible or straight, and {@link #LEVEL_SUBSEGMENTS} if it's tessellated with the path's constant
+     * number of subsegments. For terrain-following segments, the level is the base-2 exponent of the distance in
+     * meters between the segment's tessellated positions, which varies with the eye distance as described by {@link
+     * #setTerrainConformance(double)}.
+     *
+     * @param dc the current draw context.
+     * @param posA the segment's first position.
+     * @param posB the segment's second position.
+     * @param ptA the model-coordinate point corresponding to the segment's first position.
+     * @param ptB the model-coordinate point corresponding to the segment's second position.
+     *
+     * @return the segment's tessellation level.
+     */
+    protected int computeSegmentLevel(DrawContext dc, Position posA, Position posB, Vec4 ptA, Vec4 ptB) {
+        if (ptA.equals(ptB) || (this.getPathType() == AVKey.LINEAR && !this.isSurfacePath(dc))) {
+            return LEVEL_UNTESSELLATED;
+        }
+
+        if (this.isSmall(dc, ptA, ptB, 8) || !this.isSegmentVisible(dc, posA, posB, ptA, ptB)) {
+            return LEVEL_UNTESSELLATED;
+        }
+
+        if (!this.isFollowTerrain()) {
+            return LEVEL_SUBSEGMENTS;
+        }
+
+        double step = this.terrainConformance * dc.getView().computePixelSizeAtDistance(
+                ptA.distanceTo3(dc.getView().getEyePoint()));
+        return Math.getExponent(step);
+    }
+
+    /**
+     * Adds the tessellated positions of a segment of an append-optimized path at a specified tessellation level. See
+     * {@link #computeSegmentLevel(DrawContext, Position, Position, Vec4, Vec4)}.
+     *
+     * @param dc the current draw context.
+     * @param posA the segment's first position.
+     * @param posB the segment's second position.
+     * @param ptA the model-coordinate point corresponding to the segment's first position.
+     * @param ptB the model-coordinate point corresponding to the segment's second position.
+     * @param colorA the color corresponding to the segment's first position, or <code>null</code> if the first position
+     * has no associated color.
+     * @param colorB the color corresponding to the segment's second position, or <code>null</code> if the first
+     * position has no associated color.
+     * @param ordinalA the ordinal number corresponding to the segment's first position in the original position list.
+     * @param ordinalB the ordinal number corresponding to the segment's second position in the original position list.
+     * @param level the segment's tessellation level.
+     * @param pathData the current globe-specific path data.
+     */
+    protected void makeAppendedSegment(DrawContext dc, Position posA, Position posB, Vec4 ptA, Vec4 ptB,
+            Color colorA, Color colorB, int ordinalA, int ordinalB, int level, PathData pathData) {
+        if (level == LEVEL_UNTESSELLATED) {
+            this.addTessellatedPosition(posB, colorB, ordinalB, pathData);
+            return;
+        }
+
+        // Tessellate terrain-following segments at the power-of-two spacing indicated by the level, so that the
+        // segment's tessellation depends only on its level.
+        pathData.tessellationStep = level == LEVEL_SUBSEGMENTS ? 0 : Math.scalb(1d, level);
+        try {
+            this.makeSegment(dc, posA, posB, ptA, ptB, colorA, colorB, ordinalA, ordinalB, pathData);
+        } finally {
+            pathData.tessellationStep = 0;
+        }
+    }
+
+    /**
+     * Refreshes the view- and terrain-dependent parts of an append-optimized path's tessellation. Re-tessellates the
+     * segments whose tessellation level has changed, and otherwise recomputes the vertices of the segments whose
+     * terrain has changed.
+     *
+     * @param dc the current draw context.
+     * @param pathData the current globe-specific path data.
+     * @param positionList this path's positions.
+     */
+    protected void refreshAppendedTessellation(DrawContext dc, PathData pathData,
+            List<? extends Position> positionList) {
+        AppendState state = pathData.appendState;
+        state.refreshTime = dc.getFrameTimeStamp();
+
+        int[] levels = new int[state.count];
+        boolean levelsChanged = false;
+
+        Position posA = positionList.get(state.ordinals[0]);
+        Vec4 ptA = this.computePoint(dc.getTerrain(), posA);
+        for (int k = 1; k < state.count; k++) {
+            Position posB = positionList.get(state.ordinals[k]);
+            Vec4 ptB = this.computePoint(dc.getTerrain(), posB);
+
+            levels[k] = this.computeSegmentLevel(dc, posA, posB, ptA, ptB);
+            levelsChanged |= levels[k] != state.levels[k];
+
+            posA = posB;
+            ptA = ptB;
+        }
+
+        if (levelsChanged) {
+            this.retessellateAppendedSegments(dc, pathData, levels);
+        } else if (this.isTerrainDependent() || pathData.hasExtrusionPoints) {
+            this.refreshAppendedTerrainPoints(dc, pathData);
+        }
+    }
+
+    /**
+     * Rebuilds an append-optimized path's tessellation with new segment tessellation levels. The tessellated positions
+     * and vertices of segments whose level is unchanged are copied from the current tessellation; only the segments
+     * whose level changed are tessellated and projected.
+     *
+     * @param dc the current draw context.
+     * @param pathData the current globe-specific path data.
+     * @param levels the new tessellation level of each segment, indexed by the retained position ending the segment.
+     */
+    protected void retessellateAppendedSegments(DrawContext dc, PathData pathData, int[] levels) {
+        AppendState old = pathData.appendState;
+        ArrayList<Position> oldPositions = pathData.tessellatedPositions;
+        ArrayList<Color> oldColors = pathData.tessellatedColors;
+        FloatBuffer oldPath = pathData.renderedPath;
+        int vertexSize = (pathData.hasExtrusionPoints ? 2 : 1) * pathData.vertexStride;
+
+        AppendState state = new AppendState();
+        state.sourceCount = old.sourceCount;
+        state.refreshTime = old.refreshTime;
+        state.globeStateKey = old.globeStateKey;
+        state.verticalExaggeration = old.verticalExaggeration;
+        state.vboCapacity = old.vboCapacity;
+        state.bounds = old.bounds;
+        pathData.appendState = state;
+        pathData.tessellatedPositions = new ArrayList<>(oldPositions.size());
+        pathData.tessellatedColors = oldColors != null ? new ArrayList<>(oldColors.size()) : null;
+        pathData.renderedPath = Buffers.newDirectFloatBuffer(oldPath.capacity());
+        pathData.renderedPath.limit(0);
+        pathData.vertexCount = 0;
+
+        this.openAppendedIndices(pathData, 0, old.count);
+
+        for (int k = 0; k < old.count; k++) {
+            int start = pathData.tessellatedPositions.size();
+            int t0 = k > 0 ? old.tessellatedIndices[k - 1] + 1 : 0;
+            int t1 = old.tessellatedIndices[k];
+            Position posB = oldPositions.get(t1);
+            Color colorB = oldColors != null ? oldColors.get(t1) : null;
+
+            if (k == 0 || levels[k] == old.levels[k]) {
+                for (int t = t0; t < t1; t++) {
+                    this.addTessellatedPosition(oldPositions.get(t), oldColors != null ? oldColors.get(t) : null,
+                            null, pathData);
+                }
+                this.addTessellatedPosition(posB, colorB, old.ordinals[k], pathData);
+
+                this.reserveRenderedPath(pathData, pathData.tessellatedPositions.size() * vertexSize);
+                FloatBuffer src = oldPath.duplicate();
+                src.limit((t1 + 1) * vertexSize).position(t0 * vertexSize);
+                FloatBuffer dest = pathData.renderedPath.duplicate();
+                dest.position(start * vertexSize);
+                dest.put(src);
+            } else {
+                int tA = old.tessellatedIndices[k - 1];
+                Position posA = oldPositions.get(tA);
+                Color colorA = oldColors != null ? oldColors.get(tA) : null;
+                Vec4 ptA = this.computePoint(dc.getTerrain(), posA);
+                Vec4 ptB = this.computePoint(dc.getTerrain(), posB);
+
+                this.makeAppendedSegment(dc, posA, posB, ptA, ptB, colorA, colorB, old.ordinals[k - 1],
+                        old.ordinals[k], levels[k], pathData);
+                this.computeAppendedPoints(dc, pathData, start, pathData.tessellatedPositions.size());
+            }
+
+            state.add(old.ordinals[k], pathData.tessellatedPositions.size() - 1, k > 0 ? levels[k] : old.levels[k]);
+        }
+
+        this.closeAppendedIndices(pathData);
+        pathData.vertexCount = pathData.renderedPath.limit() / pathData.vertexStride;
+        state.dirtyStart = 0;
+    }
+
+    /**
+     * Recomputes the vertices of the segments of an append-optimized path whose terrain has changed, for example
+     * because the terrain's resolution changed. The terrain of a segment is considered changed if any vertex at the
+     * segment's end or middle tessellated position differs from its recomputed value.
+     *
+     * @param dc the current draw context.
+     * @param pathData the current globe-specific path data.
+     */
+    protected void refreshAppendedTerrainPoints(DrawContext dc, PathData pathData) {
+        AppendState state = pathData.appendState;
+
+        if (!this.isAppendedVertexCurrent(dc, pathData, 0)) {
+            this.computeAppendedPoints(dc, pathData, 0, 1);
+        }
+
+        for (int k = 1; k < state.count; k++) {
+            int t0 = state.tessellatedIndices[k - 1];
+            int t1 = state.tessellatedIndices[k];
+
+            if (!this.isAppendedVertexCurrent(dc, pathData, t1)
+                    || !this.isAppendedVertexCurrent(dc, pathData, (t0 + t1 + 1) / 2)) {
+                this.computeAppendedPoints(dc, pathData, t0 + 1, t1 + 1);
+            }
+        }
+    }
+
+    /**
+     * Indicates whether the vertices of a tessellated position of an append-optimized path match the vertices that
+     * would be computed for it in the current frame.
+     *
+     * @param dc the current draw context.
+     * @param pathData the current globe-specific path data.
+     * @param index the index of the tessellated position.
+     *
+     * @return true if the position's vertices are current, otherwise false.
+     */
+    protected boolean isAppendedVertexCurrent(DrawContext dc, PathData pathData, int index) {
+        Position pos = pathData.tessellatedPositions.get(index);
+        Vec4 referencePoint = pathData.getReferencePoint();
+        FloatBuffer path = pathData.renderedPath;
+        int i = index * (pathData.hasExtrusionPoints ? 2 : 1) * pathData.vertexStride;
+
+        Vec4 pt = this.computeAppendedPoint(dc, pos);
+        if (path.get(i) != (float) (pt.x - referencePoint.x)
+                || path.get(i + 1) != (float) (pt.y - referencePoint.y)
+                || path.get(i + 2) != (float) (pt.z - referencePoint.z)) {
+            return false;
+        }
+
+        if (pathData.hasExtrusionPoints) {
+            i += pathData.vertexStride;
+            pt = dc.computeTerrainPoint(pos.getLatitude(), pos.getLongitude(), 0d);
+            return path.get(i) == (float) (pt.x - referencePoint.x)
+                    && path.get(i + 1) == (float) (pt.y - referencePoint.y)
+                    && path.get(i + 2) == (float) (pt.z - referencePoint.z);
+        }
+
+        return true;
+    }
+
+    /**
+     * Computes the model-coordinate point of an append-optimized path's position according to the path's altitude
+     * mode, as {@link #computePath(DrawContext, List, PathData)} does.
+     *
+     * @param dc the current draw context.
+     * @param pos the position.
+     *
+     * @return the position's model-coordinate point.
+     */
+    protected Vec4 computeAppendedPoint(DrawContext dc, Position pos) {
+        if (this.getAltitudeMode() == WorldWind.CLAMP_TO_GROUND) {
+            return dc.computeTerrainPoint(pos.getLatitude(), pos.getLongitude(), this.offset);
+        } else if (this.getAltitudeMode() == WorldWind.RELATIVE_TO_GROUND) {
+            return dc.computeTerrainPoint(pos.getLatitude(), pos.getLongitude(), pos.getAltitude());
+        } else {
+            return dc.getGlobe().computePointFromPosition(pos.getLatitude(), pos.getLongitude(),
+                    dc.getVerticalExaggeration() * pos.getAltitude());
+        }
+    }
+
+    /**
+     * Computes the vertices of a range of an append-optimized path's tessellated positions and writes them to the
+     * path's rendered path, growing it if necessary. The rendered path's limit is set to the end of the vertices of
+     * all tessellated positions.
+     *
+     * @param dc the current draw context.
+     * @param pathData the current globe-specific path data.
+     * @param start the index of the first tessellated position.
+     * @param end the index following the last tessellated position.
+     */
+    protected void computeAppendedPoints(DrawContext dc, PathData pathData, int start, int end) {
+        AppendState state = pathData.appendState;
+        int stride = pathData.vertexStride;
+        int vertexSize = (pathData.hasExtrusionPoints ? 2 : 1) * stride;
+
+        this.reserveRenderedPath(pathData, pathData.tessellatedPositions.size() * vertexSize);
+        pathData.vertexCount = pathData.renderedPath.limit() / stride;
+
+        FloatBuffer path = pathData.renderedPath;
+        Vec4 referencePoint = pathData.getReferencePoint();
+        float[] color = pathData.tessellatedColors != null ? new float[4] : null;
+
+        for (int i = start; i < end; i++) {
+            Position pos = pathData.tessellatedPositions.get(i);
+            if (color != null) {
+                pathData.tessellatedColors.get(i).getRGBComponents(color);
+            }
+
+            int index = i * vertexSize;
+            this.putAppendedVertex(this.computeAppendedPoint(dc, pos), referencePoint, color, path, index, state);
+
+            if (pathData.hasExtrusionPoints) {
+                Vec4 pt = dc.computeTerrainPoint(pos.getLatitude(), pos.getLongitude(), 0d);
+                this.putAppendedVertex(pt, referencePoint, color, path, index + stride, state);
+            }
+        }
+
+        if (start < end) {
+            state.dirtyStart = Math.min(state.dirtyStart, start * vertexSize);
+        }
+    }
+
+    protected void putAppendedVertex(Vec4 pt, Vec4 referencePoint, float[] color, FloatBuffer path, int index,
+            AppendState state) {
+        double x = pt.x - referencePoint.x;
+        double y = pt.y - referencePoint.y;
+        double z = pt.z - referencePoint.z;
+        path.put(index, (float) x);
+        path.put(index + 1, (float) y);
+        path.put(index + 2, (float) z);
+        state.addToBounds(x, y, z);
+
+        if (color != null) {
+            for (int i = 0; i < 4; i++) {
+                path.put(index + 3 + i, color[i]);
+            }
+        }
+    }
+
+    /**
+     * Sets the limit of an append-optimized path's rendered path to a specified number of floats. If the rendered path
+     * is too small, it's replaced with one of at least twice the capacity, and its contents are copied to the new
+     * buffer.
+     *
+     * @param pathData the current globe-specific path data.
+     * @param numFloats the rendered path's new limit.
+     */
+    protected void reserveRenderedPath(PathData pathData, int numFloats) {
+        FloatBuffer path = pathData.renderedPath;
+
+        if (path == null || path.capacity() < numFloats) {
+            int capacity = Math.max(numFloats, path != null ? 2 * path.capacity() : 0);
+            FloatBuffer newPath = Buffers.newDirectFloatBuffer(capacity);
+            if (path != null) {
+                path.position(0);
+                newPath.put(path);
+            }
+            path = newPath;
+            pathData.renderedPath = newPath;
+            pathData.appendState.dirtyStart = 0;
+        }
+
+        path.clear();
+        path.limit(numFloats);
+    }
+
+    /**
+     * Prepares the index buffers of an append-optimized path for appending positions. Positions the buffers after the
+     * indices of a specified number of retained positions, growing them if they cannot hold the indices of a specified
+     * number of retained positions.
+     *
+     * @param pathData the current globe-specific path data.
+     * @param count the number of retained positions whose indices are kept.
+     * @param maxCount the number of retained positions the buffers must be able to hold.
+     */
+    protected void openAppendedIndices(PathData pathData, int count, int maxCount) {
+        pathData.polePositions = openIndexBuffer(pathData.polePositions, 2 * count, 2 * maxCount);
+        pathData.positionPoints = openIndexBuffer(pathData.positionPoints, count, maxCount);
+    }
+
+    /**
+     * Completes appending to the index buffers of an append-optimized path. See {@link
+     * #openAppendedIndices(PathData, int, int)}.
+     *
+     * @param pathData the current globe-specific path data.
+     */
+    protected void closeAppendedIndices(PathData pathData) {
+        pathData.polePositions.flip();
+        pathData.positionPoints.flip();
+    }
+
+    /**
+     * Positions an index buffer for appending after a specified number of indices. If the buffer is too small, it's
+     * replaced with one of at least twice the capacity, and the kept indices are copied to the new buffer.
+     *
+     * @param buffer the buffer. May be null.
+     * @param position the number of indices to keep.
+     * @param minCapacity the capacity the buffer must have.
+     *
+     * @return the buffer, positioned after the kept indices, with its limit set to its capacity.
+     */
+    protected static IntBuffer openIndexBuffer(IntBuffer buffer, int position, int minCapacity) {
+        if (buffer == null || buffer.capacity() < minCapacity) {
+            IntBuffer newBuffer = Buffers.newDirectIntBuffer(
+                    Math.max(minCapacity, buffer != null ? 2 * buffer.capacity() : 0));
+            if (buffer != null && position > 0) {
+                buffer.clear();
+                buffer.limit(position);
+                newBuffer.put(buffer);
+            }
+            return newBuffer;
+        }
+
+        buffer.clear();
+        buffer.position(position);
+        return buffer;
+    }
+
     /**
      * Computes this path's reference center.
      *
@@ -2412,6 +3339,13 @@ public class Path extends AbstractShape {
             return null;
         }
 
+        if (current.appendState != null) {
+            // Append-optimized paths keep the bounds of their vertices to avoid scanning them on each update.
+            double[] b = current.appendState.bounds;
+            Box box = new Box(APPEND_BOUNDS_AXES, b[0], b[1], b[2], b[3], b[4], b[5]);
+            return box.translate(current.getReferencePoint());
+        }
+
         current.renderedPath.rewind();
         Box box = Box.computeBoundingBox(new BufferWrapper.FloatBufferWrapper(current.renderedPath),
                 current.vertexStride);
@@ -2445,6 +3379,50 @@ public class Path extends AbstractShape {
         return super.computeExtentFromPositions(globe, verticalExaggeration, posits);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Each segment of the path is interpolated according to the path type, using the path's number of subsegments.
+     * The lines are picked within the path's outline pick width. The path's extrusion and position dots are not
+     * included.
+     */
+    @Override
+    public PickGeometry getPickGeometry(Globe globe, double verticalExaggeration) {
+        if (globe == null) {
+            String msg = Logging.getMessage("nullValue.GlobeIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (this.numPositions < 1) {
+            return null;
+        }
+
+        int numSubsegments = AVKey.LINEAR.equals(this.getPathType()) && !this.isFollowTerrain()
+                ? 1 : Math.max(1, this.getNumSubsegments());
+        java.util.List<Vec4> points = new ArrayList<Vec4>();
+        Position previous = null;
+        for (Position position : this.positions) {
+            if (previous != null) {
+                for (int i = 1; i < numSubsegments; i++) {
+                    double amount = (double) i / numSubsegments;
+                    LatLon location = LatLon.interpolate(this.getPathType(), amount, previous, position);
+                    double elevation = previous.getElevation()
+                            + amount * (position.getElevation() - previous.getElevation());
+                    points.add(PickGeometry.computePoint(globe, verticalExaggeration,
+                            new Position(location, elevation), this.getAltitudeMode()));
+                }
+            }
+
+            points.add(PickGeometry.computePoint(globe, verticalExaggeration, position, this.getAltitudeMode()));
+            previous = position;
+        }
+
+        ShapeAttributes attrs = this.getAttributes() != null ? this.getAttributes() : defaultAttributes;
+        return PickGeometry.fromLines(Collections.singletonList(points),
+                Math.max(attrs.getOutlineWidth(), this.getOutlinePickWidth()));
+    }
+
     /**
      * Computes the path's reference position. The position returned is the center-most ordinal position in the path's
      * specified positions.
@@ -2461,15 +3439,20 @@ public class Path extends AbstractShape {
         PathData pathData = this.getCurrentPathData();
         int numIds = this.isShowPositions() ? 3 : pathData.hasExtrusionPoints && this.isDrawVerticals() ? 2 : 1;
 
+        AppendState appendState = pathData.appendState;
+
         int[] vboIds = (int[]) dc.getGpuResourceCache().get(pathData.getVboCacheKey());
-        if (vboIds != null && vboIds.length != numIds) {
+        if (vboIds != null && (vboIds.length != numIds
+                || (appendState != null && appendState.vboCapacity != pathData.renderedPath.capacity()))) {
             this.clearCachedVbos(dc);
             vboIds = null;
         }
 
         GL gl = dc.getGL();
 
-        int vSize = pathData.renderedPath.limit() * 4;
+        // Append-optimized paths allocate a vertex buffer object matching the rendered path's capacity, then update
+        // only the vertices that changed.
+        int vSize = (appendState != null ? pathData.renderedPath.capacity() : pathData.renderedPath.limit()) * 4;
         int iSize = pathData.hasExtrusionPoints
                 && this.isDrawVerticals() ? pathData.tessellatedPositions.size() * 2 * 4 : 0;
         if (this.isShowPositions()) {
@@ -2481,12 +3464,32 @@ public class Path extends AbstractShape {
             gl.glGenBuffers(vboIds.length, vboIds, 0);
             dc.getGpuResourceCache().put(pathData.getVboCacheKey(), vboIds, GpuResourceCache.VBO_BUFFERS,
                     vSize + iSize);
+
+            if (appendState != null) {
+                appendState.vboCapacity = 0;
+            }
         }
 
         try {
             FloatBuffer vb = pathData.renderedPath;
             gl.glBindBuffer(GL.GL_ARRAY_BUFFER, vboIds[0]);
-            gl.glBufferData(GL.GL_ARRAY_BUFFER, vb.limit() * 4, vb.rewind(), GL.GL_STATIC_DRAW);
+            if (appendState != null) {
+                if (appendState.vboCapacity != vb.capacity()) {
+                    gl.glBufferData(GL.GL_ARRAY_BUFFER, vSize, null, GL.GL_DYNAMIC_DRAW);
+                    appendState.vboCapacity = vb.capacity();
+                    appendState.dirtyStart = 0;
+                }
+
+                if (appendState.dirtyStart < vb.limit()) {
+                    FloatBuffer dirty = vb.duplicate();
+                    dirty.position(appendState.dirtyStart);
+                    gl.glBufferSubData(GL.GL_ARRAY_BUFFER, appendState.dirtyStart * 4L, dirty.remaining() * 4L,
+                            dirty);
+                }
+                appendState.dirtyStart = Integer.MAX_VALUE;
+            } else {
+                gl.glBufferData(GL.GL_ARRAY_BUFFER, vb.limit() * 4, vb.rewind(), GL.GL_STATIC_DRAW);
+            }
 
             if (pathData.hasExtrusionPoints && this.isDrawVerticals()) {
                 IntBuffer ib = pathData.polePositions;
@@ -0,0 +1,563 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.render;
+
+import com.jogamp.common.nio.Buffers;
+import gov.nasa.worldwind.cache.GpuResourceCache;
+import gov.nasa.worldwind.geom.Vec4;
+import gov.nasa.worldwind.globes.Globe;
+import gov.nasa.worldwind.layers.Layer;
+import gov.nasa.worldwind.pick.PickSupport;
+import gov.nasa.worldwind.util.*;
+
+import com.jogamp.opengl.*;
+import java.awt.*;
+import java.nio.*;
+import java.util.*;
+import java.util.List;
+
+/**
+ * Draws many {@link Path}s that share the same attributes from one vertex buffer object. Drawing paths individually
+ * costs a vertex buffer and several OpenGL state changes per path each frame, which dominates the frame time once there
+ * are thousands of paths. A batch packs the paths' vertices into one shared array with a range per path, draws all
+ * paths with a single draw call, and copies to the GPU only the ranges of paths whose geometry has changed.
+ * <p>
+ * The paths compute their geometry as they do when drawn individually, so their positions, path type, altitude mode,
+ * terrain following, visibility and geometry regeneration interval all apply. They are drawn as lines with the batch's
+ * attributes; their own attributes, highlighting, position colors, extrusion and interiors are ignored. The batch is
+ * added to the ordered renderable list as a whole. Paths are drawn individually on 2D globes.
+ * <p>
+ * Vertices are stored relative to the reference point of the first path drawn, so the paths of a batch should be near
+ * one another.
+ *
+ * @version $Id$
+ * @see PathBatchBuilder
+ */
+public class PathBatch implements OrderedRenderable
+{
+    /** Associates a path with the path data whose vertices are in the shared array. */
+    protected static class Entry
+    {
+        protected final Path path;
+        protected Path.PathData data;
+        protected long version;
+        protected boolean visible;
+        protected boolean surfacePath;
+
+        public Entry(Path path)
+        {
+            this.path = path;
+        }
+    }
+
+    protected static final int DEFAULT_OUTLINE_PICK_WIDTH = 10;
+    protected static final double SURFACE_PATH_DEPTH_OFFSET = 0.99;
+
+    protected ShapeAttributes attributes;
+    protected boolean visible = true;
+    protected int outlinePickWidth = DEFAULT_OUTLINE_PICK_WIDTH;
+    protected final List<Entry> entries = new ArrayList<Entry>();
+    protected final Map<Path, Entry> entryMap = new IdentityHashMap<Path, Entry>();
+    protected final PathBatchBuilder builder = new PathBatchBuilder();
+    protected final Object vboCacheKey = new Object();
+    protected final PickSupport pickSupport = new PickSupport();
+    protected final OGLStackHandler ogsh = new OGLStackHandler();
+    protected Globe globe;
+    protected Vec4 referencePoint;
+    protected double eyeDistance;
+    protected Layer pickLayer;
+    protected IntBuffer firsts = Buffers.newDirectIntBuffer(0);
+    protected IntBuffer counts = Buffers.newDirectIntBuffer(0);
+
+    /**
+     * Creates an empty batch.
+     *
+     * @param attributes the attributes of the batch's paths.
+     *
+     * @throws IllegalArgumentException if the attributes are null.
+     */
+    public PathBatch(ShapeAttributes attributes)
+    {
+        this.setAttributes(attributes);
+    }
+
+    /**
+     * Returns the attributes the batch's paths are drawn with.
+     *
+     * @return the batch's attributes.
+     */
+    public ShapeAttributes getAttributes()
+    {
+        return this.attributes;
+    }
+
+    /**
+     * Specifies the attributes the batch's paths are drawn with. The outline material, opacity, width, stipple and
+     * antialiasing are used.
+     *
+     * @param attributes the batch's attributes.
+     *
+     * @throws IllegalArgumentException if the attributes are null.
+     */
+    public void setAttributes(ShapeAttributes attributes)
+    {
+        if (attributes == null)
+        {
+            String message = Logging.getMessage("nullValue.AttributesIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.attributes = attributes;
+    }
+
+    public boolean isVisible()
+    {
+        return this.visible;
+    }
+
+    public void setVisible(boolean visible)
+    {
+        this.visible = visible;
+    }
+
+    /**
+     * Indicates the line width used when picking. See {@link AbstractShape#getOutlinePickWidth()}.
+     *
+     * @return the line width used when picking.
+     */
+    public int getOutlinePickWidth()
+    {
+        return this.outlinePickWidth;
+    }
+
+    /**
+     * Specifies the line width used when picking. See {@link AbstractShape#setOutlinePickWidth(int)}.
+     *
+     * @param outlinePickWidth the line width used when picking.
+     *
+     * @throws IllegalArgumentException if the width is negative.
+     */
+    public void setOutlinePickWidth(int outlinePickWidth)
+    {
+        if (outlinePickWidth < 0)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "width < 0");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.outlinePickWidth = outlinePickWidth;
+    }
+
+    /**
+     * Adds a path to the batch. A path already in the batch is not added again.
+     *
+     * @param path the path to add.
+     *
+     * @throws IllegalArgumentException if the path is null.
+     */
+    public void addPath(Path path)
+    {
+        if (path == null)
+        {
+            String message = Logging.getMessage("nullValue.PathIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (this.entryMap.containsKey(path))
+            return;
+
+        Entry entry = new Entry(path);
+        this.entries.add(entry);
+        this.entryMap.put(path, entry);
+    }
+
+    /**
+     * Removes a path from the batch.
+     *
+     * @param path the path to remove.
+     *
+     * @return true if the batch contained the path, otherwise false.
+     */
+    public boolean removePath(Path path)
+    {
+        Entry entry = this.entryMap.remove(path);
+        if (entry == null)
+            return false;
+
+        this.entries.remove(entry);
+        this.builder.remove(entry);
+        return true;
+    }
+
+    /** Removes all paths from the batch. */
+    public void removeAllPaths()
+    {
+        this.entries.clear();
+        this.entryMap.clear();
+        this.builder.clear();
+        this.referencePoint = null;
+    }
+
+    /**
+     * Returns the paths in the batch.
+     *
+     * @return the batch's paths, in the order they were added.
+     */
+    public List<Path> getPaths()
+    {
+        List<Path> paths = new ArrayList<Path>(this.entries.size());
+        for (Entry entry : this.entries)
+        {
+            paths.add(entry.path);
+        }
+
+        return paths;
+    }
+
+    public double getDistanceFromEye()
+    {
+        return this.eyeDistance;
+    }
+
+    public void pick(DrawContext dc, Point pickPoint)
+    {
+        // This method is called only when ordered renderables are being drawn.
+
+        this.pickSupport.clearPickList();
+        try
+        {
+            this.pickSupport.beginPicking(dc);
+            this.drawOrderedRenderable(dc);
+        }
+        finally
+        {
+            this.pickSupport.endPicking(dc);
+            this.pickSupport.resolvePick(dc, pickPoint, this.pickLayer);
+        }
+    }
+
+    public void render(DrawContext dc)
+    {
+        if (dc == null)
+        {
+            String message = Logging.getMessage("nullValue.DrawContextIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (dc.isOrderedRenderingMode())
+        {
+            this.drawOrderedRenderable(dc);
+            return;
+        }
+
+        if (!this.isVisible() || this.entries.isEmpty())
+            return;
+
+        if (dc.is2DGlobe())
+        {
+            // Paths spanning the dateline of a 2D globe are drawn as several lines, which the batch does not support.
+            for (Entry entry : this.entries)
+            {
+                entry.path.render(dc);
+            }
+            return;
+        }
+
+        if (this.update(dc) == 0)
+            return;
+
+        if (dc.isPickingMode())
+            this.pickLayer = dc.getCurrentLayer();
+
+        dc.addOrderedRenderable(this);
+    }
+
+    /**
+     * Computes the geometry of the batch's paths for the current frame and copies the vertices of paths whose geometry
+     * has changed to the shared array.
+     *
+     * @param dc the current draw context.
+     *
+     * @return the number of paths visible in the current frame.
+     */
+    protected int update(DrawContext dc)
+    {
+        if (dc.getGlobe() != this.globe)
+        {
+            this.builder.clear();
+            this.referencePoint = null;
+            this.globe = dc.getGlobe();
+        }
+
+        int numVisible = 0;
+        this.eyeDistance = Double.MAX_VALUE;
+
+        for (Entry entry : this.entries)
+        {
+            Path.PathData data = entry.path.makeBatchedGeometry(dc);
+            entry.visible = data != null;
+            if (!entry.visible)
+                continue;
+
+            if (this.referencePoint == null)
+                this.referencePoint = data.getReferencePoint();
+
+            if (data != entry.data || data.renderedPathVersion != entry.version || !this.builder.contains(entry))
+            {
+                int stride = data.hasExtrusionPoints ? 2 * data.vertexStride : data.vertexStride;
+                int count = data.hasExtrusionPoints ? data.vertexCount / 2 : data.vertexCount;
+                this.builder.setVertices(entry, data.renderedPath, stride, count,
+                    data.getReferencePoint().subtract3(this.referencePoint));
+                entry.data = data;
+                entry.version = data.renderedPathVersion;
+            }
+
+            entry.surfacePath = entry.path.isSurfacePath(dc);
+            this.eyeDistance = Math.min(this.eyeDistance, data.getEyeDistance());
+            numVisible++;
+        }
+
+        return numVisible;
+    }
+
+    protected void drawOrderedRenderable(DrawContext dc)
+    {
+        GL2 gl = dc.getGL().getGL2(); // GL initialization checks for GL2 compatibility.
+
+        this.ogsh.clear();
+        this.ogsh.pushAttrib(gl, GL2.GL_CURRENT_BIT | GL2.GL_DEPTH_BUFFER_BIT | GL2.GL_LINE_BIT | GL2.GL_HINT_BIT
+            | GL2.GL_COLOR_BUFFER_BIT | GL2.GL_ENABLE_BIT);
+        this.ogsh.pushClientAttrib(gl, GL2.GL_CLIENT_VERTEX_ARRAY_BIT);
+        dc.getView().pushReferenceCenter(dc, this.referencePoint);
+
+        try
+        {
+            gl.glEnableClientState(GL2.GL_VERTEX_ARRAY);
+            gl.glDisable(GL2.GL_LIGHTING);
+            gl.glDisable(GL.GL_TEXTURE_2D);
+            gl.glDisable(GL.GL_CULL_FACE);
+            this.prepareToDrawOutline(dc);
+            this.bindVertices(dc);
+
+            if (dc.isPickingMode())
+            {
+                this.drawPickRanges(dc);
+            }
+            else
+            {
+                this.drawRanges(dc, false);
+
+                dc.pushProjectionOffest(SURFACE_PATH_DEPTH_OFFSET);
+                gl.glDepthMask(false);
+                try
+                {
+                    this.drawRanges(dc, true);
+                }
+                finally
+                {
+                    dc.popProjectionOffest();
+                    gl.glDepthMask(true);
+                }
+            }
+        }
+        finally
+        {
+            gl.glBindBuffer(GL.GL_ARRAY_BUFFER, 0);
+            dc.getView().popReferenceCenter(dc);
+            this.ogsh.pop(gl);
+        }
+    }
+
+    protected void prepareToDrawOutline(DrawContext dc)
+    {
+        GL2 gl = dc.getGL().getGL2(); // GL initialization checks for GL2 compatibility.
+        ShapeAttributes attrs = this.getAttributes();
+
+        if (!dc.isPickingMode())
+        {
+            gl.glEnable(GL.GL_LINE_SMOOTH);
+            gl.glEnable(GL.GL_BLEND);
+            OGLUtil.applyBlending(gl, false);
+
+            Material material = attrs.getOutlineMaterial() != null ? attrs.getOutlineMaterial() : Material.WHITE;
+            Color color = material.getDiffuse();
+            double opacity = attrs.getOutlineOpacity();
+            gl.glColor4ub((byte) color.getRed(), (byte) color.getGreen(), (byte) color.getBlue(),
+                (byte) (opacity < 1 ? (int) (opacity * 255 + 0.5) : 255));
+            gl.glHint(GL.GL_LINE_SMOOTH_HINT, attrs.isEnableAntialiasing() ? GL.GL_NICEST : GL.GL_DONT_CARE);
+            gl.glLineWidth((float) attrs.getOutlineWidth());
+        }
+        else
+        {
+            gl.glDisable(GL.GL_LINE_SMOOTH);
+            gl.glDisable(GL.GL_BLEND);
+            gl.glLineWidth((float) Math.max(attrs.getOutlineWidth(), this.getOutlinePickWidth()));
+        }
+
+        if (attrs.getOutlineStippleFactor() > 0)
+        {
+            gl.glEnable(GL2.GL_LINE_STIPPLE);
+            gl.glLineStipple(attrs.getOutlineStippleFactor(), attrs.getOutlineStipplePattern());
+        }
+        else
+        {
+            gl.glDisable(GL2.GL_LINE_STIPPLE);
+        }
+    }
+
+    /**
+     * Makes the shared vertex array current, copying it to the batch's vertex buffer object. The entire array is
+     * copied when its storage has changed or the buffer object does not exist; otherwise only the changed ranges are.
+     *
+     * @param dc the current draw context.
+     */
+    protected void bindVertices(DrawContext dc)
+    {
+        GL2 gl = dc.getGL().getGL2(); // GL initialization checks for GL2 compatibility.
+
+        if (!dc.getGLRuntimeCapabilities().isUseVertexBufferObject())
+        {
+            gl.glVertexPointer(3, GL.GL_FLOAT, 0, this.builder.getVertices());
+            this.builder.clearDirty();
+            return;
+        }
+
+        int[] vboIds = (int[]) dc.getGpuResourceCache().get(this.vboCacheKey);
+        if (vboIds == null || this.builder.isStorageChanged())
+        {
+            // Allocate the buffer object at the array's capacity, so that it holds strips that grow in place.
+            long size = 4L * 3 * this.builder.getCapacity();
+            vboIds = new int[1];
+            gl.glGenBuffers(1, vboIds, 0);
+            gl.glBindBuffer(GL.GL_ARRAY_BUFFER, vboIds[0]);
+            gl.glBufferData(GL.GL_ARRAY_BUFFER, size, null, GL.GL_DYNAMIC_DRAW);
+            FloatBuffer vertices = this.builder.getVertices();
+            gl.glBufferSubData(GL.GL_ARRAY_BUFFER, 0, 4L * vertices.remaining(), vertices);
+            dc.getGpuResourceCache().put(this.vboCacheKey, vboIds, GpuResourceCache.VBO_BUFFERS, size);
+        }
+        else
+        {
+            gl.glBindBuffer(GL.GL_ARRAY_BUFFER, vboIds[0]);
+            for (int[] range : this.builder.getDirtyRanges())
+            {
+                FloatBuffer vertices = this.builder.getVertices();
+                vertices.limit(3 * range[1]).position(3 * range[0]);
+                gl.glBufferSubData(GL.GL_ARRAY_BUFFER, 4L * 3 * range[0], 4L * vertices.remaining(), vertices);
+            }
+        }
+
+        this.builder.clearDirty();
+        gl.glVertexPointer(3, GL.GL_FLOAT, 0, 0);
+    }
+
+    /**
+     * Draws the visible paths that are, or are not, located on the terrain.
+     *
+     * @param dc          the current draw context.
+     * @param surfacePath true to draw the paths located on the terrain, false to draw the others.
+     */
+    protected void drawRanges(DrawContext dc, boolean surfacePath)
+    {
+        if (this.firsts.capacity() < this.entries.size())
+        {
+            this.firsts = Buffers.newDirectIntBuffer(this.entries.size());
+            this.counts = Buffers.newDirectIntBuffer(this.entries.size());
+        }
+
+        this.firsts.clear();
+        this.counts.clear();
+
+        for (Entry entry : this.entries)
+        {
+            if (!entry.visible || entry.surfacePath != surfacePath)
+                continue;
+
+            this.firsts.put(this.builder.getFirst(entry));
+            this.counts.put(this.builder.getCount(entry));
+        }
+
+        int drawCount = this.firsts.position();
+        if (drawCount == 0)
+            return;
+
+        this.firsts.rewind();
+        this.counts.rewind();
+
+        GL2 gl = dc.getGL().getGL2(); // GL initialization checks for GL2 compatibility.
+        if (gl.isFunctionAvailable("glMultiDrawArrays"))
+        {
+            gl.glMultiDrawArrays(GL.GL_LINE_STRIP, this.firsts, this.counts, drawCount);
+        }
+        else
+        {
+            for (int i = 0; i < drawCount; i++)
+            {
+                gl.glDrawArrays(GL.GL_LINE_STRIP, this.firsts.get(i), this.counts.get(i));
+            }
+        }
+    }
+
+    /**
+     * Draws each visible path in a unique pick color.
+     *
+     * @param dc the current draw context.
+     */
+    protected void drawPickRanges(DrawContext dc)
+    {
+        GL2 gl = dc.getGL().getGL2(); // GL initialization checks for GL2 compatibility.
+
+        for (Entry entry : this.entries)
+        {
+            if (!entry.visible)
+                continue;
+
+            Color color = dc.getUniquePickColor();
+            Object owner = entry.path.getDelegateOwner() != null ? entry.path.getDelegateOwner() : entry.path;
+            this.pickSupport.addPickableObject(color.getRGB(), owner);
+            gl.glColor3ub((byte) color.getRed(), (byte) color.getGreen(), (byte) color.getBlue());
+
+            if (entry.surfacePath)
+                dc.pushProjectionOffest(SURFACE_PATH_DEPTH_OFFSET);
+            try
+            {
+                gl.glDrawArrays(GL.GL_LINE_STRIP, this.builder.getFirst(entry), this.builder.getCount(entry));
+            }
+            finally
+            {
+                if (entry.surfacePath)
+                    dc.popProjectionOffest();
+            }
+        }
+    }
+}
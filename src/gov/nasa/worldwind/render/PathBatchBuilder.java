@@ -0,0 +1,392 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.render;
+
+import com.jogamp.common.nio.Buffers;
+import gov.nasa.worldwind.geom.Vec4;
+import gov.nasa.worldwind.util.Logging;
+
+import java.nio.FloatBuffer;
+import java.util.*;
+
+/**
+ * Packs the vertices of many line strips into one shared vertex array, giving each strip a range of the array, and
+ * tracks the parts of the array that have changed since they were last copied to the GPU. {@link PathBatch} uses it to
+ * draw many paths from one vertex buffer object. The builder does not use OpenGL.
+ * <p>
+ * Vertices are three floats each. A strip whose vertex count changes is rewritten in place if it fits in its range,
+ * and is otherwise moved to the end of the array with room to grow. The ranges left behind by moved and removed strips
+ * are reclaimed by compacting the array once they account for half of it.
+ * <p>
+ * Changes to the array are reported in one of two ways. If the array's storage has been reallocated or compacted since
+ * the last call to {@link #clearDirty()}, {@link #isStorageChanged()} returns true and the entire array must be copied.
+ * Otherwise {@link #getDirtyRanges()} returns the ranges of vertices that have been written.
+ *
+ * @version $Id$
+ * @see PathBatch
+ */
+public class PathBatchBuilder
+{
+    protected static final int INITIAL_CAPACITY = 1024;
+    /** The fraction of a strip's vertex count reserved for growth when the strip is placed at the end of the array. */
+    protected static final double GROWTH_RESERVE = 0.25;
+    /**
+     * Dirty ranges separated by at most this many vertices are merged, since copying a few clean vertices costs less
+     * than an additional copy operation.
+     */
+    protected static final int DIRTY_RANGE_GAP = 16;
+
+    /** The range of vertices holding one strip. */
+    protected static class Range
+    {
+        protected int offset;
+        protected int count;
+        protected int capacity;
+    }
+
+    protected FloatBuffer vertices = Buffers.newDirectFloatBuffer(3 * INITIAL_CAPACITY);
+    /** The number of vertices in use, including those of unreclaimed ranges. */
+    protected int size;
+    /** The number of vertices holding strips. */
+    protected int used;
+    protected final Map<Object, Range> ranges = new LinkedHashMap<Object, Range>();
+    protected boolean storageChanged = true;
+    /** Disjoint dirty ranges ordered by offset, as pairs of first vertex and end vertex. */
+    protected final List<int[]> dirtyRanges = new ArrayList<int[]>();
+
+    /** Creates an empty builder. */
+    public PathBatchBuilder()
+    {
+    }
+
+    /**
+     * Sets the vertices of a strip, adding the strip if the builder does not yet contain it. The source vertices are
+     * three floats each, possibly separated by additional data, and are translated by an offset as they are copied.
+     *
+     * @param key    the object identifying the strip.
+     * @param source the source vertices, starting at the buffer's index 0.
+     * @param stride the number of floats between the starts of consecutive source vertices.
+     * @param count  the number of vertices to copy.
+     * @param offset the offset to add to each vertex. May be null, in which case the vertices are copied unchanged.
+     *
+     * @throws IllegalArgumentException if the key or source is null, if the stride is less than three, or if the
+     *                                  count is negative or exceeds the number of vertices in the source.
+     */
+    public void setVertices(Object key, FloatBuffer source, int stride, int count, Vec4 offset)
+    {
+        if (key == null)
+        {
+            String message = Logging.getMessage("nullValue.KeyIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (source == null)
+        {
+            String message = Logging.getMessage("nullValue.BufferIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (stride < 3 || count < 0 || (count > 0 && (count - 1) * stride + 3 > source.limit()))
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "stride=" + stride + ", count=" + count);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        Range range = this.ranges.get(key);
+        if (range == null)
+        {
+            range = new Range();
+            this.ranges.put(key, range);
+        }
+
+        if (count > range.capacity)
+        {
+            // The strip does not fit in its current range. Abandon the range and place the strip at the end.
+            range.capacity = count + (int) (GROWTH_RESERVE * count);
+            range.offset = this.allocate(range.capacity);
+        }
+
+        this.used += count - range.count;
+        range.count = count;
+
+        double dx = offset != null ? offset.x : 0;
+        double dy = offset != null ? offset.y : 0;
+        double dz = offset != null ? offset.z : 0;
+        FloatBuffer dest = this.vertices;
+        int d = 3 * range.offset;
+        for (int i = 0, s = 0; i < count; i++, s += stride, d += 3)
+        {
+            dest.put(d, (float) (source.get(s) + dx));
+            dest.put(d + 1, (float) (source.get(s + 1) + dy));
+            dest.put(d + 2, (float) (source.get(s + 2) + dz));
+        }
+
+        this.markDirty(range.offset, range.offset + count);
+        this.compactIfWasteful();
+    }
+
+    /**
+     * Removes a strip. Its range is reclaimed when the array is next compacted.
+     *
+     * @param key the object identifying the strip.
+     *
+     * @return true if the builder contained the strip, otherwise false.
+     */
+    public boolean remove(Object key)
+    {
+        Range range = this.ranges.remove(key);
+        if (range == null)
+            return false;
+
+        this.used -= range.count;
+        this.compactIfWasteful();
+
+        return true;
+    }
+
+    /** Removes all strips and releases the array's storage. */
+    public void clear()
+    {
+        this.ranges.clear();
+        this.vertices = Buffers.newDirectFloatBuffer(3 * INITIAL_CAPACITY);
+        this.size = 0;
+        this.used = 0;
+        this.storageChanged = true;
+        this.dirtyRanges.clear();
+    }
+
+    /**
+     * Indicates whether the builder contains a strip.
+     *
+     * @param key the object identifying the strip.
+     *
+     * @return true if the builder contains the strip, otherwise false.
+     */
+    public boolean contains(Object key)
+    {
+        return this.ranges.containsKey(key);
+    }
+
+    /**
+     * Returns the index of a strip's first vertex in the shared array.
+     *
+     * @param key the object identifying the strip.
+     *
+     * @return the index of the strip's first vertex, or -1 if the builder does not contain the strip.
+     */
+    public int getFirst(Object key)
+    {
+        Range range = this.ranges.get(key);
+        return range != null ? range.offset : -1;
+    }
+
+    /**
+     * Returns the number of vertices in a strip.
+     *
+     * @param key the object identifying the strip.
+     *
+     * @return the strip's vertex count, or 0 if the builder does not contain the strip.
+     */
+    public int getCount(Object key)
+    {
+        Range range = this.ranges.get(key);
+        return range != null ? range.count : 0;
+    }
+
+    /**
+     * Returns the keys of the strips in the builder, in the order the strips were added.
+     *
+     * @return the strips' keys.
+     */
+    public Set<Object> getKeys()
+    {
+        return Collections.unmodifiableSet(this.ranges.keySet());
+    }
+
+    /**
+     * Returns a view of the shared vertex array, with its position at 0 and its limit at the number of floats in use.
+     * The array is replaced when its storage changes, so callers must not retain the view across calls that modify the
+     * builder.
+     *
+     * @return the shared vertex array.
+     */
+    public FloatBuffer getVertices()
+    {
+        FloatBuffer buffer = this.vertices.duplicate();
+        buffer.limit(3 * this.size);
+        buffer.rewind();
+        return buffer;
+    }
+
+    /**
+     * Returns the number of vertices in the shared array, including those of ranges not yet reclaimed.
+     *
+     * @return the number of vertices in use.
+     */
+    public int getSize()
+    {
+        return this.size;
+    }
+
+    /**
+     * Returns the number of vertices the shared array can hold without being reallocated.
+     *
+     * @return the array's capacity, in vertices.
+     */
+    public int getCapacity()
+    {
+        return this.vertices.capacity() / 3;
+    }
+
+    /**
+     * Indicates whether the shared array has been reallocated or compacted since the last call to {@link
+     * #clearDirty()}, in which case the entire array must be copied.
+     *
+     * @return true if the array's storage has changed, otherwise false.
+     */
+    public boolean isStorageChanged()
+    {
+        return this.storageChanged;
+    }
+
+    /**
+     * Returns the ranges of vertices written since the last call to {@link #clearDirty()}. The ranges are disjoint and
+     * ordered by their first vertex. Ranges separated by only a few vertices are merged, so a range may include
+     * vertices that have not been written. The result is meaningful only if the storage has not changed.
+     *
+     * @return the dirty ranges, each an array of the first vertex and the vertex following the last.
+     */
+    public List<int[]> getDirtyRanges()
+    {
+        return Collections.unmodifiableList(this.dirtyRanges);
+    }
+
+    /** Marks the shared array as copied. */
+    public void clearDirty()
+    {
+        this.storageChanged = false;
+        this.dirtyRanges.clear();
+    }
+
+    /**
+     * Moves all strips to the start of the shared array, in the order they were added, reclaiming unused ranges. Each
+     * strip keeps room to grow.
+     */
+    public void compact()
+    {
+        int required = 0;
+        for (Range range : this.ranges.values())
+        {
+            required += range.count + (int) (GROWTH_RESERVE * range.count);
+        }
+
+        FloatBuffer source = this.vertices;
+        FloatBuffer dest = Buffers.newDirectFloatBuffer(3 * Math.max(INITIAL_CAPACITY, required));
+        int offset = 0;
+        for (Range range : this.ranges.values())
+        {
+            for (int i = 3 * range.offset, j = 3 * offset, end = 3 * (range.offset + range.count); i < end; i++, j++)
+            {
+                dest.put(j, source.get(i));
+            }
+
+            range.offset = offset;
+            range.capacity = range.count + (int) (GROWTH_RESERVE * range.count);
+            offset += range.capacity;
+        }
+
+        this.vertices = dest;
+        this.size = offset;
+
+        this.storageChanged = true;
+        this.dirtyRanges.clear();
+    }
+
+    /** Compacts the array if at least half of it holds no strip. */
+    protected void compactIfWasteful()
+    {
+        if (this.size > INITIAL_CAPACITY && this.size - this.used > this.size / 2)
+            this.compact();
+    }
+
+    /** Reserves a range at the end of the array, growing the array if necessary. */
+    protected int allocate(int count)
+    {
+        int offset = this.size;
+        if (offset + count > this.getCapacity())
+        {
+            int capacity = Math.max(2 * this.getCapacity(), offset + count);
+            FloatBuffer newVertices = Buffers.newDirectFloatBuffer(3 * capacity);
+            newVertices.put(this.getVertices());
+            newVertices.clear();
+            this.vertices = newVertices;
+            this.storageChanged = true;
+            this.dirtyRanges.clear();
+        }
+
+        this.size += count;
+        return offset;
+    }
+
+    /** Adds a range of vertices to the dirty ranges, merging it with ranges it overlaps or nearly adjoins. */
+    protected void markDirty(int first, int end)
+    {
+        if (this.storageChanged || first >= end)
+            return; // the whole array is copied
+
+        List<int[]> list = this.dirtyRanges;
+
+        // Find the first range ending near or after the new range's start.
+        int lo = 0, hi = list.size();
+        while (lo < hi)
+        {
+            int mid = (lo + hi) >>> 1;
+            if (list.get(mid)[1] + DIRTY_RANGE_GAP < first)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+
+        // Merge with every range starting near or before the new range's end.
+        int i = lo;
+        while (i < list.size() && list.get(i)[0] <= end + DIRTY_RANGE_GAP)
+        {
+            first = Math.min(first, list.get(i)[0]);
+            end = Math.max(end, list.get(i)[1]);
+            i++;
+        }
+
+        list.subList(lo, i).clear();
+        list.add(lo, new int[] {first, end});
+    }
+}
@@ -32,7 +32,7 @@ import gov.nasa.worldwind.*;
 import gov.nasa.worldwind.avlist.AVKey;
 import gov.nasa.worldwind.drag.*;
 import gov.nasa.worldwind.geom.*;
-import gov.nasa.worldwind.globes.Globe2D;
+import gov.nasa.worldwind.globes.*;
 import gov.nasa.worldwind.layers.Layer;
 import gov.nasa.worldwind.ogc.kml.KMLConstants;
 import gov.nasa.worldwind.ogc.kml.impl.KMLExportUtil;
@@ -45,9 +45,11 @@ import com.jogamp.opengl.util.awt.TextRenderer;
 import javax.xml.stream.*;
 import java.awt.*;
 import java.awt.geom.*;
+import java.awt.image.BufferedImage;
 import java.io.*;
 import java.net.URL;
 import java.util.*;
+import java.util.List;
 
 import static gov.nasa.worldwind.ogc.kml.impl.KMLExportUtil.kmlBoolean;
 
@@ -72,7 +74,7 @@ import static gov.nasa.worldwind.ogc.kml.impl.KMLExportUtil.kmlBoolean;
  * @version $Id: PointPlacemark.java 3028 2015-04-17 00:10:19Z tgaskins $
  */
 public class PointPlacemark extends WWObjectImpl
-    implements Renderable, Locatable, Movable, Highlightable, Exportable, Draggable
+    implements Renderable, Locatable, Movable, Highlightable, Exportable, Draggable, GeometricPickable
 {
     /**
      * An interface to enable application selection of placemark level of detail.
@@ -99,6 +101,11 @@ public class PointPlacemark extends WWObjectImpl
         AVKey.FRACTION);
     /** The point size to use when none is specified. */
     protected static final Double DEFAULT_POINT_SIZE = 5d;
+    /** The image size assumed by geometric picking when the size of the placemark's image is not yet known. */
+    protected static final double PICK_IMAGE_SIZE = 64;
+    /** The sizes of placemark images read by geometric picking, keyed by image address. */
+    protected static final Map<String, Dimension> pickImageSizes =
+        new java.util.concurrent.ConcurrentHashMap<String, Dimension>();
     /**
      * The address of the transparent image used when attributes.isDrawImage is false.
      */
@@ -228,6 +235,7 @@ public class PointPlacemark extends WWObjectImpl
     protected boolean enableLabelPicking = false;
     protected boolean alwaysOnTop = false;
     protected LODSelector LODSelector = null;
+    protected PointPlacemarkIconAtlas iconAtlas;
 
     // Values computed once per frame and reused during the frame as needed.
     protected long frameNumber = -1; // identifies frame used to calculate these values
@@ -668,6 +676,29 @@ public class PointPlacemark extends WWObjectImpl
         this.LODSelector = LODSelector;
     }
 
+    /**
+     * Indicates the icon atlas this placemark's images are packed into.
+     *
+     * @return this placemark's icon atlas, or null if its images are drawn from individual textures.
+     */
+    public PointPlacemarkIconAtlas getIconAtlas()
+    {
+        return this.iconAtlas;
+    }
+
+    /**
+     * Specifies an icon atlas to pack this placemark's images into. Placemarks sharing an icon atlas are batch rendered
+     * with one draw call per atlas page rather than one per placemark, regardless of how many different images they
+     * use. Images that do not fit in an atlas page are drawn from individual textures.
+     *
+     * @param iconAtlas the icon atlas. May be null, the default, to draw this placemark's images from individual
+     *                  textures.
+     */
+    public void setIconAtlas(PointPlacemarkIconAtlas iconAtlas)
+    {
+        this.iconAtlas = iconAtlas;
+    }
+
     /**
      * Indicates whether a point should be drawn when the active texture is null.
      *
@@ -897,10 +928,17 @@ public class PointPlacemark extends WWObjectImpl
         this.beginDrawing(dc);
         try
         {
-            this.doDrawOrderedRenderable(dc, this.pickSupport, opm);
+            if (this.isEnableBatchRendering() && !dc.isPickingMode() && this.getIconAtlas() != null)
+            {
+                this.drawIconAtlasBatch(dc, opm);
+            }
+            else
+            {
+                this.doDrawOrderedRenderable(dc, this.pickSupport, opm);
 
-            if (this.isEnableBatchRendering())
-                this.drawBatched(dc);
+                if (this.isEnableBatchRendering())
+                    this.drawBatched(dc);
+            }
         }
         finally
         {
@@ -908,6 +946,181 @@ public class PointPlacemark extends WWObjectImpl
         }
     }
 
+    /**
+     * Draws this ordered renderable and all subsequent batch-rendered PointPlacemark ordered renderables in the ordered
+     * renderable list, adding the images packed in this placemark's icon atlas to the atlas' draw list. The draw list
+     * draws the images with one draw call per atlas page. Images that are not in the atlas are drawn individually, in
+     * order, after drawing the images collected before them. Labels are drawn after the images of the batch.
+     *
+     * @param dc  the current draw context.
+     * @param opm the ordered renderable starting the batch.
+     */
+    protected void drawIconAtlasBatch(DrawContext dc, OrderedPlacemark opm)
+    {
+        PointPlacemarkIconAtlas.DrawList drawList = this.getIconAtlas().getDrawList();
+        List<OrderedPlacemark> labels = new ArrayList<OrderedPlacemark>();
+        drawList.clear();
+
+        try
+        {
+            this.addToIconAtlasBatch(dc, opm, drawList, labels);
+
+            Object nextItem = dc.peekOrderedRenderables();
+            while (nextItem instanceof OrderedPlacemark)
+            {
+                OrderedPlacemark next = (OrderedPlacemark) nextItem;
+                if (!next.isEnableBatchRendering())
+                    break;
+
+                dc.pollOrderedRenderables(); // take it off the queue
+                next.getPlacemark().addToIconAtlasBatch(dc, next, drawList, labels);
+
+                nextItem = dc.peekOrderedRenderables();
+            }
+
+            this.flushIconAtlasBatch(dc, drawList, labels);
+        }
+        finally
+        {
+            drawList.clear();
+        }
+    }
+
+    /**
+     * Adds this placemark's image to an icon atlas draw list and its label to the list of labels to draw after the
+     * batch's images. Draws this placemark's line immediately. If this placemark's image is not packed in the draw
+     * list's atlas, or is pitched, this draws the collected images and labels and then draws this placemark
+     * individually.
+     *
+     * @param dc       the current draw context.
+     * @param opm      the ordered renderable to add.
+     * @param drawList the draw list to add the image to.
+     * @param labels   the ordered renderables whose labels are drawn after the batch's images.
+     */
+    protected void addToIconAtlasBatch(DrawContext dc, OrderedPlacemark opm, PointPlacemarkIconAtlas.DrawList drawList,
+        List<OrderedPlacemark> labels)
+    {
+        if (!(this.activeTexture instanceof PointPlacemarkIconAtlas.IconTexture)
+            || ((PointPlacemarkIconAtlas.IconTexture) this.activeTexture).getAtlas().getDrawList() != drawList
+            || this.getActiveAttributes().getPitch() != null)
+        {
+            this.flushIconAtlasBatch(dc, drawList, labels);
+            this.doDrawOrderedRenderable(dc, this.pickSupport, opm);
+            return;
+        }
+
+        if (this.isDrawLine(dc, opm))
+            this.drawLine(dc, this.pickSupport, opm);
+
+        // Compute the image's screen rectangle and rotation as doDrawOrderedRenderable does.
+        double width = this.activeTexture.getWidth(dc);
+        double height = this.activeTexture.getHeight(dc);
+        Double scale = this.getActiveAttributes().getScale();
+        if (scale != null)
+        {
+            width *= scale;
+            height *= scale;
+        }
+
+        double rotation = 0;
+        Double heading = this.getActiveAttributes().getHeading();
+        if (heading != null)
+        {
+            if (AVKey.RELATIVE_TO_GLOBE.equals(this.getActiveAttributes().getHeadingReference()))
+                rotation = dc.getView().getHeading().degrees - heading;
+            else
+                rotation = -heading;
+        }
+
+        // Adjust depth of image to bring it slightly forward
+        double depth = opm.screenPoint.z - (8d * 0.00048875809d);
+        depth = depth < 0d ? 0d : (depth > 1d ? 1d : depth);
+
+        Color color = this.getActiveAttributes().getImageColor();
+        if (color == null)
+            color = PointPlacemarkAttributes.DEFAULT_IMAGE_COLOR;
+
+        drawList.addIcon(this.activeTexture, opm.screenPoint.x + this.dx, opm.screenPoint.y + this.dy, width, height,
+            rotation, depth, color);
+
+        if (this.mustDrawLabel())
+            labels.add(opm);
+    }
+
+    /**
+     * Draws the images collected in an icon atlas draw list, then the labels collected with them as one glyph text
+     * batch, and clears both.
+     *
+     * @param dc       the current draw context.
+     * @param drawList the images to draw.
+     * @param labels   the ordered renderables whose labels are drawn.
+     */
+    protected void flushIconAtlasBatch(DrawContext dc, PointPlacemarkIconAtlas.DrawList drawList,
+        List<OrderedPlacemark> labels)
+    {
+        if (drawList.isEmpty() && labels.isEmpty())
+            return;
+
+        GL2 gl = dc.getGL().getGL2(); // GL initialization checks for GL2 compatibility.
+        Rectangle viewport = dc.getView().getViewport();
+
+        OGLStackHandler osh = new OGLStackHandler();
+        try
+        {
+            if (!drawList.isEmpty())
+            {
+                gl.glEnable(GL.GL_TEXTURE_2D);
+
+                // The images are drawn using a parallel projection that maps vertex z coordinates to window depth.
+                osh.pushProjectionIdentity(gl);
+                gl.glOrtho(0d, viewport.width, 0d, viewport.height, 0d, -1d);
+                osh.pushModelviewIdentity(gl);
+
+                // Apply the depth buffer but don't change it (for screen-space shapes).
+                if ((!dc.isDeepPickingEnabled()))
+                    gl.glEnable(GL.GL_DEPTH_TEST);
+                gl.glDepthMask(false);
+                gl.glDepthFunc(GL.GL_LESS);
+
+                // Suppress any fully transparent image pixels.
+                gl.glEnable(GL2.GL_ALPHA_TEST);
+                gl.glAlphaFunc(GL2.GL_GREATER, 0.001f);
+
+                drawList.draw(dc);
+                drawList.clear();
+
+                gl.glDisable(GL.GL_TEXTURE_2D);
+                osh.pop(gl);
+            }
+
+            if (!labels.isEmpty())
+            {
+                osh.pushProjectionIdentity(gl);
+                gl.glOrtho(0d, viewport.width, 0d, viewport.height, -1d, 1d);
+                osh.pushModelviewIdentity(gl);
+
+                // Do not depth buffer the labels. (Placemarks beyond the horizon are culled above.)
+                gl.glDisable(GL.GL_DEPTH_TEST);
+                gl.glDepthMask(false);
+
+                GlyphTextBatch labelBatch = this.getIconAtlas().getLabelBatch();
+                labelBatch.clear();
+                for (OrderedPlacemark opm : labels)
+                {
+                    opm.getPlacemark().addLabelToBatch(dc, opm, labelBatch);
+                }
+                labels.clear();
+
+                labelBatch.draw(dc);
+                labelBatch.clear();
+            }
+        }
+        finally
+        {
+            osh.pop(gl);
+        }
+    }
+
     /**
      * Draws this ordered renderable and all subsequent PointPlacemark ordered renderables in the ordered renderable
      * list.
@@ -1135,10 +1348,20 @@ public class PointPlacemark extends WWObjectImpl
 
         Font font = this.getActiveAttributes().getLabelFont();
         if (font == null)
-
             font = PointPlacemarkAttributes.DEFAULT_LABEL_FONT;
-        TextRenderer textRenderer = OGLTextRenderer.getOrCreateTextRenderer(dc.getTextRendererCache(), font);
-        Rectangle2D bounds = textRenderer.getBounds(this.getLabelText());
+
+        // Measure labels drawn from the icon atlas batch with the font's cached text layout, and other labels with the
+        // text renderer that draws them.
+        Rectangle2D bounds;
+        if (this.isEnableBatchRendering() && this.getIconAtlas() != null)
+        {
+            bounds = dc.getTextRendererCache().getGlyphAtlas(font).getLayout(this.getLabelText()).getBounds();
+        }
+        else
+        {
+            TextRenderer textRenderer = OGLTextRenderer.getOrCreateTextRenderer(dc.getTextRendererCache(), font);
+            bounds = textRenderer.getBounds(this.getLabelText());
+        }
         double width = bounds.getWidth();
         double height = bounds.getHeight();
 
@@ -1239,6 +1462,44 @@ public class PointPlacemark extends WWObjectImpl
         }
     }
 
+    /**
+     * Adds the placemark's label, if a label is specified, to a text batch. The label is drawn as {@link
+     * #drawLabel(DrawContext, PickSupport, OrderedPlacemark)} draws it, including its background.
+     *
+     * @param dc    the current draw context.
+     * @param opm   the placemark to label.
+     * @param batch the text batch to add the label to.
+     */
+    protected void addLabelToBatch(DrawContext dc, OrderedPlacemark opm, GlyphTextBatch batch)
+    {
+        if (this.getLabelText() == null)
+            return;
+
+        Color color = this.getActiveAttributes().getLabelColor();
+        // Use the default color if the active attributes do not specify one.
+        if (color == null)
+            color = PointPlacemarkAttributes.DEFAULT_LABEL_COLOR;
+        // If the label color's alpha component is 0 or less, then the label is completely transparent.
+        if (color.getAlpha() <= 0)
+            return;
+
+        // Apply the label color's alpha component to the background color, as drawLabel does.
+        Color backgroundColor = (color.getAlpha() < 255 ? new Color(0, 0, 0, color.getAlpha()) : Color.BLACK);
+
+        Font font = this.getActiveAttributes().getLabelFont();
+        if (font == null)
+            font = PointPlacemarkAttributes.DEFAULT_LABEL_FONT;
+
+        Vec4 labelPoint = this.computeLabelPoint(dc, opm);
+        Double labelScale = this.getActiveAttributes().getLabelScale();
+        double scale = labelScale != null ? labelScale : 1;
+
+        // The background is offset by one scaled pixel, because drawLabel scales about the label point.
+        GlyphLayout layout = dc.getTextRendererCache().getGlyphAtlas(font).getLayout(this.getLabelText());
+        batch.addText(layout, labelPoint.x + scale, labelPoint.y - scale, scale, 0, backgroundColor);
+        batch.addText(layout, labelPoint.x, labelPoint.y, scale, 0, color);
+    }
+
     /**
      * Draws the placemark's line.
      *
@@ -1512,7 +1773,11 @@ public class PointPlacemark extends WWObjectImpl
     {
         if (!attrs.isDrawImage())
         {
-            WWTexture texture = this.textures.get(TRANSPARENT_IMAGE_ADDRESS);
+            WWTexture texture = this.getIconAtlasTexture(TRANSPARENT_IMAGE_ADDRESS);
+            if (texture != null)
+                return texture;
+
+            texture = this.textures.get(TRANSPARENT_IMAGE_ADDRESS);
             if (texture == null)
             {
                 URL localUrl = WorldWind.getDataFileStore().requestFile(TRANSPARENT_IMAGE_ADDRESS);
@@ -1528,7 +1793,12 @@ public class PointPlacemark extends WWObjectImpl
 
         if (!WWUtil.isEmpty(attrs.getImageAddress()))
         {
-            WWTexture texture = this.textures.get(attrs.getImageAddress());
+            BufferedImage image = this.getActiveAttributes().getImage();
+            WWTexture texture = this.getIconAtlasTexture(image != null ? image : attrs.getImageAddress());
+            if (texture != null)
+                return texture;
+
+            texture = this.textures.get(attrs.getImageAddress());
             if (texture != null)
                 return texture;
 
@@ -1550,6 +1820,11 @@ public class PointPlacemark extends WWObjectImpl
             this.getActiveAttributes().setScale(defaultAttributes.getScale() * attrs.getScale());
         else
             this.getActiveAttributes().setScale(defaultAttributes.getScale());
+
+        WWTexture atlasTexture = this.getIconAtlasTexture(defaultAttributes.getImageAddress());
+        if (atlasTexture != null)
+            return atlasTexture;
+
         if (texture == null)
         {
             URL localUrl = WorldWind.getDataFileStore().requestFile(defaultAttributes.getImageAddress());
@@ -1563,6 +1838,19 @@ public class PointPlacemark extends WWObjectImpl
         return texture;
     }
 
+    /**
+     * Returns the texture for an image packed in this placemark's icon atlas.
+     *
+     * @param imageSource the image, or the path or URL to the image.
+     *
+     * @return the image's atlas texture, or null if this placemark has no icon atlas, or the image is not yet
+     *         available locally or does not fit in the atlas.
+     */
+    protected WWTexture getIconAtlasTexture(Object imageSource)
+    {
+        return this.getIconAtlas() != null ? this.getIconAtlas().getTexture(imageSource) : null;
+    }
+
     /**
      * Load a texture. If the texture source is not available locally, this method requests the texture source and
      * returns null.
@@ -1749,6 +2037,140 @@ public class PointPlacemark extends WWObjectImpl
         this.moveTo(refPos.add(delta));
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The placemark's image is represented by the screen rectangle in which it is drawn: the image's size scaled by the
+     * placemark's scale, and placed by the image offset. When the placemark is drawn as a point it is represented by a
+     * disc the size of the point. The label is not included.
+     */
+    public PickGeometry getPickGeometry(Globe globe, double verticalExaggeration)
+    {
+        if (globe == null)
+        {
+            String msg = Logging.getMessage("nullValue.GlobeIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (this.position == null)
+            return null;
+
+        PointPlacemarkAttributes attrs = this.getAttributes() != null ? this.getAttributes() : defaultAttributes;
+        Vec4 point = PickGeometry.computePoint(globe, verticalExaggeration, this.position, this.altitudeMode);
+
+        if (attrs.getImageAddress() == null && attrs.isUsePointAsDefaultImage())
+        {
+            double pointSize = attrs.getScale() != null ? attrs.getScale() : DEFAULT_POINT_SIZE;
+            return PickGeometry.fromPoint(point, 0.5 * pointSize);
+        }
+
+        return PickGeometry.fromScreenRectangle(point, this.computePickImageRectangle(attrs));
+    }
+
+    /**
+     * Computes the screen rectangle in which the placemark's image is drawn, relative to the placemark's point. The
+     * image, scale and offset are chosen as {@link #chooseTexture(PointPlacemarkAttributes)} chooses them, and the
+     * rectangle is placed as {@link #computeImageOffset(DrawContext)} places the image.
+     *
+     * @param attrs the attributes specifying the placemark image and properties.
+     *
+     * @return the image rectangle in pixels, with y increasing upward.
+     */
+    protected Rectangle2D computePickImageRectangle(PointPlacemarkAttributes attrs)
+    {
+        String address = attrs.getImageAddress();
+        BufferedImage image = attrs.getImage();
+        Offset offset = attrs.getImageOffset();
+        Double scale = attrs.getScale();
+
+        if (!attrs.isDrawImage())
+        {
+            address = TRANSPARENT_IMAGE_ADDRESS;
+            image = null;
+        }
+        else if (WWUtil.isEmpty(address))
+        {
+            // Use the default image if no other is defined.
+            address = defaultAttributes.getImageAddress();
+            image = null;
+            offset = defaultAttributes.getImageOffset();
+            scale = scale != null ? defaultAttributes.getScale() * scale : defaultAttributes.getScale();
+        }
+
+        Dimension size = image != null ? new Dimension(image.getWidth(), image.getHeight())
+            : this.getPickImageSize(address);
+        double w = size != null ? size.width : PICK_IMAGE_SIZE;
+        double h = size != null ? size.height : PICK_IMAGE_SIZE;
+
+        double x = 0;
+        double y = 0;
+        if (offset != null)
+        {
+            Point.Double p = offset.computeOffset(w, h, scale, scale);
+            x = -p.x;
+            y = -p.y;
+        }
+
+        double s = scale != null ? scale : 1;
+        return new Rectangle2D.Double(x, y, s * w, s * h);
+    }
+
+    /**
+     * Returns the size of an image used by this placemark, reading it from the image's header the first time it is
+     * requested.
+     *
+     * @param address the path or URL to the image.
+     *
+     * @return the image's size, or null if the image is not yet available locally or cannot be read.
+     */
+    protected Dimension getPickImageSize(String address)
+    {
+        Dimension size = pickImageSizes.get(address);
+        if (size != null)
+            return size;
+
+        URL localUrl = WorldWind.getDataFileStore().requestFile(address);
+        if (localUrl == null)
+            return null;
+
+        InputStream stream = null;
+        javax.imageio.stream.ImageInputStream iis = null;
+        try
+        {
+            stream = localUrl.openStream();
+            iis = javax.imageio.ImageIO.createImageInputStream(stream);
+            Iterator<javax.imageio.ImageReader> readers = javax.imageio.ImageIO.getImageReaders(iis);
+            if (!readers.hasNext())
+                return null;
+
+            javax.imageio.ImageReader reader = readers.next();
+            try
+            {
+                reader.setInput(iis, true, true);
+                size = new Dimension(reader.getWidth(0), reader.getHeight(0));
+            }
+            finally
+            {
+                reader.dispose();
+            }
+        }
+        catch (IOException e)
+        {
+            Logging.logger().log(java.util.logging.Level.FINE,
+                Logging.getMessage("generic.ExceptionAttemptingToReadImageFile", address), e);
+            return null;
+        }
+        finally
+        {
+            WWIO.closeStream(iis, address);
+            WWIO.closeStream(stream, address);
+        }
+
+        pickImageSizes.put(address, size);
+        return size;
+    }
+
     /** {@inheritDoc} */
     public void moveTo(Position position)
     {
@@ -0,0 +1,714 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.render;
+
+import com.jogamp.common.nio.Buffers;
+import com.jogamp.opengl.util.texture.TextureCoords;
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.exception.WWRuntimeException;
+import gov.nasa.worldwind.util.*;
+
+import com.jogamp.opengl.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.nio.*;
+import java.util.*;
+import java.util.List;
+
+/**
+ * Packs {@link PointPlacemark} icons into shared texture atlas pages so that placemarks with different icons can be
+ * drawn without binding a texture per placemark. Placemarks use an icon atlas when one is assigned to them by {@link
+ * PointPlacemark#setIconAtlas(PointPlacemarkIconAtlas)}; the placemarks of a layer typically share one.
+ * <p>
+ * Icons are added to the first page with room for them. A new page is created when every page is full, up to the
+ * atlas' maximum page count. After that the last page evicts its least recently used icons to make room, and an
+ * evicted icon is added again the next time it is drawn.
+ * <p>
+ * During batch rendering, placemarks add their icons to the atlas' {@link DrawList}, which draws the icons of each page
+ * with one draw call. Because icons of all sizes and sources share the pages, the number of draw calls depends on the
+ * number of pages rather than on the variety of icons. Icons are drawn back to front within a page, but the icons of
+ * one page are drawn before those of the next, so where icons from different pages overlap the later page's icon is
+ * drawn on top. The default page size holds several hundred typical icons, so most scenes use one page.
+ * <p>
+ * An icon atlas must be used only on the rendering thread.
+ *
+ * @version $Id$
+ */
+public class PointPlacemarkIconAtlas
+{
+    /** The default initial height of an atlas page, in pixels. */
+    public static final int DEFAULT_INITIAL_PAGE_HEIGHT = 256;
+    /** The default maximum width and height of an atlas page, in pixels. */
+    public static final int DEFAULT_MAX_PAGE_SIZE = 2048;
+    /** The default maximum number of atlas pages. */
+    public static final int DEFAULT_MAX_PAGE_COUNT = 4;
+
+    /** A texture atlas page that reports when it is full rather than logging an error. */
+    protected static class Page extends TextureAtlas
+    {
+        /** The page's position in the atlas' list of pages. */
+        protected final int index;
+        /** Indicates that an icon did not fit in this page and no icon has been removed since. */
+        protected boolean full;
+
+        public Page(int index, int width, int initialHeight, int maxHeight)
+        {
+            // The rectangle packer grows the backing image only in height, so pages start at their full width.
+            super(width, initialHeight, width, maxHeight);
+            this.index = index;
+        }
+
+        /**
+         * Adds an image to this page if there is room for it.
+         *
+         * @param key   the image's key.
+         * @param image the image.
+         *
+         * @return true if the image was added, and false if this page is full.
+         */
+        public boolean tryAdd(Object key, BufferedImage image)
+        {
+            if (this.full && !this.isEvictOldElements())
+                return false;
+
+            try
+            {
+                this.doAdd(key, image);
+                return true;
+            }
+            catch (WWRuntimeException e)
+            {
+                // The entry is added to the map before the rectangle packer fails to place it.
+                this.entryMap.remove(key);
+                this.full = true;
+                return false;
+            }
+        }
+
+        @Override
+        protected void doRemove(Entry entry)
+        {
+            super.doRemove(entry);
+            this.full = false;
+        }
+    }
+
+    /** An icon image that adds itself to the atlas page with room for it. */
+    protected class IconElement extends TextureAtlasElement
+    {
+        protected int width;
+        protected int height;
+
+        public IconElement(Page page, Object imageSource)
+        {
+            super(page, imageSource);
+        }
+
+        /**
+         * {@inheritDoc}
+         * <p>
+         * Reads local image files on the calling thread, as {@link BasicWWTexture} does, so that the icon is drawn in
+         * the first frame it is available.
+         */
+        @Override
+        protected boolean requestImage(DrawContext dc)
+        {
+            if (!this.isBufferedImageSource() && this.getImage() == null && !this.loadImage())
+                return false;
+
+            return super.requestImage(dc);
+        }
+
+        @Override
+        protected boolean addAtlasImage()
+        {
+            BufferedImage image = this.getImage();
+            if (image == null)
+                return super.addAtlasImage(); // throws an exception
+
+            Page page = PointPlacemarkIconAtlas.this.addImage(this.getImageSource(), image, (Page) this.atlas);
+            if (page == null)
+            {
+                String msg = Logging.getMessage("TextureAtlas.ImageTooLarge", this.getImageSource());
+                Logging.logger().warning(msg);
+                this.imageInitializationFailed = true;
+                return false;
+            }
+
+            this.atlas = page;
+            this.width = image.getWidth();
+            this.height = image.getHeight();
+            this.setImage(null);
+            return true;
+        }
+    }
+
+    /** A placemark texture whose image is an element of the icon atlas. */
+    public class IconTexture implements WWTexture
+    {
+        protected final IconElement element;
+
+        protected IconTexture(IconElement element)
+        {
+            this.element = element;
+        }
+
+        /**
+         * Returns the icon atlas containing this texture.
+         *
+         * @return this texture's icon atlas.
+         */
+        public PointPlacemarkIconAtlas getAtlas()
+        {
+            return PointPlacemarkIconAtlas.this;
+        }
+
+        /**
+         * Adds this texture's image to the icon atlas if it is not already there.
+         *
+         * @param dc the current draw context.
+         *
+         * @return true if the image is in the atlas, otherwise false.
+         */
+        public boolean load(DrawContext dc)
+        {
+            return this.element.load(dc);
+        }
+
+        public Object getImageSource()
+        {
+            return this.element.getImageSource();
+        }
+
+        /** Binds the atlas page containing this texture's image. Returns false if the image is not available. */
+        public boolean bind(DrawContext dc)
+        {
+            return this.load(dc) && this.element.getTextureAtlas().bind(dc);
+        }
+
+        public void applyInternalTransform(DrawContext dc)
+        {
+        }
+
+        public boolean isTextureCurrent(DrawContext dc)
+        {
+            return this.element.getTextureAtlas().contains(this.getImageSource());
+        }
+
+        public int getWidth(DrawContext dc)
+        {
+            return this.load(dc) ? this.element.width : 0;
+        }
+
+        public int getHeight(DrawContext dc)
+        {
+            return this.load(dc) ? this.element.height : 0;
+        }
+
+        /** Returns the texture coordinates of this texture's image within its atlas page. */
+        public TextureCoords getTexCoords()
+        {
+            return this.element.getTexCoords();
+        }
+
+        public boolean isTextureInitializationFailed()
+        {
+            return this.element.isImageInitializationFailed();
+        }
+    }
+
+    /**
+     * Screen-space icon quads collected during batch rendering and drawn with one draw call per atlas page. The icons
+     * of a page are drawn in the order they were added. Adding icons and preparing the list for drawing does not
+     * require OpenGL.
+     */
+    public static class DrawList
+    {
+        protected static final int INITIAL_CAPACITY = 256;
+
+        protected int count;
+        protected IconTexture[] textures = new IconTexture[INITIAL_CAPACITY];
+        protected FloatBuffer vertices = Buffers.newDirectFloatBuffer(12 * INITIAL_CAPACITY);
+        protected FloatBuffer texCoords = Buffers.newDirectFloatBuffer(8 * INITIAL_CAPACITY);
+        protected ByteBuffer colors = Buffers.newDirectByteBuffer(16 * INITIAL_CAPACITY);
+        // Quad vertex indices grouped by page, and each page's range of quads, determined by prepare.
+        protected IntBuffer indices = Buffers.newDirectIntBuffer(4 * INITIAL_CAPACITY);
+        protected int[] quadPages = new int[INITIAL_CAPACITY];
+        protected int runCount;
+        protected Page[] runPages = new Page[4];
+        protected int[] runFirsts = new int[4];
+        protected int[] runCounts = new int[4];
+        protected final OGLStackHandler osh = new OGLStackHandler();
+
+        /** Creates an empty draw list. */
+        public DrawList()
+        {
+        }
+
+        /**
+         * Returns the number of icons in this draw list.
+         *
+         * @return the number of icons added since the list was last cleared.
+         */
+        public int getIconCount()
+        {
+            return this.count;
+        }
+
+        /**
+         * Returns the number of draw calls this draw list makes. Valid after {@link #prepare(DrawContext)}.
+         *
+         * @return the number of atlas pages containing the icons.
+         */
+        public int getDrawCallCount()
+        {
+            return this.runCount;
+        }
+
+        /**
+         * Indicates whether this draw list is empty.
+         *
+         * @return true if this draw list contains no icons, otherwise false.
+         */
+        public boolean isEmpty()
+        {
+            return this.count == 0;
+        }
+
+        /** Removes all icons from this draw list. */
+        public void clear()
+        {
+            Arrays.fill(this.textures, 0, this.count, null);
+            Arrays.fill(this.runPages, 0, this.runCount, null);
+            this.count = 0;
+            this.runCount = 0;
+        }
+
+        /**
+         * Adds an icon to this draw list. The icon is a rectangle in screen coordinates, optionally rotated about its
+         * center, drawn at a single depth.
+         *
+         * @param texture  the icon's texture. Must be an {@link IconTexture}.
+         * @param x        the screen x coordinate of the rectangle's lower left corner.
+         * @param y        the screen y coordinate of the rectangle's lower left corner.
+         * @param width    the rectangle's width.
+         * @param height   the rectangle's height.
+         * @param rotation the counter-clockwise rotation about the rectangle's center, in degrees.
+         * @param depth    the window depth the icon is drawn at, in the range [0, 1].
+         * @param color    the color the icon's texture is modulated by.
+         *
+         * @throws IllegalArgumentException if the texture is not an icon texture or the color is null.
+         */
+        public void addIcon(WWTexture texture, double x, double y, double width, double height, double rotation,
+            double depth, Color color)
+        {
+            if (!(texture instanceof IconTexture))
+            {
+                String msg = Logging.getMessage("generic.UnrecognizedDataType", texture);
+                Logging.logger().severe(msg);
+                throw new IllegalArgumentException(msg);
+            }
+
+            if (color == null)
+            {
+                String msg = Logging.getMessage("nullValue.ColorIsNull");
+                Logging.logger().severe(msg);
+                throw new IllegalArgumentException(msg);
+            }
+
+            if (this.count == this.textures.length)
+                this.grow();
+
+            int i = this.count++;
+            this.textures[i] = (IconTexture) texture;
+
+            // Unit quad corners (0, 0), (1, 0), (1, 1) and (0, 1), scaled and rotated about the rectangle's center.
+            double hw = 0.5 * width;
+            double hh = 0.5 * height;
+            double cx = x + hw;
+            double cy = y + hh;
+            double cos = 1, sin = 0;
+            if (rotation != 0)
+            {
+                double radians = Math.toRadians(rotation);
+                cos = Math.cos(radians);
+                sin = Math.sin(radians);
+            }
+
+            FloatBuffer v = this.vertices;
+            int vi = 12 * i;
+            float z = (float) depth;
+            v.put(vi, (float) (cx - hw * cos + hh * sin)).put(vi + 1, (float) (cy - hw * sin - hh * cos)).put(vi + 2, z);
+            v.put(vi + 3, (float) (cx + hw * cos + hh * sin)).put(vi + 4, (float) (cy + hw * sin - hh * cos));
+            v.put(vi + 5, z);
+            v.put(vi + 6, (float) (cx + hw * cos - hh * sin)).put(vi + 7, (float) (cy + hw * sin + hh * cos));
+            v.put(vi + 8, z);
+            v.put(vi + 9, (float) (cx - hw * cos - hh * sin)).put(vi + 10, (float) (cy - hw * sin + hh * cos));
+            v.put(vi + 11, z);
+
+            ByteBuffer c = this.colors;
+            byte r = (byte) color.getRed(), g = (byte) color.getGreen(), b = (byte) color.getBlue();
+            byte a = (byte) color.getAlpha();
+            for (int ci = 16 * i; ci < 16 * i + 16; ci += 4)
+            {
+                c.put(ci, r).put(ci + 1, g).put(ci + 2, b).put(ci + 3, a);
+            }
+        }
+
+        /**
+         * Adds the icons' images to their atlas pages if they have been evicted, computes the icons' texture
+         * coordinates, and groups the icons by page. Texture coordinates are computed only after every image is in
+         * place, because adding an image may move the others. Icons whose image is not available are not drawn.
+         *
+         * @param dc the current draw context.
+         *
+         * @return true if any icon can be drawn, otherwise false.
+         */
+        public boolean prepare(DrawContext dc)
+        {
+            for (int i = 0; i < this.count; i++)
+            {
+                this.textures[i].load(dc);
+            }
+
+            Arrays.fill(this.runPages, 0, this.runCount, null);
+            Arrays.fill(this.runCounts, 0);
+            this.runCount = 0;
+
+            FloatBuffer t = this.texCoords;
+            for (int i = 0; i < this.count; i++)
+            {
+                IconTexture texture = this.textures[i];
+                TextureCoords tc = texture.getTexCoords(); // null if the image is not in the atlas
+                if (tc == null)
+                {
+                    this.quadPages[i] = -1;
+                    continue;
+                }
+
+                int ti = 8 * i;
+                t.put(ti, tc.left()).put(ti + 1, tc.bottom()).put(ti + 2, tc.right()).put(ti + 3, tc.bottom());
+                t.put(ti + 4, tc.right()).put(ti + 5, tc.top()).put(ti + 6, tc.left()).put(ti + 7, tc.top());
+
+                Page page = (Page) texture.element.getTextureAtlas();
+                if (page.index >= this.runPages.length)
+                {
+                    int length = Math.max(2 * this.runPages.length, page.index + 1);
+                    this.runPages = Arrays.copyOf(this.runPages, length);
+                    this.runFirsts = Arrays.copyOf(this.runFirsts, length);
+                    this.runCounts = Arrays.copyOf(this.runCounts, length);
+                }
+
+                this.quadPages[i] = page.index;
+                this.runPages[page.index] = page;
+                this.runCounts[page.index]++;
+                this.runCount = Math.max(this.runCount, page.index + 1);
+            }
+
+            // Compute each page's range of quads, then place the quads' vertex indices in their page's range, keeping
+            // the order the icons were added within each page.
+            int first = 0;
+            for (int p = 0; p < this.runCount; p++)
+            {
+                this.runFirsts[p] = first;
+                first += this.runCounts[p];
+            }
+
+            IntBuffer indices = this.indices;
+            for (int i = 0; i < this.count; i++)
+            {
+                int p = this.quadPages[i];
+                if (p < 0)
+                    continue;
+
+                int ii = 4 * this.runFirsts[p]++;
+                indices.put(ii, 4 * i).put(ii + 1, 4 * i + 1).put(ii + 2, 4 * i + 2).put(ii + 3, 4 * i + 3);
+            }
+
+            // Restore each page's first quad, and remove pages with no icons.
+            int numRuns = 0;
+            for (int p = 0; p < this.runCount; p++)
+            {
+                if (this.runCounts[p] == 0)
+                    continue;
+
+                this.runPages[numRuns] = this.runPages[p];
+                this.runCounts[numRuns] = this.runCounts[p];
+                this.runFirsts[numRuns] = this.runFirsts[p] - this.runCounts[p];
+                numRuns++;
+            }
+
+            Arrays.fill(this.runPages, numRuns, this.runCount, null);
+            Arrays.fill(this.runCounts, numRuns, this.runCount, 0);
+            this.runCount = numRuns;
+
+            return this.runCount > 0;
+        }
+
+        /**
+         * Prepares and draws this draw list's icons. The caller establishes the projection, depth and blending state;
+         * icon vertices are in screen coordinates with the window depth as their z coordinate.
+         *
+         * @param dc the current draw context.
+         */
+        public void draw(DrawContext dc)
+        {
+            if (this.count == 0 || !this.prepare(dc))
+                return;
+
+            GL2 gl = dc.getGL().getGL2(); // GL initialization checks for GL2 compatibility.
+
+            this.osh.clear();
+            this.osh.pushClientAttrib(gl, GL2.GL_CLIENT_VERTEX_ARRAY_BIT);
+            try
+            {
+                gl.glEnableClientState(GL2.GL_VERTEX_ARRAY);
+                gl.glEnableClientState(GL2.GL_TEXTURE_COORD_ARRAY);
+                gl.glEnableClientState(GL2.GL_COLOR_ARRAY);
+                gl.glVertexPointer(3, GL.GL_FLOAT, 0, this.vertices.rewind());
+                gl.glTexCoordPointer(2, GL.GL_FLOAT, 0, this.texCoords.rewind());
+                gl.glColorPointer(4, GL.GL_UNSIGNED_BYTE, 0, this.colors.rewind());
+
+                for (int i = 0; i < this.runCount; i++)
+                {
+                    if (this.runPages[i].bind(dc))
+                    {
+                        this.indices.position(4 * this.runFirsts[i]);
+                        gl.glDrawElements(GL2.GL_QUADS, 4 * this.runCounts[i], GL.GL_UNSIGNED_INT, this.indices);
+                    }
+                }
+            }
+            finally
+            {
+                this.osh.pop(gl);
+            }
+        }
+
+        protected void grow()
+        {
+            int capacity = 2 * this.textures.length;
+            this.textures = Arrays.copyOf(this.textures, capacity);
+
+            FloatBuffer newVertices = Buffers.newDirectFloatBuffer(12 * capacity);
+            newVertices.put(this.vertices.rewind());
+            this.vertices = newVertices;
+
+            this.texCoords = Buffers.newDirectFloatBuffer(8 * capacity); // computed by prepare
+            this.indices = Buffers.newDirectIntBuffer(4 * capacity);
+            this.quadPages = new int[capacity];
+
+            ByteBuffer newColors = Buffers.newDirectByteBuffer(16 * capacity);
+            newColors.put(this.colors.rewind());
+            this.colors = newColors;
+        }
+    }
+
+    protected final int initialPageHeight;
+    protected final int maxPageSize;
+    protected final int maxPageCount;
+    protected final List<Page> pages = new ArrayList<Page>();
+    protected final Map<Object, IconTexture> textures = new HashMap<Object, IconTexture>();
+    protected final DrawList drawList = new DrawList();
+    protected final GlyphTextBatch labelBatch = new GlyphTextBatch();
+
+    /** Creates an icon atlas with the default page sizes and maximum page count. */
+    public PointPlacemarkIconAtlas()
+    {
+        this(DEFAULT_INITIAL_PAGE_HEIGHT, DEFAULT_MAX_PAGE_SIZE, DEFAULT_MAX_PAGE_COUNT);
+    }
+
+    /**
+     * Creates an icon atlas. Pages are as wide as their maximum size from the start, and grow in height as icons are
+     * added.
+     *
+     * @param initialPageHeight the initial height of each page, in pixels.
+     * @param maxPageSize       the width of each page, and the height each page can grow to, in pixels.
+     * @param maxPageCount      the maximum number of pages.
+     *
+     * @throws IllegalArgumentException if any argument is less than 1, or the maximum page size is less than the
+     *                                  initial page height.
+     */
+    public PointPlacemarkIconAtlas(int initialPageHeight, int maxPageSize, int maxPageCount)
+    {
+        if (initialPageHeight < 1 || maxPageSize < initialPageHeight)
+        {
+            String msg = Logging.getMessage("generic.ArgumentOutOfRange", "pageSize");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (maxPageCount < 1)
+        {
+            String msg = Logging.getMessage("generic.ArgumentOutOfRange", "maxPageCount");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        this.initialPageHeight = initialPageHeight;
+        this.maxPageSize = maxPageSize;
+        this.maxPageCount = maxPageCount;
+        this.pages.add(this.createPage());
+    }
+
+    /**
+     * Returns the maximum number of pages this atlas creates.
+     *
+     * @return this atlas' maximum page count.
+     */
+    public int getMaxPageCount()
+    {
+        return this.maxPageCount;
+    }
+
+    /**
+     * Returns the number of pages this atlas has created.
+     *
+     * @return this atlas' page count.
+     */
+    public int getPageCount()
+    {
+        return this.pages.size();
+    }
+
+    /**
+     * Returns the number of icons currently packed in this atlas' pages.
+     *
+     * @return the number of icons in the atlas.
+     */
+    public int getIconCount()
+    {
+        int n = 0;
+        for (Page page : this.pages)
+        {
+            n += page.getNumElements();
+        }
+
+        return n;
+    }
+
+    /**
+     * Returns the draw list placemarks using this atlas add their icons to during batch rendering.
+     *
+     * @return this atlas' draw list.
+     */
+    public DrawList getDrawList()
+    {
+        return this.drawList;
+    }
+
+    /**
+     * Returns the text batch placemarks using this atlas draw their labels with during batch rendering.
+     *
+     * @return this atlas' label batch.
+     */
+    public GlyphTextBatch getLabelBatch()
+    {
+        return this.labelBatch;
+    }
+
+    /**
+     * Returns the texture for an icon image. The texture is shared by all placemarks that use the image. If the image
+     * source is neither a BufferedImage nor available locally, this requests it and returns null.
+     *
+     * @param imageSource the icon image, or the path or URL to the image.
+     *
+     * @return the icon's texture, or null if the image is not yet available or cannot be read.
+     *
+     * @throws IllegalArgumentException if the image source is null.
+     */
+    public WWTexture getTexture(Object imageSource)
+    {
+        if (imageSource == null)
+        {
+            String msg = Logging.getMessage("nullValue.ImageSource");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        IconTexture texture = this.textures.get(imageSource);
+        if (texture == null)
+        {
+            if (!(imageSource instanceof BufferedImage)
+                && WorldWind.getDataFileStore().requestFile(imageSource.toString()) == null)
+                return null;
+
+            texture = new IconTexture(new IconElement(this.pages.get(0), imageSource));
+            this.textures.put(imageSource, texture);
+        }
+
+        return texture.isTextureInitializationFailed() ? null : texture;
+    }
+
+    /**
+     * Adds an image to the first page with room for it, trying the page it was last in first. Creates a new page if
+     * there is no room and the atlas has fewer than its maximum number of pages, and otherwise evicts the least
+     * recently used images from the last page.
+     *
+     * @param key           the image's key.
+     * @param image         the image.
+     * @param preferredPage the page the image was last in. May be null.
+     *
+     * @return the page the image was added to, or null if the image is larger than a page.
+     */
+    protected Page addImage(Object key, BufferedImage image, Page preferredPage)
+    {
+        // TextureAtlas adds a 1 pixel border around each image.
+        if (image.getWidth() + 2 > this.maxPageSize || image.getHeight() + 2 > this.maxPageSize)
+            return null;
+
+        if (preferredPage != null && preferredPage.tryAdd(key, image))
+            return preferredPage;
+
+        for (Page page : this.pages)
+        {
+            if (page != preferredPage && page.tryAdd(key, image))
+                return page;
+        }
+
+        Page page;
+        if (this.pages.size() < this.maxPageCount)
+        {
+            page = this.createPage();
+            this.pages.add(page);
+        }
+        else
+        {
+            page = this.pages.get(this.pages.size() - 1);
+            page.setEvictOldElements(true);
+        }
+
+        return page.tryAdd(key, image) ? page : null;
+    }
+
+    protected Page createPage()
+    {
+        return new Page(this.pages.size(), this.maxPageSize, this.initialPageHeight, this.maxPageSize);
+    }
+}
@@ -37,6 +37,7 @@ import gov.nasa.worldwind.geom.*;
 import gov.nasa.worldwind.geom.Box;
 import gov.nasa.worldwind.globes.Globe;
 import gov.nasa.worldwind.ogc.kml.impl.KMLExportUtil;
+import gov.nasa.worldwind.pick.*;
 import gov.nasa.worldwind.terrain.Terrain;
 import gov.nasa.worldwind.util.*;
 
@@ -62,7 +63,7 @@ import java.util.*;
  * @author tag
  * @version $Id: Polygon.java 3431 2015-10-01 04:29:15Z dcollins $
  */
-public class Polygon extends AbstractShape
+public class Polygon extends AbstractShape implements GeometricPickable
 {
     // TODO: Merge texture coordinates into the vertex+normal buffer rather than specifying them in a separate buffer.
     // TODO: Tessellate polygon's interior to follow globe curvature when in ABSOLUTE altitude mode.
@@ -485,6 +486,41 @@ public class Polygon extends AbstractShape
         return retCoords;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The polygon's boundaries are connected by straight lines in model coordinates. The interior is picked if the
+     * polygon's attributes draw the interior; the outline is picked within the polygon's outline pick width.
+     */
+    public PickGeometry getPickGeometry(Globe globe, double verticalExaggeration)
+    {
+        if (globe == null)
+        {
+            String msg = Logging.getMessage("nullValue.GlobeIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        List<List<? extends Position>> boundaries = this.getBoundaries();
+        if (boundaries == null || boundaries.isEmpty())
+            return null;
+
+        List<List<Vec4>> rings = new ArrayList<List<Vec4>>(boundaries.size());
+        for (List<? extends Position> boundary : boundaries)
+        {
+            List<Vec4> ring = new ArrayList<Vec4>(boundary.size());
+            for (Position position : boundary)
+            {
+                ring.add(PickGeometry.computePoint(globe, verticalExaggeration, position, this.getAltitudeMode()));
+            }
+            rings.add(ring);
+        }
+
+        ShapeAttributes attrs = this.getAttributes() != null ? this.getAttributes() : defaultAttributes;
+        double width = Math.max(attrs.getOutlineWidth(), this.getOutlinePickWidth());
+        return attrs.isDrawInterior() ? PickGeometry.fromPolygon(rings, width) : PickGeometry.fromLines(rings, width);
+    }
+
     /**
      * Specifies the texture to apply to this polygon.
      *
@@ -724,6 +760,12 @@ public class Polygon extends AbstractShape
         return this.getCurrent().coordBuffer != null && this.isOuterBoundaryValid();
     }
 
+    @Override
+    protected boolean isAsyncGeometrySupported()
+    {
+        return true;
+    }
+
     protected OGLStackHandler beginDrawing(DrawContext dc, int attrMask)
     {
         OGLStackHandler ogsh = super.beginDrawing(dc, attrMask);
@@ -0,0 +1,432 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.render;
+
+import gov.nasa.worldwind.View;
+import gov.nasa.worldwind.util.Logging;
+import gov.nasa.worldwind.view.BasicView;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.logging.Level;
+
+/**
+ * Regenerates the geometry of {@link AbstractShape}s on a pool of worker threads rather than on the rendering thread.
+ * A shape uses a scheduler once one is attached with {@link AbstractShape#setGeometryScheduler(ShapeGeometryScheduler)}.
+ * Shapes that share a scheduler share its worker threads and its publishing budget.
+ * <p>
+ * When an attached shape's geometry expires, or becomes invalid because the vertical exaggeration or the globe
+ * changed, the shape continues to draw its previous geometry and hands the regeneration to this scheduler. A worker
+ * thread computes the new geometry into a new cache entry, using a snapshot of the draw context and view taken on the
+ * rendering thread when the request was made. Workers never touch OpenGL or the GPU resource cache.
+ * <p>
+ * A completed entry is published the next time the shape is rendered: the shape's cache entry is replaced, its vertex
+ * buffer objects are filled and its regeneration timer is restarted, all on the rendering thread. At most {@link
+ * #getPublishBudget()} entries are published per frame; shapes over the budget keep drawing their previous geometry
+ * and publish on a subsequent frame. This bounds the per-frame cost of a change that invalidates many shapes at once,
+ * such as a change of vertical exaggeration.
+ *
+ * @version $Id$
+ * @see AbstractShape#setGeometryScheduler(ShapeGeometryScheduler)
+ */
+public class ShapeGeometryScheduler
+{
+    protected static final int DEFAULT_PUBLISH_BUDGET = 500;
+
+    protected final ThreadPoolExecutor executor;
+    protected final int poolSize;
+    protected int publishBudget = DEFAULT_PUBLISH_BUDGET;
+
+    // Rendering thread state.
+    protected DrawContext snapshot;
+    protected DrawContext snapshotSource;
+    protected long snapshotFrame = -1;
+    protected long publishFrame = -1;
+    protected int publishedInFrame;
+
+    protected final AtomicInteger pendingCount = new AtomicInteger();
+    protected final AtomicLong generatedCount = new AtomicLong();
+    protected final AtomicLong publishedCount = new AtomicLong();
+
+    /** Creates a scheduler with one worker thread per available processor, less one for the rendering thread. */
+    public ShapeGeometryScheduler()
+    {
+        this(Math.max(Runtime.getRuntime().availableProcessors() - 1, 1));
+    }
+
+    /**
+     * Creates a scheduler with a specified number of worker threads.
+     *
+     * @param poolSize the number of worker threads.
+     *
+     * @throws IllegalArgumentException if the pool size is less than 1.
+     */
+    public ShapeGeometryScheduler(int poolSize)
+    {
+        if (poolSize < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "poolSize < 1");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.poolSize = poolSize;
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 2, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), // bounded by the number of shapes, each has at most one request
+            new ThreadFactory()
+            {
+                public Thread newThread(Runnable runnable)
+                {
+                    Thread thread = new Thread(runnable, "Shape Geometry Generation");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                }
+            });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Returns the number of worker threads.
+     *
+     * @return the number of worker threads.
+     */
+    public int getPoolSize()
+    {
+        return this.poolSize;
+    }
+
+    /**
+     * Returns the maximum number of regenerated shapes published per frame.
+     *
+     * @return the publishing budget.
+     */
+    public int getPublishBudget()
+    {
+        return this.publishBudget;
+    }
+
+    /**
+     * Specifies the maximum number of regenerated shapes published per frame. Each publication replaces a shape's
+     * cache entry and, when vertex buffer objects are in use, uploads the shape's vertices.
+     *
+     * @param publishBudget the publishing budget.
+     *
+     * @throws IllegalArgumentException if the budget is less than 1.
+     */
+    public void setPublishBudget(int publishBudget)
+    {
+        if (publishBudget < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "publishBudget < 1");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.publishBudget = publishBudget;
+    }
+
+    /**
+     * Returns the number of regeneration requests that are queued or running.
+     *
+     * @return the number of pending requests.
+     */
+    public int getPendingCount()
+    {
+        return this.pendingCount.get();
+    }
+
+    /**
+     * Returns the number of regeneration requests the scheduler's workers have completed.
+     *
+     * @return the number of completed requests.
+     */
+    public long getGeneratedCount()
+    {
+        return this.generatedCount.get();
+    }
+
+    /**
+     * Returns the number of regenerated cache entries that shapes have published.
+     *
+     * @return the number of published entries.
+     */
+    public long getPublishedCount()
+    {
+        return this.publishedCount.get();
+    }
+
+    /**
+     * Stops the scheduler's worker threads. Queued requests are discarded. Shapes whose requests are discarded keep
+     * their previous geometry until they are detached from the scheduler.
+     */
+    public void shutdown()
+    {
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Queues the regeneration of a shape's geometry and makes the request the shape's current request. Called on the
+     * rendering thread.
+     *
+     * @param shape the shape whose geometry to regenerate.
+     * @param dc    the current draw context.
+     *
+     * @return true if the request was queued, false if the scheduler has been shut down.
+     */
+    protected boolean requestGeometry(AbstractShape shape, DrawContext dc)
+    {
+        if (this.executor.isShutdown())
+            return false;
+
+        // The shape must identify the request before a worker can start it. See AbstractShape.getCurrentData.
+        shape.geometryRequest = new Request(shape, this.getSnapshot(dc));
+        this.pendingCount.incrementAndGet();
+        try
+        {
+            this.executor.execute(shape.geometryRequest);
+            return true;
+        }
+        catch (RejectedExecutionException e)
+        {
+            shape.geometryRequest = null;
+            this.pendingCount.decrementAndGet();
+            return false;
+        }
+    }
+
+    /**
+     * Determines whether a shape may publish a regenerated cache entry in the current frame, and if so, counts the
+     * publication against the frame's budget. Called on the rendering thread.
+     *
+     * @param dc the current draw context.
+     *
+     * @return true if the shape may publish its entry, otherwise false.
+     */
+    protected synchronized boolean acquirePublishPermit(DrawContext dc)
+    {
+        if (dc.getFrameTimeStamp() != this.publishFrame)
+        {
+            this.publishFrame = dc.getFrameTimeStamp();
+            this.publishedInFrame = 0;
+        }
+
+        if (this.publishedInFrame >= this.publishBudget)
+            return false;
+
+        this.publishedInFrame++;
+        this.publishedCount.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Returns the draw context snapshot for the current frame, creating it if it doesn't yet exist. All requests made
+     * during a frame share that frame's snapshot.
+     *
+     * @param dc the current draw context.
+     *
+     * @return the snapshot.
+     */
+    protected synchronized DrawContext getSnapshot(DrawContext dc)
+    {
+        if (this.snapshot == null || this.snapshotSource != dc || this.snapshotFrame != dc.getFrameTimeStamp()
+            || this.snapshot.getVerticalExaggeration() != dc.getVerticalExaggeration()
+            || this.snapshot.getGlobe() != dc.getGlobe())
+        {
+            this.snapshot = this.createSnapshot(dc);
+            this.snapshotSource = dc;
+            this.snapshotFrame = dc.getFrameTimeStamp();
+        }
+
+        return this.snapshot;
+    }
+
+    /**
+     * Creates a draw context holding the state of a specified draw context that shape geometry generation depends
+     * on: the model, globe, view, vertical exaggeration, surface geometry and frame time. Vertex buffer objects are
+     * disabled in the snapshot so that worker threads never use the GPU resource cache.
+     *
+     * @param dc the draw context to copy.
+     *
+     * @return the snapshot.
+     */
+    protected DrawContext createSnapshot(DrawContext dc)
+    {
+        GLRuntimeCapabilities caps = new GLRuntimeCapabilities();
+        caps.setVertexBufferObjectEnabled(false);
+
+        DrawContext snapshot = new DrawContextImpl();
+        snapshot.setModel(dc.getModel());
+        snapshot.setVerticalExaggeration(dc.getVerticalExaggeration());
+        snapshot.setSurfaceGeometry(dc.getSurfaceGeometry());
+        snapshot.setFrameTimeStamp(dc.getFrameTimeStamp());
+        snapshot.setGLRuntimeCapabilities(caps);
+        snapshot.setView(new ViewSnapshot(dc.getView()));
+
+        return snapshot;
+    }
+
+    /**
+     * Called on a worker thread to regenerate a shape's geometry.
+     *
+     * @param request the request to perform.
+     */
+    protected void generateGeometry(Request request)
+    {
+        request.thread = Thread.currentThread();
+        try
+        {
+            request.data = request.shape.createCacheEntry(request.dc);
+            request.result = request.shape.doMakeOrderedRenderable(request.dc);
+        }
+        catch (Throwable t)
+        {
+            String message = Logging.getMessage("ShapeGeometryScheduler.ExceptionGeneratingGeometry", request.shape);
+            Logging.logger().log(Level.SEVERE, message, t);
+            request.data = null;
+        }
+        finally
+        {
+            request.thread = null;
+        }
+    }
+
+    /**
+     * A shape's geometry regeneration. A request is queued or running until {@link #isDone()} returns true, after
+     * which the shape publishes or discards it.
+     */
+    protected class Request implements Runnable
+    {
+        protected final AbstractShape shape;
+        /** The draw context snapshot the geometry is generated against. */
+        protected final DrawContext dc;
+        /** The worker thread generating the geometry, or null if generation is not running. */
+        protected Thread thread;
+        /** The regenerated cache entry. Null until generation completes, or if generation failed. */
+        protected AbstractShape.AbstractShapeData data;
+        /** The value returned by the shape's doMakeOrderedRenderable method. */
+        protected boolean result;
+        protected volatile boolean done;
+        protected volatile boolean discarded;
+
+        public Request(AbstractShape shape, DrawContext dc)
+        {
+            this.shape = shape;
+            this.dc = dc;
+        }
+
+        public void run()
+        {
+            try
+            {
+                if (!this.discarded && !Thread.currentThread().isInterrupted())
+                    generateGeometry(this);
+            }
+            finally
+            {
+                this.done = true;
+                generatedCount.incrementAndGet();
+                pendingCount.decrementAndGet();
+            }
+        }
+
+        /**
+         * Indicates whether the calling thread is the worker thread generating this request's geometry.
+         *
+         * @return true if the calling thread is generating this request's geometry, otherwise false.
+         */
+        public boolean isGeneratingThread()
+        {
+            return this.thread == Thread.currentThread();
+        }
+
+        public boolean isDone()
+        {
+            return this.done;
+        }
+
+        public boolean isDiscarded()
+        {
+            return this.discarded;
+        }
+
+        /**
+         * Marks this request's result as out of date. A discarded request is not published, and is not generated if
+         * it has not yet started.
+         */
+        public void discard()
+        {
+            this.discarded = true;
+        }
+
+        public ShapeGeometryScheduler getScheduler()
+        {
+            return ShapeGeometryScheduler.this;
+        }
+
+        public String toString()
+        {
+            return this.shape.toString();
+        }
+    }
+
+    /**
+     * A view whose state is copied from another view at the time of construction and does not change. Used by worker
+     * threads in place of the rendering thread's view, whose state changes every frame.
+     */
+    protected static class ViewSnapshot extends BasicView
+    {
+        public ViewSnapshot(View view)
+        {
+            this.globe = view.getGlobe();
+            this.modelview = view.getModelviewMatrix();
+            this.modelviewInv = this.modelview.getInverse();
+            this.projection = view.getProjectionMatrix();
+            this.viewport = new java.awt.Rectangle(view.getViewport());
+            this.frustum = view.getFrustum();
+            this.fieldOfView = view.getFieldOfView();
+            this.nearClipDistance = view.getNearClipDistance();
+            this.farClipDistance = view.getFarClipDistance();
+            this.horizonDistance = view.getHorizonDistance();
+            this.heading = view.getHeading();
+            this.pitch = view.getPitch();
+            this.roll = view.getRoll();
+            this.viewStateID = view.getViewStateID();
+
+            // Establish the values BasicView otherwise computes lazily, so that concurrent readers don't race to.
+            this.eyePosition = view.getEyePosition();
+            this.lastEyePosition = view.getEyePosition();
+            this.lastEyePoint = view.getEyePoint();
+            this.lastUpVector = view.getUpVector();
+            this.lastForwardVector = view.getForwardVector();
+            this.lastFrustumInModelCoords = view.getFrustumInModelCoordinates();
+        }
+    }
+}
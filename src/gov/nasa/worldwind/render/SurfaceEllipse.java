@@ -453,7 +453,7 @@ public class SurfaceEllipse extends AbstractSurfaceShape
         return Arrays.asList(locations);
     }
 
-    protected List<List<LatLon>> createGeometry(Globe globe, double edgeIntervalsPerDegree)
+    protected ContourBuffer createContours(Globe globe, double edgeIntervalsPerDegree)
     {
         int intervals = this.computeNumIntervals(globe, edgeIntervalsPerDegree);
 
@@ -461,8 +461,8 @@ public class SurfaceEllipse extends AbstractSurfaceShape
         if (drawLocations == null)
             return null;
 
-        ArrayList<List<LatLon>> geom = new ArrayList<List<LatLon>>();
-        geom.add(drawLocations);
+        ContourBuffer geom = new ContourBuffer(drawLocations.size());
+        geom.addContour(drawLocations);
 
         return geom;
     }
@@ -207,18 +207,17 @@ public class SurfaceMultiPolygon extends AbstractSurfaceShape
     }
 
     @Override
-    protected List<List<LatLon>> createGeometry(Globe globe, double edgeIntervalsPerDegree)
+    protected ContourBuffer createContours(Globe globe, double edgeIntervalsPerDegree)
     {
         if (this.boundaries.getContourCount() == 0)
             return null;
 
-        ArrayList<List<LatLon>> geom = new ArrayList<List<LatLon>>();
+        ContourBuffer geom = new ContourBuffer();
 
         for (int i = 0; i < this.boundaries.getContourCount(); i++)
         {
-            ArrayList<LatLon> locations = new ArrayList<LatLon>();
-            this.generateIntermediateLocations(this.boundaries.getContour(i), edgeIntervalsPerDegree, true, locations);
-            geom.add(locations);
+            geom.beginContour();
+            this.generateIntermediateLocations(this.boundaries.getContour(i), edgeIntervalsPerDegree, true, geom);
         }
 
         return geom;
@@ -712,30 +712,28 @@ public class SurfacePolygon extends AbstractSurfaceShape implements Exportable
         return shapeData;
     }
 
-    protected List<List<LatLon>> createGeometry(Globe globe, double edgeIntervalsPerDegree)
+    protected ContourBuffer createContours(Globe globe, double edgeIntervalsPerDegree)
     {
         if (this.boundaries.isEmpty())
             return null;
 
-        ArrayList<List<LatLon>> geom = new ArrayList<List<LatLon>>();
+        ContourBuffer geom = new ContourBuffer();
 
         for (Iterable<? extends LatLon> boundary : this.boundaries)
         {
-            ArrayList<LatLon> drawLocations = new ArrayList<LatLon>();
-
-            this.generateIntermediateLocations(boundary, edgeIntervalsPerDegree, true, drawLocations);
+            geom.beginContour();
+            this.generateIntermediateLocations(boundary, edgeIntervalsPerDegree, true, geom);
 
             // Ensure all contours have counter-clockwise winding order. The GLU tessellator we'll use to tessellate
             // these contours is configured to recognize interior holes when all contours have counter clockwise winding
             // order.
+            int contour = geom.getContourCount() - 1;
             //noinspection StringEquality
-            if (WWMath.computeWindingOrderOfLocations(drawLocations) != AVKey.COUNTER_CLOCKWISE)
-                Collections.reverse(drawLocations);
-
-            geom.add(drawLocations);
+            if (geom.computeWindingOrder(contour) != AVKey.COUNTER_CLOCKWISE)
+                geom.reverseContour(contour);
         }
 
-        if (geom.isEmpty() || geom.get(0).size() < 3)
+        if (geom.isEmpty() || geom.getContourSize(0) < 3)
             return null;
 
         return geom;
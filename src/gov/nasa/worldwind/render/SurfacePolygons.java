@@ -301,7 +301,7 @@ public class SurfacePolygons extends SurfacePolylines // TODO: Review
                 numBytes += vecBuffer.getSize() * 3 * 4; // 3 float coords per vertex
 
                 // Start a new polygon for each outer ring
-                if (WWMath.computeWindingOrderOfLocations(vecBuffer.getLocations()).equals(this.getWindingRule()))
+                if (this.computeWindingOrder(vecBuffer).equals(this.getWindingRule()))
                 {
                     if (inBeginPolygon)
                         GLU.gluTessEndPolygon(tess);
@@ -342,6 +342,63 @@ public class SurfacePolygons extends SurfacePolylines // TODO: Review
         return numBytes;
     }
 
+    /**
+     * Returns the winding order of a ring. This computes the same result as {@link
+     * WWMath#computeWindingOrderOfLocations(Iterable)} directly from the ring's coordinates.
+     *
+     * @param vecBuffer the ring's longitude and latitude coordinates.
+     *
+     * @return {@link AVKey#CLOCKWISE} if the ring has clockwise winding order, and {@link AVKey#COUNTER_CLOCKWISE}
+     *         otherwise.
+     */
+    protected String computeWindingOrder(VecBuffer vecBuffer)
+    {
+        int size = vecBuffer.getSize();
+        if (size == 0)
+            return AVKey.COUNTER_CLOCKWISE;
+
+        double[] coords = new double[vecBuffer.getCoordsPerVec()];
+
+        // Shift negative longitudes of dateline spanning rings past 180 to keep the ring continuous.
+        boolean crossesDateLine = false;
+        double lon = vecBuffer.get(0, coords)[0];
+        for (int i = 1; i < size && !crossesDateLine; i++)
+        {
+            double nextLon = vecBuffer.get(i, coords)[0];
+            crossesDateLine = ContourBuffer.crossesDateLine(lon, nextLon);
+            lon = nextLon;
+        }
+
+        vecBuffer.get(0, coords);
+        double firstLon = crossesDateLine && coords[0] < 0 ? coords[0] + 360 : coords[0];
+        double firstLat = coords[1];
+        lon = firstLon;
+        double lat = firstLat;
+        double area = 0;
+
+        for (int i = 1; i < size; i++)
+        {
+            vecBuffer.get(i, coords);
+            double nextLon = crossesDateLine && coords[0] < 0 ? coords[0] + 360 : coords[0];
+            double nextLat = coords[1];
+
+            area += lon * nextLat;
+            area -= nextLon * lat;
+
+            lon = nextLon;
+            lat = nextLat;
+        }
+
+        // Include the area connecting the last point to the first point, if they're not already equal.
+        if (lon != firstLon || lat != firstLat)
+        {
+            area += lon * firstLat;
+            area -= firstLon * lat;
+        }
+
+        return (area < 0) ? AVKey.CLOCKWISE : AVKey.COUNTER_CLOCKWISE;
+    }
+
     protected boolean tessellateRing(GLUtessellator tess, VecBuffer vecBuffer, LatLon referenceLocation)
     {
         // Check for pole wrapping shape
@@ -138,6 +138,12 @@ public class SurfacePolyline extends AbstractSurfaceShape implements Exportable
         this.onShapeChanged(); // Potentially causes the shape's geometry to change.
     }
 
+    @Override
+    protected boolean isPickInterior()
+    {
+        return this.isClosed() && super.isPickInterior();
+    }
+
     public Iterable<? extends LatLon> getLocations(Globe globe)
     {
         return this.getLocations();
@@ -173,20 +179,18 @@ public class SurfacePolyline extends AbstractSurfaceShape implements Exportable
         return new Position(iterator.next(), 0);
     }
 
-    protected List<List<LatLon>> createGeometry(Globe globe, double edgeIntervalsPerDegree)
+    protected ContourBuffer createContours(Globe globe, double edgeIntervalsPerDegree)
     {
         if (this.locations == null)
             return null;
 
-        ArrayList<LatLon> drawLocations = new ArrayList<LatLon>();
-        this.generateIntermediateLocations(this.locations, edgeIntervalsPerDegree, this.isClosed(), drawLocations);
+        ContourBuffer geom = new ContourBuffer();
+        geom.beginContour();
+        this.generateIntermediateLocations(this.locations, edgeIntervalsPerDegree, this.isClosed(), geom);
 
-        if (drawLocations.size() < 2)
+        if (geom.size() < 2)
             return null;
 
-        ArrayList<List<LatLon>> geom = new ArrayList<List<LatLon>>();
-        geom.add(drawLocations);
-
         return geom;
     }
 
@@ -120,18 +120,13 @@ public class SurfacePolylines extends AbstractSurfaceShape
         return this.getLocations();
     }
 
-    protected List<List<LatLon>> createGeometry(Globe globe, SurfaceTileDrawContext sdc)
+    protected List<List<LatLon>> createGeometry(Globe globe, double edgeIntervalsPerDegree)
     {
         // SurfacePolylines does not invoke this method, so return null indicating this method is not supported.
         // We avoid invoking computeGeometry by overriding determineActiveGeometry below.
         return null;
     }
 
-    protected List<List<LatLon>> createGeometry(Globe globe, double edgeIntervalsPerDegree)
-    {
-        return null;
-    }
-
     public Iterable<? extends LatLon> getLocations()
     {
         return this.buffer.getLocations();
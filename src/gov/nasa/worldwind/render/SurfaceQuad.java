@@ -384,17 +384,15 @@ public class SurfaceQuad extends AbstractSurfaceShape implements Exportable
         return java.util.Arrays.asList(locations);
     }
 
-    protected List<List<LatLon>> createGeometry(Globe globe, double edgeIntervalsPerDegree)
+    protected ContourBuffer createContours(Globe globe, double edgeIntervalsPerDegree)
     {
         Iterable<? extends LatLon> originalLocations = this.getLocations(globe);
         if (originalLocations == null)
             return null;
 
-        ArrayList<LatLon> drawLocations = new ArrayList<LatLon>();
-        this.generateIntermediateLocations(originalLocations, edgeIntervalsPerDegree, false, drawLocations);
-
-        ArrayList<List<LatLon>> geom = new ArrayList<List<LatLon>>();
-        geom.add(drawLocations);
+        ContourBuffer geom = new ContourBuffer();
+        geom.beginContour();
+        this.generateIntermediateLocations(originalLocations, edgeIntervalsPerDegree, false, geom);
 
         return geom;
     }
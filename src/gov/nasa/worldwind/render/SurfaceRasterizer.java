@@ -0,0 +1,832 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+package gov.nasa.worldwind.render;
+
+import gov.nasa.worldwind.formats.shapefile.*;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.util.*;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.geom.*;
+import java.awt.image.BufferedImage;
+import java.io.InputStream;
+import java.util.*;
+import java.util.List;
+import java.util.logging.Level;
+
+/**
+ * Rasterizes surface renderables into images with Java2D, without an OpenGL context. This is the CPU counterpart of
+ * drawing surface objects into {@link SurfaceObjectTileBuilder} tiles, and is suited to producing map tiles on a server
+ * with no graphics hardware. The following content is drawn: {@link AbstractSurfaceShape} subclasses, including {@link
+ * SurfacePolylines} and {@link SurfacePolygons}; the records of a {@link ShapefileRenderable}, such as {@link
+ * ShapefilePolygons}; and {@link SurfaceImage}. Other objects are ignored.
+ * <p>
+ * Images are drawn in an equirectangular projection of their sector: the image's x axis spans the sector's longitudes
+ * from west to east and its y axis spans its latitudes from north to south. Shapes are drawn with their active
+ * attributes' interior and outline colors, opacities, outline width and outline stipple. Interior textures are not
+ * drawn. Surface images are mapped onto the parallelogram spanned by their northwest, northeast and southwest corners.
+ * <p>
+ * The geometry computed for a shape is retained per shape and tile resolution until the shape changes, so rendering a
+ * shape into many tiles of one level computes its geometry once. A rasterizer is safe for use by multiple threads,
+ * provided the renderables are not modified while they are drawn.
+ *
+ * @version $Id$
+ * @see gov.nasa.worldwind.data.SurfaceTileRasterServer
+ */
+public class SurfaceRasterizer
+{
+    /** Ring bounds are padded by this many pixels when culling, to include the outline's width. */
+    protected static final double CULL_MARGIN_PIXELS = 8;
+
+    /** A contour of a shape's geometry, in degrees, with its bounding box. */
+    protected static class Ring
+    {
+        protected final double[] coords; // longitude, latitude pairs
+        protected final double minLon;
+        protected final double maxLon;
+        protected final double minLat;
+        protected final double maxLat;
+
+        public Ring(double[] coords)
+        {
+            double minLon = Double.MAX_VALUE, maxLon = -Double.MAX_VALUE;
+            double minLat = Double.MAX_VALUE, maxLat = -Double.MAX_VALUE;
+            for (int i = 0; i < coords.length; i += 2)
+            {
+                minLon = Math.min(minLon, coords[i]);
+                maxLon = Math.max(maxLon, coords[i]);
+                minLat = Math.min(minLat, coords[i + 1]);
+                maxLat = Math.max(maxLat, coords[i + 1]);
+            }
+
+            this.coords = coords;
+            this.minLon = minLon;
+            this.maxLon = maxLon;
+            this.minLat = minLat;
+            this.maxLat = maxLat;
+        }
+
+        public static Ring fromLocations(Iterable<? extends LatLon> locations)
+        {
+            int size = 0;
+            double[] coords = new double[64];
+            for (LatLon ll : locations)
+            {
+                if (size + 2 > coords.length)
+                    coords = Arrays.copyOf(coords, 2 * coords.length);
+
+                coords[size++] = ll.getLongitude().degrees;
+                coords[size++] = ll.getLatitude().degrees;
+            }
+
+            return size > 0 ? new Ring(Arrays.copyOf(coords, size)) : null;
+        }
+
+        public static Ring fromContour(ContourBuffer contours, int contour)
+        {
+            int offset = contours.getContourOffset(contour);
+            int count = contours.getContourSize(contour);
+            if (count == 0)
+                return null;
+
+            double[] src = contours.getCoords();
+            double[] coords = new double[2 * count];
+            for (int i = 0, j = 2 * offset; i < coords.length; i += 2, j += 2)
+            {
+                coords[i] = src[j + 1];
+                coords[i + 1] = src[j];
+            }
+
+            return new Ring(coords);
+        }
+    }
+
+    /** The drawable geometry of a shape at one resolution: its interior contours and its outline strips. */
+    protected static class ShapeGeometry
+    {
+        protected final List<Ring> interior = new ArrayList<Ring>();
+        protected final List<Ring> outline = new ArrayList<Ring>();
+        protected int windingRule = Path2D.WIND_EVEN_ODD;
+    }
+
+    /** The geometry computed for one shape, by resolution, and the shape modification time it was computed for. */
+    protected static class GeometryEntry
+    {
+        protected final long modifiedTime;
+        protected final Map<Double, ShapeGeometry> geometries = new HashMap<Double, ShapeGeometry>();
+
+        public GeometryEntry(long modifiedTime)
+        {
+            this.modifiedTime = modifiedTime;
+        }
+    }
+
+    /** A decoded surface image and the image source it was decoded from. */
+    protected static class ImageEntry
+    {
+        protected final Object imageSource;
+        protected final BufferedImage image;
+
+        public ImageEntry(Object imageSource, BufferedImage image)
+        {
+            this.imageSource = imageSource;
+            this.image = image;
+        }
+    }
+
+    /** Maps a sector onto the pixels of an image, and culls geometry outside the sector. */
+    protected static class TileTransform
+    {
+        protected final Sector sector;
+        protected final double minLon;
+        protected final double maxLat;
+        protected final double pixelsPerLon;
+        protected final double pixelsPerLat;
+        protected final double marginLon;
+        protected final double marginLat;
+
+        public TileTransform(Sector sector, int width, int height)
+        {
+            this.sector = sector;
+            this.minLon = sector.getMinLongitude().degrees;
+            this.maxLat = sector.getMaxLatitude().degrees;
+            this.pixelsPerLon = width / sector.getDeltaLonDegrees();
+            this.pixelsPerLat = height / sector.getDeltaLatDegrees();
+            this.marginLon = CULL_MARGIN_PIXELS / this.pixelsPerLon;
+            this.marginLat = CULL_MARGIN_PIXELS / this.pixelsPerLat;
+        }
+
+        public boolean intersects(double minLon, double maxLon, double minLat, double maxLat)
+        {
+            return maxLon >= this.sector.getMinLongitude().degrees - this.marginLon
+                && minLon <= this.sector.getMaxLongitude().degrees + this.marginLon
+                && maxLat >= this.sector.getMinLatitude().degrees - this.marginLat
+                && minLat <= this.sector.getMaxLatitude().degrees + this.marginLat;
+        }
+
+        public boolean intersects(Ring ring)
+        {
+            return this.intersects(ring.minLon, ring.maxLon, ring.minLat, ring.maxLat);
+        }
+
+        public double x(double longitude)
+        {
+            return (longitude - this.minLon) * this.pixelsPerLon;
+        }
+
+        public double y(double latitude)
+        {
+            return (this.maxLat - latitude) * this.pixelsPerLat;
+        }
+    }
+
+    protected final Globe globe;
+    protected final Map<Object, GeometryEntry> geometryCache =
+        Collections.synchronizedMap(new WeakHashMap<Object, GeometryEntry>());
+    protected final Map<Object, ImageEntry> imageCache =
+        Collections.synchronizedMap(new WeakHashMap<Object, ImageEntry>());
+
+    /** Creates a rasterizer that computes shape geometry on an {@link Earth} globe. */
+    public SurfaceRasterizer()
+    {
+        this(new Earth());
+    }
+
+    /**
+     * Creates a rasterizer that computes shape geometry on a specified globe.
+     *
+     * @param globe the globe that shapes measured in meters, such as circles and ellipses, are computed on.
+     *
+     * @throws IllegalArgumentException if the globe is null.
+     */
+    public SurfaceRasterizer(Globe globe)
+    {
+        if (globe == null)
+        {
+            String message = Logging.getMessage("nullValue.GlobeIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.globe = globe;
+    }
+
+    /**
+     * Returns the globe that shape geometry is computed on.
+     *
+     * @return this rasterizer's globe.
+     */
+    public Globe getGlobe()
+    {
+        return this.globe;
+    }
+
+    /**
+     * Indicates whether this rasterizer draws a specified object.
+     *
+     * @param renderable the object to test.
+     *
+     * @return true if the object is drawn by {@link #render(Iterable, Sector, BufferedImage)}, otherwise false.
+     */
+    public boolean isRenderable(Object renderable)
+    {
+        return renderable instanceof AbstractSurfaceShape || renderable instanceof ShapefileRenderable
+            || renderable instanceof SurfaceImage;
+    }
+
+    /**
+     * Creates an image of a specified size and draws the renderables that intersect a sector into it. The image is
+     * transparent where no renderable is drawn.
+     *
+     * @param renderables the objects to draw, in drawing order.
+     * @param sector      the sector the image covers.
+     * @param width       the image width, in pixels.
+     * @param height      the image height, in pixels.
+     *
+     * @return a new <code>TYPE_INT_ARGB</code> image.
+     *
+     * @throws IllegalArgumentException if the renderables or the sector are null, or if the width or height is less
+     *                                  than 1.
+     */
+    public BufferedImage render(Iterable<?> renderables, Sector sector, int width, int height)
+    {
+        if (width < 1 || height < 1)
+        {
+            String message = Logging.getMessage("generic.InvalidImageSize", width, height);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        this.render(renderables, sector, image);
+        return image;
+    }
+
+    /**
+     * Draws the renderables that intersect a sector over the contents of an image.
+     *
+     * @param renderables the objects to draw, in drawing order.
+     * @param sector      the sector the image covers.
+     * @param image       the image to draw into.
+     *
+     * @throws IllegalArgumentException if any argument is null.
+     */
+    public void render(Iterable<?> renderables, Sector sector, BufferedImage image)
+    {
+        if (renderables == null)
+        {
+            String message = Logging.getMessage("nullValue.IterableIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (sector == null)
+        {
+            String message = Logging.getMessage("nullValue.SectorIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (image == null)
+        {
+            String message = Logging.getMessage("nullValue.ImageIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        TileTransform tt = new TileTransform(sector, image.getWidth(), image.getHeight());
+        Graphics2D g = image.createGraphics();
+        try
+        {
+            g.setClip(0, 0, image.getWidth(), image.getHeight());
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+
+            for (Object renderable : renderables)
+            {
+                try
+                {
+                    if (renderable instanceof AbstractSurfaceShape)
+                        this.drawShape(g, tt, (AbstractSurfaceShape) renderable);
+                    else if (renderable instanceof ShapefileRenderable)
+                        this.drawShapefile(g, tt, (ShapefileRenderable) renderable);
+                    else if (renderable instanceof SurfaceImage)
+                        this.drawSurfaceImage(g, tt, (SurfaceImage) renderable);
+                }
+                catch (Exception e)
+                {
+                    String message = Logging.getMessage("generic.ExceptionWhileRenderingRenderable");
+                    Logging.logger().log(Level.SEVERE, message, e);
+                }
+            }
+        }
+        finally
+        {
+            g.dispose();
+        }
+    }
+
+    /** Removes all retained shape geometry and decoded surface images. */
+    public void clearCaches()
+    {
+        this.geometryCache.clear();
+        this.imageCache.clear();
+    }
+
+    //**************************************************************//
+    //********************  Surface Shapes  ************************//
+    //**************************************************************//
+
+    protected void drawShape(Graphics2D g, TileTransform tt, AbstractSurfaceShape shape)
+    {
+        if (!shape.isVisible())
+            return;
+
+        ShapeAttributes attrs = this.determineActiveAttributes(shape);
+        boolean drawInterior = attrs.isDrawInterior() && this.hasInterior(shape);
+        if (!drawInterior && !attrs.isDrawOutline())
+            return;
+
+        ShapeGeometry geom = this.getShapeGeometry(shape, tt);
+        if (geom == null)
+            return;
+
+        if (drawInterior)
+            this.fillRings(g, tt, geom.interior, geom.windingRule, attrs);
+
+        if (attrs.isDrawOutline())
+            this.strokeRings(g, tt, geom.outline, false, attrs);
+    }
+
+    /**
+     * Returns the attributes a shape is drawn with. This mirrors {@link AbstractSurfaceShape#determineActiveAttributes()}
+     * without modifying the shape, which may be drawn concurrently by other threads.
+     *
+     * @param shape the shape.
+     *
+     * @return the shape's active attributes.
+     */
+    protected ShapeAttributes determineActiveAttributes(AbstractSurfaceShape shape)
+    {
+        if (shape.isHighlighted())
+        {
+            if (shape.getHighlightAttributes() != null)
+                return shape.getHighlightAttributes();
+
+            ShapeAttributes attrs = new BasicShapeAttributes();
+            if (shape.getAttributes() != null)
+                attrs.copy(shape.getAttributes());
+            attrs.setOutlineMaterial(AbstractSurfaceShape.DEFAULT_HIGHLIGHT_MATERIAL);
+            attrs.setInteriorMaterial(AbstractSurfaceShape.DEFAULT_HIGHLIGHT_MATERIAL);
+            attrs.setOutlineOpacity(1);
+            attrs.setInteriorOpacity(1);
+            return attrs;
+        }
+
+        return shape.getAttributes() != null ? shape.getAttributes() : AbstractSurfaceShape.defaultAttrs;
+    }
+
+    protected boolean hasInterior(AbstractSurfaceShape shape)
+    {
+        if (shape instanceof SurfacePolylines)
+            return shape instanceof SurfacePolygons;
+
+        return !(shape instanceof SurfacePolyline);
+    }
+
+    /**
+     * Returns a shape's geometry at the resolution of a tile, computing and retaining it if the shape has not been drawn
+     * at that resolution since it last changed.
+     *
+     * @param shape the shape.
+     * @param tt    the tile being drawn.
+     *
+     * @return the shape's geometry, or null if the shape has no locations.
+     */
+    protected ShapeGeometry getShapeGeometry(AbstractSurfaceShape shape, TileTransform tt)
+    {
+        // SurfacePolylines and SurfacePolygons draw their caller specified locations, at every resolution.
+        double edgeIntervalsPerDegree = 0;
+        if (!(shape instanceof SurfacePolylines))
+        {
+            double texelsPerDegree = Math.max(tt.pixelsPerLon, tt.pixelsPerLat);
+            edgeIntervalsPerDegree = texelsPerDegree / shape.getTexelsPerEdgeInterval();
+        }
+
+        GeometryEntry entry;
+        synchronized (this.geometryCache)
+        {
+            entry = this.geometryCache.get(shape);
+            if (entry == null || entry.modifiedTime != shape.lastModifiedTime)
+            {
+                entry = new GeometryEntry(shape.lastModifiedTime);
+                this.geometryCache.put(shape, entry);
+            }
+        }
+
+        synchronized (entry)
+        {
+            if (entry.geometries.containsKey(edgeIntervalsPerDegree))
+                return entry.geometries.get(edgeIntervalsPerDegree);
+        }
+
+        // Shapes are not safe for concurrent geometry computation, so threads drawing the same shape wait here.
+        ShapeGeometry geom;
+        synchronized (shape)
+        {
+            synchronized (entry)
+            {
+                if (entry.geometries.containsKey(edgeIntervalsPerDegree))
+                    return entry.geometries.get(edgeIntervalsPerDegree);
+            }
+
+            geom = shape instanceof SurfacePolylines ? this.createPolylinesGeometry((SurfacePolylines) shape)
+                : this.createShapeGeometry(shape, edgeIntervalsPerDegree);
+
+            synchronized (entry)
+            {
+                entry.geometries.put(edgeIntervalsPerDegree, geom);
+            }
+        }
+
+        return geom;
+    }
+
+    /**
+     * Computes a shape's geometry the way {@link AbstractSurfaceShape} prepares it for drawing: contours enclosing a
+     * pole are cut along the anti-meridian and unrolled to the pole, and contours crossing the anti-meridian are
+     * repeated on either side of it.
+     *
+     * @param shape                  the shape.
+     * @param edgeIntervalsPerDegree the number of edge intervals per degree of the tile's resolution.
+     *
+     * @return the shape's geometry, or null if the shape has no locations.
+     */
+    protected ShapeGeometry createShapeGeometry(AbstractSurfaceShape shape, double edgeIntervalsPerDegree)
+    {
+        ContourBuffer contours = shape.createContours(this.globe, edgeIntervalsPerDegree);
+        if (contours == null)
+            return null;
+
+        ShapeGeometry geom = new ShapeGeometry();
+        ContourBuffer interior = new ContourBuffer();
+        ContourBuffer outline = new ContourBuffer();
+        for (int i = 0; i < contours.getContourCount(); i++)
+        {
+            String pole = shape.containsPole(contours, i);
+            if (pole != null)
+            {
+                shape.cutAlongDateLine(contours, i, pole, this.globe, interior);
+                shape.repeatAroundDateline(contours, i, outline);
+            }
+            else
+            {
+                shape.repeatAroundDateline(contours, i, interior);
+                shape.repeatAroundDateline(contours, i, outline);
+            }
+        }
+
+        this.addRings(geom.interior, interior);
+        this.addRings(geom.outline, outline);
+
+        return geom;
+    }
+
+    /**
+     * Computes the geometry of {@link SurfacePolylines} or {@link SurfacePolygons} from their coordinate buffer. The
+     * buffer's polygons are filled with the non-zero winding rule, so rings wound opposite to their enclosing ring form
+     * holes.
+     *
+     * @param shape the shape.
+     *
+     * @return the shape's geometry.
+     */
+    protected ShapeGeometry createPolylinesGeometry(SurfacePolylines shape)
+    {
+        ShapeGeometry geom = new ShapeGeometry();
+        geom.windingRule = Path2D.WIND_NON_ZERO;
+
+        CompoundVecBuffer buffer = shape.getBuffer();
+        for (int i = 0; i < buffer.size(); i++)
+        {
+            Iterable<? extends LatLon> locations = buffer.subBuffer(i).getLocations();
+            if (LatLon.locationsCrossDateLine(locations))
+            {
+                List<List<LatLon>> datelineLocations = LatLon.repeatLocationsAroundDateline(locations);
+                this.addRings(geom.interior, datelineLocations);
+                this.addRings(geom.outline, datelineLocations);
+            }
+            else
+            {
+                Ring ring = Ring.fromLocations(locations);
+                if (ring != null)
+                {
+                    geom.interior.add(ring);
+                    geom.outline.add(ring);
+                }
+            }
+        }
+
+        return geom;
+    }
+
+    protected void addRing(List<Ring> rings, Iterable<? extends LatLon> locations)
+    {
+        Ring ring = Ring.fromLocations(locations);
+        if (ring != null)
+            rings.add(ring);
+    }
+
+    protected void addRings(List<Ring> rings, ContourBuffer contours)
+    {
+        for (int i = 0; i < contours.getContourCount(); i++)
+        {
+            Ring ring = Ring.fromContour(contours, i);
+            if (ring != null)
+                rings.add(ring);
+        }
+    }
+
+    protected void addRings(List<Ring> rings, List<List<LatLon>> locationLists)
+    {
+        for (List<LatLon> locations : locationLists)
+        {
+            this.addRing(rings, locations);
+        }
+    }
+
+    //**************************************************************//
+    //********************  Shapefiles  ****************************//
+    //**************************************************************//
+
+    protected void drawShapefile(Graphics2D g, TileTransform tt, ShapefileRenderable shapefile)
+    {
+        if (!shapefile.isVisible())
+            return;
+
+        boolean hasInterior = shapefile instanceof ShapefilePolygons;
+        List<Ring> rings = new ArrayList<Ring>();
+
+        for (int i = 0; i < shapefile.getRecordCount(); i++)
+        {
+            ShapefileRenderable.Record record = shapefile.getRecord(i);
+            if (!record.isVisible())
+                continue;
+
+            Sector sector = record.getSector();
+            if (sector != null && !tt.intersects(sector.getMinLongitude().degrees, sector.getMaxLongitude().degrees,
+                sector.getMinLatitude().degrees, sector.getMaxLatitude().degrees))
+            {
+                continue;
+            }
+
+            ShapeAttributes attrs = record.getActiveAttributes();
+            if (!(hasInterior && attrs.isDrawInterior()) && !attrs.isDrawOutline())
+                continue;
+
+            rings.clear();
+            for (int j = 0; j < record.getBoundaryCount(); j++)
+            {
+                VecBuffer points = record.getBoundaryPoints(j);
+                double[] coords = new double[2 * points.getSize()];
+                double[] point = new double[2];
+                for (int k = 0; k < points.getSize(); k++)
+                {
+                    points.get(k, point);
+                    coords[2 * k] = point[0];
+                    coords[2 * k + 1] = point[1];
+                }
+
+                if (coords.length > 0)
+                    rings.add(new Ring(coords));
+            }
+
+            if (hasInterior && attrs.isDrawInterior())
+                this.fillRings(g, tt, rings, Path2D.WIND_NON_ZERO, attrs);
+
+            if (attrs.isDrawOutline())
+                this.strokeRings(g, tt, rings, hasInterior, attrs);
+        }
+    }
+
+    //**************************************************************//
+    //********************  Surface Images  ************************//
+    //**************************************************************//
+
+    protected void drawSurfaceImage(Graphics2D g, TileTransform tt, SurfaceImage surfaceImage)
+    {
+        Sector sector = surfaceImage.getSector();
+        if (sector == null || !tt.intersects(sector.getMinLongitude().degrees, sector.getMaxLongitude().degrees,
+            sector.getMinLatitude().degrees, sector.getMaxLatitude().degrees))
+        {
+            return;
+        }
+
+        BufferedImage image = this.getSurfaceImage(surfaceImage);
+        if (image == null)
+            return;
+
+        // Corners are ordered counterclockwise from the southwest corner. Map the image's top left, top right and
+        // bottom left corners to the northwest, northeast and southwest corners.
+        List<LatLon> corners = surfaceImage.getCorners();
+        LatLon sw = corners.get(0), ne = corners.get(2), nw = corners.get(3);
+        double x0 = tt.x(nw.getLongitude().degrees), y0 = tt.y(nw.getLatitude().degrees);
+        double w = image.getWidth(), h = image.getHeight();
+        AffineTransform transform = new AffineTransform(
+            (tt.x(ne.getLongitude().degrees) - x0) / w, (tt.y(ne.getLatitude().degrees) - y0) / w,
+            (tt.x(sw.getLongitude().degrees) - x0) / h, (tt.y(sw.getLatitude().degrees) - y0) / h,
+            x0, y0);
+
+        Composite composite = g.getComposite();
+        try
+        {
+            if (surfaceImage.getOpacity() < 1)
+                g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER,
+                    (float) Math.max(surfaceImage.getOpacity(), 0)));
+            g.drawImage(image, transform, null);
+        }
+        finally
+        {
+            g.setComposite(composite);
+        }
+    }
+
+    /**
+     * Returns a surface image's decoded image, decoding and retaining it if it has not been decoded since the surface
+     * image's source last changed.
+     *
+     * @param surfaceImage the surface image.
+     *
+     * @return the decoded image, or null if the image source cannot be read.
+     */
+    protected BufferedImage getSurfaceImage(SurfaceImage surfaceImage)
+    {
+        Object imageSource = surfaceImage.getImageSource();
+        if (imageSource instanceof BufferedImage)
+            return (BufferedImage) imageSource;
+
+        ImageEntry entry = this.imageCache.get(surfaceImage);
+        if (entry != null && entry.imageSource == imageSource)
+            return entry.image;
+
+        BufferedImage image = null;
+        try
+        {
+            InputStream stream = WWIO.openStream(imageSource);
+            try
+            {
+                image = ImageIO.read(stream);
+            }
+            finally
+            {
+                WWIO.closeStream(stream, String.valueOf(imageSource));
+            }
+        }
+        catch (Exception e)
+        {
+            String message = Logging.getMessage("generic.ExceptionAttemptingToReadImageFile", imageSource);
+            Logging.logger().log(Level.SEVERE, message, e);
+        }
+
+        this.imageCache.put(surfaceImage, new ImageEntry(imageSource, image));
+        return image;
+    }
+
+    //**************************************************************//
+    //********************  Drawing  *******************************//
+    //**************************************************************//
+
+    protected void fillRings(Graphics2D g, TileTransform tt, List<Ring> rings, int windingRule, ShapeAttributes attrs)
+    {
+        // A ring whose bounds do not intersect the tile cannot enclose any part of it, so it does not affect the fill.
+        Path2D path = this.createPath(tt, rings, true, windingRule);
+        if (path == null)
+            return;
+
+        g.setColor(this.createColor(attrs.getInteriorMaterial(), attrs.getInteriorOpacity()));
+        g.fill(path);
+    }
+
+    protected void strokeRings(Graphics2D g, TileTransform tt, List<Ring> rings, boolean closed,
+        ShapeAttributes attrs)
+    {
+        if (attrs.getOutlineWidth() <= 0)
+            return;
+
+        Stroke stroke = this.createStroke(attrs);
+        if (stroke == null)
+            return;
+
+        Path2D path = this.createPath(tt, rings, closed, Path2D.WIND_NON_ZERO);
+        if (path == null)
+            return;
+
+        g.setColor(this.createColor(attrs.getOutlineMaterial(), attrs.getOutlineOpacity()));
+        g.setStroke(stroke);
+        g.draw(path);
+    }
+
+    protected Path2D createPath(TileTransform tt, List<Ring> rings, boolean closed, int windingRule)
+    {
+        Path2D path = null;
+        for (Ring ring : rings)
+        {
+            if (!tt.intersects(ring))
+                continue;
+
+            if (path == null)
+                path = new Path2D.Double(windingRule);
+
+            double[] coords = ring.coords;
+            path.moveTo(tt.x(coords[0]), tt.y(coords[1]));
+            for (int i = 2; i < coords.length; i += 2)
+            {
+                path.lineTo(tt.x(coords[i]), tt.y(coords[i + 1]));
+            }
+
+            if (closed)
+                path.closePath();
+        }
+
+        return path;
+    }
+
+    protected Color createColor(Material material, double opacity)
+    {
+        Color color = material.getDiffuse();
+        int alpha = (int) (255 * Math.max(0, Math.min(opacity, 1)) + 0.5);
+        return new Color(color.getRed(), color.getGreen(), color.getBlue(), alpha);
+    }
+
+    /**
+     * Creates a stroke for a shape's outline. An OpenGL line stipple, a 16-bit pattern applied least significant bit
+     * first with each bit repeated the stipple factor number of times, is converted to a dash pattern.
+     *
+     * @param attrs the shape's active attributes.
+     *
+     * @return the outline stroke, or null if the stipple pattern draws nothing.
+     */
+    protected Stroke createStroke(ShapeAttributes attrs)
+    {
+        float width = (float) attrs.getOutlineWidth();
+        int factor = attrs.getOutlineStippleFactor();
+        int pattern = attrs.getOutlineStipplePattern() & 0xFFFF;
+        if (factor <= 0 || pattern == 0xFFFF)
+            return new BasicStroke(width, BasicStroke.CAP_BUTT, BasicStroke.JOIN_ROUND);
+
+        if (pattern == 0)
+            return null; // nothing is drawn
+
+        // Collect the run lengths of the pattern's bits. Dash arrays start with an opaque run, so a pattern starting
+        // with a clear bit starts with an empty opaque run.
+        float[] runs = new float[17];
+        int numRuns = 0;
+        boolean opaque = true;
+        for (int bit = 0; bit < 16; bit++)
+        {
+            boolean set = ((pattern >> bit) & 1) != 0;
+            if (set != opaque)
+            {
+                numRuns++;
+                opaque = set;
+            }
+
+            runs[numRuns] += factor;
+        }
+
+        if (numRuns % 2 == 0) // the pattern ends with an opaque run; append an empty clear run
+            numRuns++;
+
+        return new BasicStroke(width, BasicStroke.CAP_BUTT, BasicStroke.JOIN_ROUND, 10f,
+            Arrays.copyOf(runs, numRuns + 1), 0f);
+    }
+}
@@ -108,16 +108,50 @@ public class TextRendererCache implements Disposable
     }
 
     protected java.util.concurrent.ConcurrentHashMap<Object, TextRenderer> textRendererMap;
+    protected java.util.concurrent.ConcurrentHashMap<java.awt.Font, GlyphAtlas> glyphAtlasMap;
 
     public TextRendererCache()
     {
         this.textRendererMap = new java.util.concurrent.ConcurrentHashMap<Object, TextRenderer>();
+        this.glyphAtlasMap = new java.util.concurrent.ConcurrentHashMap<java.awt.Font, GlyphAtlas>();
     }
 
     public void dispose()
     {
         this.disposeAll();
         this.textRendererMap.clear();
+        this.glyphAtlasMap.clear();
+    }
+
+    /**
+     * Returns the glyph atlas for a font, creating it if necessary. The glyph atlas caches the font's text layouts and
+     * measures text without OpenGL, so it can be used to compute text bounds each frame.
+     *
+     * @param font the font.
+     *
+     * @return the font's glyph atlas.
+     *
+     * @throws IllegalArgumentException if the font is null.
+     */
+    public GlyphAtlas getGlyphAtlas(java.awt.Font font)
+    {
+        if (font == null)
+        {
+            String message = Logging.getMessage("nullValue.FontIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        GlyphAtlas atlas = this.glyphAtlasMap.get(font);
+        if (atlas == null)
+        {
+            atlas = new GlyphAtlas(font);
+            GlyphAtlas existing = this.glyphAtlasMap.putIfAbsent(font, atlas);
+            if (existing != null)
+                atlas = existing;
+        }
+
+        return atlas;
     }
 
     public int getNumObjects()
@@ -187,6 +221,7 @@ public class TextRendererCache implements Disposable
     {
         this.disposeAll();
         this.textRendererMap.clear();
+        this.glyphAtlasMap.clear();
     }
 
     protected void dispose(TextRenderer textRenderer)
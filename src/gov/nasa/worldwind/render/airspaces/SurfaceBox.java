@@ -44,7 +44,7 @@ public class SurfaceBox extends AbstractSurfaceShape
     protected boolean enableStartCap = true;
     protected boolean enableEndCap = true;
     protected boolean enableCenterLine;
-    protected List<List<LatLon>> activeCenterLineGeometry = new ArrayList<List<LatLon>>(); // re-determined each frame
+    protected ContourBuffer activeCenterLineContours = new ContourBuffer(); // re-determined each frame
 
     public SurfaceBox()
     {
@@ -123,26 +123,24 @@ public class SurfaceBox extends AbstractSurfaceShape
         // Intentionally left blank.
     }
 
-    protected List<List<LatLon>> createGeometry(Globe globe, double edgeIntervalsPerDegree)
+    protected ContourBuffer createContours(Globe globe, double edgeIntervalsPerDegree)
     {
         if (this.locations == null)
             return null;
 
-        ArrayList<List<LatLon>> geom = new ArrayList<List<LatLon>>();
-
-        // Generate the box interior locations. Store the interior geometry in index 0.
-        ArrayList<LatLon> interior = new ArrayList<LatLon>();
-        geom.add(interior);
+        ContourBuffer geom = new ContourBuffer();
 
+        // Generate the box interior locations. Store the interior geometry in contour 0.
+        geom.beginContour();
         for (int i = 0; i < this.locations.size() - 1; i++)
         {
             LatLon a = this.locations.get(i);
             LatLon b = this.locations.get(i + 1); // first and last location are the same
-            interior.add(a);
-            this.addIntermediateLocations(a, b, edgeIntervalsPerDegree, interior);
+            geom.add(a);
+            this.addIntermediateLocations(a, b, edgeIntervalsPerDegree, geom);
         }
 
-        // Generate the box outline locations. Store the outline locations in indices 1 through size-2.
+        // Generate the box outline locations. Store the outline locations in contours 1 through count-2.
         int[] sideSegments = {2 * this.widthSegments, this.lengthSegments, 2 * this.widthSegments, this.lengthSegments};
         boolean[] sideFlag = {this.enableStartCap, true, this.enableEndCap, true};
 
@@ -151,94 +149,71 @@ public class SurfaceBox extends AbstractSurfaceShape
         {
             if (sideFlag[i])
             {
-                geom.add(this.makeLocations(offset, sideSegments[i], edgeIntervalsPerDegree));
+                geom.beginContour();
+                this.makeLocations(offset, sideSegments[i], edgeIntervalsPerDegree, geom);
             }
 
             offset += sideSegments[i] + 1;
         }
 
-        // Generate the box center line locations. Store the center line geometry at index size-1.
+        // Generate the box center line locations. Store the center line geometry in contour count-1.
         LatLon beginLocation = this.locations.get(this.widthSegments);
         LatLon endLocation = this.locations.get(3 * this.widthSegments + this.lengthSegments + 2);
-        ArrayList<LatLon> centerLine = new ArrayList<LatLon>();
-        centerLine.add(beginLocation);
-        this.addIntermediateLocations(beginLocation, endLocation, edgeIntervalsPerDegree, centerLine);
-        centerLine.add(endLocation);
-        geom.add(centerLine);
+        geom.beginContour();
+        geom.add(beginLocation);
+        this.addIntermediateLocations(beginLocation, endLocation, edgeIntervalsPerDegree, geom);
+        geom.add(endLocation);
 
         return geom;
     }
 
-    protected ArrayList<LatLon> makeLocations(int offset, int count, double edgeIntervalsPerDegree)
+    protected void makeLocations(int offset, int count, double edgeIntervalsPerDegree, ContourBuffer geom)
     {
-        ArrayList<LatLon> locations = new ArrayList<LatLon>();
-
         for (int i = offset; i < offset + count; i++)
         {
             LatLon a = this.locations.get(i);
             LatLon b = this.locations.get(i + 1);
 
-            locations.add(a);
-            this.addIntermediateLocations(a, b, edgeIntervalsPerDegree, locations);
+            geom.add(a);
+            this.addIntermediateLocations(a, b, edgeIntervalsPerDegree, geom);
 
             if (i == offset + count - 1)
-                locations.add(b);
+                geom.add(b);
         }
-
-        return locations;
     }
 
     @Override
     protected void determineActiveGeometry(DrawContext dc, SurfaceTileDrawContext sdc)
     {
-        this.activeGeometry.clear();
-        this.activeOutlineGeometry.clear();
-        this.activeCenterLineGeometry.clear();
+        this.activeContours.clear();
+        this.activeOutlineContours.clear();
+        this.activeCenterLineContours.clear();
 
-        List<List<LatLon>> geom = this.getCachedGeometry(dc, sdc); // calls createGeometry
+        ContourBuffer geom = this.getCachedContours(dc, sdc); // calls createContours
         if (geom == null)
             return;
 
-        int index = 0; // interior geometry stored in index 0
-        List<LatLon> interior = geom.get(index++);
-        String pole = this.containsPole(interior);
+        int index = 0; // interior geometry stored in contour 0
+        String pole = this.containsPole(geom, index);
         if (pole != null) // interior compensates for poles and dateline crossing, see WWJ-284
         {
-            this.activeGeometry.add(this.cutAlongDateLine(interior, pole, dc.getGlobe()));
-        }
-        else if (LatLon.locationsCrossDateLine(interior))
-        {
-            this.activeGeometry.addAll(this.repeatAroundDateline(interior));
+            this.cutAlongDateLine(geom, index, pole, dc.getGlobe(), this.activeContours);
         }
         else
         {
-            this.activeGeometry.add(interior);
+            this.repeatAroundDateline(geom, index, this.activeContours);
         }
 
-        for (; index < geom.size() - 1; index++) // outline geometry stored in indices 1 through size-2
+        // Outline geometry stored in contours 1 through count-2. Outlines compensate for dateline crossing, see
+        // WWJ-452.
+        for (index++; index < geom.getContourCount() - 1; index++)
         {
-            List<LatLon> outline = geom.get(index);
-            if (LatLon.locationsCrossDateLine(outline)) // outlines compensate for dateline crossing, see WWJ-452
-            {
-                this.activeOutlineGeometry.addAll(this.repeatAroundDateline(outline));
-            }
-            else
-            {
-                this.activeOutlineGeometry.add(outline);
-            }
+            this.repeatAroundDateline(geom, index, this.activeOutlineContours);
         }
 
-        if (index < geom.size()) // center line geometry stored in index size-1
+        if (index < geom.getContourCount()) // center line geometry stored in contour count-1
         {
-            List<LatLon> centerLine = geom.get(index);
-            if (LatLon.locationsCrossDateLine(centerLine)) // outlines compensate for dateline crossing, see WWJ-452
-            {
-                this.activeCenterLineGeometry.addAll(this.repeatAroundDateline(centerLine));
-            }
-            else
-            {
-                this.activeCenterLineGeometry.add(centerLine);
-            }
+            this.repeatAroundDateline(geom, index, this.activeCenterLineContours);
         }
     }
 
@@ -254,14 +229,14 @@ public class SurfaceBox extends AbstractSurfaceShape
 
     protected void drawCenterLine(DrawContext dc)
     {
-        if (this.activeCenterLineGeometry.isEmpty())
+        if (this.activeCenterLineContours.isEmpty())
             return;
 
         this.applyCenterLineState(dc, this.getActiveAttributes());
 
-        for (List<LatLon> drawLocations : this.activeCenterLineGeometry)
+        for (int i = 0; i < this.activeCenterLineContours.getContourCount(); i++)
         {
-            this.drawLineStrip(dc, drawLocations);
+            this.drawLineStrip(dc, this.activeCenterLineContours, i);
         }
     }
 
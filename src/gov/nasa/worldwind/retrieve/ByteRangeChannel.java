@@ -0,0 +1,646 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.retrieve;
+
+import gov.nasa.worldwind.*;
+import gov.nasa.worldwind.avlist.AVKey;
+import gov.nasa.worldwind.cache.*;
+import gov.nasa.worldwind.util.*;
+
+import java.io.*;
+import java.net.URL;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.Arrays;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A read-only {@link FileChannel} over a remote HTTP resource. Only the parts of the resource that are read are
+ * retrieved, using HTTP range requests run by the retrieval service. This lets readers of large, internally indexed
+ * files, such as {@link gov.nasa.worldwind.formats.tiff.GeotiffReader}, read a remote file without first downloading
+ * it.
+ * <p>
+ * The resource is divided into fixed-size blocks. Each read retrieves the blocks it covers that are not already cached,
+ * consecutive missing blocks with a single request. Retrieved blocks are kept in a memory cache shared by all channels,
+ * sized by {@link AVKey#BYTE_RANGE_BLOCK_CACHE_SIZE}, and, if the channel has a file store, in the file store beneath
+ * the channel's cache path, one file per block. Blocks in the file store are used until they expire. The block size
+ * must not change for a given cache path.
+ * <p>
+ * The channel determines the resource's length when it is created, retrieving the resource's first block if the length
+ * is not already cached. Reads beyond the end of the resource return end-of-stream. Positional reads may be made
+ * concurrently by several threads. Writing, mapping and locking are not supported.
+ *
+ * @version $Id$
+ * @see HTTPRangeRetriever
+ */
+public class ByteRangeChannel extends FileChannel
+{
+    /** The default block size, in bytes. */
+    public static final int DEFAULT_BLOCK_SIZE = 32768;
+
+    protected static final String BLOCK_SUFFIX = ".blk";
+    protected static final String LENGTH_FILE_NAME = "length.txt";
+
+    /**
+     * Returns the memory cache holding the blocks retrieved by all byte range channels, creating it if necessary.
+     *
+     * @return the block cache.
+     */
+    public static synchronized MemoryCache getMemoryCache()
+    {
+        if (!WorldWind.getMemoryCacheSet().containsCache(ByteRangeChannel.class.getName()))
+        {
+            long size = Configuration.getLongValue(AVKey.BYTE_RANGE_BLOCK_CACHE_SIZE, (long) 32e6); // default 32MB
+            MemoryCache cache = new BasicMemoryCache((long) (0.8 * size), size);
+            cache.setName("Byte Range Blocks");
+            WorldWind.getMemoryCacheSet().addCache(ByteRangeChannel.class.getName(), cache);
+        }
+
+        return WorldWind.getMemoryCacheSet().getCache(ByteRangeChannel.class.getName());
+    }
+
+    protected final URL url;
+    protected final FileStore fileStore;
+    protected final String cachePath;
+    protected final int blockSize;
+    protected final long expiryTime;
+    protected final String cacheKeyPrefix;
+    protected final long length;
+    protected long position;
+
+    protected final AtomicLong requestCount = new AtomicLong();
+    protected final AtomicLong bytesRetrieved = new AtomicLong();
+
+    /**
+     * Creates a channel with the default block size whose cached blocks do not expire.
+     *
+     * @param url       the resource's URL.
+     * @param fileStore the file store in which to cache blocks. May be null, in which case blocks are cached only in
+     *                  memory.
+     * @param cachePath the path within the file store of the directory holding the resource's blocks. May be null if
+     *                  the file store is null.
+     *
+     * @throws IOException              if the resource's length cannot be determined.
+     * @throws IllegalArgumentException if the URL is null, or the file store is not null and the cache path is null.
+     */
+    public ByteRangeChannel(URL url, FileStore fileStore, String cachePath) throws IOException
+    {
+        this(url, fileStore, cachePath, DEFAULT_BLOCK_SIZE, 0);
+    }
+
+    /**
+     * Creates a channel.
+     *
+     * @param url        the resource's URL.
+     * @param fileStore  the file store in which to cache blocks. May be null, in which case blocks are cached only in
+     *                   memory.
+     * @param cachePath  the path within the file store of the directory holding the resource's blocks. May be null if
+     *                   the file store is null.
+     * @param blockSize  the number of bytes in a block.
+     * @param expiryTime the time, in milliseconds since the epoch, before which blocks cached in the file store are
+     *                   expired. Zero indicates that cached blocks do not expire.
+     *
+     * @throws IOException              if the resource's length cannot be determined.
+     * @throws IllegalArgumentException if the URL is null, the file store is not null and the cache path is null, or
+     *                                  the block size is less than 1.
+     */
+    public ByteRangeChannel(URL url, FileStore fileStore, String cachePath, int blockSize, long expiryTime)
+        throws IOException
+    {
+        if (url == null)
+        {
+            String message = Logging.getMessage("nullValue.URLIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (fileStore != null && cachePath == null)
+        {
+            String message = Logging.getMessage("nullValue.PathIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (blockSize < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "blockSize < 1");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.url = url;
+        this.fileStore = fileStore;
+        this.cachePath = cachePath;
+        this.blockSize = blockSize;
+        this.expiryTime = expiryTime;
+        this.cacheKeyPrefix = url.toString() + "#" + blockSize + "#";
+        this.length = this.determineLength();
+    }
+
+    /**
+     * Returns the URL of the resource read by this channel.
+     *
+     * @return the resource's URL.
+     */
+    public URL getURL()
+    {
+        return this.url;
+    }
+
+    /**
+     * Returns the number of bytes in each block of the resource.
+     *
+     * @return the block size.
+     */
+    public int getBlockSize()
+    {
+        return this.blockSize;
+    }
+
+    /**
+     * Returns the time before which blocks cached in the file store are expired.
+     *
+     * @return the expiry time in milliseconds since the epoch, or zero if cached blocks do not expire.
+     */
+    public long getExpiryTime()
+    {
+        return this.expiryTime;
+    }
+
+    /**
+     * Returns the number of range requests this channel has made.
+     *
+     * @return the number of requests.
+     */
+    public long getRequestCount()
+    {
+        return this.requestCount.get();
+    }
+
+    /**
+     * Returns the number of bytes this channel has retrieved from the resource.
+     *
+     * @return the number of bytes retrieved.
+     */
+    public long getBytesRetrieved()
+    {
+        return this.bytesRetrieved.get();
+    }
+
+    public int read(ByteBuffer dst, long position) throws IOException
+    {
+        if (dst == null)
+        {
+            String message = Logging.getMessage("nullValue.BufferIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (position < 0)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "position < 0");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (!this.isOpen())
+            throw new ClosedChannelException();
+
+        if (position >= this.length)
+            return -1;
+
+        int count = (int) Math.min(dst.remaining(), this.length - position);
+        if (count == 0)
+            return 0;
+
+        long firstBlock = position / this.blockSize;
+        long lastBlock = (position + count - 1) / this.blockSize;
+        byte[][] blocks = this.readBlocks(firstBlock, lastBlock);
+
+        long offset = position;
+        for (int i = 0; i < blocks.length; i++)
+        {
+            int start = (int) (offset - (firstBlock + i) * this.blockSize);
+            int n = (int) Math.min(blocks[i].length - start, position + count - offset);
+            dst.put(blocks[i], start, n);
+            offset += n;
+        }
+
+        return count;
+    }
+
+    public synchronized int read(ByteBuffer dst) throws IOException
+    {
+        int n = this.read(dst, this.position);
+        if (n > 0)
+            this.position += n;
+
+        return n;
+    }
+
+    public synchronized long read(ByteBuffer[] dsts, int offset, int length) throws IOException
+    {
+        long total = 0;
+        for (int i = offset; i < offset + length; i++)
+        {
+            if (!dsts[i].hasRemaining())
+                continue;
+
+            int n = this.read(dsts[i]);
+            if (n < 0)
+                return total > 0 ? total : -1;
+
+            total += n;
+        }
+
+        return total;
+    }
+
+    public synchronized long position() throws IOException
+    {
+        if (!this.isOpen())
+            throw new ClosedChannelException();
+
+        return this.position;
+    }
+
+    public synchronized FileChannel position(long newPosition) throws IOException
+    {
+        if (newPosition < 0)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "newPosition < 0");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (!this.isOpen())
+            throw new ClosedChannelException();
+
+        this.position = newPosition;
+        return this;
+    }
+
+    public long size() throws IOException
+    {
+        if (!this.isOpen())
+            throw new ClosedChannelException();
+
+        return this.length;
+    }
+
+    public long transferTo(long position, long count, WritableByteChannel target) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(count, this.blockSize));
+        long total = 0;
+        while (total < count)
+        {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), count - total));
+            int n = this.read(buffer, position + total);
+            if (n <= 0)
+                break;
+
+            buffer.flip();
+            while (buffer.hasRemaining())
+            {
+                target.write(buffer);
+            }
+            total += n;
+        }
+
+        return total;
+    }
+
+    public int write(ByteBuffer src)
+    {
+        throw new NonWritableChannelException();
+    }
+
+    public long write(ByteBuffer[] srcs, int offset, int length)
+    {
+        throw new NonWritableChannelException();
+    }
+
+    public int write(ByteBuffer src, long position)
+    {
+        throw new NonWritableChannelException();
+    }
+
+    public FileChannel truncate(long size)
+    {
+        throw new NonWritableChannelException();
+    }
+
+    public long transferFrom(ReadableByteChannel src, long position, long count)
+    {
+        throw new NonWritableChannelException();
+    }
+
+    public void force(boolean metaData)
+    {
+        // Nothing is ever written.
+    }
+
+    public MappedByteBuffer map(MapMode mode, long position, long size)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public FileLock lock(long position, long size, boolean shared)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public FileLock tryLock(long position, long size, boolean shared)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    protected void implCloseChannel()
+    {
+        // Cached blocks remain available to other channels over the same resource.
+    }
+
+    /**
+     * Returns the length of the resource, either from the file store or by retrieving the resource's first block.
+     *
+     * @return the resource's length in bytes.
+     *
+     * @throws IOException if the length cannot be determined.
+     */
+    protected long determineLength() throws IOException
+    {
+        File file = this.findCachedFile(LENGTH_FILE_NAME);
+        if (file != null)
+        {
+            Long cachedLength = WWUtil.makeLong(WWIO.readTextFile(file));
+            if (cachedLength != null && cachedLength >= 0)
+                return cachedLength;
+
+            this.fileStore.removeFile(file.toURI().toURL());
+        }
+
+        HTTPRangeRetriever retriever = this.retrieve(0, this.blockSize);
+        long resourceLength = retriever.getResourceLength();
+        if (resourceLength < 0)
+        {
+            String message = Logging.getMessage("ByteRangeChannel.UnknownResourceLength", this.url);
+            Logging.logger().severe(message);
+            throw new IOException(message);
+        }
+
+        ByteBuffer buffer = retriever.getBuffer();
+        byte[] block = new byte[buffer.remaining()];
+        buffer.get(block);
+        this.addBlock(0, block);
+
+        if (this.fileStore != null)
+        {
+            File lengthFile = this.fileStore.newFile(this.cachePath + "/" + LENGTH_FILE_NAME);
+            if (lengthFile != null)
+                WWIO.writeTextFile(Long.toString(resourceLength), lengthFile);
+        }
+
+        return resourceLength;
+    }
+
+    /**
+     * Returns a range of blocks, retrieving those not in the memory cache or the file store. Each run of consecutive
+     * missing blocks is retrieved with a single request.
+     *
+     * @param firstBlock the index of the first block.
+     * @param lastBlock  the index of the last block.
+     *
+     * @return the blocks. Each block holds the block size in bytes, except the resource's last block.
+     *
+     * @throws IOException if a block cannot be retrieved.
+     */
+    protected byte[][] readBlocks(long firstBlock, long lastBlock) throws IOException
+    {
+        byte[][] blocks = new byte[(int) (lastBlock - firstBlock + 1)][];
+        for (int i = 0; i < blocks.length; i++)
+        {
+            blocks[i] = this.getCachedBlock(firstBlock + i);
+        }
+
+        for (int i = 0; i < blocks.length; )
+        {
+            if (blocks[i] != null)
+            {
+                i++;
+                continue;
+            }
+
+            int end = i + 1;
+            while (end < blocks.length && blocks[end] == null)
+            {
+                end++;
+            }
+
+            long offset = (firstBlock + i) * this.blockSize;
+            int count = (int) Math.min((long) (end - i) * this.blockSize, this.length - offset);
+            ByteBuffer buffer = this.retrieve(offset, count).getBuffer();
+            if (buffer.remaining() < count)
+            {
+                String message = Logging.getMessage("ByteRangeChannel.RangeNotRetrieved", offset, offset + count - 1,
+                    this.url);
+                Logging.logger().severe(message);
+                throw new IOException(message);
+            }
+
+            for (int j = i; j < end; j++)
+            {
+                blocks[j] = new byte[this.getBlockLength(firstBlock + j)];
+                buffer.get(blocks[j]);
+                this.addBlock(firstBlock + j, blocks[j]);
+            }
+
+            i = end;
+        }
+
+        return blocks;
+    }
+
+    /**
+     * Returns a block from the memory cache or the file store. Blocks found in the file store are added to the memory
+     * cache. Expired or incomplete block files are removed from the file store.
+     *
+     * @param index the block's index.
+     *
+     * @return the block, or null if it is not cached.
+     */
+    protected byte[] getCachedBlock(long index)
+    {
+        String key = this.cacheKeyPrefix + index;
+        byte[] block = (byte[]) getMemoryCache().getObject(key);
+        if (block != null)
+            return block;
+
+        File file = this.findCachedFile(index + BLOCK_SUFFIX);
+        if (file == null)
+            return null;
+
+        try
+        {
+            // A file of the wrong length was not completely written.
+            if (file.length() == this.getBlockLength(index))
+            {
+                ByteBuffer buffer = WWIO.readFileToBuffer(file);
+                block = new byte[buffer.remaining()];
+                buffer.get(block);
+                getMemoryCache().add(key, block, block.length);
+                return block;
+            }
+
+            this.fileStore.removeFile(file.toURI().toURL());
+        }
+        catch (IOException e)
+        {
+            Logging.logger().log(java.util.logging.Level.FINE,
+                Logging.getMessage("generic.ExceptionAttemptingToReadFile", file.getPath()), e);
+        }
+
+        return null;
+    }
+
+    /**
+     * Adds a retrieved block to the memory cache and the file store.
+     *
+     * @param index the block's index.
+     * @param block the block's bytes.
+     */
+    protected void addBlock(long index, byte[] block)
+    {
+        getMemoryCache().add(this.cacheKeyPrefix + index, block, block.length);
+
+        if (this.fileStore == null)
+            return;
+
+        File file = this.fileStore.newFile(this.cachePath + "/" + index + BLOCK_SUFFIX);
+        if (file == null)
+            return;
+
+        try
+        {
+            WWIO.saveBuffer(ByteBuffer.wrap(block), file);
+        }
+        catch (IOException e)
+        {
+            Logging.logger().log(java.util.logging.Level.FINE,
+                Logging.getMessage("generic.ExceptionAttemptingToWriteTo", file.getPath()), e);
+        }
+    }
+
+    /**
+     * Finds an unexpired file beneath this channel's cache path. An expired file is removed from the file store.
+     *
+     * @param name the file's name within the cache path.
+     *
+     * @return the file, or null if the channel has no file store or the file is not in it or has expired.
+     */
+    protected File findCachedFile(String name)
+    {
+        if (this.fileStore == null)
+            return null;
+
+        URL fileURL = this.fileStore.findFile(this.cachePath + "/" + name, false);
+        if (fileURL == null)
+            return null;
+
+        if (this.expiryTime > 0 && WWIO.isFileOutOfDate(fileURL, this.expiryTime))
+        {
+            this.fileStore.removeFile(fileURL);
+            return null;
+        }
+
+        return WWIO.convertURLToFile(fileURL);
+    }
+
+    protected int getBlockLength(long index)
+    {
+        return (int) Math.min(this.blockSize, this.length - index * this.blockSize);
+    }
+
+    /**
+     * Retrieves a range of the resource through the retrieval service and waits for it to arrive.
+     *
+     * @param offset the offset of the range's first byte.
+     * @param count  the number of bytes to retrieve.
+     *
+     * @return the completed retriever, whose buffer holds the retrieved bytes.
+     *
+     * @throws IOException if the range cannot be retrieved.
+     */
+    protected HTTPRangeRetriever retrieve(long offset, int count) throws IOException
+    {
+        if (WorldWind.getNetworkStatus().isHostUnavailable(this.url))
+        {
+            String message = Logging.getMessage("ByteRangeChannel.HostUnavailable", this.url);
+            Logging.logger().fine(message);
+            throw new IOException(message);
+        }
+
+        HTTPRangeRetriever retriever = new HTTPRangeRetriever(this.url, offset, count, null);
+
+        try
+        {
+            RetrievalFuture future = WorldWind.getRetrievalService().runRetriever(retriever);
+            if (future != null)
+                future.get();
+            else
+                retriever.call(); // an identical request is already running; retrieve the range on this thread
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        }
+        catch (Exception e)
+        {
+            Throwable cause = (e instanceof ExecutionException) ? e.getCause() : e;
+            throw new IOException(Logging.getMessage("ByteRangeChannel.RangeNotRetrieved", offset,
+                offset + count - 1, this.url), cause);
+        }
+
+        ByteBuffer buffer = retriever.getBuffer();
+        if (buffer == null || !Retriever.RETRIEVER_STATE_SUCCESSFUL.equals(retriever.getState()))
+        {
+            String message = Logging.getMessage("ByteRangeChannel.RangeNotRetrieved", offset, offset + count - 1,
+                this.url);
+            Logging.logger().fine(message);
+            throw new IOException(message);
+        }
+
+        this.requestCount.incrementAndGet();
+        this.bytesRetrieved.addAndGet(buffer.remaining());
+
+        return retriever;
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.retrieve;
+
+import gov.nasa.worldwind.util.Logging;
+
+import java.io.IOException;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.util.regex.*;
+
+/**
+ * Retrieves a range of bytes of an HTTP resource with a <code>Range</code> request. The retrieved buffer holds the
+ * bytes of the range, or fewer if the range extends beyond the end of the resource. Servers that ignore the range and
+ * return the whole resource are also supported; the range is then taken from the returned resource.
+ * <p>
+ * Retrievers for different ranges of the same resource are not equal, so the retrieval service runs them all.
+ *
+ * @version $Id$
+ * @see ByteRangeChannel
+ */
+public class HTTPRangeRetriever extends HTTPRetriever
+{
+    protected static final Pattern CONTENT_RANGE_PATTERN = Pattern.compile("bytes\\s+(\\d+)-(\\d+)/(\\d+|\\*)");
+
+    protected final long offset;
+    protected final int length;
+    protected volatile long resourceLength = -1;
+
+    /**
+     * Creates a retriever for a range of bytes.
+     *
+     * @param url           the resource's URL.
+     * @param offset        the offset of the range's first byte.
+     * @param length        the number of bytes in the range.
+     * @param postProcessor the retrieval post-processor to invoke when the range is retrieved. May be null.
+     *
+     * @throws IllegalArgumentException if the URL is null, the offset is negative or the length is less than 1.
+     */
+    public HTTPRangeRetriever(URL url, long offset, int length, RetrievalPostProcessor postProcessor)
+    {
+        super(url, postProcessor);
+
+        if (offset < 0 || length < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", offset < 0 ? "offset < 0" : "length < 1");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Returns the offset of the range's first byte.
+     *
+     * @return the range's offset.
+     */
+    public long getOffset()
+    {
+        return this.offset;
+    }
+
+    /**
+     * Returns the number of bytes requested.
+     *
+     * @return the range's length.
+     */
+    public int getLength()
+    {
+        return this.length;
+    }
+
+    /**
+     * Returns the length of the whole resource, as reported by the server when the range was retrieved.
+     *
+     * @return the resource's length in bytes, or -1 if the range has not been retrieved or the server did not report
+     *         the length.
+     */
+    public long getResourceLength()
+    {
+        return this.resourceLength;
+    }
+
+    @Override
+    protected URLConnection openConnection() throws IOException
+    {
+        URLConnection connection = super.openConnection();
+        connection.setRequestProperty("Range", "bytes=" + this.offset + "-" + (this.offset + this.length - 1));
+        return connection;
+    }
+
+    @Override
+    protected ByteBuffer doRead(URLConnection connection) throws Exception
+    {
+        ByteBuffer buffer = super.doRead(connection);
+        if (buffer == null)
+            return null;
+
+        if (this.getResponseCode() == HttpURLConnection.HTTP_PARTIAL)
+        {
+            String contentRange = connection.getHeaderField("Content-Range");
+            Matcher matcher = contentRange != null ? CONTENT_RANGE_PATTERN.matcher(contentRange) : null;
+            if (matcher == null || !matcher.matches() || Long.parseLong(matcher.group(1)) != this.offset)
+            {
+                String message = Logging.getMessage("HTTPRangeRetriever.UnexpectedContentRange", contentRange,
+                    this.url);
+                Logging.logger().severe(message);
+                throw new IOException(message);
+            }
+
+            if (!"*".equals(matcher.group(3)))
+                this.resourceLength = Long.parseLong(matcher.group(3));
+
+            if (buffer.remaining() > this.length)
+                buffer.limit(buffer.position() + this.length);
+
+            return buffer;
+        }
+
+        // The server ignored the range and returned the whole resource.
+        this.resourceLength = buffer.remaining();
+        int start = (int) Math.min(this.offset, buffer.remaining());
+        int end = (int) Math.min(this.offset + this.length, buffer.remaining());
+        buffer.position(buffer.position() + start);
+        buffer.limit(buffer.position() + end - start);
+        return buffer.slice();
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (!super.equals(o))
+            return false;
+
+        HTTPRangeRetriever that = (HTTPRangeRetriever) o;
+        return this.offset == that.offset && this.length == that.length;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int result = super.hashCode();
+        result = 31 * result + (int) (this.offset ^ (this.offset >>> 32));
+        result = 31 * result + this.length;
+        return result;
+    }
+}
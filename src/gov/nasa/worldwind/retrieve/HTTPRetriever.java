@@ -75,7 +75,8 @@ public class HTTPRetriever extends URLRetriever
             connection.getContentLength(), contentType != null ? contentType : "content type not returned",
             connection.getURL()});
 
-        if (this.responseCode == HttpURLConnection.HTTP_OK)
+        // Partial content is returned only to requests for a byte range; see HTTPRangeRetriever.
+        if (this.responseCode == HttpURLConnection.HTTP_OK || this.responseCode == HttpURLConnection.HTTP_PARTIAL)
             return super.doRead(connection);
 
         return null;
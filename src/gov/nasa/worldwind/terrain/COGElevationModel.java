@@ -0,0 +1,275 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.terrain;
+
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.data.*;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.retrieve.ByteRangeChannel;
+import gov.nasa.worldwind.util.*;
+
+import java.io.IOException;
+import java.net.URL;
+
+/**
+ * An elevation model whose elevations are read directly from a cloud-optimized GeoTIFF, local or remote, without first
+ * being imported into a tile pyramid. The model's levels coincide with the GeoTIFF's overviews, and each tile's
+ * elevations are read from the overview matching the tile's level. Only the GeoTIFF tiles covering a requested
+ * elevation tile are read; those of a remote GeoTIFF are retrieved with HTTP range requests and cached in the data file
+ * store by a {@link ByteRangeChannel}. No elevation tile files are written.
+ * <p>
+ * The GeoTIFF must be tiled, in geographic coordinates and contain elevations. The model's data type and missing data
+ * signal are those of the GeoTIFF. If the parameters do not specify the model's minimum and maximum elevations, they
+ * are computed from the GeoTIFF's lowest resolution overview when the model is created.
+ *
+ * @version $Id$
+ * @see COGRasterSource
+ */
+public class COGElevationModel extends BasicElevationModel
+{
+    /** The default number of elevations across and down a tile. */
+    public static final int DEFAULT_TILE_SIZE = 256;
+
+    protected final COGRasterSource source;
+
+    /**
+     * Creates an elevation model for a cloud-optimized GeoTIFF, caching the bytes of a remote GeoTIFF in the data file
+     * store.
+     *
+     * @param url the GeoTIFF's URL.
+     *
+     * @throws IOException              if the GeoTIFF cannot be read, or is not a tiled geographic elevation GeoTIFF.
+     * @throws IllegalArgumentException if the URL is null.
+     */
+    public COGElevationModel(URL url) throws IOException
+    {
+        this(url, null);
+    }
+
+    /**
+     * Creates an elevation model for a cloud-optimized GeoTIFF, caching the bytes of a remote GeoTIFF in the data file
+     * store.
+     *
+     * @param url    the GeoTIFF's URL.
+     * @param params the model's configuration parameters. May be null. Level set parameters not specified are computed
+     *               from the GeoTIFF, as described by {@link COGRasterSource#getLevelSetParams(int, int,
+     *               gov.nasa.worldwind.avlist.AVList)}.
+     *
+     * @throws IOException              if the GeoTIFF cannot be read, or is not a tiled geographic elevation GeoTIFF.
+     * @throws IllegalArgumentException if the URL is null.
+     */
+    public COGElevationModel(URL url, AVList params) throws IOException
+    {
+        this(new COGRasterSource(url, WorldWind.getDataFileStore(), null), params);
+    }
+
+    /**
+     * Creates an elevation model reading a cloud-optimized GeoTIFF from a source. The source is disposed when the model
+     * is disposed.
+     *
+     * @param source the GeoTIFF's source.
+     * @param params the model's configuration parameters. May be null. Level set parameters not specified are computed
+     *               from the GeoTIFF, as described by {@link COGRasterSource#getLevelSetParams(int, int,
+     *               gov.nasa.worldwind.avlist.AVList)}.
+     *
+     * @throws IOException              if the GeoTIFF does not contain elevations or cannot be read.
+     * @throws IllegalArgumentException if the source is null.
+     */
+    public COGElevationModel(COGRasterSource source, AVList params) throws IOException
+    {
+        super(createParams(source, params));
+
+        this.source = source;
+    }
+
+    protected static AVList createParams(COGRasterSource source, AVList params) throws IOException
+    {
+        if (source == null)
+        {
+            String message = Logging.getMessage("nullValue.SourceIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (!source.isElevation())
+            throw new IOException(Logging.getMessage("COGRasterSource.NotElevation", source.getName()));
+
+        params = params != null ? params.copy() : new AVListImpl();
+        if (params.getValue(AVKey.DISPLAY_NAME) == null)
+            params.setValue(AVKey.DISPLAY_NAME, WWIO.getFilename(source.getName()));
+
+        AVList metadata = source.getMetadata();
+        if (params.getValue(AVKey.DATA_TYPE) == null)
+            params.setValue(AVKey.DATA_TYPE, metadata.getValue(AVKey.DATA_TYPE));
+        if (params.getValue(AVKey.MISSING_DATA_SIGNAL) == null && metadata.getValue(AVKey.MISSING_DATA_SIGNAL) != null)
+            params.setValue(AVKey.MISSING_DATA_SIGNAL, metadata.getValue(AVKey.MISSING_DATA_SIGNAL));
+
+        int tileWidth = AVListImpl.getIntegerValue(params, AVKey.TILE_WIDTH, DEFAULT_TILE_SIZE);
+        int tileHeight = AVListImpl.getIntegerValue(params, AVKey.TILE_HEIGHT, DEFAULT_TILE_SIZE);
+        source.getLevelSetParams(tileWidth, tileHeight, params);
+
+        if (params.getValue(AVKey.ELEVATION_MIN) == null || params.getValue(AVKey.ELEVATION_MAX) == null)
+        {
+            double[] extremes = computeExtremeElevations(source, tileWidth, tileHeight,
+                AVListImpl.getDoubleValue(params, AVKey.MISSING_DATA_SIGNAL, -Double.MAX_VALUE));
+            if (extremes != null && params.getValue(AVKey.ELEVATION_MIN) == null)
+                params.setValue(AVKey.ELEVATION_MIN, extremes[0]);
+            if (extremes != null && params.getValue(AVKey.ELEVATION_MAX) == null)
+                params.setValue(AVKey.ELEVATION_MAX, extremes[1]);
+        }
+
+        return params;
+    }
+
+    /**
+     * Computes the minimum and maximum elevations of a GeoTIFF from a read of the entire GeoTIFF at approximately a
+     * specified resolution.
+     *
+     * @param source            the GeoTIFF's source.
+     * @param width             the minimum number of elevations across the GeoTIFF to read.
+     * @param height            the minimum number of elevations down the GeoTIFF to read.
+     * @param missingDataSignal the value indicating a missing elevation.
+     *
+     * @return the minimum and maximum elevations, or null if the GeoTIFF has no elevations.
+     *
+     * @throws IOException if the GeoTIFF cannot be read.
+     */
+    protected static double[] computeExtremeElevations(COGRasterSource source, int width, int height,
+        double missingDataSignal) throws IOException
+    {
+        DataRaster raster = source.read(source.getSector(), width, height);
+        if (!(raster instanceof BufferWrapperRaster))
+            return null;
+
+        try
+        {
+            BufferWrapperRaster elevations = (BufferWrapperRaster) raster;
+            double min = Double.MAX_VALUE;
+            double max = -Double.MAX_VALUE;
+            for (int row = 0; row < elevations.getHeight(); row++)
+            {
+                for (int col = 0; col < elevations.getWidth(); col++)
+                {
+                    double value = elevations.getDoubleAtPosition(row, col);
+                    if (value == missingDataSignal)
+                        continue;
+
+                    min = Math.min(min, value);
+                    max = Math.max(max, value);
+                }
+            }
+
+            return min <= max ? new double[] {min, max} : null;
+        }
+        finally
+        {
+            raster.dispose();
+        }
+    }
+
+    /**
+     * Returns the source from which this model's elevations are read.
+     *
+     * @return this model's GeoTIFF source.
+     */
+    public COGRasterSource getSource()
+    {
+        return this.source;
+    }
+
+    @Override
+    public void dispose()
+    {
+        super.dispose();
+        this.source.dispose();
+    }
+
+    /**
+     * Reads a tile's elevations from the GeoTIFF, instead of retrieving a tile file. This runs on the task service
+     * thread requesting the tile, and waits for any byte ranges of a remote GeoTIFF it needs to be retrieved. The tile
+     * is marked absent if the GeoTIFF cannot be read.
+     *
+     * @param tile          the tile whose elevations to read.
+     * @param postProcessor unused.
+     */
+    @Override
+    protected void retrieveElevations(Tile tile, DownloadPostProcessor postProcessor)
+    {
+        ElevationTile elevationTile = (ElevationTile) tile;
+        try
+        {
+            BufferWrapper elevations = this.readElevations(elevationTile);
+            if (elevations == null)
+            {
+                this.getLevels().markResourceAbsent(tile);
+                return;
+            }
+
+            elevationTile.setElevations(elevations, this);
+            this.addTileToCache(elevationTile, elevations);
+            this.getLevels().unmarkResourceAbsent(tile);
+            this.firePropertyChange(AVKey.ELEVATION_MODEL, null, this);
+        }
+        catch (IOException e)
+        {
+            this.getLevels().markResourceAbsent(tile);
+            String message = Logging.getMessage("ElevationModel.ExceptionRequestingElevations", tile.getPath());
+            Logging.logger().log(java.util.logging.Level.FINE, message, e);
+        }
+    }
+
+    /**
+     * Reads a tile's elevations from the GeoTIFF. Elevations the GeoTIFF does not cover are set to the missing data
+     * signal.
+     *
+     * @param tile the tile whose elevations to read.
+     *
+     * @return the tile's elevations, or null if the GeoTIFF does not intersect the tile.
+     *
+     * @throws IOException if the GeoTIFF cannot be read.
+     */
+    protected BufferWrapper readElevations(ElevationTile tile) throws IOException
+    {
+        AVList bufferParams = new AVListImpl();
+        bufferParams.setValue(AVKey.DATA_TYPE, this.getElevationDataType());
+        bufferParams.setValue(AVKey.BYTE_ORDER, this.getElevationDataByteOrder());
+
+        Sector sector = tile.getSector();
+        ByteBufferRaster canvas = new ByteBufferRaster(tile.getWidth(), tile.getHeight(), sector, bufferParams);
+        canvas.fill(this.getMissingDataSignal());
+        canvas.setTransparentValue(this.getMissingDataSignal());
+
+        if (!this.source.drawOnTo(canvas))
+            return null;
+
+        return BufferWrapper.wrap(canvas.getByteBuffer(), bufferParams);
+    }
+}
@@ -1765,22 +1765,16 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
 
         int numVertsTimesThree = numVerticesPerEdge * 3;
 
-//        double[] a = new double[6];
-        ri.vertices.position(bottomLeft);
-//        ri.vertices.get(a);
-//        Vec4 bL = new Vec4(a[0], a[1], a[2]);
-//        Vec4 bR = new Vec4(a[3], a[4], a[5]);
-        Vec4 bL = new Vec4(ri.vertices.get(), ri.vertices.get(), ri.vertices.get());
-        Vec4 bR = new Vec4(ri.vertices.get(), ri.vertices.get(), ri.vertices.get());
+        // Use absolute reads so that the vertex buffer's position is unchanged. Surface points may be computed on
+        // threads other than the rendering thread, such as those of ShapeGeometryScheduler.
+        FloatBuffer v = ri.vertices;
+        Vec4 bL = new Vec4(v.get(bottomLeft), v.get(bottomLeft + 1), v.get(bottomLeft + 2));
+        Vec4 bR = new Vec4(v.get(bottomLeft + 3), v.get(bottomLeft + 4), v.get(bottomLeft + 5));
 
         bottomLeft += numVertsTimesThree;
 
-        ri.vertices.position(bottomLeft);
-//        ri.vertices.get(a);
-//        Vec4 tL = new Vec4(a[0], a[1], a[2]);
-//        Vec4 tR = new Vec4(a[3], a[4], a[5]);
-        Vec4 tL = new Vec4(ri.vertices.get(), ri.vertices.get(), ri.vertices.get());
-        Vec4 tR = new Vec4(ri.vertices.get(), ri.vertices.get(), ri.vertices.get());
+        Vec4 tL = new Vec4(v.get(bottomLeft), v.get(bottomLeft + 1), v.get(bottomLeft + 2));
+        Vec4 tR = new Vec4(v.get(bottomLeft + 3), v.get(bottomLeft + 4), v.get(bottomLeft + 5));
 
         return interpolate(bL, bR, tR, tL, xDec, yDec);
     }
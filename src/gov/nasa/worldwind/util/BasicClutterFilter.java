@@ -34,7 +34,10 @@ import java.awt.geom.*;
 import java.util.*;
 
 /**
- * A simple clutter filter that compares bounding rectangles to each other.
+ * A simple clutter filter that compares bounding rectangles to each other. Shapes are considered in the order they are
+ * given, which is front to back, unless a priority comparator is specified; a shape is drawn only if its bounds do not
+ * intersect those of a shape drawn before it. The drawn rectangles are held in a {@link RectangleGrid}, so each shape
+ * is compared only with the drawn shapes near it on the screen.
  *
  * @author tag
  * @version $Id: BasicClutterFilter.java 726 2012-08-29 03:16:03Z tgaskins $
@@ -42,12 +45,48 @@ import java.util.*;
 public class BasicClutterFilter implements ClutterFilter
 {
     protected List<Rectangle2D> rectList = new ArrayList<Rectangle2D>();
+    protected RectangleGrid rectGrid = new RectangleGrid();
+    protected Comparator<? super Declutterable> priorityComparator;
+
+    /**
+     * Indicates the comparator that orders shapes by priority.
+     *
+     * @return the priority comparator, or null if shapes are considered in the order they are given.
+     *
+     * @see #setPriorityComparator(java.util.Comparator)
+     */
+    public Comparator<? super Declutterable> getPriorityComparator()
+    {
+        return this.priorityComparator;
+    }
+
+    /**
+     * Specifies a comparator that orders shapes by priority. Shapes that compare lower are considered first and
+     * therefore win when they overlap shapes that compare higher. The sort is stable, so shapes of equal priority
+     * remain in front-to-back order and the result is deterministic.
+     *
+     * @param priorityComparator the priority comparator. May be null, in which case shapes are considered in the order
+     *                           they are given.
+     */
+    public void setPriorityComparator(Comparator<? super Declutterable> priorityComparator)
+    {
+        this.priorityComparator = priorityComparator;
+    }
 
     public void apply(DrawContext dc, List<Declutterable> shapes)
     {
-        for (Declutterable shape : shapes)
+        shapes = this.prioritize(shapes);
+
+        Rectangle2D[] boundsArray = new Rectangle2D[shapes.size()];
+        for (int i = 0; i < boundsArray.length; i++)
         {
-            Rectangle2D bounds = shape.getBounds(dc);
+            boundsArray[i] = shapes.get(i).getBounds(dc);
+        }
+        this.rectGrid.resetFor(boundsArray);
+
+        for (int i = 0; i < boundsArray.length; i++)
+        {
+            Rectangle2D bounds = boundsArray[i];
             if (bounds == null)
                 continue;
 
@@ -56,17 +95,36 @@ public class BasicClutterFilter implements ClutterFilter
             Rectangle2D intersectingRegion = this.intersects(bounds);
             if (intersectingRegion == null)
             {
-                dc.addOrderedRenderable(shape);
+                dc.addOrderedRenderable(shapes.get(i));
                 this.rectList.add(bounds);
+                this.rectGrid.add(bounds);
             }
         }
 
         this.clear();
     }
 
+    /**
+     * Orders shapes by the priority comparator, if one is specified.
+     *
+     * @param shapes the shapes to order.
+     *
+     * @return the shapes in priority order. The specified list is not modified.
+     */
+    protected List<Declutterable> prioritize(List<Declutterable> shapes)
+    {
+        if (this.priorityComparator == null)
+            return shapes;
+
+        List<Declutterable> list = new ArrayList<Declutterable>(shapes);
+        Collections.sort(list, this.priorityComparator);
+        return list;
+    }
+
     protected void clear()
     {
         this.rectList.clear();
+        this.rectGrid.clear();
     }
 
     /**
@@ -81,13 +139,6 @@ public class BasicClutterFilter implements ClutterFilter
         if (rectangle == null)
             return null;
 
-        // Performs a simple linear search. This is a performance bottleneck for very large lists.
-        for (Rectangle2D rect : this.rectList)
-        {
-            if (rectangle.intersects(rect))
-                return rect;
-        }
-
-        return null;
+        return this.rectGrid.findFirstIntersecting(rectangle);
     }
 }
@@ -0,0 +1,702 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.util;
+
+import gov.nasa.worldwind.avlist.AVKey;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.Globe;
+
+import java.util.*;
+
+/**
+ * A list of geographic contours whose locations are packed into a single array of (latitude, longitude) degree pairs.
+ * ContourBuffer holds the same information as a <code>List&lt;List&lt;LatLon&gt;&gt;</code> without creating a {@link
+ * LatLon} and two {@link Angle} instances per location, and provides the dateline and pole handling that {@link LatLon}
+ * performs on location lists, operating on the packed coordinates directly.
+ * <p>
+ * Contours are built by calling {@link #beginContour()} followed by one or more calls to <code>add</code>. Locations
+ * are identified by their index in the buffer; the locations of contour <code>i</code> are the indices
+ * <code>getContourOffset(i)</code> through <code>getContourOffset(i) + getContourSize(i) - 1</code>.
+ *
+ * @version $Id$
+ */
+public class ContourBuffer
+{
+    protected static final int DEFAULT_CAPACITY = 16;
+
+    /** Latitude and longitude in degrees of each location, in that order. */
+    protected double[] coords;
+    /** The number of locations in the buffer. */
+    protected int size;
+    /** The index of the first location of each contour. */
+    protected int[] contourOffsets;
+    /** The number of contours in the buffer. */
+    protected int contourCount;
+
+    /** Creates an empty buffer. */
+    public ContourBuffer()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty buffer able to hold the specified number of locations before it must grow.
+     *
+     * @param initialCapacity the number of locations to allocate space for.
+     *
+     * @throws IllegalArgumentException if the capacity is negative.
+     */
+    public ContourBuffer(int initialCapacity)
+    {
+        if (initialCapacity < 0)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", initialCapacity);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.coords = new double[2 * initialCapacity];
+        this.contourOffsets = new int[4];
+    }
+
+    /**
+     * Creates a buffer containing one contour for each of the specified location lists.
+     *
+     * @param contours the location lists to copy. May be null.
+     *
+     * @return a new buffer containing the specified contours, or null if the contours are null.
+     */
+    public static ContourBuffer fromLocationLists(Iterable<? extends Iterable<? extends LatLon>> contours)
+    {
+        if (contours == null)
+            return null;
+
+        ContourBuffer buffer = new ContourBuffer();
+        for (Iterable<? extends LatLon> contour : contours)
+        {
+            buffer.addContour(contour);
+        }
+
+        return buffer;
+    }
+
+    /**
+     * Returns the number of locations in this buffer, summed over all contours.
+     *
+     * @return the number of locations.
+     */
+    public int size()
+    {
+        return this.size;
+    }
+
+    public int getContourCount()
+    {
+        return this.contourCount;
+    }
+
+    /**
+     * Indicates whether this buffer contains any contours.
+     *
+     * @return true if the buffer has no contours, otherwise false.
+     */
+    public boolean isEmpty()
+    {
+        return this.contourCount == 0;
+    }
+
+    /**
+     * Returns the index of a contour's first location.
+     *
+     * @param contour the contour index.
+     *
+     * @return the index of the contour's first location.
+     *
+     * @throws IllegalArgumentException if the contour index is out of range.
+     */
+    public int getContourOffset(int contour)
+    {
+        this.checkContourIndex(contour);
+
+        return this.contourOffsets[contour];
+    }
+
+    /**
+     * Returns the number of locations in a contour.
+     *
+     * @param contour the contour index.
+     *
+     * @return the number of locations in the contour.
+     *
+     * @throws IllegalArgumentException if the contour index is out of range.
+     */
+    public int getContourSize(int contour)
+    {
+        this.checkContourIndex(contour);
+
+        int end = contour < this.contourCount - 1 ? this.contourOffsets[contour + 1] : this.size;
+        return end - this.contourOffsets[contour];
+    }
+
+    public double getLatitude(int index)
+    {
+        return this.coords[2 * index];
+    }
+
+    public double getLongitude(int index)
+    {
+        return this.coords[2 * index + 1];
+    }
+
+    public LatLon getLocation(int index)
+    {
+        if (index < 0 || index >= this.size)
+        {
+            String message = Logging.getMessage("generic.indexOutOfRange", index);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        return LatLon.fromDegrees(this.coords[2 * index], this.coords[2 * index + 1]);
+    }
+
+    /**
+     * Returns the array backing this buffer. Latitude and longitude of location <code>i</code> are at array indices
+     * <code>2 * i</code> and <code>2 * i + 1</code>. Only the first <code>2 * size()</code> elements are meaningful,
+     * and the array is replaced when the buffer grows.
+     *
+     * @return the array backing this buffer.
+     */
+    public double[] getCoords()
+    {
+        return this.coords;
+    }
+
+    /**
+     * Returns a read-only view of a contour's locations. The view creates a {@link LatLon} each time a location is
+     * retrieved, and reflects subsequent changes to this buffer.
+     *
+     * @param contour the contour index.
+     *
+     * @return a list view of the contour.
+     *
+     * @throws IllegalArgumentException if the contour index is out of range.
+     */
+    public List<LatLon> getContour(int contour)
+    {
+        final int offset = this.getContourOffset(contour);
+        final int count = this.getContourSize(contour);
+
+        return new AbstractList<LatLon>()
+        {
+            public LatLon get(int index)
+            {
+                if (index < 0 || index >= count)
+                    throw new IndexOutOfBoundsException(Logging.getMessage("generic.indexOutOfRange", index));
+
+                return getLocation(offset + index);
+            }
+
+            public int size()
+            {
+                return count;
+            }
+        };
+    }
+
+    /**
+     * Copies this buffer's contours into new location lists.
+     *
+     * @return a list containing one new location list per contour.
+     */
+    public List<List<LatLon>> toLocationLists()
+    {
+        List<List<LatLon>> lists = new ArrayList<List<LatLon>>(this.contourCount);
+        for (int i = 0; i < this.contourCount; i++)
+        {
+            lists.add(new ArrayList<LatLon>(this.getContour(i)));
+        }
+
+        return lists;
+    }
+
+    /** Starts a new, empty contour. Subsequently added locations are appended to this contour. */
+    public void beginContour()
+    {
+        if (this.contourCount == this.contourOffsets.length)
+            this.contourOffsets = Arrays.copyOf(this.contourOffsets, 2 * this.contourOffsets.length);
+
+        this.contourOffsets[this.contourCount++] = this.size;
+    }
+
+    /**
+     * Appends a location to the last contour. If the buffer has no contours, this starts one.
+     *
+     * @param latitude  the location's latitude in degrees.
+     * @param longitude the location's longitude in degrees.
+     */
+    public void add(double latitude, double longitude)
+    {
+        if (this.contourCount == 0)
+            this.beginContour();
+
+        this.ensureCapacity(this.size + 1);
+        this.coords[2 * this.size] = latitude;
+        this.coords[2 * this.size + 1] = longitude;
+        this.size++;
+    }
+
+    /**
+     * Appends a location to the last contour. If the buffer has no contours, this starts one.
+     *
+     * @param location the location to append.
+     *
+     * @throws IllegalArgumentException if the location is null.
+     */
+    public void add(LatLon location)
+    {
+        if (location == null)
+        {
+            String message = Logging.getMessage("nullValue.LatLonIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.add(location.latitude.degrees, location.longitude.degrees);
+    }
+
+    /**
+     * Appends a new contour containing the specified locations.
+     *
+     * @param locations the contour's locations.
+     *
+     * @throws IllegalArgumentException if the locations are null.
+     */
+    public void addContour(Iterable<? extends LatLon> locations)
+    {
+        if (locations == null)
+        {
+            String message = Logging.getMessage("nullValue.IterableIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (locations instanceof Collection)
+            this.ensureCapacity(this.size + ((Collection) locations).size());
+
+        this.beginContour();
+        for (LatLon ll : locations)
+        {
+            this.add(ll.latitude.degrees, ll.longitude.degrees);
+        }
+    }
+
+    /**
+     * Appends a copy of a contour from another buffer as a new contour.
+     *
+     * @param source  the buffer containing the contour.
+     * @param contour the index of the contour in the source buffer.
+     *
+     * @throws IllegalArgumentException if the source is null or the contour index is out of range.
+     */
+    public void addContour(ContourBuffer source, int contour)
+    {
+        if (source == null)
+        {
+            String message = Logging.getMessage("nullValue.BufferIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        int offset = source.getContourOffset(contour);
+        int count = source.getContourSize(contour);
+
+        this.ensureCapacity(this.size + count);
+        this.beginContour();
+        System.arraycopy(source.coords, 2 * offset, this.coords, 2 * this.size, 2 * count);
+        this.size += count;
+    }
+
+    /** Removes the last contour and its locations. Does nothing if the buffer is empty. */
+    public void removeLastContour()
+    {
+        if (this.contourCount == 0)
+            return;
+
+        this.size = this.contourOffsets[--this.contourCount];
+    }
+
+    /**
+     * Reverses the order of a contour's locations.
+     *
+     * @param contour the contour index.
+     *
+     * @throws IllegalArgumentException if the contour index is out of range.
+     */
+    public void reverseContour(int contour)
+    {
+        int i = this.getContourOffset(contour);
+        int j = i + this.getContourSize(contour) - 1;
+
+        for (; i < j; i++, j--)
+        {
+            double lat = this.coords[2 * i];
+            double lon = this.coords[2 * i + 1];
+            this.coords[2 * i] = this.coords[2 * j];
+            this.coords[2 * i + 1] = this.coords[2 * j + 1];
+            this.coords[2 * j] = lat;
+            this.coords[2 * j + 1] = lon;
+        }
+    }
+
+    /** Removes all contours and locations. The buffer's capacity is retained. */
+    public void clear()
+    {
+        this.size = 0;
+        this.contourCount = 0;
+    }
+
+    /** Releases any capacity not used by the buffer's current contents. */
+    public void trimToSize()
+    {
+        if (this.coords.length > 2 * this.size)
+            this.coords = Arrays.copyOf(this.coords, 2 * this.size);
+
+        if (this.contourOffsets.length > this.contourCount)
+            this.contourOffsets = Arrays.copyOf(this.contourOffsets, this.contourCount);
+    }
+
+    /**
+     * Returns the approximate number of bytes of heap used by this buffer.
+     *
+     * @return the buffer's size in bytes.
+     */
+    public long getSizeInBytes()
+    {
+        return 32 + 16 + 8L * this.coords.length + 16 + 4L * this.contourOffsets.length;
+    }
+
+    /**
+     * Ensures the buffer can hold the specified number of locations without growing.
+     *
+     * @param capacity the number of locations.
+     */
+    public void ensureCapacity(int capacity)
+    {
+        if (2 * capacity <= this.coords.length)
+            return;
+
+        int newLength = Math.max(2 * capacity, this.coords.length + (this.coords.length >> 1));
+        this.coords = Arrays.copyOf(this.coords, Math.max(newLength, 2 * DEFAULT_CAPACITY));
+    }
+
+    protected void checkContourIndex(int contour)
+    {
+        if (contour < 0 || contour >= this.contourCount)
+        {
+            String message = Logging.getMessage("generic.indexOutOfRange", contour);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    //**************************************************************//
+    //********************  Dateline and Pole Handling  ************//
+    //**************************************************************//
+
+    /**
+     * Indicates whether the segment between two longitudes crosses the dateline. This is the test performed by {@link
+     * LatLon#locationsCrossDateline(LatLon, LatLon)}.
+     *
+     * @param lon1 the first longitude in degrees.
+     * @param lon2 the second longitude in degrees.
+     *
+     * @return true if the segment crosses the dateline, otherwise false.
+     */
+    public static boolean crossesDateLine(double lon1, double lon2)
+    {
+        // A segment cross the line if end pos have different longitude signs and are more than 180 degrees longitude
+        // apart.
+        if (Math.signum(lon1) != Math.signum(lon2))
+        {
+            double delta = Math.abs(lon1 - lon2);
+            return delta > 180 && delta < 360;
+        }
+
+        return false;
+    }
+
+    /**
+     * Indicates whether a contour crosses the dateline. See {@link LatLon#locationsCrossDateLine(Iterable)}.
+     *
+     * @param contour the contour index.
+     *
+     * @return true if any segment of the contour crosses the dateline, otherwise false.
+     *
+     * @throws IllegalArgumentException if the contour index is out of range.
+     */
+    public boolean crossesDateLine(int contour)
+    {
+        int begin = this.getContourOffset(contour);
+        int end = begin + this.getContourSize(contour);
+
+        for (int i = begin + 1; i < end; i++)
+        {
+            if (crossesDateLine(this.coords[2 * i - 1], this.coords[2 * i + 1]))
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Determines whether a contour encloses the North or South pole. The contour is treated as a closed loop. See
+     * {@link LatLon#locationsContainPole(Iterable)}.
+     *
+     * @param contour the contour index.
+     *
+     * @return AVKey.NORTH if the North Pole is enclosed, AVKey.SOUTH if the South Pole is enclosed, or null if neither
+     *         pole is enclosed.
+     *
+     * @throws IllegalArgumentException if the contour index is out of range.
+     */
+    public String containsPole(int contour)
+    {
+        int begin = this.getContourOffset(contour);
+        int end = begin + this.getContourSize(contour);
+        if (begin == end)
+            return null;
+
+        // Shapes that include a pole cross the dateline an odd number of times.
+        boolean containsPole = false;
+        double minLatitude = 90.0;
+        double maxLatitude = -90.0;
+
+        for (int i = begin; i < end; i++)
+        {
+            if (i > begin && crossesDateLine(this.coords[2 * i - 1], this.coords[2 * i + 1]))
+                containsPole = !containsPole;
+
+            double lat = this.coords[2 * i];
+            if (lat < minLatitude)
+                minLatitude = lat;
+            if (lat > maxLatitude)
+                maxLatitude = lat;
+        }
+
+        // Close the loop by connecting the last location to the first.
+        if (crossesDateLine(this.coords[2 * begin + 1], this.coords[2 * end - 1]))
+            containsPole = !containsPole;
+
+        if (!containsPole)
+            return null;
+
+        if (minLatitude > 0)
+            return AVKey.NORTH; // Entirely in Northern Hemisphere
+        else if (maxLatitude < 0)
+            return AVKey.SOUTH; // Entirely in Southern Hemisphere
+        else if (Math.abs(maxLatitude) >= Math.abs(minLatitude))
+            return AVKey.NORTH; // Spans equator, but more north than south
+        else
+            return AVKey.SOUTH;
+    }
+
+    /**
+     * Returns the winding order of a contour. See {@link WWMath#computeWindingOrderOfLocations(Iterable)}.
+     *
+     * @param contour the contour index.
+     *
+     * @return {@link AVKey#CLOCKWISE} if the contour has clockwise winding order, and {@link AVKey#COUNTER_CLOCKWISE}
+     *         otherwise.
+     *
+     * @throws IllegalArgumentException if the contour index is out of range.
+     */
+    public String computeWindingOrder(int contour)
+    {
+        int begin = this.getContourOffset(contour);
+        int end = begin + this.getContourSize(contour);
+        if (begin == end)
+            return AVKey.COUNTER_CLOCKWISE;
+
+        // Shift negative longitudes of dateline spanning contours past 180 to keep the contour continuous.
+        boolean shift = this.crossesDateLine(contour);
+
+        double area = 0;
+        double firstLat = this.coords[2 * begin];
+        double firstLon = shiftLongitude(this.coords[2 * begin + 1], shift);
+        double lat = firstLat;
+        double lon = firstLon;
+
+        for (int i = begin + 1; i < end; i++)
+        {
+            double nextLat = this.coords[2 * i];
+            double nextLon = shiftLongitude(this.coords[2 * i + 1], shift);
+
+            area += lon * nextLat;
+            area -= nextLon * lat;
+
+            lat = nextLat;
+            lon = nextLon;
+        }
+
+        // Include the area connecting the last point to the first point, if they're not already equal.
+        if (lat != firstLat || lon != firstLon)
+        {
+            area += lon * firstLat;
+            area -= firstLon * lat;
+        }
+
+        return (area < 0) ? AVKey.CLOCKWISE : AVKey.COUNTER_CLOCKWISE;
+    }
+
+    protected static double shiftLongitude(double longitude, boolean shift)
+    {
+        return shift && longitude < 0 ? longitude + 360 : longitude;
+    }
+
+    /**
+     * Appends to a destination buffer two copies of a contour that crosses the dateline: one that extends across the
+     * -180 longitude boundary and one that extends across the +180 longitude boundary. If the contour does not cross
+     * the dateline this appends a single copy. See {@link LatLon#repeatLocationsAroundDateline(Iterable)}.
+     *
+     * @param contour the contour index.
+     * @param dest    the buffer to append the copies to. Must not be this buffer.
+     *
+     * @throws IllegalArgumentException if the destination is null or this buffer, or if the contour index is out of
+     *                                  range.
+     */
+    public void repeatAroundDateline(int contour, ContourBuffer dest)
+    {
+        this.checkDestination(dest);
+
+        int begin = this.getContourOffset(contour);
+        int end = begin + this.getContourSize(contour);
+
+        dest.ensureCapacity(dest.size + 2 * (end - begin));
+        dest.beginContour();
+        int first = dest.size;
+
+        double lonOffset = 0;
+        boolean applyLonOffset = false;
+
+        for (int i = begin; i < end; i++)
+        {
+            double lon = this.coords[2 * i + 1];
+
+            if (i > begin && crossesDateLine(this.coords[2 * i - 1], lon))
+            {
+                if (lonOffset == 0)
+                    lonOffset = (this.coords[2 * i - 1] < 0 ? -360 : 360);
+
+                applyLonOffset = !applyLonOffset;
+            }
+
+            dest.add(this.coords[2 * i], applyLonOffset ? lon + lonOffset : lon);
+        }
+
+        if (lonOffset != 0) // longitude offset is non-zero when the contour crosses the dateline
+        {
+            int last = dest.size;
+            dest.beginContour();
+            for (int i = first; i < last; i++)
+            {
+                dest.add(dest.coords[2 * i], dest.coords[2 * i + 1] - lonOffset);
+            }
+        }
+    }
+
+    /**
+     * Appends to a destination buffer a copy of a contour that encloses a pole, divided along the dateline. Where the
+     * contour crosses the dateline, locations are inserted that run to the pole and back to the intersection on the
+     * other side of the dateline, allowing the contour to be "unrolled" in a lat-lon projection. See {@link
+     * LatLon#cutLocationsAlongDateLine(Iterable, String, Globe)}.
+     *
+     * @param contour the contour index.
+     * @param pole    the pole enclosed by the contour, either AVKey.NORTH or AVKey.SOUTH.
+     * @param globe   the current globe, or null to treat geographic coordinates as linear when computing the dateline
+     *                intersection.
+     * @param dest    the buffer to append the contour to. Must not be this buffer.
+     *
+     * @throws IllegalArgumentException if the pole is null, if the destination is null or this buffer, or if the
+     *                                  contour index is out of range.
+     */
+    public void cutAlongDateLine(int contour, String pole, Globe globe, ContourBuffer dest)
+    {
+        if (pole == null)
+        {
+            String message = Logging.getMessage("nullValue.PoleIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.checkDestination(dest);
+
+        int begin = this.getContourOffset(contour);
+        int end = begin + this.getContourSize(contour);
+        double poleLat = AVKey.NORTH.equals(pole) ? 90 : -90;
+
+        dest.ensureCapacity(dest.size + end - begin + 4);
+        dest.beginContour();
+
+        for (int i = begin; i < end; i++)
+        {
+            double lat = this.coords[2 * i];
+            double lon = this.coords[2 * i + 1];
+            dest.add(lat, lon);
+
+            if (i < end - 1 && crossesDateLine(lon, this.coords[2 * i + 3]))
+            {
+                // Determine where the segment crosses the dateline, then add locations that run from the
+                // intersection to the pole and back to the intersection on the other side of the dateline.
+                LatLon separation = LatLon.intersectionWithMeridian(LatLon.fromDegrees(lat, lon),
+                    LatLon.fromDegrees(this.coords[2 * i + 2], this.coords[2 * i + 3]), Angle.POS180, globe);
+                double sepLat = separation.latitude.degrees;
+                double thisSideLon = 180 * Math.signum(lon);
+                double otherSideLon = -thisSideLon;
+
+                dest.add(sepLat, thisSideLon);
+                dest.add(poleLat, thisSideLon);
+                dest.add(poleLat, otherSideLon);
+                dest.add(sepLat, otherSideLon);
+            }
+        }
+    }
+
+    protected void checkDestination(ContourBuffer dest)
+    {
+        if (dest == null || dest == this)
+        {
+            String message = Logging.getMessage(dest == null ? "nullValue.BufferIsNull" : "generic.ArgumentOutOfRange",
+                dest);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+    }
+}
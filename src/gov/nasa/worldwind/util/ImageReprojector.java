@@ -0,0 +1,704 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.util;
+
+import gov.nasa.worldwind.exception.WWRuntimeException;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.geom.coords.TMCoord;
+import gov.nasa.worldwind.globes.*;
+
+import java.awt.image.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Reprojects images onto geographic (latitude and longitude) grids. The source pixel corresponding to each destination
+ * pixel is found with an {@link InverseTransform}. Rather than evaluating the transform at every destination pixel, the
+ * transform is evaluated on a coarse grid of destination pixels and interpolated between grid points. The grid is the
+ * coarsest whose interpolated source positions are within a specified tolerance of the exact positions, so the cost of
+ * expensive projections is independent of the image size. Pixels are read from and written to the images' data arrays
+ * directly, and large images are drawn in bands of rows on a shared pool of threads.
+ * <p>
+ * Transforms are provided for the projections in {@link gov.nasa.worldwind.globes.projections}, see {@link
+ * ProjectionTransform}, and for transverse Mercator coordinates computed by {@link TMCoord}, see {@link TMTransform}.
+ *
+ * @version $Id$
+ * @see ImageUtil#reprojectUtmToGeographic(gov.nasa.worldwind.avlist.AVList, int)
+ */
+public class ImageReprojector
+{
+    /** The default maximum distance, in source pixels, between interpolated and exact source positions. */
+    public static final double DEFAULT_TOLERANCE = 0.125;
+
+    /** The largest grid spacing, in destination pixels. */
+    protected static final int MAX_GRID_STEP = 64;
+    /** Images drawing fewer pixels than this are drawn entirely on the calling thread. */
+    protected static final int MIN_PARALLEL_PIXELS = 256 * 256;
+    /** The minimum number of destination rows drawn by one thread. */
+    protected static final int MIN_ROWS_PER_TASK = 64;
+
+    protected static final int POOL_SIZE = Runtime.getRuntime().availableProcessors();
+    protected static final ThreadPoolExecutor executor = createExecutor();
+
+    protected static ThreadPoolExecutor createExecutor()
+    {
+        // The calling thread draws one band itself, so the pool needs one thread fewer than the processor count.
+        int poolSize = Math.max(POOL_SIZE - 1, 1);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 2, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(),
+            new ThreadFactory()
+            {
+                public Thread newThread(Runnable runnable)
+                {
+                    Thread thread = new Thread(runnable, "Image Reprojection");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Maps geographic locations to positions in a source image. Transforms are called concurrently from several threads
+     * and must be thread safe.
+     */
+    public interface InverseTransform
+    {
+        /**
+         * Computes the source image position of a geographic location.
+         *
+         * @param latitude  the location's latitude, in degrees.
+         * @param longitude the location's longitude, in degrees.
+         * @param result    an array of length two to receive the source column and row. Column and row zero are the
+         *                  center of the source's upper-left pixel.
+         *
+         * @return true if the position was computed, false if the location cannot be projected.
+         */
+        boolean transform(double latitude, double longitude, double[] result);
+    }
+
+    /**
+     * Transforms geographic locations to the pixels of an image whose rows and columns are aligned with projected
+     * coordinates. Subclasses compute the projected coordinates.
+     */
+    public abstract static class ProjectedTransform implements InverseTransform
+    {
+        protected final double originX;
+        protected final double originY;
+        protected final double pixelWidth;
+        protected final double pixelHeight;
+
+        /**
+         * Creates a transform for an image with a specified placement in projected coordinates.
+         *
+         * @param originX     the projected x coordinate of the center of the image's upper-left pixel.
+         * @param originY     the projected y coordinate of the center of the image's upper-left pixel.
+         * @param pixelWidth  the change in projected x coordinate from one column to the next.
+         * @param pixelHeight the change in projected y coordinate from one row to the next. This is negative for images
+         *                    whose rows run from north to south.
+         *
+         * @throws IllegalArgumentException if either pixel size is zero.
+         */
+        public ProjectedTransform(double originX, double originY, double pixelWidth, double pixelHeight)
+        {
+            if (pixelWidth == 0 || pixelHeight == 0)
+            {
+                String message = Logging.getMessage("generic.ArgumentOutOfRange", "pixel size == 0");
+                Logging.logger().severe(message);
+                throw new IllegalArgumentException(message);
+            }
+
+            this.originX = originX;
+            this.originY = originY;
+            this.pixelWidth = pixelWidth;
+            this.pixelHeight = pixelHeight;
+        }
+
+        public boolean transform(double latitude, double longitude, double[] result)
+        {
+            if (!this.project(latitude, longitude, result))
+                return false;
+
+            result[0] = (result[0] - this.originX) / this.pixelWidth;
+            result[1] = (result[1] - this.originY) / this.pixelHeight;
+            return true;
+        }
+
+        /**
+         * Computes the projected coordinates of a geographic location.
+         *
+         * @param latitude  the location's latitude, in degrees.
+         * @param longitude the location's longitude, in degrees.
+         * @param result    an array of length two to receive the projected x and y coordinates.
+         *
+         * @return true if the coordinates were computed, false if the location cannot be projected.
+         */
+        protected abstract boolean project(double latitude, double longitude, double[] result);
+    }
+
+    /** Projects geographic locations with a {@link GeographicProjection}, such as those used by flat globes. */
+    public static class ProjectionTransform extends ProjectedTransform
+    {
+        protected final GeographicProjection projection;
+        protected final Globe globe;
+
+        /**
+         * Creates a transform for an image in a specified projection.
+         *
+         * @param projection  the image's projection.
+         * @param globe       the globe whose radius and eccentricity the projection uses.
+         * @param originX     the projected x coordinate of the center of the image's upper-left pixel.
+         * @param originY     the projected y coordinate of the center of the image's upper-left pixel.
+         * @param pixelWidth  the change in projected x coordinate from one column to the next.
+         * @param pixelHeight the change in projected y coordinate from one row to the next.
+         *
+         * @throws IllegalArgumentException if the projection or globe is null, or either pixel size is zero.
+         */
+        public ProjectionTransform(GeographicProjection projection, Globe globe, double originX, double originY,
+            double pixelWidth, double pixelHeight)
+        {
+            super(originX, originY, pixelWidth, pixelHeight);
+
+            if (projection == null)
+            {
+                String message = Logging.getMessage("nullValue.ProjectionIsNull");
+                Logging.logger().severe(message);
+                throw new IllegalArgumentException(message);
+            }
+
+            if (globe == null)
+            {
+                String message = Logging.getMessage("nullValue.GlobeIsNull");
+                Logging.logger().severe(message);
+                throw new IllegalArgumentException(message);
+            }
+
+            this.projection = projection;
+            this.globe = globe;
+        }
+
+        protected boolean project(double latitude, double longitude, double[] result)
+        {
+            Vec4 point = this.projection.geographicToCartesian(this.globe, Angle.fromDegreesLatitude(latitude),
+                Angle.fromDegreesLongitude(longitude), 0, Vec4.ZERO);
+            if (point == null)
+                return false;
+
+            result[0] = point.x;
+            result[1] = point.y;
+            return true;
+        }
+    }
+
+    /** Projects geographic locations to transverse Mercator coordinates, such as UTM, with {@link TMCoord}. */
+    public static class TMTransform extends ProjectedTransform
+    {
+        protected final Globe globe;
+        protected final Angle originLatitude;
+        protected final Angle centralMeridian;
+        protected final double falseEasting;
+        protected final double falseNorthing;
+        protected final double scale;
+
+        /**
+         * Creates a transform for an image in a specified transverse Mercator projection.
+         *
+         * @param globe           the globe whose radius and eccentricity the projection uses.
+         * @param originLatitude  the projection's origin latitude.
+         * @param centralMeridian the projection's central meridian.
+         * @param falseEasting    the projection's false easting, in meters.
+         * @param falseNorthing   the projection's false northing, in meters.
+         * @param scale           the projection's scale factor.
+         * @param originX         the easting of the center of the image's upper-left pixel.
+         * @param originY         the northing of the center of the image's upper-left pixel.
+         * @param pixelWidth      the change in easting from one column to the next.
+         * @param pixelHeight     the change in northing from one row to the next.
+         *
+         * @throws IllegalArgumentException if the globe, origin latitude or central meridian is null, or either pixel
+         *                                  size is zero.
+         */
+        public TMTransform(Globe globe, Angle originLatitude, Angle centralMeridian, double falseEasting,
+            double falseNorthing, double scale, double originX, double originY, double pixelWidth, double pixelHeight)
+        {
+            super(originX, originY, pixelWidth, pixelHeight);
+
+            if (globe == null)
+            {
+                String message = Logging.getMessage("nullValue.GlobeIsNull");
+                Logging.logger().severe(message);
+                throw new IllegalArgumentException(message);
+            }
+
+            if (originLatitude == null || centralMeridian == null)
+            {
+                String message = Logging.getMessage("nullValue.AngleIsNull");
+                Logging.logger().severe(message);
+                throw new IllegalArgumentException(message);
+            }
+
+            this.globe = globe;
+            this.originLatitude = originLatitude;
+            this.centralMeridian = centralMeridian;
+            this.falseEasting = falseEasting;
+            this.falseNorthing = falseNorthing;
+            this.scale = scale;
+        }
+
+        protected boolean project(double latitude, double longitude, double[] result)
+        {
+            try
+            {
+                TMCoord tm = TMCoord.fromLatLon(Angle.fromDegreesLatitude(latitude),
+                    Angle.fromDegreesLongitude(longitude), this.globe, null, null, this.originLatitude,
+                    this.centralMeridian, this.falseEasting, this.falseNorthing, this.scale);
+                result[0] = tm.getEasting();
+                result[1] = tm.getNorthing();
+                return true;
+            }
+            catch (IllegalArgumentException e)
+            {
+                return false; // the location is too far from the central meridian
+            }
+        }
+    }
+
+    /**
+     * Reprojects an image onto a geographic grid, with source positions interpolated to within {@link
+     * #DEFAULT_TOLERANCE} pixels.
+     *
+     * @param source        the image to reproject.
+     * @param transform     maps geographic locations to source positions.
+     * @param sector        the sector covered by the reprojected image.
+     * @param width         the reprojected image's width.
+     * @param height        the reprojected image's height.
+     * @param interpolation {@link ImageUtil#NEAREST_NEIGHBOR_INTERPOLATION} or {@link
+     *                      ImageUtil#BILINEAR_INTERPOLATION}.
+     *
+     * @return the reprojected image, of type <code>TYPE_INT_ARGB</code>. Pixels outside the source are transparent.
+     *
+     * @throws IllegalArgumentException if the source, transform or sector is null, or the width or height is less than
+     *                                  one.
+     */
+    public static BufferedImage reproject(BufferedImage source, InverseTransform transform, Sector sector, int width,
+        int height, int interpolation)
+    {
+        return reproject(source, transform, sector, width, height, interpolation, DEFAULT_TOLERANCE);
+    }
+
+    /**
+     * Reprojects an image onto a geographic grid.
+     *
+     * @param source        the image to reproject.
+     * @param transform     maps geographic locations to source positions.
+     * @param sector        the sector covered by the reprojected image.
+     * @param width         the reprojected image's width.
+     * @param height        the reprojected image's height.
+     * @param interpolation {@link ImageUtil#NEAREST_NEIGHBOR_INTERPOLATION} or {@link
+     *                      ImageUtil#BILINEAR_INTERPOLATION}.
+     * @param tolerance     the maximum distance, in source pixels, between interpolated and exact source positions.
+     *                      The transform is evaluated at every pixel if this is zero.
+     *
+     * @return the reprojected image, of type <code>TYPE_INT_ARGB</code>. Pixels outside the source are transparent.
+     *
+     * @throws IllegalArgumentException if the source, transform or sector is null, the width or height is less than
+     *                                  one, or the tolerance is negative.
+     */
+    public static BufferedImage reproject(BufferedImage source, InverseTransform transform, Sector sector, int width,
+        int height, int interpolation, double tolerance)
+    {
+        if (source == null)
+        {
+            String message = Logging.getMessage("nullValue.ImageSource");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (transform == null)
+        {
+            String message = Logging.getMessage("nullValue.TransformIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (sector == null)
+        {
+            String message = Logging.getMessage("nullValue.SectorIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (width < 1 || height < 1)
+        {
+            String message = Logging.getMessage("generic.InvalidImageSize", width, height);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (tolerance < 0)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "tolerance < 0");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        BufferedImage destination = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        ReprojectTask task = new ReprojectTask(source, destination, transform, sector, interpolation);
+        task.grid = task.createGrid(tolerance);
+        execute(task);
+
+        return destination;
+    }
+
+    /**
+     * Draws a task's rows, dividing them into bands drawn concurrently when the task is large enough. The calling
+     * thread draws the first band.
+     *
+     * @param task the task to draw.
+     */
+    protected static void execute(final ReprojectTask task)
+    {
+        int numRows = task.height;
+        int numBands = 1;
+        if ((long) task.width * numRows >= MIN_PARALLEL_PIXELS)
+            numBands = Math.max(1, Math.min(POOL_SIZE, numRows / MIN_ROWS_PER_TASK));
+
+        if (numBands == 1)
+        {
+            task.drawRows(0, numRows);
+            return;
+        }
+
+        List<Future<?>> futures = new ArrayList<Future<?>>(numBands - 1);
+        int rowsPerBand = (numRows + numBands - 1) / numBands;
+        for (int start = rowsPerBand; start < numRows; start += rowsPerBand)
+        {
+            final int bandStart = start;
+            final int bandEnd = Math.min(start + rowsPerBand, numRows);
+            futures.add(executor.submit(new Runnable()
+            {
+                public void run()
+                {
+                    task.drawRows(bandStart, bandEnd);
+                }
+            }));
+        }
+
+        task.drawRows(0, Math.min(rowsPerBand, numRows));
+
+        for (Future<?> future : futures)
+        {
+            try
+            {
+                future.get();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new WWRuntimeException(e);
+            }
+            catch (ExecutionException e)
+            {
+                String message = Logging.getMessage("generic.ExceptionWhileTransformation", "image");
+                Logging.logger().log(java.util.logging.Level.SEVERE, message, e.getCause());
+                throw new WWRuntimeException(message, e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Source positions of a regular grid of destination pixels. Node <code>(i, j)</code> is destination pixel
+     * <code>(i * step, j * step)</code>; its position is NaN where the transform is undefined.
+     */
+    protected static class Grid
+    {
+        protected final int step;
+        protected final int columns;
+        protected final int rows;
+        protected final double[] xs;
+        protected final double[] ys;
+
+        protected Grid(int step, int width, int height)
+        {
+            this.step = step;
+            this.columns = (width + step - 1) / step + 1;
+            this.rows = (height + step - 1) / step + 1;
+            this.xs = new double[this.columns * this.rows];
+            this.ys = new double[this.columns * this.rows];
+        }
+    }
+
+    /** Maps destination pixels to source pixels and draws the sampled colors. */
+    protected static class ReprojectTask
+    {
+        protected final int[] sourcePixels;
+        protected final int sourceAlpha;
+        protected final int sourceWidth;
+        protected final int sourceHeight;
+        protected final int[] destPixels;
+        protected final int width;
+        protected final int height;
+        protected final InverseTransform transform;
+        protected final double maxLat;
+        protected final double minLon;
+        protected final double latPerRow;
+        protected final double lonPerColumn;
+        protected final boolean bilinear;
+        protected Grid grid;
+
+        public ReprojectTask(BufferedImage source, BufferedImage destination, InverseTransform transform,
+            Sector sector, int interpolation)
+        {
+            this.sourceWidth = source.getWidth();
+            this.sourceHeight = source.getHeight();
+            // Pixels of images without alpha are read directly, with their alpha supplied when they are sampled. Other
+            // layouts are copied as ARGB values.
+            int[] pixels = getPixelArray(source);
+            this.sourcePixels = (pixels != null) ? pixels
+                : source.getRGB(0, 0, this.sourceWidth, this.sourceHeight, null, 0, this.sourceWidth);
+            this.sourceAlpha = (pixels != null && source.getType() == BufferedImage.TYPE_INT_RGB) ? 0xFF000000 : 0;
+            this.width = destination.getWidth();
+            this.height = destination.getHeight();
+            this.destPixels = ((DataBufferInt) destination.getRaster().getDataBuffer()).getData();
+            this.transform = transform;
+            this.maxLat = sector.getMaxLatitude().degrees;
+            this.minLon = sector.getMinLongitude().degrees;
+            this.latPerRow = sector.getDeltaLatDegrees() / this.height;
+            this.lonPerColumn = sector.getDeltaLonDegrees() / this.width;
+            this.bilinear = interpolation == ImageUtil.BILINEAR_INTERPOLATION;
+        }
+
+        /**
+         * Evaluates the transform at the center of a destination pixel.
+         *
+         * @return true if the source position was computed.
+         */
+        protected boolean transform(double x, double y, double[] result)
+        {
+            return this.transform.transform(this.maxLat - (y + 0.5) * this.latPerRow,
+                this.minLon + (x + 0.5) * this.lonPerColumn, result);
+        }
+
+        /**
+         * Finds the coarsest grid whose interpolated source positions are within a tolerance of the exact positions,
+         * tested at the center and edge midpoints of every grid cell.
+         *
+         * @param tolerance the tolerance, in source pixels.
+         *
+         * @return the grid, or null if the transform must be evaluated at every pixel.
+         */
+        protected Grid createGrid(double tolerance)
+        {
+            if (tolerance <= 0)
+                return null;
+
+            double[] p = new double[2];
+            for (int step = MAX_GRID_STEP; step > 1; step /= 2)
+            {
+                if (step > Math.max(this.width, this.height))
+                    continue;
+
+                Grid grid = new Grid(step, this.width, this.height);
+                for (int j = 0; j < grid.rows; j++)
+                {
+                    for (int i = 0; i < grid.columns; i++)
+                    {
+                        int n = j * grid.columns + i;
+                        if (this.transform(i * step, j * step, p))
+                        {
+                            grid.xs[n] = p[0];
+                            grid.ys[n] = p[1];
+                        }
+                        else
+                        {
+                            grid.xs[n] = Double.NaN;
+                            grid.ys[n] = Double.NaN;
+                        }
+                    }
+                }
+
+                if (this.isWithinTolerance(grid, tolerance, p))
+                    return grid;
+            }
+
+            return null;
+        }
+
+        protected boolean isWithinTolerance(Grid grid, double tolerance, double[] p)
+        {
+            double toleranceSquared = tolerance * tolerance;
+            double half = grid.step / 2d;
+
+            for (int j = 0; j < grid.rows - 1; j++)
+            {
+                for (int i = 0; i < grid.columns - 1; i++)
+                {
+                    int n = j * grid.columns + i;
+                    double x00 = grid.xs[n], x10 = grid.xs[n + 1];
+                    double x01 = grid.xs[n + grid.columns], x11 = grid.xs[n + grid.columns + 1];
+                    double y00 = grid.ys[n], y10 = grid.ys[n + 1];
+                    double y01 = grid.ys[n + grid.columns], y11 = grid.ys[n + grid.columns + 1];
+                    if (Double.isNaN(x00 + x10 + x01 + x11))
+                        continue; // cells with undefined corners are evaluated at every pixel
+
+                    double x0 = i * grid.step, y0 = j * grid.step;
+                    if (!this.isNear(x0 + half, y0, 0.5 * (x00 + x10), 0.5 * (y00 + y10), toleranceSquared, p)
+                        || !this.isNear(x0, y0 + half, 0.5 * (x00 + x01), 0.5 * (y00 + y01), toleranceSquared, p)
+                        || !this.isNear(x0 + half, y0 + half, 0.25 * (x00 + x10 + x01 + x11),
+                        0.25 * (y00 + y10 + y01 + y11), toleranceSquared, p))
+                    {
+                        return false;
+                    }
+                }
+            }
+
+            return true;
+        }
+
+        protected boolean isNear(double x, double y, double sourceX, double sourceY, double toleranceSquared,
+            double[] p)
+        {
+            if (!this.transform(x, y, p))
+                return false;
+
+            double dx = p[0] - sourceX;
+            double dy = p[1] - sourceY;
+            return dx * dx + dy * dy <= toleranceSquared;
+        }
+
+        public void drawRows(int startRow, int endRow)
+        {
+            double[] p = new double[2];
+            Grid grid = this.grid;
+
+            for (int y = startRow; y < endRow; y++)
+            {
+                int rowOffset = y * this.width;
+
+                if (grid == null)
+                {
+                    for (int x = 0; x < this.width; x++)
+                    {
+                        this.destPixels[rowOffset + x] = this.transform(x, y, p) ? this.sample(p[0], p[1]) : 0;
+                    }
+                    continue;
+                }
+
+                int j = y / grid.step;
+                double fy = (y - j * grid.step) / (double) grid.step;
+
+                for (int i = 0; i < grid.columns - 1; i++)
+                {
+                    int n = j * grid.columns + i;
+                    int x0 = i * grid.step;
+                    int x1 = Math.min(x0 + grid.step, this.width);
+
+                    // The source positions of this row's intersections with the cell's left and right edges.
+                    double leftX = grid.xs[n] + fy * (grid.xs[n + grid.columns] - grid.xs[n]);
+                    double leftY = grid.ys[n] + fy * (grid.ys[n + grid.columns] - grid.ys[n]);
+                    double rightX = grid.xs[n + 1] + fy * (grid.xs[n + grid.columns + 1] - grid.xs[n + 1]);
+                    double rightY = grid.ys[n + 1] + fy * (grid.ys[n + grid.columns + 1] - grid.ys[n + 1]);
+
+                    if (Double.isNaN(leftX + rightX))
+                    {
+                        for (int x = x0; x < x1; x++)
+                        {
+                            this.destPixels[rowOffset + x] = this.transform(x, y, p) ? this.sample(p[0], p[1]) : 0;
+                        }
+                        continue;
+                    }
+
+                    double dx = (rightX - leftX) / grid.step;
+                    double dy = (rightY - leftY) / grid.step;
+                    for (int x = x0, k = 0; x < x1; x++, k++)
+                    {
+                        this.destPixels[rowOffset + x] = this.sample(leftX + k * dx, leftY + k * dy);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Samples the source at a position, returning transparent black for positions outside the source.
+         *
+         * @param sx the source column.
+         * @param sy the source row.
+         *
+         * @return the sampled ARGB color.
+         */
+        protected int sample(double sx, double sy)
+        {
+            if (this.bilinear)
+            {
+                int ix = (int) Math.floor(sx);
+                int iy = (int) Math.floor(sy);
+                if (ix < 0 || iy < 0 || ix >= this.sourceWidth - 1 || iy >= this.sourceHeight - 1)
+                    return 0;
+
+                int n = iy * this.sourceWidth + ix;
+                return this.sourceAlpha | ImageUtil.interpolateColor(sx - ix, sy - iy, this.sourcePixels[n], this.sourcePixels[n + 1],
+                    this.sourcePixels[n + this.sourceWidth], this.sourcePixels[n + this.sourceWidth + 1]);
+            }
+            else
+            {
+                long ix = Math.round(sx);
+                long iy = Math.round(sy);
+                if (ix < 0 || iy < 0 || ix >= this.sourceWidth || iy >= this.sourceHeight)
+                    return 0;
+
+                return this.sourceAlpha | this.sourcePixels[(int) iy * this.sourceWidth + (int) ix];
+            }
+        }
+    }
+
+    /**
+     * Returns the pixel array of a <code>TYPE_INT_ARGB</code> or <code>TYPE_INT_RGB</code> image whose rows are stored
+     * contiguously from the first array element.
+     *
+     * @param image the image.
+     *
+     * @return the image's pixel array, or null if the image does not have that layout.
+     */
+    protected static int[] getPixelArray(BufferedImage image)
+    {
+        WritableRaster raster = image.getRaster();
+        if ((image.getType() == BufferedImage.TYPE_INT_ARGB || image.getType() == BufferedImage.TYPE_INT_RGB)
+            && raster.getDataBuffer() instanceof DataBufferInt
+            && raster.getSampleModel() instanceof SinglePixelPackedSampleModel
+            && ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride() == image.getWidth()
+            && raster.getDataBuffer().getNumBanks() == 1 && raster.getDataBuffer().getOffset() == 0
+            && raster.getSampleModelTranslateX() == 0 && raster.getSampleModelTranslateY() == 0)
+        {
+            return ((DataBufferInt) raster.getDataBuffer()).getData();
+        }
+
+        return null;
+    }
+}
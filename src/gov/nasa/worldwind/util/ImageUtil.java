@@ -1257,7 +1257,8 @@ public class ImageUtil
     }
 
     /**
-     * Reprojects an imge in UTM projection to Geo/WGS84.
+     * Reprojects an imge in UTM projection to Geo/WGS84. The reprojected image is always of type
+     * <code>TYPE_INT_ARGB</code>, so that areas outside the source image are transparent.
      *
      * @param values AVList: contains the bufferedimage and the values from the world file. Stores resulting image in
      *               values
@@ -1282,18 +1283,6 @@ public class ImageUtil
         int width = image.getWidth();
         int height = image.getHeight();
 
-        BufferedImage biOut;
-        //Note: image type always BufferedImage.TYPE_INT_ARGB to handle transparent no-data areas after reprojection
-        if ((image.getColorModel() != null) && (image.getColorModel() instanceof IndexColorModel))
-        {
-            biOut = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB,
-                (IndexColorModel) image.getColorModel());
-        }
-        else
-        {
-            biOut = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-        }
-
         double xPixelSize = 0;
         double yPixelSize = 0;
 
@@ -1331,67 +1320,18 @@ public class ImageUtil
         Sector sector = new Sector(bottomExtent, topExtent, leftExtent, rightExtent);
         values.setValue(AVKey.SECTOR, sector);
 
-        //moving to center of pixel
-        double yPixel = (bottomExtent.getDegrees() - topExtent.getDegrees()) / height;
-        double xPixel = (rightExtent.getDegrees() - leftExtent.getDegrees()) / width;
-        double topExtent2 = sector.getMaxLatitude().getDegrees() + (yPixel * .5);
-        double leftExtent2 = sector.getMinLongitude().getDegrees() + (xPixel * .5);
-
         TMCoord tmUpperLeft = TMCoord.fromLatLon(utmUpperLeft.getLatitude(), utmUpperLeft.getLongitude(),
             earth, null, null, Angle.fromDegrees(0.0), utmUpperLeft.getCentralMeridian(),
             False_Easting, False_Northing, Scale);
 
+        // The source positions are those of the pixel centers.
         double srcTop = tmUpperLeft.getNorthing() + (yPixelSize * .5);
         double srcLeft = tmUpperLeft.getEasting() + (xPixelSize * .5);
 
-        for (int y = 0; y < height; y++)
-        {
-            for (int x = 0; x < width; x++)
-            {
-                double yTarget = topExtent2 + y * yPixel;
-                double xTarget = leftExtent2 + x * xPixel;
-                TMCoord TM = TMCoord.fromLatLon(Angle.fromDegreesLatitude(yTarget), Angle.fromDegreesLongitude(xTarget),
-                    earth, null, null, Angle.fromDegrees(0.0), utmUpperLeft.getCentralMeridian(),
-                    False_Easting, False_Northing, Scale);
-
-                double distFromCornerX = TM.getEasting() - srcLeft;
-                double distFromCornerY = srcTop - TM.getNorthing();
-                long rx = Math.round(distFromCornerX / Math.abs(xPixelSize));
-                long ry = Math.round(distFromCornerY / Math.abs(yPixelSize));
-
-                if (mode == ImageUtil.BILINEAR_INTERPOLATION)
-                {
-                    double rxD = distFromCornerX / Math.abs(xPixelSize);
-                    double ryD = distFromCornerY / Math.abs(yPixelSize);
-                    int iX = (int) Math.floor(rxD);
-                    int iY = (int) Math.floor(ryD);
-                    double dx = rxD - iX;
-                    double dy = ryD - iY;
-                    if ((iX > 0) && (iY > 0))
-                        if ((iX < width - 1) && (iY < height - 1))
-                        {
-                            //get four pixels from image
-                            int a = image.getRGB(iX, iY);
-                            int b = image.getRGB(iX + 1, iY);
-                            int c = image.getRGB(iX, iY + 1);
-                            int d = image.getRGB(iX + 1, iY + 1);
-                            int sum = interpolateColor(dx, dy, a, b, c, d);
-
-                            biOut.setRGB(x, y, Math.round(sum));
-                        }
-                        else
-                            biOut.setRGB(x, y, 0);
-                }
-                else  //NEAREST_NEIGHBOR is default
-                {
-                    if ((rx > 0) && (ry > 0))
-                        if ((rx < width) && (ry < height))
-                            biOut.setRGB(x, y, image.getRGB(Long.valueOf(rx).intValue(), Long.valueOf(ry).intValue()));
-                        else
-                            biOut.setRGB(x, y, 0);
-                }
-            }
-        }
+        ImageReprojector.InverseTransform transform = new ImageReprojector.TMTransform(earth, Angle.fromDegrees(0.0),
+            utmUpperLeft.getCentralMeridian(), False_Easting, False_Northing, Scale, srcLeft, srcTop,
+            Math.abs(xPixelSize), -Math.abs(yPixelSize));
+        BufferedImage biOut = ImageReprojector.reproject(image, transform, sector, width, height, mode);
 
         values.setValue(AVKey.IMAGE, biOut);
     }
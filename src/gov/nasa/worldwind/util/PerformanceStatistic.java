@@ -49,6 +49,9 @@ public class PerformanceStatistic implements Comparable<PerformanceStatistic>
     public static final String JVM_HEAP = "gov.nasa.worldwind.perfstat.JvmHeap";
     public static final String JVM_HEAP_USED = "gov.nasa.worldwind.perfstat.JvmHeapUsed";
     public static final String TEXTURE_CACHE = "gov.nasa.worldwind.perfstat.TextureCache";
+    public static final String TEXTURE_DECODE_QUEUE = "gov.nasa.worldwind.perfstat.TextureDecodeQueue";
+    public static final String TEXTURE_DECODE_TIME = "gov.nasa.worldwind.perfstat.TextureDecodeTime";
+    public static final String TEXTURE_UPLOAD_QUEUE = "gov.nasa.worldwind.perfstat.TextureUploadQueue";
 
     public static final Set<String> ALL_STATISTICS_SET = new HashSet<String>(1);
     static
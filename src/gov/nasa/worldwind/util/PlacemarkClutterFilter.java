@@ -45,6 +45,10 @@ import java.util.List;
  * Provides a clutter filter that rearranges {@link PointPlacemark} labels to avoid overlap. When placemarks overlap,
  * only their label and a line to their position are drawn. The placemark's icon is not drawn for overlapping
  * placemarks.
+ * <p>
+ * Shapes are considered in the order they are given, which is front to back, unless a priority comparator is specified.
+ * The regions already drawn are held in a {@link RectangleGrid}, so each shape is compared only with the regions near
+ * it on the screen.
  *
  * @author tag
  * @version $Id: PlacemarkClutterFilter.java 2388 2014-10-15 22:58:36Z tgaskins $
@@ -54,13 +58,55 @@ public class PlacemarkClutterFilter implements ClutterFilter
     /** Holds the rectangles of the regions already drawn. */
     protected List<Rectangle2D> rectList = new ArrayList<Rectangle2D>();
     /** Maintains a list of regions and the shapes associated with each region. */
-    protected Map<Rectangle2D, List<Declutterable>> shapeMap = new HashMap<Rectangle2D, List<Declutterable>>();
+    protected Map<Rectangle2D, List<Declutterable>> shapeMap = new LinkedHashMap<Rectangle2D, List<Declutterable>>();
+    /** Indexes the regions already drawn. */
+    protected RectangleGrid rectGrid = new RectangleGrid();
+    protected Comparator<? super Declutterable> priorityComparator;
+
+    /**
+     * Indicates the comparator that orders shapes by priority.
+     *
+     * @return the priority comparator, or null if shapes are considered in the order they are given.
+     *
+     * @see #setPriorityComparator(java.util.Comparator)
+     */
+    public Comparator<? super Declutterable> getPriorityComparator()
+    {
+        return this.priorityComparator;
+    }
+
+    /**
+     * Specifies a comparator that orders shapes by priority. Shapes that compare lower are considered first, so their
+     * regions are established before those of shapes that compare higher. The sort is stable, so shapes of equal
+     * priority remain in front-to-back order and the result is deterministic.
+     *
+     * @param priorityComparator the priority comparator. May be null, in which case shapes are considered in the order
+     *                           they are given.
+     */
+    public void setPriorityComparator(Comparator<? super Declutterable> priorityComparator)
+    {
+        this.priorityComparator = priorityComparator;
+    }
 
     public void apply(DrawContext dc, List<Declutterable> shapes)
     {
-        for (Declutterable shape : shapes)
+        if (this.priorityComparator != null)
+        {
+            shapes = new ArrayList<Declutterable>(shapes);
+            Collections.sort(shapes, this.priorityComparator);
+        }
+
+        Rectangle2D[] boundsArray = new Rectangle2D[shapes.size()];
+        for (int i = 0; i < boundsArray.length; i++)
         {
-            Rectangle2D bounds = shape.getBounds(dc);
+            boundsArray[i] = shapes.get(i).getBounds(dc);
+        }
+        this.rectGrid.resetFor(boundsArray);
+
+        for (int i = 0; i < boundsArray.length; i++)
+        {
+            Declutterable shape = shapes.get(i);
+            Rectangle2D bounds = boundsArray[i];
 
             Rectangle2D intersectingRegion = this.intersects(bounds);
             if (intersectingRegion != null)
@@ -86,6 +132,7 @@ public class PlacemarkClutterFilter implements ClutterFilter
     {
         this.rectList.clear();
         this.shapeMap.clear();
+        this.rectGrid.clear();
     }
 
     /**
@@ -101,13 +148,7 @@ public class PlacemarkClutterFilter implements ClutterFilter
         if (rectangle == null)
             return null;
 
-        for (Rectangle2D rect : this.rectList)
-        {
-            if (rectangle.intersects(rect))
-                return rect;
-        }
-
-        return null;
+        return this.rectGrid.findFirstIntersecting(rectangle);
     }
 
     /**
@@ -125,6 +166,7 @@ public class PlacemarkClutterFilter implements ClutterFilter
             shapeList = new ArrayList<Declutterable>(1);
             this.shapeMap.put(rectangle, shapeList);
             this.rectList.add(rectangle);
+            this.rectGrid.add(rectangle);
         }
 
         shapeList.add(shape);
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.util;
+
+import java.awt.geom.Rectangle2D;
+import java.util.*;
+
+/**
+ * A uniform grid of rectangles that finds the rectangles intersecting a query rectangle without testing every
+ * rectangle in the grid. Used by the clutter filters to find overlapping screen regions. Each rectangle is recorded in
+ * every grid cell it covers; rectangles extending beyond the grid's extent are recorded in the cells at the grid's
+ * edge, so the grid is correct for rectangles anywhere but fastest for rectangles within its extent.
+ * <p>
+ * Intersection is determined by {@link Rectangle2D#intersects(Rectangle2D)}, and queries return the intersecting
+ * rectangle that was added first. Results are therefore identical to those of a linear search of the rectangles in
+ * the order they were added.
+ *
+ * @version $Id$
+ * @see BasicClutterFilter
+ * @see PlacemarkClutterFilter
+ */
+public class RectangleGrid
+{
+    /** The maximum number of cells along either axis of the grid. */
+    protected static final int MAX_CELLS_PER_AXIS = 256;
+
+    protected final List<Rectangle2D> rectangles = new ArrayList<Rectangle2D>();
+    protected double minX;
+    protected double minY;
+    protected double cellWidth = 1;
+    protected double cellHeight = 1;
+    protected int numColumns = 1;
+    protected int numRows = 1;
+    /** Rectangle indices per cell, in increasing order. */
+    protected int[][] cells = new int[1][];
+    protected int[] cellCounts = new int[1];
+
+    /** Creates an empty grid with a single cell. Call {@link #reset(Rectangle2D, double, double)} to size the grid. */
+    public RectangleGrid()
+    {
+    }
+
+    /**
+     * Removes all rectangles from the grid and sizes its cells to cover a specified extent.
+     *
+     * @param extent     the region in which rectangles are expected.
+     * @param cellWidth  the preferred cell width, typically the width of a typical rectangle.
+     * @param cellHeight the preferred cell height, typically the height of a typical rectangle.
+     *
+     * @throws IllegalArgumentException if the extent is null.
+     */
+    public void reset(Rectangle2D extent, double cellWidth, double cellHeight)
+    {
+        if (extent == null)
+        {
+            String message = Logging.getMessage("nullValue.RectangleIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.clear();
+
+        double width = Math.max(extent.getWidth(), 1);
+        double height = Math.max(extent.getHeight(), 1);
+        this.numColumns = this.computeCellCount(width, cellWidth);
+        this.numRows = this.computeCellCount(height, cellHeight);
+        this.minX = extent.getMinX();
+        this.minY = extent.getMinY();
+        this.cellWidth = width / this.numColumns;
+        this.cellHeight = height / this.numRows;
+
+        int numCells = this.numColumns * this.numRows;
+        if (this.cells.length < numCells)
+        {
+            this.cells = new int[numCells][];
+            this.cellCounts = new int[numCells];
+        }
+    }
+
+    protected int computeCellCount(double length, double preferredCellLength)
+    {
+        if (!(preferredCellLength > 0)) // also rejects NaN
+            return 1;
+
+        double count = Math.ceil(length / preferredCellLength);
+        return (int) Math.max(1, Math.min(count, MAX_CELLS_PER_AXIS));
+    }
+
+    /** Removes all rectangles from the grid. The grid's extent and cells are unchanged. */
+    public void clear()
+    {
+        this.rectangles.clear();
+        Arrays.fill(this.cellCounts, 0);
+    }
+
+    /**
+     * Indicates the number of rectangles in the grid.
+     *
+     * @return the number of rectangles.
+     */
+    public int size()
+    {
+        return this.rectangles.size();
+    }
+
+    /**
+     * Adds a rectangle to the grid.
+     *
+     * @param rectangle the rectangle to add.
+     *
+     * @throws IllegalArgumentException if the rectangle is null.
+     */
+    public void add(Rectangle2D rectangle)
+    {
+        if (rectangle == null)
+        {
+            String message = Logging.getMessage("nullValue.RectangleIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        int index = this.rectangles.size();
+        this.rectangles.add(rectangle);
+
+        int col0 = this.column(rectangle.getMinX());
+        int col1 = this.column(rectangle.getMaxX());
+        int row0 = this.row(rectangle.getMinY());
+        int row1 = this.row(rectangle.getMaxY());
+        for (int row = row0; row <= row1; row++)
+        {
+            for (int col = col0; col <= col1; col++)
+            {
+                int cell = row * this.numColumns + col;
+                int[] indices = this.cells[cell];
+                int count = this.cellCounts[cell];
+                if (indices == null)
+                    indices = this.cells[cell] = new int[4];
+                else if (count == indices.length)
+                    indices = this.cells[cell] = Arrays.copyOf(indices, 2 * count);
+
+                indices[count] = index;
+                this.cellCounts[cell] = count + 1;
+            }
+        }
+    }
+
+    /**
+     * Finds the first rectangle added to the grid that intersects a specified rectangle.
+     *
+     * @param rectangle the rectangle to test. May be null, in which case this returns null.
+     *
+     * @return the first intersecting rectangle, or null if no rectangle in the grid intersects the specified one.
+     */
+    public Rectangle2D findFirstIntersecting(Rectangle2D rectangle)
+    {
+        if (rectangle == null || this.rectangles.isEmpty())
+            return null;
+
+        int first = Integer.MAX_VALUE;
+
+        int col0 = this.column(rectangle.getMinX());
+        int col1 = this.column(rectangle.getMaxX());
+        int row0 = this.row(rectangle.getMinY());
+        int row1 = this.row(rectangle.getMaxY());
+        for (int row = row0; row <= row1; row++)
+        {
+            for (int col = col0; col <= col1; col++)
+            {
+                int cell = row * this.numColumns + col;
+                int[] indices = this.cells[cell];
+                int count = this.cellCounts[cell];
+                // Indices are in increasing order, so stop at the first intersection or at the best index so far.
+                for (int i = 0; i < count && indices[i] < first; i++)
+                {
+                    if (rectangle.intersects(this.rectangles.get(indices[i])))
+                    {
+                        first = indices[i];
+                        break;
+                    }
+                }
+            }
+        }
+
+        return first != Integer.MAX_VALUE ? this.rectangles.get(first) : null;
+    }
+
+    protected int column(double x)
+    {
+        double col = Math.floor((x - this.minX) / this.cellWidth);
+        return col <= 0 || Double.isNaN(col) ? 0 : col >= this.numColumns ? this.numColumns - 1 : (int) col;
+    }
+
+    protected int row(double y)
+    {
+        double row = Math.floor((y - this.minY) / this.cellHeight);
+        return row <= 0 || Double.isNaN(row) ? 0 : row >= this.numRows ? this.numRows - 1 : (int) row;
+    }
+
+    /**
+     * Sizes a grid for a set of rectangles: the grid's extent is their union and its cells are the size of an average
+     * rectangle.
+     *
+     * @param rectangles the rectangles. Null elements are ignored.
+     *
+     * @return true if the grid was sized, false if no rectangle is non-null.
+     */
+    public boolean resetFor(Rectangle2D[] rectangles)
+    {
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        double sumWidth = 0, sumHeight = 0;
+        int count = 0;
+
+        for (Rectangle2D r : rectangles)
+        {
+            if (r == null)
+                continue;
+
+            minX = Math.min(minX, r.getMinX());
+            minY = Math.min(minY, r.getMinY());
+            maxX = Math.max(maxX, r.getMaxX());
+            maxY = Math.max(maxY, r.getMaxY());
+            sumWidth += r.getWidth();
+            sumHeight += r.getHeight();
+            count++;
+        }
+
+        if (count == 0)
+        {
+            this.clear();
+            return false;
+        }
+
+        this.reset(new Rectangle2D.Double(minX, minY, maxX - minX, maxY - minY), sumWidth / count,
+            sumHeight / count);
+        return true;
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+package gov.nasa.worldwind.util.xml;
+
+import gov.nasa.worldwind.*;
+import gov.nasa.worldwind.avlist.AVKey;
+import gov.nasa.worldwind.cache.FileStore;
+import gov.nasa.worldwind.util.*;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventReader;
+import java.io.*;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.logging.Level;
+
+/**
+ * Caches the XML event streams of parsed documents in a compact binary form in the WorldWind {@link FileStore}, so that
+ * documents opened repeatedly, such as large KML, KMZ and COLLADA files, are not tokenized by StAX on each load.
+ * <p>
+ * The cache stores the sequence of events a parser consumed rather than the parsed object model. Replaying the events
+ * through {@link BinaryXMLEventReader} drives the same parsers and therefore yields an object model identical to one
+ * parsed from XML. Cache entries are keyed by the source file's path, size and modification time, so editing or
+ * replacing a source file invalidates its entry.
+ * <p>
+ * A cache file consists of a header followed by a sequence of events. All multi-byte values are little-endian. Names,
+ * prefixes and namespace URIs are written to a string table on first use and referenced by index thereafter; character
+ * content is written inline as UTF-8 blocks. The file is memory-mapped when read.
+ * <p>
+ * The content of elements that hold long runs of numbers, such as COLLADA <i>float_array</i> and <i>p</i> and KML
+ * <i>coordinates</i>, is written as binary arrays rather than text. Callers identify these elements when creating a
+ * recording reader. Each array is replayed as a single {@link NumericCharacters} event, which parsers for those
+ * elements read without converting numbers to and from text. Content that does not parse as numbers is recorded as
+ * text.
+ * <p>
+ * The cache is disabled by default. It is enabled by setting the {@link AVKey#XML_EVENT_CACHE_ENABLED} configuration
+ * property to <code>true</code>.
+ *
+ * @version $Id$
+ * @see BinaryXMLEventReader
+ * @see RecordingXMLEventReader
+ */
+public class BinaryXMLEventCache
+{
+    /** The file store directory containing cache entries. */
+    public static final String CACHE_DIRECTORY = "XMLEventCache";
+    /** The suffix of cache entry files. */
+    public static final String CACHE_SUFFIX = ".wwxe";
+
+    /** The first four bytes of a cache file: "WWXE". */
+    protected static final int MAGIC = 0x45585757;
+    protected static final int VERSION = 2;
+
+    protected static final byte START_DOCUMENT = 1;
+    protected static final byte END_DOCUMENT = 2;
+    protected static final byte START_ELEMENT = 3;
+    protected static final byte END_ELEMENT = 4;
+    protected static final byte CHARACTERS = 5;
+    protected static final byte CDATA = 6;
+    protected static final byte SPACE = 7;
+    protected static final byte COMMENT = 8;
+    protected static final byte PROCESSING_INSTRUCTION = 9;
+    protected static final byte NUMBERS = 10;
+
+    /** String table reference indicating a null string. */
+    protected static final int NULL_STRING = -1;
+
+    /**
+     * Indicates whether the cache is enabled by the {@link AVKey#XML_EVENT_CACHE_ENABLED} configuration property.
+     *
+     * @return true if the cache is enabled, otherwise false.
+     */
+    public static boolean isEnabled()
+    {
+        return Configuration.getBooleanValue(AVKey.XML_EVENT_CACHE_ENABLED, false);
+    }
+
+    /**
+     * Computes the file store path of the cache entry for a source file. The path depends on the file's absolute
+     * path, length and modification time, and on a variant string that distinguishes event streams produced from the
+     * same file with different reader settings, such as namespace awareness.
+     *
+     * @param source  the source file.
+     * @param variant a string identifying the reader settings. May be null.
+     *
+     * @return the path of the cache entry, relative to the file store.
+     *
+     * @throws IllegalArgumentException if the source is null.
+     */
+    public static String makeCachePath(File source, String variant)
+    {
+        if (source == null)
+        {
+            String message = Logging.getMessage("nullValue.FileIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        String key = source.getAbsolutePath() + "|" + source.length() + "|" + source.lastModified() + "|" + variant;
+
+        StringBuilder sb = new StringBuilder(CACHE_DIRECTORY).append("/");
+        try
+        {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes(StandardCharsets.UTF_8));
+            for (byte b : digest)
+            {
+                sb.append(String.format("%02x", b));
+            }
+        }
+        catch (Exception e)
+        {
+            sb.append(Integer.toHexString(key.hashCode()));
+        }
+
+        return sb.append(CACHE_SUFFIX).toString();
+    }
+
+    /**
+     * Opens a reader on the cached event stream of a source file.
+     *
+     * @param source  the source file.
+     * @param variant a string identifying the reader settings. See {@link #makeCachePath(java.io.File, String)}.
+     *
+     * @return a reader replaying the cached events, or null if the cache is disabled, the source has no cache entry,
+     *         or the entry cannot be read.
+     */
+    public static XMLEventReader openCachedReader(File source, String variant)
+    {
+        if (source == null || !source.isFile() || !isEnabled())
+            return null;
+
+        FileStore fileStore = WorldWind.getDataFileStore();
+        String path = makeCachePath(source, variant);
+
+        URL url = fileStore.findFile(path, false);
+        if (url == null)
+            return null;
+
+        File file = WWIO.convertURLToFile(url);
+        if (file == null)
+            return null;
+
+        try
+        {
+            return new BinaryXMLEventReader(file);
+        }
+        catch (IOException e)
+        {
+            // The entry is unreadable; remove it so that it is recreated the next time the source is parsed.
+            Logging.logger().log(Level.WARNING, Logging.getMessage("generic.ExceptionWhileReading", file), e);
+            fileStore.removeFile(url);
+            return null;
+        }
+    }
+
+    /**
+     * Wraps an event reader so that the events consumed from it are written to the cache entry for a source file once
+     * the document's root element has been read in full. The reader is returned unwrapped if the cache is disabled.
+     *
+     * @param source  the source file.
+     * @param variant a string identifying the reader settings. See {@link #makeCachePath(java.io.File, String)}.
+     * @param reader  the reader to record.
+     *
+     * @return a recording reader, or the specified reader if the cache is disabled or the source is not a file.
+     */
+    public static XMLEventReader createRecordingReader(File source, String variant, XMLEventReader reader)
+    {
+        return createRecordingReader(source, variant, reader, null);
+    }
+
+    /**
+     * Wraps an event reader so that the events consumed from it are written to the cache entry for a source file, and
+     * the content of the specified elements is recorded as binary arrays. See {@link
+     * #createRecordingReader(java.io.File, String, javax.xml.stream.XMLEventReader)}.
+     *
+     * @param source          the source file.
+     * @param variant         a string identifying the reader settings. See {@link #makeCachePath(java.io.File,
+     *                        String)}.
+     * @param reader          the reader to record.
+     * @param numericElements the names of elements whose content is recorded as numbers, each mapped to the type of
+     *                        its content: {@link NumericCharacters#FLOATS}, {@link NumericCharacters#INTS} or {@link
+     *                        NumericCharacters#COORDINATES}. May be null.
+     *
+     * @return a recording reader, or the specified reader if the cache is disabled or the source is not a file.
+     */
+    public static XMLEventReader createRecordingReader(File source, String variant, XMLEventReader reader,
+        Map<QName, Integer> numericElements)
+    {
+        if (source == null || reader == null || !source.isFile() || !isEnabled())
+            return reader;
+
+        File file = WorldWind.getDataFileStore().newFile(makeCachePath(source, variant));
+        if (file == null)
+            return reader;
+
+        return new RecordingXMLEventReader(reader, file, numericElements);
+    }
+}
@@ -0,0 +1,358 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+package gov.nasa.worldwind.util.xml;
+
+import gov.nasa.worldwind.util.Logging;
+
+import javax.xml.stream.*;
+import javax.xml.stream.events.*;
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * An {@link XMLEventReader} that replays an event stream recorded by {@link RecordingXMLEventReader}. The recorded
+ * file is memory-mapped and events are decoded on demand. See {@link BinaryXMLEventCache} for a description of the file
+ * format.
+ *
+ * @version $Id$
+ */
+public class BinaryXMLEventReader implements XMLEventReader
+{
+    /** Event factories are expensive to locate and are not guaranteed to be thread safe, so each thread keeps one. */
+    protected static final ThreadLocal<XMLEventFactory> eventFactories = new ThreadLocal<XMLEventFactory>()
+    {
+        @Override
+        protected XMLEventFactory initialValue()
+        {
+            return XMLEventFactory.newInstance();
+        }
+    };
+
+    protected final ByteBuffer buffer;
+    protected final List<String> strings = new ArrayList<String>();
+    protected final XMLEventFactory eventFactory = eventFactories.get();
+    protected XMLEvent nextEvent;
+    protected boolean endOfStream;
+
+    /**
+     * Opens a recorded event stream.
+     *
+     * @param file the recorded event file.
+     *
+     * @throws IOException              if the file cannot be mapped or is not a recorded event file.
+     * @throws IllegalArgumentException if the file is null.
+     */
+    public BinaryXMLEventReader(File file) throws IOException
+    {
+        if (file == null)
+        {
+            String message = Logging.getMessage("nullValue.FileIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try
+        {
+            FileChannel channel = raf.getChannel();
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            this.buffer.order(ByteOrder.LITTLE_ENDIAN);
+        }
+        finally
+        {
+            raf.close(); // the mapping remains valid after the channel is closed
+        }
+
+        if (this.buffer.remaining() < 8 || this.buffer.getInt() != BinaryXMLEventCache.MAGIC
+            || this.buffer.getInt() != BinaryXMLEventCache.VERSION)
+        {
+            throw new IOException(Logging.getMessage("XML.InvalidEventCacheFile", file));
+        }
+    }
+
+    public XMLEvent nextEvent() throws XMLStreamException
+    {
+        XMLEvent event = this.peek();
+        if (event == null)
+            throw new NoSuchElementException();
+
+        this.nextEvent = null;
+        return event;
+    }
+
+    public boolean hasNext()
+    {
+        try
+        {
+            return this.peek() != null;
+        }
+        catch (XMLStreamException e)
+        {
+            return false;
+        }
+    }
+
+    public XMLEvent peek() throws XMLStreamException
+    {
+        if (this.nextEvent == null && !this.endOfStream)
+        {
+            this.nextEvent = this.readEvent();
+            if (this.nextEvent == null)
+                this.endOfStream = true;
+        }
+
+        return this.nextEvent;
+    }
+
+    public Object next()
+    {
+        try
+        {
+            return this.nextEvent();
+        }
+        catch (XMLStreamException e)
+        {
+            throw new NoSuchElementException(e.getMessage());
+        }
+    }
+
+    public void remove()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public String getElementText() throws XMLStreamException
+    {
+        StringBuilder sb = new StringBuilder();
+
+        for (XMLEvent event = this.nextEvent(); !event.isEndElement(); event = this.nextEvent())
+        {
+            if (event.isCharacters())
+                sb.append(event.asCharacters().getData());
+            else if (event.isStartElement())
+                throw new XMLStreamException(Logging.getMessage("XML.InvalidXMLEvent", event), event.getLocation());
+        }
+
+        return sb.toString();
+    }
+
+    public XMLEvent nextTag() throws XMLStreamException
+    {
+        for (XMLEvent event = this.nextEvent(); ; event = this.nextEvent())
+        {
+            if (event.isStartElement() || event.isEndElement())
+                return event;
+
+            if (event.isCharacters() && !event.asCharacters().isWhiteSpace())
+                throw new XMLStreamException(Logging.getMessage("XML.InvalidXMLEvent", event), event.getLocation());
+        }
+    }
+
+    public Object getProperty(String name)
+    {
+        throw new IllegalArgumentException(name);
+    }
+
+    public void close()
+    {
+        this.nextEvent = null;
+        this.endOfStream = true;
+    }
+
+    /**
+     * Decodes the next event from the mapped file.
+     *
+     * @return the next event, or null if the end of the recorded stream has been reached.
+     *
+     * @throws XMLStreamException if the file is truncated or contains an unrecognized event.
+     */
+    protected XMLEvent readEvent() throws XMLStreamException
+    {
+        if (!this.buffer.hasRemaining())
+            return null;
+
+        try
+        {
+            byte type = this.buffer.get();
+            switch (type)
+            {
+                case BinaryXMLEventCache.START_DOCUMENT:
+                    String encoding = this.readString();
+                    String version = this.readString();
+                    boolean standalone = this.buffer.get() != 0;
+                    return this.eventFactory.createStartDocument(encoding != null ? encoding : "UTF-8",
+                        version != null ? version : "1.0", standalone);
+                case BinaryXMLEventCache.END_DOCUMENT:
+                    return this.eventFactory.createEndDocument();
+                case BinaryXMLEventCache.START_ELEMENT:
+                    return this.readStartElement();
+                case BinaryXMLEventCache.END_ELEMENT:
+                    String prefix = this.readString();
+                    String namespaceURI = this.readString();
+                    String localName = this.readString();
+                    return this.eventFactory.createEndElement(prefix != null ? prefix : "",
+                        namespaceURI != null ? namespaceURI : "", localName);
+                case BinaryXMLEventCache.CHARACTERS:
+                    return this.eventFactory.createCharacters(this.readText());
+                case BinaryXMLEventCache.CDATA:
+                    return this.eventFactory.createCData(this.readText());
+                case BinaryXMLEventCache.SPACE:
+                    return this.eventFactory.createSpace(this.readText());
+                case BinaryXMLEventCache.COMMENT:
+                    return this.eventFactory.createComment(this.readText());
+                case BinaryXMLEventCache.PROCESSING_INSTRUCTION:
+                    String target = this.readString();
+                    return this.eventFactory.createProcessingInstruction(target, this.readText());
+                case BinaryXMLEventCache.NUMBERS:
+                    return this.readNumbers();
+                default:
+                    throw new XMLStreamException(Logging.getMessage("XML.InvalidEventCacheFile", type));
+            }
+        }
+        catch (BufferUnderflowException e)
+        {
+            throw new XMLStreamException(Logging.getMessage("generic.ExceptionWhileReadingBuffer",
+                this.buffer.position(), this.buffer.remaining(), this.buffer.limit()), e);
+        }
+    }
+
+    protected StartElement readStartElement()
+    {
+        String prefix = this.readString();
+        String namespaceURI = this.readString();
+        String localName = this.readString();
+
+        int attributeCount = this.buffer.getInt();
+        List<Attribute> attributes = attributeCount > 0 ? new ArrayList<Attribute>(attributeCount)
+            : Collections.<Attribute>emptyList();
+        for (int i = 0; i < attributeCount; i++)
+        {
+            String aPrefix = this.readString();
+            String aNamespaceURI = this.readString();
+            String aLocalName = this.readString();
+            String value = this.readText();
+            attributes.add(this.eventFactory.createAttribute(aPrefix != null ? aPrefix : "",
+                aNamespaceURI != null ? aNamespaceURI : "", aLocalName, value));
+        }
+
+        int namespaceCount = this.buffer.getInt();
+        List<Namespace> namespaces = namespaceCount > 0 ? new ArrayList<Namespace>(namespaceCount)
+            : Collections.<Namespace>emptyList();
+        for (int i = 0; i < namespaceCount; i++)
+        {
+            String nsPrefix = this.readString();
+            String nsURI = this.readString();
+            namespaces.add(nsPrefix == null || nsPrefix.length() == 0 ? this.eventFactory.createNamespace(nsURI)
+                : this.eventFactory.createNamespace(nsPrefix, nsURI));
+        }
+
+        return this.eventFactory.createStartElement(prefix != null ? prefix : "",
+            namespaceURI != null ? namespaceURI : "", localName, attributes.iterator(), namespaces.iterator());
+    }
+
+    /**
+     * Reads a block of numbers recorded in place of an element's character content.
+     *
+     * @return a characters event holding the numbers.
+     *
+     * @throws XMLStreamException if the block's content type is not recognized.
+     */
+    protected XMLEvent readNumbers() throws XMLStreamException
+    {
+        byte contentType = this.buffer.get();
+        int count = this.buffer.getInt();
+
+        Object values;
+        int length;
+        switch (contentType)
+        {
+            case NumericCharacters.FLOATS:
+                float[] floats = new float[count];
+                this.buffer.asFloatBuffer().get(floats);
+                values = floats;
+                length = 4 * count;
+                break;
+            case NumericCharacters.INTS:
+                int[] ints = new int[count];
+                this.buffer.asIntBuffer().get(ints);
+                values = ints;
+                length = 4 * count;
+                break;
+            case NumericCharacters.COORDINATES:
+                double[] coords = new double[count];
+                this.buffer.asDoubleBuffer().get(coords);
+                values = coords;
+                length = 8 * count;
+                break;
+            default:
+                throw new XMLStreamException(Logging.getMessage("XML.InvalidEventCacheFile", contentType));
+        }
+
+        this.buffer.position(this.buffer.position() + length);
+        return new NumericCharacters(contentType, values);
+    }
+
+    /**
+     * Reads a string table reference, and the referenced string if this is its first occurrence.
+     *
+     * @return the referenced string, or null if the reference indicates a null string.
+     */
+    protected String readString()
+    {
+        int index = this.buffer.getInt();
+        if (index == BinaryXMLEventCache.NULL_STRING)
+            return null;
+
+        if (index < this.strings.size())
+            return this.strings.get(index);
+
+        String s = this.readText();
+        this.strings.add(s);
+        return s;
+    }
+
+    /**
+     * Reads a length-prefixed block of UTF-8 text.
+     *
+     * @return the text.
+     */
+    protected String readText()
+    {
+        int length = this.buffer.getInt();
+        if (length == 0)
+            return "";
+
+        byte[] bytes = new byte[length];
+        this.buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
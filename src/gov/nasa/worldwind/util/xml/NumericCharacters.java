@@ -0,0 +1,372 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.util.xml;
+
+import gov.nasa.worldwind.util.*;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.*;
+import javax.xml.stream.events.*;
+import java.io.*;
+
+/**
+ * A characters event whose content is a sequence of numbers that has already been parsed. {@link
+ * RecordingXMLEventReader} stores the content of designated numeric elements, such as COLLADA <i>float_array</i> and
+ * KML <i>coordinates</i>, as binary arrays, and {@link BinaryXMLEventReader} replays each as one event of this type.
+ * Parsers that recognize the event read its values directly; other parsers read its content as text, which is
+ * formatted from the values on first use.
+ * <p>
+ * The content of an element is parsed in one of three ways: <ul> <li>{@link #FLOATS}: whitespace separated floats, as
+ * parsed by {@link #parseFloats(String)};</li> <li>{@link #INTS}: whitespace separated integers, as parsed by {@link
+ * #parseInts(String)}; and</li> <li>{@link #COORDINATES}: whitespace separated tuples of comma separated longitude,
+ * latitude and optional altitude, as parsed by {@link #parseCoordinates(String)}.</li> </ul>
+ *
+ * @version $Id$
+ * @see BinaryXMLEventCache
+ */
+public class NumericCharacters implements Characters
+{
+    /** Content parsed into a <code>float[]</code>. */
+    public static final int FLOATS = 1;
+    /** Content parsed into an <code>int[]</code>. */
+    public static final int INTS = 2;
+    /** Content parsed into a <code>double[]</code> of longitude, latitude and altitude triples. */
+    public static final int COORDINATES = 3;
+
+    protected final int contentType;
+    protected final Object values;
+    protected String data;
+
+    /**
+     * Creates a characters event holding parsed values.
+     *
+     * @param contentType the type of content: {@link #FLOATS}, {@link #INTS} or {@link #COORDINATES}.
+     * @param values      the values: a <code>float[]</code>, an <code>int[]</code>, or a <code>double[]</code> of
+     *                    coordinate triples, respectively.
+     *
+     * @throws IllegalArgumentException if the values are null or do not match the content type.
+     */
+    public NumericCharacters(int contentType, Object values)
+    {
+        if (values == null)
+        {
+            String message = Logging.getMessage("nullValue.ArrayIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (!(contentType == FLOATS && values instanceof float[]) && !(contentType == INTS && values instanceof int[])
+            && !(contentType == COORDINATES && values instanceof double[] && ((double[]) values).length % 3 == 0))
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "contentType=" + contentType);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.contentType = contentType;
+        this.values = values;
+    }
+
+    /**
+     * Parses whitespace separated floats the way COLLADA <i>float_array</i> content is parsed: the array has one
+     * element for each substring separated by a single whitespace character, and empty substrings leave zeros at the
+     * end of the array.
+     *
+     * @param s the text to parse.
+     *
+     * @return the parsed floats.
+     *
+     * @throws NumberFormatException if a substring is not a float.
+     */
+    public static float[] parseFloats(String s)
+    {
+        String[] arrayOfNumbers = s.split("\\s");
+        float[] ary = new float[arrayOfNumbers.length];
+
+        int i = 0;
+        for (String number : arrayOfNumbers)
+        {
+            if (!WWUtil.isEmpty(number))
+                ary[i++] = Float.parseFloat(number);
+        }
+
+        return ary;
+    }
+
+    /**
+     * Parses whitespace separated integers the way COLLADA <i>p</i> content is parsed. See {@link
+     * #parseFloats(String)}.
+     *
+     * @param s the text to parse.
+     *
+     * @return the parsed integers.
+     *
+     * @throws NumberFormatException if a substring is not an integer.
+     */
+    public static int[] parseInts(String s)
+    {
+        String[] arrayOfNumbers = s.split("\\s");
+        int[] ints = new int[arrayOfNumbers.length];
+
+        int i = 0;
+        for (String number : arrayOfNumbers)
+        {
+            if (!WWUtil.isEmpty(number))
+                ints[i++] = Integer.parseInt(number);
+        }
+
+        return ints;
+    }
+
+    /**
+     * Parses KML coordinates that follow the KML specification strictly: tuples separated by whitespace, each of two
+     * or three comma separated numbers with no embedded whitespace. Such content is read identically by the lenient
+     * KML coordinate tokenizer. Content in any other form is not parsed.
+     *
+     * @param s the text to parse.
+     *
+     * @return longitude, latitude and altitude triples, with altitude zero where it is omitted, or null if the text
+     *         is not in the strict form.
+     */
+    public static double[] parseCoordinates(String s)
+    {
+        String[] tuples = s.trim().split("\\s+");
+        if (tuples.length == 0 || tuples[0].length() == 0)
+            return null;
+
+        double[] coords = new double[3 * tuples.length];
+        int i = 0;
+        for (String tuple : tuples)
+        {
+            String[] components = tuple.split(",", -1);
+            if (components.length < 2 || components.length > 3)
+                return null;
+
+            try
+            {
+                coords[i++] = Double.parseDouble(components[0]);
+                coords[i++] = Double.parseDouble(components[1]);
+                coords[i++] = components.length > 2 ? Double.parseDouble(components[2]) : 0;
+            }
+            catch (NumberFormatException e)
+            {
+                return null;
+            }
+        }
+
+        return coords;
+    }
+
+    /**
+     * Indicates the type of this event's content.
+     *
+     * @return {@link #FLOATS}, {@link #INTS} or {@link #COORDINATES}.
+     */
+    public int getContentType()
+    {
+        return this.contentType;
+    }
+
+    /**
+     * Returns the floats of {@link #FLOATS} content.
+     *
+     * @return the floats, or null if the content is of another type. The array must not be modified.
+     */
+    public float[] getFloats()
+    {
+        return this.contentType == FLOATS ? (float[]) this.values : null;
+    }
+
+    /**
+     * Returns the integers of {@link #INTS} content.
+     *
+     * @return the integers, or null if the content is of another type. The array must not be modified.
+     */
+    public int[] getInts()
+    {
+        return this.contentType == INTS ? (int[]) this.values : null;
+    }
+
+    /**
+     * Returns the longitude, latitude and altitude triples of {@link #COORDINATES} content.
+     *
+     * @return the coordinates, or null if the content is of another type. The array must not be modified.
+     */
+    public double[] getCoordinates()
+    {
+        return this.contentType == COORDINATES ? (double[]) this.values : null;
+    }
+
+    /**
+     * Returns this event's content as text, formatting it from the values on first use.
+     *
+     * @return the content as text.
+     */
+    public String getData()
+    {
+        if (this.data == null)
+            this.data = this.formatData();
+
+        return this.data;
+    }
+
+    protected String formatData()
+    {
+        StringBuilder sb = new StringBuilder();
+
+        if (this.contentType == FLOATS)
+        {
+            for (float f : (float[]) this.values)
+            {
+                sb.append(sb.length() > 0 ? " " : "").append(f);
+            }
+        }
+        else if (this.contentType == INTS)
+        {
+            for (int n : (int[]) this.values)
+            {
+                sb.append(sb.length() > 0 ? " " : "").append(n);
+            }
+        }
+        else
+        {
+            double[] coords = (double[]) this.values;
+            for (int i = 0; i < coords.length; i += 3)
+            {
+                sb.append(i > 0 ? " " : "").append(coords[i]).append(',').append(coords[i + 1]).append(',').append(
+                    coords[i + 2]);
+            }
+        }
+
+        return sb.toString();
+    }
+
+    public boolean isWhiteSpace()
+    {
+        return false;
+    }
+
+    public boolean isCData()
+    {
+        return false;
+    }
+
+    public boolean isIgnorableWhiteSpace()
+    {
+        return false;
+    }
+
+    public int getEventType()
+    {
+        return XMLStreamConstants.CHARACTERS;
+    }
+
+    public Location getLocation()
+    {
+        return null;
+    }
+
+    public boolean isStartElement()
+    {
+        return false;
+    }
+
+    public boolean isAttribute()
+    {
+        return false;
+    }
+
+    public boolean isNamespace()
+    {
+        return false;
+    }
+
+    public boolean isEndElement()
+    {
+        return false;
+    }
+
+    public boolean isEntityReference()
+    {
+        return false;
+    }
+
+    public boolean isProcessingInstruction()
+    {
+        return false;
+    }
+
+    public boolean isCharacters()
+    {
+        return true;
+    }
+
+    public boolean isStartDocument()
+    {
+        return false;
+    }
+
+    public boolean isEndDocument()
+    {
+        return false;
+    }
+
+    public StartElement asStartElement()
+    {
+        throw new ClassCastException(Logging.getMessage("XML.InvalidXMLEvent", this));
+    }
+
+    public EndElement asEndElement()
+    {
+        throw new ClassCastException(Logging.getMessage("XML.InvalidXMLEvent", this));
+    }
+
+    public Characters asCharacters()
+    {
+        return this;
+    }
+
+    public QName getSchemaType()
+    {
+        return null;
+    }
+
+    public void writeAsEncodedUnicode(Writer writer) throws XMLStreamException
+    {
+        try
+        {
+            writer.write(this.getData()); // numbers contain no characters that must be escaped
+        }
+        catch (IOException e)
+        {
+            throw new XMLStreamException(e);
+        }
+    }
+}
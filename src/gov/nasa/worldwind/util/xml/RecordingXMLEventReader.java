@@ -0,0 +1,481 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+package gov.nasa.worldwind.util.xml;
+
+import gov.nasa.worldwind.util.*;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.*;
+import javax.xml.stream.events.*;
+import java.io.*;
+import java.nio.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.logging.Level;
+
+/**
+ * An {@link XMLEventReader} that passes through the events of another reader and records them in the binary format
+ * read by {@link BinaryXMLEventReader}. The recording is written to its file when the document's root element ends;
+ * a reader that is closed before that, for example because parsing failed, discards its recording.
+ * <p>
+ * The character content of designated numeric elements is recorded as a binary array of numbers when it parses as
+ * such, and as text otherwise. The events passed through to the caller are those of the underlying reader in either
+ * case.
+ *
+ * @version $Id$
+ * @see BinaryXMLEventCache
+ */
+public class RecordingXMLEventReader implements XMLEventReader
+{
+    protected static final int INITIAL_CAPACITY = 64 * 1024;
+
+    protected final XMLEventReader reader;
+    protected final File file;
+    protected ByteBuffer buffer;
+    protected final Map<String, Integer> stringTable = new HashMap<String, Integer>();
+    protected final Map<QName, Integer> numericElements;
+    /** The content type of the numeric element being recorded, or null if no numeric element is open. */
+    protected Integer numericContentType;
+    protected StringBuilder numericText;
+    protected int depth;
+    protected boolean rootElementStarted;
+    protected boolean finished;
+
+    /**
+     * Creates a recording reader.
+     *
+     * @param reader the reader whose events are recorded.
+     * @param file   the file to write the recording to.
+     *
+     * @throws IllegalArgumentException if either argument is null.
+     */
+    public RecordingXMLEventReader(XMLEventReader reader, File file)
+    {
+        this(reader, file, null);
+    }
+
+    /**
+     * Creates a recording reader that records the content of the specified elements as numbers.
+     *
+     * @param reader          the reader whose events are recorded.
+     * @param file            the file to write the recording to.
+     * @param numericElements the names of elements whose content is recorded as numbers, each mapped to the type of
+     *                        its content: {@link NumericCharacters#FLOATS}, {@link NumericCharacters#INTS} or {@link
+     *                        NumericCharacters#COORDINATES}. May be null.
+     *
+     * @throws IllegalArgumentException if the reader or file is null.
+     */
+    public RecordingXMLEventReader(XMLEventReader reader, File file, Map<QName, Integer> numericElements)
+    {
+        if (reader == null)
+        {
+            String message = Logging.getMessage("nullValue.ReaderIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (file == null)
+        {
+            String message = Logging.getMessage("nullValue.FileIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.reader = reader;
+        this.file = file;
+        this.numericElements = numericElements;
+        this.buffer = ByteBuffer.allocate(INITIAL_CAPACITY).order(ByteOrder.LITTLE_ENDIAN);
+        this.buffer.putInt(BinaryXMLEventCache.MAGIC);
+        this.buffer.putInt(BinaryXMLEventCache.VERSION);
+    }
+
+    public XMLEvent nextEvent() throws XMLStreamException
+    {
+        return this.record(this.reader.nextEvent());
+    }
+
+    public boolean hasNext()
+    {
+        return this.reader.hasNext();
+    }
+
+    public XMLEvent peek() throws XMLStreamException
+    {
+        return this.reader.peek();
+    }
+
+    public Object next()
+    {
+        return this.record((XMLEvent) this.reader.next());
+    }
+
+    public void remove()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public String getElementText() throws XMLStreamException
+    {
+        StringBuilder sb = new StringBuilder();
+
+        for (XMLEvent event = this.nextEvent(); !event.isEndElement(); event = this.nextEvent())
+        {
+            if (event.isCharacters())
+                sb.append(event.asCharacters().getData());
+            else if (event.isStartElement())
+                throw new XMLStreamException(Logging.getMessage("XML.InvalidXMLEvent", event), event.getLocation());
+        }
+
+        return sb.toString();
+    }
+
+    public XMLEvent nextTag() throws XMLStreamException
+    {
+        for (XMLEvent event = this.nextEvent(); ; event = this.nextEvent())
+        {
+            if (event.isStartElement() || event.isEndElement())
+                return event;
+
+            if (event.isCharacters() && !event.asCharacters().isWhiteSpace())
+                throw new XMLStreamException(Logging.getMessage("XML.InvalidXMLEvent", event), event.getLocation());
+        }
+    }
+
+    public Object getProperty(String name)
+    {
+        return this.reader.getProperty(name);
+    }
+
+    public void close() throws XMLStreamException
+    {
+        this.buffer = null; // discard an incomplete recording
+        this.reader.close();
+    }
+
+    /**
+     * Indicates whether the recording has been written to its file.
+     *
+     * @return true if the recording is complete, otherwise false.
+     */
+    public boolean isFinished()
+    {
+        return this.finished;
+    }
+
+    protected XMLEvent record(XMLEvent event)
+    {
+        if (event == null || this.buffer == null || this.finished)
+            return event;
+
+        switch (event.getEventType())
+        {
+            case XMLStreamConstants.START_DOCUMENT:
+                StartDocument sd = (StartDocument) event;
+                this.putByte(BinaryXMLEventCache.START_DOCUMENT);
+                this.putString(sd.encodingSet() ? sd.getCharacterEncodingScheme() : null);
+                this.putString(sd.getVersion());
+                this.putByte((byte) (sd.isStandalone() ? 1 : 0));
+                break;
+            case XMLStreamConstants.START_ELEMENT:
+                this.flushNumericText();
+                this.recordStartElement(event.asStartElement());
+                this.depth++;
+                this.rootElementStarted = true;
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                this.recordNumericContent();
+                this.putByte(BinaryXMLEventCache.END_ELEMENT);
+                this.putName(event.asEndElement().getName());
+                if (--this.depth == 0 && this.rootElementStarted)
+                    this.finish();
+                break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.CDATA:
+            case XMLStreamConstants.SPACE:
+                Characters characters = event.asCharacters();
+                if (this.numericText != null)
+                {
+                    this.numericText.append(characters.getData());
+                    break;
+                }
+                this.putByte(characters.isCData() ? BinaryXMLEventCache.CDATA
+                    : characters.isIgnorableWhiteSpace() ? BinaryXMLEventCache.SPACE : BinaryXMLEventCache.CHARACTERS);
+                this.putText(characters.getData());
+                break;
+            case XMLStreamConstants.COMMENT:
+                this.flushNumericText();
+                this.putByte(BinaryXMLEventCache.COMMENT);
+                this.putText(((Comment) event).getText());
+                break;
+            case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                ProcessingInstruction pi = (ProcessingInstruction) event;
+                this.flushNumericText();
+                this.putByte(BinaryXMLEventCache.PROCESSING_INSTRUCTION);
+                this.putString(pi.getTarget());
+                this.putText(pi.getData() != null ? pi.getData() : "");
+                break;
+            case XMLStreamConstants.END_DOCUMENT:
+                this.finish();
+                break;
+            default:
+                // DTDs and entity declarations are not used by the parsers and are not recorded.
+                break;
+        }
+
+        return event;
+    }
+
+    protected void recordStartElement(StartElement element)
+    {
+        this.putByte(BinaryXMLEventCache.START_ELEMENT);
+        this.putName(element.getName());
+
+        if (this.numericElements != null)
+        {
+            this.numericContentType = this.numericElements.get(element.getName());
+            if (this.numericContentType != null)
+                this.numericText = new StringBuilder();
+        }
+
+        List<Attribute> attributes = new ArrayList<Attribute>();
+        for (Iterator<?> iter = element.getAttributes(); iter.hasNext(); )
+        {
+            attributes.add((Attribute) iter.next());
+        }
+
+        this.ensureCapacity(4);
+        this.buffer.putInt(attributes.size());
+        for (Attribute attribute : attributes)
+        {
+            this.putName(attribute.getName());
+            this.putText(attribute.getValue());
+        }
+
+        List<Namespace> namespaces = new ArrayList<Namespace>();
+        for (Iterator<?> iter = element.getNamespaces(); iter.hasNext(); )
+        {
+            namespaces.add((Namespace) iter.next());
+        }
+
+        this.ensureCapacity(4);
+        this.buffer.putInt(namespaces.size());
+        for (Namespace namespace : namespaces)
+        {
+            this.putString(namespace.getPrefix());
+            this.putString(namespace.getNamespaceURI());
+        }
+    }
+
+    /**
+     * Writes the content of the numeric element that is ending as a block of numbers, or as text if it does not parse
+     * as numbers of the element's content type.
+     */
+    protected void recordNumericContent()
+    {
+        if (this.numericText == null)
+            return;
+
+        String text = this.numericText.toString();
+        Object values = null;
+        int count = 0;
+
+        if (text.trim().length() > 0) // whitespace is recorded as text, which parsers ignore
+        {
+            try
+            {
+                switch (this.numericContentType)
+                {
+                    case NumericCharacters.FLOATS:
+                        float[] floats = NumericCharacters.parseFloats(text);
+                        values = floats;
+                        count = floats.length;
+                        break;
+                    case NumericCharacters.INTS:
+                        int[] ints = NumericCharacters.parseInts(text);
+                        values = ints;
+                        count = ints.length;
+                        break;
+                    case NumericCharacters.COORDINATES:
+                        double[] coords = NumericCharacters.parseCoordinates(text);
+                        values = coords;
+                        count = coords != null ? coords.length : 0;
+                        break;
+                    default:
+                        break;
+                }
+            }
+            catch (NumberFormatException e)
+            {
+                values = null; // record the text and let the element's parser handle it
+            }
+        }
+
+        if (values == null)
+        {
+            this.flushNumericText();
+            return;
+        }
+
+        this.numericText = null;
+        this.numericContentType = null;
+
+        int size = values instanceof double[] ? 8 * count : 4 * count;
+        this.putByte(BinaryXMLEventCache.NUMBERS);
+        this.ensureCapacity(5 + size);
+        if (values instanceof float[])
+        {
+            this.buffer.put((byte) NumericCharacters.FLOATS).putInt(count);
+            this.buffer.asFloatBuffer().put((float[]) values);
+        }
+        else if (values instanceof int[])
+        {
+            this.buffer.put((byte) NumericCharacters.INTS).putInt(count);
+            this.buffer.asIntBuffer().put((int[]) values);
+        }
+        else
+        {
+            this.buffer.put((byte) NumericCharacters.COORDINATES).putInt(count);
+            this.buffer.asDoubleBuffer().put((double[]) values);
+        }
+        this.buffer.position(this.buffer.position() + size);
+    }
+
+    /** Writes the text collected for a numeric element as character content, and ends numeric recording. */
+    protected void flushNumericText()
+    {
+        if (this.numericText == null)
+            return;
+
+        String text = this.numericText.toString();
+        this.numericText = null;
+        this.numericContentType = null;
+
+        if (text.length() > 0)
+        {
+            this.putByte(BinaryXMLEventCache.CHARACTERS);
+            this.putText(text);
+        }
+    }
+
+    /** Writes the recording to its file. Failure to write the file is logged and otherwise ignored. */
+    protected void finish()
+    {
+        this.putByte(BinaryXMLEventCache.END_DOCUMENT);
+        this.finished = true;
+
+        this.buffer.flip();
+        try
+        {
+            // Write to a temporary file first so that a concurrent reader never sees a partial recording.
+            File tmpFile = new File(this.file.getPath() + ".tmp");
+            WWIO.saveBuffer(this.buffer, tmpFile);
+            if (!tmpFile.renameTo(this.file))
+            {
+                this.file.delete();
+                if (!tmpFile.renameTo(this.file))
+                    tmpFile.delete();
+            }
+        }
+        catch (IOException e)
+        {
+            Logging.logger().log(Level.WARNING, Logging.getMessage("generic.ExceptionAttemptingToWriteTo", this.file),
+                e);
+        }
+        finally
+        {
+            this.buffer = null;
+        }
+    }
+
+    protected void putName(QName name)
+    {
+        this.putString(name.getPrefix());
+        this.putString(name.getNamespaceURI());
+        this.putString(name.getLocalPart());
+    }
+
+    protected void putByte(byte b)
+    {
+        this.ensureCapacity(1);
+        this.buffer.put(b);
+    }
+
+    /**
+     * Writes a string table reference, and the string itself if this is its first occurrence.
+     *
+     * @param s the string to write. May be null.
+     */
+    protected void putString(String s)
+    {
+        this.ensureCapacity(4);
+
+        if (s == null)
+        {
+            this.buffer.putInt(BinaryXMLEventCache.NULL_STRING);
+            return;
+        }
+
+        Integer index = this.stringTable.get(s);
+        if (index != null)
+        {
+            this.buffer.putInt(index);
+            return;
+        }
+
+        index = this.stringTable.size();
+        this.stringTable.put(s, index);
+        this.buffer.putInt(index);
+        this.putText(s);
+    }
+
+    /**
+     * Writes a length-prefixed block of UTF-8 text.
+     *
+     * @param s the text to write.
+     */
+    protected void putText(String s)
+    {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        this.ensureCapacity(4 + bytes.length);
+        this.buffer.putInt(bytes.length);
+        this.buffer.put(bytes);
+    }
+
+    protected void ensureCapacity(int length)
+    {
+        if (this.buffer.remaining() >= length)
+            return;
+
+        int capacity = Math.max(2 * this.buffer.capacity(), this.buffer.position() + length);
+        ByteBuffer newBuffer = ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+        this.buffer.flip();
+        newBuffer.put(this.buffer);
+        this.buffer = newBuffer;
+    }
+}
@@ -32,7 +32,7 @@ import gov.nasa.worldwind.avlist.*;
 import gov.nasa.worldwindx.examples.util.RandomShapeAttributes;
 import gov.nasa.worldwind.exception.WWRuntimeException;
 import gov.nasa.worldwind.formats.geojson.*;
-import gov.nasa.worldwind.geom.Position;
+import gov.nasa.worldwind.geom.*;
 import gov.nasa.worldwind.layers.*;
 import gov.nasa.worldwind.render.*;
 import gov.nasa.worldwind.util.*;
@@ -48,6 +48,9 @@ import java.util.logging.Level;
  */
 public class GeoJSONLoader
 {
+    /** The number of features added to a layer between notifications of the layer's listeners. */
+    protected static final int FEATURES_PER_LAYER_UPDATE = 1000;
+
     protected static final RandomShapeAttributes randomAttrs = new RandomShapeAttributes();
 
     /** Create a new loader. */
@@ -56,13 +59,33 @@ public class GeoJSONLoader
     }
 
     /**
-     * Parse a GeoJSON document and add it to a layer.
+     * Parse a GeoJSON document and add it to a layer. The document's features are read one at a time and added to the
+     * layer as they are read, so the layer fills progressively when the document is loaded on a thread other than
+     * the one rendering the layer. See {@link GeoJSONFeatureReader} for the supported document structures, which
+     * include newline-delimited GeoJSON.
      *
      * @param docSource GeoJSON document. May be a file path {@link String}, {@link java.io.File}, {@link java.net.URL},
      *                  or {@link java.net.URI}.
      * @param layer     layer to receive the new Renderable.
      */
     public void addSourceGeometryToLayer(Object docSource, RenderableLayer layer)
+    {
+        this.addSourceGeometryToLayer(docSource, layer, null);
+    }
+
+    /**
+     * Parse a GeoJSON document and add the features that intersect a specified sector to a layer. Features outside the
+     * sector are discarded while the document is parsed. The document's features are added to the layer as they are
+     * read, and the layer notifies its listeners every {@link #FEATURES_PER_LAYER_UPDATE} features so that it is
+     * redrawn while a large document loads.
+     *
+     * @param docSource GeoJSON document. May be a file path {@link String}, {@link java.io.File}, {@link java.net.URL},
+     *                  or {@link java.net.URI}.
+     * @param layer     layer to receive the new Renderables.
+     * @param sector    the sector features must intersect to be added to the layer. May be null, in which case all
+     *                  features are added.
+     */
+    public void addSourceGeometryToLayer(Object docSource, RenderableLayer layer, Sector sector)
     {
         if (WWUtil.isEmpty(docSource))
         {
@@ -78,34 +101,20 @@ public class GeoJSONLoader
             throw new IllegalArgumentException(message);
         }
 
-        GeoJSONDoc doc = null;
+        GeoJSONFeatureReader reader = null;
         try
         {
-            doc = new GeoJSONDoc(docSource);
-            doc.parse();
+            reader = new GeoJSONFeatureReader(docSource, sector);
 
-            if (doc.getRootObject() instanceof GeoJSONObject)
+            for (GeoJSONFeature feature = reader.readFeature(); feature != null; feature = reader.readFeature())
             {
-                this.addGeoJSONGeometryToLayer((GeoJSONObject) doc.getRootObject(), layer);
-            }
-            else if (doc.getRootObject() instanceof Object[])
-            {
-                for (Object o : (Object[]) doc.getRootObject())
-                {
-                    if (o instanceof GeoJSONObject)
-                    {
-                        this.addGeoJSONGeometryToLayer((GeoJSONObject) o, layer);
-                    }
-                    else
-                    {
-                        this.handleUnrecognizedObject(o);
-                    }
-                }
-            }
-            else
-            {
-                this.handleUnrecognizedObject(doc.getRootObject());
+                this.addRenderableForFeature(feature, layer);
+
+                if (reader.getFeatureCount() % FEATURES_PER_LAYER_UPDATE == 0)
+                    layer.firePropertyChange(AVKey.LAYER, null, layer);
             }
+
+            layer.firePropertyChange(AVKey.LAYER, null, layer);
         }
         catch (IOException e)
         {
@@ -115,9 +124,10 @@ public class GeoJSONLoader
         }
         finally
         {
-            WWIO.closeStream(doc, docSource.toString());
+            WWIO.closeStream(reader, docSource.toString());
         }
     }
+
     /**
      * Create a layer from a GeoJSON document.
      *
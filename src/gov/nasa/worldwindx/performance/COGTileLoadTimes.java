@@ -0,0 +1,187 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwindx.performance;
+
+import com.sun.net.httpserver.*;
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.cache.BasicDataFileStore;
+import gov.nasa.worldwind.data.*;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.retrieve.ByteRangeChannel;
+import gov.nasa.worldwind.util.*;
+
+import java.io.*;
+import java.net.*;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.regex.*;
+
+/**
+ * Measures the time to read every tile of a cloud-optimized GeoTIFF's level set with HTTP range requests, first with
+ * empty caches, then from the byte range block memory cache, and then from the block files in the file store alone.
+ * Reports the number of bytes retrieved, which is typically a small fraction of the file for the first levels. Runs
+ * without a window or OpenGL context.
+ * <p>
+ * Usage: <code>COGTileLoadTimes [file ...]</code>. Each file is served by a local HTTP server that supports range
+ * requests. The default files are the small test fixtures; pass a production GeoTIFF for representative times.
+ *
+ * @version $Id$
+ */
+public class COGTileLoadTimes
+{
+    protected static final int TILE_SIZE = 64;
+    protected static final String[] DEFAULT_FILES = new String[] {
+        "testData/cog/elev16_cog.tif",
+        "testData/cog/rgb_cog.tif"
+    };
+    protected static final Pattern RANGE_PATTERN = Pattern.compile("bytes=(\\d+)-(\\d+)");
+
+    protected static final AtomicLong bytesServed = new AtomicLong();
+
+    public static void main(String[] args) throws Exception
+    {
+        Logging.logger().setLevel(Level.SEVERE);
+
+        final File[] files = new File[args.length > 0 ? args.length : DEFAULT_FILES.length];
+        for (int i = 0; i < files.length; i++)
+        {
+            files[i] = new File(args.length > 0 ? args[i] : DEFAULT_FILES[i]);
+        }
+
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new HttpHandler()
+        {
+            public void handle(HttpExchange exchange) throws IOException
+            {
+                serveRange(files[Integer.parseInt(exchange.getRequestURI().getPath().substring(1))], exchange);
+            }
+        });
+        server.start();
+
+        File cacheDir = Files.createTempDirectory("COGTileLoadTimes").toFile();
+        try
+        {
+            BasicDataFileStore fileStore = new BasicDataFileStore(cacheDir);
+            for (int i = 0; i < files.length; i++)
+            {
+                URL url = new URL("http://localhost:" + server.getAddress().getPort() + "/" + i);
+                ByteRangeChannel.getMemoryCache().clear();
+                bytesServed.set(0);
+
+                long start = System.nanoTime();
+                COGRasterSource source = new COGRasterSource(url, fileStore, null);
+                AVList params = source.getLevelSetParams(TILE_SIZE, TILE_SIZE, null);
+                int tileCount = readAllTiles(source, new LevelSet(params));
+                double cold = (System.nanoTime() - start) / 1e6;
+                long retrieved = bytesServed.get();
+
+                start = System.nanoTime();
+                readAllTiles(source, new LevelSet(params));
+                double memory = (System.nanoTime() - start) / 1e6;
+                source.dispose();
+
+                ByteRangeChannel.getMemoryCache().clear();
+                start = System.nanoTime();
+                source = new COGRasterSource(url, fileStore, null);
+                readAllTiles(source, new LevelSet(params));
+                double disk = (System.nanoTime() - start) / 1e6;
+                source.dispose();
+
+                System.out.printf("%s (%d bytes, %d tiles): retrieved %d bytes, cold %.1f ms, memory cache %.1f ms, "
+                        + "file store %.1f ms\n", files[i], files[i].length(), tileCount, retrieved, cold, memory,
+                    disk);
+            }
+        }
+        finally
+        {
+            server.stop(0);
+            WWIO.deleteDirectory(cacheDir);
+            cacheDir.delete();
+        }
+    }
+
+    protected static int readAllTiles(COGRasterSource source, LevelSet levels) throws IOException
+    {
+        int count = 0;
+        for (gov.nasa.worldwind.util.Level level : levels.getLevels())
+        {
+            LatLon delta = level.getTileDelta();
+            LatLon origin = levels.getTileOrigin();
+            Sector sector = levels.getSector();
+            int firstRow = Tile.computeRow(delta.getLatitude(), sector.getMinLatitude(), origin.getLatitude());
+            int lastRow = Tile.computeRow(delta.getLatitude(), sector.getMaxLatitude(), origin.getLatitude());
+            int firstCol = Tile.computeColumn(delta.getLongitude(), sector.getMinLongitude(), origin.getLongitude());
+            int lastCol = Tile.computeColumn(delta.getLongitude(), sector.getMaxLongitude(), origin.getLongitude());
+
+            for (int row = firstRow; row <= lastRow; row++)
+            {
+                for (int col = firstCol; col <= lastCol; col++)
+                {
+                    Sector tileSector = levels.computeSectorForKey(new TileKey(level.getLevelNumber(), row, col,
+                        level.getCacheName()));
+                    DataRaster raster = source.read(tileSector, level.getTileWidth(), level.getTileHeight());
+                    if (raster != null)
+                    {
+                        raster.dispose();
+                        count++;
+                    }
+                }
+            }
+        }
+
+        return count;
+    }
+
+    protected static void serveRange(File file, HttpExchange exchange) throws IOException
+    {
+        byte[] content = Files.readAllBytes(file.toPath());
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        Matcher matcher = range != null ? RANGE_PATTERN.matcher(range) : null;
+        int start = 0;
+        int end = content.length - 1;
+        if (matcher != null && matcher.matches())
+        {
+            start = Integer.parseInt(matcher.group(1));
+            end = Math.min(end, Integer.parseInt(matcher.group(2)));
+            exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/" + content.length);
+            exchange.sendResponseHeaders(206, end - start + 1);
+        }
+        else
+        {
+            exchange.sendResponseHeaders(200, content.length);
+        }
+
+        bytesServed.addAndGet(end - start + 1);
+        OutputStream os = exchange.getResponseBody();
+        os.write(content, start, end - start + 1);
+        os.close();
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwindx.performance;
+
+import gov.nasa.worldwind.*;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.layers.*;
+import gov.nasa.worldwind.render.*;
+import gov.nasa.worldwind.util.Logging;
+
+import java.util.*;
+import java.util.logging.Level;
+
+/**
+ * Measures {@link ClusteringLayer}: the time to add and remove points, and the time per frame to select the clusters
+ * and individual points displayed from several altitudes above the points. Runs without a window or OpenGL context.
+ * <p>
+ * Usage: <code>ClusteringLayerTimes [pointCount ...]</code>.
+ *
+ * @version $Id$
+ */
+public class ClusteringLayerTimes
+{
+    protected static final int NUM_ITERATIONS = 50;
+    protected static final int[] DEFAULT_COUNTS = new int[] {10000, 100000, 1000000};
+    protected static final double[] ALTITUDES = new double[] {20000e3, 2000e3, 200e3, 20e3, 2e3};
+
+    public static void main(String[] args)
+    {
+        Logging.logger().setLevel(Level.SEVERE);
+
+        int[] counts = DEFAULT_COUNTS;
+        if (args.length > 0)
+        {
+            counts = new int[args.length];
+            for (int i = 0; i < args.length; i++)
+            {
+                counts[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        Globe globe = new Earth();
+        DrawContext dc = new DrawContextImpl();
+        dc.setModel(new BasicModel(globe, new LayerList()));
+        dc.setVerticalExaggeration(1);
+
+        for (int count : counts)
+        {
+            // Points spread over the continental United States.
+            Random random = new Random(count);
+            List<PointPlacemark> placemarks = new ArrayList<PointPlacemark>(count);
+            for (int i = 0; i < count; i++)
+            {
+                placemarks.add(new PointPlacemark(Position.fromDegrees(25 + 24 * random.nextDouble(),
+                    -125 + 58 * random.nextDouble(), 0)));
+            }
+
+            ClusteringLayer layer = new ClusteringLayer();
+            long start = System.nanoTime();
+            layer.addItems(placemarks);
+            double addTime = (System.nanoTime() - start) / 1e6;
+
+            System.out.printf("%d points added in %.1f ms (%.2f us per point)\n", count, addTime,
+                1e3 * addTime / count);
+
+            for (double altitude : ALTITUDES)
+            {
+                Vec4 eye = globe.computePointFromPosition(Position.fromDegrees(38, -98, altitude));
+                Vec4 center = globe.computePointFromPosition(Position.fromDegrees(38, -98, 0));
+                Vec4 up = globe.computeNorthPointingTangentAtLocation(Angle.fromDegrees(38), Angle.fromDegrees(-98));
+                Frustum frustum = Frustum.fromPerspective(Angle.fromDegrees(45), 1920, 1080, 1, 2 * altitude + 1e6)
+                    .transformBy(Matrix.fromViewLookAt(eye, center, up).getTranspose());
+                double pixelSizeScale = 2 * Math.tan(Math.toRadians(22.5)) / 1920;
+
+                List<ClusteringLayer.Cluster> clusters = new ArrayList<ClusteringLayer.Cluster>();
+                List<Locatable> items = new ArrayList<Locatable>();
+                for (int i = 0; i < 10; i++)
+                {
+                    clusters.clear();
+                    items.clear();
+                    layer.selectClusters(dc, frustum, eye, pixelSizeScale, clusters, items); // warm up the JIT
+                }
+
+                start = System.nanoTime();
+                for (int i = 0; i < NUM_ITERATIONS; i++)
+                {
+                    clusters.clear();
+                    items.clear();
+                    layer.selectClusters(dc, frustum, eye, pixelSizeScale, clusters, items);
+                }
+                double selectTime = (System.nanoTime() - start) / 1e6 / NUM_ITERATIONS;
+
+                System.out.printf("  altitude %8.0f km: %5d clusters, %5d points selected in %.3f ms\n",
+                    altitude / 1e3, clusters.size(), items.size(), selectTime);
+            }
+
+            start = System.nanoTime();
+            for (PointPlacemark placemark : placemarks)
+            {
+                layer.removeItem(placemark);
+            }
+            double removeTime = (System.nanoTime() - start) / 1e6;
+
+            System.out.printf("%d points removed in %.1f ms (%.2f us per point)\n", count, removeTime,
+                1e3 * removeTime / count);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwindx.performance;
+
+import gov.nasa.worldwind.render.*;
+import gov.nasa.worldwind.util.*;
+
+import java.awt.geom.Rectangle2D;
+import java.util.*;
+
+/**
+ * Measures the time the clutter filters take to declutter synthetic labels scattered over a 1920 x 1080 screen, and
+ * compares it with the time taken by a linear search of the regions already drawn. Runs without a window or OpenGL
+ * context.
+ * <p>
+ * Usage: <code>ClutterFilterTimes [labelCount ...]</code>.
+ *
+ * @version $Id$
+ * @see BasicClutterFilter
+ * @see PlacemarkClutterFilter
+ */
+public class ClutterFilterTimes
+{
+    protected static final int NUM_ITERATIONS = 10;
+    protected static final int[] DEFAULT_COUNTS = new int[] {1000, 10000, 50000};
+
+    /** A label with fixed screen bounds. */
+    protected static class Label implements Declutterable
+    {
+        protected final Rectangle2D bounds;
+
+        public Label(Rectangle2D bounds)
+        {
+            this.bounds = bounds;
+        }
+
+        public boolean isEnableDecluttering()
+        {
+            return true;
+        }
+
+        public Rectangle2D getBounds(DrawContext dc)
+        {
+            return this.bounds;
+        }
+
+        public double getDistanceFromEye()
+        {
+            return 0;
+        }
+
+        public void pick(DrawContext dc, java.awt.Point pickPoint)
+        {
+        }
+
+        public void render(DrawContext dc)
+        {
+        }
+    }
+
+    /** The basic filter with the linear region search it used before regions were indexed. */
+    protected static class LinearBasicClutterFilter extends BasicClutterFilter
+    {
+        @Override
+        protected Rectangle2D intersects(Rectangle2D rectangle)
+        {
+            return linearSearch(this.rectList, rectangle);
+        }
+    }
+
+    /** The placemark filter with the linear region search it used before regions were indexed. */
+    protected static class LinearPlacemarkClutterFilter extends PlacemarkClutterFilter
+    {
+        @Override
+        protected Rectangle2D intersects(Rectangle2D rectangle)
+        {
+            return linearSearch(this.rectList, rectangle);
+        }
+    }
+
+    public static void main(String[] args)
+    {
+        int[] counts = DEFAULT_COUNTS;
+        if (args.length > 0)
+        {
+            counts = new int[args.length];
+            for (int i = 0; i < args.length; i++)
+            {
+                counts[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        for (int count : counts)
+        {
+            List<Declutterable> labels = createLabels(count);
+
+            System.out.printf("%d labels: basic %.2f ms (linear %.2f ms), placemark %.2f ms (linear %.2f ms)\n",
+                count, time(new BasicClutterFilter(), labels), time(new LinearBasicClutterFilter(), labels),
+                time(new PlacemarkClutterFilter(), labels), time(new LinearPlacemarkClutterFilter(), labels));
+        }
+    }
+
+    protected static List<Declutterable> createLabels(int count)
+    {
+        Random random = new Random(count);
+        List<Declutterable> labels = new ArrayList<Declutterable>(count);
+        for (int i = 0; i < count; i++)
+        {
+            double width = 40 + 80 * random.nextDouble();
+            labels.add(new Label(new Rectangle2D.Double(1920 * random.nextDouble() - 0.5 * width,
+                1080 * random.nextDouble() - 8, width, 16)));
+        }
+
+        return labels;
+    }
+
+    protected static double time(ClutterFilter filter, List<Declutterable> labels)
+    {
+        filter.apply(new DrawContextImpl(), labels); // warm up the JIT
+
+        long elapsed = 0;
+        for (int i = 0; i < NUM_ITERATIONS; i++)
+        {
+            DrawContext dc = new DrawContextImpl();
+            long start = System.nanoTime();
+            filter.apply(dc, labels);
+            elapsed += System.nanoTime() - start;
+        }
+
+        return elapsed / 1e6 / NUM_ITERATIONS;
+    }
+
+    protected static Rectangle2D linearSearch(List<Rectangle2D> rectangles, Rectangle2D rectangle)
+    {
+        if (rectangle == null)
+            return null;
+
+        for (Rectangle2D rect : rectangles)
+        {
+            if (rectangle.intersects(rect))
+                return rect;
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwindx.performance;
+
+import gov.nasa.worldwind.formats.dds.*;
+import gov.nasa.worldwind.util.*;
+
+import java.awt.image.BufferedImage;
+import java.nio.*;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Level;
+
+/**
+ * Measures DXT compression throughput in megapixels per second: the block-at-a-time {@link DXT1Compressor} and {@link
+ * DXT3Compressor} against {@link PackedDXTCompressor} on the common fork-join pool, and complete DDS files with
+ * mipmaps as {@link DDSCompressor} produced them before and after the packed compressor. Verifies that both produce the
+ * same bytes. Runs without a window or OpenGL context.
+ * <p>
+ * Usage: <code>DDSCompressionTimes [size ...]</code>, where each size is the width and height of a square test image.
+ *
+ * @version $Id$
+ */
+public class DDSCompressionTimes
+{
+    protected static final int NUM_ITERATIONS = 5;
+    protected static final int[] DEFAULT_SIZES = new int[] {512, 2048};
+
+    public static void main(String[] args)
+    {
+        Logging.logger().setLevel(Level.SEVERE);
+
+        int[] sizes = DEFAULT_SIZES;
+        if (args.length > 0)
+        {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++)
+            {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        System.out.printf("Fork-join pool parallelism %d\n", ForkJoinPool.commonPool().getParallelism());
+
+        for (int size : sizes)
+        {
+            BufferedImage rgb = createImage(size, BufferedImage.TYPE_INT_RGB);
+            BufferedImage argb = createImage(size, BufferedImage.TYPE_INT_ARGB);
+            DXTCompressionAttributes attributes = DDSCompressor.getDefaultCompressionAttributes();
+
+            compare("DXT1", rgb, attributes, new DXT1Compressor(),
+                new PackedDXTCompressor(DDSConstants.D3DFMT_DXT1));
+            compare("DXT3", argb, attributes, new DXT3Compressor(),
+                new PackedDXTCompressor(DDSConstants.D3DFMT_DXT3));
+            compare("DDS with mipmaps", argb, attributes, new SequentialDDSCompressor(), new DDSCompressor());
+        }
+    }
+
+    protected static void compare(String name, BufferedImage image, DXTCompressionAttributes attributes,
+        Object before, Object after)
+    {
+        ByteBuffer expected = compress(before, image, attributes);
+        ByteBuffer actual = compress(after, image, attributes);
+        if (!expected.equals(actual))
+            System.out.printf("%s output differs\n", name);
+
+        double beforeTime = time(before, image, attributes);
+        double afterTime = time(after, image, attributes);
+        double megapixels = image.getWidth() * image.getHeight() / 1e6;
+
+        System.out.printf("%s %dx%d: %.1f MP/s before, %.1f MP/s after, speedup %.2fx\n", name, image.getWidth(),
+            image.getHeight(), megapixels / beforeTime, megapixels / afterTime, beforeTime / afterTime);
+    }
+
+    protected static double time(Object compressor, BufferedImage image, DXTCompressionAttributes attributes)
+    {
+        compress(compressor, image, attributes); // warm up the JIT
+
+        long start = System.nanoTime();
+        for (int i = 0; i < NUM_ITERATIONS; i++)
+        {
+            compress(compressor, image, attributes);
+        }
+
+        return (System.nanoTime() - start) / 1e9 / NUM_ITERATIONS;
+    }
+
+    protected static ByteBuffer compress(Object compressor, BufferedImage image, DXTCompressionAttributes attributes)
+    {
+        if (compressor instanceof DDSCompressor)
+            return ((DDSCompressor) compressor).compressImage(image, attributes);
+
+        DXTCompressor dxtCompressor = (DXTCompressor) compressor;
+        ByteBuffer buffer = ByteBuffer.allocate(dxtCompressor.getCompressedSize(image, attributes));
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        dxtCompressor.compressImage(image, attributes, buffer);
+        buffer.rewind();
+        return buffer;
+    }
+
+    /** Creates an image of noisy gradients, like aerial imagery in its lack of flat regions. */
+    protected static BufferedImage createImage(int size, int type)
+    {
+        Random random = new Random(size);
+        BufferedImage image = new BufferedImage(size, size, type);
+        int[] row = new int[size];
+        for (int y = 0; y < size; y++)
+        {
+            for (int x = 0; x < size; x++)
+            {
+                int a = 128 + random.nextInt(128);
+                int r = (x * 255 / size + random.nextInt(32)) & 0xFF;
+                int g = (y * 255 / size + random.nextInt(32)) & 0xFF;
+                row[x] = (a << 24) | (r << 16) | (g << 8) | random.nextInt(256);
+            }
+            image.setRGB(0, y, size, 1, row, 0, size);
+        }
+
+        return image;
+    }
+
+    /** Compresses one block at a time, and builds mipmaps sequentially, as DDSCompressor did before. */
+    protected static class SequentialDDSCompressor extends DDSCompressor
+    {
+        @Override
+        protected DXTCompressor getDXTCompressor(BufferedImage image, DXTCompressionAttributes attributes)
+        {
+            return image.getColorModel().hasAlpha() ? new DXT3Compressor() : new DXT1Compressor();
+        }
+
+        @Override
+        protected BufferedImage[] buildMipMaps(BufferedImage image, DXTCompressionAttributes attributes)
+        {
+            return ImageUtil.buildMipmaps(image, BufferedImage.TYPE_INT_ARGB_PRE,
+                ImageUtil.getMaxMipmapLevel(image.getWidth(), image.getHeight()));
+        }
+    }
+}
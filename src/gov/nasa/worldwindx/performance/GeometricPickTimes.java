@@ -0,0 +1,198 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwindx.performance;
+
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.pick.*;
+import gov.nasa.worldwind.render.*;
+import gov.nasa.worldwind.terrain.ZeroElevationModel;
+import gov.nasa.worldwind.util.Logging;
+
+import java.awt.*;
+import java.util.*;
+import java.util.List;
+import java.util.logging.Level;
+
+/**
+ * Measures the time {@link GeometricPicker} takes to build its index and to answer point and rectangle pick queries,
+ * against the number of objects in the scene, and compares the point query with testing every object's pick geometry.
+ * The scene holds point placemarks and paths scattered over North America, viewed from 2000 km above the ground. Runs
+ * without a window or OpenGL context.
+ * <p>
+ * Usage: <code>GeometricPickTimes [sceneSize ...]</code>. One object in ten is a path.
+ *
+ * @version $Id$
+ * @see GeometricPicker
+ */
+public class GeometricPickTimes
+{
+    protected static final int NUM_ITERATIONS = 200;
+    protected static final int NUM_RECTANGLE_ITERATIONS = 20;
+    protected static final int[] DEFAULT_SIZES = new int[] {1000, 10000, 100000, 1000000};
+    protected static final int VIEWPORT_WIDTH = 1024;
+    protected static final int VIEWPORT_HEIGHT = 768;
+
+    public static void main(String[] args)
+    {
+        int[] sizes = DEFAULT_SIZES;
+        if (args.length > 0)
+        {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++)
+            {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        Logging.logger().setLevel(Level.SEVERE);
+
+        // Pick against a smooth globe so that the benchmark does not retrieve elevations.
+        Globe globe = new Earth();
+        globe.setElevationModel(new ZeroElevationModel());
+        GeometricPicker.ScreenProjection projection = createProjection(globe, Position.fromDegrees(40, -100, 2000e3));
+
+        for (int size : sizes)
+        {
+            List<Object> objects = createScene(size);
+
+            GeometricPicker picker = new GeometricPicker();
+            picker.setObjects(objects);
+            Point center = new Point(VIEWPORT_WIDTH / 2, VIEWPORT_HEIGHT / 2);
+            long start = System.nanoTime();
+            picker.pick(globe, 1, projection, center); // builds the index
+            double buildTime = (System.nanoTime() - start) / 1e6;
+
+            Random random = new Random(size);
+            Point[] points = new Point[NUM_ITERATIONS];
+            for (int i = 0; i < NUM_ITERATIONS; i++)
+            {
+                points[i] = new Point(random.nextInt(VIEWPORT_WIDTH), random.nextInt(VIEWPORT_HEIGHT));
+            }
+
+            picker.setTrackMovables(false);
+            int hits = 0;
+            start = System.nanoTime();
+            for (Point point : points)
+            {
+                hits += picker.pick(globe, 1, projection, point).size();
+            }
+            double pickTime = (System.nanoTime() - start) / 1e6 / NUM_ITERATIONS;
+
+            picker.setTrackMovables(true);
+            start = System.nanoTime();
+            for (Point point : points)
+            {
+                picker.pick(globe, 1, projection, point);
+            }
+            double trackedPickTime = (System.nanoTime() - start) / 1e6 / NUM_ITERATIONS;
+
+            Rectangle rect = new Rectangle(VIEWPORT_WIDTH / 2 - 50, VIEWPORT_HEIGHT / 2 - 50, 100, 100);
+            picker.setTrackMovables(false);
+            int rectHits = 0;
+            start = System.nanoTime();
+            for (int i = 0; i < NUM_RECTANGLE_ITERATIONS; i++)
+            {
+                rectHits = picker.pickInRectangle(globe, 1, projection, rect).size();
+            }
+            double rectTime = (System.nanoTime() - start) / 1e6 / NUM_RECTANGLE_ITERATIONS;
+
+            double scanTime = timeScan(globe, projection, objects, points);
+
+            System.out.printf("%d objects: build %.1f ms, point pick %.3f ms (%.2f hits), point pick tracking "
+                + "movables %.3f ms, 100x100 rectangle pick %.3f ms (%d hits), per-object test %.3f ms\n", size,
+                buildTime, pickTime, (double) hits / NUM_ITERATIONS, trackedPickTime, rectTime, rectHits, scanTime);
+        }
+    }
+
+    protected static List<Object> createScene(int size)
+    {
+        List<Object> objects = new ArrayList<Object>(size);
+        Random random = new Random(size);
+        for (int i = 0; i < size; i++)
+        {
+            double lat = 25 + 25 * random.nextDouble();
+            double lon = -125 + 55 * random.nextDouble();
+
+            if (i % 10 == 0)
+            {
+                Path path = new Path(Position.fromDegrees(lat, lon, 1e3),
+                    Position.fromDegrees(lat + 0.2 * random.nextDouble(), lon + 0.2 * random.nextDouble(), 1e3));
+                path.setAltitudeMode(WorldWind.ABSOLUTE);
+                objects.add(path);
+            }
+            else
+            {
+                objects.add(new PointPlacemark(Position.fromDegrees(lat, lon, 0)));
+            }
+        }
+
+        return objects;
+    }
+
+    protected static GeometricPicker.ScreenProjection createProjection(Globe globe, Position eyePosition)
+    {
+        Vec4 eye = globe.computePointFromPosition(eyePosition);
+        Vec4 center = globe.computePointFromPosition(eyePosition.latitude, eyePosition.longitude, 0);
+        Vec4 up = globe.computeNorthPointingTangentAtLocation(eyePosition.latitude, eyePosition.longitude);
+
+        return new GeometricPicker.ScreenProjection(Matrix.fromViewLookAt(eye, center, up),
+            Matrix.fromPerspective(Angle.fromDegrees(45), VIEWPORT_WIDTH, VIEWPORT_HEIGHT, 1e3,
+                2 * eyePosition.elevation), new Rectangle(VIEWPORT_WIDTH, VIEWPORT_HEIGHT), globe);
+    }
+
+    protected static double timeScan(Globe globe, GeometricPicker.ScreenProjection projection, List<Object> objects,
+        Point[] points)
+    {
+        List<PickGeometry> geometries = new ArrayList<PickGeometry>(objects.size());
+        for (Object o : objects)
+        {
+            geometries.add(((GeometricPickable) o).getPickGeometry(globe, 1));
+        }
+
+        int count = 0;
+        PickGeometry.Hit hit = new PickGeometry.Hit();
+        long start = System.nanoTime();
+        for (Point point : points)
+        {
+            for (PickGeometry geometry : geometries)
+            {
+                if (geometry.pick(projection, point.x, point.y, 1, hit))
+                    count++;
+            }
+        }
+
+        if (count < 0) // keeps the loop from being optimized away
+            System.out.println(count);
+
+        return (System.nanoTime() - start) / 1e6 / points.length;
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwindx.performance;
+
+import gov.nasa.worldwind.render.*;
+import gov.nasa.worldwind.util.Logging;
+
+import java.awt.*;
+import java.awt.font.*;
+import java.awt.geom.Rectangle2D;
+import java.util.Random;
+import java.util.logging.Level;
+
+/**
+ * Measures the CPU side of the glyph atlas text pipeline for many labels: the time per frame to measure every label,
+ * as decluttering does, with and without cached text layouts, and the time per frame to generate the glyph quads of a
+ * {@link GlyphTextBatch}. Uncached measurement creates a glyph vector per label, as the JOGL text renderer does for
+ * strings it has not drawn. Runs without a window or OpenGL context.
+ * <p>
+ * Usage: <code>GlyphTextTimes [labelCount ...]</code>.
+ *
+ * @version $Id$
+ */
+public class GlyphTextTimes
+{
+    protected static final int NUM_ITERATIONS = 10;
+    protected static final int[] DEFAULT_COUNTS = new int[] {1000, 10000, 100000};
+    protected static final Font[] FONTS = new Font[] {
+        Font.decode("Arial-PLAIN-12"), Font.decode("Arial-BOLD-14"), Font.decode("Arial-ITALIC-11")};
+
+    public static void main(String[] args)
+    {
+        Logging.logger().setLevel(Level.SEVERE);
+
+        int[] counts = DEFAULT_COUNTS;
+        if (args.length > 0)
+        {
+            counts = new int[args.length];
+            for (int i = 0; i < args.length; i++)
+            {
+                counts[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        for (int labelCount : counts)
+        {
+            String[] labels = createLabels(labelCount);
+            TextRendererCache cache = new TextRendererCache();
+            GlyphTextBatch batch = new GlyphTextBatch();
+
+            // Cache the layout of every label, as an application displaying this many labels at once would.
+            for (Font font : FONTS)
+            {
+                cache.getGlyphAtlas(font).setLayoutCapacity(labelCount);
+            }
+
+            for (int i = 0; i < 3; i++) // warm up the JIT and the layout caches
+            {
+                measureUncached(labels);
+                measureCached(cache, labels);
+                buildBatch(cache, batch, labels);
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < NUM_ITERATIONS; i++)
+            {
+                measureUncached(labels);
+            }
+            double uncachedTime = (System.nanoTime() - start) / 1e6 / NUM_ITERATIONS;
+
+            start = System.nanoTime();
+            for (int i = 0; i < NUM_ITERATIONS; i++)
+            {
+                measureCached(cache, labels);
+            }
+            double cachedTime = (System.nanoTime() - start) / 1e6 / NUM_ITERATIONS;
+
+            start = System.nanoTime();
+            for (int i = 0; i < NUM_ITERATIONS; i++)
+            {
+                buildBatch(cache, batch, labels);
+            }
+            double batchTime = (System.nanoTime() - start) / 1e6 / NUM_ITERATIONS;
+
+            System.out.printf("%d labels: measured in %.2f ms uncached, %.2f ms cached (%.1fx); "
+                    + "batch of %d glyph quads built in %.2f ms, %d draw calls\n", labelCount, uncachedTime,
+                cachedTime, uncachedTime / cachedTime, batch.getQuadCount(), batchTime, batch.getDrawCallCount());
+        }
+    }
+
+    protected static double measureUncached(String[] labels)
+    {
+        FontRenderContext frc = new FontRenderContext(null, true, false);
+        double width = 0;
+        for (int i = 0; i < labels.length; i++)
+        {
+            GlyphVector gv = FONTS[i % FONTS.length].createGlyphVector(frc, labels[i]);
+            Rectangle2D bounds = gv.getVisualBounds();
+            width += bounds.getWidth();
+        }
+
+        return width;
+    }
+
+    protected static double measureCached(TextRendererCache cache, String[] labels)
+    {
+        double width = 0;
+        for (int i = 0; i < labels.length; i++)
+        {
+            width += cache.getGlyphAtlas(FONTS[i % FONTS.length]).getLayout(labels[i]).getWidth();
+        }
+
+        return width;
+    }
+
+    protected static void buildBatch(TextRendererCache cache, GlyphTextBatch batch, String[] labels)
+    {
+        batch.clear();
+        for (int i = 0; i < labels.length; i++)
+        {
+            GlyphLayout layout = cache.getGlyphAtlas(FONTS[i % FONTS.length]).getLayout(labels[i]);
+            batch.addText(layout, i % 1920 + 1, i % 1080 - 1, 1, 0.5, Color.BLACK);
+            batch.addText(layout, i % 1920, i % 1080, 1, 0.5, Color.WHITE);
+        }
+        batch.prepare();
+    }
+
+    /**
+     * Creates distinct place-name-like labels of 4 to 20 characters.
+     *
+     * @param count the number of labels.
+     *
+     * @return the labels.
+     */
+    protected static String[] createLabels(int count)
+    {
+        Random random = new Random(count);
+        String[] labels = new String[count];
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++)
+        {
+            sb.setLength(0);
+            sb.append((char) ('A' + random.nextInt(26)));
+            int length = 3 + random.nextInt(17);
+            for (int j = 0; j < length; j++)
+            {
+                sb.append(random.nextInt(6) == 0 ? ' ' : (char) ('a' + random.nextInt(26)));
+            }
+            sb.append(' ').append(i);
+            labels[i] = sb.toString();
+        }
+
+        return labels;
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwindx.performance;
+
+import gov.nasa.worldwind.avlist.AVKey;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.geom.coords.*;
+import gov.nasa.worldwind.globes.Earth;
+import gov.nasa.worldwind.util.*;
+
+import java.awt.image.*;
+import java.util.Arrays;
+import java.util.logging.Level;
+
+/**
+ * Compares the throughput of reprojecting a UTM image to geographic coordinates with {@link ImageReprojector}, both
+ * evaluating the transform at every pixel and interpolating it from a grid, and with the per-pixel loop that
+ * <code>ImageUtil.reprojectUtmToGeographic</code> used previously. The previous loop is timed over the first rows of
+ * each image only. Runs without a window or OpenGL context.
+ * <p>
+ * Usage: <code>ImageReprojectionTimes [imageSize ...]</code>, where each size is the image width and height in pixels.
+ *
+ * @version $Id$
+ */
+public class ImageReprojectionTimes
+{
+    protected static final int[] DEFAULT_COUNTS = new int[] {2048, 10000};
+    protected static final int PREVIOUS_ROWS = 128;
+    protected static final int ZONE_CENTRAL_MERIDIAN = -117;
+    protected static final double EASTING = 400000;
+    protected static final double NORTHING = 3800000;
+    protected static final double EXTENT = 100000; // meters
+
+    public static void main(String[] args)
+    {
+        Logging.logger().setLevel(Level.SEVERE);
+
+        int[] counts = DEFAULT_COUNTS;
+        if (args.length > 0)
+        {
+            counts = new int[args.length];
+            for (int i = 0; i < args.length; i++)
+            {
+                counts[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        System.out.printf("%d processors\n", Runtime.getRuntime().availableProcessors());
+
+        Earth earth = new Earth();
+        for (int size : counts)
+        {
+            BufferedImage source = createImage(size);
+            double pixelSize = EXTENT / size;
+            ImageReprojector.InverseTransform transform = new ImageReprojector.TMTransform(earth, Angle.ZERO,
+                Angle.fromDegrees(ZONE_CENTRAL_MERIDIAN), 500000, 0, 0.9996, EASTING + 0.5 * pixelSize,
+                NORTHING - 0.5 * pixelSize, pixelSize, -pixelSize);
+            Sector sector = computeSector();
+
+            System.out.printf("%dx%d image (Mpixels/s)\n", size, size);
+            for (int mode : new int[] {ImageUtil.NEAREST_NEIGHBOR_INTERPOLATION, ImageUtil.BILINEAR_INTERPOLATION})
+            {
+                String name = mode == ImageUtil.BILINEAR_INTERPOLATION ? "bilinear" : "nearest";
+
+                reprojectPrevious(source, earth, sector, Math.min(size, 16), mode); // warm up the JIT
+                long start = System.nanoTime();
+                reprojectPrevious(source, earth, sector, Math.min(size, PREVIOUS_ROWS), mode);
+                double before = (double) size * Math.min(size, PREVIOUS_ROWS) / ((System.nanoTime() - start) / 1e3);
+
+                int exactRows = Math.min(size, PREVIOUS_ROWS);
+                BufferedImage strip = source.getSubimage(0, 0, size, exactRows);
+                start = System.nanoTime();
+                ImageReprojector.reproject(strip, transform, sector, size, exactRows, mode, 0);
+                double exact = (double) size * exactRows / ((System.nanoTime() - start) / 1e3);
+
+                ImageReprojector.reproject(source, transform, sector, Math.min(size, 512), Math.min(size, 512),
+                    mode); // warm up the JIT
+                start = System.nanoTime();
+                ImageReprojector.reproject(source, transform, sector, size, size, mode);
+                double elapsed = (System.nanoTime() - start) / 1e6;
+                double grid = (double) size * size / (elapsed * 1e3);
+
+                System.out.printf("  %-8s before %6.2f, exact %6.2f (%.1fx), grid %7.2f (%.1fx, %.0f ms)\n", name,
+                    before, exact, exact / before, grid, grid / before, elapsed);
+            }
+        }
+    }
+
+    protected static BufferedImage createImage(int size)
+    {
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        for (int y = 0; y < size; y++)
+        {
+            for (int x = 0; x < size; x++)
+            {
+                pixels[y * size + x] = ((x & 0xFF) << 16) | ((y & 0xFF) << 8) | ((x ^ y) & 0xFF);
+            }
+        }
+
+        return image;
+    }
+
+    protected static Sector computeSector()
+    {
+        LatLon[] corners = new LatLon[4];
+        double[][] offsets = new double[][] {{0, 0}, {EXTENT, 0}, {0, -EXTENT}, {EXTENT, -EXTENT}};
+        for (int i = 0; i < 4; i++)
+        {
+            UTMCoord utm = UTMCoord.fromUTM(11, AVKey.NORTH, EASTING + offsets[i][0], NORTHING + offsets[i][1]);
+            corners[i] = new LatLon(utm.getLatitude(), utm.getLongitude());
+        }
+
+        return Sector.boundingSector(Arrays.asList(corners));
+    }
+
+    /** The per-pixel loop of the previous <code>ImageUtil.reprojectUtmToGeographic</code>, over the first rows. */
+    protected static BufferedImage reprojectPrevious(BufferedImage image, Earth earth, Sector sector, int rows, int mode)
+    {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        BufferedImage biOut = new BufferedImage(width, rows, BufferedImage.TYPE_INT_ARGB);
+
+        double xPixelSize = EXTENT / width;
+        double yPixelSize = -EXTENT / height;
+        double yPixel = -sector.getDeltaLatDegrees() / height;
+        double xPixel = sector.getDeltaLonDegrees() / width;
+        double topExtent2 = sector.getMaxLatitude().getDegrees() + (yPixel * .5);
+        double leftExtent2 = sector.getMinLongitude().getDegrees() + (xPixel * .5);
+        double srcTop = NORTHING + (yPixelSize * .5);
+        double srcLeft = EASTING + (xPixelSize * .5);
+
+        for (int y = 0; y < rows; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                double yTarget = topExtent2 + y * yPixel;
+                double xTarget = leftExtent2 + x * xPixel;
+                TMCoord TM = TMCoord.fromLatLon(Angle.fromDegreesLatitude(yTarget), Angle.fromDegreesLongitude(xTarget),
+                    earth, null, null, Angle.fromDegrees(0.0), Angle.fromDegrees(ZONE_CENTRAL_MERIDIAN),
+                    500000, 0, 0.9996);
+
+                double distFromCornerX = TM.getEasting() - srcLeft;
+                double distFromCornerY = srcTop - TM.getNorthing();
+                long rx = Math.round(distFromCornerX / Math.abs(xPixelSize));
+                long ry = Math.round(distFromCornerY / Math.abs(yPixelSize));
+
+                if (mode == ImageUtil.BILINEAR_INTERPOLATION)
+                {
+                    double rxD = distFromCornerX / Math.abs(xPixelSize);
+                    double ryD = distFromCornerY / Math.abs(yPixelSize);
+                    int iX = (int) Math.floor(rxD);
+                    int iY = (int) Math.floor(ryD);
+                    double dx = rxD - iX;
+                    double dy = ryD - iY;
+                    if ((iX > 0) && (iY > 0) && (iX < width - 1) && (iY < height - 1))
+                    {
+                        int a = image.getRGB(iX, iY);
+                        int b = image.getRGB(iX + 1, iY);
+                        int c = image.getRGB(iX, iY + 1);
+                        int d = image.getRGB(iX + 1, iY + 1);
+                        biOut.setRGB(x, y, ImageUtil.interpolateColor(dx, dy, a, b, c, d));
+                    }
+                    else
+                        biOut.setRGB(x, y, 0);
+                }
+                else
+                {
+                    if ((rx > 0) && (ry > 0) && (rx < width) && (ry < height))
+                        biOut.setRGB(x, y, image.getRGB((int) rx, (int) ry));
+                    else
+                        biOut.setRGB(x, y, 0);
+                }
+            }
+        }
+
+        return biOut;
+    }
+}
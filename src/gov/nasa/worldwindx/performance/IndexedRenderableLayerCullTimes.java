@@ -0,0 +1,153 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwindx.performance;
+
+import gov.nasa.worldwind.BasicModel;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.layers.*;
+import gov.nasa.worldwind.render.*;
+import gov.nasa.worldwind.terrain.ZeroElevationModel;
+import gov.nasa.worldwind.util.Logging;
+
+import java.util.*;
+import java.util.logging.Level;
+
+/**
+ * Measures the time {@link IndexedRenderableLayer} takes to select the renderables in view, against the number of
+ * renderables in the layer, and compares it with testing every renderable against the view frustum as a
+ * <code>RenderableLayer</code> effectively does. The layers hold point placemarks scattered over the globe and are viewed
+ * from 500 km above the ground. Runs without a window or OpenGL context.
+ * <p>
+ * Usage: <code>IndexedRenderableLayerCullTimes [layerSize ...]</code>.
+ *
+ * @version $Id$
+ * @see IndexedRenderableLayer
+ */
+public class IndexedRenderableLayerCullTimes
+{
+    protected static final int NUM_ITERATIONS = 50;
+    protected static final int[] DEFAULT_SIZES = new int[] {1000, 10000, 100000, 1000000};
+
+    public static void main(String[] args)
+    {
+        int[] sizes = DEFAULT_SIZES;
+        if (args.length > 0)
+        {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++)
+            {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        Logging.logger().setLevel(Level.SEVERE);
+
+        // Index the layers against a smooth globe so that the benchmark does not retrieve elevations.
+        Globe globe = new Earth();
+        globe.setElevationModel(new ZeroElevationModel());
+        DrawContext dc = new DrawContextImpl();
+        dc.setModel(new BasicModel(globe, new LayerList()));
+        dc.setVerticalExaggeration(1);
+        Frustum frustum = createFrustum(globe, Position.fromDegrees(38, -100, 500e3));
+
+        for (int size : sizes)
+        {
+            IndexedRenderableLayer layer = new IndexedRenderableLayer();
+            List<Vec4> points = new ArrayList<Vec4>(size);
+            Random random = new Random(size);
+            for (int i = 0; i < size; i++)
+            {
+                Position position = Position.fromDegrees(Math.toDegrees(Math.asin(2 * random.nextDouble() - 1)),
+                    360 * random.nextDouble() - 180, 0);
+                layer.addRenderable(new PointPlacemark(position));
+                points.add(globe.computePointFromPosition(position));
+            }
+
+            List<Renderable> visible = new ArrayList<Renderable>();
+            long start = System.nanoTime();
+            layer.selectRenderables(dc, frustum, visible); // builds the index
+            double indexTime = (System.nanoTime() - start) / 1e6;
+
+            layer.setTrackMovables(false);
+            double cullTime = timeIndexedCull(dc, frustum, layer);
+            layer.setTrackMovables(true);
+            double trackedCullTime = timeIndexedCull(dc, frustum, layer);
+            double scanTime = timeScan(frustum, points);
+
+            System.out.printf("%d renderables, %d selected: index %.1f ms, cull %.3f ms, cull tracking movables "
+                + "%.3f ms, per-renderable test %.3f ms\n", size, visible.size(), indexTime, cullTime,
+                trackedCullTime, scanTime);
+        }
+    }
+
+    protected static Frustum createFrustum(Globe globe, Position eyePosition)
+    {
+        Vec4 eye = globe.computePointFromPosition(eyePosition);
+        Vec4 center = globe.computePointFromPosition(eyePosition.latitude, eyePosition.longitude, 0);
+        Vec4 up = globe.computeNorthPointingTangentAtLocation(eyePosition.latitude, eyePosition.longitude);
+        Matrix modelview = Matrix.fromViewLookAt(eye, center, up);
+
+        Frustum frustum = Frustum.fromPerspective(Angle.fromDegrees(45), 1024, 768, 1, 2 * eyePosition.elevation);
+        return frustum.transformBy(modelview.getTranspose());
+    }
+
+    protected static double timeIndexedCull(DrawContext dc, Frustum frustum, IndexedRenderableLayer layer)
+    {
+        List<Renderable> visible = new ArrayList<Renderable>();
+        long start = System.nanoTime();
+        for (int i = 0; i < NUM_ITERATIONS; i++)
+        {
+            visible.clear();
+            layer.selectRenderables(dc, frustum, visible);
+        }
+
+        return (System.nanoTime() - start) / 1e6 / NUM_ITERATIONS;
+    }
+
+    protected static double timeScan(Frustum frustum, List<Vec4> points)
+    {
+        int count = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < NUM_ITERATIONS; i++)
+        {
+            for (Vec4 point : points)
+            {
+                if (frustum.contains(point))
+                    count++;
+            }
+        }
+
+        if (count < 0) // keeps the loop from being optimized away
+            System.out.println(count);
+
+        return (System.nanoTime() - start) / 1e6 / NUM_ITERATIONS;
+    }
+}
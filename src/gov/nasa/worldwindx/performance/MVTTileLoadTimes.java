@@ -0,0 +1,143 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwindx.performance;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.formats.mvt.MVTTile;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.layers.mercator.*;
+import gov.nasa.worldwind.util.*;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.logging.Level;
+
+/**
+ * Compares the time to load a vector tile's geometry by decoding and tessellating the tile with the time to load the
+ * same geometry from the {@link MVTTiledLayer} tessellation disk cache. Each tile is treated as the single tile of zoom
+ * level 0. Runs without a window or OpenGL context.
+ * <p>
+ * Usage: <code>MVTTileLoadTimes [file ...]</code>. The default files are the small test fixture tiles; pass tiles from
+ * a production basemap for representative times.
+ *
+ * @version $Id$
+ */
+public class MVTTileLoadTimes
+{
+    protected static final int NUM_ITERATIONS = 50;
+    protected static final String[] DEFAULT_FILES = new String[] {
+        "testData/mvt/0/0/0.mvt",
+        "testData/mvt/1/1/1.mvt"
+    };
+
+    /** Exposes the layer's tessellation and disk cache encoding to this benchmark. */
+    protected static class TimedLayer extends MVTTiledLayer
+    {
+        protected final MVTSurfaceTile tile;
+
+        public TimedLayer(AVList params)
+        {
+            super(params);
+            this.tile = this.createTopLevelTiles().get(0);
+        }
+
+        public Object tessellate(MVTTile mvtTile)
+        {
+            return this.tessellate(this.tile, mvtTile);
+        }
+
+        public ByteBuffer encode(Object geometry)
+        {
+            return this.encodeTessellation((MVTTileGeometry) geometry);
+        }
+
+        public Object decode(ByteBuffer buffer) throws Exception
+        {
+            return this.decodeTessellation(this.tile, buffer);
+        }
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        Logging.logger().setLevel(Level.SEVERE);
+
+        AVList params = new AVListImpl();
+        params.setValue(AVKey.TILE_WIDTH, 256);
+        params.setValue(AVKey.TILE_HEIGHT, 256);
+        params.setValue(AVKey.DATA_CACHE_NAME, "MVTTileLoadTimes");
+        params.setValue(AVKey.DATASET_NAME, "*");
+        params.setValue(AVKey.FORMAT_SUFFIX, ".mvt");
+        params.setValue(AVKey.NUM_LEVELS, 1);
+        params.setValue(AVKey.LEVEL_ZERO_TILE_DELTA, LatLon.fromDegrees(180, 360));
+        params.setValue(AVKey.SECTOR, new MercatorSector(-1.0, 1.0, Angle.NEG180, Angle.POS180));
+        TimedLayer layer = new TimedLayer(params);
+
+        File cacheFile = File.createTempFile("MVTTileLoadTimes", MVTTiledLayer.TESSELLATION_CACHE_SUFFIX);
+        cacheFile.deleteOnExit();
+
+        for (String path : args.length > 0 ? args : DEFAULT_FILES)
+        {
+            File file = new File(path);
+            WWIO.saveBuffer(layer.encode(layer.tessellate(MVTTile.decode(WWIO.readFileToBuffer(file)))), cacheFile);
+
+            for (int pass = 0; pass < 2; pass++) // the first pass warms up the JIT
+            {
+                long decodeTime = 0;
+                long tessellateTime = 0;
+                long cacheTime = 0;
+
+                for (int i = 0; i < NUM_ITERATIONS; i++)
+                {
+                    long start = System.nanoTime();
+                    MVTTile mvtTile = MVTTile.decode(WWIO.readFileToBuffer(file));
+                    long decoded = System.nanoTime();
+                    layer.tessellate(mvtTile);
+                    long tessellated = System.nanoTime();
+                    layer.decode(WWIO.readFileToBuffer(cacheFile));
+                    long loaded = System.nanoTime();
+
+                    decodeTime += decoded - start;
+                    tessellateTime += tessellated - decoded;
+                    cacheTime += loaded - tessellated;
+                }
+
+                if (pass == 0)
+                    continue;
+
+                double decodeMillis = decodeTime / 1e6 / NUM_ITERATIONS;
+                double tessellateMillis = tessellateTime / 1e6 / NUM_ITERATIONS;
+                double cacheMillis = cacheTime / 1e6 / NUM_ITERATIONS;
+                System.out.printf("%s (%d bytes, %d byte cache entry): decode %.3f ms, tessellate %.3f ms, "
+                        + "disk cache %.3f ms, speedup %.1fx\n", file, file.length(), cacheFile.length(), decodeMillis,
+                    tessellateMillis, cacheMillis, (decodeMillis + tessellateMillis) / cacheMillis);
+            }
+        }
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwindx.performance;
+
+import gov.nasa.worldwind.render.*;
+
+import java.awt.*;
+import java.lang.management.*;
+import java.util.*;
+
+/**
+ * Compares the time and memory taken to add and drain a frame's ordered renderables with {@link
+ * OrderedRenderableQueue} and with the priority queue of per-renderable entries that {@link DrawContextImpl} used
+ * before it. Each simulated frame adds the ordered renderables in a fixed random order and then polls them all, as the
+ * scene controller does. Runs without a window or OpenGL context.
+ * <p>
+ * Usage: <code>OrderedRenderableQueueTimes [renderableCount ...]</code>.
+ *
+ * @version $Id$
+ */
+public class OrderedRenderableQueueTimes
+{
+    protected static final int NUM_ITERATIONS = 20;
+    protected static final int WARM_UP_RENDERABLES = 2000000;
+    protected static final int[] DEFAULT_COUNTS = new int[] {1000, 10000, 100000, 300000};
+
+    /** A frame collector under test. */
+    protected interface Collector
+    {
+        void add(OrderedRenderable orderedRenderable);
+
+        OrderedRenderable poll();
+
+        void clear();
+    }
+
+    protected static class QueueCollector implements Collector
+    {
+        protected final OrderedRenderableQueue queue = new OrderedRenderableQueue();
+
+        public void add(OrderedRenderable orderedRenderable)
+        {
+            this.queue.add(orderedRenderable, orderedRenderable.getDistanceFromEye(), 0, null);
+        }
+
+        public OrderedRenderable poll()
+        {
+            return this.queue.poll();
+        }
+
+        public void clear()
+        {
+            this.queue.clear();
+        }
+    }
+
+    /** The priority queue of entries stamped with their insertion time, as DrawContextImpl formerly used. */
+    protected static class PriorityQueueCollector implements Collector
+    {
+        protected static class Entry
+        {
+            protected OrderedRenderable or;
+            protected double distanceFromEye;
+            protected long time;
+
+            public Entry(OrderedRenderable orderedRenderable, long insertionTime)
+            {
+                this.or = orderedRenderable;
+                this.distanceFromEye = orderedRenderable.getDistanceFromEye();
+                this.time = insertionTime;
+            }
+        }
+
+        protected final PriorityQueue<Entry> queue = new PriorityQueue<Entry>(100, new Comparator<Entry>()
+        {
+            public int compare(Entry orA, Entry orB)
+            {
+                double eA = orA.distanceFromEye;
+                double eB = orB.distanceFromEye;
+
+                return eA > eB ? -1 : eA == eB ? (orA.time < orB.time ? -1 : orA.time == orB.time ? 0 : 1) : 1;
+            }
+        });
+
+        public void add(OrderedRenderable orderedRenderable)
+        {
+            this.queue.add(new Entry(orderedRenderable, System.nanoTime()));
+        }
+
+        public OrderedRenderable poll()
+        {
+            Entry entry = this.queue.poll();
+            return entry != null ? entry.or : null;
+        }
+
+        public void clear()
+        {
+            this.queue.clear();
+        }
+    }
+
+    protected static class Item implements OrderedRenderable
+    {
+        protected final double distance;
+
+        public Item(double distance)
+        {
+            this.distance = distance;
+        }
+
+        public double getDistanceFromEye()
+        {
+            return this.distance;
+        }
+
+        public void pick(DrawContext dc, Point pickPoint)
+        {
+        }
+
+        public void render(DrawContext dc)
+        {
+        }
+    }
+
+    public static void main(String[] args)
+    {
+        int[] counts = DEFAULT_COUNTS;
+        if (args.length > 0)
+        {
+            counts = new int[args.length];
+            for (int i = 0; i < args.length; i++)
+            {
+                counts[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        for (int count : counts)
+        {
+            Item[] items = createItems(count);
+
+            double[] priorityQueue = time(new PriorityQueueCollector(), items);
+            double[] queue = time(new QueueCollector(), items);
+
+            System.out.printf(
+                "%d ordered renderables: priority queue %.3f ms %.0f KB, ordered renderable queue %.3f ms %.0f KB, "
+                    + "speedup %.2fx\n", count, priorityQueue[0], priorityQueue[1], queue[0], queue[1],
+                priorityQueue[0] / queue[0]);
+        }
+    }
+
+    protected static Item[] createItems(int count)
+    {
+        // Placemarks at eye distances between 1 km and 1000 km.
+        Random random = new Random(count);
+        Item[] items = new Item[count];
+        for (int i = 0; i < count; i++)
+        {
+            items[i] = new Item(1e3 + 1e6 * random.nextDouble());
+        }
+
+        return items;
+    }
+
+    /**
+     * Times a collector over several frames.
+     *
+     * @param collector the collector.
+     * @param items     the ordered renderables added each frame.
+     *
+     * @return the mean time per frame in milliseconds, and the mean memory allocated per frame in kilobytes or NaN if
+     *         the virtual machine does not report allocations.
+     */
+    protected static double[] time(Collector collector, Item[] items)
+    {
+        // Warm up the JIT and grow the collector's storage.
+        for (int i = Math.max(5, WARM_UP_RENDERABLES / items.length); i > 0; i--)
+        {
+            frame(collector, items);
+        }
+
+        long startBytes = allocatedBytes();
+        long elapsed = 0;
+        for (int i = 0; i < NUM_ITERATIONS; i++)
+        {
+            long start = System.nanoTime();
+            frame(collector, items);
+            elapsed += System.nanoTime() - start;
+        }
+        long bytes = allocatedBytes() - startBytes;
+
+        return new double[] {elapsed / 1e6 / NUM_ITERATIONS,
+            startBytes >= 0 ? bytes / 1024d / NUM_ITERATIONS : Double.NaN};
+    }
+
+    protected static void frame(Collector collector, Item[] items)
+    {
+        collector.clear();
+
+        for (Item item : items)
+        {
+            collector.add(item);
+        }
+
+        while (collector.poll() != null)
+        {
+        }
+    }
+
+    /**
+     * Returns the number of bytes the current thread has allocated, if the virtual machine reports it.
+     *
+     * @return the number of bytes allocated, or -1 if the virtual machine does not report allocations.
+     */
+    protected static long allocatedBytes()
+    {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean)
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+
+        return -1;
+    }
+}
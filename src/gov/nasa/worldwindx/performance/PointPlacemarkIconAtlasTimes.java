@@ -0,0 +1,155 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwindx.performance;
+
+import gov.nasa.worldwind.render.*;
+import gov.nasa.worldwind.util.Logging;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.logging.Level;
+
+/**
+ * Measures the CPU side of drawing point placemark icons from a {@link PointPlacemarkIconAtlas}: the time to pack
+ * distinct icons into atlas pages, and the time per frame to build and prepare the draw list for many placemarks
+ * showing those icons in random order. Reports the number of draw calls the draw list makes, and the number of texture
+ * binds placemarks drawn from individual textures would make. Runs without a window or OpenGL context.
+ * <p>
+ * Usage: <code>PointPlacemarkIconAtlasTimes [iconCount placemarkCount ...]</code>.
+ *
+ * @version $Id$
+ */
+public class PointPlacemarkIconAtlasTimes
+{
+    protected static final int NUM_ITERATIONS = 20;
+    protected static final int[] DEFAULT_COUNTS = new int[] {100, 10000, 500, 10000, 500, 50000, 2000, 50000};
+
+    public static void main(String[] args)
+    {
+        Logging.logger().setLevel(Level.SEVERE);
+
+        int[] counts = DEFAULT_COUNTS;
+        if (args.length > 0)
+        {
+            counts = new int[args.length];
+            for (int i = 0; i < args.length; i++)
+            {
+                counts[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        DrawContext dc = new DrawContextImpl();
+
+        for (int c = 0; c + 1 < counts.length; c += 2)
+        {
+            int iconCount = counts[c];
+            int placemarkCount = counts[c + 1];
+            BufferedImage[] images = createIcons(iconCount);
+
+            PointPlacemarkIconAtlas atlas = new PointPlacemarkIconAtlas();
+            long start = System.nanoTime();
+            WWTexture[] textures = new WWTexture[iconCount];
+            for (int i = 0; i < iconCount; i++)
+            {
+                textures[i] = atlas.getTexture(images[i]);
+                textures[i].getWidth(dc); // adds the icon to the atlas
+            }
+            double packTime = (System.nanoTime() - start) / 1e6;
+
+            // Placemarks ordered by eye distance show icons in no particular order.
+            Random random = new Random(placemarkCount);
+            int[] icons = new int[placemarkCount];
+            int binds = 0;
+            for (int i = 0; i < placemarkCount; i++)
+            {
+                icons[i] = random.nextInt(iconCount);
+                if (i == 0 || icons[i] != icons[i - 1])
+                    binds++;
+            }
+
+            PointPlacemarkIconAtlas.DrawList drawList = atlas.getDrawList();
+            for (int i = 0; i < 5; i++)
+            {
+                buildDrawList(dc, drawList, textures, icons); // warm up the JIT
+            }
+
+            start = System.nanoTime();
+            for (int i = 0; i < NUM_ITERATIONS; i++)
+            {
+                buildDrawList(dc, drawList, textures, icons);
+            }
+            double buildTime = (System.nanoTime() - start) / 1e6 / NUM_ITERATIONS;
+
+            System.out.printf("%d icons in %d pages packed in %.1f ms; %d placemarks: draw list built in %.2f ms, "
+                    + "%d draw calls (%d texture binds drawn individually)\n", iconCount, atlas.getPageCount(),
+                packTime, placemarkCount, buildTime, drawList.getDrawCallCount(), binds);
+        }
+    }
+
+    protected static void buildDrawList(DrawContext dc, PointPlacemarkIconAtlas.DrawList drawList,
+        WWTexture[] textures, int[] icons)
+    {
+        drawList.clear();
+
+        for (int i = 0; i < icons.length; i++)
+        {
+            WWTexture texture = textures[icons[i]];
+            drawList.addIcon(texture, i % 1920, i % 1080, texture.getWidth(dc), texture.getHeight(dc), i % 360, 0.5,
+                Color.WHITE);
+        }
+
+        drawList.prepare(dc);
+    }
+
+    /**
+     * Creates distinct icons between 24 and 64 pixels square, the range of typical placemark and symbol icons.
+     *
+     * @param count the number of icons.
+     *
+     * @return the icons.
+     */
+    protected static BufferedImage[] createIcons(int count)
+    {
+        Random random = new Random(count);
+        BufferedImage[] images = new BufferedImage[count];
+        for (int i = 0; i < count; i++)
+        {
+            int size = 24 + random.nextInt(41);
+            images[i] = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = images[i].createGraphics();
+            g.setColor(new Color(random.nextInt(0x1000000)));
+            g.fillOval(0, 0, size, size);
+            g.dispose();
+        }
+
+        return images;
+    }
+}
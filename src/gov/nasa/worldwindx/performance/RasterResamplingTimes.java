@@ -0,0 +1,210 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwindx.performance;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.data.*;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.util.Logging;
+
+import java.nio.ByteBuffer;
+import java.util.logging.Level;
+
+/**
+ * Compares the throughput of drawing elevation rasters onto tile rasters with {@link RasterResampler}'s kernels and
+ * with the per-row path that preceded them. Each pass draws a large source onto a grid of tiles covering it, as
+ * <code>TiledRasterProducer</code> and <code>BasicRasterServer</code> do. Runs without a window or OpenGL context.
+ * <p>
+ * Usage: <code>RasterResamplingTimes [tileSize ...]</code>, where each size is the tile width and height in pixels.
+ *
+ * @version $Id$
+ */
+public class RasterResamplingTimes
+{
+    protected static final int[] DEFAULT_COUNTS = new int[] {150, 512};
+    protected static final int SOURCE_SIZE = 2048;
+    protected static final int TILES_PER_SIDE = 4;
+    protected static final double MIN_SECONDS = 1;
+    protected static final Sector SOURCE_SECTOR = Sector.fromDegrees(30, 32, -120, -118);
+
+    /** Exposes the per-row bilinear path that preceded RasterResampler. */
+    protected static class ScalarRaster extends ByteBufferRaster
+    {
+        public ScalarRaster(int width, int height, Sector sector, AVList params)
+        {
+            super(width, height, sector, params);
+        }
+
+        public void drawRowsOnTo(BufferWrapperRaster canvas)
+        {
+            this.drawSamplesOnTo(canvas);
+        }
+    }
+
+    protected interface DrawOp
+    {
+        void draw(DataRaster canvas);
+    }
+
+    public static void main(String[] args)
+    {
+        Logging.logger().setLevel(Level.SEVERE);
+
+        int[] counts = DEFAULT_COUNTS;
+        if (args.length > 0)
+        {
+            counts = new int[args.length];
+            for (int i = 0; i < args.length; i++)
+            {
+                counts[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        System.out.printf("%dx%d sources onto %d tiles, %d processors\n", SOURCE_SIZE, SOURCE_SIZE,
+            TILES_PER_SIDE * TILES_PER_SIDE, Runtime.getRuntime().availableProcessors());
+
+        for (String dataType : new String[] {AVKey.INT16, AVKey.FLOAT32})
+        {
+            final ScalarRaster source = createElevations(dataType);
+            for (int tileSize : counts)
+            {
+                System.out.printf("Elevations %s, %dx%d tiles (Mpixels/s)\n",
+                    dataType.substring(dataType.lastIndexOf('.') + 1), tileSize, tileSize);
+                DataRaster[] tiles = createElevationTiles(dataType, tileSize);
+
+                double before = time(tiles, new DrawOp()
+                {
+                    public void draw(DataRaster canvas)
+                    {
+                        source.drawRowsOnTo((BufferWrapperRaster) canvas);
+                    }
+                });
+                printKernels(before, source, tiles);
+            }
+        }
+    }
+
+    protected static void printKernels(double before, final DataRaster source, DataRaster[] tiles)
+    {
+        DrawOp op = new DrawOp()
+        {
+            public void draw(DataRaster canvas)
+            {
+                source.drawOnTo(canvas);
+            }
+        };
+
+        System.out.printf("  %-17s %7.1f\n", "before:", before);
+        for (String method : new String[] {AVKey.RESAMPLING_NEAREST_NEIGHBOR, AVKey.RESAMPLING_BILINEAR,
+            AVKey.RESAMPLING_BICUBIC})
+        {
+            for (DataRaster tile : tiles)
+            {
+                tile.setValue(AVKey.RESAMPLING_METHOD, method);
+            }
+
+            double after = time(tiles, op);
+            System.out.printf("  %-17s %7.1f (%.1fx)\n", method.substring(method.lastIndexOf("Resampling") + 10) + ":",
+                after, after / before);
+        }
+    }
+
+    /** Draws onto every tile repeatedly, after a warm-up, and returns the canvas pixels drawn per microsecond. */
+    protected static double time(DataRaster[] tiles, DrawOp op)
+    {
+        for (int i = 0; i < 3; i++) // warm up the JIT
+        {
+            for (DataRaster tile : tiles)
+            {
+                op.draw(tile);
+            }
+        }
+
+        long pixels = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do
+        {
+            for (DataRaster tile : tiles)
+            {
+                op.draw(tile);
+                pixels += (long) tile.getWidth() * tile.getHeight();
+            }
+
+            elapsed = System.nanoTime() - start;
+        }
+        while (elapsed < MIN_SECONDS * 1e9);
+
+        return pixels / (elapsed / 1e3);
+    }
+
+    protected static ScalarRaster createElevations(String dataType)
+    {
+        ScalarRaster raster = new ScalarRaster(SOURCE_SIZE, SOURCE_SIZE, SOURCE_SECTOR, createParams(dataType));
+        for (int y = 0; y < SOURCE_SIZE; y++)
+        {
+            for (int x = 0; x < SOURCE_SIZE; x++)
+            {
+                raster.setDoubleAtPosition(y, x, 1000 * Math.sin(x / 100d) * Math.cos(y / 150d));
+            }
+        }
+
+        return raster;
+    }
+
+    protected static DataRaster[] createElevationTiles(String dataType, int tileSize)
+    {
+        DataRaster[] tiles = new DataRaster[TILES_PER_SIDE * TILES_PER_SIDE];
+        for (int i = 0; i < tiles.length; i++)
+        {
+            ByteBuffer buffer = ByteBufferRaster.createCompatibleBuffer(tileSize, tileSize, createParams(dataType));
+            tiles[i] = new ByteBufferRaster(tileSize, tileSize, createTileSector(i), buffer, createParams(dataType));
+        }
+
+        return tiles;
+    }
+
+    protected static Sector createTileSector(int index)
+    {
+        double delta = SOURCE_SECTOR.getDeltaLatDegrees() / TILES_PER_SIDE;
+        double minLat = SOURCE_SECTOR.getMinLatitude().degrees + delta * (index / TILES_PER_SIDE);
+        double minLon = SOURCE_SECTOR.getMinLongitude().degrees + delta * (index % TILES_PER_SIDE);
+        return Sector.fromDegrees(minLat, minLat + delta, minLon, minLon + delta);
+    }
+
+    protected static AVList createParams(String dataType)
+    {
+        AVList params = new AVListImpl();
+        params.setValue(AVKey.DATA_TYPE, dataType);
+        params.setValue(AVKey.BYTE_ORDER, AVKey.BIG_ENDIAN);
+        params.setValue(AVKey.PIXEL_FORMAT, AVKey.ELEVATION);
+        return params;
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwindx.performance;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.data.*;
+import gov.nasa.worldwind.formats.tiff.GeotiffWriter;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.util.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+
+/**
+ * Measures tile request latencies of a {@link BasicRasterServer} mosaicking a grid of elevation GeoTIFFs, the way
+ * <code>LocalRasterServerElevationModel</code> requests tiles. Latency percentiles are reported for a server that
+ * tests every source and composes every request, for the server's first requests of each tile, and for repeated
+ * requests served from its tile cache. The sources are written to a temporary directory. Runs without a window or
+ * OpenGL context.
+ * <p>
+ * Usage: <code>RasterServerTileLatencies [threadCount ...]</code>, where each count is the number of threads
+ * requesting tiles concurrently.
+ *
+ * @version $Id$
+ */
+public class RasterServerTileLatencies
+{
+    protected static final int[] DEFAULT_COUNTS = new int[] {1, 4};
+    protected static final int GRID_SIZE = 8; // sources per side, one degree each
+    protected static final int SOURCE_SIZE = 512;
+    protected static final int TILE_SIZE = 150;
+    protected static final double[] TILE_DELTAS = new double[] {2, 1, 0.5};
+
+    /** Tests every source for each request and caches no tiles, the way the server composed rasters previously. */
+    protected static class UncachedRasterServer extends BasicRasterServer
+    {
+        public UncachedRasterServer(Object o, AVList params)
+        {
+            super(o, params);
+        }
+
+        @Override
+        protected List<DataRaster> getIntersectingRasters(Sector sector)
+        {
+            return this.dataRasterList;
+        }
+
+        @Override
+        protected long getComposedRasterSize(DataRaster raster)
+        {
+            return 0L;
+        }
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        Logging.logger().setLevel(Level.SEVERE);
+
+        int[] counts = DEFAULT_COUNTS;
+        if (args.length > 0)
+        {
+            counts = new int[args.length];
+            for (int i = 0; i < args.length; i++)
+            {
+                counts[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        File dir = File.createTempFile("RasterServerTileLatencies", "");
+        dir.delete();
+        dir.mkdirs();
+
+        try
+        {
+            File config = writeSources(dir);
+            List<Sector> tiles = createTiles();
+            System.out.printf("%d sources of %dx%d, %d tiles of %dx%d\n", GRID_SIZE * GRID_SIZE, SOURCE_SIZE,
+                SOURCE_SIZE, tiles.size(), TILE_SIZE, TILE_SIZE);
+
+            BasicRasterServer warmUp = new BasicRasterServer(config, null);
+            requestTiles(warmUp, tiles, 1); // warm up the JIT
+            warmUp.getCache().clear();
+
+            for (int count : counts)
+            {
+                System.out.printf("%d thread(s)\n", count);
+
+                BasicRasterServer server = new UncachedRasterServer(config, null);
+                print("  uncached:", requestTiles(server, tiles, count));
+                server.getCache().clear();
+
+                server = new BasicRasterServer(config, null);
+                print("  first:   ", requestTiles(server, tiles, count));
+                print("  repeated:", requestTiles(server, tiles, count));
+                server.getCache().clear();
+            }
+        }
+        finally
+        {
+            WWIO.deleteDirectory(dir);
+            dir.delete();
+        }
+
+        System.exit(0); // the raster server cache's threads would otherwise keep the VM running
+    }
+
+    protected static File writeSources(File dir) throws IOException
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<RasterServer version=\"1.0\">\n<Sources>\n");
+
+        for (int row = 0; row < GRID_SIZE; row++)
+        {
+            for (int col = 0; col < GRID_SIZE; col++)
+            {
+                Sector sector = Sector.fromDegrees(row, row + 1, col, col + 1);
+
+                AVList params = new AVListImpl();
+                params.setValue(AVKey.PIXEL_FORMAT, AVKey.ELEVATION);
+                params.setValue(AVKey.DATA_TYPE, AVKey.INT16);
+                params.setValue(AVKey.BYTE_ORDER, AVKey.BIG_ENDIAN);
+                params.setValue(AVKey.COORDINATE_SYSTEM, AVKey.COORDINATE_SYSTEM_GEOGRAPHIC);
+                params.setValue(AVKey.SECTOR, sector);
+
+                ByteBufferRaster raster = new ByteBufferRaster(SOURCE_SIZE, SOURCE_SIZE, sector, params);
+                for (int y = 0; y < SOURCE_SIZE; y++)
+                {
+                    for (int x = 0; x < SOURCE_SIZE; x++)
+                    {
+                        raster.setDoubleAtPosition(y, x, 100 * row + col + (x ^ y) % 50);
+                    }
+                }
+
+                File file = new File(dir, String.format("elev_%d_%d.tif", row, col));
+                GeotiffWriter writer = new GeotiffWriter(file);
+                try
+                {
+                    writer.write(raster);
+                }
+                finally
+                {
+                    writer.close();
+                }
+
+                sb.append("<Source path=\"").append(file.getAbsolutePath()).append("\" type=\"file\">\n");
+                sb.append(String.format("<Sector><SouthWest><LatLon latitude=\"%d\" longitude=\"%d\" units=\"degrees\"/>"
+                    + "</SouthWest><NorthEast><LatLon latitude=\"%d\" longitude=\"%d\" units=\"degrees\"/></NorthEast>"
+                    + "</Sector>\n", row, col, row + 1, col + 1));
+                sb.append("</Source>\n");
+            }
+        }
+
+        sb.append("</Sources>\n</RasterServer>\n");
+
+        File file = new File(dir, "RasterServer.xml");
+        WWIO.writeTextFile(sb.toString(), file);
+        return file;
+    }
+
+    protected static List<Sector> createTiles()
+    {
+        List<Sector> tiles = new ArrayList<Sector>();
+        for (double delta : TILE_DELTAS)
+        {
+            for (double lat = 0; lat < GRID_SIZE; lat += delta)
+            {
+                for (double lon = 0; lon < GRID_SIZE; lon += delta)
+                {
+                    tiles.add(Sector.fromDegrees(lat, lat + delta, lon, lon + delta));
+                }
+            }
+        }
+
+        return tiles;
+    }
+
+    /** Requests each tile once from a number of threads, and returns the sorted request latencies in milliseconds. */
+    protected static double[] requestTiles(final BasicRasterServer server, List<Sector> tiles, int threadCount)
+        throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try
+        {
+            List<Future<Double>> futures = new ArrayList<Future<Double>>();
+            for (final Sector tile : tiles)
+            {
+                futures.add(executor.submit(new Callable<Double>()
+                {
+                    public Double call() throws Exception
+                    {
+                        AVList params = new AVListImpl();
+                        params.setValue(AVKey.SECTOR, tile);
+                        params.setValue(AVKey.WIDTH, TILE_SIZE);
+                        params.setValue(AVKey.HEIGHT, TILE_SIZE);
+                        params.setValue(AVKey.IMAGE_FORMAT, "application/bil16");
+
+                        long start = System.nanoTime();
+                        if (server.getRasterAsByteBuffer(params) == null)
+                            throw new IllegalStateException("No raster for " + tile);
+                        return (System.nanoTime() - start) / 1e6;
+                    }
+                }));
+            }
+
+            double[] latencies = new double[futures.size()];
+            for (int i = 0; i < latencies.length; i++)
+            {
+                latencies[i] = futures.get(i).get();
+            }
+
+            Arrays.sort(latencies);
+            return latencies;
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    protected static void print(String label, double[] latencies)
+    {
+        System.out.printf("%s p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, max %.2f ms\n", label,
+            percentile(latencies, 50), percentile(latencies, 90), percentile(latencies, 99),
+            latencies[latencies.length - 1]);
+    }
+
+    protected static double percentile(double[] sortedValues, double percent)
+    {
+        int index = (int) Math.ceil(percent / 100 * sortedValues.length) - 1;
+        return sortedValues[WWMath.clamp(index, 0, sortedValues.length - 1)];
+    }
+}
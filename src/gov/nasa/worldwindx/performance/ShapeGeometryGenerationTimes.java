@@ -0,0 +1,225 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwindx.performance;
+
+import gov.nasa.worldwind.*;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.layers.LayerList;
+import gov.nasa.worldwind.render.*;
+import gov.nasa.worldwind.terrain.*;
+import gov.nasa.worldwind.util.Logging;
+import gov.nasa.worldwind.view.orbit.BasicOrbitView;
+
+import java.lang.management.*;
+import java.util.*;
+import java.util.logging.Level;
+
+/**
+ * Measures the cost of a vertical exaggeration change in a scene of extruded polygons, with geometry regenerated
+ * during rendering and with geometry regenerated by a {@link ShapeGeometryScheduler}. For the former, reports the time
+ * of the frame in which every shape regenerates its geometry. For the latter, reports the longest frame, the number of
+ * frames and the elapsed time until every shape has published its new geometry. Frame times are the rendering thread's
+ * CPU time. The buildings are scattered around 38N 100W and are viewed from 100 km above the ground. Runs without a
+ * window or OpenGL context.
+ * <p>
+ * Usage: <code>ShapeGeometryGenerationTimes [sceneSize ...]</code>.
+ *
+ * @version $Id$
+ * @see ShapeGeometryScheduler
+ */
+public class ShapeGeometryGenerationTimes
+{
+    protected static final int NUM_ITERATIONS = 5;
+    protected static final int MAX_FRAMES = 100000;
+    protected static final int[] DEFAULT_SIZES = new int[] {1000, 5000, 20000};
+
+    protected static final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    protected static long frameTime = 1;
+
+    public static void main(String[] args) throws InterruptedException
+    {
+        int[] sizes = DEFAULT_SIZES;
+        if (args.length > 0)
+        {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++)
+            {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        Logging.logger().setLevel(Level.SEVERE);
+
+        // Generate against a smooth globe so that the benchmark does not retrieve elevations.
+        Globe globe = new Earth();
+        globe.setElevationModel(new ZeroElevationModel());
+        DrawContext dc = new DrawContextImpl();
+        dc.setModel(new BasicModel(globe, new LayerList()));
+        dc.setVerticalExaggeration(1);
+        dc.setSurfaceGeometry(new SectorGeometryList());
+        dc.setGLRuntimeCapabilities(new GLRuntimeCapabilities());
+        dc.getGLRuntimeCapabilities().setVertexBufferObjectEnabled(false);
+        dc.setView(new HeadlessView(dc, Position.fromDegrees(38, -100, 100e3)));
+
+        ShapeGeometryScheduler scheduler = new ShapeGeometryScheduler();
+
+        for (int size : sizes)
+        {
+            List<AbstractShape> shapes = createScene(size);
+
+            // Generate the initial geometry, then warm up the JIT.
+            renderFrame(dc, shapes);
+            for (int i = 0; i < NUM_ITERATIONS; i++)
+            {
+                changeVerticalExaggeration(dc);
+                renderFrame(dc, shapes);
+            }
+
+            double syncTime = 0;
+            for (int i = 0; i < NUM_ITERATIONS; i++)
+            {
+                changeVerticalExaggeration(dc);
+                syncTime += renderFrame(dc, shapes);
+            }
+            syncTime /= NUM_ITERATIONS;
+
+            for (AbstractShape shape : shapes)
+            {
+                shape.setGeometryScheduler(scheduler);
+            }
+
+            double maxFrameTime = 0;
+            double totalTime = 0;
+            long numFrames = 0;
+            for (int i = 0; i < NUM_ITERATIONS; i++)
+            {
+                changeVerticalExaggeration(dc);
+
+                long target = scheduler.getPublishedCount() + size;
+                long start = System.nanoTime();
+                for (int frame = 0; frame < MAX_FRAMES && scheduler.getPublishedCount() < target; frame++)
+                {
+                    maxFrameTime = Math.max(maxFrameTime, renderFrame(dc, shapes));
+                    numFrames++;
+                }
+                totalTime += (System.nanoTime() - start) / 1e6;
+            }
+
+            System.out.printf("%d buildings: during rendering %.1f ms; scheduled on %d threads with a budget of %d: "
+                + "longest frame %.2f ms, %.1f frames, all published after %.1f ms\n", size, syncTime,
+                scheduler.getPoolSize(), scheduler.getPublishBudget(), maxFrameTime,
+                (double) numFrames / NUM_ITERATIONS, totalTime / NUM_ITERATIONS);
+        }
+
+        scheduler.shutdown();
+    }
+
+    protected static List<AbstractShape> createScene(int size)
+    {
+        List<AbstractShape> shapes = new ArrayList<AbstractShape>(size);
+        Random random = new Random(size);
+        for (int i = 0; i < size; i++)
+        {
+            double lat = 37.7 + 0.6 * random.nextDouble();
+            double lon = -100.4 + 0.8 * random.nextDouble();
+            double dLat = 0.0002 + 0.0004 * random.nextDouble();
+            double dLon = 0.0002 + 0.0004 * random.nextDouble();
+
+            ExtrudedPolygon shape = new ExtrudedPolygon(Arrays.asList(
+                LatLon.fromDegrees(lat, lon),
+                LatLon.fromDegrees(lat, lon + dLon),
+                LatLon.fromDegrees(lat + dLat, lon + dLon),
+                LatLon.fromDegrees(lat + dLat, lon)), 10 + 90 * random.nextDouble());
+            shape.setAltitudeMode(WorldWind.RELATIVE_TO_GROUND);
+            shapes.add(shape);
+        }
+
+        return shapes;
+    }
+
+    protected static void changeVerticalExaggeration(DrawContext dc)
+    {
+        dc.setVerticalExaggeration(dc.getVerticalExaggeration() == 1 ? 2 : 1);
+    }
+
+    /**
+     * Renders the shapes as a frame's render pass does and returns the CPU time the calling thread spent, in
+     * milliseconds. CPU time rather than elapsed time is measured so that the scheduler's worker threads, which compete
+     * with the rendering thread on machines with few processors, do not count against the frame.
+     *
+     * @param dc     the draw context.
+     * @param shapes the shapes to render.
+     *
+     * @return the frame time.
+     */
+    protected static double renderFrame(DrawContext dc, List<AbstractShape> shapes)
+    {
+        dc.setFrameTimeStamp(frameTime++);
+
+        long start = threadMXBean.getCurrentThreadCpuTime();
+        for (AbstractShape shape : shapes)
+        {
+            shape.render(dc);
+        }
+        double time = (threadMXBean.getCurrentThreadCpuTime() - start) / 1e6;
+
+        while (dc.pollOrderedRenderables() != null)
+        {
+            // The ordered renderables are not drawn.
+        }
+
+        return time;
+    }
+
+    /** An orbit view whose state is computed without an OpenGL context, looking straight down. */
+    protected static class HeadlessView extends BasicOrbitView
+    {
+        public HeadlessView(DrawContext dc, Position eyePosition)
+        {
+            this.dc = dc;
+            this.globe = dc.getGlobe();
+
+            Vec4 eye = this.globe.computePointFromPosition(eyePosition);
+            Vec4 center = this.globe.computePointFromPosition(eyePosition.latitude, eyePosition.longitude, 0);
+            Vec4 up = this.globe.computeNorthPointingTangentAtLocation(eyePosition.latitude, eyePosition.longitude);
+            this.modelview = Matrix.fromViewLookAt(eye, center, up);
+            this.modelviewInv = this.modelview.getInverse();
+
+            this.viewport = new java.awt.Rectangle(1024, 768);
+            this.nearClipDistance = 1;
+            this.farClipDistance = 2 * eyePosition.elevation;
+            this.projection = Matrix.fromPerspective(this.fieldOfView, 1024, 768, 1, this.farClipDistance);
+            this.frustum = Frustum.fromPerspective(this.fieldOfView, 1024, 768, 1, this.farClipDistance);
+
+            this.afterDoApply();
+        }
+    }
+}
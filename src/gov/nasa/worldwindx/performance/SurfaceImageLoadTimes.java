@@ -0,0 +1,201 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwindx.performance;
+
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.avlist.AVKey;
+import gov.nasa.worldwind.data.BufferedImageRaster;
+import gov.nasa.worldwind.formats.tiff.GeotiffWriter;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.layers.SurfaceImageLayer;
+import gov.nasa.worldwind.util.*;
+
+import java.awt.image.*;
+import java.io.*;
+import java.lang.management.*;
+import java.util.logging.Level;
+
+/**
+ * Compares the time and peak heap use of adding a large GeoTIFF to a {@link SurfaceImageLayer} by reading it into
+ * memory, by installing it as a tiled image pyramid on first load, and by reusing the installed pyramid. The images are
+ * written to temporary files and their pyramids are removed from the data file store afterwards. Runs without a window
+ * or OpenGL context.
+ * <p>
+ * Usage: <code>SurfaceImageLoadTimes [imageSize ...]</code>, where each size is the image width and height in pixels.
+ *
+ * @version $Id$
+ */
+public class SurfaceImageLoadTimes
+{
+    protected static final int[] DEFAULT_COUNTS = new int[] {2048, 4096, 8192};
+    protected static final Sector IMAGE_SECTOR = Sector.fromDegrees(30, 32, -120, -118);
+
+    /** Exposes the layer's pyramid cache path. */
+    protected static class PyramidLayer extends SurfaceImageLayer
+    {
+        public static File getPyramidDirectory(File imageFile)
+        {
+            return new File(WorldWind.getDataFileStore().getWriteLocation(),
+                new PyramidLayer().makePyramidCacheName(imageFile, IMAGE_SECTOR)).getParentFile();
+        }
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        Logging.logger().setLevel(Level.SEVERE);
+
+        int[] counts = DEFAULT_COUNTS;
+        if (args.length > 0)
+        {
+            counts = new int[args.length];
+            for (int i = 0; i < args.length; i++)
+            {
+                counts[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        File warmUp = writeImage(1024);
+        try
+        {
+            load(warmUp, Long.MAX_VALUE); // warm up the JIT
+            load(warmUp, 0L);
+        }
+        finally
+        {
+            deletePyramids(warmUp);
+        }
+
+        for (int size : counts)
+        {
+            File file = writeImage(size);
+            try
+            {
+                System.out.printf("%dx%d image (%d MB file)\n", size, size, file.length() >> 20);
+                print("  in memory:", file, Long.MAX_VALUE);
+                print("  install:  ", file, 0L);
+                print("  reuse:    ", file, 0L);
+            }
+            catch (OutOfMemoryError e)
+            {
+                System.out.printf("  out of memory\n");
+            }
+            finally
+            {
+                deletePyramids(file);
+            }
+        }
+    }
+
+    protected static void print(String label, File file, long pyramidThreshold) throws IOException
+    {
+        resetPeakHeap();
+        long start = System.nanoTime();
+        SurfaceImageLayer layer = load(file, pyramidThreshold);
+        double millis = (System.nanoTime() - start) / 1e6;
+
+        System.out.printf("%s %9.1f ms, %7.1f MB peak heap\n", label, millis, peakHeap() / 1048576d);
+        layer.dispose();
+    }
+
+    protected static SurfaceImageLayer load(File file, long pyramidThreshold) throws IOException
+    {
+        SurfaceImageLayer layer = new SurfaceImageLayer();
+        layer.setPyramidThreshold(pyramidThreshold);
+        layer.addImage(file.getPath(), IMAGE_SECTOR);
+        return layer;
+    }
+
+    protected static void resetPeakHeap()
+    {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+        {
+            if (pool.getType() == MemoryType.HEAP)
+                pool.resetPeakUsage();
+        }
+    }
+
+    protected static long peakHeap()
+    {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+        {
+            if (pool.getType() == MemoryType.HEAP)
+                peak += pool.getPeakUsage().getUsed();
+        }
+
+        return peak;
+    }
+
+    protected static File writeImage(int size) throws IOException
+    {
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        for (int y = 0; y < size; y++)
+        {
+            for (int x = 0; x < size; x++)
+            {
+                pixels[y * size + x] = ((x & 0xFF) << 16) | ((y & 0xFF) << 8) | ((x ^ y) & 0xFF);
+            }
+        }
+
+        File file = File.createTempFile("SurfaceImageLoadTimes", ".tif");
+        file.deleteOnExit();
+        GeotiffWriter writer = new GeotiffWriter(file);
+        try
+        {
+            BufferedImageRaster raster = new BufferedImageRaster(IMAGE_SECTOR, image);
+            raster.setValue(AVKey.PIXEL_FORMAT, AVKey.IMAGE);
+            raster.setValue(AVKey.COORDINATE_SYSTEM, AVKey.COORDINATE_SYSTEM_GEOGRAPHIC);
+            writer.write(raster);
+        }
+        finally
+        {
+            writer.close();
+        }
+
+        return file;
+    }
+
+    protected static void deletePyramids(File imageFile) throws IOException
+    {
+        File[] pyramids = PyramidLayer.getPyramidDirectory(imageFile).listFiles();
+        if (pyramids != null)
+        {
+            for (File dir : pyramids)
+            {
+                if (dir.getName().startsWith(imageFile.getName()))
+                    WWIO.deleteDirectory(dir);
+            }
+        }
+
+        imageFile.delete();
+    }
+}
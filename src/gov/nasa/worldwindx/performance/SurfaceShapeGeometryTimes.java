@@ -0,0 +1,210 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwindx.performance;
+
+import gov.nasa.worldwind.avlist.AVKey;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.render.SurfacePolygon;
+import gov.nasa.worldwind.util.*;
+
+import java.util.*;
+import java.util.logging.Level;
+
+/**
+ * Compares the time to generate, and the heap retained by, surface polygon geometry held as lists of {@link LatLon}
+ * and as packed {@link ContourBuffer} contours. The polygons approximate a country boundaries data set: a few hundred
+ * outlines of several thousand vertices each, spread around the globe and crossing the dateline. Runs without a window
+ * or OpenGL context.
+ * <p>
+ * Usage: <code>SurfaceShapeGeometryTimes [vertexCount ...]</code>, where each count is the total number of polygon
+ * vertices.
+ *
+ * @version $Id$
+ */
+public class SurfaceShapeGeometryTimes
+{
+    protected static final int[] DEFAULT_COUNTS = new int[] {100000, 1000000};
+    protected static final int NUM_POLYGONS = 250;
+    protected static final double EDGE_INTERVALS_PER_DEGREE = 4;
+
+    /** Exposes both the packed and the location list geometry of a SurfacePolygon. */
+    protected static class GeometryPolygon extends SurfacePolygon
+    {
+        public GeometryPolygon(Iterable<? extends LatLon> locations)
+        {
+            super(locations);
+        }
+
+        public ContourBuffer createPackedGeometry(Globe globe)
+        {
+            ContourBuffer contours = this.createContours(globe, EDGE_INTERVALS_PER_DEGREE);
+            contours.trimToSize();
+            return contours;
+        }
+
+        /** Generates the geometry as location lists, the way surface shapes did prior to packed contours. */
+        public List<List<LatLon>> createLocationGeometry()
+        {
+            List<List<LatLon>> geom = new ArrayList<List<LatLon>>();
+            for (Iterable<? extends LatLon> boundary : this.getBoundaries())
+            {
+                ArrayList<LatLon> drawLocations = new ArrayList<LatLon>();
+                this.generateIntermediateLocations(boundary, EDGE_INTERVALS_PER_DEGREE, true, drawLocations);
+
+                //noinspection StringEquality
+                if (WWMath.computeWindingOrderOfLocations(drawLocations) != AVKey.COUNTER_CLOCKWISE)
+                    Collections.reverse(drawLocations);
+
+                drawLocations.trimToSize();
+                geom.add(drawLocations);
+            }
+
+            return geom;
+        }
+    }
+
+    public static void main(String[] args)
+    {
+        Logging.logger().setLevel(Level.SEVERE);
+
+        int[] counts = DEFAULT_COUNTS;
+        if (args.length > 0)
+        {
+            counts = new int[args.length];
+            for (int i = 0; i < args.length; i++)
+            {
+                counts[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        Globe globe = new Earth();
+        List<GeometryPolygon> warmUp = createPolygons(20000);
+        for (int i = 0; i < 5; i++) // warm up the JIT
+        {
+            generateLocationGeometry(warmUp);
+            generatePackedGeometry(warmUp, globe);
+        }
+
+        for (int count : counts)
+        {
+            List<GeometryPolygon> polygons = createPolygons(count);
+
+            long heap = usedMemory();
+            long start = System.nanoTime();
+            List<Object> listGeometry = generateLocationGeometry(polygons);
+            double listMillis = (System.nanoTime() - start) / 1e6;
+            long listBytes = usedMemory() - heap;
+
+            heap = usedMemory();
+            start = System.nanoTime();
+            List<Object> packedGeometry = generatePackedGeometry(polygons, globe);
+            double packedMillis = (System.nanoTime() - start) / 1e6;
+            long packedBytes = usedMemory() - heap;
+
+            int vertices = 0;
+            for (Object o : packedGeometry)
+            {
+                vertices += ((ContourBuffer) o).size();
+            }
+
+            System.out.printf("%d vertices (%d after densification)\n", count, vertices);
+            System.out.printf("  LatLon lists: %.1f ms, %.1f MB\n", listMillis, listBytes / 1e6);
+            System.out.printf("  packed:       %.1f ms, %.1f MB (%.1fx faster, %.1fx smaller)\n", packedMillis,
+                packedBytes / 1e6, listMillis / packedMillis, (double) listBytes / packedBytes);
+
+            // Keep both results reachable until both have been measured.
+            if (listGeometry.size() != packedGeometry.size())
+                throw new IllegalStateException();
+        }
+    }
+
+    protected static List<Object> generateLocationGeometry(List<GeometryPolygon> polygons)
+    {
+        List<Object> geometry = new ArrayList<Object>(polygons.size());
+        for (GeometryPolygon polygon : polygons)
+        {
+            geometry.add(polygon.createLocationGeometry());
+        }
+
+        return geometry;
+    }
+
+    protected static List<Object> generatePackedGeometry(List<GeometryPolygon> polygons, Globe globe)
+    {
+        List<Object> geometry = new ArrayList<Object>(polygons.size());
+        for (GeometryPolygon polygon : polygons)
+        {
+            geometry.add(polygon.createPackedGeometry(globe));
+        }
+
+        return geometry;
+    }
+
+    protected static List<GeometryPolygon> createPolygons(int vertexCount)
+    {
+        Random random = new Random(vertexCount);
+        int verticesPerPolygon = Math.max(3, vertexCount / NUM_POLYGONS);
+        List<GeometryPolygon> polygons = new ArrayList<GeometryPolygon>(NUM_POLYGONS);
+
+        for (int i = 0; i < NUM_POLYGONS; i++)
+        {
+            // An irregular star shaped outline around a random center, crossing the dateline near +/-180 longitude.
+            double centerLat = -60 + 120 * random.nextDouble();
+            double centerLon = -180 + 360 * random.nextDouble();
+            double radius = 1 + 10 * random.nextDouble();
+
+            List<LatLon> locations = new ArrayList<LatLon>(verticesPerPolygon);
+            for (int j = 0; j < verticesPerPolygon; j++)
+            {
+                double angle = 2 * Math.PI * j / verticesPerPolygon;
+                double r = radius * (0.7 + 0.3 * random.nextDouble());
+                double lat = centerLat + r * Math.sin(angle);
+                double lon = Angle.normalizedDegreesLongitude(centerLon + r * Math.cos(angle));
+                locations.add(LatLon.fromDegrees(lat, lon));
+            }
+
+            polygons.add(new GeometryPolygon(locations));
+        }
+
+        return polygons;
+    }
+
+    protected static long usedMemory()
+    {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+        {
+            System.gc();
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+package gov.nasa.worldwindx.performance;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.cache.BasicDataFileStore;
+import gov.nasa.worldwind.data.SurfaceTileRasterServer;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.render.*;
+import gov.nasa.worldwind.util.*;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+
+/**
+ * Measures the throughput, in tiles per second, of {@link SurfaceTileRasterServer} serving surface shapes spread over
+ * the continental United States as 256x256 PNG tiles. Tiles are rendered with one worker thread and with one worker
+ * thread per processor, then served again from the tile cache. Runs without a window or OpenGL context.
+ * <p>
+ * Usage: <code>SurfaceTileRenderTimes [shapeCount ...]</code>.
+ *
+ * @version $Id$
+ */
+public class SurfaceTileRenderTimes
+{
+    protected static final int[] DEFAULT_COUNTS = new int[] {1000, 10000};
+    protected static final int[] LEVELS = new int[] {3, 5};
+    protected static final Sector REGION = Sector.fromDegrees(25, 49, -125, -67);
+
+    public static void main(String[] args) throws Exception
+    {
+        Logging.logger().setLevel(Level.SEVERE);
+
+        int[] counts = DEFAULT_COUNTS;
+        if (args.length > 0)
+        {
+            counts = new int[args.length];
+            for (int i = 0; i < args.length; i++)
+            {
+                counts[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        timeTiles(createShapes(100), 1, 3); // warm up the JIT
+
+        for (int count : counts)
+        {
+            List<SurfaceShape> shapes = createShapes(count);
+            System.out.printf("%d shapes\n", count);
+
+            for (int level : LEVELS)
+            {
+                double[] single = timeTiles(shapes, 1, level);
+                double[] parallel = timeTiles(shapes, processors, level);
+
+                System.out.printf("  level %d: 1 thread %.1f tiles/s, %d threads %.1f tiles/s, cached %.1f tiles/s\n",
+                    level, single[0], processors, parallel[0], parallel[1]);
+            }
+        }
+    }
+
+    /**
+     * Requests every tile of a level that intersects the region, first rendering the tiles and then reading them from
+     * the tile cache.
+     *
+     * @return the rendered and the cached throughput, in tiles per second.
+     */
+    protected static double[] timeTiles(List<SurfaceShape> shapes, int poolSize, int level) throws Exception
+    {
+        File cacheDir = File.createTempFile("SurfaceTileRenderTimes", "");
+        cacheDir.delete();
+
+        try
+        {
+            SurfaceTileRasterServer server = new SurfaceTileRasterServer(null, poolSize);
+            server.setFileStore(new BasicDataFileStore(cacheDir));
+            server.addAllRenderables(shapes);
+
+            LatLon delta = server.getLevels().getLevel(level).getTileDelta();
+            LatLon origin = server.getLevels().getTileOrigin();
+            int minRow = Tile.computeRow(delta.getLatitude(), REGION.getMinLatitude(), origin.getLatitude());
+            int maxRow = Tile.computeRow(delta.getLatitude(), REGION.getMaxLatitude(), origin.getLatitude());
+            int minCol = Tile.computeColumn(delta.getLongitude(), REGION.getMinLongitude(), origin.getLongitude());
+            int maxCol = Tile.computeColumn(delta.getLongitude(), REGION.getMaxLongitude(), origin.getLongitude());
+            int numTiles = (maxRow - minRow + 1) * (maxCol - minCol + 1);
+
+            double[] tilesPerSecond = new double[2];
+            for (int pass = 0; pass < 2; pass++)
+            {
+                long start = System.nanoTime();
+                List<Future<ByteBuffer>> futures = new ArrayList<Future<ByteBuffer>>(numTiles);
+                for (int row = minRow; row <= maxRow; row++)
+                {
+                    for (int col = minCol; col <= maxCol; col++)
+                    {
+                        futures.add(server.requestTile(level, row, col));
+                    }
+                }
+
+                for (Future<ByteBuffer> future : futures)
+                {
+                    future.get();
+                }
+
+                tilesPerSecond[pass] = numTiles / ((System.nanoTime() - start) / 1e9);
+            }
+
+            return tilesPerSecond;
+        }
+        finally
+        {
+            WWIO.deleteDirectory(cacheDir);
+            cacheDir.delete();
+        }
+    }
+
+    protected static List<SurfaceShape> createShapes(int count)
+    {
+        ShapeAttributes attrs = new BasicShapeAttributes();
+        attrs.setInteriorMaterial(Material.ORANGE);
+        attrs.setInteriorOpacity(0.6);
+        attrs.setOutlineMaterial(Material.BLACK);
+        attrs.setOutlineWidth(2);
+
+        Random random = new Random(count);
+        List<SurfaceShape> shapes = new ArrayList<SurfaceShape>(count);
+        for (int i = 0; i < count; i++)
+        {
+            double lat = REGION.getMinLatitude().degrees + REGION.getDeltaLatDegrees() * random.nextDouble();
+            double lon = REGION.getMinLongitude().degrees + REGION.getDeltaLonDegrees() * random.nextDouble();
+            double size = 0.05 + 0.5 * random.nextDouble();
+
+            switch (i % 3)
+            {
+                case 0:
+                    shapes.add(new SurfaceCircle(attrs, LatLon.fromDegrees(lat, lon), size * 100e3));
+                    break;
+                case 1:
+                    shapes.add(new SurfacePolygon(attrs, Arrays.asList(LatLon.fromDegrees(lat, lon),
+                        LatLon.fromDegrees(lat, lon + size), LatLon.fromDegrees(lat + size, lon + size),
+                        LatLon.fromDegrees(lat + size, lon + size / 2))));
+                    break;
+                default:
+                    shapes.add(new SurfacePolyline(attrs, Arrays.asList(LatLon.fromDegrees(lat, lon),
+                        LatLon.fromDegrees(lat + size, lon + size), LatLon.fromDegrees(lat, lon + 2 * size))));
+                    break;
+            }
+        }
+
+        return shapes;
+    }
+}
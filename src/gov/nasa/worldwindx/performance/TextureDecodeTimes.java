@@ -0,0 +1,194 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwindx.performance;
+
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.layers.*;
+import gov.nasa.worldwind.render.DrawContext;
+import gov.nasa.worldwind.util.Logging;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+
+/**
+ * Measures the decoding throughput of a {@link TextureDecodePipeline} for 512x512 JPEG and PNG tiles, with one
+ * decoding thread and with the default number, and with the buffer pool disabled and enabled. Creating textures needs
+ * an OpenGL context, so each texture's data is flushed as soon as it is decoded, which returns its buffer to the pool
+ * as an upload would. Runs without a window or OpenGL context.
+ * <p>
+ * Usage: <code>TextureDecodeTimes [numTiles ...]</code>.
+ *
+ * @version $Id$
+ */
+public class TextureDecodeTimes
+{
+    protected static final int[] DEFAULT_COUNTS = new int[] {400};
+    protected static final int TILE_SIZE = 512;
+
+    public static void main(String[] args) throws Exception
+    {
+        Logging.logger().setLevel(Level.SEVERE);
+
+        int[] counts = DEFAULT_COUNTS;
+        if (args.length > 0)
+        {
+            counts = new int[args.length];
+            for (int i = 0; i < args.length; i++)
+            {
+                counts[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        int defaultPoolSize = new TextureDecodePipeline().getPoolSize();
+        System.out.printf("%d processors\n", Runtime.getRuntime().availableProcessors());
+
+        String[] formats = new String[] {"jpg", "png"};
+        for (int numTiles : counts)
+        {
+            for (String format : formats)
+            {
+                ByteBuffer encoded = encode(createImage(), format);
+                timeDecodes(encoded, Math.min(numTiles, 50), 1, false); // warm up the JIT
+
+                int[] poolSizes = defaultPoolSize > 1 ? new int[] {1, defaultPoolSize} : new int[] {1};
+                for (int poolSize : poolSizes)
+                {
+                    for (boolean pooled : new boolean[] {false, true})
+                    {
+                        TextureDecodePipeline pipeline = new TextureDecodePipeline(poolSize);
+                        if (!pooled)
+                            pipeline.setMaxPooledBytes(0);
+
+                        double elapsed = timeDecodes(pipeline, encoded, numTiles);
+                        System.out.printf("%d %s tiles, %d thread(s), %-8s: %6.1f tiles/s, decode %5.2f ms avg "
+                                + "%6.2f ms max, %d buffers reused\n", numTiles, format, poolSize,
+                            pooled ? "pooled" : "unpooled", numTiles / elapsed * 1e3,
+                            pipeline.getAverageDecodeTime(), pipeline.getMaxDecodeTime(),
+                            pipeline.getReusedBufferCount());
+                        pipeline.shutdown();
+                    }
+                }
+            }
+        }
+    }
+
+    protected static void timeDecodes(ByteBuffer encoded, int numTiles, int poolSize, boolean pooled)
+        throws Exception
+    {
+        TextureDecodePipeline pipeline = new TextureDecodePipeline(poolSize);
+        if (!pooled)
+            pipeline.setMaxPooledBytes(0);
+
+        timeDecodes(pipeline, encoded, numTiles);
+        pipeline.shutdown();
+    }
+
+    /**
+     * Submits a number of tiles to a pipeline and waits for them to be decoded.
+     *
+     * @param pipeline the pipeline.
+     * @param encoded  the encoded image to decode for each tile.
+     * @param numTiles the number of tiles.
+     *
+     * @return the time from the first submission until the last tile was decoded, in milliseconds.
+     *
+     * @throws Exception if the wait is interrupted.
+     */
+    protected static double timeDecodes(TextureDecodePipeline pipeline, ByteBuffer encoded, int numTiles)
+        throws Exception
+    {
+        final CountDownLatch latch = new CountDownLatch(numTiles);
+        TextureDecodePipeline.Listener listener = new TextureDecodePipeline.Listener()
+        {
+            public void textureDecoded(TextureDecodePipeline.Request request)
+            {
+                request.getTextureData().flush();
+                latch.countDown();
+            }
+
+            public void textureDecodeFailed(TextureDecodePipeline.Request request)
+            {
+                latch.countDown();
+            }
+
+            public void textureUploaded(DrawContext dc, TextureDecodePipeline.Request request)
+            {
+            }
+
+            public void textureUploadFailed(DrawContext dc, TextureDecodePipeline.Request request)
+            {
+            }
+        };
+
+        long start = System.nanoTime();
+        for (int i = 0; i < numTiles; i++)
+        {
+            TextureTile tile = new TextureTile(Sector.fromDegrees(0, 1, 0, 1));
+            pipeline.submit(new TextureDecodePipeline.Request(tile, null, encoded.duplicate(), null, true, listener));
+        }
+        latch.await();
+
+        return (System.nanoTime() - start) / 1e6;
+    }
+
+    protected static BufferedImage createImage()
+    {
+        BufferedImage image = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < TILE_SIZE; y++)
+        {
+            for (int x = 0; x < TILE_SIZE; x++)
+            {
+                double v = Math.sin(x * 0.05) * Math.cos(y * 0.03);
+                int c = (int) (127.5 + 127.5 * v);
+                image.setRGB(x, y, (y < TILE_SIZE / 4 ? 0x80 : 0xFF) << 24 | c << 16 | (255 - c) << 8 | (x ^ y) & 0xFF);
+            }
+        }
+
+        return image;
+    }
+
+    protected static ByteBuffer encode(BufferedImage image, String format) throws Exception
+    {
+        if (format.equals("jpg"))
+        {
+            BufferedImage rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+            rgb.getGraphics().drawImage(image, 0, 0, null);
+            image = rgb;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        return ByteBuffer.wrap(out.toByteArray());
+    }
+}
@@ -29,22 +29,35 @@
 package gov.nasa.worldwindx.performance;
 
 import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.event.*;
 import gov.nasa.worldwindx.examples.ApplicationTemplate;
 import gov.nasa.worldwind.geom.*;
 import gov.nasa.worldwind.layers.RenderableLayer;
 import gov.nasa.worldwind.render.*;
-import gov.nasa.worldwind.util.WWUtil;
 
+import java.awt.*;
 import java.util.*;
+import java.util.List;
 
 /**
+ * Measures frame times for a scene of many paths, drawn either individually or in {@link PathBatch}es. The paths
+ * radiate from a common origin and share a small palette of attributes, and the view is fixed, so runs are
+ * reproducible. After a warm-up period the mean time of a fixed number of frames is printed.
+ * <p>
+ * Usage: <code>VeryManyPaths [-batched] [numPaths [numPositions]]</code>.
+ *
  * @author tag
  * @version $Id: VeryManyPaths.java 2109 2014-06-30 16:52:38Z tgaskins $
  */
 public class VeryManyPaths extends ApplicationTemplate
 {
-    protected static final int NUM_PATHS = 2000;
-    protected static final int NUM_POSITIONS = 300;
+    // Set from the command line before the frame is created. ApplicationTemplate creates the frame reflectively.
+    protected static int numPaths = 2000;
+    protected static int numPositions = 300;
+    protected static boolean batched = false;
+    protected static final int NUM_COLORS = 8;
+    protected static final int WARM_UP_FRAMES = 50;
+    protected static final int NUM_FRAMES = 200;
     protected static final Angle PATH_LENGTH = Angle.fromDegrees(5);
     protected static final double PATH_HEIGHT = 1e3;
     protected static final LatLon START_LOCATION = LatLon.fromDegrees(48.86, 2.33);
@@ -53,34 +66,73 @@ public class VeryManyPaths extends ApplicationTemplate
 
     public static class AppFrame extends ApplicationTemplate.AppFrame
     {
-        protected List<Path> paths;
+        protected List<ShapeAttributes> palette = new ArrayList<ShapeAttributes>();
+        protected int frameCount;
+        protected long startTime;
 
         public AppFrame()
         {
             super(true, true, false);
 
+            Random random = new Random(1); // the same colors on every run
+            for (int i = 0; i < NUM_COLORS; i++)
+            {
+                ShapeAttributes attrs = new BasicShapeAttributes();
+                attrs.setOutlineMaterial(new Material(new Color(random.nextInt(0x1000000))));
+                attrs.setDrawOutline(true);
+                attrs.setOutlineWidth(LINE_WIDTH);
+                this.palette.add(attrs);
+            }
+
             RenderableLayer layer = new RenderableLayer();
-            
-            this.makePaths(layer, new Position(START_LOCATION, PATH_HEIGHT), NUM_PATHS, PATH_LENGTH, NUM_POSITIONS);
+
+            this.makePaths(layer, new Position(START_LOCATION, PATH_HEIGHT), numPaths, PATH_LENGTH, numPositions);
 
             // Add the layer to the model.
             insertBeforeCompass(getWwd(), layer);
 
             // Update layer panel
             this.getWwd().getView().setEyePosition(new Position(START_LOCATION, 3e6));
+
+            this.getWwd().addRenderingListener(new RenderingListener()
+            {
+                public void stageChanged(RenderingEvent event)
+                {
+                    if (event.getStage().equals(RenderingEvent.AFTER_BUFFER_SWAP))
+                        onFrameDrawn();
+                }
+            });
         }
 
         protected void makePaths(RenderableLayer layer, Position origin, int numPaths, Angle length, int numPositions)
         {
             double dAngle = 360d / numPaths;
 
+            Map<ShapeAttributes, PathBatch> batches = new HashMap<ShapeAttributes, PathBatch>();
             for (int i = 0; i < numPaths; i++)
             {
                 Angle heading = Angle.fromDegrees(i * dAngle);
-                layer.addRenderable(this.makePath(origin, heading, length, numPositions));
+                Path path = this.makePath(origin, heading, length, numPositions);
+                path.setAttributes(this.palette.get(i % NUM_COLORS));
+
+                if (!batched)
+                {
+                    layer.addRenderable(path);
+                    continue;
+                }
+
+                PathBatch batch = batches.get(path.getAttributes());
+                if (batch == null)
+                {
+                    batch = new PathBatch(path.getAttributes());
+                    batches.put(path.getAttributes(), batch);
+                    layer.addRenderable(batch);
+                }
+                batch.addPath(path);
             }
 
-            System.out.printf("%d paths, each with %d positions\n", NUM_PATHS, NUM_POSITIONS);
+            System.out.printf("%d paths, each with %d positions, %s\n", numPaths, numPositions,
+                batched ? "batched" : "drawn individually");
         }
 
         protected Path makePath(Position startPosition, Angle heading, Angle length, int numPositions)
@@ -99,24 +151,43 @@ public class VeryManyPaths extends ApplicationTemplate
 
             Path path = new Path(positions);
             path.setAltitudeMode(ALTITUDE_MODE);
-            path.setExtrude(true);
-            path.setDrawVerticals(true);
-
-            ShapeAttributes attrs = new BasicShapeAttributes();
-            attrs.setOutlineMaterial(new Material(WWUtil.makeRandomColor(null)));
-            attrs.setInteriorMaterial(attrs.getOutlineMaterial());
-            attrs.setInteriorOpacity(0.5);
-            attrs.setDrawOutline(true);
-            attrs.setDrawInterior(true);
-            attrs.setOutlineWidth(LINE_WIDTH);
-            path.setAttributes(attrs);
 
             return path;
         }
+
+        protected void onFrameDrawn()
+        {
+            this.frameCount++;
+
+            if (this.frameCount == WARM_UP_FRAMES)
+            {
+                this.startTime = System.nanoTime();
+            }
+            else if (this.frameCount == WARM_UP_FRAMES + NUM_FRAMES)
+            {
+                double frameTime = (System.nanoTime() - this.startTime) / 1e6 / NUM_FRAMES;
+                System.out.printf("Mean frame time %.2f ms (%.1f frames per second) over %d frames\n", frameTime,
+                    1000 / frameTime, NUM_FRAMES);
+                return; // stop redrawing
+            }
+
+            this.getWwd().redraw();
+        }
     }
 
     public static void main(String[] args)
     {
+        int argIndex = 0;
+        if (args.length > argIndex && args[argIndex].equals("-batched"))
+        {
+            batched = true;
+            argIndex++;
+        }
+        if (args.length > argIndex)
+            numPaths = Integer.parseInt(args[argIndex++]);
+        if (args.length > argIndex)
+            numPositions = Integer.parseInt(args[argIndex]);
+
         ApplicationTemplate.start("WorldWind Paths", AppFrame.class);
     }
 }
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+package gov.nasa.worldwindx.performance;
+
+import gov.nasa.worldwind.Configuration;
+import gov.nasa.worldwind.avlist.AVKey;
+import gov.nasa.worldwind.ogc.collada.ColladaRoot;
+import gov.nasa.worldwind.ogc.kml.KMLRoot;
+
+import java.io.File;
+import java.util.logging.Level;
+
+/**
+ * Compares cold-load and warm-load times of KML, KMZ and COLLADA documents with the binary XML event cache enabled.
+ * Cold loads parse the document's XML; warm loads replay the events recorded during the first load. Runs without a
+ * window or OpenGL context.
+ * <p>
+ * Usage: <code>XMLEventCacheLoadTimes [file ...]</code>. Files with the suffix ".dae" are opened as COLLADA documents,
+ * all others as KML or KMZ.
+ *
+ * @version $Id$
+ * @see gov.nasa.worldwind.util.xml.BinaryXMLEventCache
+ */
+public class XMLEventCacheLoadTimes
+{
+    protected static final int NUM_ITERATIONS = 20;
+    protected static final String[] DEFAULT_FILES = new String[] {
+        "testData/collada/duck_triangulate.dae",
+        "testData/KML/LongLineString.kml",
+        "testData/KML/PointPlacemarkLocalImage.kmz"
+    };
+
+    public static void main(String[] args) throws Exception
+    {
+        gov.nasa.worldwind.util.Logging.logger().setLevel(Level.SEVERE);
+
+        for (String path : args.length > 0 ? args : DEFAULT_FILES)
+        {
+            File file = new File(path);
+
+            Configuration.setValue(AVKey.XML_EVENT_CACHE_ENABLED, false);
+            load(file); // warm up the JIT
+            double cold = timeLoads(file);
+
+            Configuration.setValue(AVKey.XML_EVENT_CACHE_ENABLED, true);
+            load(file); // records the cache entry
+            double warm = timeLoads(file);
+
+            System.out.printf("%s (%d bytes): cold %.3f ms, warm %.3f ms, speedup %.2fx\n", file, file.length(),
+                cold, warm, cold / warm);
+        }
+    }
+
+    protected static double timeLoads(File file) throws Exception
+    {
+        long start = System.nanoTime();
+        for (int i = 0; i < NUM_ITERATIONS; i++)
+        {
+            load(file);
+        }
+
+        return (System.nanoTime() - start) / 1e6 / NUM_ITERATIONS;
+    }
+
+    protected static Object load(File file) throws Exception
+    {
+        if (file.getName().toLowerCase().endsWith(".dae"))
+            return ColladaRoot.createAndParse(file);
+        else
+            return KMLRoot.createAndParse(file);
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.data;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.formats.tiff.GeotiffWriter;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.util.WWIO;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class BasicRasterServerTest
+{
+    private static final int SOURCE_SIZE = 64;
+    private static final int TILE_SIZE = 16;
+
+    private File dataDir;
+    private BasicRasterServer server;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        this.dataDir = File.createTempFile("BasicRasterServerTest", "");
+        this.dataDir.delete();
+        this.dataDir.mkdirs();
+
+        // The second source overlaps the eastern half of the first, and the third is far from both.
+        File[] sources = new File[] {
+            writeElevations(this.dataDir, "a.tif", Sector.fromDegrees(0, 1, 0, 1), 100),
+            writeElevations(this.dataDir, "b.tif", Sector.fromDegrees(0, 1, 0.5, 1.5), 200),
+            writeElevations(this.dataDir, "c.tif", Sector.fromDegrees(10, 11, 10, 11), 300)
+        };
+
+        this.server = new BasicRasterServer(writeConfiguration(this.dataDir, sources), null);
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        this.server.getCache().clear();
+        WWIO.deleteDirectory(this.dataDir);
+        this.dataDir.delete();
+    }
+
+    @Test
+    public void testIntersectingRasters() throws Exception
+    {
+        assertEquals(3, this.server.getIntersectingRasters(Sector.fromDegrees(0, 11, 0, 11)).size());
+        assertEquals(1, this.server.getIntersectingRasters(Sector.fromDegrees(10.2, 10.4, 10.2, 10.4)).size());
+        assertEquals(0, this.server.getIntersectingRasters(Sector.fromDegrees(5, 6, 5, 6)).size());
+
+        // Overlapping rasters are returned in configuration order.
+        List<DataRaster> rasters = this.server.getIntersectingRasters(Sector.fromDegrees(0.2, 0.4, 0.6, 0.8));
+        assertEquals(2, rasters.size());
+        assertEquals(Sector.fromDegrees(0, 1, 0, 1), rasters.get(0).getSector());
+        assertEquals(Sector.fromDegrees(0, 1, 0.5, 1.5), rasters.get(1).getSector());
+    }
+
+    @Test
+    public void testComposeOverlappingRasters() throws Exception
+    {
+        assertAllEqual(100, this.compose(Sector.fromDegrees(0.25, 0.75, 0.1, 0.4)));
+        assertAllEqual(200, this.compose(Sector.fromDegrees(0.25, 0.75, 0.6, 0.9)));
+        assertAllEqual(300, this.compose(Sector.fromDegrees(10.25, 10.75, 10.25, 10.75)));
+    }
+
+    @Test
+    public void testComposedRasterIsCached() throws Exception
+    {
+        Sector sector = Sector.fromDegrees(0.25, 0.75, 0.1, 0.4);
+        AVList params = createRequest(sector);
+        ByteBufferRaster first = (ByteBufferRaster) this.server.composeRaster(params);
+        assertTrue(this.server.getCache().contains(this.server.createComposedRasterKey(params)));
+
+        // Changes to a returned raster must not reach the cached raster.
+        first.fill(0);
+        assertAllEqual(100, this.compose(sector));
+
+        // A request differing only in size is composed separately.
+        params = createRequest(sector);
+        params.setValue(AVKey.WIDTH, TILE_SIZE * 2);
+        assertFalse(this.server.getCache().contains(this.server.createComposedRasterKey(params)));
+    }
+
+    @Test
+    public void testConcurrentCompose() throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            List<Future<ByteBufferRaster>> futures = new ArrayList<Future<ByteBufferRaster>>();
+            for (int i = 0; i < 3; i++) // each tile is requested three times
+            {
+                for (int j = 0; j < 8; j++)
+                {
+                    final Sector sector = Sector.fromDegrees(0.25, 0.75, 0.1 * j, 0.1 * j + 0.05);
+                    futures.add(executor.submit(new Callable<ByteBufferRaster>()
+                    {
+                        public ByteBufferRaster call() throws Exception
+                        {
+                            return compose(sector);
+                        }
+                    }));
+                }
+            }
+
+            for (int i = 0; i < futures.size(); i++)
+            {
+                assertAllEqual((i % 8) < 5 ? 100 : 200, futures.get(i).get());
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    private ByteBufferRaster compose(Sector sector)
+    {
+        return (ByteBufferRaster) this.server.composeRaster(createRequest(sector));
+    }
+
+    private static AVList createRequest(Sector sector)
+    {
+        AVList params = new AVListImpl();
+        params.setValue(AVKey.SECTOR, sector);
+        params.setValue(AVKey.WIDTH, TILE_SIZE);
+        params.setValue(AVKey.HEIGHT, TILE_SIZE);
+        return params;
+    }
+
+    private static void assertAllEqual(double expected, ByteBufferRaster raster)
+    {
+        for (int row = 0; row < raster.getHeight(); row++)
+        {
+            for (int col = 0; col < raster.getWidth(); col++)
+            {
+                // Resampling may truncate a constant value by one unit.
+                assertEquals("Value at " + row + ", " + col, expected, raster.getDoubleAtPosition(row, col), 1);
+            }
+        }
+    }
+
+    private static File writeElevations(File dir, String name, Sector sector, double value) throws IOException
+    {
+        AVList params = new AVListImpl();
+        params.setValue(AVKey.PIXEL_FORMAT, AVKey.ELEVATION);
+        params.setValue(AVKey.DATA_TYPE, AVKey.INT16);
+        params.setValue(AVKey.BYTE_ORDER, AVKey.BIG_ENDIAN);
+        params.setValue(AVKey.COORDINATE_SYSTEM, AVKey.COORDINATE_SYSTEM_GEOGRAPHIC);
+        params.setValue(AVKey.SECTOR, sector);
+
+        ByteBufferRaster raster = new ByteBufferRaster(SOURCE_SIZE, SOURCE_SIZE, sector, params);
+        raster.fill(value);
+
+        File file = new File(dir, name);
+        GeotiffWriter writer = new GeotiffWriter(file);
+        try
+        {
+            writer.write(raster);
+        }
+        finally
+        {
+            writer.close();
+        }
+
+        return file;
+    }
+
+    private static File writeConfiguration(File dir, File[] sources) throws IOException
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<RasterServer version=\"1.0\">\n<Sources>\n");
+        for (File source : sources)
+        {
+            sb.append("<Source path=\"").append(source.getAbsolutePath()).append("\" type=\"file\"/>\n");
+        }
+        sb.append("</Sources>\n</RasterServer>\n");
+
+        File file = new File(dir, "RasterServer.xml");
+        WWIO.writeTextFile(sb.toString(), file);
+        return file;
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.data;
+
+import com.sun.net.httpserver.*;
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.cache.BasicDataFileStore;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.retrieve.ByteRangeChannel;
+import gov.nasa.worldwind.util.WWIO;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.*;
+import java.net.*;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link COGRasterSource} reading cloud-optimized GeoTIFFs from a local static-file HTTP server that supports
+ * range requests, comparing the results with those of reading the same files locally.
+ */
+@RunWith(JUnit4.class)
+public class COGRasterSourceTest
+{
+    private static final String DATA_DIR = "testData/cog/";
+    private static final Pattern RANGE_PATTERN = Pattern.compile("bytes=(\\d+)-(\\d+)");
+    private static final Sector SECTOR = Sector.fromDegrees(45.5, 46, -121, -120.5);
+
+    private HttpServer server;
+    private final AtomicLong bytesServed = new AtomicLong();
+    private File cacheDir;
+    private BasicDataFileStore fileStore;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.server.createContext("/", new HttpHandler()
+        {
+            public void handle(HttpExchange exchange) throws IOException
+            {
+                File file = new File(DATA_DIR, new File(exchange.getRequestURI().getPath()).getName());
+                if (!file.isFile())
+                {
+                    exchange.sendResponseHeaders(404, -1);
+                    exchange.close();
+                    return;
+                }
+
+                byte[] content = Files.readAllBytes(file.toPath());
+                String range = exchange.getRequestHeaders().getFirst("Range");
+                Matcher matcher = range != null ? RANGE_PATTERN.matcher(range) : null;
+                int start = 0;
+                int end = content.length - 1;
+                if (matcher != null && matcher.matches())
+                {
+                    start = Integer.parseInt(matcher.group(1));
+                    end = Math.min(end, Integer.parseInt(matcher.group(2)));
+                    exchange.getResponseHeaders().set("Content-Range",
+                        "bytes " + start + "-" + end + "/" + content.length);
+                    exchange.sendResponseHeaders(206, end - start + 1);
+                }
+                else
+                {
+                    exchange.sendResponseHeaders(200, content.length);
+                }
+
+                bytesServed.addAndGet(end - start + 1);
+                OutputStream os = exchange.getResponseBody();
+                os.write(content, start, end - start + 1);
+                os.close();
+            }
+        });
+        this.server.start();
+
+        this.cacheDir = File.createTempFile("COGRasterSourceTest", "");
+        this.cacheDir.delete();
+        this.fileStore = new BasicDataFileStore(this.cacheDir);
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        this.server.stop(0);
+        ByteRangeChannel.getMemoryCache().clear();
+        WWIO.deleteDirectory(this.cacheDir);
+        this.cacheDir.delete();
+    }
+
+    @Test
+    public void testMetadata() throws Exception
+    {
+        COGRasterSource source = this.openRemote("elev16_cog.tif");
+        try
+        {
+            assertTrue(source.isElevation());
+            assertEquals(256, source.getWidth());
+            assertEquals(256, source.getHeight());
+            assertSectorEquals(SECTOR, source.getSector());
+            assertEquals(AVKey.INT16, source.getMetadata().getValue(AVKey.DATA_TYPE));
+            assertEquals(-32768d, source.getMetadata().getValue(AVKey.MISSING_DATA_SIGNAL));
+        }
+        finally
+        {
+            source.dispose();
+        }
+    }
+
+    @Test
+    public void testLevelsCoincideWithOverviews() throws Exception
+    {
+        COGRasterSource source = this.openRemote("rgb_cog.tif");
+        try
+        {
+            AVList params = source.getLevelSetParams(64, 64, null);
+            assertEquals(3, params.getValue(AVKey.NUM_LEVELS));
+
+            // Level zero tiles are 64 pixels of the overview with a quarter of the full resolution.
+            LatLon delta = (LatLon) params.getValue(AVKey.LEVEL_ZERO_TILE_DELTA);
+            assertEquals(0.5, delta.getLatitude().degrees, 1e-12);
+            assertEquals(0.5, delta.getLongitude().degrees, 1e-12);
+            assertEquals(new LatLon(SECTOR.getMinLatitude(), SECTOR.getMinLongitude()),
+                params.getValue(AVKey.TILE_ORIGIN));
+
+            // Parameters already specified are not replaced.
+            params = new AVListImpl();
+            params.setValue(AVKey.NUM_LEVELS, 5);
+            source.getLevelSetParams(64, 64, params);
+            assertEquals(5, params.getValue(AVKey.NUM_LEVELS));
+        }
+        finally
+        {
+            source.dispose();
+        }
+    }
+
+    @Test
+    public void testRemoteElevationsMatchLocal() throws Exception
+    {
+        COGRasterSource remote = this.openRemote("elev16_cog.tif");
+        COGRasterSource local = this.openLocal("elev16_cog.tif");
+        try
+        {
+            Sector sector = Sector.fromDegrees(45.6, 45.7, -120.9, -120.8);
+            for (int size : new int[] {64, 16, 4}) // full resolution and each overview
+            {
+                BufferWrapperRaster r = (BufferWrapperRaster) remote.read(sector, size, size);
+                BufferWrapperRaster l = (BufferWrapperRaster) local.read(sector, size, size);
+                assertEquals(l.getWidth(), r.getWidth());
+                assertEquals(l.getHeight(), r.getHeight());
+                assertSectorEquals(l.getSector(), r.getSector());
+                for (int row = 0; row < l.getHeight(); row++)
+                {
+                    for (int col = 0; col < l.getWidth(); col++)
+                    {
+                        assertEquals(l.getDoubleAtPosition(row, col), r.getDoubleAtPosition(row, col), 0);
+                    }
+                }
+            }
+        }
+        finally
+        {
+            remote.dispose();
+            local.dispose();
+        }
+    }
+
+    @Test
+    public void testRemoteImageMatchesLocal() throws Exception
+    {
+        COGRasterSource remote = this.openRemote("rgb_cog.tif");
+        COGRasterSource local = this.openLocal("rgb_cog.tif");
+        try
+        {
+            BufferedImageRaster r = new BufferedImageRaster(32, 32, java.awt.Transparency.TRANSLUCENT, SECTOR);
+            BufferedImageRaster l = new BufferedImageRaster(32, 32, java.awt.Transparency.TRANSLUCENT, SECTOR);
+            assertTrue(remote.drawOnTo(r));
+            assertTrue(local.drawOnTo(l));
+            for (int y = 0; y < 32; y++)
+            {
+                for (int x = 0; x < 32; x++)
+                {
+                    assertEquals(l.getBufferedImage().getRGB(x, y), r.getBufferedImage().getRGB(x, y));
+                }
+            }
+
+            BufferedImageRaster outside = new BufferedImageRaster(8, 8, java.awt.Transparency.TRANSLUCENT,
+                Sector.fromDegrees(10, 11, 10, 11));
+            assertFalse(remote.drawOnTo(outside));
+        }
+        finally
+        {
+            remote.dispose();
+            local.dispose();
+        }
+    }
+
+    @Test
+    public void testReadsOnlyNeededTiles() throws Exception
+    {
+        long fileLength = new File(DATA_DIR, "elev16_cog.tif").length();
+
+        URL url = new URL("http://localhost:" + this.server.getAddress().getPort() + "/elev16_cog.tif");
+        COGRasterSource source = new COGRasterSource(new ByteRangeChannel(url, this.fileStore, "cog", 1024, 0),
+            url.toString());
+        try
+        {
+            // The header and the tiles of the lowest resolution overview.
+            DataRaster raster = source.read(SECTOR, 60, 60);
+            assertEquals(64, raster.getWidth());
+            assertTrue(this.bytesServed.get() < fileLength / 2);
+
+            // One tile of the full resolution image.
+            long served = this.bytesServed.get();
+            source.read(Sector.fromDegrees(45.95, 45.96, -120.99, -120.98), 5, 5);
+            assertTrue(this.bytesServed.get() > served);
+            assertTrue(this.bytesServed.get() < fileLength / 2);
+        }
+        finally
+        {
+            source.dispose();
+        }
+    }
+
+    @Test
+    public void testRejectsUntiledGeoTIFF() throws Exception
+    {
+        try
+        {
+            this.openLocal("../elev16_wgs84_512x512.tif");
+            fail("Expected an IOException");
+        }
+        catch (IOException e)
+        {
+            assertTrue(e.getMessage().contains("not tiled"));
+        }
+    }
+
+    private COGRasterSource openRemote(String name) throws Exception
+    {
+        URL url = new URL("http://localhost:" + this.server.getAddress().getPort() + "/" + name);
+        return new COGRasterSource(url, this.fileStore, null);
+    }
+
+    private COGRasterSource openLocal(String name) throws Exception
+    {
+        return new COGRasterSource(new File(DATA_DIR, name).toURI().toURL(), null, null);
+    }
+
+    private static void assertSectorEquals(Sector expected, Sector actual)
+    {
+        assertEquals(expected.getMinLatitude().degrees, actual.getMinLatitude().degrees, 1e-9);
+        assertEquals(expected.getMaxLatitude().degrees, actual.getMaxLatitude().degrees, 1e-9);
+        assertEquals(expected.getMinLongitude().degrees, actual.getMinLongitude().degrees, 1e-9);
+        assertEquals(expected.getMaxLongitude().degrees, actual.getMaxLongitude().degrees, 1e-9);
+    }
+}
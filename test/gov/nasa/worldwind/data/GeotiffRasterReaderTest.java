@@ -0,0 +1,93 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.data;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.geom.Sector;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.*;
+import java.nio.file.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class GeotiffRasterReaderTest
+{
+    private File file;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        this.file = File.createTempFile("GeotiffRasterReaderTest", ".tif");
+        Files.copy(Paths.get("testData/cog/rgb_cog.tif"), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @After
+    public void tearDown()
+    {
+        new GeotiffRasterReader().closeWindowSource(this.file);
+        this.file.delete();
+    }
+
+    @Test
+    public void testChangedFileIsReopened() throws IOException
+    {
+        GeotiffRasterReader reader = new GeotiffRasterReader();
+        AVList params = reader.readMetadata(this.file, null);
+        DataRaster window = reader.readWindow(this.file, params, (Sector) params.getValue(AVKey.SECTOR), 16, 16);
+        assertTrue(window instanceof BufferedImageRaster);
+
+        // Replace the image with elevations. The held reader must not be used for the new file.
+        long lastModified = this.file.lastModified();
+        Files.copy(Paths.get("testData/cog/elev16_cog.tif"), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        assertTrue(this.file.setLastModified(lastModified + 2000));
+
+        params = reader.readMetadata(this.file, null);
+        window = reader.readWindow(this.file, params, (Sector) params.getValue(AVKey.SECTOR), 16, 16);
+        assertTrue(window instanceof ByteBufferRaster);
+    }
+
+    @Test
+    public void testClosedFileIsReopened() throws IOException
+    {
+        GeotiffRasterReader reader = new GeotiffRasterReader();
+        AVList params = reader.readMetadata(this.file, null);
+        Sector sector = (Sector) params.getValue(AVKey.SECTOR);
+
+        assertNotNull(reader.readWindow(this.file, params, sector, 16, 16));
+        reader.closeWindowSource(this.file);
+        assertNotNull(reader.readWindow(this.file, params, sector, 16, 16));
+        GeotiffRasterReader.closeWindowReaders();
+        assertNotNull(reader.readWindow(this.file, params, sector, 16, 16));
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.data;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.geom.Sector;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class RasterResamplerTest
+{
+    private static final Sector SOURCE_SECTOR = Sector.fromDegrees(10, 12, 20, 22);
+    private static final double MISSING = -32768;
+
+    @Test
+    public void testBilinearMatchesBufferWrapperRaster()
+    {
+        for (String dataType : new String[] {AVKey.INT16, AVKey.INT32, AVKey.FLOAT32})
+        {
+            BufferWrapperRaster source = createScalars(dataType, 300, 200, SOURCE_SECTOR);
+            Random random = new Random(1);
+            for (int i = 0; i < 500; i++)
+            {
+                source.setDoubleAtPosition(random.nextInt(200), random.nextInt(300), MISSING);
+            }
+
+            // Downsampled and upsampled canvases, both partly outside the source.
+            for (Sector sector : new Sector[] {Sector.fromDegrees(9.5, 11.5, 20.5, 23),
+                Sector.fromDegrees(10.2, 10.4, 19.9, 20.2)})
+            {
+                BufferWrapperRaster expected = createCanvas(dataType, 256, 256, sector);
+                BufferWrapperRaster actual = createCanvas(dataType, 256, 256, sector);
+                source.drawSamplesOnTo(expected);
+                source.drawOnTo(actual);
+
+                for (int row = 0; row < 256; row++)
+                {
+                    for (int col = 0; col < 256; col++)
+                    {
+                        assertEquals(dataType + " " + sector + " at " + row + ", " + col,
+                            expected.getDoubleAtPosition(row, col), actual.getDoubleAtPosition(row, col), 0);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testNearestAndBicubic()
+    {
+        // A linear function is reproduced exactly by bilinear and bicubic interpolation away from the source's edges.
+        BufferWrapperRaster source = createScalars(AVKey.FLOAT32, 100, 100, SOURCE_SECTOR);
+        Sector sector = Sector.fromDegrees(10.5, 11.5, 20.5, 21.5);
+
+        BufferWrapperRaster bilinear = createCanvas(AVKey.FLOAT32, 64, 64, sector);
+        BufferWrapperRaster bicubic = createCanvas(AVKey.FLOAT32, 64, 64, sector);
+        bicubic.setValue(AVKey.RESAMPLING_METHOD, AVKey.RESAMPLING_BICUBIC);
+        BufferWrapperRaster nearest = createCanvas(AVKey.FLOAT32, 64, 64, sector);
+        nearest.setValue(AVKey.RESAMPLING_METHOD, AVKey.RESAMPLING_NEAREST_NEIGHBOR);
+
+        source.drawOnTo(bilinear);
+        source.drawOnTo(bicubic);
+        source.drawOnTo(nearest);
+
+        for (int row = 0; row < 64; row++)
+        {
+            for (int col = 0; col < 64; col++)
+            {
+                double value = bilinear.getDoubleAtPosition(row, col);
+                assertEquals(value, bicubic.getDoubleAtPosition(row, col), 1e-3);
+
+                // Source values are whole numbers, so nearest samples are whole numbers near the interpolated value.
+                double nearestValue = nearest.getDoubleAtPosition(row, col);
+                assertEquals(Math.rint(nearestValue), nearestValue, 0);
+                assertEquals(value, nearestValue, 0.5 + 0.5 * 100);
+            }
+        }
+    }
+
+    @Test
+    public void testImageNearestNeighbor()
+    {
+        BufferedImage image = new BufferedImage(200, 200, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < 200; y++)
+        {
+            for (int x = 0; x < 200; x++)
+            {
+                image.setRGB(x, y, ((x + y) % 2 == 0) ? 0xFFFF0000 : 0xFF0000FF);
+            }
+        }
+        BufferedImageRaster source = new BufferedImageRaster(SOURCE_SECTOR, image);
+
+        BufferedImageRaster canvas = new BufferedImageRaster(150, 150, Transparency.TRANSLUCENT,
+            Sector.fromDegrees(10.5, 11.5, 20.5, 21.5));
+        canvas.setValue(AVKey.RESAMPLING_METHOD, AVKey.RESAMPLING_NEAREST_NEIGHBOR);
+        source.drawOnTo(canvas);
+
+        // Nearest-neighbor sampling never blends the alternating source colors.
+        BufferedImage result = canvas.getBufferedImage();
+        for (int y = 1; y < 149; y++)
+        {
+            for (int x = 1; x < 149; x++)
+            {
+                int rgb = result.getRGB(x, y);
+                assertTrue("Pixel " + x + ", " + y, rgb == 0xFFFF0000 || rgb == 0xFF0000FF);
+            }
+        }
+    }
+
+    private static BufferWrapperRaster createScalars(String dataType, int width, int height, Sector sector)
+    {
+        BufferWrapperRaster raster = createCanvas(dataType, width, height, sector);
+        raster.setTransparentValue(MISSING);
+        for (int row = 0; row < height; row++)
+        {
+            for (int col = 0; col < width; col++)
+            {
+                raster.setDoubleAtPosition(row, col, col + 100 * row);
+            }
+        }
+
+        return raster;
+    }
+
+    private static BufferWrapperRaster createCanvas(String dataType, int width, int height, Sector sector)
+    {
+        AVList params = new AVListImpl();
+        params.setValue(AVKey.DATA_TYPE, dataType);
+        params.setValue(AVKey.BYTE_ORDER, AVKey.LITTLE_ENDIAN);
+
+        ByteBufferRaster raster = new ByteBufferRaster(width, height, sector, params);
+        raster.fill(-1);
+        return raster;
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+package gov.nasa.worldwind.data;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.cache.BasicDataFileStore;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.render.*;
+import gov.nasa.worldwind.util.*;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class SurfaceTileRasterServerTest
+{
+    private File cacheDir;
+    private SurfaceTileRasterServer server;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        this.cacheDir = File.createTempFile("SurfaceTileRasterServerTest", "");
+        this.cacheDir.delete();
+
+        this.server = new SurfaceTileRasterServer(null, 4);
+        this.server.setFileStore(new BasicDataFileStore(this.cacheDir));
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        WWIO.deleteDirectory(this.cacheDir);
+        this.cacheDir.delete();
+    }
+
+    @Test
+    public void testTileIsCached() throws Exception
+    {
+        this.server.addRenderable(createPolygon(Color.RED, 10, 20));
+
+        // Level 0 tiles are 36 degrees; row 2, column 5 spans latitudes -18 to 18 and longitudes 0 to 36.
+        BufferedImage first = decode(this.server.getTile(0, 2, 5));
+        assertEquals(1, this.server.getRenderedTileCount());
+        assertEquals(256, first.getWidth());
+        assertEquals(Color.RED.getRGB(), first.getRGB(107, 128)); // 15 degrees east, at the equator
+
+        BufferedImage second = decode(this.server.getTile(0, 2, 5));
+        assertEquals("Tile rendered again", 1, this.server.getRenderedTileCount());
+        assertEquals(1, this.server.getCachedTileCount());
+        assertEquals(first.getRGB(107, 128), second.getRGB(107, 128));
+    }
+
+    @Test
+    public void testChangeInvalidatesCachedTiles() throws Exception
+    {
+        this.server.addRenderable(createPolygon(Color.RED, 10, 20));
+        this.server.getTile(0, 2, 5);
+
+        Thread.sleep(10); // the cached tile must be older than the invalidation
+        this.server.addRenderable(createPolygon(Color.BLUE, 10, 20));
+
+        BufferedImage image = decode(this.server.getTile(0, 2, 5));
+        assertEquals(2, this.server.getRenderedTileCount());
+        assertEquals(Color.BLUE.getRGB(), image.getRGB(107, 128));
+    }
+
+    @Test
+    public void testChangeWhileWritingIsNotCached() throws Exception
+    {
+        // Invalidate the tiles after the rendered tile passes its generation check, but before it is written.
+        this.server = new SurfaceTileRasterServer(null, 4)
+        {
+            @Override
+            protected File writeCachedTile(Tile tile, ByteBuffer buffer, long lastModified)
+            {
+                this.invalidateTiles();
+                return super.writeCachedTile(tile, buffer, lastModified);
+            }
+        };
+        this.server.setFileStore(new BasicDataFileStore(this.cacheDir));
+        this.server.addRenderable(createPolygon(Color.RED, 10, 20));
+
+        this.server.getTile(0, 2, 5);
+        this.server.getTile(0, 2, 5);
+        assertEquals("Stale tile cached", 2, this.server.getRenderedTileCount());
+        assertEquals(0, this.server.getCachedTileCount());
+    }
+
+    @Test
+    public void testConcurrentRequests() throws Exception
+    {
+        this.server.addRenderable(createPolygon(Color.RED, -170, 170));
+
+        List<Future<ByteBuffer>> futures = new ArrayList<Future<ByteBuffer>>();
+        for (int i = 0; i < 3; i++) // each tile is requested three times
+        {
+            for (int row = 0; row < 5; row++)
+            {
+                for (int column = 0; column < 10; column++)
+                {
+                    futures.add(this.server.requestTile(0, row, column));
+                }
+            }
+        }
+
+        for (Future<ByteBuffer> future : futures)
+        {
+            assertNotNull(decode(future.get()));
+        }
+
+        assertEquals("Each tile rendered once", 50, this.server.getRenderedTileCount());
+    }
+
+    @Test
+    public void testRasterServerRequest() throws Exception
+    {
+        this.server.addRenderable(createPolygon(Color.RED, 10, 20));
+
+        AVList params = new AVListImpl();
+        params.setValue(AVKey.SECTOR, Sector.fromDegrees(-10, 10, 10, 30));
+        params.setValue(AVKey.WIDTH, 100);
+        params.setValue(AVKey.HEIGHT, 50);
+
+        BufferedImage image = decode(this.server.getRasterAsByteBuffer(params));
+        assertEquals(100, image.getWidth());
+        assertEquals(50, image.getHeight());
+        assertEquals(Color.RED.getRGB(), image.getRGB(25, 25));
+        assertEquals(0, image.getRGB(75, 25));
+        assertEquals("Raster requests are not cached", 0, this.server.getRenderedTileCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTileOutsideLevel()
+    {
+        this.server.getTile(0, 5, 0);
+    }
+
+    private static SurfacePolygon createPolygon(Color color, double minLon, double maxLon)
+    {
+        ShapeAttributes attrs = new BasicShapeAttributes();
+        attrs.setInteriorMaterial(new Material(color));
+        attrs.setInteriorOpacity(1);
+        attrs.setDrawOutline(false);
+
+        return new SurfacePolygon(attrs, Arrays.asList(LatLon.fromDegrees(-10, minLon), LatLon.fromDegrees(-10, maxLon),
+            LatLon.fromDegrees(10, maxLon), LatLon.fromDegrees(10, minLon)));
+    }
+
+    private static BufferedImage decode(ByteBuffer buffer) throws IOException
+    {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return ImageIO.read(new ByteArrayInputStream(bytes));
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.formats.dds;
+
+import gov.nasa.worldwind.util.ImageUtil;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class PackedDXTCompressorTest
+{
+    private static final int[] IMAGE_TYPES = {BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_ARGB_PRE,
+        BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR};
+
+    private ForkJoinPool pool;
+
+    @Before
+    public void setUp()
+    {
+        // Use several workers even on a single processor so that the parallel paths are exercised.
+        this.pool = new ForkJoinPool(4);
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.pool.shutdown();
+    }
+
+    @Test
+    public void testMatchesBlockCompressors()
+    {
+        String[] compressionTypes = {DXTCompressionAttributes.COLOR_BLOCK_COMPRESSION_EUCLIDEAN_DISTANCE,
+            DXTCompressionAttributes.COLOR_BLOCK_COMPRESSION_BBOX,
+            DXTCompressionAttributes.COLOR_BLOCK_COMPRESSION_LUMINANCE_DISTANCE};
+
+        for (int type : IMAGE_TYPES)
+        {
+            for (int[] size : new int[][] {{256, 256}, {64, 16}, {8, 2}, {2, 2}, {1, 1}})
+            {
+                BufferedImage image = createImage(size[0], size[1], type);
+
+                for (String compressionType : compressionTypes)
+                {
+                    for (int format : new int[] {DDSConstants.D3DFMT_DXT1, DDSConstants.D3DFMT_DXT3})
+                    {
+                        DXTCompressionAttributes attributes = new DXTCompressionAttributes();
+                        attributes.setColorBlockCompressionType(compressionType);
+                        attributes.setEnableDXT1Alpha(true);
+                        attributes.setPremultiplyAlpha(format == DDSConstants.D3DFMT_DXT3);
+
+                        DXTCompressor expected = format == DDSConstants.D3DFMT_DXT1 ? new DXT1Compressor()
+                            : new DXT3Compressor();
+                        DXTCompressor actual = new PackedDXTCompressor(format, this.pool);
+
+                        assertEquals(expected.getCompressedSize(image, attributes),
+                            actual.getCompressedSize(image, attributes));
+                        assertArrayEquals("Type " + type + ", " + size[0] + "x" + size[1] + ", " + compressionType,
+                            compress(expected, image, attributes), compress(actual, image, attributes));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDDSFileMatchesBlockCompressors()
+    {
+        for (int type : IMAGE_TYPES)
+        {
+            BufferedImage image = createImage(1024, 512, type);
+
+            ByteBuffer expected = new ReferenceDDSCompressor().compressImage(image,
+                DDSCompressor.getDefaultCompressionAttributes());
+            ByteBuffer actual = new DDSCompressor(this.pool).compressImage(image,
+                DDSCompressor.getDefaultCompressionAttributes());
+
+            assertEquals("Type " + type, expected, actual);
+        }
+    }
+
+    private static byte[] compress(DXTCompressor compressor, BufferedImage image, DXTCompressionAttributes attributes)
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(compressor.getCompressedSize(image, attributes) + 3);
+        buffer.order(java.nio.ByteOrder.LITTLE_ENDIAN);
+        buffer.position(3); // compress at a nonzero offset, as DDSCompressor does
+        compressor.compressImage(image, attributes, buffer);
+        assertEquals(buffer.capacity(), buffer.position());
+
+        return buffer.array();
+    }
+
+    /** Creates an image of smooth gradients with noise, with some fully transparent and some opaque regions. */
+    private static BufferedImage createImage(int width, int height, int type)
+    {
+        Random random = new Random(width * 31 + height);
+        BufferedImage image = new BufferedImage(width, height, type);
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                int a = (x / 16 + y / 16) % 3 == 0 ? 255 : (x / 16) % 5 == 0 ? 0 : random.nextInt(256);
+                int r = (x * 255 / width + random.nextInt(16)) & 0xFF;
+                int g = (y * 255 / height + random.nextInt(16)) & 0xFF;
+                int b = random.nextInt(256);
+                image.setRGB(x, y, (a << 24) | (r << 16) | (g << 8) | b);
+            }
+        }
+
+        return image;
+    }
+
+    /** Compresses one block at a time, and builds mipmaps sequentially, as DDSCompressor originally did. */
+    private static class ReferenceDDSCompressor extends DDSCompressor
+    {
+        @Override
+        protected DXTCompressor getDXTCompressor(BufferedImage image, DXTCompressionAttributes attributes)
+        {
+            return image.getColorModel().hasAlpha() ? new DXT3Compressor() : new DXT1Compressor();
+        }
+
+        @Override
+        protected BufferedImage[] buildMipMaps(BufferedImage image, DXTCompressionAttributes attributes)
+        {
+            return ImageUtil.buildMipmaps(image, BufferedImage.TYPE_INT_ARGB_PRE,
+                ImageUtil.getMaxMipmapLevel(image.getWidth(), image.getHeight()));
+        }
+    }
+}
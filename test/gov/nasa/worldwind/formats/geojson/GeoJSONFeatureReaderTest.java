@@ -0,0 +1,178 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+package gov.nasa.worldwind.formats.geojson;
+
+import gov.nasa.worldwind.geom.*;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class GeoJSONFeatureReaderTest
+{
+    private static final String FEATURE_COLLECTION = "{\"type\": \"FeatureCollection\", \"features\": ["
+        + "{\"type\": \"Feature\", \"properties\": {\"name\": \"a\", \"rank\": 1, \"tags\": [\"x\", true]},"
+        + " \"geometry\": {\"type\": \"Point\", \"coordinates\": [10.0, 20.0, 5.0]}},"
+        + "{\"type\": \"Feature\", \"geometry\": {\"type\": \"LineString\", \"coordinates\": [[-100, 40], [-99, 41]]},"
+        + " \"properties\": {\"name\": \"b\"}},"
+        + "{\"type\": \"Feature\", \"properties\": null, \"geometry\": {\"type\": \"MultiPolygon\", \"coordinates\": "
+        + "[[[[0, 0], [1, 0], [1, 1], [0, 0]], [[0.2, 0.2], [0.8, 0.2], [0.8, 0.8], [0.2, 0.2]]],"
+        + " [[[5, 5], [6, 5], [6, 6], [5, 5]]]]}}"
+        + "], \"crs\": {\"type\": \"name\"}}";
+
+    @Test
+    public void testFeatureCollection() throws Exception
+    {
+        List<GeoJSONFeature> features = readAll(FEATURE_COLLECTION, null);
+        assertEquals(3, features.size());
+
+        GeoJSONFeature point = features.get(0);
+        assertEquals("a", point.getProperties().getValue("name"));
+        assertEquals(1.0, point.getProperties().getValue("rank"));
+        assertTrue(Arrays.equals(new Object[] {"x", true}, (Object[]) point.getProperties().getValue("tags")));
+        assertEquals(Position.fromDegrees(20, 10, 5), point.getGeometry().asPoint().getPosition());
+
+        GeoJSONLineString line = features.get(1).getGeometry().asLineString();
+        assertEquals("b", features.get(1).getProperties().getValue("name"));
+        assertEquals(2, line.getCoordinates().length());
+        assertEquals(Position.fromDegrees(41, -99), line.getCoordinates().getPosition(1));
+
+        GeoJSONMultiPolygon multiPolygon = features.get(2).getGeometry().asMultiPolygon();
+        assertEquals(2, multiPolygon.getPolygonCount());
+        assertEquals(1, multiPolygon.getInteriorRingCount(0));
+        assertEquals(4, multiPolygon.getInteriorRing(0, 0).length());
+        assertEquals(Position.fromDegrees(0.8, 0.8), multiPolygon.getInteriorRing(0, 0).getPosition(2));
+        assertEquals(Position.fromDegrees(6, 6), multiPolygon.getExteriorRing(1).getPosition(2));
+    }
+
+    @Test
+    public void testNewlineDelimited() throws Exception
+    {
+        String ndjson = "{\"type\": \"Feature\", \"properties\": {\"id\": 1}, "
+            + "\"geometry\": {\"type\": \"Point\", \"coordinates\": [1, 2]}}\n"
+            + "{\"type\": \"Polygon\", \"coordinates\": [[[0, 0], [1, 0], [1, 1], [0, 0]]]}\n"
+            + "{\"type\": \"Feature\", \"properties\": {\"id\": 3}, \"geometry\": {\"type\": \"GeometryCollection\", "
+            + "\"geometries\": [{\"type\": \"Point\", \"coordinates\": [3, 4]}, "
+            + "{\"type\": \"MultiPoint\", \"coordinates\": [[5, 6], [7, 8]]}]}}\n";
+
+        List<GeoJSONFeature> features = readAll(ndjson, null);
+        assertEquals(3, features.size());
+        assertEquals(1.0, features.get(0).getProperties().getValue("id"));
+        assertTrue(features.get(1).getGeometry().isPolygon());
+        assertNull(features.get(1).getProperties());
+
+        GeoJSONGeometry[] geometries = features.get(2).getGeometry().asGeometryCollection().getGeometries();
+        assertEquals(2, geometries.length);
+        assertEquals(Position.fromDegrees(4, 3), geometries[0].asPoint().getPosition());
+        assertEquals(Position.fromDegrees(8, 7), geometries[1].asMultiPoint().getPosition(1));
+    }
+
+    @Test
+    public void testSectorFilter() throws Exception
+    {
+        GeoJSONFeatureReader reader = new GeoJSONFeatureReader(toStream(FEATURE_COLLECTION),
+            Sector.fromDegrees(-1, 2, -1, 2));
+        List<GeoJSONFeature> features = new ArrayList<GeoJSONFeature>();
+        while (reader.hasNext())
+        {
+            features.add(reader.next());
+        }
+        reader.close();
+
+        assertEquals(1, features.size());
+        assertTrue(features.get(0).getGeometry().isMultiPolygon());
+        assertEquals(2, reader.getRejectedCount());
+    }
+
+    @Test
+    public void testBoundingBoxRejectsBeforeGeometry() throws Exception
+    {
+        // The rejected features' coordinates are malformed, and must be skipped rather than decoded.
+        String features = "{\"type\": \"Feature\", \"bbox\": [50, 50, 60, 60], \"properties\": {},"
+            + " \"geometry\": {\"type\": \"Point\", \"coordinates\": [55, \"bad\", [55]]}},"
+            + " {\"type\": \"Feature\", \"bbox\": [0, 0, 1, 1], \"properties\": {},"
+            + " \"geometry\": {\"type\": \"Point\", \"coordinates\": [0.5, 0.5]}},"
+            + " {\"type\": \"Feature\", \"bbox\": [-60, -60, -50, -50],"
+            + " \"geometry\": {\"type\": \"LineString\", \"coordinates\": [[-55, \"bad\"], {}]}}";
+
+        for (String json : new String[] {"[" + features + "]",
+            "{\"type\": \"FeatureCollection\", \"features\": [" + features + "]}"})
+        {
+            final int[] decodeCount = new int[1];
+            GeoJSONFeatureReader reader = new GeoJSONFeatureReader(toStream(json), Sector.fromDegrees(-1, 2, -1, 2))
+            {
+                @Override
+                protected Object parseCoordinates() throws IOException
+                {
+                    decodeCount[0]++;
+                    return super.parseCoordinates();
+                }
+            };
+
+            List<GeoJSONFeature> list = readAll(reader);
+            assertEquals(1, list.size());
+            assertEquals(Position.fromDegrees(0.5, 0.5), list.get(0).getGeometry().asPoint().getPosition());
+            assertEquals(2, reader.getRejectedCount());
+            assertEquals(1, decodeCount[0]);
+        }
+    }
+
+    private static List<GeoJSONFeature> readAll(String json, Sector sector) throws IOException
+    {
+        return readAll(new GeoJSONFeatureReader(toStream(json), sector));
+    }
+
+    private static List<GeoJSONFeature> readAll(GeoJSONFeatureReader reader) throws IOException
+    {
+        try
+        {
+            List<GeoJSONFeature> features = new ArrayList<GeoJSONFeature>();
+            for (GeoJSONFeature feature = reader.readFeature(); feature != null; feature = reader.readFeature())
+            {
+                features.add(feature);
+            }
+            return features;
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    private static InputStream toStream(String json)
+    {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
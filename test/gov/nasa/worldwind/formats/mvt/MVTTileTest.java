@@ -0,0 +1,168 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.formats.mvt;
+
+import gov.nasa.worldwind.util.WWIO;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class MVTTileTest
+{
+    private static final String TILE_PATH = "testData/mvt/0/0/0.mvt";
+    private static final String GZIPPED_TILE_PATH = "testData/mvt/1/1/1.mvt";
+
+    @Test
+    public void testDecodeLayers() throws Exception
+    {
+        MVTTile tile = MVTTile.decode(readTile(TILE_PATH));
+
+        assertEquals(3, tile.getLayers().size());
+        assertEquals("water", tile.getLayers().get(0).getName());
+        assertEquals("roads", tile.getLayers().get(1).getName());
+        assertEquals("places", tile.getLayers().get(2).getName());
+        assertNull(tile.getLayer("buildings"));
+
+        MVTTile.Layer water = tile.getLayer("water");
+        assertEquals(2, water.getVersion());
+        assertEquals(4096, water.getExtent());
+        assertEquals(2, water.getFeatureCount());
+    }
+
+    @Test
+    public void testDecodePolygonRings() throws Exception
+    {
+        MVTTile.Layer water = MVTTile.decode(readTile(TILE_PATH)).getLayer("water");
+
+        assertEquals(1, water.getFeatureId(0));
+        assertEquals(MVTTile.GEOMETRY_POLYGON, water.getFeatureType(0));
+        assertEquals(2, water.getPartCount(0)); // exterior ring and one hole
+
+        int exterior = water.getFirstPart(0);
+        assertEquals(4, water.getPointCount(exterior)); // closing point is not repeated
+        assertPoint(water, water.getFirstPoint(exterior), 512, 512);
+        assertPoint(water, water.getFirstPoint(exterior) + 2, 3584, 3584);
+
+        int hole = exterior + 1;
+        assertEquals(4, water.getPointCount(hole));
+        assertPoint(water, water.getFirstPoint(hole), 1536, 1536);
+        assertPoint(water, water.getFirstPoint(hole) + 1, 1536, 2560);
+
+        // The second feature extends into the tile's buffer region.
+        int ocean = water.getFirstPart(1);
+        assertPoint(water, water.getFirstPoint(ocean), -64, 3800);
+        assertPoint(water, water.getFirstPoint(ocean) + 1, 4160, 3800);
+    }
+
+    @Test
+    public void testDecodeLinesAndPoints() throws Exception
+    {
+        MVTTile tile = MVTTile.decode(readTile(TILE_PATH));
+
+        MVTTile.Layer roads = tile.getLayer("roads");
+        assertEquals(MVTTile.GEOMETRY_LINESTRING, roads.getFeatureType(0));
+        assertEquals(1, roads.getPartCount(0));
+        assertEquals(3, roads.getPointCount(roads.getFirstPart(0)));
+        assertEquals(2, roads.getPartCount(1)); // multi line string
+        int second = roads.getFirstPart(1) + 1;
+        assertEquals(2, roads.getPointCount(second));
+        assertPoint(roads, roads.getFirstPoint(second), 100, 100);
+        assertPoint(roads, roads.getFirstPoint(second) + 1, 400, 400);
+
+        MVTTile.Layer places = tile.getLayer("places");
+        assertEquals(MVTTile.GEOMETRY_POINT, places.getFeatureType(0));
+        assertEquals(1, places.getPartCount(0));
+        assertEquals(2, places.getPartCount(1)); // multi point, one part per point
+        assertPoint(places, places.getFirstPoint(places.getFirstPart(1) + 1), 3100, 3100);
+    }
+
+    @Test
+    public void testDecodeProperties() throws Exception
+    {
+        MVTTile tile = MVTTile.decode(readTile(TILE_PATH));
+
+        MVTTile.Layer places = tile.getLayer("places");
+        assertEquals("Alpha 0/0/0", places.getFeatureProperty(0, "name"));
+        assertEquals(1.25, places.getFeatureProperty(0, "rank"));
+        assertEquals(Boolean.TRUE, places.getFeatureProperty(0, "capital"));
+        assertNull(places.getFeatureProperty(1, "rank"));
+
+        MVTTile.Layer roads = tile.getLayer("roads");
+        Map<String, Object> properties = roads.getFeatureProperties(0);
+        assertEquals(3, properties.size());
+        assertEquals("primary", properties.get("class"));
+        assertEquals(4L, properties.get("lanes"));
+        assertEquals(Boolean.FALSE, properties.get("oneway"));
+        assertEquals(-1L, roads.getFeatureProperty(1, "lanes"));
+    }
+
+    @Test
+    public void testDecodeGzippedTile() throws Exception
+    {
+        ByteBuffer buffer = readTile(GZIPPED_TILE_PATH);
+        int position = buffer.position();
+        MVTTile tile = MVTTile.decode(buffer);
+
+        assertEquals(position, buffer.position());
+        assertEquals("Alpha 1/1/1", tile.getLayer("places").getFeatureProperty(0, "name"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testDecodeTruncatedTile() throws Exception
+    {
+        ByteBuffer buffer = readTile(TILE_PATH);
+        buffer.limit(buffer.limit() / 2);
+        MVTTile.decode(buffer);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecodeNullBuffer() throws Exception
+    {
+        MVTTile.decode(null);
+    }
+
+    private static void assertPoint(MVTTile.Layer layer, int point, int x, int y)
+    {
+        assertEquals(x, layer.getCoordinates()[2 * point]);
+        assertEquals(y, layer.getCoordinates()[2 * point + 1]);
+    }
+
+    private static ByteBuffer readTile(String path) throws IOException
+    {
+        return WWIO.readFileToBuffer(new File(path));
+    }
+}
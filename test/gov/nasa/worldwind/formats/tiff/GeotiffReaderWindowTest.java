@@ -0,0 +1,363 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.formats.tiff;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.data.*;
+import gov.nasa.worldwind.geom.Sector;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import javax.imageio.*;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class GeotiffReaderWindowTest
+{
+    private File tmpFile;
+
+    @After
+    public void tearDown()
+    {
+        if (this.tmpFile != null)
+            this.tmpFile.delete();
+    }
+
+    @Test
+    public void testElevationWindow() throws Exception
+    {
+        GeotiffReader reader = new GeotiffReader("testData/elev16_wgs84_512x512.tif");
+        try
+        {
+            ByteBufferRaster full = (ByteBufferRaster) reader.readDataRaster(0);
+            Rectangle window = new Rectangle(100, 50, 200, 120);
+            ByteBufferRaster part = (ByteBufferRaster) reader.readDataRaster(0, window, 1);
+
+            assertEquals(window.width, part.getWidth());
+            assertEquals(window.height, part.getHeight());
+            for (int y = 0; y < window.height; y++)
+            {
+                for (int x = 0; x < window.width; x++)
+                {
+                    assertEquals(full.getDoubleAtPosition(window.y + y, window.x + x),
+                        part.getDoubleAtPosition(y, x), 0d);
+                }
+            }
+
+            // Elevation sectors span the centers of the edge pixels.
+            Sector sector = full.getSector();
+            double dLon = sector.getDeltaLonDegrees() / (full.getWidth() - 1);
+            double dLat = sector.getDeltaLatDegrees() / (full.getHeight() - 1);
+            assertEquals(sector.getMinLongitude().degrees + window.x * dLon,
+                part.getSector().getMinLongitude().degrees, 1e-9);
+            assertEquals(sector.getMaxLatitude().degrees - window.y * dLat,
+                part.getSector().getMaxLatitude().degrees, 1e-9);
+            assertEquals((window.height - 1) * dLat, part.getSector().getDeltaLatDegrees(), 1e-9);
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testSubsampledFloatWindow() throws Exception
+    {
+        GeotiffReader reader = new GeotiffReader("testData/sba_elev32_wgs84_512x512.tif");
+        try
+        {
+            ByteBufferRaster full = (ByteBufferRaster) reader.readDataRaster(0);
+            ByteBufferRaster part = (ByteBufferRaster) reader.readDataRaster(0, new Rectangle(0, 0, 512, 512), 4);
+
+            assertEquals(128, part.getWidth());
+            assertEquals(128, part.getHeight());
+            for (int y = 0; y < 128; y++)
+            {
+                for (int x = 0; x < 128; x++)
+                {
+                    assertEquals(full.getDoubleAtPosition(4 * y, 4 * x), part.getDoubleAtPosition(y, x), 0d);
+                }
+            }
+
+            Sector sector = full.getSector();
+            double dLon = sector.getDeltaLonDegrees() / (full.getWidth() - 1);
+            assertEquals(sector.getMaxLatitude(), part.getSector().getMaxLatitude());
+            assertEquals(sector.getMinLongitude(), part.getSector().getMinLongitude());
+            assertEquals(127 * 4 * dLon, part.getSector().getDeltaLonDegrees(), 1e-9);
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testCachedRasterDrawsWindow() throws Exception
+    {
+        File file = new File("testData/elev16_wgs84_512x512.tif");
+        GeotiffRasterReader reader = new GeotiffRasterReader();
+        CachedDataRaster cached = new CachedDataRaster(file, null, reader, null);
+        DataRaster full = reader.read(file, null)[0];
+
+        // A sector covering a small part of the raster, drawn at about the raster's resolution, is read as a window.
+        Sector sector = full.getSector();
+        Sector request = Sector.fromDegrees(
+            sector.getMinLatitude().degrees + 0.3 * sector.getDeltaLatDegrees(),
+            sector.getMinLatitude().degrees + 0.5 * sector.getDeltaLatDegrees(),
+            sector.getMinLongitude().degrees + 0.1 * sector.getDeltaLonDegrees(),
+            sector.getMinLongitude().degrees + 0.35 * sector.getDeltaLonDegrees());
+        ByteBufferRaster expected = createElevationCanvas(request);
+        ByteBufferRaster actual = createElevationCanvas(request);
+
+        full.drawOnTo(expected);
+        cached.drawOnTo(actual);
+
+        for (int y = 0; y < expected.getHeight(); y++)
+        {
+            for (int x = 0; x < expected.getWidth(); x++)
+            {
+                assertEquals(expected.getDoubleAtPosition(y, x), actual.getDoubleAtPosition(y, x), 0d);
+            }
+        }
+    }
+
+    @Test
+    public void testCachedRasterFallsBackToFullRead() throws Exception
+    {
+        File file = new File("testData/elev16_wgs84_512x512.tif");
+        GeotiffRasterReader reader = new GeotiffRasterReader()
+        {
+            @Override
+            public DataRaster readWindow(Object source, AVList params, Sector sector, int width, int height)
+                throws IOException
+            {
+                throw new IOException("Window not readable");
+            }
+        };
+        CachedDataRaster cached = new CachedDataRaster(file, null, reader, null);
+        DataRaster full = reader.read(file, null)[0];
+
+        Sector sector = full.getSector();
+        Sector request = Sector.fromDegrees(
+            sector.getMinLatitude().degrees + 0.3 * sector.getDeltaLatDegrees(),
+            sector.getMinLatitude().degrees + 0.5 * sector.getDeltaLatDegrees(),
+            sector.getMinLongitude().degrees + 0.1 * sector.getDeltaLonDegrees(),
+            sector.getMinLongitude().degrees + 0.35 * sector.getDeltaLonDegrees());
+        ByteBufferRaster expected = createElevationCanvas(request);
+        ByteBufferRaster actual = createElevationCanvas(request);
+
+        full.drawOnTo(expected);
+        cached.drawOnTo(actual);
+
+        for (int y = 0; y < expected.getHeight(); y++)
+        {
+            for (int x = 0; x < expected.getWidth(); x++)
+            {
+                assertEquals(expected.getDoubleAtPosition(y, x), actual.getDoubleAtPosition(y, x), 0d);
+            }
+        }
+    }
+
+    @Test
+    public void testUnsupportedCompressionNotWindowed() throws Exception
+    {
+        BufferedImage image = new BufferedImage(300, 200, BufferedImage.TYPE_3BYTE_BGR);
+        this.tmpFile = File.createTempFile("GeotiffReaderWindowTest", ".tif");
+        this.writeTiledTiff(image, "PackBits", this.tmpFile);
+
+        GeotiffReader reader = new GeotiffReader(this.tmpFile);
+        try
+        {
+            assertFalse(reader.canReadWindow(0));
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testBilevelImageNotWindowed() throws Exception
+    {
+        BufferedImage image = new BufferedImage(300, 200, BufferedImage.TYPE_BYTE_BINARY);
+        this.tmpFile = File.createTempFile("GeotiffReaderWindowTest", ".tif");
+        this.writeTiledTiff(image, null, this.tmpFile);
+
+        GeotiffReader reader = new GeotiffReader(this.tmpFile);
+        try
+        {
+            assertFalse(reader.canReadWindow(0));
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testSupportedImageWindowed() throws Exception
+    {
+        GeotiffReader reader = new GeotiffReader("testData/sba_rgb_wgs84_512x512.tif");
+        try
+        {
+            assertTrue(reader.canReadWindow(0));
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testColorWindow() throws Exception
+    {
+        GeotiffReader reader = new GeotiffReader("testData/sba_rgb_wgs84_512x512.tif");
+        try
+        {
+            BufferedImage full = reader.read();
+            Rectangle window = new Rectangle(400, 480, 200, 100); // clipped to the image
+            BufferedImage part = ((BufferedImageRaster) reader.readDataRaster(0, window, 1)).getBufferedImage();
+
+            assertEquals(112, part.getWidth());
+            assertEquals(32, part.getHeight());
+            assertPixelsEqual(full, 400, 480, 1, part);
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testTiledLZW() throws Exception
+    {
+        this.assertTiledImageRead("LZW");
+    }
+
+    @Test
+    public void testTiledDeflate() throws Exception
+    {
+        this.assertTiledImageRead("Deflate");
+    }
+
+    private void assertTiledImageRead(String compression) throws Exception
+    {
+        BufferedImage image = new BufferedImage(300, 200, BufferedImage.TYPE_3BYTE_BGR);
+        Random random = new Random(7);
+        for (int y = 0; y < image.getHeight(); y++)
+        {
+            for (int x = 0; x < image.getWidth(); x++)
+            {
+                // Smooth gradients with noise compress to varied LZW code lengths.
+                image.setRGB(x, y, (x << 16) | (y << 8) | random.nextInt(256));
+            }
+        }
+
+        this.tmpFile = File.createTempFile("GeotiffReaderWindowTest", ".tif");
+        this.writeTiledTiff(image, compression, this.tmpFile);
+
+        GeotiffReader reader = new GeotiffReader(this.tmpFile);
+        try
+        {
+            assertTrue(reader.isTiled(0));
+            assertTrue(reader.isCompressed(0));
+
+            BufferedImage full = reader.read();
+            assertPixelsEqual(image, 0, 0, 1, full);
+
+            BufferedImage part = ((BufferedImageRaster) reader.readDataRaster(0, new Rectangle(30, 70, 150, 90), 3))
+                .getBufferedImage();
+            assertEquals(50, part.getWidth());
+            assertEquals(30, part.getHeight());
+            assertPixelsEqual(image, 31, 71, 3, part);
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    private void writeTiledTiff(BufferedImage image, String compression, File file) throws Exception
+    {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("tiff").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setTilingMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setTiling(64, 48, 0, 0);
+        if (compression != null)
+        {
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionType(compression);
+        }
+        else
+        {
+            param.setCompressionMode(ImageWriteParam.MODE_DISABLED);
+        }
+
+        ImageOutputStream out = ImageIO.createImageOutputStream(file);
+        try
+        {
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        }
+        finally
+        {
+            out.close();
+            writer.dispose();
+        }
+    }
+
+    private static ByteBufferRaster createElevationCanvas(Sector sector)
+    {
+        AVList params = new AVListImpl();
+        params.setValue(AVKey.PIXEL_FORMAT, AVKey.ELEVATION);
+        params.setValue(AVKey.DATA_TYPE, AVKey.INT16);
+        params.setValue(AVKey.BYTE_ORDER, AVKey.BIG_ENDIAN);
+        return new ByteBufferRaster(64, 64, sector, params);
+    }
+
+    private static void assertPixelsEqual(BufferedImage expected, int x0, int y0, int step, BufferedImage actual)
+    {
+        for (int y = 0; y < actual.getHeight(); y++)
+        {
+            for (int x = 0; x < actual.getWidth(); x++)
+            {
+                assertEquals("Pixel " + x + "," + y, expected.getRGB(x0 + step * x, y0 + step * y),
+                    actual.getRGB(x, y));
+            }
+        }
+    }
+}
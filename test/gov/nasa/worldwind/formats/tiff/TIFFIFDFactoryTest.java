@@ -0,0 +1,107 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.formats.tiff;
+
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class TIFFIFDFactoryTest
+{
+    private File tmpFile;
+
+    @After
+    public void tearDown()
+    {
+        if (this.tmpFile != null)
+            this.tmpFile.delete();
+    }
+
+    @Test
+    public void testEntryData() throws Exception
+    {
+        TiffIFDEntry entry = this.readEntry(4, 12);
+
+        assertArrayEquals(new long[] {1, 2, 3, 4}, entry.getAsLongs());
+    }
+
+    @Test(expected = IOException.class)
+    public void testEntryDataTooLarge() throws Exception
+    {
+        // 2^30 LONG values need 4 GB, more than a buffer can hold.
+        this.readEntry(0x40000000, 12);
+    }
+
+    @Test(expected = IOException.class)
+    public void testEntryDataBeyondEndOfFile() throws Exception
+    {
+        this.readEntry(4, 20);
+    }
+
+    /**
+     * Writes a file holding a StripOffsets IFD entry of LONG values followed by the values 1 through 4, then reads the
+     * entry.
+     */
+    private TiffIFDEntry readEntry(long count, long offset) throws IOException
+    {
+        ByteBuffer bb = ByteBuffer.allocate(28).order(ByteOrder.LITTLE_ENDIAN);
+        bb.putShort((short) Tiff.Tag.STRIP_OFFSETS).putShort((short) Tiff.Type.LONG);
+        bb.putInt((int) count).putInt((int) offset);
+        bb.putInt(1).putInt(2).putInt(3).putInt(4);
+
+        this.tmpFile = File.createTempFile("TIFFIFDFactoryTest", ".tif");
+        FileOutputStream out = new FileOutputStream(this.tmpFile);
+        try
+        {
+            out.write(bb.array());
+        }
+        finally
+        {
+            out.close();
+        }
+
+        FileChannel fc = new RandomAccessFile(this.tmpFile, "r").getChannel();
+        try
+        {
+            return TIFFIFDFactory.create(fc, ByteOrder.LITTLE_ENDIAN);
+        }
+        finally
+        {
+            fc.close();
+        }
+    }
+}
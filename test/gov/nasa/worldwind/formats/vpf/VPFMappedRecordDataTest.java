@@ -0,0 +1,162 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+package gov.nasa.worldwind.formats.vpf;
+
+import gov.nasa.worldwind.util.WWIO;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class VPFMappedRecordDataTest
+{
+    private static final short[] TILE_IDS = {1, 2, 1, 3, 1};
+    private static final String[] NAMES = {"alpha", "", "gamma", "delta", "epsilon"};
+
+    private File dir;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        this.dir = File.createTempFile("VPFMappedRecordDataTest", "");
+        this.dir.delete();
+        this.dir.mkdirs();
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        WWIO.deleteDirectory(this.dir);
+        this.dir.delete();
+    }
+
+    @Test
+    public void testFixedLengthTable() throws Exception
+    {
+        File file = this.writeTable("fixed.pft", false);
+        VPFMappedRecordData mapped = new VPFTableReader().open(file);
+        VPFBufferedRecordData buffered = new VPFTableReader().read(file);
+
+        assertEquals(TILE_IDS.length, mapped.getNumRecords());
+        assertRecordsEqual(buffered, mapped, "id", "tile_id", "value");
+        assertTrue(Arrays.equals(new int[] {1, 3, 5}, mapped.getRecordIds("tile_id", 1)));
+        assertTrue(Arrays.equals(new int[] {4}, mapped.getRecordIds("tile_id", 3)));
+        assertEquals(0, mapped.getRecordIds("tile_id", 7).length);
+        assertEquals(0, mapped.getRecordIds("no_such_column", 1).length);
+    }
+
+    @Test
+    public void testVariableLengthTable() throws Exception
+    {
+        File file = this.writeTable("variable.lft", true);
+        VPFMappedRecordData mapped = VPFUtils.openTable(file);
+        VPFBufferedRecordData buffered = VPFUtils.readTable(file);
+
+        assertNotNull(mapped);
+        assertEquals(TILE_IDS.length, mapped.getNumRecords());
+        assertRecordsEqual(buffered, mapped, "id", "name", "tile_id");
+        assertFalse(mapped.getRecord(2).hasValue("name"));
+        assertEquals("delta", mapped.getRecord(4).getValue("name"));
+        // The tile_id column follows a variable length column, so the index decodes the preceding fields.
+        assertTrue(Arrays.equals(new int[] {1, 3, 5}, mapped.getRecordIds("tile_id", 1)));
+        assertTrue(Arrays.equals(new int[] {2}, mapped.getRecordIds("tile_id", 2)));
+    }
+
+    private static void assertRecordsEqual(VPFBufferedRecordData expected, VPFMappedRecordData actual,
+        String... names)
+    {
+        int count = 0;
+        for (VPFRecord record : actual)
+        {
+            VPFRecord expectedRecord = expected.getRecord(record.getId());
+            for (String name : names)
+            {
+                assertEquals(name, expectedRecord.getValue(name), record.getValue(name));
+                assertEquals(name, expectedRecord.hasValue(name), record.hasValue(name));
+            }
+            count++;
+        }
+
+        assertEquals(expected.getNumRecords(), count);
+    }
+
+    /**
+     * Writes a table with an integer row id, a short tile id and either a float value or a variable length name. A
+     * variable-length index file is written for tables with a name column.
+     */
+    private File writeTable(String name, boolean variableLength) throws IOException
+    {
+        String columns = variableLength ?
+            "id=I,1,P,Row Identifier,-,-,-,:name=T,*,N,Name,-,-,-,:tile_id=S,1,N,Tile Reference,-,-,-,:"
+            : "id=I,1,P,Row Identifier,-,-,-,:tile_id=S,1,N,Tile Reference,-,-,-,:value=F,1,N,Value,-,-,-,:";
+        byte[] header = ("L;Test Table;-;" + columns + ";").getBytes(StandardCharsets.US_ASCII);
+
+        ByteBuffer table = ByteBuffer.allocate(4096).order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer index = ByteBuffer.allocate(8 + 8 * TILE_IDS.length).order(ByteOrder.LITTLE_ENDIAN);
+        table.putInt(header.length).put(header);
+        index.putInt(TILE_IDS.length).putInt(header.length);
+
+        for (int i = 0; i < TILE_IDS.length; i++)
+        {
+            int offset = table.position();
+            table.putInt(i + 1);
+            if (variableLength)
+            {
+                byte[] text = NAMES[i].getBytes(StandardCharsets.US_ASCII);
+                table.putInt(text.length).put(text);
+                table.putShort(TILE_IDS[i]);
+            }
+            else
+            {
+                table.putShort(TILE_IDS[i]);
+                table.putFloat(10.5f * i);
+            }
+            index.putInt(offset).putInt(table.position() - offset);
+        }
+
+        File file = new File(this.dir, name);
+        table.flip();
+        WWIO.saveBuffer(table, file);
+
+        if (variableLength)
+        {
+            index.flip();
+            WWIO.saveBuffer(index, new File(this.dir, VPFTableReader.getRecordIndexFilename(name)));
+        }
+
+        return file;
+    }
+}
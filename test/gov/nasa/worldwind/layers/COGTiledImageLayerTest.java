@@ -0,0 +1,116 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.layers;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.util.TileKey;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.awt.image.BufferedImage;
+import java.io.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class COGTiledImageLayerTest
+{
+    private static final String IMAGE_PATH = "testData/cog/rgb_cog.tif";
+
+    private COGTiledImageLayer layer;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        AVList params = new AVListImpl();
+        params.setValue(AVKey.TILE_WIDTH, 64);
+        params.setValue(AVKey.TILE_HEIGHT, 64);
+
+        this.layer = new COGTiledImageLayer(new File(IMAGE_PATH).toURI().toURL(), params);
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.layer.dispose();
+    }
+
+    @Test
+    public void testConfiguration()
+    {
+        assertEquals(3, this.layer.getLevels().getNumLevels());
+        assertEquals(Sector.fromDegrees(45.5, 46, -121, -120.5), this.layer.getLevels().getSector());
+        assertEquals("rgb_cog.tif", this.layer.getName());
+        assertTrue(this.layer.isUseTransparentTextures());
+    }
+
+    @Test
+    public void testReadImage() throws Exception
+    {
+        // The south west tile of the last level covers pixels (0, 192) to (63, 255) of the file.
+        BufferedImage image = this.layer.readImage(this.createTile(2, 0, 0));
+        assertEquals(64, image.getWidth());
+        assertEquals(64, image.getHeight());
+        for (int y = 0; y < 64; y += 7)
+        {
+            for (int x = 0; x < 64; x += 7)
+            {
+                assertPixel(x, 192 + y, image.getRGB(x, y));
+            }
+        }
+
+        // The level zero tile is read from the lowest resolution overview.
+        image = this.layer.readImage(this.createTile(0, 0, 0));
+        assertPixel(4 * 10 + 1, 4 * 20 + 1, image.getRGB(10, 20));
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsElevations() throws Exception
+    {
+        new COGTiledImageLayer(new File("testData/cog/elev16_cog.tif").toURI().toURL());
+    }
+
+    private TextureTile createTile(int level, int row, int column)
+    {
+        TileKey key = new TileKey(level, row, column, this.layer.getLevels().getLevel(level).getCacheName());
+        return new TextureTile(this.layer.getLevels().computeSectorForKey(key), this.layer.getLevels().getLevel(level),
+            row, column);
+    }
+
+    private static void assertPixel(int x, int y, int argb)
+    {
+        assertEquals(0xff, (argb >>> 24) & 0xff);
+        assertEquals(x, (argb >> 16) & 0xff, 2);
+        assertEquals(y, (argb >> 8) & 0xff, 2);
+        assertEquals((x + y) / 2, argb & 0xff, 2);
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.layers;
+
+import gov.nasa.worldwind.BasicModel;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.render.*;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class ClusteringLayerTest
+{
+    private Globe globe;
+    private DrawContext dc;
+
+    @Before
+    public void setUp()
+    {
+        this.globe = new Earth();
+        this.dc = new DrawContextImpl();
+        this.dc.setModel(new BasicModel(this.globe, new LayerList()));
+        this.dc.setVerticalExaggeration(1);
+    }
+
+    @Test
+    public void testCountsAndCentroids()
+    {
+        ClusteringLayer layer = new ClusteringLayer();
+        layer.setMaxNodeItems(4);
+        List<PointPlacemark> placemarks = createPlacemarks(1000, 30, 40, -110, -90);
+        layer.addItems(placemarks);
+
+        assertEquals(1000, layer.getItemCount());
+        assertEquals(1000, layer.root.getCount());
+        assertNotNull("Root not subdivided", layer.root.children);
+        this.checkNode(layer.root);
+
+        double lat = 0;
+        double lon = 0;
+        for (PointPlacemark placemark : placemarks)
+        {
+            lat += placemark.getPosition().getLatitude().degrees;
+            lon += placemark.getPosition().getLongitude().degrees;
+        }
+        assertEquals(lat / 1000, layer.root.getPosition().getLatitude().degrees, 1e-9);
+        assertEquals(lon / 1000, layer.root.getPosition().getLongitude().degrees, 1e-9);
+    }
+
+    @Test
+    public void testRemoveCollapsesNodes()
+    {
+        ClusteringLayer layer = new ClusteringLayer();
+        layer.setMaxNodeItems(4);
+        List<PointPlacemark> placemarks = createPlacemarks(1000, 30, 40, -110, -90);
+        layer.addItems(placemarks);
+
+        for (PointPlacemark placemark : placemarks.subList(2, placemarks.size()))
+        {
+            layer.removeItem(placemark);
+        }
+
+        assertEquals(2, layer.getItemCount());
+        assertEquals(2, layer.root.getCount());
+        assertNull("Sparse root not collapsed", layer.root.children);
+        this.checkNode(layer.root);
+
+        layer.removeAllItems();
+        assertEquals(0, layer.getItemCount());
+        assertNull(layer.root.getPosition());
+    }
+
+    @Test
+    public void testUpdateItem()
+    {
+        ClusteringLayer layer = new ClusteringLayer();
+        layer.setMaxNodeItems(4);
+        layer.addItems(createPlacemarks(100, 30, 40, -110, -90));
+        PointPlacemark placemark = new PointPlacemark(Position.fromDegrees(-60, 80, 0));
+        layer.addItem(placemark);
+
+        placemark.moveTo(Position.fromDegrees(35, -100, 0));
+        layer.updateItem(placemark);
+
+        assertEquals(101, layer.getItemCount());
+        this.checkNode(layer.root);
+        assertTrue(layer.root.getSector().contains(placemark.getPosition()));
+        assertEquals(0, layer.root.children[1].getCount()); // the southeast quadrant is empty again
+    }
+
+    @Test
+    public void testSelectClustersByDistance()
+    {
+        ClusteringLayer layer = new ClusteringLayer();
+        List<PointPlacemark> placemarks = createPlacemarks(10000, 30, 40, -110, -90);
+        layer.addItems(placemarks);
+
+        List<ClusteringLayer.Cluster> clusters = new ArrayList<ClusteringLayer.Cluster>();
+        List<Object> items = new ArrayList<Object>();
+
+        // From far away the points form a few clusters accounting for every point.
+        this.select(layer, 10000e3, clusters, items);
+        assertTrue("No clusters selected", clusters.size() > 0);
+        assertTrue("Too many clusters selected", clusters.size() < placemarks.size() / 100);
+        int count = items.size();
+        for (ClusteringLayer.Cluster cluster : clusters)
+        {
+            count += cluster.getCount();
+        }
+        assertEquals(placemarks.size(), count);
+
+        // From close range the points in view are selected individually.
+        clusters.clear();
+        items.clear();
+        this.select(layer, 2e3, clusters, items);
+        assertTrue("No items selected", items.size() > 0);
+        assertTrue("Distant items selected", items.size() < placemarks.size() / 10);
+        assertTrue("Clusters selected at close range", clusters.size() < items.size());
+    }
+
+    private void select(ClusteringLayer layer, double altitude, List<ClusteringLayer.Cluster> clusters,
+        List<Object> items)
+    {
+        // Look straight down at 35N 100W.
+        Vec4 eye = this.globe.computePointFromPosition(Position.fromDegrees(35, -100, altitude));
+        Vec4 center = this.globe.computePointFromPosition(Position.fromDegrees(35, -100, 0));
+        Vec4 up = this.globe.computeNorthPointingTangentAtLocation(Angle.fromDegrees(35), Angle.fromDegrees(-100));
+        Matrix modelview = Matrix.fromViewLookAt(eye, center, up);
+        Frustum frustum = Frustum.fromPerspective(Angle.fromDegrees(45), 1024, 768, 1, 2 * altitude).transformBy(
+            modelview.getTranspose());
+        double pixelSizeScale = 2 * Math.tan(Math.toRadians(22.5)) / 1024;
+
+        layer.selectClusters(this.dc, frustum, eye, pixelSizeScale, clusters, items);
+    }
+
+    /** Verifies that each node's count and centroid agree with the items beneath it. */
+    private int checkNode(ClusteringLayer.Cluster node)
+    {
+        int count = node.entries.size();
+        double lat = 0;
+        for (ClusteringLayer.Entry entry : node.entries)
+        {
+            assertSame(node, entry.node);
+            assertTrue(node.getSector().contains(entry.item.getPosition()));
+            lat += entry.latitude;
+        }
+
+        if (node.children != null)
+        {
+            assertTrue("Inner node holds items", node.entries.isEmpty());
+            for (ClusteringLayer.Cluster child : node.children)
+            {
+                if (child != null)
+                {
+                    count += this.checkNode(child);
+                    lat += child.sumLatitude;
+                }
+            }
+        }
+
+        assertEquals(count, node.getCount());
+        assertEquals(lat, node.sumLatitude, 1e-6);
+        return count;
+    }
+
+    private static List<PointPlacemark> createPlacemarks(int count, double minLat, double maxLat, double minLon,
+        double maxLon)
+    {
+        Random random = new Random(1);
+        List<PointPlacemark> placemarks = new ArrayList<PointPlacemark>(count);
+        for (int i = 0; i < count; i++)
+        {
+            placemarks.add(new PointPlacemark(Position.fromDegrees(minLat + (maxLat - minLat) * random.nextDouble(),
+                minLon + (maxLon - minLon) * random.nextDouble(), 0)));
+        }
+
+        return placemarks;
+    }
+}
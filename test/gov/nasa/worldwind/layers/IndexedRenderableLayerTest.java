@@ -0,0 +1,154 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.layers;
+
+import gov.nasa.worldwind.BasicModel;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.render.*;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class IndexedRenderableLayerTest
+{
+    private Globe globe;
+    private DrawContext dc;
+    private Frustum frustum;
+
+    @Before
+    public void setUp()
+    {
+        this.globe = new Earth();
+        this.dc = new DrawContextImpl();
+        this.dc.setModel(new BasicModel(this.globe, new LayerList()));
+        this.dc.setVerticalExaggeration(1);
+
+        // Look straight down from 500 km above 38N 100W.
+        Vec4 eye = this.globe.computePointFromPosition(Position.fromDegrees(38, -100, 500e3));
+        Vec4 center = this.globe.computePointFromPosition(Position.fromDegrees(38, -100, 0));
+        Vec4 up = this.globe.computeNorthPointingTangentAtLocation(Angle.fromDegrees(38), Angle.fromDegrees(-100));
+        Matrix modelview = Matrix.fromViewLookAt(eye, center, up);
+        this.frustum = Frustum.fromPerspective(Angle.fromDegrees(45), 1024, 768, 1, 1e6).transformBy(
+            modelview.getTranspose());
+    }
+
+    @Test
+    public void testSelectsRenderablesInViewInOrder()
+    {
+        IndexedRenderableLayer layer = new IndexedRenderableLayer();
+        List<PointPlacemark> placemarks = createPlacemarks(10000);
+        layer.addRenderables(placemarks);
+
+        List<Renderable> expected = new ArrayList<Renderable>();
+        for (PointPlacemark placemark : placemarks)
+        {
+            if (this.frustum.contains(this.globe.computePointFromPosition(placemark.getPosition())))
+                expected.add(placemark);
+        }
+
+        List<Renderable> selected = new ArrayList<Renderable>();
+        layer.selectRenderables(this.dc, this.frustum, selected);
+
+        assertTrue("No placemarks in view", expected.size() > 0);
+        assertTrue("Too many placemarks selected", selected.size() < placemarks.size() / 10);
+        selected.retainAll(expected);
+        assertEquals("Visible placemarks not selected in order", expected, selected);
+    }
+
+    @Test
+    public void testTrackMovables()
+    {
+        IndexedRenderableLayer layer = new IndexedRenderableLayer();
+        layer.addRenderables(createPlacemarks(1000));
+        PointPlacemark placemark = new PointPlacemark(Position.fromDegrees(-60, 80, 0));
+        layer.addRenderable(placemark);
+
+        assertFalse(this.select(layer).contains(placemark));
+
+        placemark.moveTo(Position.fromDegrees(38, -100, 0));
+        assertTrue("Moved placemark not selected", this.select(layer).contains(placemark));
+
+        layer.setTrackMovables(false);
+        placemark.moveTo(Position.fromDegrees(-60, 80, 0));
+        assertTrue(this.select(layer).contains(placemark)); // still indexed at its previous position
+        layer.updateRenderable(placemark);
+        assertFalse("Updated placemark still selected", this.select(layer).contains(placemark));
+    }
+
+    @Test
+    public void testRemoveAndUnboundedRenderables()
+    {
+        IndexedRenderableLayer layer = new IndexedRenderableLayer();
+        PointPlacemark placemark = new PointPlacemark(Position.fromDegrees(38, -100, 0));
+        Renderable unbounded = new Renderable()
+        {
+            public void render(DrawContext dc)
+            {
+            }
+        };
+        layer.addRenderable(placemark);
+        layer.addRenderable(unbounded);
+
+        assertEquals(Arrays.asList(placemark, unbounded), this.select(layer));
+
+        layer.removeRenderable(placemark);
+        assertEquals(Arrays.asList(unbounded), this.select(layer));
+
+        layer.removeAllRenderables();
+        assertTrue(this.select(layer).isEmpty());
+        assertEquals(0, layer.getNumRenderables());
+    }
+
+    private List<Renderable> select(IndexedRenderableLayer layer)
+    {
+        List<Renderable> selected = new ArrayList<Renderable>();
+        layer.selectRenderables(this.dc, this.frustum, selected);
+        return selected;
+    }
+
+    private static List<PointPlacemark> createPlacemarks(int count)
+    {
+        Random random = new Random(1);
+        List<PointPlacemark> placemarks = new ArrayList<PointPlacemark>(count);
+        for (int i = 0; i < count; i++)
+        {
+            placemarks.add(new PointPlacemark(Position.fromDegrees(180 * random.nextDouble() - 90,
+                360 * random.nextDouble() - 180, 0)));
+        }
+
+        return placemarks;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.layers;
+
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.avlist.AVList;
+import gov.nasa.worldwind.util.WWIO;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class SurfaceImageLayerTest
+{
+    private static final String IMAGE_PATH = "testData/sba_rgb_wgs84_512x512.tif";
+
+    private File imageFile;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        this.imageFile = File.createTempFile("SurfaceImageLayerTest", ".tif");
+        WWIO.copyFile(new File(IMAGE_PATH), this.imageFile);
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        File[] pyramids = new File(WorldWind.getDataFileStore().getWriteLocation(),
+            SurfaceImageLayer.PYRAMID_CACHE_PATH).listFiles();
+        if (pyramids != null)
+        {
+            for (File dir : pyramids)
+            {
+                if (dir.getName().startsWith(this.imageFile.getName()))
+                    WWIO.deleteDirectory(dir);
+            }
+        }
+
+        this.imageFile.delete();
+    }
+
+    @Test
+    public void testLargeImageIsInstalledAsPyramid() throws Exception
+    {
+        CountingLayer layer = new CountingLayer();
+        layer.setPyramidThreshold(256 * 256);
+        layer.addImage(this.imageFile.getPath());
+
+        assertEquals(1, layer.installCount);
+        assertEquals(1, layer.getNumImages());
+        assertFalse("Image was tiled in memory", layer.getRenderables().iterator().hasNext());
+        assertTrue(layer.pyramidTable.get(this.imageFile.getPath()) instanceof TiledImageLayer);
+
+        layer.removeImage(this.imageFile.getPath());
+        assertEquals(0, layer.getNumImages());
+    }
+
+    @Test
+    public void testInstalledPyramidIsReused() throws Exception
+    {
+        CountingLayer first = new CountingLayer();
+        first.setPyramidThreshold(256 * 256);
+        first.addImage(this.imageFile.getPath());
+
+        CountingLayer second = new CountingLayer();
+        second.setPyramidThreshold(256 * 256);
+        second.addImage(this.imageFile.getPath());
+
+        assertEquals(1, first.installCount);
+        assertEquals(0, second.installCount);
+        assertEquals(1, second.getNumImages());
+    }
+
+    @Test
+    public void testSmallImageIsReadIntoMemory() throws Exception
+    {
+        CountingLayer layer = new CountingLayer();
+        layer.addImage(this.imageFile.getPath());
+
+        assertEquals(0, layer.installCount);
+        assertTrue(layer.pyramidTable.isEmpty());
+        assertTrue(layer.getRenderables().iterator().hasNext());
+    }
+
+    private static class CountingLayer extends SurfaceImageLayer
+    {
+        private int installCount;
+
+        @Override
+        protected Object installImagePyramid(File file, AVList params, AVList storeParams)
+        {
+            this.installCount++;
+            return super.installImagePyramid(file, params, storeParams);
+        }
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.layers;
+
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.util.texture.*;
+import gov.nasa.worldwind.formats.dds.DDSCompressor;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.render.*;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class TextureDecodePipelineTest
+{
+    private TextureDecodePipeline pipeline;
+
+    @Before
+    public void setUp()
+    {
+        this.pipeline = new TextureDecodePipeline(2);
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.pipeline.shutdown();
+    }
+
+    @Test
+    public void testDecodePremultipliesAlpha() throws Exception
+    {
+        BufferedImage image = createImage(BufferedImage.TYPE_4BYTE_ABGR, 37, 19);
+        TextureData data = this.pipeline.decodeTexture(encode(image, "png"), null, false);
+
+        assertEquals(37, data.getWidth());
+        assertEquals(19, data.getHeight());
+        assertEquals(GL.GL_RGBA, data.getPixelFormat());
+        assertEquals(GL.GL_UNSIGNED_BYTE, data.getPixelType());
+        assertTrue(data.getMustFlipVertically());
+        assertPixels(image, true, (ByteBuffer) data.getBuffer());
+    }
+
+    @Test
+    public void testDecodeOpaqueImage() throws Exception
+    {
+        BufferedImage image = createImage(BufferedImage.TYPE_INT_RGB, 40, 24);
+        TextureData data = this.pipeline.decodeTexture(encode(image, "png"), null, true);
+
+        assertEquals(GL.GL_RGB, data.getPixelFormat());
+        assertTrue(data.getMipmap());
+        assertPixels(image, false, (ByteBuffer) data.getBuffer());
+    }
+
+    @Test
+    public void testDecodeIndexedColorImage() throws Exception
+    {
+        File file = new File("testData/32x32-icon-nasa-indexed-color.png");
+        BufferedImage image = ImageIO.read(file);
+        TextureData data = this.pipeline.decodeTexture(ByteBuffer.wrap(Files.readAllBytes(file.toPath())),
+            null, false);
+
+        assertEquals(image.getColorModel().hasAlpha() ? GL.GL_RGBA : GL.GL_RGB, data.getPixelFormat());
+        assertPixels(image, image.getColorModel().hasAlpha(), (ByteBuffer) data.getBuffer());
+    }
+
+    @Test
+    public void testDecodeDDS() throws Exception
+    {
+        BufferedImage image = createImage(BufferedImage.TYPE_INT_RGB, 64, 64);
+        ByteBuffer dds = DDSCompressor.compressImage(image);
+        TextureData data = this.pipeline.decodeTexture(dds, null, false);
+
+        assertEquals(64, data.getWidth());
+        assertTrue(data.isDataCompressed());
+
+        // Non-DDS images are compressed when DDS is the requested texture format.
+        data = this.pipeline.decodeTexture(encode(image, "png"), "image/dds", false);
+        assertTrue(data.isDataCompressed());
+    }
+
+    @Test
+    public void testBufferReuse() throws Exception
+    {
+        ByteBuffer encoded = encode(createImage(BufferedImage.TYPE_4BYTE_ABGR, 32, 32), "png");
+
+        TextureData first = this.pipeline.decodeTexture(encoded, null, false);
+        ByteBuffer buffer = (ByteBuffer) first.getBuffer();
+        assertTrue(buffer.isDirect());
+        first.flush();
+        first.flush(); // a second flush must not return the buffer twice
+        assertEquals(buffer.capacity(), this.pipeline.getPooledBytes());
+
+        TextureData second = this.pipeline.decodeTexture(encoded, null, false);
+        assertSame(buffer, second.getBuffer());
+        assertEquals(0, this.pipeline.getPooledBytes());
+        assertEquals(1, this.pipeline.getReusedBufferCount());
+
+        this.pipeline.setMaxPooledBytes(0);
+        second.flush();
+        assertEquals(0, this.pipeline.getPooledBytes());
+    }
+
+    @Test
+    public void testSubmitQueuesDecodedTextures() throws Exception
+    {
+        int numTiles = 12;
+        ByteBuffer encoded = encode(createImage(BufferedImage.TYPE_3BYTE_BGR, 64, 64), "jpg");
+        final CountDownLatch latch = new CountDownLatch(numTiles + 1);
+        final List<TextureTile> decoded = Collections.synchronizedList(new ArrayList<TextureTile>());
+        final List<TextureTile> failed = Collections.synchronizedList(new ArrayList<TextureTile>());
+        TextureDecodePipeline.Listener listener = new TextureDecodePipeline.Listener()
+        {
+            public void textureDecoded(TextureDecodePipeline.Request request)
+            {
+                decoded.add(request.getTile());
+                latch.countDown();
+            }
+
+            public void textureDecodeFailed(TextureDecodePipeline.Request request)
+            {
+                failed.add(request.getTile());
+                latch.countDown();
+            }
+
+            public void textureUploaded(DrawContext dc, TextureDecodePipeline.Request request)
+            {
+            }
+
+            public void textureUploadFailed(DrawContext dc, TextureDecodePipeline.Request request)
+            {
+            }
+        };
+
+        List<TextureTile> tiles = new ArrayList<TextureTile>();
+        for (int i = 0; i < numTiles; i++)
+        {
+            TextureTile tile = new TextureTile(Sector.fromDegrees(0, 1, i, i + 1));
+            tiles.add(tile);
+            assertTrue(this.pipeline.submit(new TextureDecodePipeline.Request(tile, null, encoded.duplicate(), null,
+                false, listener)));
+            assertFalse("Duplicate request accepted", this.pipeline.submit(
+                new TextureDecodePipeline.Request(tile, null, encoded.duplicate(), null, false, listener)));
+        }
+
+        TextureTile corrupt = new TextureTile(Sector.fromDegrees(1, 2, 0, 1));
+        assertTrue(this.pipeline.submit(new TextureDecodePipeline.Request(corrupt, null,
+            ByteBuffer.wrap(new byte[] {1, 2, 3, 4, 5}), null, false, listener)));
+
+        assertTrue("Requests not completed", latch.await(30, TimeUnit.SECONDS));
+        assertEquals(numTiles, decoded.size());
+        assertEquals(Collections.singletonList(corrupt), failed);
+        assertEquals(numTiles, this.pipeline.getDecodedCount());
+        assertEquals(1, this.pipeline.getFailedCount());
+        assertEquals(numTiles, this.pipeline.getUploadQueueLength());
+        assertEquals(0, this.pipeline.getDecodeQueueLength());
+        assertTrue(this.pipeline.getAverageDecodeTime() > 0);
+        assertTrue(this.pipeline.getMaxDecodeTime() >= this.pipeline.getAverageDecodeTime());
+
+        // Decoded tiles remain pending until their textures are uploaded. Failed tiles may be requested again.
+        for (TextureTile tile : tiles)
+        {
+            assertTrue(this.pipeline.isPending(tile));
+        }
+        assertFalse(this.pipeline.isPending(corrupt));
+    }
+
+    @Test
+    public void testFailedUploadReturnsBuffer() throws Exception
+    {
+        ByteBuffer encoded = encode(createImage(BufferedImage.TYPE_4BYTE_ABGR, 32, 32), "png");
+        final CountDownLatch latch = new CountDownLatch(1);
+        final List<TextureTile> failed = new ArrayList<TextureTile>();
+        TextureDecodePipeline.Listener listener = new TextureDecodePipeline.Listener()
+        {
+            public void textureDecoded(TextureDecodePipeline.Request request)
+            {
+                latch.countDown();
+            }
+
+            public void textureDecodeFailed(TextureDecodePipeline.Request request)
+            {
+            }
+
+            public void textureUploaded(DrawContext dc, TextureDecodePipeline.Request request)
+            {
+            }
+
+            public void textureUploadFailed(DrawContext dc, TextureDecodePipeline.Request request)
+            {
+                failed.add(request.getTile());
+            }
+        };
+
+        // A tile whose texture cannot be created, as when the OpenGL texture creation fails.
+        TextureTile tile = new TextureTile(Sector.fromDegrees(0, 1, 0, 1))
+        {
+            @Override
+            protected Texture initializeTexture(DrawContext dc)
+            {
+                return null;
+            }
+        };
+
+        assertTrue(this.pipeline.submit(new TextureDecodePipeline.Request(tile, null, encoded, null, false,
+            listener)));
+        assertTrue("Request not decoded", latch.await(30, TimeUnit.SECONDS));
+        assertEquals(0, this.pipeline.getPooledBytes());
+
+        assertEquals(0, this.pipeline.uploadTextures(new DrawContextImpl()));
+        assertEquals(Collections.singletonList(tile), failed);
+        assertEquals(1, this.pipeline.getUploadFailedCount());
+        assertEquals(32 * 32 * 4, this.pipeline.getPooledBytes());
+        assertNull(tile.getTextureData());
+        assertFalse(this.pipeline.isPending(tile));
+    }
+
+    private static BufferedImage createImage(int type, int width, int height)
+    {
+        BufferedImage image = new BufferedImage(width, height, type);
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                int alpha = (x * 255 / (width - 1)) & 0xFF;
+                image.setRGB(x, y, (alpha << 24) | ((x * 7) & 0xFF) << 16 | ((y * 13) & 0xFF) << 8 | ((x + y) & 0xFF));
+            }
+        }
+
+        return image;
+    }
+
+    private static ByteBuffer encode(BufferedImage image, String format) throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(ImageIO.write(image, format, out));
+        return ByteBuffer.wrap(out.toByteArray());
+    }
+
+    private static void assertPixels(BufferedImage image, boolean hasAlpha, ByteBuffer buffer)
+    {
+        assertEquals(image.getWidth() * image.getHeight() * (hasAlpha ? 4 : 3), buffer.remaining());
+
+        for (int y = 0; y < image.getHeight(); y++)
+        {
+            for (int x = 0; x < image.getWidth(); x++)
+            {
+                int argb = image.getRGB(x, y);
+                int alpha = hasAlpha ? argb >>> 24 : 255;
+                int[] expected = new int[] {(argb >> 16) & 0xFF, (argb >> 8) & 0xFF, argb & 0xFF, alpha};
+                for (int i = 0; i < (hasAlpha ? 4 : 3); i++)
+                {
+                    int value = i < 3 ? (expected[i] * alpha + 127) / 255 : alpha;
+                    assertEquals("Pixel " + x + "," + y, value, buffer.get() & 0xFF);
+                }
+            }
+        }
+    }
+}
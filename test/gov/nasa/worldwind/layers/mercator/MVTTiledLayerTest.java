@@ -0,0 +1,300 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.layers.mercator;
+
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.cache.BasicDataFileStore;
+import gov.nasa.worldwind.formats.mvt.MVTTile;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.render.*;
+import gov.nasa.worldwind.util.*;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.*;
+import java.net.*;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class MVTTiledLayerTest
+{
+    private File cacheDir;
+    private CountingLayer layer;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        this.cacheDir = File.createTempFile("MVTTiledLayerTest", "");
+        this.cacheDir.delete();
+
+        this.layer = new CountingLayer(createParams(this.cacheDir.getName(), 3));
+        this.layer.setDataFileStore(new BasicDataFileStore(this.cacheDir));
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        WorldWind.getMemoryCache(MVTTiledLayer.MVTTileGeometry.class.getName()).clear();
+        WWIO.deleteDirectory(this.cacheDir);
+        this.cacheDir.delete();
+    }
+
+    @Test
+    public void testLoadLocalTile() throws Exception
+    {
+        MVTTiledLayer.MVTSurfaceTile tile = this.layer.createTopLevelTiles().get(0);
+
+        assertTrue(this.layer.loadTile(tile));
+        MVTTiledLayer.MVTTileGeometry geom = this.layer.lookupGeometry(tile);
+        assertNotNull(geom);
+        assertEquals(1, this.layer.tessellateCount);
+
+        assertEquals(3, geom.featureGroups.size());
+        MVTTiledLayer.FeatureGroup water = geom.featureGroups.get(0);
+        assertEquals("water", water.name);
+        assertTrue(water.interiorIndexRange.length > 0);
+        assertEquals(0, water.interiorIndexRange.length % 3);
+        assertTrue(water.outlineIndexRange.length > 0);
+        assertEquals(0, water.pointIndexRange.length);
+
+        MVTTiledLayer.FeatureGroup roads = geom.featureGroups.get(1);
+        assertEquals("roads", roads.name);
+        assertEquals(0, roads.interiorIndexRange.length);
+        assertEquals(8, roads.outlineIndexRange.length); // four segments
+        assertEquals(0, roads.pointIndexRange.length);
+
+        MVTTiledLayer.FeatureGroup places = geom.featureGroups.get(2);
+        assertEquals("places", places.name);
+        assertEquals(3, places.pointIndexRange.length);
+
+        // The first place is at tile coordinate (1000, 1000).
+        int index = geom.indices.get(places.pointIndexRange.location);
+        double lon = geom.vertices.get(2 * index) + geom.vertexOffset.x;
+        double lat = geom.vertices.get(2 * index + 1) + geom.vertexOffset.y;
+        assertEquals(-180 + 360 * 1000 / 4096.0, lon, 1e-4);
+        assertEquals(MercatorSector.gudermannian(1 - 2 * 1000 / 4096.0).degrees, lat, 1e-4);
+
+        for (int i = 0; i < geom.indices.limit(); i++) // every index refers to a vertex
+        {
+            assertTrue(geom.indices.get(i) >= 0 && geom.indices.get(i) < geom.vertexCount);
+        }
+    }
+
+    @Test
+    public void testLoadGzippedSubTile() throws Exception
+    {
+        MVTTiledLayer.MVTSurfaceTile parent = this.layer.createTopLevelTiles().get(0);
+        MVTTiledLayer.MVTSurfaceTile[] children = parent.createSubTiles(this.layer.getLevels().getLevel(1));
+
+        // Row 0, column 1 is the south east quadrant, zoom 1 tile x 1, y 1.
+        MVTTiledLayer.MVTSurfaceTile tile = children[1];
+        assertEquals(0, tile.getRow());
+        assertEquals(1, tile.getColumn());
+        assertEquals(0, tile.getSector().getMaxLatitude().degrees, 1e-9);
+        assertEquals(0, tile.getSector().getMinLongitude().degrees, 1e-9);
+
+        assertTrue(this.layer.loadTile(tile));
+        assertEquals(3, this.layer.lookupGeometry(tile).featureGroups.size());
+    }
+
+    @Test
+    public void testMissingLocalTileIsAbsent() throws Exception
+    {
+        MVTTiledLayer.MVTSurfaceTile tile = this.layer.createTopLevelTiles().get(0);
+        tile = tile.createSubTiles(this.layer.getLevels().getLevel(1))[0];
+        tile = tile.createSubTiles(this.layer.getLevels().getLevel(2))[0]; // the fixture has no zoom 2 tiles
+
+        assertFalse(this.layer.loadTile(tile));
+        assertNull(this.layer.lookupGeometry(tile));
+        assertTrue(this.layer.getLevels().isResourceAbsent(tile));
+        assertEquals(0, this.layer.tessellateCount);
+    }
+
+    @Test
+    public void testTessellationDiskCache() throws Exception
+    {
+        MVTTiledLayer.MVTSurfaceTile tile = this.layer.createTopLevelTiles().get(0);
+        assertTrue(this.layer.loadTile(tile));
+        MVTTiledLayer.MVTTileGeometry expected = this.layer.lookupGeometry(tile);
+
+        URL url = this.layer.getDataFileStore().findFile(this.layer.getTessellationPath(tile), false);
+        assertNotNull(url);
+
+        // Load the tile again from the disk cache, without tessellating.
+        WorldWind.getMemoryCache(MVTTiledLayer.MVTTileGeometry.class.getName()).clear();
+        assertTrue(this.layer.loadTile(tile));
+        assertEquals(1, this.layer.tessellateCount);
+        assertGeometryEquals(expected, this.layer.lookupGeometry(tile));
+    }
+
+    @Test
+    public void testTessellationDiskCacheDisabled() throws Exception
+    {
+        this.layer.setDiskCacheEnabled(false);
+        MVTTiledLayer.MVTSurfaceTile tile = this.layer.createTopLevelTiles().get(0);
+        assertTrue(this.layer.loadTile(tile));
+
+        assertNull(this.layer.getDataFileStore().findFile(this.layer.getTessellationPath(tile), false));
+    }
+
+    @Test
+    public void testStaleTessellationIsReplaced() throws Exception
+    {
+        MVTTiledLayer.MVTSurfaceTile tile = this.layer.createTopLevelTiles().get(0);
+        assertTrue(this.layer.loadTile(tile));
+
+        File file = WWIO.convertURLToFile(
+            this.layer.getDataFileStore().findFile(this.layer.getTessellationPath(tile), false));
+        assertTrue(file.setLastModified(WWIO.convertURLToFile(tile.getResourceURL()).lastModified() - 60000));
+
+        WorldWind.getMemoryCache(MVTTiledLayer.MVTTileGeometry.class.getName()).clear();
+        assertTrue(this.layer.loadTile(tile));
+        assertEquals(2, this.layer.tessellateCount);
+    }
+
+    @Test
+    public void testCorruptTessellationIsReplaced() throws Exception
+    {
+        MVTTiledLayer.MVTSurfaceTile tile = this.layer.createTopLevelTiles().get(0);
+        assertTrue(this.layer.loadTile(tile));
+        MVTTiledLayer.MVTTileGeometry expected = this.layer.lookupGeometry(tile);
+
+        File file = WWIO.convertURLToFile(
+            this.layer.getDataFileStore().findFile(this.layer.getTessellationPath(tile), false));
+        ByteBuffer truncated = WWIO.readFileToBuffer(file);
+        truncated.limit(truncated.limit() / 2);
+        WWIO.saveBuffer(truncated, file);
+
+        WorldWind.getMemoryCache(MVTTiledLayer.MVTTileGeometry.class.getName()).clear();
+        assertTrue(this.layer.loadTile(tile));
+        assertEquals(2, this.layer.tessellateCount);
+        assertGeometryEquals(expected, this.layer.lookupGeometry(tile));
+    }
+
+    @Test
+    public void testLayerAttributes() throws Exception
+    {
+        MVTTiledLayer.FeatureGroup water = new MVTTiledLayer.FeatureGroup("water");
+        assertSame(this.layer.getAttributes(), this.layer.determineActiveAttributes(water));
+
+        ShapeAttributes attrs = new BasicShapeAttributes();
+        this.layer.setLayerAttributes("water", attrs);
+        assertSame(attrs, this.layer.getLayerAttributes("water"));
+        assertSame(attrs, this.layer.determineActiveAttributes(water));
+
+        this.layer.setLayerAttributes("water", null);
+        assertSame(this.layer.getAttributes(), this.layer.determineActiveAttributes(water));
+    }
+
+    @Test
+    public void testStateKeyTracksAttributes() throws Exception
+    {
+        MVTTiledLayer.MVTSurfaceTile tile = this.layer.createTopLevelTiles().get(0);
+        assertTrue(this.layer.loadTile(tile));
+        tile.setGeometry(this.layer.lookupGeometry(tile));
+
+        Object key = tile.getStateKey(null);
+        assertEquals(key, tile.getStateKey(null));
+
+        this.layer.getAttributes().setOutlineWidth(3);
+        assertFalse(key.equals(tile.getStateKey(null)));
+    }
+
+    private static void assertGeometryEquals(MVTTiledLayer.MVTTileGeometry expected,
+        MVTTiledLayer.MVTTileGeometry actual)
+    {
+        assertNotNull(actual);
+        assertEquals(expected.vertexOffset, actual.vertexOffset);
+        assertEquals(expected.vertexCount, actual.vertexCount);
+        assertEquals(expected.vertices, actual.vertices);
+        assertEquals(expected.indices, actual.indices);
+        assertEquals(expected.featureGroups.size(), actual.featureGroups.size());
+
+        for (int i = 0; i < expected.featureGroups.size(); i++)
+        {
+            MVTTiledLayer.FeatureGroup e = expected.featureGroups.get(i);
+            MVTTiledLayer.FeatureGroup a = actual.featureGroups.get(i);
+            assertEquals(e.name, a.name);
+            assertEquals(e.interiorIndexRange.location, a.interiorIndexRange.location);
+            assertEquals(e.interiorIndexRange.length, a.interiorIndexRange.length);
+            assertEquals(e.outlineIndexRange.location, a.outlineIndexRange.location);
+            assertEquals(e.outlineIndexRange.length, a.outlineIndexRange.length);
+            assertEquals(e.pointIndexRange.location, a.pointIndexRange.location);
+            assertEquals(e.pointIndexRange.length, a.pointIndexRange.length);
+        }
+    }
+
+    private static AVList createParams(String cacheName, int numLevels)
+    {
+        AVList params = new AVListImpl();
+        params.setValue(AVKey.TILE_WIDTH, 256);
+        params.setValue(AVKey.TILE_HEIGHT, 256);
+        params.setValue(AVKey.DATA_CACHE_NAME, cacheName);
+        params.setValue(AVKey.SERVICE, new File("testData/mvt").toURI().toString());
+        params.setValue(AVKey.DATASET_NAME, "*");
+        params.setValue(AVKey.FORMAT_SUFFIX, ".mvt");
+        params.setValue(AVKey.NUM_LEVELS, numLevels);
+        params.setValue(AVKey.NUM_EMPTY_LEVELS, 0);
+        params.setValue(AVKey.LEVEL_ZERO_TILE_DELTA, LatLon.fromDegrees(180, 360));
+        params.setValue(AVKey.SECTOR, new MercatorSector(-1.0, 1.0, Angle.NEG180, Angle.POS180));
+        params.setValue(AVKey.TILE_URL_BUILDER, new TileUrlBuilder()
+        {
+            public URL getURL(Tile tile, String format) throws MalformedURLException
+            {
+                int z = tile.getLevelNumber();
+                int y = (1 << z) - 1 - tile.getRow();
+                return new URL(tile.getLevel().getService() + z + "/" + tile.getColumn() + "/" + y + ".mvt");
+            }
+        });
+
+        return params;
+    }
+
+    private static class CountingLayer extends MVTTiledLayer
+    {
+        private int tessellateCount;
+
+        public CountingLayer(AVList params)
+        {
+            super(params);
+        }
+
+        @Override
+        protected MVTTileGeometry tessellate(MVTSurfaceTile tile, MVTTile mvtTile)
+        {
+            this.tessellateCount++;
+            return super.tessellate(tile, mvtTile);
+        }
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+package gov.nasa.worldwind.ogc.kml;
+
+import com.sun.net.httpserver.*;
+import gov.nasa.worldwind.render.*;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link KMLNetworkLinkRefreshScheduler} against a local HTTP server that supports conditional requests.
+ */
+@RunWith(JUnit4.class)
+public class KMLNetworkLinkRefreshSchedulerTest
+{
+    private static final String LINKED_KML = "<kml xmlns=\"http://www.opengis.net/kml/2.2\">"
+        + "<Placemark><name>%s</name><Point><coordinates>-120,35,0</coordinates></Point></Placemark></kml>";
+
+    private HttpServer server;
+    private KMLNetworkLinkRefreshScheduler scheduler;
+    private volatile String content;
+    private volatile String entityTag;
+    private volatile boolean supportValidators = true;
+    private final AtomicInteger missingRequestCount = new AtomicInteger();
+
+    @Before
+    public void setUp() throws IOException
+    {
+        this.content = String.format(LINKED_KML, "first");
+        this.entityTag = "\"1\"";
+
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.server.createContext("/linked.kml", new HttpHandler()
+        {
+            public void handle(HttpExchange exchange) throws IOException
+            {
+                String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+                if (supportValidators && entityTag.equals(ifNoneMatch))
+                {
+                    exchange.sendResponseHeaders(304, -1);
+                    exchange.close();
+                    return;
+                }
+
+                byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", KMLConstants.KML_MIME_TYPE);
+                if (supportValidators)
+                    exchange.getResponseHeaders().set("ETag", entityTag);
+                exchange.sendResponseHeaders(200, bytes.length);
+                OutputStream os = exchange.getResponseBody();
+                os.write(bytes);
+                os.close();
+            }
+        });
+        this.server.createContext("/missing.kml", new HttpHandler()
+        {
+            public void handle(HttpExchange exchange) throws IOException
+            {
+                missingRequestCount.incrementAndGet();
+                exchange.sendResponseHeaders(404, -1);
+                exchange.close();
+            }
+        });
+        this.server.createContext("/notkml.txt", new HttpHandler()
+        {
+            public void handle(HttpExchange exchange) throws IOException
+            {
+                byte[] bytes = "This is not a KML document".getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain");
+                exchange.sendResponseHeaders(200, bytes.length);
+                OutputStream os = exchange.getResponseBody();
+                os.write(bytes);
+                os.close();
+            }
+        });
+        this.server.start();
+
+        this.scheduler = new KMLNetworkLinkRefreshScheduler(2, 10);
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.scheduler.shutdown(true);
+        this.server.stop(0);
+    }
+
+    @Test
+    public void testRefreshParsesLinkedDocument() throws Exception
+    {
+        KMLNetworkLink link = this.createNetworkLink();
+
+        this.refreshAndWait(link);
+
+        assertNotNull("Linked document not loaded", link.getNetworkResource());
+        assertEquals("first", link.getNetworkResource().getFeature().getName());
+        assertEquals(1, this.scheduler.getParseCount());
+    }
+
+    @Test
+    public void testNotModifiedResponseKeepsDocument() throws Exception
+    {
+        KMLNetworkLink link = this.createNetworkLink();
+
+        this.refreshAndWait(link);
+        KMLRoot first = link.getNetworkResource();
+        this.refreshAndWait(link);
+
+        assertSame("Unchanged document was replaced", first, link.getNetworkResource());
+        assertEquals(1, this.scheduler.getNotModifiedCount());
+        assertEquals(1, this.scheduler.getParseCount());
+    }
+
+    @Test
+    public void testUnchangedPayloadIsNotParsed() throws Exception
+    {
+        this.supportValidators = false;
+        KMLNetworkLink link = this.createNetworkLink();
+
+        this.refreshAndWait(link);
+        KMLRoot first = link.getNetworkResource();
+        this.refreshAndWait(link);
+
+        assertSame("Unchanged document was replaced", first, link.getNetworkResource());
+        assertEquals(1, this.scheduler.getUnchangedCount());
+        assertEquals(1, this.scheduler.getParseCount());
+    }
+
+    @Test
+    public void testChangedDocumentIsSwappedIn() throws Exception
+    {
+        KMLNetworkLink link = this.createNetworkLink();
+
+        this.refreshAndWait(link);
+        KMLRoot first = link.getNetworkResource();
+
+        this.content = String.format(LINKED_KML, "second");
+        this.entityTag = "\"2\"";
+        this.refreshAndWait(link);
+
+        assertNotSame("Changed document was not replaced", first, link.getNetworkResource());
+        assertEquals("second", link.getNetworkResource().getFeature().getName());
+        assertEquals(2, this.scheduler.getParseCount());
+    }
+
+    @Test
+    public void testSchedulerIsInherited() throws Exception
+    {
+        KMLNetworkLink link = this.createNetworkLink();
+
+        this.refreshAndWait(link);
+
+        assertSame(this.scheduler, link.getNetworkResource().getNetworkLinkRefreshScheduler());
+    }
+
+    @Test
+    public void testMissingResourceIsNotRequestedEveryFrame() throws Exception
+    {
+        String address = this.getAddress("/missing.kml");
+        KMLNetworkLink link = this.createNetworkLink(address,
+            "<refreshMode>onInterval</refreshMode><refreshInterval>0.5</refreshInterval>");
+        DrawContext dc = new DrawContextImpl();
+
+        // Simulate frames for three refresh intervals.
+        long start = System.currentTimeMillis();
+        while (System.currentTimeMillis() - start < 1500)
+        {
+            if (link.mustRetrieveNetworkResource())
+                link.requestResource(dc);
+            Thread.sleep(10);
+        }
+        this.waitForRefresh(link);
+
+        int requests = this.missingRequestCount.get();
+        assertTrue("Missing resource not requested", requests >= 1);
+        assertTrue("Missing resource requested " + requests + " times", requests <= 4);
+        assertNull(link.getNetworkResource());
+    }
+
+    @Test
+    public void testNonKMLTargetIsNotRequestedAgain() throws Exception
+    {
+        String address = this.getAddress("/notkml.txt");
+        KMLNetworkLink link = this.createNetworkLink(address, "");
+
+        assertTrue(link.mustRetrieveNetworkResource());
+        assertTrue("Refresh not queued", this.scheduler.requestRefresh(link, address));
+        this.waitForRefresh(link);
+
+        assertNull(link.getNetworkResource());
+        assertFalse("Invalid target would be requested again", link.mustRetrieveNetworkResource());
+    }
+
+    private String getAddress()
+    {
+        return this.getAddress("/linked.kml");
+    }
+
+    private String getAddress(String path)
+    {
+        return "http://localhost:" + this.server.getAddress().getPort() + path;
+    }
+
+    private KMLNetworkLink createNetworkLink() throws Exception
+    {
+        return this.createNetworkLink(this.getAddress(), "");
+    }
+
+    private KMLNetworkLink createNetworkLink(String address, String linkElements) throws Exception
+    {
+        String kml = "<kml xmlns=\"http://www.opengis.net/kml/2.2\"><NetworkLink><Link><href>"
+            + address + "</href>" + linkElements + "</Link></NetworkLink></kml>";
+
+        KMLRoot root = KMLRoot.createAndParse(new ByteArrayInputStream(kml.getBytes(StandardCharsets.UTF_8)));
+        root.setNetworkLinkRefreshScheduler(this.scheduler);
+
+        return (KMLNetworkLink) root.getFeature();
+    }
+
+    private void refreshAndWait(KMLNetworkLink link) throws InterruptedException
+    {
+        assertTrue("Refresh not queued", this.scheduler.requestRefresh(link, this.getAddress()));
+        this.waitForRefresh(link);
+    }
+
+    private void waitForRefresh(KMLNetworkLink link) throws InterruptedException
+    {
+        long timeout = System.currentTimeMillis() + 10000;
+        while (this.scheduler.isPending(link) && System.currentTimeMillis() < timeout)
+        {
+            Thread.sleep(10);
+        }
+
+        assertFalse("Refresh did not complete", this.scheduler.isPending(link));
+    }
+}
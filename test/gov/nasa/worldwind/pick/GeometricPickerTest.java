@@ -0,0 +1,169 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.pick;
+
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.render.*;
+import gov.nasa.worldwind.terrain.ZeroElevationModel;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.*;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class GeometricPickerTest
+{
+    private static final int WIDTH = 800;
+    private static final int HEIGHT = 600;
+    private static final Point CENTER = new Point(WIDTH / 2, HEIGHT / 2);
+
+    private Globe globe;
+    private GeometricPicker.ScreenProjection projection;
+
+    @Before
+    public void setUp()
+    {
+        this.globe = new Earth();
+        this.globe.setElevationModel(new ZeroElevationModel());
+
+        // Look straight down at latitude 0, longitude 0 from 1000 km.
+        Vec4 eye = this.globe.computePointFromPosition(Position.fromDegrees(0, 0, 1000e3));
+        Vec4 center = this.globe.computePointFromPosition(Position.fromDegrees(0, 0, 0));
+        Vec4 up = this.globe.computeNorthPointingTangentAtLocation(Angle.ZERO, Angle.ZERO);
+        this.projection = new GeometricPicker.ScreenProjection(Matrix.fromViewLookAt(eye, center, up),
+            Matrix.fromPerspective(Angle.fromDegrees(45), WIDTH, HEIGHT, 1e3, 2e6), new Rectangle(WIDTH, HEIGHT),
+            this.globe);
+    }
+
+    @Test
+    public void testPickPlacemark()
+    {
+        PointPlacemark near = new PointPlacemark(Position.fromDegrees(0, 0, 0));
+        PointPlacemark far = new PointPlacemark(Position.fromDegrees(2, 2, 0));
+
+        GeometricPicker picker = new GeometricPicker();
+        picker.setObjects(Arrays.asList(far, near));
+
+        List<PickedObject> picked = picker.pick(this.globe, 1, this.projection, CENTER);
+        assertEquals(1, picked.size());
+        assertSame(near, picked.get(0).getObject());
+        assertEquals(0, picked.get(0).getPosition().getLatitude().degrees, 1e-3);
+
+        // Moving the placemark away from the pick point is detected without invalidating the picker.
+        near.setPosition(Position.fromDegrees(-2, -2, 0));
+        assertTrue(picker.pick(this.globe, 1, this.projection, CENTER).isEmpty());
+    }
+
+    @Test
+    public void testPickDefaultPlacemarkImage()
+    {
+        // The default pushpin is a 64 pixel image drawn at scale 0.6, with its hot spot 19 pixels from its left edge
+        // and 8 pixels from its bottom edge.
+        PointPlacemark placemark = new PointPlacemark(Position.fromDegrees(0, 0, 0));
+
+        PickGeometry geometry = placemark.getPickGeometry(this.globe, 1);
+        assertEquals(PickGeometry.SCREEN_RECTANGLE, geometry.getType());
+        assertEquals(-19 * 0.6, geometry.getScreenRectangle().getX(), 1e-9);
+        assertEquals(-8 * 0.6, geometry.getScreenRectangle().getY(), 1e-9);
+        assertEquals(64 * 0.6, geometry.getScreenRectangle().getWidth(), 1e-9);
+        assertEquals(64 * 0.6, geometry.getScreenRectangle().getHeight(), 1e-9);
+
+        GeometricPicker picker = new GeometricPicker();
+        picker.setObjects(Arrays.asList(placemark));
+
+        // The pushpin's head is above and to the right of the placemark's point.
+        assertEquals(1, picker.pick(this.globe, 1, this.projection, new Point(CENTER.x + 20, CENTER.y - 25)).size());
+        assertTrue(picker.pick(this.globe, 1, this.projection, new Point(CENTER.x - 15, CENTER.y + 10)).isEmpty());
+        assertTrue(picker.pick(this.globe, 1, this.projection, new Point(CENTER.x, CENTER.y + 10)).isEmpty());
+    }
+
+    @Test
+    public void testPickPathAndPolygon()
+    {
+        Path path = new Path(Position.fromDegrees(-1, 0, 0), Position.fromDegrees(1, 0, 0));
+        path.setAltitudeMode(WorldWind.CLAMP_TO_GROUND);
+        path.setFollowTerrain(true);
+
+        Polygon polygon = new Polygon(Arrays.asList(Position.fromDegrees(-1, -1, 0), Position.fromDegrees(-1, 1, 0),
+            Position.fromDegrees(1, 1, 0), Position.fromDegrees(1, -1, 0)));
+        polygon.setAltitudeMode(WorldWind.CLAMP_TO_GROUND);
+
+        SurfaceCircle circle = new SurfaceCircle(LatLon.fromDegrees(5, 5), 1e3);
+
+        GeometricPicker picker = new GeometricPicker();
+        picker.setObjects(Arrays.asList(path, polygon, circle));
+
+        Set<Object> picked = new HashSet<Object>();
+        for (PickedObject po : picker.pick(this.globe, 1, this.projection, CENTER))
+        {
+            picked.add(po.getObject());
+        }
+        assertEquals(new HashSet<Object>(Arrays.asList(path, polygon)), picked);
+
+        // Away from the path, only the polygon's interior is under the pick point.
+        List<PickedObject> interior = picker.pick(this.globe, 1, this.projection,
+            new Point(CENTER.x + 50, CENTER.y + 50));
+        assertEquals(1, interior.size());
+        assertSame(polygon, interior.get(0).getObject());
+    }
+
+    @Test
+    public void testPickInRectangle()
+    {
+        List<PointPlacemark> placemarks = new ArrayList<PointPlacemark>();
+        for (int i = -5; i <= 5; i++)
+        {
+            placemarks.add(new PointPlacemark(Position.fromDegrees(0, i, 0)));
+        }
+
+        GeometricPicker picker = new GeometricPicker();
+        picker.setObjects(placemarks);
+
+        // The rectangle spans the center of the view and excludes the placemarks near the edges of the view.
+        List<PickedObject> picked = picker.pickInRectangle(this.globe, 1, this.projection,
+            new Rectangle(CENTER.x - 100, CENTER.y - 10, 200, 20));
+        assertFalse(picked.isEmpty());
+        assertTrue(picked.size() < placemarks.size());
+        for (PickedObject po : picked)
+        {
+            Position position = ((PointPlacemark) po.getObject()).getPosition();
+            assertTrue(Math.abs(position.getLongitude().degrees) <= 2);
+        }
+        assertTrue(picker.getUnsupportedObjects().isEmpty());
+    }
+}
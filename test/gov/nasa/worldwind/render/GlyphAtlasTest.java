@@ -0,0 +1,158 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.render;
+
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.awt.*;
+import java.awt.font.GlyphVector;
+import java.awt.geom.Rectangle2D;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class GlyphAtlasTest
+{
+    private static final Font FONT = Font.decode("Arial-PLAIN-12");
+    private static final Font BOLD_FONT = Font.decode("Arial-BOLD-14");
+
+    @Test
+    public void testLayoutBoundsMatchTextRenderer()
+    {
+        GlyphAtlas atlas = new GlyphAtlas(FONT);
+
+        for (String text : new String[] {"Hello World", "gypsy jig", "", " ", "Mount Everest 8848 m"})
+        {
+            // The JOGL text renderer pads the visual bounds by a font-dependent boundary and rounds them out.
+            GlyphVector gv = FONT.createGlyphVector(atlas.getFontRenderContext(), text);
+            Rectangle2D visual = gv.getVisualBounds();
+            int boundary = (int) Math.max(1, 0.015 * FONT.getSize());
+            Rectangle2D expected = new Rectangle2D.Double((int) Math.floor(visual.getMinX() - boundary),
+                (int) Math.floor(visual.getMinY() - boundary), (int) Math.ceil(visual.getWidth() + 2 * boundary),
+                (int) Math.ceil(visual.getHeight()) + 2 * boundary);
+
+            GlyphLayout layout = atlas.getLayout(text);
+            assertEquals(text, expected, layout.getBounds());
+            assertEquals(text, expected.getWidth(), layout.getWidth(), 0);
+            assertEquals(text, expected.getHeight(), layout.getHeight(), 0);
+            assertEquals(text, gv.getNumGlyphs(), layout.getGlyphCount());
+        }
+    }
+
+    @Test
+    public void testLayoutsAreCachedByString()
+    {
+        GlyphAtlas atlas = new GlyphAtlas(FONT);
+
+        GlyphLayout layout = atlas.getLayout("Denver");
+        assertSame(layout, atlas.getLayout(new StringBuilder("Den").append("ver")));
+        assertNotSame(layout, atlas.getLayout("Boulder"));
+        assertEquals(2, atlas.getLayoutCount());
+
+        // Glyphs are shared by every layout in the atlas.
+        assertSame(layout.getGlyph(1), atlas.getLayout("Boulder").getGlyph(5));
+    }
+
+    @Test
+    public void testLayoutCapacity()
+    {
+        GlyphAtlas atlas = new GlyphAtlas(FONT);
+        atlas.setLayoutCapacity(3);
+
+        GlyphLayout a = atlas.getLayout("a");
+        atlas.getLayout("b");
+        atlas.getLayout("c");
+        atlas.getLayout("a"); // "b" is now the least recently used
+        atlas.getLayout("d");
+
+        assertEquals(3, atlas.getLayoutCount());
+        assertSame(a, atlas.getLayout("a"));
+        assertEquals(3, atlas.getLayoutCount());
+
+        atlas.setLayoutCapacity(1);
+        assertEquals(1, atlas.getLayoutCount());
+    }
+
+    @Test
+    public void testBatchGroupsQuadsByFont()
+    {
+        GlyphAtlas plain = new GlyphAtlas(FONT);
+        GlyphAtlas bold = new GlyphAtlas(BOLD_FONT);
+        GlyphTextBatch batch = new GlyphTextBatch();
+
+        // "A B" has two glyph images and a space.
+        for (int i = 0; i < 4; i++)
+        {
+            batch.addText((i % 2 == 0 ? plain : bold).getLayout("A B"), 10 * i, 20, 1, 0.5, Color.WHITE);
+        }
+        assertTrue(batch.prepare());
+
+        assertEquals(4, batch.getTextCount());
+        assertEquals(8, batch.getQuadCount());
+        assertEquals(2, batch.getDrawCallCount());
+        assertNotNull(plain.getTextureAtlas());
+        assertEquals(2, plain.getTextureAtlas().getNumElements());
+        assertEquals(2, bold.getTextureAtlas().getNumElements());
+
+        // The plain font's quads come first, in the order their text was added.
+        GlyphLayout layout = plain.getLayout("A B");
+        GlyphAtlas.Glyph glyph = layout.getGlyph(0);
+        assertEquals(0 + layout.getGlyphX(0) + glyph.getX(), batch.vertices.get(0), 1e-6);
+        assertEquals(20 - (layout.getGlyphY(0) + glyph.getY() + glyph.getHeight()), batch.vertices.get(1), 1e-6);
+        assertEquals(0.5, batch.vertices.get(2), 1e-6);
+        assertEquals(20 + layout.getGlyphX(0) + glyph.getX(), batch.vertices.get(2 * 12), 1e-6);
+
+        // Texture coordinates span the glyph's image in the atlas.
+        float s0 = batch.texCoords.get(0);
+        float s1 = batch.texCoords.get(2);
+        assertEquals(glyph.getWidth(), (s1 - s0) * plain.getTextureAtlas().getWidth(), 1e-3);
+    }
+
+    @Test
+    public void testBatchPremultipliesColor()
+    {
+        GlyphAtlas atlas = new GlyphAtlas(FONT);
+        GlyphTextBatch batch = new GlyphTextBatch();
+
+        batch.addText(atlas.getLayout("X"), 0, 0, 2, 0, new Color(255, 128, 0, 128));
+        assertTrue(batch.prepare());
+
+        assertEquals(128, batch.vertexColors.get(0) & 0xFF);
+        assertEquals(64, batch.vertexColors.get(1) & 0xFF);
+        assertEquals(0, batch.vertexColors.get(2) & 0xFF);
+        assertEquals(128, batch.vertexColors.get(3) & 0xFF);
+
+        // The text is scaled about its origin.
+        GlyphAtlas.Glyph glyph = atlas.getLayout("X").getGlyph(0);
+        assertEquals(2 * glyph.getWidth(), batch.vertices.get(3) - batch.vertices.get(0), 1e-6);
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.render;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.awt.*;
+import java.util.*;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class OrderedRenderableQueueTest
+{
+    /** The order DrawContextImpl drew ordered renderables in before it used OrderedRenderableQueue. */
+    private static final Comparator<Item> DRAWING_ORDER = new Comparator<Item>()
+    {
+        public int compare(Item a, Item b)
+        {
+            return a.distance > b.distance ? -1 : a.distance == b.distance ? Integer.compare(a.sequence, b.sequence)
+                : 1;
+        }
+    };
+
+    @Test
+    public void testDrawingOrder()
+    {
+        for (int n : new int[] {0, 1, 5, 32, 33, 1000, 20000})
+        {
+            Random random = new Random(n);
+            OrderedRenderableQueue queue = new OrderedRenderableQueue();
+            PriorityQueue<Item> expected = new PriorityQueue<Item>(Math.max(1, n), DRAWING_ORDER);
+
+            for (int i = 0; i < n; i++)
+            {
+                Item item = new Item(randomDistance(random), i);
+                queue.add(item, item.distance, 0, null);
+                expected.add(item);
+            }
+
+            assertEquals(n, queue.size());
+            assertDrainsInOrder(expected, queue);
+        }
+    }
+
+    @Test
+    public void testAddWhileDraining()
+    {
+        Random random = new Random(1);
+        OrderedRenderableQueue queue = new OrderedRenderableQueue();
+        PriorityQueue<Item> expected = new PriorityQueue<Item>(100, DRAWING_ORDER);
+        int sequence = 0;
+
+        for (int i = 0; i < 5000; i++)
+        {
+            Item item = new Item(randomDistance(random), sequence++);
+            queue.add(item, item.distance, 0, null);
+            expected.add(item);
+        }
+
+        // Poll some, add a few or many, as ordered renderables and the clutter filter do while the queue is drained.
+        while (!expected.isEmpty())
+        {
+            for (int i = random.nextInt(50); i > 0 && !expected.isEmpty(); i--)
+            {
+                assertSame(expected.peek(), queue.peek());
+                assertSame(expected.poll(), queue.poll());
+            }
+
+            if (sequence < 20000)
+            {
+                int count = random.nextBoolean() ? random.nextInt(4) : random.nextInt(500);
+                for (int i = 0; i < count; i++)
+                {
+                    Item item = new Item(randomDistance(random), sequence++);
+                    queue.add(item, item.distance, 0, null);
+                    expected.add(item);
+                }
+            }
+        }
+
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testRemoveIf()
+    {
+        Random random = new Random(2);
+        OrderedRenderableQueue queue = new OrderedRenderableQueue();
+        List<Item> items = new ArrayList<Item>();
+        for (int i = 0; i < 3000; i++)
+        {
+            Item item = new Item(randomDistance(random), i);
+            queue.add(item, item.distance, 0, null);
+            items.add(item);
+        }
+
+        queue.poll(); // remove from a partially drained queue
+
+        List<OrderedRenderable> removed = new ArrayList<OrderedRenderable>();
+        int numRemoved = queue.removeIf(new OrderedRenderableQueue.Filter()
+        {
+            public boolean accept(OrderedRenderable orderedRenderable)
+            {
+                return ((Item) orderedRenderable).sequence % 3 == 0;
+            }
+        }, removed);
+
+        // Removed items are front to back: nearest first, and in insertion order among equal distances.
+        Collections.sort(items, DRAWING_ORDER);
+        items.remove(0);
+        List<Item> expectedRemoved = new ArrayList<Item>();
+        PriorityQueue<Item> expectedRemaining = new PriorityQueue<Item>(items.size(), DRAWING_ORDER);
+        for (Item item : items)
+        {
+            if (item.sequence % 3 == 0)
+                expectedRemoved.add(item);
+            else
+                expectedRemaining.add(item);
+        }
+        Collections.sort(expectedRemoved, new Comparator<Item>()
+        {
+            public int compare(Item a, Item b)
+            {
+                return a.distance < b.distance ? -1 : a.distance == b.distance ? Integer.compare(a.sequence,
+                    b.sequence) : 1;
+            }
+        });
+
+        assertEquals(expectedRemoved.size(), numRemoved);
+        assertEquals(expectedRemoved, removed);
+        assertDrainsInOrder(expectedRemaining, queue);
+    }
+
+    @Test
+    public void testBehindAndSpecialDistances()
+    {
+        OrderedRenderableQueue queue = new OrderedRenderableQueue();
+        Item near = new Item(1, 0);
+        Item behind1 = new Item(Double.MAX_VALUE, 1);
+        Item negativeZero = new Item(-0.0, 2);
+        Item behind2 = new Item(Double.MAX_VALUE, 3);
+        Item positiveZero = new Item(0.0, 4);
+        Item negative = new Item(-5, 5);
+
+        for (Item item : Arrays.asList(near, behind1, negativeZero, behind2, positiveZero, negative))
+        {
+            queue.add(item, item.distance, 0, null);
+        }
+
+        for (Item item : Arrays.asList(behind1, behind2, near, negativeZero, positiveZero, negative))
+        {
+            assertSame(item, queue.poll());
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testRecordedGlobeState()
+    {
+        OrderedRenderableQueue queue = new OrderedRenderableQueue();
+        queue.add(new Item(1, 0), 1, 7, null);
+        queue.add(new Item(2, 1), 2, -3, null);
+
+        assertEquals(0, queue.getGlobeOffset());
+        queue.poll();
+        assertEquals(-3, queue.getGlobeOffset());
+        queue.poll();
+        assertEquals(7, queue.getGlobeOffset());
+
+        queue.clear();
+        assertEquals(0, queue.getGlobeOffset());
+        assertNull(queue.peek());
+    }
+
+    @Test
+    public void testDrawContextOrder()
+    {
+        DrawContext dc = new DrawContextImpl();
+        Item a = new Item(10, 0);
+        Item b = new Item(20, 1);
+        Item c = new Item(10, 2);
+        dc.addOrderedRenderable(a);
+        dc.addOrderedRenderable(b);
+        dc.addOrderedRenderable(c, true);
+
+        assertSame(c, dc.peekOrderedRenderables());
+        assertSame(c, dc.pollOrderedRenderables());
+        assertSame(b, dc.pollOrderedRenderables());
+        assertSame(a, dc.pollOrderedRenderables());
+        assertNull(dc.pollOrderedRenderables());
+    }
+
+    private static double randomDistance(Random random)
+    {
+        // Draw from a small set of distances so that many are equal.
+        return random.nextInt(4) == 0 ? random.nextInt(20) : 1e6 * random.nextDouble();
+    }
+
+    private static void assertDrainsInOrder(PriorityQueue<Item> expected, OrderedRenderableQueue queue)
+    {
+        while (!expected.isEmpty())
+        {
+            assertSame(expected.poll(), queue.poll());
+        }
+
+        assertNull(queue.peek());
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    private static class Item implements OrderedRenderable
+    {
+        private final double distance;
+        private final int sequence;
+
+        public Item(double distance, int sequence)
+        {
+            this.distance = distance;
+            this.sequence = sequence;
+        }
+
+        public double getDistanceFromEye()
+        {
+            return this.distance;
+        }
+
+        public void pick(DrawContext dc, Point pickPoint)
+        {
+        }
+
+        public void render(DrawContext dc)
+        {
+        }
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.render;
+
+import gov.nasa.worldwind.*;
+import gov.nasa.worldwind.avlist.AVKey;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.layers.LayerList;
+import gov.nasa.worldwind.terrain.*;
+import gov.nasa.worldwind.view.orbit.BasicOrbitView;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.nio.*;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class PathAppendTest
+{
+    private DrawContext dc;
+    private HeadlessView view;
+    private long frameTime = 1;
+
+    @Before
+    public void setUp()
+    {
+        Globe globe = new Earth();
+        globe.setElevationModel(new ZeroElevationModel());
+
+        this.dc = new DrawContextImpl();
+        this.dc.setModel(new BasicModel(globe, new LayerList()));
+        this.dc.setVerticalExaggeration(1);
+        this.dc.setSurfaceGeometry(new SectorGeometryList());
+        this.dc.setGLRuntimeCapabilities(new GLRuntimeCapabilities());
+
+        this.view = new HeadlessView();
+        this.view.apply(this.dc, 100e3);
+        this.dc.setView(this.view);
+    }
+
+    @Test
+    public void testAppendMatchesFullTessellation()
+    {
+        List<Position> positions = createTrack(200, 0.005);
+
+        Path appended = createPath(positions.subList(0, 20));
+        appended.setAppendOptimized(true);
+        this.makeGeometry(appended);
+        for (int i = 20; i < positions.size(); i += 7)
+        {
+            appended.appendPositions(positions.subList(i, Math.min(i + 7, positions.size())));
+            assertNotNull(this.makeGeometry(appended));
+        }
+
+        Path full = createPath(positions);
+        Path.PathData expected = this.makeGeometry(full);
+        assertTrue("Segments not tessellated", expected.getTessellatedPositions().size() > positions.size());
+        assertGeometryEquals(expected, this.makeGeometry(appended));
+    }
+
+    @Test
+    public void testAppendProjectsOnlyNewPositions()
+    {
+        CountingPath path = new CountingPath(createTrack(2, 0.0045));
+        path.setPathType(AVKey.LINEAR);
+        path.setAppendOptimized(true);
+        this.makeGeometry(path);
+
+        Set<FloatBuffer> buffers = Collections.newSetFromMap(new IdentityHashMap<FloatBuffer, Boolean>());
+        List<Position> track = createTrack(1000, 0.0045);
+        for (int i = 2; i < track.size(); i++)
+        {
+            path.vertexCount = 0;
+            path.appendPosition(track.get(i));
+            Path.PathData pathData = this.makeGeometry(path);
+
+            assertEquals("Existing vertices recomputed", 1, path.vertexCount);
+            assertEquals(i + 1, pathData.getVertexCount());
+            buffers.add(pathData.getRenderedPath());
+        }
+
+        assertTrue("Vertex buffer growth not amortized", buffers.size() < 10);
+    }
+
+    @Test
+    public void testRefreshRetessellatesOnlyChangedSegments()
+    {
+        List<Position> track = createTrack(100, 0.0045);
+        CountingPath path = new CountingPath(track);
+        path.setFollowTerrain(true);
+        path.setAltitudeMode(WorldWind.CLAMP_TO_GROUND);
+        path.setAppendOptimized(true);
+        this.makeGeometry(path);
+
+        // The geometry expires but neither the view nor the terrain changed.
+        path.vertexCount = 0;
+        this.frameTime += 10000;
+        this.makeGeometry(path);
+        assertEquals("Unchanged segments recomputed", 0, path.vertexCount);
+
+        // Moving closer increases the tessellation density, and the result matches a path tessellated in full.
+        this.view.apply(this.dc, 20e3);
+        this.frameTime += 10000;
+        Path.PathData refreshed = this.makeGeometry(path);
+        assertTrue(path.vertexCount > 0);
+
+        Path fresh = new Path(track);
+        fresh.setFollowTerrain(true);
+        fresh.setAltitudeMode(WorldWind.CLAMP_TO_GROUND);
+        fresh.setAppendOptimized(true);
+        assertGeometryEquals(this.makeGeometry(fresh), refreshed);
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testMultiResolutionPathAppend()
+    {
+        List<Position> track = createTrack(101, 0.0045);
+
+        MultiResolutionPath appended = new MultiResolutionPath(track.subList(0, 10));
+        appended.setAppendOptimized(true);
+        this.makeGeometry(appended);
+        for (int i = 10; i < track.size(); i++)
+        {
+            appended.appendPosition(track.get(i));
+            this.makeGeometry(appended);
+        }
+
+        MultiResolutionPath full = new MultiResolutionPath(track);
+        full.setAppendOptimized(true);
+
+        IntBuffer expected = ((MultiResolutionPath.MultiResolutionPathData) this.makeGeometry(full))
+            .getPositionOrdinals();
+        IntBuffer actual = ((MultiResolutionPath.MultiResolutionPathData) appended.getCurrentPathData())
+            .getPositionOrdinals();
+        assertTrue("Positions not skipped", expected.limit() < track.size());
+        assertEquals(expected, actual);
+        assertEquals(track.size() - 1, actual.get(actual.limit() - 1));
+    }
+
+    private Path.PathData makeGeometry(Path path)
+    {
+        this.dc.setFrameTimeStamp(this.frameTime++);
+        return path.makeBatchedGeometry(this.dc);
+    }
+
+    private static Path createPath(List<Position> positions)
+    {
+        Path path = new Path(positions);
+        path.setPathType(AVKey.GREAT_CIRCLE);
+        path.setExtrude(true);
+        path.setPositionColors(new Path.PositionColors()
+        {
+            public java.awt.Color getColor(Position position, int ordinal)
+            {
+                return new java.awt.Color(ordinal % 256, 0, 0);
+            }
+        });
+
+        return path;
+    }
+
+    /** Creates a track heading northeast from the center of the view. */
+    private static List<Position> createTrack(int numPositions, double stepDegrees)
+    {
+        List<Position> positions = new ArrayList<Position>(numPositions);
+        for (int i = 0; i < numPositions; i++)
+        {
+            positions.add(Position.fromDegrees(38 + i * stepDegrees, -100 + i * stepDegrees, 1000 + 10 * (i % 7)));
+        }
+
+        return positions;
+    }
+
+    private static void assertGeometryEquals(Path.PathData expected, Path.PathData actual)
+    {
+        assertNotNull(expected);
+        assertNotNull(actual);
+        assertEquals(expected.getTessellatedPositions(), actual.getTessellatedPositions());
+        assertEquals(expected.getVertexCount(), actual.getVertexCount());
+        assertEquals(expected.getVertexStride(), actual.getVertexStride());
+
+        FloatBuffer e = expected.getRenderedPath();
+        FloatBuffer a = actual.getRenderedPath();
+        assertEquals(e.limit(), a.limit());
+        for (int i = 0; i < e.limit(); i++)
+        {
+            assertEquals("Vertex data differs at " + i, e.get(i), a.get(i), 0);
+        }
+    }
+
+    /** Counts the vertices written by append-optimized geometry updates. */
+    private static class CountingPath extends Path
+    {
+        private int vertexCount;
+
+        public CountingPath(Iterable<? extends Position> positions)
+        {
+            super(positions);
+        }
+
+        @Override
+        protected void putAppendedVertex(Vec4 pt, Vec4 referencePoint, float[] color, FloatBuffer path, int index,
+            AppendState state)
+        {
+            this.vertexCount++;
+            super.putAppendedVertex(pt, referencePoint, color, path, index, state);
+        }
+    }
+
+    /** An orbit view whose state is computed without an OpenGL context, looking down at 38N 100W. */
+    private static class HeadlessView extends BasicOrbitView
+    {
+        public void apply(DrawContext dc, double altitude)
+        {
+            this.dc = dc;
+            this.globe = dc.getGlobe();
+
+            Vec4 eye = this.globe.computePointFromPosition(Position.fromDegrees(38, -100, altitude));
+            Vec4 center = this.globe.computePointFromPosition(Position.fromDegrees(38, -100, 0));
+            Vec4 up = this.globe.computeNorthPointingTangentAtLocation(Angle.fromDegrees(38), Angle.fromDegrees(-100));
+            this.modelview = Matrix.fromViewLookAt(eye, center, up);
+            this.modelviewInv = this.modelview.getInverse();
+
+            this.viewport = new java.awt.Rectangle(1024, 768);
+            this.nearClipDistance = 1;
+            this.farClipDistance = 1e7;
+            this.projection = Matrix.fromPerspective(this.fieldOfView, 1024, 768, 1, 1e7);
+            this.frustum = Frustum.fromPerspective(this.fieldOfView, 1024, 768, 1, 1e7);
+
+            this.afterDoApply();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.render;
+
+import gov.nasa.worldwind.geom.Vec4;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.nio.FloatBuffer;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class PathBatchBuilderTest
+{
+    @Test
+    public void testSetVertices()
+    {
+        PathBatchBuilder builder = new PathBatchBuilder();
+
+        // Two vertices with a stride of five floats, translated by (10, 20, 30).
+        FloatBuffer source = FloatBuffer.wrap(new float[] {1, 2, 3, -1, -1, 4, 5, 6, -1, -1});
+        builder.setVertices("a", source, 5, 2, new Vec4(10, 20, 30));
+        builder.setVertices("b", FloatBuffer.wrap(new float[] {7, 8, 9}), 3, 1, null);
+
+        assertEquals(0, builder.getFirst("a"));
+        assertEquals(2, builder.getCount("a"));
+        assertEquals(1, builder.getCount("b"));
+        assertTrue(builder.getFirst("b") >= 2);
+
+        FloatBuffer vertices = builder.getVertices();
+        assertEquals(11f, vertices.get(0), 0);
+        assertEquals(22f, vertices.get(1), 0);
+        assertEquals(36f, vertices.get(5), 0);
+        assertEquals(7f, vertices.get(3 * builder.getFirst("b")), 0);
+        assertTrue(builder.isStorageChanged());
+    }
+
+    @Test
+    public void testDirtyRanges()
+    {
+        PathBatchBuilder builder = new PathBatchBuilder();
+        builder.setVertices("a", makeVertices(10, 0), 3, 10, null);
+        builder.setVertices("b", makeVertices(10, 0), 3, 10, null);
+        builder.setVertices("c", makeVertices(10, 0), 3, 10, null);
+        builder.clearDirty();
+        assertFalse(builder.isStorageChanged());
+        assertTrue(builder.getDirtyRanges().isEmpty());
+
+        // Rewriting a strip that fits in its range marks only that range dirty and does not move the strip.
+        int first = builder.getFirst("b");
+        builder.setVertices("b", makeVertices(8, 100), 3, 8, null);
+        assertEquals(first, builder.getFirst("b"));
+        List<int[]> ranges = builder.getDirtyRanges();
+        assertEquals(1, ranges.size());
+        assertArrayEquals(new int[] {first, first + 8}, ranges.get(0));
+        assertEquals(100f, builder.getVertices().get(3 * first), 0);
+
+        // Ranges that overlap or nearly adjoin are merged; distant ranges are kept apart and ordered.
+        builder.setVertices("a", makeVertices(10, 200), 3, 10, null);
+        builder.setVertices("b", makeVertices(10, 300), 3, 10, null);
+        ranges = builder.getDirtyRanges();
+        assertEquals(1, ranges.size());
+        assertArrayEquals(new int[] {0, first + 10}, ranges.get(0));
+
+        builder.clearDirty();
+        builder.setVertices("c", makeVertices(1, 0), 3, 1, null);
+        builder.setVertices("a", makeVertices(1, 0), 3, 1, null);
+        ranges = builder.getDirtyRanges();
+        assertEquals(2, ranges.size());
+        assertEquals(0, ranges.get(0)[0]);
+        assertEquals(builder.getFirst("c"), ranges.get(1)[0]);
+    }
+
+    @Test
+    public void testGrowthAndCompaction()
+    {
+        PathBatchBuilder builder = new PathBatchBuilder();
+        builder.setVertices("a", makeVertices(10, 0), 3, 10, null);
+        builder.setVertices("b", makeVertices(10, 1000), 3, 10, null);
+        builder.clearDirty();
+
+        // A strip that outgrows its range moves to the end of the array.
+        int first = builder.getFirst("a");
+        builder.setVertices("a", makeVertices(40, 0), 3, 40, null);
+        assertTrue(builder.getFirst("a") > builder.getFirst("b"));
+        assertFalse(builder.getFirst("a") == first);
+        assertEquals(40, builder.getCount("a"));
+        assertFalse(builder.isStorageChanged());
+
+        // Growing beyond the capacity reallocates the array, which must then be copied in full.
+        builder.setVertices("c", makeVertices(5000, 0), 3, 5000, null);
+        assertTrue(builder.isStorageChanged());
+        assertTrue(builder.getCapacity() >= builder.getSize());
+        builder.clearDirty();
+
+        // Removing most of the array compacts it, preserving the remaining strips.
+        assertTrue(builder.remove("c"));
+        assertFalse(builder.contains("c"));
+        assertTrue(builder.isStorageChanged());
+        assertEquals(0, builder.getFirst("a"));
+        assertEquals(1000f, builder.getVertices().get(3 * builder.getFirst("b")), 0);
+        assertEquals(39f, builder.getVertices().get(3 * 39), 0);
+        assertTrue(builder.getSize() < 100);
+    }
+
+    private static FloatBuffer makeVertices(int count, float base)
+    {
+        float[] coords = new float[3 * count];
+        for (int i = 0; i < count; i++)
+        {
+            coords[3 * i] = base + i;
+            coords[3 * i + 1] = base + i;
+            coords[3 * i + 2] = base + i;
+        }
+
+        return FloatBuffer.wrap(coords);
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.render;
+
+import com.jogamp.opengl.util.texture.TextureCoords;
+import gov.nasa.worldwind.geom.Position;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class PointPlacemarkIconAtlasTest
+{
+    private DrawContext dc;
+
+    @Before
+    public void setUp()
+    {
+        this.dc = new DrawContextImpl();
+    }
+
+    @Test
+    public void testPagesFillThenEvict()
+    {
+        // Pages hold four 30 x 30 icons, which take 32 x 32 pixels with their borders.
+        PointPlacemarkIconAtlas atlas = new PointPlacemarkIconAtlas(64, 64, 2);
+        BufferedImage[] images = createImages(9, 30);
+
+        for (int i = 0; i < 8; i++)
+        {
+            assertTrue(this.load(atlas, images[i]));
+        }
+        assertEquals(2, atlas.getPageCount());
+        assertEquals(8, atlas.getIconCount());
+
+        // Both pages are full, so the last page evicts its least recently used icon.
+        assertTrue(this.load(atlas, images[8]));
+        assertEquals(2, atlas.getPageCount());
+        assertEquals(8, atlas.getIconCount());
+        for (int i = 0; i < 4; i++)
+        {
+            assertTrue(((PointPlacemarkIconAtlas.IconTexture) atlas.getTexture(images[i])).isTextureCurrent(this.dc));
+        }
+        assertFalse(((PointPlacemarkIconAtlas.IconTexture) atlas.getTexture(images[4])).isTextureCurrent(this.dc));
+
+        // An evicted icon is added again when it is next used.
+        assertTrue(this.load(atlas, images[4]));
+        assertEquals(30, atlas.getTexture(images[4]).getWidth(this.dc));
+    }
+
+    @Test
+    public void testImageLargerThanPage()
+    {
+        PointPlacemarkIconAtlas atlas = new PointPlacemarkIconAtlas(64, 64, 2);
+        BufferedImage image = createImages(1, 64)[0];
+
+        assertFalse(this.load(atlas, image));
+        assertNull(atlas.getTexture(image));
+        assertEquals(0, atlas.getIconCount());
+    }
+
+    @Test
+    public void testDrawListRuns()
+    {
+        PointPlacemarkIconAtlas atlas = new PointPlacemarkIconAtlas(64, 64, 2);
+        BufferedImage[] images = createImages(8, 30);
+        for (BufferedImage image : images)
+        {
+            this.load(atlas, image);
+        }
+
+        PointPlacemarkIconAtlas.DrawList drawList = atlas.getDrawList();
+
+        // Icons of many different images draw in one run per page.
+        for (int i = 0; i < 8; i++)
+        {
+            drawList.addIcon(atlas.getTexture(images[i]), 10 * i, 0, 30, 30, 0, 0.5, Color.WHITE);
+        }
+        assertTrue(drawList.prepare(this.dc));
+        assertEquals(8, drawList.getIconCount());
+        assertEquals(2, drawList.getDrawCallCount());
+
+        // Icons alternating between pages are grouped by page, in order within each page.
+        drawList.clear();
+        for (int i = 0; i < 8; i++)
+        {
+            drawList.addIcon(atlas.getTexture(images[(i % 2) * 4 + i / 2]), 0, 0, 30, 30, 0, 0.5, Color.WHITE);
+        }
+        drawList.prepare(this.dc);
+        assertEquals(2, drawList.getDrawCallCount());
+
+        int[] expectedIndices = new int[] {0, 2, 4, 6, 1, 3, 5, 7};
+        for (int i = 0; i < 8; i++)
+        {
+            assertEquals(4 * expectedIndices[i], drawList.indices.get(4 * i));
+            assertEquals(4 * expectedIndices[i] + 3, drawList.indices.get(4 * i + 3));
+        }
+    }
+
+    @Test
+    public void testDrawListGeometry()
+    {
+        PointPlacemarkIconAtlas atlas = new PointPlacemarkIconAtlas(64, 64, 1);
+        BufferedImage image = createImages(1, 20)[0];
+        this.load(atlas, image);
+
+        PointPlacemarkIconAtlas.DrawList drawList = atlas.getDrawList();
+        drawList.addIcon(atlas.getTexture(image), 100, 200, 20, 10, 90, 0.25, new Color(1, 2, 3, 4));
+        drawList.prepare(this.dc);
+
+        // A 90 degree counter-clockwise rotation about the center (110, 205) takes the lower left corner (100, 200)
+        // to (115, 195).
+        float[] expected = new float[] {115, 195, 0.25f, 115, 215, 0.25f, 105, 215, 0.25f, 105, 195, 0.25f};
+        for (int i = 0; i < 12; i++)
+        {
+            assertEquals(expected[i], drawList.vertices.get(i), 1e-4);
+        }
+
+        TextureCoords tc = atlas.getTexture(image).getTexCoords();
+        assertEquals(tc.left(), drawList.texCoords.get(0), 0);
+        assertEquals(tc.bottom(), drawList.texCoords.get(1), 0);
+        assertEquals(tc.right(), drawList.texCoords.get(4), 0);
+        assertEquals(tc.top(), drawList.texCoords.get(5), 0);
+        assertEquals(4, drawList.colors.get(15));
+    }
+
+    @Test
+    public void testPlacemarkUsesAtlas()
+    {
+        PointPlacemarkIconAtlas atlas = new PointPlacemarkIconAtlas();
+        BufferedImage image = createImages(1, 16)[0];
+
+        PointPlacemarkAttributes attrs = new PointPlacemarkAttributes();
+        attrs.setImage(image);
+        attrs.setImageAddress("testImage");
+
+        PointPlacemark placemark = new PointPlacemark(Position.fromDegrees(0, 0));
+        placemark.setAttributes(attrs);
+        placemark.setIconAtlas(atlas);
+        placemark.determineActiveAttributes();
+
+        assertTrue(placemark.activeTexture instanceof PointPlacemarkIconAtlas.IconTexture);
+        assertEquals(16, placemark.activeTexture.getWidth(this.dc));
+        assertEquals(1, atlas.getIconCount());
+    }
+
+    private boolean load(PointPlacemarkIconAtlas atlas, BufferedImage image)
+    {
+        WWTexture texture = atlas.getTexture(image);
+        return texture != null && ((PointPlacemarkIconAtlas.IconTexture) texture).load(this.dc);
+    }
+
+    private static BufferedImage[] createImages(int count, int size)
+    {
+        BufferedImage[] images = new BufferedImage[count];
+        for (int i = 0; i < count; i++)
+        {
+            images[i] = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = images[i].createGraphics();
+            g.setColor(new Color(i * 25, 100, 200));
+            g.fillRect(0, 0, size, size);
+            g.dispose();
+        }
+
+        return images;
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.render;
+
+import gov.nasa.worldwind.*;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.layers.LayerList;
+import gov.nasa.worldwind.terrain.*;
+import gov.nasa.worldwind.view.orbit.BasicOrbitView;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.nio.FloatBuffer;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class ShapeGeometrySchedulerTest
+{
+    private DrawContext dc;
+    private ShapeGeometryScheduler scheduler;
+    private long frameTime = 1;
+
+    @Before
+    public void setUp()
+    {
+        Globe globe = new Earth();
+        globe.setElevationModel(new ZeroElevationModel());
+
+        this.dc = new DrawContextImpl();
+        this.dc.setModel(new BasicModel(globe, new LayerList()));
+        this.dc.setVerticalExaggeration(1);
+        this.dc.setSurfaceGeometry(new SectorGeometryList());
+        this.dc.setGLRuntimeCapabilities(new GLRuntimeCapabilities());
+
+        HeadlessView view = new HeadlessView();
+        view.apply(this.dc, 100e3);
+        this.dc.setView(view);
+
+        this.scheduler = new ShapeGeometryScheduler(2);
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.scheduler.shutdown();
+    }
+
+    @Test
+    public void testPreviousGeometryDrawnUntilPublished() throws Exception
+    {
+        ExtrudedPolygon shape = createBuilding(0, 0);
+        shape.setGeometryScheduler(this.scheduler);
+
+        // A shape without previous geometry isn't drawn until its first geometry is published.
+        assertEquals(0, this.renderFrame(shape));
+        this.waitForScheduler();
+        assertEquals(1, this.renderFrame(shape));
+        AbstractShape.AbstractShapeData previous = shape.getCurrentData();
+        assertNotNull(shape.getCurrent().capVertexBuffer);
+
+        // The previous geometry remains current while the regeneration is pending.
+        this.dc.setVerticalExaggeration(2);
+        assertEquals(1, this.renderFrame(shape));
+        assertSame(previous, shape.getCurrentData());
+
+        this.waitForScheduler();
+        assertEquals(1, this.renderFrame(shape));
+        assertNotSame(previous, shape.getCurrentData());
+        assertEquals(2, shape.getCurrentData().getVerticalExaggeration(), 0);
+
+        ExtrudedPolygon expected = createBuilding(0, 0);
+        assertEquals(1, this.renderFrame(expected));
+        assertBufferEquals(expected.getCurrent().capVertexBuffer, shape.getCurrent().capVertexBuffer);
+        assertBufferEquals(expected.getCurrent().sideVertexBuffer, shape.getCurrent().sideVertexBuffer);
+    }
+
+    @Test
+    public void testPublishBudget() throws Exception
+    {
+        this.scheduler.setPublishBudget(3);
+
+        List<AbstractShape> shapes = new ArrayList<AbstractShape>();
+        for (int i = 0; i < 10; i++)
+        {
+            ExtrudedPolygon shape = createBuilding(i * 0.01, 0);
+            shape.setGeometryScheduler(this.scheduler);
+            shapes.add(shape);
+        }
+
+        this.renderFrame(shapes);
+        this.waitForScheduler();
+        assertEquals(10, this.scheduler.getGeneratedCount());
+
+        assertEquals(3, this.renderFrame(shapes));
+        assertEquals(6, this.renderFrame(shapes));
+        assertEquals(9, this.renderFrame(shapes));
+        assertEquals(10, this.renderFrame(shapes));
+        assertEquals(10, this.scheduler.getPublishedCount());
+    }
+
+    @Test
+    public void testResetDiscardsPendingGeometry() throws Exception
+    {
+        BlockingPolygon shape = new BlockingPolygon(createBoundary(0, 0));
+        shape.setGeometryScheduler(this.scheduler);
+
+        this.renderFrame(shape);
+        assertTrue(shape.started.await(10, TimeUnit.SECONDS));
+
+        // Move the shape while its geometry is being generated. The result must not be published.
+        shape.setOuterBoundary(createBoundary(0.1, 0.1));
+        shape.release.countDown();
+        this.waitForScheduler();
+        assertEquals(0, this.renderFrame(shape));
+
+        this.waitForScheduler();
+        assertEquals(1, this.renderFrame(shape));
+        assertEquals(1, this.scheduler.getPublishedCount());
+
+        Vec4 center = this.dc.getGlobe().computePointFromPosition(Position.fromDegrees(38.1025, -99.8975, 0));
+        assertTrue("Published geometry is out of date", shape.getExtent().getCenter().distanceTo3(center) < 500);
+    }
+
+    /**
+     * Renders a frame and returns the number of shapes added to the ordered renderable list.
+     *
+     * @param shapes the shapes to render.
+     *
+     * @return the number of ordered renderables.
+     */
+    private int renderFrame(AbstractShape... shapes)
+    {
+        return this.renderFrame(Arrays.asList(shapes));
+    }
+
+    private int renderFrame(List<AbstractShape> shapes)
+    {
+        this.dc.setFrameTimeStamp(this.frameTime++);
+        for (AbstractShape shape : shapes)
+        {
+            shape.render(this.dc);
+        }
+
+        int count = 0;
+        while (this.dc.pollOrderedRenderables() != null)
+        {
+            count++;
+        }
+
+        return count;
+    }
+
+    private void waitForScheduler() throws InterruptedException
+    {
+        long start = System.currentTimeMillis();
+        while (this.scheduler.getPendingCount() > 0)
+        {
+            assertTrue("Scheduler did not finish", System.currentTimeMillis() - start < 10000);
+            Thread.sleep(1);
+        }
+    }
+
+    private static ExtrudedPolygon createBuilding(double dLat, double dLon)
+    {
+        ExtrudedPolygon shape = new ExtrudedPolygon(createBoundary(dLat, dLon), 50d);
+        shape.setAltitudeMode(WorldWind.RELATIVE_TO_GROUND);
+        return shape;
+    }
+
+    private static List<Position> createBoundary(double dLat, double dLon)
+    {
+        return Arrays.asList(
+            Position.fromDegrees(38 + dLat, -100 + dLon, 0),
+            Position.fromDegrees(38 + dLat, -99.995 + dLon, 0),
+            Position.fromDegrees(38.005 + dLat, -99.995 + dLon, 0),
+            Position.fromDegrees(38.005 + dLat, -100 + dLon, 0));
+    }
+
+    private static void assertBufferEquals(FloatBuffer expected, FloatBuffer actual)
+    {
+        assertNotNull(expected);
+        assertNotNull(actual);
+        assertEquals(expected.limit(), actual.limit());
+        for (int i = 0; i < expected.limit(); i++)
+        {
+            assertEquals("Vertex data differs at " + i, expected.get(i), actual.get(i), 0);
+        }
+    }
+
+    /** A polygon whose geometry generation on a worker thread waits until it is released. */
+    private static class BlockingPolygon extends Polygon
+    {
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        public BlockingPolygon(Iterable<? extends Position> positions)
+        {
+            super(positions);
+        }
+
+        @Override
+        protected boolean doMakeOrderedRenderable(DrawContext dc)
+        {
+            this.started.countDown();
+            try
+            {
+                this.release.await();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+
+            return super.doMakeOrderedRenderable(dc);
+        }
+    }
+
+    /** An orbit view whose state is computed without an OpenGL context, looking down at 38N 100W. */
+    private static class HeadlessView extends BasicOrbitView
+    {
+        public void apply(DrawContext dc, double altitude)
+        {
+            this.dc = dc;
+            this.globe = dc.getGlobe();
+
+            Vec4 eye = this.globe.computePointFromPosition(Position.fromDegrees(38, -100, altitude));
+            Vec4 center = this.globe.computePointFromPosition(Position.fromDegrees(38, -100, 0));
+            Vec4 up = this.globe.computeNorthPointingTangentAtLocation(Angle.fromDegrees(38), Angle.fromDegrees(-100));
+            this.modelview = Matrix.fromViewLookAt(eye, center, up);
+            this.modelviewInv = this.modelview.getInverse();
+
+            this.viewport = new java.awt.Rectangle(1024, 768);
+            this.nearClipDistance = 1;
+            this.farClipDistance = 1e7;
+            this.projection = Matrix.fromPerspective(this.fieldOfView, 1024, 768, 1, 1e7);
+            this.frustum = Frustum.fromPerspective(this.fieldOfView, 1024, 768, 1, 1e7);
+
+            this.afterDoApply();
+        }
+    }
+}
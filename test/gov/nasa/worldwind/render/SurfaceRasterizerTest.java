@@ -0,0 +1,147 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+package gov.nasa.worldwind.render;
+
+import gov.nasa.worldwind.geom.*;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class SurfaceRasterizerTest
+{
+    private SurfaceRasterizer rasterizer;
+
+    @Before
+    public void setUp()
+    {
+        this.rasterizer = new SurfaceRasterizer();
+    }
+
+    @Test
+    public void testPolygonInteriorAndOutline()
+    {
+        SurfacePolygon polygon = new SurfacePolygon(createAttributes(Color.RED, Color.BLUE, 3),
+            Arrays.asList(LatLon.fromDegrees(-5, -5), LatLon.fromDegrees(-5, 5), LatLon.fromDegrees(5, 5),
+                LatLon.fromDegrees(5, -5)));
+
+        BufferedImage image = this.rasterizer.render(Arrays.asList(polygon), Sector.fromDegrees(-10, 10, -10, 10),
+            200, 200);
+
+        assertEquals("Interior", Color.RED.getRGB(), image.getRGB(100, 100));
+        assertEquals("Outline", Color.BLUE.getRGB(), image.getRGB(100, 50)); // the 5 degree parallel
+        assertEquals("Outside", 0, image.getRGB(10, 10));
+    }
+
+    @Test
+    public void testPolylineHasNoInterior()
+    {
+        SurfacePolyline polyline = new SurfacePolyline(createAttributes(Color.RED, Color.BLUE, 3),
+            Arrays.asList(LatLon.fromDegrees(-5, -5), LatLon.fromDegrees(-5, 5), LatLon.fromDegrees(5, 5),
+                LatLon.fromDegrees(5, -5)));
+        polyline.setClosed(true);
+
+        BufferedImage image = this.rasterizer.render(Arrays.asList(polyline), Sector.fromDegrees(-10, 10, -10, 10),
+            200, 200);
+
+        assertEquals("Interior", 0, image.getRGB(100, 100));
+        assertEquals("Outline", Color.BLUE.getRGB(), image.getRGB(100, 50));
+    }
+
+    @Test
+    public void testSectorCrossingDateline()
+    {
+        SurfacePolygon polygon = new SurfacePolygon(createAttributes(Color.GREEN, Color.GREEN, 1),
+            Arrays.asList(LatLon.fromDegrees(-10, 170), LatLon.fromDegrees(-10, -170), LatLon.fromDegrees(10, -170),
+                LatLon.fromDegrees(10, 170)));
+
+        Sector west = Sector.fromDegrees(-20, 20, -180, -140);
+        Sector east = Sector.fromDegrees(-20, 20, 140, 180);
+        BufferedImage westImage = this.rasterizer.render(Arrays.asList(polygon), west, 100, 100);
+        BufferedImage eastImage = this.rasterizer.render(Arrays.asList(polygon), east, 100, 100);
+
+        assertEquals("West of dateline", Color.GREEN.getRGB(), westImage.getRGB(5, 50));
+        assertEquals("Beyond west edge", 0, westImage.getRGB(50, 50));
+        assertEquals("East of dateline", Color.GREEN.getRGB(), eastImage.getRGB(95, 50));
+        assertEquals("Beyond east edge", 0, eastImage.getRGB(50, 50));
+    }
+
+    @Test
+    public void testSurfaceImage()
+    {
+        BufferedImage source = new BufferedImage(2, 2, BufferedImage.TYPE_INT_ARGB);
+        source.setRGB(0, 0, Color.RED.getRGB()); // northwest
+        source.setRGB(1, 0, Color.GREEN.getRGB()); // northeast
+        source.setRGB(0, 1, Color.BLUE.getRGB()); // southwest
+        source.setRGB(1, 1, Color.YELLOW.getRGB()); // southeast
+        SurfaceImage surfaceImage = new SurfaceImage(source, Sector.fromDegrees(0, 10, 0, 10));
+
+        BufferedImage image = this.rasterizer.render(Arrays.asList(surfaceImage), Sector.fromDegrees(0, 20, 0, 20),
+            200, 200);
+
+        assertEquals("Northwest", Color.RED.getRGB(), image.getRGB(10, 110));
+        assertEquals("Northeast", Color.GREEN.getRGB(), image.getRGB(90, 110));
+        assertEquals("Southwest", Color.BLUE.getRGB(), image.getRGB(10, 190));
+        assertEquals("Southeast", Color.YELLOW.getRGB(), image.getRGB(90, 190));
+        assertEquals("Outside", 0, image.getRGB(150, 50));
+    }
+
+    @Test
+    public void testGeometryRecomputedAfterChange()
+    {
+        SurfaceCircle circle = new SurfaceCircle(createAttributes(Color.RED, Color.RED, 1), LatLon.fromDegrees(0, 0),
+            100e3);
+        Sector sector = Sector.fromDegrees(-5, 5, -5, 5);
+
+        BufferedImage image = this.rasterizer.render(Arrays.asList(circle), sector, 100, 100);
+        assertEquals(Color.RED.getRGB(), image.getRGB(50, 50));
+
+        circle.setCenter(LatLon.fromDegrees(3, 3));
+        image = this.rasterizer.render(Arrays.asList(circle), sector, 100, 100);
+        assertEquals("Old location", 0, image.getRGB(50, 50));
+        assertEquals("New location", Color.RED.getRGB(), image.getRGB(80, 20));
+    }
+
+    private static ShapeAttributes createAttributes(Color interior, Color outline, double outlineWidth)
+    {
+        ShapeAttributes attrs = new BasicShapeAttributes();
+        attrs.setInteriorMaterial(new Material(interior));
+        attrs.setOutlineMaterial(new Material(outline));
+        attrs.setInteriorOpacity(1);
+        attrs.setOutlineOpacity(1);
+        attrs.setOutlineWidth(outlineWidth);
+        return attrs;
+    }
+}
@@ -30,6 +30,8 @@ package gov.nasa.worldwind.render;
 
 import gov.nasa.worldwind.avlist.AVKey;
 import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.util.*;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -245,6 +247,96 @@ public class SurfaceShapeTest
         assertSurfaceShapeEquals(shape, shape2);
     }
 
+    @Test
+    public void testPackedGeometryMatchesLocationGeometry()
+    {
+        List<LatLon> locations = Arrays.asList(
+            LatLon.fromDegrees(-30, -60), LatLon.fromDegrees(45, 10), LatLon.fromDegrees(60, 150),
+            LatLon.fromDegrees(-10, 170), LatLon.fromDegrees(-30, -60));
+
+        for (String pathType : new String[] {AVKey.GREAT_CIRCLE, AVKey.RHUMB_LINE, AVKey.LINEAR})
+        {
+            SurfacePolyline shape = new SurfacePolyline(locations);
+            shape.setPathType(pathType);
+
+            List<LatLon> expected = new ArrayList<LatLon>();
+            shape.generateIntermediateLocations(locations, 0.5, false, expected);
+
+            ContourBuffer actual = shape.createContours(new Earth(), 0.5);
+            assertEquals(pathType, 1, actual.getContourCount());
+            assertEquals(pathType, expected.size(), actual.size());
+
+            for (int i = 0; i < expected.size(); i++)
+            {
+                assertEquals(pathType, expected.get(i).latitude.degrees, actual.getLatitude(i), 1e-9);
+                assertEquals(pathType, expected.get(i).longitude.degrees, actual.getLongitude(i), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void testPolygonContoursAreCounterClockwise()
+    {
+        List<LatLon> clockwise = Arrays.asList(
+            LatLon.fromDegrees(10, 10), LatLon.fromDegrees(20, 15), LatLon.fromDegrees(10, 20));
+        SurfacePolygon shape = new SurfacePolygon(clockwise);
+        shape.addInnerBoundary(Arrays.asList(
+            LatLon.fromDegrees(12, 14), LatLon.fromDegrees(14, 15), LatLon.fromDegrees(12, 16)));
+
+        ContourBuffer contours = shape.createContours(new Earth(), 1);
+        List<List<LatLon>> lists = shape.createGeometry(new Earth(), 1);
+
+        assertEquals(2, contours.getContourCount());
+        assertEquals(contours.toLocationLists(), lists);
+        for (int i = 0; i < contours.getContourCount(); i++)
+        {
+            assertEquals(AVKey.COUNTER_CLOCKWISE, WWMath.computeWindingOrderOfLocations(lists.get(i)));
+        }
+    }
+
+    @Test
+    public void testContoursWrapCreateGeometry()
+    {
+        final List<LatLon> triangle = Arrays.asList(
+            LatLon.fromDegrees(0, 0), LatLon.fromDegrees(0, 1), LatLon.fromDegrees(1, 0), LatLon.fromDegrees(0, 0));
+
+        // A shape that implements only createGeometry is drawn from its location lists.
+        AbstractSurfaceShape shape = new AbstractSurfaceShape()
+        {
+            public Position getReferencePosition()
+            {
+                return Position.ZERO;
+            }
+
+            protected void doMoveTo(Position oldReferencePosition, Position newReferencePosition)
+            {
+            }
+
+            protected void doMoveTo(Globe globe, Position oldReferencePosition, Position newReferencePosition)
+            {
+            }
+
+            public Iterable<? extends LatLon> getLocations(Globe globe)
+            {
+                return triangle;
+            }
+
+            @Override
+            protected List<List<LatLon>> createGeometry(Globe globe, double edgeIntervalsPerDegree)
+            {
+                return Arrays.asList(triangle);
+            }
+        };
+
+        ContourBuffer contours = shape.createContours(new Earth(), 1);
+        assertEquals(1, contours.getContourCount());
+        assertEquals(Arrays.asList(triangle), contours.toLocationLists());
+
+        // The built-in shapes implement only createContours, which createGeometry unpacks.
+        SurfaceCircle circle = new SurfaceCircle(LatLon.fromDegrees(0, 0), 1000);
+        assertEquals(circle.createGeometry(new Earth(), 1), circle.createContours(new Earth(), 1).toLocationLists());
+    }
+
     //////////////////////////////////////////////////////////
     // Helper Methods
     //////////////////////////////////////////////////////////
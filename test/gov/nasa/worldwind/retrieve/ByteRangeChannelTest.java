@@ -0,0 +1,252 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.retrieve;
+
+import com.sun.net.httpserver.*;
+import gov.nasa.worldwind.cache.BasicDataFileStore;
+import gov.nasa.worldwind.util.WWIO;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.*;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link ByteRangeChannel} and {@link HTTPRangeRetriever} against a local HTTP server that supports range
+ * requests.
+ */
+@RunWith(JUnit4.class)
+public class ByteRangeChannelTest
+{
+    private static final String RESOURCE = "testData/cog/elev16_cog.tif";
+    private static final int BLOCK_SIZE = 4096;
+    private static final Pattern RANGE_PATTERN = Pattern.compile("bytes=(\\d+)-(\\d+)");
+
+    private HttpServer server;
+    private URL url;
+    private byte[] content;
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private volatile boolean supportRanges = true;
+    private File cacheDir;
+    private BasicDataFileStore fileStore;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        this.content = Files.readAllBytes(new File(RESOURCE).toPath());
+
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.server.createContext("/elev16_cog.tif", new HttpHandler()
+        {
+            public void handle(HttpExchange exchange) throws IOException
+            {
+                requestCount.incrementAndGet();
+
+                String range = exchange.getRequestHeaders().getFirst("Range");
+                Matcher matcher = range != null ? RANGE_PATTERN.matcher(range) : null;
+                int start = 0;
+                int end = content.length - 1;
+                if (supportRanges && matcher != null && matcher.matches())
+                {
+                    start = Integer.parseInt(matcher.group(1));
+                    end = Math.min(end, Integer.parseInt(matcher.group(2)));
+                    exchange.getResponseHeaders().set("Content-Range",
+                        "bytes " + start + "-" + end + "/" + content.length);
+                    exchange.sendResponseHeaders(206, end - start + 1);
+                }
+                else
+                {
+                    exchange.sendResponseHeaders(200, content.length);
+                }
+
+                OutputStream os = exchange.getResponseBody();
+                os.write(content, start, end - start + 1);
+                os.close();
+            }
+        });
+        this.server.start();
+        this.url = new URL("http://localhost:" + this.server.getAddress().getPort() + "/elev16_cog.tif");
+
+        this.cacheDir = File.createTempFile("ByteRangeChannelTest", "");
+        this.cacheDir.delete();
+        this.fileStore = new BasicDataFileStore(this.cacheDir);
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        this.server.stop(0);
+        ByteRangeChannel.getMemoryCache().clear();
+        WWIO.deleteDirectory(this.cacheDir);
+        this.cacheDir.delete();
+    }
+
+    @Test
+    public void testRangeRetriever() throws Exception
+    {
+        HTTPRangeRetriever retriever = new HTTPRangeRetriever(this.url, 100, 50, null);
+        retriever.call();
+
+        assertEquals(Retriever.RETRIEVER_STATE_SUCCESSFUL, retriever.getState());
+        assertEquals(206, retriever.getResponseCode());
+        assertEquals(this.content.length, retriever.getResourceLength());
+        assertBytes(100, retriever.getBuffer());
+    }
+
+    @Test
+    public void testRangeRetrieverWithoutServerSupport() throws Exception
+    {
+        this.supportRanges = false;
+
+        HTTPRangeRetriever retriever = new HTTPRangeRetriever(this.url, 100, 50, null);
+        retriever.call();
+
+        assertEquals(200, retriever.getResponseCode());
+        assertEquals(this.content.length, retriever.getResourceLength());
+        assertBytes(100, retriever.getBuffer());
+    }
+
+    @Test
+    public void testRangeRetrieversAreDistinct() throws Exception
+    {
+        assertEquals(new HTTPRangeRetriever(this.url, 0, 10, null), new HTTPRangeRetriever(this.url, 0, 10, null));
+        assertFalse(new HTTPRangeRetriever(this.url, 0, 10, null).equals(
+            new HTTPRangeRetriever(this.url, 10, 10, null)));
+    }
+
+    @Test
+    public void testReadRetrievesOnlyMissingBlocks() throws Exception
+    {
+        ByteRangeChannel channel = new ByteRangeChannel(this.url, this.fileStore, "cog", BLOCK_SIZE, 0);
+        assertEquals(this.content.length, channel.size());
+        assertEquals(1, channel.getRequestCount()); // the first block, to determine the length
+
+        // Spans blocks 2 to 4, retrieved with a single request.
+        ByteBuffer buffer = ByteBuffer.allocate(3 * BLOCK_SIZE - 100);
+        assertEquals(buffer.capacity(), channel.read(buffer, 2 * BLOCK_SIZE + 50));
+        buffer.flip();
+        assertBytes(2 * BLOCK_SIZE + 50, buffer);
+        assertEquals(2, channel.getRequestCount());
+        assertEquals(4 * BLOCK_SIZE, channel.getBytesRetrieved());
+
+        // Blocks 0 and 2 are cached; only block 1 is retrieved.
+        buffer = ByteBuffer.allocate(2 * BLOCK_SIZE + 10);
+        assertEquals(buffer.capacity(), channel.read(buffer, 10));
+        buffer.flip();
+        assertBytes(10, buffer);
+        assertEquals(3, channel.getRequestCount());
+    }
+
+    @Test
+    public void testReadAtEndOfResource() throws Exception
+    {
+        ByteRangeChannel channel = new ByteRangeChannel(this.url, this.fileStore, "cog", BLOCK_SIZE, 0);
+
+        ByteBuffer buffer = ByteBuffer.allocate(100);
+        assertEquals(40, channel.read(buffer, this.content.length - 40));
+        buffer.flip();
+        assertBytes(this.content.length - 40, buffer);
+
+        buffer.clear();
+        assertEquals(-1, channel.read(buffer, this.content.length));
+
+        channel.position(this.content.length - 10);
+        buffer.clear();
+        assertEquals(10, channel.read(buffer));
+        assertEquals(this.content.length, channel.position());
+        assertEquals(-1, channel.read(buffer));
+    }
+
+    @Test
+    public void testBlocksAreReadFromFileStore() throws Exception
+    {
+        ByteRangeChannel channel = new ByteRangeChannel(this.url, this.fileStore, "cog", BLOCK_SIZE, 0);
+        channel.read(ByteBuffer.allocate(this.content.length), 0);
+        assertEquals(2, channel.getRequestCount());
+
+        ByteRangeChannel.getMemoryCache().clear();
+
+        channel = new ByteRangeChannel(this.url, this.fileStore, "cog", BLOCK_SIZE, 0);
+        ByteBuffer buffer = ByteBuffer.allocate(this.content.length);
+        assertEquals(this.content.length, channel.read(buffer, 0));
+        buffer.flip();
+        assertBytes(0, buffer);
+        assertEquals(0, channel.getRequestCount());
+    }
+
+    @Test
+    public void testTruncatedBlockIsRetrievedAgain() throws Exception
+    {
+        ByteRangeChannel channel = new ByteRangeChannel(this.url, this.fileStore, "cog", BLOCK_SIZE, 0);
+        channel.read(ByteBuffer.allocate(10), BLOCK_SIZE);
+
+        ByteRangeChannel.getMemoryCache().clear();
+        File blockFile = new File(this.fileStore.findFile("cog/1.blk", false).toURI());
+        WWIO.writeTextFile("truncated", blockFile);
+
+        channel = new ByteRangeChannel(this.url, this.fileStore, "cog", BLOCK_SIZE, 0);
+        ByteBuffer buffer = ByteBuffer.allocate(BLOCK_SIZE);
+        channel.read(buffer, BLOCK_SIZE);
+        buffer.flip();
+        assertBytes(BLOCK_SIZE, buffer);
+        assertEquals(1, channel.getRequestCount());
+        assertEquals(BLOCK_SIZE, blockFile.length());
+    }
+
+    @Test
+    public void testExpiredBlocksAreRetrievedAgain() throws Exception
+    {
+        ByteRangeChannel channel = new ByteRangeChannel(this.url, this.fileStore, "cog", BLOCK_SIZE, 0);
+        channel.read(ByteBuffer.allocate(10), BLOCK_SIZE);
+
+        ByteRangeChannel.getMemoryCache().clear();
+
+        long expiryTime = System.currentTimeMillis() + 1000;
+        channel = new ByteRangeChannel(this.url, this.fileStore, "cog", BLOCK_SIZE, expiryTime);
+        channel.read(ByteBuffer.allocate(10), BLOCK_SIZE);
+        assertEquals(2, channel.getRequestCount()); // the first block and the expired block
+    }
+
+    private void assertBytes(int offset, ByteBuffer buffer)
+    {
+        int n = buffer.remaining();
+        for (int i = 0; i < n; i++)
+        {
+            assertEquals("byte " + (offset + i), this.content[offset + i], buffer.get());
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.terrain;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.util.*;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.*;
+import java.net.URL;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class COGElevationModelTest
+{
+    private static final String ELEVATION_PATH = "testData/cog/elev16_cog.tif";
+    private static final double PIXEL_SIZE = 0.5 / 255; // pixel-is-point spacing of the 256 x 256 test file
+
+    private COGElevationModel model;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        AVList params = new AVListImpl();
+        params.setValue(AVKey.TILE_WIDTH, 64);
+        params.setValue(AVKey.TILE_HEIGHT, 64);
+
+        this.model = new COGElevationModel(new File(ELEVATION_PATH).toURI().toURL(), params);
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.model.dispose();
+    }
+
+    @Test
+    public void testConfiguration()
+    {
+        assertEquals(3, this.model.getLevels().getNumLevels());
+        assertEquals(AVKey.INT16, this.model.getElevationDataType());
+        assertEquals(-32768, this.model.getMissingDataSignal(), 0);
+        assertEquals("elev16_cog.tif", this.model.getName());
+
+        // The extremes exclude missing elevations.
+        assertTrue(this.model.getMinElevation() > 400 && this.model.getMinElevation() < 600);
+        assertTrue(this.model.getMaxElevation() > 1900 && this.model.getMaxElevation() < 2000);
+    }
+
+    @Test
+    public void testRetrieveElevations()
+    {
+        // The south west tile of the last level.
+        BasicElevationModel.ElevationTile tile = this.model.createTile(new TileKey(2, 0, 0,
+            this.model.getLevels().getLevel(2).getCacheName()));
+        this.model.retrieveElevations(tile, null);
+
+        BufferWrapper elevations = tile.getElevations();
+        assertNotNull(elevations);
+        assertEquals(64 * 64, elevations.length());
+        assertFalse(this.model.getLevels().isResourceAbsent(tile));
+
+        // Elevations are stored in rows from north to south.
+        Sector sector = tile.getSector();
+        for (int row = 0; row < 64; row += 9)
+        {
+            for (int col = 0; col < 64; col += 9)
+            {
+                double lat = sector.getMaxLatitude().degrees - row * sector.getDeltaLatDegrees() / 63;
+                double lon = sector.getMinLongitude().degrees + col * sector.getDeltaLonDegrees() / 63;
+                assertEquals(expectedElevation(lat, lon), elevations.getDouble(row * 64 + col), 2);
+            }
+        }
+    }
+
+    @Test
+    public void testMissingElevations()
+    {
+        // The north east tile of the last level includes the file's block of missing elevations.
+        BasicElevationModel.ElevationTile tile = this.model.createTile(new TileKey(2, 3, 3,
+            this.model.getLevels().getLevel(2).getCacheName()));
+        this.model.retrieveElevations(tile, null);
+
+        BufferWrapper elevations = tile.getElevations();
+        assertEquals(-32768, elevations.getDouble(0 * 64 + 63), 0);
+        assertTrue(elevations.getDouble(63 * 64) > 0);
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsImagery() throws Exception
+    {
+        new COGElevationModel(new URL(new File("testData/cog/rgb_cog.tif").toURI().toString()));
+    }
+
+    private static double expectedElevation(double lat, double lon)
+    {
+        double x = (lon + 121) / PIXEL_SIZE;
+        double y = (46 - lat) / PIXEL_SIZE;
+        return 1000 + 500 * Math.sin(x / 20) * Math.cos(y / 25) + 2 * x;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.util;
+
+import gov.nasa.worldwind.geom.LatLon;
+import gov.nasa.worldwind.globes.*;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class ContourBufferTest
+{
+    private static final List<LatLon> simpleContour = Arrays.asList(
+        LatLon.fromDegrees(10, 20), LatLon.fromDegrees(10, 30), LatLon.fromDegrees(20, 30), LatLon.fromDegrees(10, 20));
+    private static final List<LatLon> datelineContour = Arrays.asList(
+        LatLon.fromDegrees(-10, 170), LatLon.fromDegrees(-10, -170), LatLon.fromDegrees(10, -170),
+        LatLon.fromDegrees(10, 170), LatLon.fromDegrees(-10, 170));
+    private static final List<LatLon> northPoleContour = Arrays.asList(
+        LatLon.fromDegrees(70, -120), LatLon.fromDegrees(75, 0), LatLon.fromDegrees(70, 120),
+        LatLon.fromDegrees(70, -120));
+    private static final List<LatLon> southPoleContour = Arrays.asList(
+        LatLon.fromDegrees(-70, -120), LatLon.fromDegrees(-70, 120), LatLon.fromDegrees(-75, 0),
+        LatLon.fromDegrees(-70, -120));
+
+    @Test
+    public void testAddAndRetrieveContours()
+    {
+        ContourBuffer buffer = ContourBuffer.fromLocationLists(Arrays.asList(simpleContour, datelineContour));
+
+        assertEquals(2, buffer.getContourCount());
+        assertEquals(simpleContour.size() + datelineContour.size(), buffer.size());
+        assertEquals(simpleContour.size(), buffer.getContourOffset(1));
+        assertEquals(datelineContour.size(), buffer.getContourSize(1));
+        assertEquals(simpleContour, buffer.getContour(0));
+        assertEquals(Arrays.asList(simpleContour, datelineContour), buffer.toLocationLists());
+
+        buffer.removeLastContour();
+        assertEquals(1, buffer.getContourCount());
+        assertEquals(simpleContour.size(), buffer.size());
+
+        buffer.trimToSize();
+        assertEquals(2 * simpleContour.size(), buffer.getCoords().length);
+
+        buffer.clear();
+        assertTrue(buffer.isEmpty());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    public void testGrowsPastInitialCapacity()
+    {
+        ContourBuffer buffer = new ContourBuffer(0);
+        for (int i = 0; i < 100; i++)
+        {
+            buffer.beginContour();
+            for (int j = 0; j <= i; j++)
+            {
+                buffer.add(i, j);
+            }
+        }
+
+        assertEquals(100, buffer.getContourCount());
+        assertEquals(5050, buffer.size());
+        assertEquals(100, buffer.getContourSize(99));
+        assertEquals(99.0, buffer.getLatitude(buffer.getContourOffset(99)), 0);
+        assertEquals(42.0, buffer.getLongitude(buffer.getContourOffset(99) + 42), 0);
+    }
+
+    @Test
+    public void testDatelineAndPoleTestsMatchLatLon()
+    {
+        List<List<LatLon>> contours = Arrays.asList(simpleContour, datelineContour, northPoleContour,
+            southPoleContour);
+        ContourBuffer buffer = ContourBuffer.fromLocationLists(contours);
+
+        for (int i = 0; i < contours.size(); i++)
+        {
+            assertEquals("Crossing " + i, LatLon.locationsCrossDateLine(contours.get(i)), buffer.crossesDateLine(i));
+            assertEquals("Pole " + i, LatLon.locationsContainPole(contours.get(i)), buffer.containsPole(i));
+            assertEquals("Winding " + i, WWMath.computeWindingOrderOfLocations(contours.get(i)),
+                buffer.computeWindingOrder(i));
+        }
+    }
+
+    @Test
+    public void testRepeatAroundDatelineMatchesLatLon()
+    {
+        List<List<LatLon>> contours = Arrays.asList(simpleContour, datelineContour, northPoleContour);
+        ContourBuffer buffer = ContourBuffer.fromLocationLists(contours);
+
+        for (int i = 0; i < contours.size(); i++)
+        {
+            ContourBuffer dest = new ContourBuffer();
+            buffer.repeatAroundDateline(i, dest);
+
+            assertEquals(LatLon.repeatLocationsAroundDateline(contours.get(i)), dest.toLocationLists());
+        }
+    }
+
+    @Test
+    public void testCutAlongDatelineMatchesLatLon()
+    {
+        Globe globe = new Earth();
+        List<List<LatLon>> contours = Arrays.asList(northPoleContour, southPoleContour);
+        ContourBuffer buffer = ContourBuffer.fromLocationLists(contours);
+
+        for (int i = 0; i < contours.size(); i++)
+        {
+            String pole = buffer.containsPole(i);
+            ContourBuffer dest = new ContourBuffer();
+            buffer.cutAlongDateLine(i, pole, globe, dest);
+
+            assertEquals(1, dest.getContourCount());
+            assertEquals(LatLon.cutLocationsAlongDateLine(contours.get(i), pole, globe), dest.getContour(0));
+        }
+    }
+
+    @Test
+    public void testReverseContour()
+    {
+        ContourBuffer buffer = ContourBuffer.fromLocationLists(Arrays.asList(simpleContour, northPoleContour));
+        buffer.reverseContour(1);
+
+        List<LatLon> expected = new ArrayList<LatLon>(northPoleContour);
+        Collections.reverse(expected);
+
+        assertEquals(simpleContour, buffer.getContour(0));
+        assertEquals(expected, buffer.getContour(1));
+        assertFalse(WWMath.computeWindingOrderOfLocations(northPoleContour).equals(buffer.computeWindingOrder(1)));
+    }
+}
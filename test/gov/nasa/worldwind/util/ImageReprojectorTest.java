@@ -0,0 +1,162 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.util;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.formats.worldfile.WorldFile;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.Earth;
+import gov.nasa.worldwind.globes.projections.ProjectionEquirectangular;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.awt.image.BufferedImage;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class ImageReprojectorTest
+{
+    private static final int ZONE = 11;
+    private static final double EASTING = 400000;
+    private static final double NORTHING = 3800000;
+    private static final double PIXEL_SIZE = 30;
+
+    @Test
+    public void testGridMatchesExactTransform()
+    {
+        BufferedImage source = createGradientImage(600, 400);
+        ImageReprojector.InverseTransform transform = createUTMTransform();
+        Sector sector = Sector.fromDegrees(34.2, 34.3, -118.1, -118.0);
+
+        BufferedImage exact = ImageReprojector.reproject(source, transform, sector, 300, 300,
+            ImageUtil.BILINEAR_INTERPOLATION, 0);
+        BufferedImage grid = ImageReprojector.reproject(source, transform, sector, 300, 300,
+            ImageUtil.BILINEAR_INTERPOLATION);
+
+        int opaque = 0;
+        for (int y = 0; y < 300; y++)
+        {
+            for (int x = 0; x < 300; x++)
+            {
+                int e = exact.getRGB(x, y);
+                int g = grid.getRGB(x, y);
+                if ((e >>> 24) == 255 && (g >>> 24) == 255)
+                {
+                    opaque++;
+                    for (int shift = 0; shift < 24; shift += 8)
+                    {
+                        assertEquals("Pixel " + x + ", " + y, (e >>> shift) & 0xFF, (g >>> shift) & 0xFF, 1);
+                    }
+                }
+            }
+        }
+
+        assertTrue("Sector does not overlap the source", opaque > 300 * 300 / 2);
+    }
+
+    @Test
+    public void testEquirectangularIdentity()
+    {
+        BufferedImage source = createGradientImage(200, 100);
+        Sector sector = Sector.fromDegrees(10, 12, 20, 24);
+
+        Earth earth = new Earth();
+        double pixelWidth = earth.getEquatorialRadius() * sector.getDeltaLonRadians() / 200;
+        double pixelHeight = earth.getEquatorialRadius() * sector.getDeltaLatRadians() / 100;
+        ImageReprojector.InverseTransform transform = new ImageReprojector.ProjectionTransform(
+            new ProjectionEquirectangular(), earth,
+            earth.getEquatorialRadius() * sector.getMinLongitude().radians + 0.5 * pixelWidth,
+            earth.getEquatorialRadius() * sector.getMaxLatitude().radians - 0.5 * pixelHeight,
+            pixelWidth, -pixelHeight);
+
+        BufferedImage result = ImageReprojector.reproject(source, transform, sector, 200, 100,
+            ImageUtil.NEAREST_NEIGHBOR_INTERPOLATION);
+
+        for (int y = 0; y < 100; y++)
+        {
+            for (int x = 0; x < 200; x++)
+            {
+                assertEquals("Pixel " + x + ", " + y, source.getRGB(x, y), result.getRGB(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void testReprojectUtmToGeographic()
+    {
+        BufferedImage source = createGradientImage(300, 200);
+
+        AVList values = new AVListImpl();
+        values.setValue(AVKey.IMAGE, source);
+        values.setValue(WorldFile.WORLD_FILE_X_PIXEL_SIZE, PIXEL_SIZE);
+        values.setValue(WorldFile.WORLD_FILE_Y_PIXEL_SIZE, -PIXEL_SIZE);
+        values.setValue(WorldFile.WORLD_FILE_X_LOCATION, EASTING + 0.5 * PIXEL_SIZE);
+        values.setValue(WorldFile.WORLD_FILE_Y_LOCATION, NORTHING - 0.5 * PIXEL_SIZE);
+        values.setValue(AVKey.PROJECTION_ZONE, ZONE);
+        values.setValue(AVKey.PROJECTION_HEMISPHERE, AVKey.NORTH);
+
+        ImageUtil.reprojectUtmToGeographic(values, ImageUtil.NEAREST_NEIGHBOR_INTERPOLATION);
+
+        Sector sector = (Sector) values.getValue(AVKey.SECTOR);
+        BufferedImage result = (BufferedImage) values.getValue(AVKey.IMAGE);
+        assertNotNull(sector);
+        assertEquals(300, result.getWidth());
+        assertEquals(200, result.getHeight());
+
+        // The image's center is near the center of its bounding sector, and the sector's corners lie outside the
+        // rotated UTM footprint.
+        int center = result.getRGB(150, 100);
+        assertEquals(255, center >>> 24);
+        assertEquals(150 / 2, (center >> 16) & 0xFF, 2);
+        assertEquals(100 / 2, (center >> 8) & 0xFF, 2);
+    }
+
+    private static ImageReprojector.InverseTransform createUTMTransform()
+    {
+        return new ImageReprojector.TMTransform(new Earth(), Angle.ZERO, Angle.fromDegrees(-117), 500000, 0, 0.9996,
+            EASTING + 0.5 * PIXEL_SIZE, NORTHING - 0.5 * PIXEL_SIZE, PIXEL_SIZE, -PIXEL_SIZE);
+    }
+
+    private static BufferedImage createGradientImage(int width, int height)
+    {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                image.setRGB(x, y, 0xFF000000 | ((x / 2) << 16) | ((y / 2) << 8) | ((x + y) % 256));
+            }
+        }
+
+        return image;
+    }
+}
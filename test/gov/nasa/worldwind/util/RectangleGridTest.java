@@ -0,0 +1,145 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+
+package gov.nasa.worldwind.util;
+
+import gov.nasa.worldwind.render.*;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.awt.geom.Rectangle2D;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class RectangleGridTest
+{
+    @Test
+    public void testMatchesLinearSearch()
+    {
+        Random random = new Random(7);
+        Rectangle2D[] rectangles = new Rectangle2D[2000];
+        for (int i = 0; i < rectangles.length; i++)
+        {
+            // Include rectangles beyond the grid's extent and rectangles larger than a cell.
+            double width = i % 50 == 0 ? 600 : 10 + 60 * random.nextDouble();
+            rectangles[i] = new Rectangle2D.Double(1200 * random.nextDouble() - 100, 800 * random.nextDouble() - 100,
+                width, 16);
+        }
+
+        RectangleGrid grid = new RectangleGrid();
+        grid.reset(new Rectangle2D.Double(0, 0, 1000, 600), 40, 16);
+        List<Rectangle2D> added = new ArrayList<Rectangle2D>();
+
+        for (Rectangle2D rectangle : rectangles)
+        {
+            Rectangle2D expected = null;
+            for (Rectangle2D r : added)
+            {
+                if (rectangle.intersects(r))
+                {
+                    expected = r;
+                    break;
+                }
+            }
+
+            assertSame(expected, grid.findFirstIntersecting(rectangle));
+
+            if (expected == null || random.nextBoolean())
+            {
+                grid.add(rectangle);
+                added.add(rectangle);
+            }
+        }
+
+        assertEquals(added.size(), grid.size());
+    }
+
+    @Test
+    public void testPriorityComparator()
+    {
+        final Label low = new Label(new Rectangle2D.Double(0, 0, 50, 10), 2);
+        final Label high = new Label(new Rectangle2D.Double(25, 5, 50, 10), 1);
+        List<Declutterable> labels = Arrays.<Declutterable>asList(low, high);
+
+        BasicClutterFilter filter = new BasicClutterFilter();
+        DrawContext dc = new DrawContextImpl();
+        filter.apply(dc, labels);
+        assertSame("Front-most label not drawn", low, dc.peekOrderedRenderables());
+
+        filter.setPriorityComparator(new Comparator<Declutterable>()
+        {
+            public int compare(Declutterable a, Declutterable b)
+            {
+                return ((Label) a).priority - ((Label) b).priority;
+            }
+        });
+        dc = new DrawContextImpl();
+        filter.apply(dc, labels);
+        assertSame("Priority label not drawn", high, dc.pollOrderedRenderables());
+        assertNull(dc.pollOrderedRenderables());
+    }
+
+    private static class Label implements Declutterable
+    {
+        private final Rectangle2D bounds;
+        private final int priority;
+
+        public Label(Rectangle2D bounds, int priority)
+        {
+            this.bounds = bounds;
+            this.priority = priority;
+        }
+
+        public boolean isEnableDecluttering()
+        {
+            return true;
+        }
+
+        public Rectangle2D getBounds(DrawContext dc)
+        {
+            return this.bounds;
+        }
+
+        public double getDistanceFromEye()
+        {
+            return 0;
+        }
+
+        public void pick(DrawContext dc, java.awt.Point pickPoint)
+        {
+        }
+
+        public void render(DrawContext dc)
+        {
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ *
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ *
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+package gov.nasa.worldwind.util.xml;
+
+import gov.nasa.worldwind.*;
+import gov.nasa.worldwind.avlist.AVKey;
+import gov.nasa.worldwind.geom.Position;
+import gov.nasa.worldwind.ogc.collada.*;
+import gov.nasa.worldwind.ogc.kml.*;
+import gov.nasa.worldwind.util.WWXML;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.events.*;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class BinaryXMLEventCacheTest
+{
+    private File tmpFile;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        this.tmpFile = File.createTempFile("BinaryXMLEventCacheTest", BinaryXMLEventCache.CACHE_SUFFIX);
+    }
+
+    @After
+    public void tearDown()
+    {
+        Configuration.removeKey(AVKey.XML_EVENT_CACHE_ENABLED);
+        this.tmpFile.delete();
+    }
+
+    @Test
+    public void testRecordAndReplay() throws Exception
+    {
+        XMLEventReader source = WWXML.openEventReader("testData/KML/StyleMap.kml", true);
+        RecordingXMLEventReader recorder = new RecordingXMLEventReader(source, this.tmpFile);
+        StringBuilder expected = new StringBuilder();
+        while (recorder.hasNext())
+        {
+            appendEvent(expected, recorder.nextEvent());
+        }
+        recorder.close();
+
+        assertTrue("Recording not written", recorder.isFinished() && this.tmpFile.length() > 0);
+
+        XMLEventReader replay = new BinaryXMLEventReader(this.tmpFile);
+        StringBuilder actual = new StringBuilder();
+        while (replay.hasNext())
+        {
+            appendEvent(actual, replay.nextEvent());
+        }
+
+        assertEquals(expected.toString(), actual.toString());
+    }
+
+    @Test
+    public void testIncompleteRecordingIsDiscarded() throws Exception
+    {
+        this.tmpFile.delete();
+
+        XMLEventReader source = WWXML.openEventReader("testData/KML/StyleMap.kml", true);
+        RecordingXMLEventReader recorder = new RecordingXMLEventReader(source, this.tmpFile);
+        recorder.nextEvent();
+        recorder.nextEvent();
+        recorder.close();
+
+        assertFalse(recorder.isFinished());
+        assertFalse(this.tmpFile.exists());
+    }
+
+    @Test
+    public void testNumericElementsRecordedAsNumbers() throws Exception
+    {
+        String xml = "<doc><f>1.5 -2 3e2</f><i>0 7 42</i><c>-122.5,37.25,10 -121,38</c>"
+            + "<c>-122.5, 37.25</c><f>1 x</f><i>3<b/>4</i></doc>";
+
+        Map<QName, Integer> numericElements = new HashMap<QName, Integer>();
+        numericElements.put(new QName("f"), NumericCharacters.FLOATS);
+        numericElements.put(new QName("i"), NumericCharacters.INTS);
+        numericElements.put(new QName("c"), NumericCharacters.COORDINATES);
+
+        XMLEventReader source = WWXML.openEventReaderStream(
+            new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), true);
+        RecordingXMLEventReader recorder = new RecordingXMLEventReader(source, this.tmpFile, numericElements);
+        while (recorder.hasNext())
+        {
+            recorder.nextEvent();
+        }
+        recorder.close();
+
+        List<Characters> characters = new ArrayList<Characters>();
+        XMLEventReader replay = new BinaryXMLEventReader(this.tmpFile);
+        while (replay.hasNext())
+        {
+            XMLEvent event = replay.nextEvent();
+            if (event.isCharacters())
+                characters.add(event.asCharacters());
+        }
+
+        assertEquals(7, characters.size());
+        assertTrue(Arrays.equals(new float[] {1.5f, -2f, 300f}, ((NumericCharacters) characters.get(0)).getFloats()));
+        assertTrue(Arrays.equals(new int[] {0, 7, 42}, ((NumericCharacters) characters.get(1)).getInts()));
+        assertTrue(Arrays.equals(new double[] {-122.5, 37.25, 10, -121, 38, 0},
+            ((NumericCharacters) characters.get(2)).getCoordinates()));
+        assertEquals("0 7 42", characters.get(1).getData());
+
+        // Content that is not in the element's numeric form, or that is interrupted by a child element, stays text.
+        assertFalse(characters.get(3) instanceof NumericCharacters);
+        assertEquals("-122.5, 37.25", characters.get(3).getData());
+        assertFalse(characters.get(4) instanceof NumericCharacters);
+        assertEquals("1 x", characters.get(4).getData());
+        assertEquals("3", characters.get(5).getData());
+        assertEquals("4", characters.get(6).getData());
+    }
+
+    @Test
+    public void testKMLWarmLoad() throws Exception
+    {
+        Configuration.setValue(AVKey.XML_EVENT_CACHE_ENABLED, true);
+
+        KMLRoot cold = KMLRoot.createAndParse("testData/KML/StyleMap.kml");
+        String cachePath = BinaryXMLEventCache.makeCachePath(new File("testData/KML/StyleMap.kml"), "KML");
+        assertNotNull("Cache entry not written", WorldWind.getDataFileStore().findFile(cachePath, false));
+
+        KMLRoot warm = KMLRoot.createAndParse("testData/KML/StyleMap.kml");
+
+        assertEquals(cold.getFeature().getName(), warm.getFeature().getName());
+        assertEquals(cold.getFeature().getClass(), warm.getFeature().getClass());
+        assertNotNull(warm.resolveReference("#normalPlacemark"));
+
+        KMLPlacemark coldPlacemark = (KMLPlacemark) ((KMLDocument) cold.getFeature()).getFeatures().get(0);
+        KMLPlacemark warmPlacemark = (KMLPlacemark) ((KMLDocument) warm.getFeature()).getFeatures().get(0);
+        Position coldPosition = ((KMLPoint) coldPlacemark.getGeometry()).getCoordinates();
+        Position warmPosition = ((KMLPoint) warmPlacemark.getGeometry()).getCoordinates();
+        assertEquals(coldPosition, warmPosition);
+        assertEquals(Position.fromDegrees(37.42243077405461, -122.0856545755255, 0), warmPosition);
+    }
+
+    @Test
+    public void testColladaWarmLoad() throws Exception
+    {
+        Configuration.setValue(AVKey.XML_EVENT_CACHE_ENABLED, true);
+
+        ColladaRoot cold = ColladaRoot.createAndParse("testData/collada/cube_triangulate.dae");
+        ColladaRoot warm = ColladaRoot.createAndParse("testData/collada/cube_triangulate.dae");
+
+        ColladaFloatArray coldArray = (ColladaFloatArray) cold.resolveReference("#box-lib-positions-array");
+        ColladaFloatArray warmArray = (ColladaFloatArray) warm.resolveReference("#box-lib-positions-array");
+        assertNotNull(coldArray);
+        assertNotNull(warmArray);
+        assertTrue(Arrays.equals(coldArray.getFloats(), warmArray.getFloats()));
+
+        ColladaP coldP = (ColladaP) ((ColladaGeometry) cold.resolveReference("#box-lib")).getMesh().getTriangles()
+            .get(0).getField("p");
+        ColladaP warmP = (ColladaP) ((ColladaGeometry) warm.resolveReference("#box-lib")).getMesh().getTriangles()
+            .get(0).getField("p");
+        assertNotNull(coldP.getIndices());
+        assertTrue(Arrays.equals(coldP.getIndices(), warmP.getIndices()));
+    }
+
+    private static void appendEvent(StringBuilder sb, XMLEvent event)
+    {
+        sb.append(event.getEventType()).append(':');
+        if (event.isStartElement())
+        {
+            sb.append(event.asStartElement().getName());
+            for (Iterator iter = event.asStartElement().getAttributes(); iter.hasNext(); )
+            {
+                Attribute a = (Attribute) iter.next();
+                sb.append(' ').append(a.getName()).append('=').append(a.getValue());
+            }
+        }
+        else if (event.isEndElement())
+            sb.append(event.asEndElement().getName());
+        else if (event.isCharacters())
+            sb.append(event.asCharacters().getData());
+        sb.append('\n');
+    }
+}